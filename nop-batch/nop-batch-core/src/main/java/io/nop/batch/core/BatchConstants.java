@@ -26,6 +26,13 @@ public interface BatchConstants {
     String METER_ITEM_RETRY = "batch.item.retry";
     String METER_ITEM_SKIP = "batch.item.skip";
 
+    String METER_STAGE_BUSY = "batch.stage.busy";
+    String METER_STAGE_WAIT = "batch.stage.wait";
+
+    String STAGE_LOAD = "load";
+    String STAGE_PROCESS = "process";
+    String STAGE_CONSUME = "consume";
+
     String STATUS_SUCCESS = "SUCCESS";
     String STATUS_FAILURE = "FAILURE";
 
@@ -32,4 +32,9 @@ public interface BatchErrors {
 
     ErrorCode ERR_BATCH_TOO_MANY_PROCESSING_ITEMS = define("nop.err.batch.too-many-processing-items",
             "正在处理的记录过多，程序可能存在内存泄露");
+
+    String ARG_OPTION = "option";
+
+    ErrorCode ERR_BATCH_PIPELINE_NOT_SUPPORT_OPTION = define("nop.err.batch.pipeline-not-support-option",
+            "流水线模式下不支持选项[{option}]", ARG_OPTION);
 }
@@ -8,6 +8,7 @@
 package io.nop.batch.core;
 
 import io.nop.api.core.annotations.core.PropertySetter;
+import io.nop.api.core.exceptions.NopException;
 import io.nop.api.core.util.Guard;
 import io.nop.batch.core.consumer.BatchConsumerWithListener;
 import io.nop.batch.core.consumer.BatchProcessorConsumer;
@@ -18,6 +19,7 @@ import io.nop.batch.core.consumer.RateLimitConsumer;
 import io.nop.batch.core.consumer.RetryBatchConsumer;
 import io.nop.batch.core.consumer.SkipBatchConsumer;
 import io.nop.batch.core.consumer.WitchHistoryBatchConsumer;
+import io.nop.batch.core.impl.BatchPipeline;
 import io.nop.batch.core.impl.BatchTask;
 import io.nop.batch.core.listener.MetricsRetryConsumeListener;
 import io.nop.batch.core.listener.MultiBatchChunkListener;
@@ -47,6 +49,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
 
+import static io.nop.batch.core.BatchErrors.ARG_OPTION;
+import static io.nop.batch.core.BatchErrors.ERR_BATCH_PIPELINE_NOT_SUPPORT_OPTION;
+
 /**
  * 负责创建{@link IBatchTask}的工厂类。它负责组织skip/retry/transaction/process/listener的处理顺序
  */
@@ -105,6 +110,18 @@ public class BatchTaskBuilder implements IBuilder<IBatchTask> {
      */
     private double jitterRatio;
 
+    /**
+     * 流水线模式下load/process/consume分别在独立的线程中执行，此时concurrency表示consume阶段的并发数
+     */
+    private boolean pipelined;
+    private int loadConcurrency = 1;
+    private int processConcurrency = 1;
+
+    /**
+     * 流水线中已读取但尚未被消费的chunk的最大个数
+     */
+    private int pipelineQueueCapacity = 4;
+
     public static BatchTaskBuilder create() {
         return new BatchTaskBuilder();
     }
@@ -181,6 +198,30 @@ public class BatchTaskBuilder implements IBuilder<IBatchTask> {
         return this;
     }
 
+    @PropertySetter
+    public BatchTaskBuilder pipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+        return this;
+    }
+
+    @PropertySetter
+    public BatchTaskBuilder loadConcurrency(int loadConcurrency) {
+        this.loadConcurrency = loadConcurrency;
+        return this;
+    }
+
+    @PropertySetter
+    public BatchTaskBuilder processConcurrency(int processConcurrency) {
+        this.processConcurrency = processConcurrency;
+        return this;
+    }
+
+    @PropertySetter
+    public BatchTaskBuilder pipelineQueueCapacity(int pipelineQueueCapacity) {
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+        return this;
+    }
+
     @PropertySetter
     public BatchTaskBuilder executor(Executor executor) {
         this.executor = executor;
@@ -351,12 +392,46 @@ public class BatchTaskBuilder implements IBuilder<IBatchTask> {
             chunkListener = new MultiBatchChunkListener(new ArrayList<>(chunkListeners));
         }
 
+        if (pipelined)
+            return new BatchTask(buildPipeline(), chunkListener, taskListener, stateStore);
+
         IBatchChunkProcessor chunkProcessor = buildChunkProcessor();
 
         return new BatchTask(executor, concurrency, chunkProcessor, chunkListener, taskListener, stateStore);
     }
 
-    protected IBatchChunkProcessor buildChunkProcessor() {
+    protected BatchPipeline buildPipeline() {
+        // 以下选项需要包装整个load/process/consume过程，无法拆分到不同的线程中执行
+        if (chunkProcessorBuilder != null)
+            throw new NopException(ERR_BATCH_PIPELINE_NOT_SUPPORT_OPTION).param(ARG_OPTION, "chunkProcessorBuilder");
+
+        if (batchTransactionScope == BatchTransactionScope.chunk && transactionalInvoker != null)
+            throw new NopException(ERR_BATCH_PIPELINE_NOT_SUPPORT_OPTION).param(ARG_OPTION, "transactionScope");
+
+        if (singleSession && singleSessionInvoker != null)
+            throw new NopException(ERR_BATCH_PIPELINE_NOT_SUPPORT_OPTION).param(ARG_OPTION, "singleSession");
+
+        IBatchLoader loader = buildLoader();
+        IBatchConsumer consumer = buildConsumer();
+
+        // retry/skip/history以及process范围的事务需要同时包装processor和consumer，此时processor只能在consume阶段执行
+        boolean separateProcess = this.processor != null && retryPolicy == null && skipPolicy == null
+                && historyStore == null && batchTransactionScope != BatchTransactionScope.process;
+
+        if (separateProcess) {
+            BatchProcessorConsumer processor = new BatchProcessorConsumer(buildProcessor(), consumer);
+            if (rateLimit > 0)
+                consumer = new RateLimitConsumer<>(consumer, new DefaultRateLimiter(rateLimit));
+            return new BatchPipeline(loader, processor, consumer, batchSize, jitterRatio,
+                    loadConcurrency, processConcurrency, concurrency, pipelineQueueCapacity);
+        }
+
+        consumer = decorateConsumer(consumer);
+        return new BatchPipeline(loader, null, consumer, batchSize, jitterRatio,
+                loadConcurrency, processConcurrency, concurrency, pipelineQueueCapacity);
+    }
+
+    protected IBatchLoader buildLoader() {
         IBatchLoader loader = this.loader;
 
         if (inputComparator != null)
@@ -367,7 +442,10 @@ public class BatchTaskBuilder implements IBuilder<IBatchTask> {
             IBatchLoadListener loadListener = new MultiBatchLoadListener(new ArrayList<>(loadListeners));
             loader = new BatchLoaderWithListener(loader, loadListener);
         }
+        return loader;
+    }
 
+    protected IBatchConsumer buildConsumer() {
         IBatchConsumer consumer = this.consumer;
         if (consumer == null)
             consumer = EmptyBatchConsumer.instance();
@@ -382,15 +460,22 @@ public class BatchTaskBuilder implements IBuilder<IBatchTask> {
             // 仅在consume阶段打开事务。process可以是纯逻辑处理过程，不涉及到修改数据库，而读数据一般不需要打开事务。
             consumer = new InvokerBatchConsumer(transactionalInvoker, consumer);
         }
+        return consumer;
+    }
+
+    protected IBatchProcessor buildProcessor() {
+        IBatchProcessor processor = this.processor;
+        if (!this.processListeners.isEmpty()) {
+            IBatchProcessListener processListener = new MultiBatchProcessListener(new ArrayList<>(this.processListeners));
+            processor = new BatchProcessorWithListener<>(processor, processListener);
+        }
+        return processor;
+    }
 
+    protected IBatchConsumer decorateConsumer(IBatchConsumer consumer) {
         if (this.processor != null) {
             // 如果设置了processor,则先执行processor再调用consumer，否则直接调用consumer
-            IBatchProcessor processor = this.processor;
-            if (!this.processListeners.isEmpty()) {
-                IBatchProcessListener processListener = new MultiBatchProcessListener(new ArrayList<>(this.processListeners));
-                processor = new BatchProcessorWithListener<>(processor, processListener);
-            }
-            consumer = new BatchProcessorConsumer(processor, this.consumer);
+            consumer = new BatchProcessorConsumer(buildProcessor(), this.consumer);
         }
 
         // 保存处理历史，避免重复处理
@@ -416,6 +501,12 @@ public class BatchTaskBuilder implements IBuilder<IBatchTask> {
         if (skipPolicy != null) {
             consumer = new SkipBatchConsumer(consumer, skipPolicy);
         }
+        return consumer;
+    }
+
+    protected IBatchChunkProcessor buildChunkProcessor() {
+        IBatchLoader loader = buildLoader();
+        IBatchConsumer consumer = decorateConsumer(buildConsumer());
 
         IBatchChunkProcessor chunkProcessor;
         // 一般只会使用缺省的BatchChunkProcessor，它负责核心的load/process/consume过程
@@ -52,4 +52,25 @@ public interface IBatchTaskMetrics {
     long getRetryItemCount();
 
     long getConsumeItemCount();
-}
\ No newline at end of file
+
+    /**
+     * 流水线模式下记录某个阶段实际执行的时间
+     *
+     * @param stage 阶段名，参见{@link BatchConstants#STAGE_LOAD}等
+     */
+    default void stageBusy(String stage, long nanos) {
+    }
+
+    /**
+     * 流水线模式下记录某个阶段等待上下游队列的时间
+     */
+    default void stageWait(String stage, long nanos) {
+    }
+
+    /**
+     * 阶段利用率，即busy时间占busy+wait时间的比例。没有统计数据时返回0
+     */
+    default double getStageUtilization(String stage) {
+        return 0;
+    }
+}
@@ -36,10 +36,18 @@ public class BatchProcessorConsumer<S, R> implements IBatchConsumer<S, IBatchChu
 
     @Override
     public void consume(List<S> items, IBatchChunkContext context) {
+        // 假定为同步处理模型。这里缓存所有输出数据，至于当整个列表中的元素都被成功消费以后，才会处理输出数据
+        List<R> collector = process(items, context);
+
+        consumeResult(collector, context);
+    }
 
+    /**
+     * 逐条处理输入数据，返回收集到的所有输出数据
+     */
+    public List<R> process(List<S> items, IBatchChunkContext context) {
         IBatchTaskMetrics metrics = context.getTaskContext().getMetrics();
 
-        // 假定为同步处理模型。这里缓存所有输出数据，至于当整个列表中的元素都被成功消费以后，才会处理输出数据
         List<R> collector = new ArrayList<>();
 
         for (S item : items) {
@@ -59,11 +67,10 @@ public class BatchProcessorConsumer<S, R> implements IBatchConsumer<S, IBatchChu
             if (context.isCancelled())
                 throw new BatchCancelException(ERR_BATCH_CANCEL_PROCESS);
         }
-
-        consumeResult(collector, context);
+        return collector;
     }
 
-    void consumeResult(List<R> collector, IBatchChunkContext context) {
+    public void consumeResult(List<R> collector, IBatchChunkContext context) {
         IBatchTaskMetrics metrics = context.getTaskContext().getMetrics();
         Object meter = metrics == null ? null : metrics.beginConsume(collector.size());
 
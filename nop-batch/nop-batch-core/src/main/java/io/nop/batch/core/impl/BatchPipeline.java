@@ -0,0 +1,444 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.batch.core.impl;
+
+import io.nop.api.core.time.CoreMetrics;
+import io.nop.batch.core.BatchConstants;
+import io.nop.batch.core.IBatchChunkContext;
+import io.nop.batch.core.IBatchConsumer;
+import io.nop.batch.core.IBatchLoader;
+import io.nop.batch.core.IBatchTaskContext;
+import io.nop.batch.core.IBatchTaskMetrics;
+import io.nop.batch.core.consumer.BatchProcessorConsumer;
+import io.nop.batch.core.exceptions.BatchCancelException;
+import io.nop.batch.core.processor.BatchChunkProcessor;
+import io.nop.commons.concurrent.thread.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.nop.batch.core.BatchErrors.ERR_BATCH_CANCEL_PROCESS;
+
+/**
+ * 流水线方式执行批处理任务。load/process/consume三个阶段分别由独立的线程执行，阶段之间通过有界队列连接。
+ * 下游处理不过来时队列被填满，上游线程阻塞等待，从而实现反压。
+ * <p>
+ * chunk按照读取的顺序进入consume队列，consume线程按照相同的顺序取出chunk并等待它的process阶段完成，
+ * 因此consumeConcurrency为1时chunk严格按照读取顺序被消费和提交，IBatchStateStore保存的状态与顺序执行时一致。
+ * <p>
+ * processor为null时process阶段被合并到consume阶段中，例如retry/skip需要包装processor时。
+ */
+public class BatchPipeline {
+    static final Logger LOG = LoggerFactory.getLogger(BatchPipeline.class);
+
+    static final long POLL_INTERVAL_MS = 100;
+
+    private final IBatchLoader<Object, IBatchChunkContext> loader;
+    private final BatchProcessorConsumer<Object, Object> processor;
+    private final IBatchConsumer<Object, IBatchChunkContext> consumer;
+    private final int batchSize;
+    private final double jitterRatio;
+    private final int loadConcurrency;
+    private final int processConcurrency;
+    private final int consumeConcurrency;
+    private final int queueCapacity;
+
+    public BatchPipeline(IBatchLoader<Object, IBatchChunkContext> loader,
+                         BatchProcessorConsumer<Object, Object> processor,
+                         IBatchConsumer<Object, IBatchChunkContext> consumer,
+                         int batchSize, double jitterRatio,
+                         int loadConcurrency, int processConcurrency, int consumeConcurrency, int queueCapacity) {
+        this.loader = loader;
+        this.processor = processor;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.jitterRatio = jitterRatio;
+        this.loadConcurrency = Math.max(1, loadConcurrency);
+        this.processConcurrency = processor == null ? 0 : Math.max(1, processConcurrency);
+        this.consumeConcurrency = Math.max(1, consumeConcurrency);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    public int getLoadConcurrency() {
+        return loadConcurrency;
+    }
+
+    public int getProcessConcurrency() {
+        return processConcurrency;
+    }
+
+    public int getConsumeConcurrency() {
+        return consumeConcurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public boolean hasProcessStage() {
+        return processor != null;
+    }
+
+    /**
+     * 每次执行都创建专属的线程。如果使用共享的线程池，当线程池的线程数不足时上下游阶段会相互等待导致死锁。
+     */
+    public CompletableFuture<Void> execute(BatchTask task, IBatchTaskContext context) {
+        return new PipelineRun(task, context).start();
+    }
+
+    static final class ChunkTicket {
+        final IBatchChunkContext chunkContext;
+        final Object meter;
+        final long beginTime;
+        final CompletableFuture<Void> processed = new CompletableFuture<>();
+
+        List<Object> items = Collections.emptyList();
+        List<Object> outputs;
+        Throwable error;
+
+        ChunkTicket(IBatchChunkContext chunkContext, Object meter, long beginTime) {
+            this.chunkContext = chunkContext;
+            this.meter = meter;
+            this.beginTime = beginTime;
+        }
+    }
+
+    static final ChunkTicket END = new ChunkTicket(null, null, 0);
+
+    class PipelineRun {
+        final BatchTask task;
+        final IBatchTaskContext context;
+        final IBatchTaskMetrics metrics;
+
+        /**
+         * 进入processQueue的chunk一定同时在consumeQueue中，所以只需要限制consumeQueue的大小
+         */
+        final BlockingQueue<ChunkTicket> processQueue = new LinkedBlockingQueue<>();
+        final BlockingQueue<ChunkTicket> consumeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final Object enqueueLock = new Object();
+
+        final AtomicInteger runningLoaders = new AtomicInteger(loadConcurrency);
+        final AtomicInteger runningThreads = new AtomicInteger(loadConcurrency + processConcurrency + consumeConcurrency);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        volatile boolean stopped;
+
+        PipelineRun(BatchTask task, IBatchTaskContext context) {
+            this.task = task;
+            this.context = context;
+            this.metrics = context.getMetrics();
+        }
+
+        CompletableFuture<Void> start() {
+            String prefix = "nop-batch-pipeline-" + context.getTaskName();
+            NamedThreadFactory loadFactory = new NamedThreadFactory(prefix + "-load", true);
+            NamedThreadFactory processFactory = new NamedThreadFactory(prefix + "-process", true);
+            NamedThreadFactory consumeFactory = new NamedThreadFactory(prefix + "-consume", true);
+
+            for (int i = 0; i < consumeConcurrency; i++) {
+                consumeFactory.newThread(() -> runStage(this::consumeLoop)).start();
+            }
+
+            for (int i = 0; i < processConcurrency; i++) {
+                processFactory.newThread(() -> runStage(this::processLoop)).start();
+            }
+
+            for (int i = 0; i < loadConcurrency; i++) {
+                int loaderIndex = i;
+                loadFactory.newThread(() -> runStage(() -> loadLoop(loaderIndex))).start();
+            }
+            return future;
+        }
+
+        void runStage(Runnable loop) {
+            try {
+                loop.run();
+            } catch (Throwable e) {
+                stop(e);
+            } finally {
+                if (runningThreads.decrementAndGet() == 0)
+                    finish();
+            }
+        }
+
+        void stop(Throwable e) {
+            if (failure.compareAndSet(null, e)) {
+                LOG.error("nop.err.batch.pipeline-stop:taskName={},taskId={}",
+                        context.getTaskName(), context.getTaskId(), e);
+            }
+            stopped = true;
+        }
+
+        void finish() {
+            Throwable err = failure.get();
+            // 已经读取但是没有被消费的chunk需要按照失败处理，从而触发onChunkEnd回调释放资源
+            ChunkTicket ticket;
+            while ((ticket = consumeQueue.poll()) != null) {
+                if (ticket != END)
+                    failTicket(ticket, err);
+            }
+
+            if (err != null) {
+                future.completeExceptionally(err);
+            } else {
+                future.complete(null);
+            }
+        }
+
+        void checkCancelled() {
+            if (context.isCancelled())
+                throw new BatchCancelException(ERR_BATCH_CANCEL_PROCESS);
+        }
+
+        void loadLoop(int loaderIndex) {
+            try {
+                while (!stopped) {
+                    checkCancelled();
+
+                    ChunkTicket ticket = loadChunk(loaderIndex);
+                    if (!enqueue(ticket))
+                        break;
+
+                    // 没有数据返回时表示全局数据都已经读取完毕
+                    if (ticket.error == null && ticket.items.isEmpty())
+                        break;
+                }
+            } finally {
+                if (runningLoaders.decrementAndGet() == 0)
+                    sendEnd();
+            }
+        }
+
+        ChunkTicket loadChunk(int loaderIndex) {
+            IBatchChunkContext chunkContext = task.newChunkContext(context, loadConcurrency, loaderIndex);
+            Object meter = metrics == null ? null : metrics.beginChunk();
+            long beginTime = CoreMetrics.currentTimeMillis();
+            LOG.info("nop.batch.process-chunk-begin:taskName={},taskId={},threadIndex={}",
+                    context.getTaskName(), context.getTaskId(), loaderIndex);
+
+            ChunkTicket ticket = new ChunkTicket(chunkContext, meter, beginTime);
+            chunkContext.setChunkItems(Collections.emptyList());
+
+            long begin = System.nanoTime();
+            try {
+                task.beginChunk(chunkContext);
+                ticket.items = loadItems(chunkContext);
+                chunkContext.setChunkItems(ticket.items);
+            } catch (Throwable e) {
+                ticket.error = e;
+            } finally {
+                stageBusy(BatchConstants.STAGE_LOAD, System.nanoTime() - begin);
+            }
+
+            if (processor == null || ticket.error != null || ticket.items.isEmpty()) {
+                ticket.outputs = ticket.items;
+                ticket.processed.complete(null);
+            }
+            return ticket;
+        }
+
+        List<Object> loadItems(IBatchChunkContext chunkContext) {
+            int size = BatchChunkProcessor.jitterBatchSize(batchSize, jitterRatio);
+
+            Object meter = metrics == null ? null : metrics.beginLoad();
+            boolean success = false;
+            try {
+                List<Object> items = loader.load(size, chunkContext);
+                success = true;
+                return items == null ? Collections.emptyList() : items;
+            } finally {
+                if (metrics != null)
+                    metrics.endLoad(meter, chunkContext.getChunkItems().size(), success);
+            }
+        }
+
+        /**
+         * 同一个chunk进入processQueue和consumeQueue的顺序必须一致，否则consume线程可能等待一个尚未被处理的chunk
+         */
+        boolean enqueue(ChunkTicket ticket) {
+            long begin = System.nanoTime();
+            try {
+                synchronized (enqueueLock) {
+                    if (!offer(consumeQueue, ticket)) {
+                        failTicket(ticket, failure.get());
+                        return false;
+                    }
+                    if (!ticket.processed.isDone())
+                        processQueue.add(ticket);
+                }
+                return true;
+            } finally {
+                stageWait(BatchConstants.STAGE_LOAD, System.nanoTime() - begin);
+            }
+        }
+
+        void sendEnd() {
+            for (int i = 0; i < processConcurrency; i++) {
+                processQueue.add(END);
+            }
+            for (int i = 0; i < consumeConcurrency; i++) {
+                if (!offer(consumeQueue, END))
+                    break;
+            }
+        }
+
+        void processLoop() {
+            while (true) {
+                long begin = System.nanoTime();
+                ChunkTicket ticket = poll(processQueue);
+                stageWait(BatchConstants.STAGE_PROCESS, System.nanoTime() - begin);
+                if (ticket == null || ticket == END)
+                    break;
+
+                begin = System.nanoTime();
+                try {
+                    ticket.outputs = processor.process(ticket.items, ticket.chunkContext);
+                } catch (Throwable e) {
+                    ticket.error = e;
+                } finally {
+                    ticket.processed.complete(null);
+                    stageBusy(BatchConstants.STAGE_PROCESS, System.nanoTime() - begin);
+                }
+            }
+        }
+
+        void consumeLoop() {
+            while (true) {
+                long begin = System.nanoTime();
+                ChunkTicket ticket = poll(consumeQueue);
+                if (ticket == null || ticket == END) {
+                    stageWait(BatchConstants.STAGE_CONSUME, System.nanoTime() - begin);
+                    break;
+                }
+
+                boolean processed = awaitProcessed(ticket);
+                stageWait(BatchConstants.STAGE_CONSUME, System.nanoTime() - begin);
+                if (!processed) {
+                    failTicket(ticket, failure.get());
+                    break;
+                }
+
+                begin = System.nanoTime();
+                try {
+                    consumeChunk(ticket);
+                } finally {
+                    stageBusy(BatchConstants.STAGE_CONSUME, System.nanoTime() - begin);
+                }
+            }
+        }
+
+        boolean awaitProcessed(ChunkTicket ticket) {
+            do {
+                try {
+                    ticket.processed.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    return true;
+                } catch (TimeoutException e) {
+                    // 继续等待
+                } catch (Exception e) {
+                    return true;
+                }
+            } while (!stopped);
+            return ticket.processed.isDone();
+        }
+
+        void consumeChunk(ChunkTicket ticket) {
+            IBatchChunkContext chunkContext = ticket.chunkContext;
+            boolean success = false;
+            try {
+                if (ticket.error != null)
+                    throw ticket.error;
+
+                if (!ticket.outputs.isEmpty()) {
+                    if (processor == null) {
+                        consumer.consume(ticket.outputs, chunkContext);
+                    } else {
+                        consumeResult(ticket.outputs, chunkContext);
+                    }
+                }
+
+                task.completeChunk(context, chunkContext);
+                success = true;
+            } catch (Throwable e) {
+                task.failChunk(context, chunkContext, e);
+            } finally {
+                task.endChunkMetrics(context, chunkContext, ticket.meter, ticket.beginTime, success);
+            }
+        }
+
+        void consumeResult(List<Object> outputs, IBatchChunkContext chunkContext) {
+            Object meter = metrics == null ? null : metrics.beginConsume(outputs.size());
+            boolean success = false;
+            try {
+                consumer.consume(outputs, chunkContext);
+                success = true;
+            } finally {
+                if (metrics != null)
+                    metrics.endConsume(meter, outputs.size(), success);
+            }
+        }
+
+        void failTicket(ChunkTicket ticket, Throwable err) {
+            if (err == null)
+                err = new BatchCancelException(ERR_BATCH_CANCEL_PROCESS);
+            try {
+                task.failChunk(context, ticket.chunkContext, err);
+            } catch (Throwable e) {
+                LOG.error("nop.err.batch.pipeline-fail-chunk-error", e);
+            } finally {
+                task.endChunkMetrics(context, ticket.chunkContext, ticket.meter, ticket.beginTime, false);
+            }
+        }
+
+        boolean offer(BlockingQueue<ChunkTicket> queue, ChunkTicket ticket) {
+            try {
+                while (!stopped) {
+                    if (queue.offer(ticket, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS))
+                        return true;
+                }
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BatchCancelException(ERR_BATCH_CANCEL_PROCESS);
+            }
+        }
+
+        ChunkTicket poll(BlockingQueue<ChunkTicket> queue) {
+            try {
+                while (!stopped) {
+                    ChunkTicket ticket = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (ticket != null)
+                        return ticket;
+                }
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BatchCancelException(ERR_BATCH_CANCEL_PROCESS);
+            }
+        }
+
+        void stageBusy(String stage, long nanos) {
+            if (metrics != null)
+                metrics.stageBusy(stage, nanos);
+        }
+
+        void stageWait(String stage, long nanos) {
+            if (metrics != null)
+                metrics.stageWait(stage, nanos);
+        }
+    }
+}
@@ -27,11 +27,16 @@ import java.util.concurrent.Executor;
 
 import static io.nop.batch.core.BatchErrors.ERR_BATCH_CANCEL_PROCESS;
 
+/**
+ * 缺省情况下启动concurrency个线程，每个线程循环执行load/process/consume。
+ * 设置了pipeline时按照流水线方式执行，读取、处理和消费分别在独立的线程中执行，参见{@link BatchPipeline}
+ */
 public class BatchTask implements IBatchTask {
     static final Logger LOG = LoggerFactory.getLogger(BatchTask.class);
 
     private final Executor executor;
     private final IBatchChunkProcessor chunkProcessor;
+    private final BatchPipeline pipeline;
     private final IBatchChunkListener chunkListener;
     private final IBatchTaskListener taskListener;
     private final IBatchStateStore stateStore;
@@ -41,12 +46,24 @@ public class BatchTask implements IBatchTask {
                      IBatchChunkListener chunkListener, IBatchTaskListener taskListener, IBatchStateStore stateStore) {
         this.executor = executor;
         this.chunkProcessor = chunkProcessor;
+        this.pipeline = null;
         this.chunkListener = chunkListener;
         this.taskListener = taskListener;
         this.stateStore = stateStore;
         this.concurrency = concurrency;
     }
 
+    public BatchTask(BatchPipeline pipeline, IBatchChunkListener chunkListener, IBatchTaskListener taskListener,
+                     IBatchStateStore stateStore) {
+        this.executor = null;
+        this.chunkProcessor = null;
+        this.pipeline = pipeline;
+        this.chunkListener = chunkListener;
+        this.taskListener = taskListener;
+        this.stateStore = stateStore;
+        this.concurrency = pipeline.getConsumeConcurrency();
+    }
+
     @Override
     public CompletableFuture<Void> executeAsync(IBatchTaskContext context) {
         IBatchTaskMetrics metrics = context.getMetrics();
@@ -68,13 +85,19 @@ public class BatchTask implements IBatchTask {
             }
         }
 
-        // 多个线程可以并发执行。loader/processor/consumer都需要是线程安全的
-        CompletableFuture[] futures = new CompletableFuture[concurrency];
-        for (int i = 0; i < concurrency; i++) {
-            futures[i] = executeChunkLoop(context, i);
+        CompletableFuture<Void> loopFuture;
+        if (pipeline != null) {
+            loopFuture = pipeline.execute(this, context);
+        } else {
+            // 多个线程可以并发执行。loader/processor/consumer都需要是线程安全的
+            CompletableFuture[] futures = new CompletableFuture[concurrency];
+            for (int i = 0; i < concurrency; i++) {
+                futures[i] = executeChunkLoop(context, i);
+            }
+            loopFuture = CompletableFuture.allOf(futures);
         }
 
-        CompletableFuture.allOf(futures).whenComplete((ret, err) -> {
+        loopFuture.whenComplete((ret, err) -> {
             onTaskComplete(future, meter, err, context);
         });
 
@@ -154,9 +177,7 @@ public class BatchTask implements IBatchTask {
      * 读取并处理一个chunk, 返回STOP表示已经读取完毕
      */
     protected ProcessResult processChunk(IBatchTaskContext context, int threadIndex) {
-        IBatchChunkContext chunkContext = context.newChunkContext();
-        chunkContext.setConcurrency(concurrency);
-        chunkContext.setThreadIndex(threadIndex);
+        IBatchChunkContext chunkContext = newChunkContext(context, concurrency, threadIndex);
 
         IBatchTaskMetrics metrics = context.getMetrics();
 
@@ -169,54 +190,82 @@ public class BatchTask implements IBatchTask {
         ProcessResult result = ProcessResult.CONTINUE;
         boolean success = true;
         try {
-            if (stateStore != null)
-                stateStore.loadChunkState(chunkContext);
-
-            if (chunkListener != null) {
-                chunkListener.onChunkBegin(chunkContext);
-            }
+            beginChunk(chunkContext);
 
             result = chunkProcessor.process(chunkContext);
 
-            chunkContext.awaitAsyncResults();
-            chunkContext.fireBeforeComplete(null);
+            completeChunk(context, chunkContext);
 
-            if (chunkListener != null)
-                chunkListener.onChunkEnd(null, chunkContext);
+        } catch (Throwable e) {
+            success = false;
+            failChunk(context, chunkContext, e);
+        } finally {
+            endChunkMetrics(context, chunkContext, meter, beginTime, success);
+        }
 
-            if (stateStore != null)
-                stateStore.saveTaskState(context);
+        return result;
+    }
+
+    IBatchChunkContext newChunkContext(IBatchTaskContext context, int concurrency, int threadIndex) {
+        IBatchChunkContext chunkContext = context.newChunkContext();
+        chunkContext.setConcurrency(concurrency);
+        chunkContext.setThreadIndex(threadIndex);
+        return chunkContext;
+    }
 
-            chunkContext.complete();
+    /**
+     * 在读取chunk的数据之前调用
+     */
+    void beginChunk(IBatchChunkContext chunkContext) {
+        if (stateStore != null)
+            stateStore.loadChunkState(chunkContext);
 
-        } catch (Throwable e) {
-            success = false;
-            LOG.error("nop.err.batch.task-chunk-fail:taskName={},taskId={},threadIndex={}",
-                    context.getTaskName(), context.getTaskId(),threadIndex,
-                    e);
+        if (chunkListener != null) {
+            chunkListener.onChunkBegin(chunkContext);
+        }
+    }
 
-            try {
-                chunkContext.cancelAsyncResults();
-                chunkContext.fireBeforeComplete(e);
+    void completeChunk(IBatchTaskContext context, IBatchChunkContext chunkContext) {
+        chunkContext.awaitAsyncResults();
+        chunkContext.fireBeforeComplete(null);
 
-                if (chunkListener != null) {
-                    chunkListener.onChunkEnd(e, chunkContext);
-                }
+        if (chunkListener != null)
+            chunkListener.onChunkEnd(null, chunkContext);
+
+        if (stateStore != null)
+            stateStore.saveTaskState(context);
+
+        chunkContext.complete();
+    }
 
-                if (stateStore != null)
-                    stateStore.saveTaskState(context);
-            } finally {
-                chunkContext.completeExceptionally(e);
+    void failChunk(IBatchTaskContext context, IBatchChunkContext chunkContext, Throwable e) {
+        LOG.error("nop.err.batch.task-chunk-fail:taskName={},taskId={},threadIndex={}",
+                context.getTaskName(), context.getTaskId(), chunkContext.getThreadIndex(),
+                e);
+
+        try {
+            chunkContext.cancelAsyncResults();
+            chunkContext.fireBeforeComplete(e);
+
+            if (chunkListener != null) {
+                chunkListener.onChunkEnd(e, chunkContext);
             }
-        } finally {
-            long endTime = CoreMetrics.currentTimeMillis();
-            LOG.info("nop.batch.process-chunk-end:taskName={},taskId={},threadIndex={},usedTime={}", context.getTaskName(),
-                    context.getTaskId(), threadIndex, endTime - beginTime);
 
-            if (metrics != null)
-                metrics.endChunk(meter, success);
+            if (stateStore != null)
+                stateStore.saveTaskState(context);
+        } finally {
+            chunkContext.completeExceptionally(e);
         }
+    }
 
-        return result;
+    void endChunkMetrics(IBatchTaskContext context, IBatchChunkContext chunkContext, Object meter,
+                         long beginTime, boolean success) {
+        long endTime = CoreMetrics.currentTimeMillis();
+        LOG.info("nop.batch.process-chunk-end:taskName={},taskId={},threadIndex={},usedTime={}", context.getTaskName(),
+                context.getTaskId(), chunkContext.getThreadIndex(), endTime - beginTime);
+
+        IBatchTaskMetrics metrics = context.getMetrics();
+        if (metrics != null)
+            metrics.endChunk(meter, success);
     }
-}
\ No newline at end of file
+}
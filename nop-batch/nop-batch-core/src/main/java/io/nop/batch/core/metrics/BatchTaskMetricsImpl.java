@@ -17,6 +17,9 @@ import io.nop.batch.core.IBatchTaskMetrics;
 import io.nop.commons.util.StringHelper;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class BatchTaskMetricsImpl implements IBatchTaskMetrics {
     private final MeterRegistry registry;
@@ -38,6 +41,11 @@ public class BatchTaskMetricsImpl implements IBatchTaskMetrics {
     private final Counter loadCounter;
     private final Counter consumeCounter;
 
+    private final Tag jobNameTag;
+    private final Tag taskNameTag;
+    private final Map<String, Timer> stageBusyTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> stageWaitTimers = new ConcurrentHashMap<>();
+
     public BatchTaskMetricsImpl(MeterRegistry registry, String prefix, String jobName, String taskName) {
         this.registry = Guard.notNull(registry, "registry");
         this.prefix = prefix;
@@ -48,6 +56,8 @@ public class BatchTaskMetricsImpl implements IBatchTaskMetrics {
 
         Tag jobNameTag = Tag.of("job.name", jobName);
         Tag taskNameTag = Tag.of("task.name", taskName);
+        this.jobNameTag = jobNameTag;
+        this.taskNameTag = taskNameTag;
         Tag statusSuccessTag = Tag.of("status", BatchConstants.STATUS_SUCCESS);
         Tag statusFailureTag = Tag.of("status", BatchConstants.STATUS_FAILURE);
 
@@ -178,4 +188,30 @@ public class BatchTaskMetricsImpl implements IBatchTaskMetrics {
         return (long) consumeCounter.count();
     }
 
-}
\ No newline at end of file
+    Timer stageTimer(Map<String, Timer> timers, String name, String stage) {
+        return timers.computeIfAbsent(stage, k -> createTimer(name, jobNameTag, taskNameTag, Tag.of("stage", k)));
+    }
+
+    @Override
+    public void stageBusy(String stage, long nanos) {
+        stageTimer(stageBusyTimers, BatchConstants.METER_STAGE_BUSY, stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void stageWait(String stage, long nanos) {
+        stageTimer(stageWaitTimers, BatchConstants.METER_STAGE_WAIT, stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public double getStageUtilization(String stage) {
+        Timer busyTimer = stageBusyTimers.get(stage);
+        if (busyTimer == null)
+            return 0;
+        double busy = busyTimer.totalTime(TimeUnit.NANOSECONDS);
+        Timer waitTimer = stageWaitTimers.get(stage);
+        double wait = waitTimer == null ? 0 : waitTimer.totalTime(TimeUnit.NANOSECONDS);
+        if (busy + wait <= 0)
+            return 0;
+        return busy / (busy + wait);
+    }
+}
@@ -75,6 +75,10 @@ public class BatchChunkProcessor<S> implements IBatchChunkProcessor {
     }
 
     protected int adjustBatchSize(int batchSize) {
+        return jitterBatchSize(batchSize, jitterRatio);
+    }
+
+    public static int jitterBatchSize(int batchSize, double jitterRatio) {
         int ret = batchSize;
         if (jitterRatio > 0) {
             int range = (int) (batchSize * jitterRatio);
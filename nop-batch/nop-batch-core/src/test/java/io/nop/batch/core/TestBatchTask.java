@@ -24,6 +24,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestBatchTask {
     @Test
@@ -58,6 +59,76 @@ public class TestBatchTask {
         assertEquals(502, context.getSkipItemCount());
     }
 
+    @Test
+    public void testPipelinedRetry() {
+        String taskName = "testPipelinedRetry";
+        BatchTaskMetricsImpl metrics = new BatchTaskMetricsImpl(GlobalMeterRegistry.instance(), null, "job", taskName);
+        BatchTaskContextImpl context = new BatchTaskContextImpl();
+        context.setMetrics(metrics);
+        context.setTaskName(taskName);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        context.addAfterComplete(err -> FutureHelper.complete(future, null, err));
+
+        BatchTaskBuilder builder = new BatchTaskBuilder();
+
+        MockLoader loader = new MockLoader();
+        MockConsumer consumer = new MockConsumer();
+        builder.loader(loader).consumer(consumer).pipelined(true).loadConcurrency(2).concurrency(4);
+        builder.processor(new MockProcessor());
+        builder.skipPolicy(new BatchSkipPolicy().maxSkipCount(10000));
+        builder.retryOneByOne(true).retryPolicy(RetryPolicy.retryNTimes(3));
+
+        IBatchTask task = builder.build();
+        task.executeAsync(context);
+
+        FutureHelper.syncGet(future);
+
+        assertEquals(consumer.count.get(), consumer.items.size());
+        assertEquals(502, consumer.count.get());
+        assertEquals(502, context.getSkipItemCount());
+    }
+
+    @Test
+    public void testPipelinedOrder() {
+        String taskName = "testPipelinedOrder";
+        BatchTaskMetricsImpl metrics = new BatchTaskMetricsImpl(GlobalMeterRegistry.instance(), null, "job", taskName);
+        BatchTaskContextImpl context = new BatchTaskContextImpl();
+        context.setMetrics(metrics);
+        context.setTaskName(taskName);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        context.addAfterComplete(err -> FutureHelper.complete(future, null, err));
+
+        List<String> consumed = new ArrayList<>();
+        BatchTaskBuilder builder = new BatchTaskBuilder();
+        IBatchConsumer<String, IBatchChunkContext> consumer = (items, ctx) -> consumed.addAll(items);
+        builder.loader(new MockLoader()).consumer(consumer);
+        builder.processor(new FilterOddProcessor());
+        builder.batchSize(10).pipelined(true).processConcurrency(4).pipelineQueueCapacity(2);
+
+        IBatchTask task = builder.build();
+        task.executeAsync(context);
+
+        FutureHelper.syncGet(future);
+
+        // process阶段并行执行，但是consume阶段按照读取的顺序消费
+        assertEquals(502, consumed.size());
+        for (int i = 0; i < consumed.size(); i++) {
+            assertEquals(String.valueOf(i * 2), consumed.get(i));
+        }
+        assertTrue(metrics.getStageUtilization(BatchConstants.STAGE_PROCESS) > 0);
+        assertTrue(metrics.getStageUtilization(BatchConstants.STAGE_CONSUME) > 0);
+    }
+
+    static class FilterOddProcessor implements IBatchProcessor<String, String, IBatchChunkContext> {
+        @Override
+        public void process(String item, Consumer<String> consumer, IBatchChunkContext context) {
+            if (Integer.parseInt(item) % 2 == 0)
+                consumer.accept(item);
+        }
+    }
+
     class MockProcessor implements IBatchProcessor<String, String, IBatchChunkContext> {
         @Override
         public void process(String item, Consumer<String> consumer, IBatchChunkContext context) {
@@ -116,6 +116,14 @@ public class ModelBasedBatchTaskFactory implements IBatchTaskFactory {
             builder.retryOneByOne(batchTaskModel.getRetryOneByOne());
         if (batchTaskModel.getConcurrency() > 0)
             builder.concurrency(batchTaskModel.getConcurrency());
+        if (batchTaskModel.getPipelined() != null)
+            builder.pipelined(batchTaskModel.getPipelined());
+        if (batchTaskModel.getLoadConcurrency() != null)
+            builder.loadConcurrency(batchTaskModel.getLoadConcurrency());
+        if (batchTaskModel.getProcessConcurrency() != null)
+            builder.processConcurrency(batchTaskModel.getProcessConcurrency());
+        if (batchTaskModel.getPipelineQueueCapacity() != null)
+            builder.pipelineQueueCapacity(batchTaskModel.getPipelineQueueCapacity());
         if (batchTaskModel.getExecutor() != null) {
             builder.executor((Executor) beanContainer.getBean(batchTaskModel.getExecutor()));
         }
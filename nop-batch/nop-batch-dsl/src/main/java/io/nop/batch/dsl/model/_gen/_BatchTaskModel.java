@@ -59,6 +59,13 @@ public abstract class _BatchTaskModel extends io.nop.core.resource.component.Abs
      */
     private java.lang.Double _jitterRatio ;
     
+    /**
+     *  
+     * xml name: loadConcurrency
+     * 流水线模式下load阶段的并发数
+     */
+    private java.lang.Integer _loadConcurrency ;
+    
     /**
      *  
      * xml name: name
@@ -66,6 +73,27 @@ public abstract class _BatchTaskModel extends io.nop.core.resource.component.Abs
      */
     private java.lang.String _name ;
     
+    /**
+     *  
+     * xml name: pipelineQueueCapacity
+     * 流水线模式下已读取但尚未被消费的chunk的最大个数，超过时load阶段阻塞等待
+     */
+    private java.lang.Integer _pipelineQueueCapacity ;
+    
+    /**
+     *  
+     * xml name: pipelined
+     * 是否按照流水线方式执行。load/process/consume分别在独立的线程中执行，通过有界队列连接。此时concurrency表示consume阶段的并发数
+     */
+    private java.lang.Boolean _pipelined  = false;
+    
+    /**
+     *  
+     * xml name: processConcurrency
+     * 流水线模式下process阶段的并发数
+     */
+    private java.lang.Integer _processConcurrency ;
+    
     /**
      *  
      * xml name: processor
@@ -284,6 +312,25 @@ public abstract class _BatchTaskModel extends io.nop.core.resource.component.Abs
     }
 
     
+    /**
+     * 
+     * xml name: loadConcurrency
+     *  流水线模式下load阶段的并发数
+     */
+    
+    public java.lang.Integer getLoadConcurrency(){
+      return _loadConcurrency;
+    }
+
+    
+    public void setLoadConcurrency(java.lang.Integer value){
+        checkAllowChange();
+        
+        this._loadConcurrency = value;
+           
+    }
+
+    
     /**
      * 
      * xml name: name
@@ -303,6 +350,63 @@ public abstract class _BatchTaskModel extends io.nop.core.resource.component.Abs
     }
 
     
+    /**
+     * 
+     * xml name: pipelineQueueCapacity
+     *  流水线模式下已读取但尚未被消费的chunk的最大个数，超过时load阶段阻塞等待
+     */
+    
+    public java.lang.Integer getPipelineQueueCapacity(){
+      return _pipelineQueueCapacity;
+    }
+
+    
+    public void setPipelineQueueCapacity(java.lang.Integer value){
+        checkAllowChange();
+        
+        this._pipelineQueueCapacity = value;
+           
+    }
+
+    
+    /**
+     * 
+     * xml name: pipelined
+     *  是否按照流水线方式执行。load/process/consume分别在独立的线程中执行，通过有界队列连接。此时concurrency表示consume阶段的并发数
+     */
+    
+    public java.lang.Boolean getPipelined(){
+      return _pipelined;
+    }
+
+    
+    public void setPipelined(java.lang.Boolean value){
+        checkAllowChange();
+        
+        this._pipelined = value;
+           
+    }
+
+    
+    /**
+     * 
+     * xml name: processConcurrency
+     *  流水线模式下process阶段的并发数
+     */
+    
+    public java.lang.Integer getProcessConcurrency(){
+      return _processConcurrency;
+    }
+
+    
+    public void setProcessConcurrency(java.lang.Integer value){
+        checkAllowChange();
+        
+        this._processConcurrency = value;
+           
+    }
+
+    
     /**
      * 
      * xml name: processor
@@ -601,7 +705,11 @@ public abstract class _BatchTaskModel extends io.nop.core.resource.component.Abs
         out.putNotNull("executor",this.getExecutor());
         out.putNotNull("inputSorter",this.getInputSorter());
         out.putNotNull("jitterRatio",this.getJitterRatio());
+        out.putNotNull("loadConcurrency",this.getLoadConcurrency());
         out.putNotNull("name",this.getName());
+        out.putNotNull("pipelineQueueCapacity",this.getPipelineQueueCapacity());
+        out.putNotNull("pipelined",this.getPipelined());
+        out.putNotNull("processConcurrency",this.getProcessConcurrency());
         out.putNotNull("processors",this.getProcessors());
         out.putNotNull("rateLimit",this.getRateLimit());
         out.putNotNull("reader",this.getReader());
@@ -630,7 +738,11 @@ public abstract class _BatchTaskModel extends io.nop.core.resource.component.Abs
         instance.setExecutor(this.getExecutor());
         instance.setInputSorter(this.getInputSorter());
         instance.setJitterRatio(this.getJitterRatio());
+        instance.setLoadConcurrency(this.getLoadConcurrency());
         instance.setName(this.getName());
+        instance.setPipelineQueueCapacity(this.getPipelineQueueCapacity());
+        instance.setPipelined(this.getPipelined());
+        instance.setProcessConcurrency(this.getProcessConcurrency());
         instance.setProcessors(this.getProcessors());
         instance.setRateLimit(this.getRateLimit());
         instance.setReader(this.getReader());
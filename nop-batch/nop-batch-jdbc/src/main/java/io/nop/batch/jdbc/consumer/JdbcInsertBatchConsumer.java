@@ -41,7 +41,7 @@ public class JdbcInsertBatchConsumer<S, C> implements IBatchConsumer<S, C> {
             JdbcBatcher batcher = new JdbcBatcher(conn, dialect, jdbcTemplate.getDaoMetrics());
             for (S item : items) {
                 SQL insert = buildInsert(item);
-                batcher.addCommand(insert,false,null);
+                batcher.addInsertCommand(insert, null);
             }
             batcher.flush();
             return null;
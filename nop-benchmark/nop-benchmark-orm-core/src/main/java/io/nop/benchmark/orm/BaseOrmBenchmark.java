@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.orm;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public abstract class BaseOrmBenchmark {
+    /**
+     * 每个客户对应100个订单明细，缺省为1万条明细
+     */
+    @Param({"100"})
+    public int customerCount;
+
+    protected OrmBenchEnv env;
+
+    @Setup(Level.Trial)
+    public void setupEnv() {
+        env = OrmBenchEnv.start(customerCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownEnv() {
+        if (env != null)
+            env.close();
+    }
+
+    protected long idAt(long index, long count) {
+        return index % count + 1;
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.orm;
+
+import io.nop.orm.IOrmEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * 保存一个新的客户及其订单和明细，CascadeFlusher负责沿着集合属性级联保存
+ */
+public class CascadeFlushBenchmark extends BaseOrmBenchmark {
+
+    @Benchmark
+    public IOrmEntity cascadeSave() {
+        return env.orm().runInSession(session -> {
+            IOrmEntity customer = env.newCustomer(session, env.nextId());
+            for (int i = 0; i < OrmBenchEnv.ORDERS_PER_CUSTOMER; i++) {
+                IOrmEntity order = env.newOrder(session, customer, env.nextId());
+                for (int j = 0; j < OrmBenchEnv.ITEMS_PER_ORDER; j++) {
+                    env.newItem(session, order, env.nextId());
+                }
+            }
+            session.flush();
+            return customer;
+        });
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.orm;
+
+import io.nop.orm.IOrmEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * EntityPersisterImpl加载实体时命中/不命中全局缓存的开销。每次都使用新的session，从而绕过session缓存。
+ */
+public class EntityPersisterBenchmark extends BaseOrmBenchmark {
+    private long counter;
+
+    private IOrmEntity getProduct(long id) {
+        return env.orm().runInSession(session -> {
+            IOrmEntity product = session.get(OrmBenchEnv.ENTITY_PRODUCT, id);
+            product.orm_propValueByName("name");
+            return product;
+        });
+    }
+
+    @Benchmark
+    public IOrmEntity globalCacheHit() {
+        return getProduct(idAt(counter++, OrmBenchEnv.PRODUCT_COUNT));
+    }
+
+    @Benchmark
+    public IOrmEntity globalCacheMiss() {
+        env.orm().clearGlobalCacheFor(OrmBenchEnv.ENTITY_PRODUCT);
+        return getProduct(idAt(counter++, OrmBenchEnv.PRODUCT_COUNT));
+    }
+
+    @Benchmark
+    public IOrmEntity noGlobalCache() {
+        long id = idAt(counter++, env.getCustomerCount());
+        return env.orm().runInSession(session -> {
+            IOrmEntity customer = session.get(OrmBenchEnv.ENTITY_CUSTOMER, id);
+            customer.orm_propValueByName("name");
+            return customer;
+        });
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.orm;
+
+import io.nop.orm.IOrmSessionFactory;
+import io.nop.orm.eql.ICompiledSql;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * EQL语句每次重新编译与命中查询计划缓存的对比
+ */
+public class EqlCompileBenchmark extends BaseOrmBenchmark {
+    static final String EQL = "select o.id, o.name, o.customer.name, sum(i.quantity) " +
+            "from bench.BenchOrder o, bench.BenchOrderItem i " +
+            "where i.order.id = o.id and o.customer.level > ? and o.amount between ? and ? " +
+            "group by o.id, o.name, o.customer.name order by o.id";
+
+    private IOrmSessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setupFactory() {
+        sessionFactory = env.getSessionFactory();
+    }
+
+    @Benchmark
+    public ICompiledSql compile() {
+        return sessionFactory.compileSql("bench", EQL, false, null, false, false, false);
+    }
+
+    @Benchmark
+    public ICompiledSql planCacheHit() {
+        return sessionFactory.compileSql("bench", EQL, false, null, true, false, false);
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.orm;
+
+import io.nop.api.core.beans.FieldSelectionBean;
+import io.nop.orm.IOrmEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.List;
+
+/**
+ * OrmBatchLoadQueueImpl.flush按照多级属性选择批量加载关联对象
+ */
+public class OrmBatchLoadBenchmark extends BaseOrmBenchmark {
+    @Param({"20"})
+    public int pageSize;
+
+    static final FieldSelectionBean ORDERS = FieldSelectionBean.fromProp("orders");
+    static final FieldSelectionBean DEEP_SELECTION = FieldSelectionBean.fromProp("orders.items.product");
+
+    private int page;
+
+    private List<IOrmEntity> loadCustomers(FieldSelectionBean selection) {
+        int offset = (page++ * pageSize) % env.getCustomerCount();
+        return env.orm().runInSession(session -> {
+            IOrmEntity example = session.newEntity(OrmBenchEnv.ENTITY_CUSTOMER);
+            List<IOrmEntity> customers = session.findPageByExample(example, null, offset, pageSize);
+            env.orm().batchLoadSelection(customers, selection);
+            return customers;
+        });
+    }
+
+    @Benchmark
+    public List<IOrmEntity> batchLoadOneLevel() {
+        return loadCustomers(ORDERS);
+    }
+
+    @Benchmark
+    public List<IOrmEntity> batchLoadDeepSelection() {
+        return loadCustomers(DEEP_SELECTION);
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.orm;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.nop.api.core.ioc.IBeanProvider;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.initialize.CoreInitialization;
+import io.nop.core.lang.sql.SQL;
+import io.nop.dao.jdbc.IJdbcTemplate;
+import io.nop.dao.jdbc.impl.JdbcFactory;
+import io.nop.dao.seq.UuidSequenceGenerator;
+import io.nop.orm.IOrmEntity;
+import io.nop.orm.IOrmSession;
+import io.nop.orm.IOrmSessionFactory;
+import io.nop.orm.IOrmTemplate;
+import io.nop.orm.ddl.DdlSqlCreator;
+import io.nop.orm.factory.DefaultOrmColumnBinderEnhancer;
+import io.nop.orm.factory.OrmSessionFactoryBean;
+import io.nop.orm.impl.OrmTemplateImpl;
+import io.nop.orm.model.IEntityModel;
+import jakarta.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于内存H2数据库的ORM测试环境。初始数据为customerCount个客户，每个客户ORDERS_PER_CUSTOMER个订单，
+ * 每个订单ITEMS_PER_ORDER个明细，明细引用启用了全局缓存的产品表。
+ */
+public class OrmBenchEnv implements AutoCloseable {
+    public static final String ENTITY_CUSTOMER = "bench.BenchCustomer";
+    public static final String ENTITY_ORDER = "bench.BenchOrder";
+    public static final String ENTITY_ORDER_ITEM = "bench.BenchOrderItem";
+    public static final String ENTITY_PRODUCT = "bench.BenchProduct";
+
+    public static final int ORDERS_PER_CUSTOMER = 10;
+    public static final int ITEMS_PER_ORDER = 10;
+    public static final int PRODUCT_COUNT = 1000;
+
+    private final int customerCount;
+    private final AtomicLong idSeq = new AtomicLong(100_000_000L);
+
+    private HikariDataSource dataSource;
+    private OrmSessionFactoryBean sessionFactoryBean;
+    private IOrmSessionFactory sessionFactory;
+    private IOrmTemplate ormTemplate;
+
+    public OrmBenchEnv(int customerCount) {
+        this.customerCount = customerCount;
+    }
+
+    public static OrmBenchEnv start(int customerCount) {
+        OrmBenchEnv env = new OrmBenchEnv(customerCount);
+        env.init();
+        return env;
+    }
+
+    public void init() {
+        CoreInitialization.initialize();
+
+        dataSource = new HikariDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + StringHelper.generateUUID() + ";DB_CLOSE_DELAY=-1");
+
+        JdbcFactory factory = new JdbcFactory();
+        IJdbcTemplate jdbcTemplate = factory.newJdbcTemplate(factory.newTransactionTemplate(dataSource));
+
+        OrmSessionFactoryBean factoryBean = new OrmSessionFactoryBean();
+        factoryBean.setJdbcTemplate(jdbcTemplate);
+        factoryBean.setBeanProvider(new EmptyBeanProvider());
+        factoryBean.setSequenceGenerator(new UuidSequenceGenerator());
+        factoryBean.setColumnBinderEnhancer(new DefaultOrmColumnBinderEnhancer());
+        factoryBean.init();
+
+        this.sessionFactoryBean = factoryBean;
+        this.sessionFactory = factoryBean.getObject();
+        this.ormTemplate = new OrmTemplateImpl(sessionFactory);
+
+        Collection<IEntityModel> tables = sessionFactory.getOrmModel().getEntityModelsInTopoOrder();
+        String createSql = new DdlSqlCreator(jdbcTemplate.getDialectForQuerySpace(null)).createTables(tables, false);
+        jdbcTemplate.executeMultiSql(new SQL(createSql));
+
+        prepareData();
+    }
+
+    void prepareData() {
+        ormTemplate.runInSession(session -> {
+            for (int i = 1; i <= PRODUCT_COUNT; i++) {
+                IOrmEntity product = session.newEntity(ENTITY_PRODUCT);
+                product.orm_propValueByName("id", (long) i);
+                product.orm_propValueByName("name", "product-" + i);
+                product.orm_propValueByName("price", i % 100);
+                session.save(product);
+            }
+            session.flush();
+            session.clear();
+
+            long orderId = 0;
+            long itemId = 0;
+            for (int i = 1; i <= customerCount; i++) {
+                IOrmEntity customer = newCustomer(session, i);
+                for (int j = 0; j < ORDERS_PER_CUSTOMER; j++) {
+                    IOrmEntity order = newOrder(session, customer, ++orderId);
+                    for (int k = 0; k < ITEMS_PER_ORDER; k++) {
+                        newItem(session, order, ++itemId);
+                    }
+                }
+
+                // 避免session中缓存的实体过多
+                if (i % 100 == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.flush();
+            return null;
+        });
+    }
+
+    public IOrmEntity newCustomer(IOrmSession session, long id) {
+        IOrmEntity customer = session.newEntity(ENTITY_CUSTOMER);
+        customer.orm_propValueByName("id", id);
+        customer.orm_propValueByName("code", "C" + id);
+        customer.orm_propValueByName("name", "customer-" + id);
+        customer.orm_propValueByName("level", (int) (id % 5));
+        session.save(customer);
+        return customer;
+    }
+
+    public IOrmEntity newOrder(IOrmSession session, IOrmEntity customer, long id) {
+        IOrmEntity order = session.newEntity(ENTITY_ORDER);
+        order.orm_propValueByName("id", id);
+        order.orm_propValueByName("name", "order-" + id);
+        order.orm_propValueByName("amount", (int) (id % 1000));
+        order.orm_propValueByName("customer", customer);
+        customer.orm_refEntitySet("orders").add(order);
+        return order;
+    }
+
+    public IOrmEntity newItem(IOrmSession session, IOrmEntity order, long id) {
+        IOrmEntity item = session.newEntity(ENTITY_ORDER_ITEM);
+        item.orm_propValueByName("id", id);
+        item.orm_propValueByName("productId", id % PRODUCT_COUNT + 1);
+        item.orm_propValueByName("quantity", 1);
+        item.orm_propValueByName("order", order);
+        order.orm_refEntitySet("items").add(item);
+        return item;
+    }
+
+    public long nextId() {
+        return idSeq.incrementAndGet();
+    }
+
+    public int getCustomerCount() {
+        return customerCount;
+    }
+
+    public long getOrderItemCount() {
+        return (long) customerCount * ORDERS_PER_CUSTOMER * ITEMS_PER_ORDER;
+    }
+
+    public IOrmSessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    public IOrmTemplate orm() {
+        return ormTemplate;
+    }
+
+    @Override
+    public void close() {
+        if (sessionFactoryBean != null)
+            sessionFactoryBean.destroy();
+        if (dataSource != null)
+            dataSource.close();
+    }
+
+    static class EmptyBeanProvider implements IBeanProvider {
+        @Override
+        public boolean containsBean(String name) {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public <T> T getBeanByType(Class<T> clazz) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Nonnull
+        @Override
+        public Object getBean(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getBeanScope(String name) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.orm;
+
+import io.nop.orm.IOrmEntity;
+import io.nop.orm.IOrmSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrmSessionImpl.get命中session缓存，以及flush大量脏实体的开销
+ */
+public class OrmSessionBenchmark extends BaseOrmBenchmark {
+    private IOrmSession cachedSession;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setupSession() {
+        cachedSession = env.getSessionFactory().openSession(false);
+        for (int i = 1; i <= env.getCustomerCount(); i++) {
+            cachedSession.get(OrmBenchEnv.ENTITY_CUSTOMER, (long) i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownSession() {
+        if (cachedSession != null)
+            cachedSession.close();
+    }
+
+    @Benchmark
+    public IOrmEntity getFromSessionCache() {
+        return cachedSession.get(OrmBenchEnv.ENTITY_CUSTOMER, idAt(counter++, env.getCustomerCount()));
+    }
+
+    @Benchmark
+    public IOrmEntity getInNewSession() {
+        long id = idAt(counter++, env.getCustomerCount());
+        return env.orm().runInSession(session -> session.get(OrmBenchEnv.ENTITY_CUSTOMER, id));
+    }
+
+    /**
+     * 每次调用之前重新加载并修改dirtyCount个实体，只统计flush的时间
+     */
+    @State(Scope.Thread)
+    public static class DirtySessionState {
+        @Param({"10000"})
+        public int dirtyCount;
+
+        IOrmSession session;
+        int version;
+
+        @Setup(Level.Invocation)
+        public void prepare(OrmSessionBenchmark benchmark) {
+            session = benchmark.env.getSessionFactory().openSession(false);
+            IOrmEntity example = session.newEntity(OrmBenchEnv.ENTITY_ORDER_ITEM);
+            List<IOrmEntity> items = session.findPageByExample(example, null, 0, dirtyCount);
+            version++;
+            for (IOrmEntity item : items) {
+                item.orm_propValueByName("quantity", version);
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void flushDirtyEntities(DirtySessionState state) {
+        state.session.flush();
+    }
+}
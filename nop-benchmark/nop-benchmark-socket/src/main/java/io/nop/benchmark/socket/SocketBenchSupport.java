@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.socket;
+
+import io.nop.socket.ICommandServer;
+import io.nop.socket.NioSocketServer;
+import io.nop.socket.ServerConfig;
+import io.nop.socket.SocketServer;
+
+public class SocketBenchSupport {
+    public static final String TRANSPORT_BLOCKING = "blocking";
+    public static final String TRANSPORT_NIO = "nio";
+
+    /**
+     * 启动回显服务器。不限制空闲时间，最大连接数为maxConnections
+     */
+    public static ICommandServer startEchoServer(String transport, int port, int maxConnections) {
+        ServerConfig config = new ServerConfig();
+        config.setPort(port);
+        config.setMaxConnections(maxConnections);
+        config.setIdleTimeout(0);
+
+        ICommandServer server;
+        if (TRANSPORT_NIO.equals(transport)) {
+            NioSocketServer nioServer = new NioSocketServer();
+            nioServer.setServerConfig(config);
+            server = nioServer;
+        } else {
+            SocketServer socketServer = new SocketServer();
+            socketServer.setServerConfig(config);
+            server = socketServer;
+        }
+        server.setCommandHandler((addr, request) -> request);
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.socket;
+
+import io.nop.commons.util.IoHelper;
+import io.nop.socket.BinaryCommand;
+import io.nop.socket.ICommandServer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对比两种服务器实现保持大量空闲连接时占用的线程和内存。JMH不适合测量这一类指标，所以单独提供main函数。
+ * <pre>
+ * java -Xss256k -cp ... io.nop.benchmark.socket.SocketConnectionBench [连接数，缺省为2000]
+ * </pre>
+ * 操作系统需要允许足够多的文件句柄(ulimit -n)。
+ */
+public class SocketConnectionBench {
+    public static void main(String[] args) throws Exception {
+        int connCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int port = 10320;
+
+        for (String transport : new String[]{SocketBenchSupport.TRANSPORT_BLOCKING, SocketBenchSupport.TRANSPORT_NIO}) {
+            run(transport, port++, connCount);
+        }
+    }
+
+    static void run(String transport, int port, int connCount) throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        System.gc();
+        int baseThreads = threadBean.getThreadCount();
+        long baseMemory = usedMemory();
+
+        ICommandServer server = SocketBenchSupport.startEchoServer(transport, port, connCount + 10);
+        List<Socket> sockets = new ArrayList<>(connCount);
+        try {
+            long beginTime = System.nanoTime();
+            for (int i = 0; i < connCount; i++) {
+                Socket socket = new Socket();
+                socket.connect(new InetSocketAddress(server.getServerConfig().getHost(), port), 5000);
+                sockets.add(socket);
+            }
+
+            // 每个连接都完成一次请求-响应，确保服务端已经为连接分配了资源
+            BinaryCommand request = server.newCommand((short) 1, (short) 0, "ping");
+            byte[] packet = toBytes(request);
+            byte[] response = new byte[packet.length];
+            for (Socket socket : sockets) {
+                OutputStream os = socket.getOutputStream();
+                os.write(packet);
+                os.flush();
+                readFully(socket.getInputStream(), response);
+            }
+            long usedTime = (System.nanoTime() - beginTime) / 1000000;
+
+            System.gc();
+            Thread.sleep(500);
+            int threads = threadBean.getThreadCount() - baseThreads;
+            long memory = (usedMemory() - baseMemory) / 1024 / 1024;
+
+            System.out.println("transport=" + transport + ",connections=" + connCount + ",usedTime=" + usedTime
+                    + "ms,extraThreads=" + threads + ",extraHeapMB=" + memory);
+        } finally {
+            for (Socket socket : sockets) {
+                IoHelper.safeCloseObject(socket);
+            }
+            server.stop();
+        }
+    }
+
+    static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    static byte[] toBytes(BinaryCommand command) {
+        ByteBuffer buf = command.toPacket();
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    static void readFully(InputStream is, byte[] buf) throws Exception {
+        int offset = 0;
+        while (offset < buf.length) {
+            int n = is.read(buf, offset, buf.length - offset);
+            if (n < 0)
+                throw new IllegalStateException("connection closed");
+            offset += n;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.socket;
+
+import io.nop.socket.BinaryCommand;
+import io.nop.socket.ClientConfig;
+import io.nop.socket.ICommandServer;
+import io.nop.socket.SocketClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个JMH线程持有一个SocketClient连接，对比两种服务器实现每秒处理的命令数。
+ * call为请求-响应往返，pipeline为一次发送多个请求之后再统一接收响应，用于观察写合并的效果。
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+public class SocketServerBenchmark {
+    static final int PIPELINE_SIZE = 100;
+
+    @Param({SocketBenchSupport.TRANSPORT_BLOCKING, SocketBenchSupport.TRANSPORT_NIO})
+    public String transport;
+
+    @Param({"64"})
+    public int dataSize;
+
+    @Param({"10310"})
+    public int port;
+
+    ICommandServer server;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        server = SocketBenchSupport.startEchoServer(transport, port, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        if (server != null)
+            server.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class ClientState {
+        SocketClient client;
+        BinaryCommand request;
+
+        @Setup(Level.Trial)
+        public void connect(SocketServerBenchmark bench) {
+            ClientConfig config = new ClientConfig();
+            config.setPort(bench.port);
+            config.setReadTimeout(0);
+            config.setHeartbeatInterval(0);
+
+            client = new SocketClient();
+            client.setClientConfig(config);
+            client.connect();
+
+            char[] chars = new char[bench.dataSize];
+            Arrays.fill(chars, 'a');
+            request = client.newCommand((short) 1, (short) 0, new String(chars));
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            if (client != null)
+                client.close();
+        }
+    }
+
+    @Benchmark
+    public BinaryCommand call(ClientState state) {
+        return state.client.call(state.request);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_SIZE)
+    public BinaryCommand pipeline(ClientState state) {
+        SocketClient client = state.client;
+        for (int i = 0; i < PIPELINE_SIZE; i++) {
+            client.send(state.request, i == PIPELINE_SIZE - 1);
+        }
+        BinaryCommand response = null;
+        for (int i = 0; i < PIPELINE_SIZE; i++) {
+            response = client.recv();
+        }
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SocketServerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.benchmark.xml;
+
+import io.nop.api.core.util.SourceLocation;
+import io.nop.core.lang.xml.XNode;
+import io.nop.core.lang.xml.parse.XNodeParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较XNode缺省表示和紧凑表示(XNodeParser.compact)的解析速度、复制速度和属性读取速度。
+ * 通过GCProfiler输出每次操作的内存分配量，main函数在运行JMH之前先输出两种表示驻留在内存中的大小
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class XNodeBenchmark {
+    static final SourceLocation LOC = SourceLocation.fromPath("/bench/test.orm.xml");
+
+    @Param({"false", "true"})
+    public boolean compact;
+
+    @Param({"200"})
+    public int entityCount;
+
+    private String xml;
+    private XNode node;
+
+    @Setup
+    public void setup() {
+        xml = buildXml(entityCount);
+        node = parse(compact);
+    }
+
+    static String buildXml(int entityCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<orm x:schema=\"/nop/schema/orm/orm.xdef\" xmlns:x=\"/nop/schema/xdsl.xdef\">\n<entities>\n");
+        for (int i = 0; i < entityCount; i++) {
+            sb.append("  <entity name=\"app.entity.Entity").append(i).append("\" tableName=\"t_entity_").append(i)
+                    .append("\" displayName=\"Entity ").append(i).append("\" registerShortName=\"true\">\n");
+            sb.append("    <columns>\n");
+            for (int j = 0; j < 10; j++) {
+                sb.append("      <column name=\"col").append(j).append("\" code=\"COL_").append(j)
+                        .append("\" propId=\"").append(j + 1).append("\" stdSqlType=\"VARCHAR\" precision=\"100\"")
+                        .append(" mandatory=\"").append(j == 0).append("\" displayName=\"Column ").append(j)
+                        .append("\"/>\n");
+            }
+            sb.append("    </columns>\n  </entity>\n");
+        }
+        sb.append("</entities>\n</orm>");
+        return sb.toString();
+    }
+
+    XNode parse(boolean compact) {
+        return XNodeParser.instance().compact(compact).parseFromText(LOC, xml);
+    }
+
+    @Benchmark
+    public XNode parse() {
+        return parse(compact);
+    }
+
+    @Benchmark
+    public XNode cloneNode() {
+        return node.cloneInstance();
+    }
+
+    @Benchmark
+    public int readAttrs() {
+        int n = 0;
+        for (XNode entity : node.childByTag("entities").getChildren()) {
+            for (XNode col : entity.childByTag("columns").getChildren()) {
+                n += col.attrInt("propId");
+                if (col.attrBoolean("mandatory"))
+                    n++;
+                n += col.attrText("name").length();
+            }
+        }
+        return n;
+    }
+
+    static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 粗略估计驻留在内存中的XNode树的大小
+     */
+    static long measureRetainedBytes(boolean compact, int entityCount, int copies) {
+        XNodeBenchmark bench = new XNodeBenchmark();
+        bench.xml = buildXml(entityCount);
+
+        long before = usedMemory();
+        List<XNode> nodes = new ArrayList<>(copies);
+        for (int i = 0; i < copies; i++) {
+            nodes.add(bench.parse(compact));
+        }
+        long after = usedMemory();
+        if (nodes.isEmpty())
+            return 0;
+        return (after - before) / copies;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int entityCount = 200;
+        System.out.println("retained bytes per tree: default=" + measureRetainedBytes(false, entityCount, 20)
+                + ",compact=" + measureRetainedBytes(true, entityCount, 20));
+
+        Options opt = new OptionsBuilder()
+                .include(XNodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -8,4 +8,19 @@
 package io.nop.cluster;
 
 public interface ClusterConstants {
+    String DEFAULT_METER_PREFIX = "nop.cluster.lb.";
+
+    String METER_SCORE = "score";
+
+    String METER_LATENCY = "latency";
+
+    String METER_ERROR_RATE = "error-rate";
+
+    String METER_ACTIVE = "active";
+
+    String METER_EJECTED = "ejected";
+
+    String TAG_SERVICE = "service";
+
+    String TAG_INSTANCE = "instance";
 }
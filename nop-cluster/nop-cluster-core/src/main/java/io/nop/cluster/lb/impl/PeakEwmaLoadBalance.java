@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.cluster.lb.impl;
+
+import io.nop.api.core.util.Guard;
+import io.nop.cluster.discovery.ServiceInstance;
+import io.nop.cluster.lb.ILoadBalance;
+import io.nop.cluster.lb.stats.ServiceInstanceStats;
+import io.nop.cluster.lb.stats.ServiceInstanceStatsRegistry;
+import io.nop.commons.util.MathHelper;
+
+import java.util.List;
+
+/**
+ * power-of-two-choices: 随机选择两个实例，取peak-EWMA负载得分较低的一个。
+ * 得分由ClusterRpcClient记录的延迟和活动请求数决定，并按照实例权重和慢启动系数折算。被隔离的实例不参与选择，
+ * 但是如果所有实例都被隔离，则忽略隔离状态，避免出现无服务可用的情况。
+ *
+ * @param <R> Request对象类型
+ */
+public class PeakEwmaLoadBalance<R> implements ILoadBalance<ServiceInstance, R> {
+    private final ServiceInstanceStatsRegistry statsRegistry;
+
+    public PeakEwmaLoadBalance(ServiceInstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = Guard.notNull(statsRegistry, "statsRegistry");
+    }
+
+    public ServiceInstanceStatsRegistry getStatsRegistry() {
+        return statsRegistry;
+    }
+
+    @Override
+    public ServiceInstance choose(List<ServiceInstance> candidates, R request) {
+        int n = candidates.size();
+        if (n == 0)
+            return null;
+        if (n == 1)
+            return candidates.get(0);
+
+        long now = System.nanoTime();
+
+        int[] indexes = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            ServiceInstanceStats stats = statsRegistry.getStatsIfExists(candidates.get(i));
+            if (stats == null || !stats.isEjected(now))
+                indexes[count++] = i;
+        }
+
+        if (count == 0) {
+            for (int i = 0; i < n; i++) {
+                indexes[i] = i;
+            }
+            count = n;
+        }
+
+        if (count == 1)
+            return candidates.get(indexes[0]);
+
+        int i = MathHelper.random().nextInt(count);
+        int j = MathHelper.random().nextInt(count - 1);
+        if (j >= i)
+            j++;
+
+        ServiceInstance a = candidates.get(indexes[i]);
+        ServiceInstance b = candidates.get(indexes[j]);
+        return getScore(b, now) < getScore(a, now) ? b : a;
+    }
+
+    double getScore(ServiceInstance instance, long now) {
+        ServiceInstanceStats stats = statsRegistry.getStatsIfExists(instance);
+        if (stats == null)
+            return 0;
+
+        double weight = Math.max(instance.getWeight(), 1) * stats.getSlowStartFactor(now);
+        return stats.getLoad(now) / weight;
+    }
+}
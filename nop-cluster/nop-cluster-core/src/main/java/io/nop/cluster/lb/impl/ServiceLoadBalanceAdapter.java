@@ -9,8 +9,22 @@ package io.nop.cluster.lb.impl;
 
 import io.nop.cluster.discovery.ServiceInstance;
 import io.nop.cluster.lb.ILoadBalanceAdapter;
+import io.nop.cluster.lb.stats.ServiceInstanceStats;
+import io.nop.cluster.lb.stats.ServiceInstanceStatsRegistry;
 
 public class ServiceLoadBalanceAdapter implements ILoadBalanceAdapter<ServiceInstance> {
+    private ServiceInstanceStatsRegistry statsRegistry;
+
+    public ServiceInstanceStatsRegistry getStatsRegistry() {
+        return statsRegistry;
+    }
+
+    /**
+     * 设置之后活动请求数从调用统计中获取
+     */
+    public void setStatsRegistry(ServiceInstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
 
     @Override
     public int getWeight(ServiceInstance candidate) {
@@ -19,6 +33,9 @@ public class ServiceLoadBalanceAdapter implements ILoadBalanceAdapter<ServiceIns
 
     @Override
     public int getActiveCount(ServiceInstance candidate) {
-        return 0;
+        if (statsRegistry == null)
+            return 0;
+        ServiceInstanceStats stats = statsRegistry.getStatsIfExists(candidate);
+        return stats == null ? 0 : stats.getActiveCount();
     }
 }
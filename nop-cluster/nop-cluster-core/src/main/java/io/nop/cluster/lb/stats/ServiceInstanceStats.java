@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.cluster.lb.stats;
+
+import io.micrometer.core.instrument.Meter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个服务实例的调用统计，由ClusterRpcClient在每次调用结束时更新。
+ * <p>
+ * 延迟采用peak-EWMA算法：新的延迟大于当前值时直接取新值，否则按照距离上次更新的时间指数衰减。
+ * 这样实例一旦出现卡顿(例如GC暂停)，得分会立刻变差，恢复后再逐渐回落。
+ * 连续失败或者错误率过高时实例会被隔离一段时间，隔离结束后通过慢启动逐步恢复流量。
+ */
+public class ServiceInstanceStats {
+    private final ServiceInstanceStatsRegistry registry;
+    private final String serviceName;
+    private final String host;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    /**
+     * 最近一次调用的时间，用于清理长期不再访问的实例
+     */
+    private volatile long lastAccessTime;
+
+    /**
+     * 注册到MeterRegistry上的Gauge，实例被清理时需要一并删除
+     */
+    private volatile List<Meter> meters = Collections.emptyList();
+
+    /**
+     * 以下变量在synchronized中更新
+     */
+    private volatile double cost;
+    private volatile long lastUpdateTime;
+    private volatile double errorRate;
+    private int sampleCount;
+    private int consecutiveFailures;
+    private int ejectCount;
+
+    /**
+     * 隔离结束的时间，同时也是慢启动开始的时间。为0表示未被隔离
+     */
+    private volatile long ejectedUntil;
+    private volatile boolean slowStart;
+
+    ServiceInstanceStats(ServiceInstanceStatsRegistry registry, String serviceName, String host) {
+        this.registry = registry;
+        this.serviceName = serviceName;
+        this.host = host;
+        this.lastUpdateTime = System.nanoTime();
+        this.lastAccessTime = lastUpdateTime;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public int getEjectCount() {
+        return ejectCount;
+    }
+
+    /**
+     * @return 调用开始时间，需要传递给endCall
+     */
+    public long beginCall() {
+        activeCount.incrementAndGet();
+        long now = System.nanoTime();
+        lastAccessTime = now;
+        return now;
+    }
+
+    public void endCall(long beginTime, boolean success) {
+        endCall(beginTime, System.nanoTime(), success);
+    }
+
+    public synchronized void endCall(long beginTime, long now, boolean success) {
+        activeCount.decrementAndGet();
+
+        long rtt = Math.max(now - beginTime, 0);
+        double w = decayWeight(now);
+        cost = rtt > cost ? rtt : cost * w + rtt * (1 - w);
+        lastUpdateTime = now;
+        lastAccessTime = now;
+
+        double alpha = registry.getErrorRateAlpha();
+        errorRate = errorRate * (1 - alpha) + (success ? 0 : alpha);
+        sampleCount++;
+
+        if (success) {
+            consecutiveFailures = 0;
+            return;
+        }
+
+        consecutiveFailures++;
+        if (isEjected(now))
+            return;
+
+        if (consecutiveFailures >= registry.getFailureThreshold()
+                || (sampleCount >= registry.getMinRequestCount() && errorRate >= registry.getErrorRateThreshold())) {
+            eject(now);
+        }
+    }
+
+    private void eject(long now) {
+        ejectCount++;
+        long ejectTime = Math.min(registry.getEjectTime() * ejectCount, registry.getMaxEjectTime());
+        long until = now + TimeUnit.MILLISECONDS.toNanos(ejectTime);
+        // 0用于表示未被隔离
+        ejectedUntil = until == 0 ? 1 : until;
+        slowStart = true;
+
+        // 重新接入后按照新的样本判断是否需要再次隔离
+        errorRate = 0;
+        sampleCount = 0;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * 没有活动请求，且超过idleTime(纳秒)没有被调用
+     */
+    public boolean isIdle(long now, long idleTime) {
+        return activeCount.get() <= 0 && now - lastAccessTime >= idleTime;
+    }
+
+    List<Meter> getMeters() {
+        return meters;
+    }
+
+    void setMeters(List<Meter> meters) {
+        this.meters = meters;
+    }
+
+    public boolean isEjected() {
+        return isEjected(System.nanoTime());
+    }
+
+    public boolean isEjected(long now) {
+        long until = ejectedUntil;
+        return until != 0 && now - until < 0;
+    }
+
+    /**
+     * 隔离结束后的慢启动阶段，流量权重从minSlowStartFactor线性增长到1
+     */
+    public double getSlowStartFactor(long now) {
+        if (!slowStart)
+            return 1;
+
+        long elapsed = now - ejectedUntil;
+        double minFactor = registry.getMinSlowStartFactor();
+        if (elapsed < 0)
+            return minFactor;
+
+        long slowStartTime = TimeUnit.MILLISECONDS.toNanos(registry.getSlowStartTime());
+        if (elapsed >= slowStartTime) {
+            finishSlowStart();
+            return 1;
+        }
+        return Math.max(minFactor, (double) elapsed / slowStartTime);
+    }
+
+    private synchronized void finishSlowStart() {
+        if (slowStart && !isEjected(System.nanoTime())) {
+            slowStart = false;
+            ejectCount = 0;
+        }
+    }
+
+    /**
+     * 当前的延迟估计值(纳秒)，没有新的调用时按照时间衰减
+     */
+    public double getLatency(long now) {
+        return decayedCost(now);
+    }
+
+    /**
+     * 负载得分，越小越好。延迟估计值乘以(活动请求数+1)，尚未有延迟数据但已经有活动请求时使用惩罚值
+     */
+    public double getLoad(long now) {
+        int active = activeCount.get();
+        double c = decayedCost(now);
+        if (c == 0 && active > 0)
+            return TimeUnit.MILLISECONDS.toNanos(registry.getPenaltyCost()) + active;
+        return c * (active + 1);
+    }
+
+    private double decayedCost(long now) {
+        return cost * decayWeight(now);
+    }
+
+    private double decayWeight(long now) {
+        long elapsed = Math.max(now - lastUpdateTime, 0);
+        return Math.exp(-(double) elapsed / TimeUnit.MILLISECONDS.toNanos(registry.getDecayTime()));
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceInstanceStats[serviceName=" + serviceName + ",host=" + host + ",active=" + activeCount.get()
+                + ",latency=" + cost + ",errorRate=" + errorRate + ",ejected=" + isEjected() + "]";
+    }
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.cluster.lb.stats;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.nop.cluster.discovery.ServiceInstance;
+import io.nop.commons.metrics.GlobalMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.nop.cluster.ClusterConstants.DEFAULT_METER_PREFIX;
+import static io.nop.cluster.ClusterConstants.METER_ACTIVE;
+import static io.nop.cluster.ClusterConstants.METER_EJECTED;
+import static io.nop.cluster.ClusterConstants.METER_ERROR_RATE;
+import static io.nop.cluster.ClusterConstants.METER_LATENCY;
+import static io.nop.cluster.ClusterConstants.METER_SCORE;
+import static io.nop.cluster.ClusterConstants.TAG_INSTANCE;
+import static io.nop.cluster.ClusterConstants.TAG_SERVICE;
+
+/**
+ * 按照serviceName和host维护服务实例的调用统计。服务发现每次返回的ServiceInstance可能是新对象，所以不能直接把统计信息保存在实例上。
+ * 每个实例的得分、延迟、错误率等作为Gauge导出到MeterRegistry。
+ * 服务发现没有提供实例下线通知，所以超过idleTimeout没有被调用的实例会被清理，同时删除对应的Gauge，避免实例地址不断变化时内存泄漏。
+ */
+public class ServiceInstanceStatsRegistry {
+    private final Map<String, ServiceInstanceStats> statsMap = new ConcurrentHashMap<>();
+
+    private MeterRegistry meterRegistry;
+    private String meterPrefix;
+    private boolean metricsEnabled = true;
+
+    /**
+     * 延迟的衰减时间常数(毫秒)
+     */
+    private long decayTime = 10000;
+
+    /**
+     * 错误率的EWMA系数，每个样本的权重
+     */
+    private double errorRateAlpha = 0.1;
+
+    /**
+     * 连续失败多少次之后隔离
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * 错误率超过此值时隔离
+     */
+    private double errorRateThreshold = 0.5;
+
+    /**
+     * 至少有多少个样本之后才按照错误率判断
+     */
+    private int minRequestCount = 10;
+
+    /**
+     * 隔离时间(毫秒)，多次隔离时按次数递增，最大不超过maxEjectTime
+     */
+    private long ejectTime = 30000;
+
+    private long maxEjectTime = 300000;
+
+    /**
+     * 隔离结束后的慢启动时间(毫秒)
+     */
+    private long slowStartTime = 30000;
+
+    private double minSlowStartFactor = 0.1;
+
+    /**
+     * 尚未获得延迟数据的实例存在活动请求时使用的延迟估计值(毫秒)
+     */
+    private long penaltyCost = 1000;
+
+    /**
+     * 超过此时间(毫秒)没有被调用的实例统计会被清理
+     */
+    private long idleTimeout = 600000;
+
+    private volatile long lastCleanTime = System.nanoTime();
+
+    public ServiceInstanceStats getStats(ServiceInstance instance) {
+        String key = buildKey(instance);
+        ServiceInstanceStats stats = statsMap.get(key);
+        if (stats != null)
+            return stats;
+
+        // 只在创建新的统计对象时检查是否需要清理，正常调用路径上没有额外开销
+        long now = System.nanoTime();
+        if (now - lastCleanTime >= TimeUnit.MILLISECONDS.toNanos(idleTimeout)) {
+            lastCleanTime = now;
+            removeIdleStats(now);
+        }
+
+        return statsMap.computeIfAbsent(key, k -> {
+            ServiceInstanceStats ret = new ServiceInstanceStats(this, instance.getServiceName(), instance.getHost());
+            if (metricsEnabled)
+                registerMeters(ret);
+            return ret;
+        });
+    }
+
+    public ServiceInstanceStats getStatsIfExists(ServiceInstance instance) {
+        return statsMap.get(buildKey(instance));
+    }
+
+    public List<ServiceInstanceStats> getAllStats() {
+        return new ArrayList<>(statsMap.values());
+    }
+
+    public void clear() {
+        for (String key : new ArrayList<>(statsMap.keySet())) {
+            removeStats(key);
+        }
+    }
+
+    public void removeStats(ServiceInstance instance) {
+        removeStats(buildKey(instance));
+    }
+
+    /**
+     * 清理超过idleTimeout没有被调用的实例统计
+     *
+     * @return 被清理的实例个数
+     */
+    public int removeIdleStats(long now) {
+        long idleTime = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+        int count = 0;
+        for (Map.Entry<String, ServiceInstanceStats> entry : statsMap.entrySet()) {
+            if (entry.getValue().isIdle(now, idleTime)) {
+                if (statsMap.remove(entry.getKey(), entry.getValue())) {
+                    removeMeters(entry.getValue());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    protected void removeStats(String key) {
+        ServiceInstanceStats stats = statsMap.remove(key);
+        if (stats != null)
+            removeMeters(stats);
+    }
+
+    protected void removeMeters(ServiceInstanceStats stats) {
+        List<Meter> meters = stats.getMeters();
+        if (meters.isEmpty())
+            return;
+
+        MeterRegistry registry = getMeterRegistry();
+        for (Meter meter : meters) {
+            registry.remove(meter);
+        }
+        stats.setMeters(Collections.emptyList());
+    }
+
+    protected String buildKey(ServiceInstance instance) {
+        return instance.getServiceName() + '@' + instance.getHost();
+    }
+
+    protected void registerMeters(ServiceInstanceStats stats) {
+        MeterRegistry registry = getMeterRegistry();
+        Tags tags = Tags.of(TAG_SERVICE, String.valueOf(stats.getServiceName()), TAG_INSTANCE, stats.getHost());
+
+        List<Meter> meters = new ArrayList<>(5);
+        meters.add(Gauge.builder(meterName(METER_SCORE), stats, s -> s.getLoad(System.nanoTime()) / 1000_000)
+                .tags(tags).register(registry));
+        meters.add(Gauge.builder(meterName(METER_LATENCY), stats, s -> s.getLatency(System.nanoTime()) / 1000_000)
+                .tags(tags).baseUnit("milliseconds").register(registry));
+        meters.add(Gauge.builder(meterName(METER_ERROR_RATE), stats, ServiceInstanceStats::getErrorRate)
+                .tags(tags).register(registry));
+        meters.add(Gauge.builder(meterName(METER_ACTIVE), stats, ServiceInstanceStats::getActiveCount)
+                .tags(tags).register(registry));
+        meters.add(Gauge.builder(meterName(METER_EJECTED), stats, s -> s.isEjected() ? 1 : 0)
+                .tags(tags).register(registry));
+        stats.setMeters(meters);
+    }
+
+    String meterName(String name) {
+        if (meterPrefix == null)
+            return DEFAULT_METER_PREFIX + name;
+        return meterPrefix + name;
+    }
+
+    public MeterRegistry getMeterRegistry() {
+        if (meterRegistry == null)
+            return GlobalMeterRegistry.instance();
+        return meterRegistry;
+    }
+
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public String getMeterPrefix() {
+        return meterPrefix;
+    }
+
+    public void setMeterPrefix(String meterPrefix) {
+        this.meterPrefix = meterPrefix;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public long getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(long decayTime) {
+        this.decayTime = Math.max(decayTime, 1);
+    }
+
+    public double getErrorRateAlpha() {
+        return errorRateAlpha;
+    }
+
+    public void setErrorRateAlpha(double errorRateAlpha) {
+        this.errorRateAlpha = errorRateAlpha;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public double getErrorRateThreshold() {
+        return errorRateThreshold;
+    }
+
+    public void setErrorRateThreshold(double errorRateThreshold) {
+        this.errorRateThreshold = errorRateThreshold;
+    }
+
+    public int getMinRequestCount() {
+        return minRequestCount;
+    }
+
+    public void setMinRequestCount(int minRequestCount) {
+        this.minRequestCount = minRequestCount;
+    }
+
+    public long getEjectTime() {
+        return ejectTime;
+    }
+
+    public void setEjectTime(long ejectTime) {
+        this.ejectTime = ejectTime;
+    }
+
+    public long getMaxEjectTime() {
+        return maxEjectTime;
+    }
+
+    public void setMaxEjectTime(long maxEjectTime) {
+        this.maxEjectTime = maxEjectTime;
+    }
+
+    public long getSlowStartTime() {
+        return slowStartTime;
+    }
+
+    public void setSlowStartTime(long slowStartTime) {
+        this.slowStartTime = Math.max(slowStartTime, 1);
+    }
+
+    public double getMinSlowStartFactor() {
+        return minSlowStartFactor;
+    }
+
+    public void setMinSlowStartFactor(double minSlowStartFactor) {
+        this.minSlowStartFactor = minSlowStartFactor;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = Math.max(idleTimeout, 1);
+    }
+
+    public long getPenaltyCost() {
+        return penaltyCost;
+    }
+
+    public void setPenaltyCost(long penaltyCost) {
+        this.penaltyCost = penaltyCost;
+    }
+}
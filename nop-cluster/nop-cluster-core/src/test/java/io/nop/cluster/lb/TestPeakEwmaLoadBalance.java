@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.cluster.lb;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nop.cluster.discovery.ServiceInstance;
+import io.nop.cluster.lb.impl.PeakEwmaLoadBalance;
+import io.nop.cluster.lb.stats.ServiceInstanceStats;
+import io.nop.cluster.lb.stats.ServiceInstanceStatsRegistry;
+import io.nop.commons.util.ArrayHelper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestPeakEwmaLoadBalance {
+
+    private List<ServiceInstance> getItems(int n) {
+        List<ServiceInstance> items = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ServiceInstance item = new ServiceInstance();
+            item.setServiceName("test");
+            item.setAddr("127.0.0.1");
+            item.setPort(i);
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Test
+    public void testSlowInstance() {
+        ServiceInstanceStatsRegistry registry = new ServiceInstanceStatsRegistry();
+        registry.setMetricsEnabled(false);
+        PeakEwmaLoadBalance<String> lb = new PeakEwmaLoadBalance<>(registry);
+
+        List<ServiceInstance> items = getItems(3);
+        int[] counts = new int[3];
+        for (int i = 0; i < 3000; i++) {
+            ServiceInstance item = lb.choose(items, "a");
+            counts[item.getPort()]++;
+
+            // 实例0的响应时间是其他实例的10倍
+            long rtt = TimeUnit.MILLISECONDS.toNanos(item.getPort() == 0 ? 10 : 1);
+            ServiceInstanceStats stats = registry.getStats(item);
+            long begin = stats.beginCall();
+            stats.endCall(begin, begin + rtt, true);
+        }
+
+        System.out.println("peakEwma=" + ArrayHelper.toList(counts));
+        assertTrue(counts[0] < counts[1] / 5);
+        assertTrue(counts[0] < counts[2] / 5);
+    }
+
+    @Test
+    public void testEjectAndSlowStart() throws Exception {
+        ServiceInstanceStatsRegistry registry = new ServiceInstanceStatsRegistry();
+        registry.setMeterRegistry(new SimpleMeterRegistry());
+        registry.setFailureThreshold(3);
+        registry.setEjectTime(100);
+        registry.setSlowStartTime(10000);
+        PeakEwmaLoadBalance<String> lb = new PeakEwmaLoadBalance<>(registry);
+
+        List<ServiceInstance> items = getItems(2);
+        ServiceInstance bad = items.get(0);
+        ServiceInstanceStats stats = registry.getStats(bad);
+        for (int i = 0; i < 3; i++) {
+            stats.endCall(stats.beginCall(), false);
+        }
+        assertTrue(stats.isEjected());
+        assertEquals(1, stats.getEjectCount());
+
+        for (int i = 0; i < 100; i++) {
+            assertNotSame(bad, lb.choose(items, "a"));
+        }
+
+        // 所有实例都被隔离时忽略隔离状态
+        assertNotNull(lb.choose(items.subList(0, 1), "a"));
+
+        assertNotNull(registry.getMeterRegistry().find("nop.cluster.lb.ejected").tag("instance", bad.getHost())
+                .gauge());
+        assertEquals(1.0, registry.getMeterRegistry().find("nop.cluster.lb.ejected").tag("instance", bad.getHost())
+                .gauge().value());
+
+        Thread.sleep(150);
+        long now = System.nanoTime();
+        assertFalse(stats.isEjected(now));
+        double factor = stats.getSlowStartFactor(now);
+        assertTrue(factor >= registry.getMinSlowStartFactor() && factor < 0.5);
+    }
+
+    @Test
+    public void testRemoveIdleStats() {
+        ServiceInstanceStatsRegistry registry = new ServiceInstanceStatsRegistry();
+        registry.setMeterRegistry(new SimpleMeterRegistry());
+        registry.setIdleTimeout(1000);
+
+        List<ServiceInstance> items = getItems(2);
+        ServiceInstanceStats idle = registry.getStats(items.get(0));
+        idle.endCall(idle.beginCall(), true);
+        ServiceInstanceStats active = registry.getStats(items.get(1));
+        active.beginCall();
+        assertEquals(10, registry.getMeterRegistry().getMeters().size());
+
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        assertEquals(1, registry.removeIdleStats(now));
+        assertNull(registry.getStatsIfExists(items.get(0)));
+        assertSame(active, registry.getStatsIfExists(items.get(1)));
+        assertNull(registry.getMeterRegistry().find("nop.cluster.lb.score").tag("instance", items.get(0).getHost())
+                .gauge());
+        assertEquals(5, registry.getMeterRegistry().getMeters().size());
+
+        registry.clear();
+        assertTrue(registry.getMeterRegistry().getMeters().isEmpty());
+    }
+}
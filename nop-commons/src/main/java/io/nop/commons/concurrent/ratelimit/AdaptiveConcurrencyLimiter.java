@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.commons.concurrent.ratelimit;
+
+import io.nop.api.core.time.CoreMetrics;
+import io.nop.api.core.util.Guard;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 根据响应延迟自动调整并发上限，算法参考Netflix concurrency-limits中的Gradient2。
+ * <p>
+ * 长期平均延迟(longRtt)代表服务没有排队时的延迟，短期平均延迟(shortRtt)反映当前负载。两者的比值(gradient)小于1说明请求开始排队，
+ * 此时按比例降低并发上限，否则按照sqrt(limit)的幅度逐步增加。tryAcquire不会等待，超过上限时立刻返回false，由调用者快速拒绝请求，
+ * 避免请求在队列中堆积。release时必须传入请求的执行时间(纳秒)，duration小于等于0表示只归还许可，不作为延迟样本。
+ * 延迟样本按照采样窗口汇总，每个窗口只调整一次上限，这样longRtt的平滑程度与请求吞吐量无关。
+ */
+public class AdaptiveConcurrencyLimiter implements IRateLimiter {
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    /**
+     * 延迟增长多少倍以内仍然认为没有排队
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 新计算的上限与当前上限的平滑系数
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * longRtt按照多少个采样窗口做指数平均
+     */
+    private double longWindowFactor = 2.0 / (600 + 1);
+
+    /**
+     * 每个采样窗口至少包含的样本数和持续时间(纳秒)。窗口结束时用窗口内的平均延迟更新一次并发上限
+     */
+    private int windowSize = 10;
+    private long minWindowTime = TimeUnit.SECONDS.toNanos(1);
+
+    private volatile double estimatedLimit;
+    private volatile int limit;
+
+    private double longRtt;
+    private double shortRtt;
+
+    private long windowStartTime;
+    private long windowRttSum;
+    private int windowCount;
+    private int windowMaxInflight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        Guard.checkArgument(minLimit > 0, "minLimit must be positive", minLimit);
+        Guard.checkArgument(minLimit <= maxLimit, "minLimit must not be greater than maxLimit", minLimit, maxLimit);
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+
+        int limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.estimatedLimit = limit;
+        this.limit = limit;
+        this.windowStartTime = CoreMetrics.nanoTime();
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        Guard.checkArgument(rttTolerance >= 1, "rttTolerance must not be less than 1", rttTolerance);
+        this.rttTolerance = rttTolerance;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public void setLongWindow(int longWindow) {
+        this.longWindowFactor = 2.0 / (Math.max(longWindow, 1) + 1);
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = Math.max(windowSize, 1);
+    }
+
+    public void setMinWindowTime(long minWindowTime, TimeUnit unit) {
+        this.minWindowTime = unit.toNanos(minWindowTime);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public synchronized double getLongRtt() {
+        return longRtt;
+    }
+
+    public synchronized double getShortRtt() {
+        return shortRtt;
+    }
+
+    /**
+     * 不会等待，timeout参数被忽略
+     */
+    @Override
+    public boolean tryAcquire(int permits, long timeout) {
+        Guard.positiveInt(permits, "permits not positive");
+
+        while (true) {
+            int current = inflight.get();
+            if (current + permits > limit)
+                return false;
+            if (inflight.compareAndSet(current, current + permits))
+                return true;
+        }
+    }
+
+    @Override
+    public void release(int permits, long duration, Throwable exception) {
+        int current = inflight.getAndAdd(-permits);
+        if (duration > 0)
+            addSample(duration, current);
+    }
+
+    synchronized void addSample(long rtt, int inflight) {
+        windowRttSum += rtt;
+        windowCount++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflight);
+
+        if (windowCount < windowSize)
+            return;
+
+        long now = CoreMetrics.nanoTime();
+        if (now - windowStartTime < minWindowTime)
+            return;
+
+        onWindow((double) windowRttSum / windowCount, windowMaxInflight);
+
+        windowStartTime = now;
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInflight = 0;
+    }
+
+    private void onWindow(double rtt, int inflight) {
+        shortRtt = rtt;
+        if (longRtt == 0) {
+            longRtt = rtt;
+            return;
+        }
+
+        longRtt = longRtt * (1 - longWindowFactor) + rtt * longWindowFactor;
+
+        // 负载下降后延迟明显减少，让longRtt更快地回落，避免上限长期偏高
+        if (longRtt / shortRtt > 2)
+            longRtt *= 0.95;
+
+        // 实际并发远低于上限时，延迟样本不能说明上限是否合适
+        if (inflight < estimatedLimit / 2)
+            return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+
+        estimatedLimit = newLimit;
+        limit = (int) newLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimiter[limit=" + limit + ",inflight=" + inflight.get() + "]";
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.commons.concurrent.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAdaptiveConcurrencyLimiter {
+
+    /**
+     * 模拟一个最多能同时处理capacity个请求的服务，超过之后请求排队，延迟按比例增加
+     */
+    long simulateRtt(int inflight, int capacity) {
+        long base = TimeUnit.MILLISECONDS.toNanos(10);
+        if (inflight <= capacity)
+            return base;
+        return base * inflight / capacity;
+    }
+
+    int drive(AdaptiveConcurrencyLimiter limiter, int demand, int capacity, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            int acquired = 0;
+            while (acquired < demand && limiter.tryAcquire()) {
+                acquired++;
+            }
+            // 每一轮作为一个采样窗口
+            if (acquired > 0)
+                limiter.release(acquired, simulateRtt(acquired, capacity), null);
+        }
+        return limiter.getLimit();
+    }
+
+    @Test
+    public void testFastReject() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire(1, 1000));
+        assertEquals(2, limiter.getInflight());
+
+        limiter.release(1, -1, null);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    AdaptiveConcurrencyLimiter newLimiter() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 1000);
+        limiter.setWindowSize(1);
+        limiter.setMinWindowTime(0, TimeUnit.MILLISECONDS);
+        return limiter;
+    }
+
+    @Test
+    public void testConverge() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter();
+
+        // 没有排队时逐步放大并发上限
+        int first = drive(limiter, 1000, 100, 200);
+        System.out.println("limit=" + first + ",longRtt=" + limiter.getLongRtt() + ",shortRtt=" + limiter.getShortRtt());
+        assertTrue(first > 60 && first < 300, "limit=" + first);
+
+        // 服务能力下降后，上限随之降低
+        int limit = drive(limiter, 1000, 20, 200);
+        System.out.println("limit=" + limit + ",longRtt=" + limiter.getLongRtt() + ",shortRtt=" + limiter.getShortRtt());
+        assertTrue(limit < first / 2, "limit=" + limit);
+    }
+
+    @Test
+    public void testAppLimited() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter();
+        // 实际并发远低于上限时不调整
+        assertEquals(20, drive(limiter, 5, 100, 100));
+    }
+}
@@ -142,6 +142,9 @@ public interface CoreConfigs {
     @Description("XML节点最多允许的嵌套层数")
     IConfigReference<Integer> CFG_XML_MAX_NESTED_LEVEL = varRef(s_loc, "nop.core.xml.max-nested-level", Integer.class, 50);
 
+    @Description("XML解析时是否缺省使用紧凑模式。紧凑模式下属性名会被intern，属性保存在平行数组中，属性位置只记录行列号")
+    IConfigReference<Boolean> CFG_XML_COMPACT_NODE = varRef(s_loc, "nop.core.xml.compact-node", Boolean.class, false);
+
     @Description("XML格式化时每行最多多少个字符")
     IConfigReference<Integer> CFG_XML_FORMAT_MAX_CHARS_PER_LINE = varRef(s_loc, "nop.core.xml.format.max-chars-per-line",
             Integer.class, 120);
@@ -914,4 +914,11 @@ public interface CoreErrors {
 
     ErrorCode ERR_CORE_NO_TENANT_ID =
             define("nop.err.core.no-tenant-id", "上下文环境没有设置租户id");
-}
\ No newline at end of file
+
+    ErrorCode ERR_CACHE_SERIALIZE_UNSUPPORTED_VALUE_TYPE =
+            define("nop.err.core.cache.serialize-unsupported-value-type",
+                    "缓存序列化不支持类型为[{className}]的值", ARG_CLASS_NAME);
+
+    ErrorCode ERR_CACHE_SERIALIZE_INVALID_DATA =
+            define("nop.err.core.cache.serialize-invalid-data", "缓存数据格式不正确");
+}
@@ -58,6 +58,10 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
 
     private final boolean enableFilter;
 
+    private final boolean useQueryCache;
+
+    private final Set<String> tableNames;
+
     public SQL(String text) {
         this(null, text, null, -1, null, -1, null, false, false, false, null);
     }
@@ -74,6 +78,8 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
         this.disableLogicalDelete = disableLogicalDelete;
         this.allowUnderscoreName = allowUnderscoreName;
         this.enableFilter = enableFilter;
+        this.useQueryCache = false;
+        this.tableNames = null;
     }
 
     public SQL(String name, String text, List<Marker> markers) {
@@ -91,6 +97,8 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
         this.disableLogicalDelete = false;
         this.allowUnderscoreName = false;
         this.enableFilter = false;
+        this.useQueryCache = false;
+        this.tableNames = null;
     }
 
     private SQL(SqlBuilder sb) {
@@ -104,6 +112,8 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
         this.disableLogicalDelete = sb.disableLogicalDelete;
         this.allowUnderscoreName = sb.allowUnderscoreName;
         this.enableFilter = sb.enableFilter;
+        this.useQueryCache = sb.useQueryCache;
+        this.tableNames = sb.tableNames;
     }
 
     public boolean isDisableLogicalDelete() {
@@ -118,6 +128,21 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
         return enableFilter;
     }
 
+    /**
+     * 允许使用查询结果缓存。缓存根据SQL文本和参数自动生成key，当tableNames中的表被修改时缓存自动失效
+     */
+    public boolean isUseQueryCache() {
+        return useQueryCache;
+    }
+
+    /**
+     * SQL语句所访问的数据库表。查询语句根据它建立缓存的依赖关系，修改语句根据它使得相关的缓存失效。
+     * 为null时表示未知，此时将会依赖于整个querySpace
+     */
+    public Set<String> getTableNames() {
+        return tableNames;
+    }
+
     @Override
     public SourceLocation getLocation() {
         return loc;
@@ -197,6 +222,7 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
     public static SqlBuilder begin(SQL sql) {
         return begin().name(sql.getName()).querySpace(sql.getQuerySpace()).fetchSize(sql.getFetchSize())
                 .timeout(sql.getTimeout()).cacheRef(sql.getCacheRef())
+                .useQueryCache(sql.isUseQueryCache()).tableNames(sql.getTableNames())
                 .disableLogicalDelete(sql.isDisableLogicalDelete()).append(sql);
     }
 
@@ -213,6 +239,10 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
 
         private boolean enableFilter;
 
+        private boolean useQueryCache;
+
+        private Set<String> tableNames;
+
         public SqlBuilder() {
         }
 
@@ -239,6 +269,8 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
             sb.fetchSize = fetchSize;
             sb.disableLogicalDelete = disableLogicalDelete;
             sb.allowUnderscoreName = allowUnderscoreName;
+            sb.useQueryCache = useQueryCache;
+            sb.tableNames = tableNames;
             return sb;
         }
 
@@ -283,6 +315,20 @@ public class SQL extends MarkedString implements ISourceLocationGetter {
             return this;
         }
 
+        public SqlBuilder useQueryCache() {
+            return useQueryCache(true);
+        }
+
+        public SqlBuilder useQueryCache(boolean b) {
+            this.useQueryCache = b;
+            return this;
+        }
+
+        public SqlBuilder tableNames(Set<String> tableNames) {
+            this.tableNames = tableNames;
+            return this;
+        }
+
         public SqlBuilder fetchSize(int fetchSize) {
             this.fetchSize = fetchSize;
             return this;
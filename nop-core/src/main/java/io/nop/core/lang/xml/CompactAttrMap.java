@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.core.lang.xml;
+
+import io.nop.api.core.util.SourceLocation;
+import io.nop.commons.util.objects.ValueWithLocation;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 紧凑模式下XNode的属性集合。属性名和属性值保存在平行数组中，属性数量一般很少，直接顺序查找。
+ * 属性的源码位置只记录行号和列号，文件路径等信息共享同一个基础位置对象，只有在访问ValueWithLocation时才会创建位置对象。
+ * 无法按照行列号保存的位置(例如len不为0)直接保存原始的ValueWithLocation。
+ */
+public class CompactAttrMap extends AbstractMap<String, ValueWithLocation> implements Serializable {
+    private static final long serialVersionUID = 3719238617282649931L;
+
+    static final int LOC_NONE = -1;
+    static final int LOC_FULL = -2;
+
+    private String[] names;
+    private Object[] values;
+    private int[] lines;
+    private int[] cols;
+    private int size;
+    private transient int modCount;
+
+    private SourceLocation baseLoc;
+
+    public CompactAttrMap(int capacity) {
+        capacity = Math.max(capacity, 2);
+        this.names = new String[capacity];
+        this.values = new Object[capacity];
+        this.lines = new int[capacity];
+        this.cols = new int[capacity];
+    }
+
+    public CompactAttrMap() {
+        this(4);
+    }
+
+    public CompactAttrMap copy() {
+        CompactAttrMap ret = new CompactAttrMap(size);
+        System.arraycopy(names, 0, ret.names, 0, size);
+        System.arraycopy(values, 0, ret.values, 0, size);
+        System.arraycopy(lines, 0, ret.lines, 0, size);
+        System.arraycopy(cols, 0, ret.cols, 0, size);
+        ret.size = size;
+        ret.baseLoc = baseLoc;
+        return ret;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    int indexOf(Object name) {
+        String[] names = this.names;
+        for (int i = 0, n = size; i < n; i++) {
+            if (names[i] == name)
+                return i;
+        }
+        if (name == null)
+            return -1;
+
+        for (int i = 0, n = size; i < n; i++) {
+            if (name.equals(names[i]))
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * 直接返回属性值，不创建ValueWithLocation对象
+     */
+    public Object getValue(String name) {
+        int index = indexOf(name);
+        if (index < 0)
+            return null;
+        return valueAt(index);
+    }
+
+    public SourceLocation getLocation(String name) {
+        int index = indexOf(name);
+        if (index < 0)
+            return null;
+        return locationAt(index);
+    }
+
+    Object valueAt(int index) {
+        Object value = values[index];
+        if (lines[index] == LOC_FULL)
+            return value == null ? null : ((ValueWithLocation) value).getValue();
+        return value;
+    }
+
+    SourceLocation locationAt(int index) {
+        int line = lines[index];
+        if (line == LOC_NONE)
+            return null;
+        if (line == LOC_FULL) {
+            ValueWithLocation vl = (ValueWithLocation) values[index];
+            return vl == null ? null : vl.getLocation();
+        }
+        return baseLoc.position(line, cols[index], 0);
+    }
+
+    ValueWithLocation entryAt(int index) {
+        if (lines[index] == LOC_FULL)
+            return (ValueWithLocation) values[index];
+        return ValueWithLocation.of(locationAt(index), values[index]);
+    }
+
+    @Override
+    public ValueWithLocation get(Object key) {
+        int index = indexOf(key);
+        if (index < 0)
+            return null;
+        return entryAt(index);
+    }
+
+    @Override
+    public ValueWithLocation put(String key, ValueWithLocation value) {
+        int index = indexOf(key);
+        ValueWithLocation oldValue = null;
+        if (index < 0) {
+            index = add(key);
+        } else {
+            oldValue = entryAt(index);
+        }
+
+        SourceLocation loc = value == null ? null : value.getLocation();
+        if (value == null) {
+            values[index] = null;
+            lines[index] = LOC_FULL;
+        } else if (loc == null) {
+            values[index] = value.getValue();
+            lines[index] = LOC_NONE;
+        } else if (isCompactLocation(loc)) {
+            values[index] = value.getValue();
+            lines[index] = loc.getLine();
+            cols[index] = loc.getCol();
+        } else {
+            values[index] = value;
+            lines[index] = LOC_FULL;
+        }
+        return oldValue;
+    }
+
+    /**
+     * 供解析器使用，避免为每个属性创建临时的SourceLocation和ValueWithLocation对象。调用者需要保证属性名不重复
+     *
+     * @param loc 属性所在文件的位置，只使用其中的文件路径等信息，行列号由line和col参数指定
+     */
+    public void add(String name, Object value, SourceLocation loc, int line, int col) {
+        if (line >= 0 && isSameFile(loc)) {
+            int index = add(name);
+            values[index] = value;
+            lines[index] = line;
+            cols[index] = col;
+        } else {
+            put(name, ValueWithLocation.of(loc.position(line, col, 0), value));
+        }
+    }
+
+    private boolean isSameFile(SourceLocation loc) {
+        if (baseLoc == null) {
+            baseLoc = loc;
+            return true;
+        }
+        if (baseLoc == loc)
+            return true;
+        return Objects.equals(baseLoc.getPath(), loc.getPath())
+                && Objects.equals(baseLoc.getSheet(), loc.getSheet())
+                && Objects.equals(baseLoc.getCell(), loc.getCell())
+                && Objects.equals(baseLoc.getRef(), loc.getRef());
+    }
+
+    private boolean isCompactLocation(SourceLocation loc) {
+        return loc.getLine() >= 0 && loc.getLen() == 0 && loc.getPos() == 0 && isSameFile(loc);
+    }
+
+    private int add(String name) {
+        if (size == names.length) {
+            int capacity = size * 2;
+            names = Arrays.copyOf(names, capacity);
+            values = Arrays.copyOf(values, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            cols = Arrays.copyOf(cols, capacity);
+        }
+        names[size] = name;
+        modCount++;
+        return size++;
+    }
+
+    @Override
+    public ValueWithLocation remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0)
+            return null;
+        ValueWithLocation oldValue = entryAt(index);
+        removeAt(index);
+        return oldValue;
+    }
+
+    void removeAt(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(names, index + 1, names, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+            System.arraycopy(lines, index + 1, lines, index, moved);
+            System.arraycopy(cols, index + 1, cols, index, moved);
+        }
+        size--;
+        names[size] = null;
+        values[size] = null;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, ValueWithLocation>> entrySet() {
+        return new EntrySet();
+    }
+
+    class EntrySet extends AbstractSet<Entry<String, ValueWithLocation>> {
+        @Override
+        public Iterator<Entry<String, ValueWithLocation>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    class EntryIterator implements Iterator<Map.Entry<String, ValueWithLocation>> {
+        private int cursor;
+        private int lastRet = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        public Entry<String, ValueWithLocation> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (cursor >= size)
+                throw new NoSuchElementException();
+            lastRet = cursor++;
+            return new AttrEntry(names[lastRet], entryAt(lastRet));
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    class AttrEntry extends SimpleEntry<String, ValueWithLocation> {
+        private static final long serialVersionUID = 1L;
+
+        AttrEntry(String name, ValueWithLocation value) {
+            super(name, value);
+        }
+
+        @Override
+        public ValueWithLocation setValue(ValueWithLocation value) {
+            // 替换已有属性不会改变结构，迭代过程中允许调用
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -426,6 +426,8 @@ public class XNode implements Serializable, ISourceLocationGetter, ISourceLocati
     }
 
     public Object getAttr(String name) {
+        if (attributes instanceof CompactAttrMap)
+            return ((CompactAttrMap) attributes).getValue(name);
         ValueWithLocation attr = attributes.get(name);
         return attr == null ? null : attr.getValue();
     }
@@ -569,6 +571,8 @@ public class XNode implements Serializable, ISourceLocationGetter, ISourceLocati
     }
 
     public SourceLocation attrLoc(String name) {
+        if (attributes instanceof CompactAttrMap)
+            return ((CompactAttrMap) attributes).getLocation(name);
         ValueWithLocation attr = attributes.get(name);
         if (attr == null)
             return null;
@@ -1421,7 +1425,11 @@ public class XNode implements Serializable, ISourceLocationGetter, ISourceLocati
     public XNode cloneInstance() {
         XNode node = makeNode();
         if (!this.attributes.isEmpty()) {
-            node.attributes = new LinkedHashMap<>(this.attributes);
+            if (this.attributes instanceof CompactAttrMap) {
+                node.attributes = ((CompactAttrMap) this.attributes).copy();
+            } else {
+                node.attributes = new LinkedHashMap<>(this.attributes);
+            }
         }
         if (!this.children.isEmpty()) {
             List<XNode> clds = new ArrayList<>(this.getChildCount());
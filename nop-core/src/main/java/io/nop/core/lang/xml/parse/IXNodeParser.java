@@ -25,6 +25,12 @@ public interface IXNodeParser extends IResourceParser<XNode> {
      */
     IXNodeParser intern(boolean shouldIntern);
 
+    /**
+     * 紧凑模式：标签名和属性名自动intern，属性保存为CompactAttrMap，属性位置只记录行列号，访问时再创建位置对象。
+     * 适用于解析后长期驻留在内存中的模型节点
+     */
+    IXNodeParser compact(boolean compact);
+
     IXNodeParser keepComment(boolean keepComment);
 
     IXNodeParser keepWhitespace(boolean keepWhitespace);
@@ -23,6 +23,7 @@ import io.nop.commons.util.objects.ValueWithLocation;
 import io.nop.core.CoreConstants;
 import io.nop.core.lang.xml.IXNodeHandler;
 import io.nop.core.lang.xml.XNode;
+import io.nop.core.lang.xml.CompactAttrMap;
 import io.nop.core.lang.xml.handler.CollectXNodeHandler;
 import io.nop.core.resource.IResource;
 import io.nop.core.resource.component.parse.AbstractCharReaderResourceParser;
@@ -39,6 +40,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static io.nop.core.CoreConfigs.CFG_XML_COMPACT_NODE;
 import static io.nop.core.CoreConfigs.CFG_XML_MAX_NESTED_LEVEL;
 import static io.nop.core.CoreErrors.ARG_ATTR_NAME;
 import static io.nop.core.CoreErrors.ARG_ATTR_VALUE;
@@ -72,6 +74,7 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
     private int _depth;
     private int maxDepth = CFG_XML_MAX_NESTED_LEVEL.get();
     private boolean intern;
+    private boolean compact = CFG_XML_COMPACT_NODE.get();
 
     protected XNodeParser() {
     }
@@ -99,6 +102,11 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
 
     private SourceLocation prevLoc;
     private boolean prevCDATA;
+
+    /**
+     * 紧凑模式下所有属性共享的位置对象，只用到其中的文件路径信息
+     */
+    private SourceLocation attrBaseLoc;
     private String prevText;
 
     private boolean hasNode;
@@ -129,6 +137,12 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
         return this;
     }
 
+    @Override
+    public IXNodeParser compact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
     @Override
     public IXNodeParser keepWhitespace(boolean keepWhitespace) {
         this.keepWhitespace = keepWhitespace;
@@ -226,6 +240,7 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
         if (this.handler == null)
             this.handler = new CollectXNodeHandler();
         this.sc = TextScanner.fromReader(loc, in);
+        this.attrBaseLoc = null;
 
         try {
             sc.skipBlank();
@@ -399,7 +414,7 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
     }
 
     String intern(String str) {
-        if (intern)
+        if (intern || compact)
             return str.intern();
         return str;
     }
@@ -588,7 +603,7 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
         if (sc.cur == '/' || sc.cur == '>')
             return attrs;
 
-        attrs = new LinkedHashMap<>();
+        attrs = compact ? new CompactAttrMap() : new LinkedHashMap<>();
 
         do {
             String xname = forHtml ? sc.nextHtmlAttrName() : sc.nextXmlName();
@@ -600,11 +615,20 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
                 if (sc.cur == '\'' || sc.cur == '"') {
                     char quote = (char) sc.cur;
                     sc.next();
-                    SourceLocation loc = sc.location();
-                    String str = nextXString(quote);
-                    sc.match(quote);
+                    if (compact) {
+                        int line = sc.line;
+                        int col = sc.col;
+                        String str = nextXString(quote);
+                        sc.match(quote);
 
-                    addAttr(attrs, loc, xname, str);
+                        addCompactAttr((CompactAttrMap) attrs, line, col, xname, str);
+                    } else {
+                        SourceLocation loc = sc.location();
+                        String str = nextXString(quote);
+                        sc.match(quote);
+
+                        addAttr(attrs, loc, xname, str);
+                    }
                 } else {
                     throw newError(ERR_XML_ATTR_VALUE_NOT_QUOTED).param(ARG_ATTR_NAME, xname);
                 }
@@ -625,6 +649,16 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
         return attrs;
     }
 
+    void addCompactAttr(CompactAttrMap attrs, int line, int col, String name, Object v) {
+        if (attrs.containsKey(name))
+            throw newError(ERR_XML_DUPLICATE_ATTR_NAME)
+                    .param(ARG_ATTR_NAME, name).param(ARG_ATTR_VALUE, v).param(ARG_OLD_LOC, attrs.getLocation(name));
+
+        if (attrBaseLoc == null)
+            attrBaseLoc = sc.location();
+        attrs.add(name, v, attrBaseLoc, line, col);
+    }
+
     void addAttr(Map<String, ValueWithLocation> attrs, SourceLocation loc, String name, Object v) {
         ValueWithLocation value = ValueWithLocation.of(loc, v);
         ValueWithLocation oldValue = attrs.put(name, value);
@@ -665,6 +699,7 @@ public class XNodeParser extends AbstractCharReaderResourceParser<XNode> impleme
     @Override
     public XNode parseSingleNode(TextScanner sc) {
         this.sc = sc;
+        this.attrBaseLoc = null;
         if (this.handler == null)
             this.handler = new CollectXNodeHandler();
 
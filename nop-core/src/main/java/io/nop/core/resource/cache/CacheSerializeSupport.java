@@ -7,6 +7,427 @@
  */
 package io.nop.core.resource.cache;
 
+import io.nop.api.core.config.IConfigProvider;
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.resource.IResourceReference;
+import io.nop.api.core.util.SourceLocation;
+import io.nop.commons.text.CDataText;
+import io.nop.commons.util.objects.ValueWithLocation;
+import io.nop.core.lang.xml.XNode;
+import io.nop.core.resource.IResource;
+import io.nop.core.resource.VirtualFileSystem;
+import io.nop.core.resource.component.ResourceComponentManager;
+import io.nop.core.resource.deps.ResourceDependencySet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static io.nop.core.CoreErrors.ARG_CLASS_NAME;
+import static io.nop.core.CoreErrors.ERR_CACHE_SERIALIZE_INVALID_DATA;
+import static io.nop.core.CoreErrors.ERR_CACHE_SERIALIZE_UNSUPPORTED_VALUE_TYPE;
+
+/**
+ * 模型缓存持久化所需的二进制序列化支持。XNode按照紧凑的二进制格式保存，标签名、属性名、源码路径等重复出现的字符串只保存一次，
+ * 此后通过序号引用。缓存的有效性通过依赖资源的修改时间以及加载时读取过的配置变量的值来判断。
+ */
 public class CacheSerializeSupport {
+    static final int TYPE_NULL = 0;
+    static final int TYPE_STRING = 1;
+    static final int TYPE_CDATA = 2;
+    static final int TYPE_TRUE = 3;
+    static final int TYPE_FALSE = 4;
+    static final int TYPE_INT = 5;
+    static final int TYPE_LONG = 6;
+    static final int TYPE_DOUBLE = 7;
+    static final int TYPE_DECIMAL = 8;
+
+    static final int STR_NULL = 0;
+    static final int STR_NEW = 1;
+
+    public static byte[] serializeXNode(XNode node) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            new CacheDataOutput(new DataOutputStream(bytes)).writeXNode(node);
+        } catch (IOException e) {
+            throw NopException.adapt(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static XNode deserializeXNode(byte[] data) {
+        try {
+            return new CacheDataInput(new DataInputStream(new ByteArrayInputStream(data))).readXNode();
+        } catch (IOException e) {
+            throw NopException.adapt(e);
+        }
+    }
+
+    /**
+     * 收集依赖集合中所有直接和间接依赖的资源文件的修改时间，包括资源文件自身
+     */
+    public static Map<String, Long> collectDependsTimestamps(ResourceDependencySet deps) {
+        Map<String, Long> ret = new TreeMap<>();
+        IResourceReference resource = deps.getResource();
+        ret.put(resource.getPath(), resource.lastModified());
+        collectTimestamps(deps, ret);
+        return ret;
+    }
+
+    private static void collectTimestamps(ResourceDependencySet deps, Map<String, Long> ret) {
+        for (String path : deps.getDepends().keySet()) {
+            if (ret.containsKey(path))
+                continue;
+
+            ResourceDependencySet sub = deps.getDependsSet(path);
+            if (sub == null)
+                sub = ResourceComponentManager.instance().getResourceDepends(path);
+
+            if (sub == null) {
+                ret.put(path, getLastModified(path));
+            } else {
+                ret.put(path, sub.getResource().lastModified());
+                collectTimestamps(sub, ret);
+            }
+        }
+    }
+
+    public static boolean isAnyDependsChanged(Map<String, Long> timestamps) {
+        for (Map.Entry<String, Long> entry : timestamps.entrySet()) {
+            if (getLastModified(entry.getKey()) != entry.getValue())
+                return true;
+        }
+        return false;
+    }
+
+    static long getLastModified(String path) {
+        IResource resource = VirtualFileSystem.instance().getResource(path);
+        return resource.exists() ? resource.lastModified() : -1;
+    }
+
+    /**
+     * feature:on等开关的判断结果依赖于配置变量。只记录加载过程中实际读取过的变量，变量值发生变化时缓存需要失效
+     */
+    public static Map<String, String> collectConfigValues(IConfigProvider provider, Collection<String> varNames) {
+        Map<String, String> ret = new TreeMap<>();
+        for (String varName : varNames) {
+            ret.put(varName, getConfigText(provider, varName));
+        }
+        return ret;
+    }
+
+    public static boolean isAnyConfigChanged(IConfigProvider provider, Map<String, String> configValues) {
+        for (Map.Entry<String, String> entry : configValues.entrySet()) {
+            if (!Objects.equals(getConfigText(provider, entry.getKey()), entry.getValue()))
+                return true;
+        }
+        return false;
+    }
+
+    static String getConfigText(IConfigProvider provider, String varName) {
+        Object value = provider.getConfigValue(varName, null);
+        return value == null ? null : value.toString();
+    }
+
+    public static class CacheDataOutput {
+        private final DataOutput out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        public CacheDataOutput(DataOutput out) {
+            this.out = out;
+        }
+
+        public void writeVarInt(int value) throws IOException {
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                out.writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte(v);
+        }
+
+        /**
+         * zigzag编码，使得-1等绝对值较小的负数也只占用一个字节
+         */
+        public void writeSignedVarInt(int value) throws IOException {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        public void writeLong(long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        public void writeBoolean(boolean value) throws IOException {
+            out.writeBoolean(value);
+        }
+
+        public void writeString(String str) throws IOException {
+            if (str == null) {
+                writeVarInt(STR_NULL);
+                return;
+            }
+
+            Integer index = strings.get(str);
+            if (index != null) {
+                writeVarInt(index + 2);
+            } else {
+                strings.put(str, strings.size());
+                writeVarInt(STR_NEW);
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        public void writeLocation(SourceLocation loc) throws IOException {
+            if (loc == null) {
+                writeString(null);
+                return;
+            }
+            writeString(loc.getPath());
+            writeSignedVarInt(loc.getLine());
+            writeSignedVarInt(loc.getCol());
+            writeSignedVarInt(loc.getLen());
+            writeSignedVarInt(loc.getPos());
+            writeString(loc.getSheet());
+            writeString(loc.getCell());
+            writeString(loc.getRef());
+        }
+
+        public void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeVarInt(TYPE_NULL);
+            } else if (value instanceof String) {
+                writeVarInt(TYPE_STRING);
+                writeString((String) value);
+            } else if (value instanceof CDataText) {
+                writeVarInt(TYPE_CDATA);
+                writeString(((CDataText) value).getText());
+            } else if (value instanceof Boolean) {
+                writeVarInt((Boolean) value ? TYPE_TRUE : TYPE_FALSE);
+            } else if (value instanceof Integer) {
+                writeVarInt(TYPE_INT);
+                writeSignedVarInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeVarInt(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                writeVarInt(TYPE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof BigDecimal) {
+                writeVarInt(TYPE_DECIMAL);
+                writeString(value.toString());
+            } else {
+                throw new NopException(ERR_CACHE_SERIALIZE_UNSUPPORTED_VALUE_TYPE)
+                        .param(ARG_CLASS_NAME, value.getClass().getName());
+            }
+        }
+
+        public void writeXNode(XNode node) throws IOException {
+            if (node == null) {
+                writeString(null);
+                return;
+            }
+
+            writeString(node.getTagName());
+            writeLocation(node.getLocation());
+            writeString(node.getComment());
+            writeString(node.uniqueAttr());
+
+            Map<String, ValueWithLocation> attrs = node.attrValueLocs();
+            writeVarInt(attrs.size());
+            for (Map.Entry<String, ValueWithLocation> entry : attrs.entrySet()) {
+                ValueWithLocation vl = entry.getValue();
+                writeString(entry.getKey());
+                writeLocation(vl.getLocation());
+                writeValue(vl.getValue());
+            }
+
+            ValueWithLocation content = node.content();
+            writeLocation(content.getLocation());
+            writeValue(content.getValue());
+
+            List<XNode> children = node.getChildren();
+            writeVarInt(children.size());
+            for (XNode child : children) {
+                writeXNode(child);
+            }
+        }
+
+        public void writeStringMap(Map<String, String> map) throws IOException {
+            writeVarInt(map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(entry.getKey());
+                writeString(entry.getValue());
+            }
+        }
+
+        public void writeTimestamps(Map<String, Long> timestamps) throws IOException {
+            writeVarInt(timestamps.size());
+            for (Map.Entry<String, Long> entry : timestamps.entrySet()) {
+                writeString(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+    }
+
+    public static class CacheDataInput {
+        private final DataInput in;
+        private final List<String> strings = new ArrayList<>();
+
+        public CacheDataInput(DataInput in) {
+            this.in = in;
+        }
+
+        public int readVarInt() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readByte();
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return v;
+            }
+            throw new NopException(ERR_CACHE_SERIALIZE_INVALID_DATA);
+        }
+
+        public int readSignedVarInt() throws IOException {
+            int v = readVarInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        public long readLong() throws IOException {
+            return in.readLong();
+        }
+
+        public boolean readBoolean() throws IOException {
+            return in.readBoolean();
+        }
+
+        public String readString() throws IOException {
+            int index = readVarInt();
+            if (index == STR_NULL)
+                return null;
+
+            if (index == STR_NEW) {
+                int len = readVarInt();
+                if (len < 0)
+                    throw new NopException(ERR_CACHE_SERIALIZE_INVALID_DATA);
+                byte[] bytes = new byte[len];
+                in.readFully(bytes);
+                String str = new String(bytes, StandardCharsets.UTF_8);
+                strings.add(str);
+                return str;
+            }
+
+            index -= 2;
+            if (index < 0 || index >= strings.size())
+                throw new NopException(ERR_CACHE_SERIALIZE_INVALID_DATA);
+            return strings.get(index);
+        }
+
+        public SourceLocation readLocation() throws IOException {
+            String path = readString();
+            if (path == null)
+                return null;
+            int line = readSignedVarInt();
+            int col = readSignedVarInt();
+            int len = readSignedVarInt();
+            int pos = readSignedVarInt();
+            String sheet = readString();
+            String cell = readString();
+            String ref = readString();
+            return new SourceLocation(path, line, col, len, pos, sheet, cell, ref);
+        }
+
+        public Object readValue() throws IOException {
+            int type = readVarInt();
+            switch (type) {
+                case TYPE_NULL:
+                    return null;
+                case TYPE_STRING:
+                    return readString();
+                case TYPE_CDATA:
+                    return new CDataText(readString());
+                case TYPE_TRUE:
+                    return Boolean.TRUE;
+                case TYPE_FALSE:
+                    return Boolean.FALSE;
+                case TYPE_INT:
+                    return readSignedVarInt();
+                case TYPE_LONG:
+                    return in.readLong();
+                case TYPE_DOUBLE:
+                    return in.readDouble();
+                case TYPE_DECIMAL:
+                    return new BigDecimal(readString());
+                default:
+                    throw new NopException(ERR_CACHE_SERIALIZE_INVALID_DATA);
+            }
+        }
+
+        public XNode readXNode() throws IOException {
+            String tagName = readString();
+            if (tagName == null)
+                return null;
+
+            XNode node = XNode.make(tagName);
+            node.setLocation(readLocation());
+            node.setComment(readString());
+            node.uniqueAttr(readString());
+
+            int attrCount = readVarInt();
+            if (attrCount > 0) {
+                Map<String, ValueWithLocation> attrs = new LinkedHashMap<>(attrCount * 2);
+                for (int i = 0; i < attrCount; i++) {
+                    String name = readString();
+                    SourceLocation loc = readLocation();
+                    attrs.put(name, ValueWithLocation.of(loc, readValue()));
+                }
+                node.attrValueLocs(attrs);
+            }
+
+            SourceLocation contentLoc = readLocation();
+            node.content(contentLoc, readValue());
+
+            int childCount = readVarInt();
+            for (int i = 0; i < childCount; i++) {
+                node.appendChild(readXNode());
+            }
+            return node;
+        }
+
+        public Map<String, String> readStringMap() throws IOException {
+            int count = readVarInt();
+            Map<String, String> ret = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                String key = readString();
+                ret.put(key, readString());
+            }
+            return ret;
+        }
 
+        public Map<String, Long> readTimestamps() throws IOException {
+            int count = readVarInt();
+            Map<String, Long> ret = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                String path = readString();
+                ret.put(path, in.readLong());
+            }
+            return ret;
+        }
+    }
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.core.resource.cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 记录加载模型的过程中实际读取过的配置变量，例如feature:on开关和@meta-cfg表达式所使用的变量。
+ * 持久化缓存据此判断配置变化后缓存是否失效。嵌套收集时，内层读取的变量也会合并到外层集合中。
+ */
+public class ConfigVarCollector {
+    private static final ThreadLocal<Set<String>> s_vars = new ThreadLocal<>();
+
+    public static <T> T collectTo(Set<String> vars, Supplier<T> task) {
+        Set<String> prev = s_vars.get();
+        s_vars.set(vars);
+        try {
+            return task.get();
+        } finally {
+            s_vars.set(prev);
+            if (prev != null)
+                prev.addAll(vars);
+        }
+    }
+
+    public static void record(String varName) {
+        Set<String> vars = s_vars.get();
+        if (vars != null)
+            vars.add(varName);
+    }
+
+    public static void recordAll(Collection<String> varNames) {
+        Set<String> vars = s_vars.get();
+        if (vars != null)
+            vars.addAll(varNames);
+    }
+}
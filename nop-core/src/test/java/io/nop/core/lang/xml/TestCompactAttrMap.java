@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.core.lang.xml;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.util.SourceLocation;
+import io.nop.commons.util.objects.ValueWithLocation;
+import io.nop.core.CoreErrors;
+import io.nop.core.lang.xml.parse.XNodeParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class TestCompactAttrMap {
+    static final String XML = "<root a=\"1\" b='2'>\n" +
+            "  <item name=\"x\" type=\"string\" displayName=\"X\"/>\n" +
+            "  <item name=\"y\"\n" +
+            "        type=\"int\">text</item>\n" +
+            "</root>";
+
+    XNode parse(boolean compact) {
+        return XNodeParser.instance().compact(compact).parseFromText(SourceLocation.fromPath("/test/compact.xml"), XML);
+    }
+
+    @Test
+    public void testSameAsDefault() {
+        XNode node = parse(false);
+        XNode compact = parse(true);
+
+        assertTrue(compact.attrValueLocs() instanceof CompactAttrMap);
+        assertEquals(node.xml(), compact.xml());
+
+        XNode item = node.childByAttr("name", "y");
+        XNode compactItem = compact.childByAttr("name", "y");
+        for (String name : Arrays.asList("name", "type")) {
+            assertEquals(item.attrLoc(name), compactItem.attrLoc(name));
+            assertEquals(item.attrValueLoc(name).getLocation(), compactItem.attrValueLoc(name).getLocation());
+        }
+        assertEquals("int", compactItem.getAttr("type"));
+        assertEquals(new ArrayList<>(item.getAttrNames()), new ArrayList<>(compactItem.getAttrNames()));
+
+        // 名称在紧凑模式下被intern
+        assertSame("name", compactItem.attrValueLocs().keySet().iterator().next());
+    }
+
+    @Test
+    public void testModify() {
+        XNode node = parse(true).childByAttr("name", "x");
+        SourceLocation loc = SourceLocation.fromLine("/other.xml", 10, 3, 5);
+
+        node.setAttr(loc, "type", "long");
+        node.setAttr("extra", 3);
+        assertEquals("long", node.getAttr("type"));
+        assertEquals(loc, node.attrLoc("type"));
+        assertNull(node.attrLoc("extra"));
+        assertEquals(3, node.getAttr("extra"));
+
+        assertEquals("X", node.removeAttr("displayName").getValue());
+        assertFalse(node.hasAttr("displayName"));
+        assertEquals(Arrays.asList("name", "type", "extra"), new ArrayList<>(node.getAttrNames()));
+
+        node.transformAttr((name, vl) -> name.equals("name") ? null : ValueWithLocation.of(vl.getLocation(), "v"));
+        assertEquals(Arrays.asList("type", "extra"), new ArrayList<>(node.getAttrNames()));
+        assertEquals("v", node.getAttr("type"));
+        assertEquals(loc, node.attrLoc("type"));
+
+        XNode copy = node.cloneInstance();
+        assertTrue(copy.attrValueLocs() instanceof CompactAttrMap);
+        copy.setAttr("type", "w");
+        assertEquals("v", node.getAttr("type"));
+
+        Iterator<Map.Entry<String, ValueWithLocation>> it = node.attrValueLocs().entrySet().iterator();
+        it.next();
+        it.remove();
+        assertEquals(1, node.getAttrCount());
+        node.clearAttrs();
+        assertFalse(node.hasAttr());
+    }
+
+    @Test
+    public void testDuplicateAttr() {
+        try {
+            XNodeParser.instance().compact(true).parseFromText(null, "<a x='1' x='2'/>");
+            fail();
+        } catch (NopException e) {
+            assertEquals(CoreErrors.ERR_XML_DUPLICATE_ATTR_NAME.getErrorCode(), e.getErrorCode());
+        }
+    }
+}
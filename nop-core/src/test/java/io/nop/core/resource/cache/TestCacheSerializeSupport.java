@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.core.resource.cache;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.util.SourceLocation;
+import io.nop.commons.text.CDataText;
+import io.nop.core.CoreErrors;
+import io.nop.core.lang.xml.XNode;
+import io.nop.core.lang.xml.parse.XNodeParser;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class TestCacheSerializeSupport {
+    @Test
+    public void testXNodeRoundTrip() {
+        String xml = "<root xmlns:x=\"/nop/schema/xdsl.xdef\" x:schema=\"/test.xdef\">\n" +
+                "  <!--comment-->\n" +
+                "  <item name=\"a\" type=\"string\">text</item>\n" +
+                "  <item name=\"b\" type=\"string\"><![CDATA[<a>&</a>]]></item>\n" +
+                "  <empty/>\n" +
+                "</root>";
+        XNode node = XNodeParser.instance().keepComment(true).parseFromText(null, xml);
+
+        byte[] data = CacheSerializeSupport.serializeXNode(node);
+        XNode read = CacheSerializeSupport.deserializeXNode(data);
+
+        assertEquals(node.xml(), read.xml());
+        assertEquals(node.getLocation(), read.getLocation());
+        XNode item = read.childByAttr("name", "b");
+        assertTrue(item.content().isCDataText());
+        assertEquals(node.childByAttr("name", "b").attrLoc("type"), item.attrLoc("type"));
+        assertSame(read, read.child(0).getParent());
+    }
+
+    @Test
+    public void testValueTypes() {
+        XNode node = XNode.make("node");
+        SourceLocation loc = SourceLocation.fromLine("/test.xml", 3, 5);
+        node.setAttr(loc, "str", "s");
+        node.setAttr("bool", true);
+        node.setAttr("int", -1);
+        node.setAttr("long", 1L << 40);
+        node.setAttr("double", 1.5);
+        node.setAttr("decimal", new BigDecimal("12.30"));
+        node.content(loc, new CDataText("data"));
+
+        XNode read = CacheSerializeSupport.deserializeXNode(CacheSerializeSupport.serializeXNode(node));
+        assertEquals(loc, read.attrLoc("str"));
+        assertEquals(true, read.getAttr("bool"));
+        assertEquals(-1, read.getAttr("int"));
+        assertEquals(1L << 40, read.getAttr("long"));
+        assertEquals(1.5, read.getAttr("double"));
+        assertEquals(new BigDecimal("12.30"), read.getAttr("decimal"));
+        assertEquals("data", read.contentText());
+        assertNull(read.getComment());
+    }
+
+    @Test
+    public void testUnsupportedValue() {
+        XNode node = XNode.make("node");
+        node.setAttr("obj", new Object());
+        try {
+            CacheSerializeSupport.serializeXNode(node);
+            fail();
+        } catch (NopException e) {
+            assertEquals(CoreErrors.ERR_CACHE_SERIALIZE_UNSUPPORTED_VALUE_TYPE.getErrorCode(), e.getErrorCode());
+        }
+    }
+}
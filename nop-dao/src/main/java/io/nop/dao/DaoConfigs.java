@@ -30,6 +30,10 @@ public interface DaoConfigs {
     IConfigReference<Integer> CFG_DAO_JDBC_MAX_BATCH_UPDATE_SIZE = varRef(s_loc, "nop.dao.jdbc.max-batch-update-size",
             Integer.class, 200);
 
+    @Description("禁止将批量insert语句合并为多行insert语句执行")
+    IConfigReference<Boolean> CFG_DAO_JDBC_DISABLE_BULK_INSERT = varRef(s_loc, "nop.dao.jdbc.disable-bulk-insert",
+            Boolean.class, false);
+
     @Description("执行查询的最大超时时间，会限制所有查询操作")
     IConfigReference<Integer> CFG_DAO_MAX_QUERY_TIMEOUT = varRef(s_loc, "nop.dao.max-query-timeout", Integer.class,
             10 * 60 * 1000);
@@ -65,4 +69,24 @@ public interface DaoConfigs {
     @Description("查询空间和数据库方言之间的映射关系")
     IConfigReference<String> CFG_QUERY_SPACE_TO_DIALECT = varRef(s_loc,
             "nop.dao.config.query-space-to-dialect", String.class, null);
+
+    @Description("启用查询结果缓存。只有设置了useQueryCache的SQL语句才会使用缓存，缓存在相关的表被修改时自动失效")
+    IConfigReference<Boolean> CFG_DAO_QUERY_CACHE_ENABLED = varRef(s_loc, "nop.dao.query-cache.enabled",
+            Boolean.class, false);
+
+    @Description("查询结果缓存的最大条目数")
+    IConfigReference<Integer> CFG_DAO_QUERY_CACHE_MAX_SIZE = varRef(s_loc, "nop.dao.query-cache.max-size",
+            Integer.class, 1000);
+
+    @Description("查询结果缓存的超时时间(毫秒)。正常情况下缓存通过表的版本号失效，超时时间用于避免丢失失效通知时长期使用过期数据")
+    IConfigReference<Long> CFG_DAO_QUERY_CACHE_TIMEOUT = varRef(s_loc, "nop.dao.query-cache.timeout",
+            Long.class, 10 * 60 * 1000L);
+
+    @Description("结果集的记录数超过此值时不放入查询结果缓存")
+    IConfigReference<Integer> CFG_DAO_QUERY_CACHE_MAX_ROWS = varRef(s_loc, "nop.dao.query-cache.max-rows",
+            Integer.class, 1000);
+
+    @Description("多节点部署时，通过此消息主题广播表的修改，使得其他节点上的查询结果缓存失效")
+    IConfigReference<String> CFG_DAO_QUERY_CACHE_INVALIDATE_TOPIC = varRef(s_loc,
+            "nop.dao.query-cache.invalidate-topic", String.class, "nop-dao-query-cache-invalidate");
 }
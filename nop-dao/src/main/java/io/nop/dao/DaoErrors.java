@@ -59,6 +59,10 @@ public interface DaoErrors {
 
     String ARG_SQL_DATA_TYPE = "sqlDataType";
 
+    String ARG_POOL_ID = "poolId";
+    String ARG_WAIT_TIMEOUT = "waitTimeout";
+    String ARG_WAITING_COUNT = "waitingCount";
+
     ErrorCode ERR_TXN_NOT_IN_TRANSACTION = define("nop.err.dao.txn.not-in-transaction",
             "要求上下文环境必须存在已经启动的事务:{querySpace}", ARG_QUERY_SPACE);
 
@@ -162,4 +166,12 @@ public interface DaoErrors {
 
     ErrorCode ERR_DAO_INVALID_SQL_DATA_TYPE =
             define("nop.err.dao.invalid-sql-data-type", "非法的SQL数据类型：{sqlDataType}", ARG_SQL_DATA_TYPE);
-}
\ No newline at end of file
+
+    ErrorCode ERR_DAO_POOL_CLOSED = define("nop.err.dao.pool-closed", "数据库连接池[{poolId}]已经关闭", ARG_POOL_ID);
+
+    ErrorCode ERR_DAO_POOL_ACQUIRE_TIMEOUT = define("nop.err.dao.pool-acquire-timeout",
+            "从数据库连接池[{poolId}]获取连接超时，等待时间：{waitTimeout}毫秒", ARG_POOL_ID, ARG_WAIT_TIMEOUT);
+
+    ErrorCode ERR_DAO_POOL_EXCEED_MAX_WAIT_COUNT = define("nop.err.dao.pool-exceed-max-wait-count",
+            "等待数据库连接池[{poolId}]的线程数超过最大值：{waitingCount}", ARG_POOL_ID, ARG_WAITING_COUNT);
+}
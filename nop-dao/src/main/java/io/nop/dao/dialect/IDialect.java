@@ -13,6 +13,7 @@ import io.nop.commons.bytes.ByteString;
 import io.nop.commons.text.CharacterCase;
 import io.nop.commons.type.StdDataType;
 import io.nop.commons.type.StdSqlType;
+import io.nop.dao.dialect.bulk.IBulkInsertHandler;
 import io.nop.dao.dialect.exception.ISQLExceptionTranslator;
 import io.nop.dao.dialect.function.ISQLFunction;
 import io.nop.dao.dialect.lock.LockOption;
@@ -46,14 +47,44 @@ public interface IDialect extends IComponentModel {
 
     IPaginationHandler getPaginationHandler();
 
+    /**
+     * 返回null表示不支持将多条insert语句合并执行
+     */
+    IBulkInsertHandler getBulkInsertHandler();
+
     int getMaxStringSize();
 
     int getMaxBytesSize();
 
+    /**
+     * 单条语句允许的最大参数个数。返回-1表示没有限制
+     */
+    int getMaxParamCount();
+
+    /**
+     * 单条insert语句允许插入的最大行数。返回-1表示没有限制
+     */
+    int getMaxRowsPerInsert();
+
     boolean isSupportExecuteLargeUpdate();
 
     boolean isSupportQueryTimeout();
 
+    /**
+     * MySQL驱动约定的流式读取标记。fetchSize为此值时驱动逐行读取结果集，但在结果集关闭之前同一连接上不能执行其他语句
+     */
+    int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * 流式读取大结果集时使用的fetchSize。
+     *
+     * @param windowSize 每次处理的记录条数
+     * @return 一般数据库直接返回windowSize，需要特殊标记的数据库返回STREAMING_FETCH_SIZE
+     */
+    default int getStreamFetchSize(int windowSize) {
+        return windowSize;
+    }
+
     boolean isSupportLargeMaxRows();
 
     /**
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.dialect.bulk;
+
+import io.nop.core.lang.sql.SQL;
+import io.nop.dao.dialect.IDialect;
+
+import java.util.List;
+
+/**
+ * 将多条SQL文本相同的单行insert语句合并为批量插入语句，减少与数据库之间的交互次数
+ */
+public interface IBulkInsertHandler {
+    /**
+     * 单条合并语句最多可以包含的行数。一般由数据库驱动允许的最大参数个数决定
+     *
+     * @param dialect   数据库方言
+     * @param insertSql 单行insert语句
+     */
+    int getMaxRowCount(IDialect dialect, SQL insertSql);
+
+    /**
+     * 合并多条单行insert语句，它们的SQL文本必须完全相同。
+     *
+     * @return 合并后的语句。如果语句格式不支持合并，则返回null
+     */
+    SQL buildBulkInsert(IDialect dialect, List<SQL> inserts);
+}
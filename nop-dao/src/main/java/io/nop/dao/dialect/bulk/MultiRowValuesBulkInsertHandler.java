@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.dialect.bulk;
+
+import io.nop.commons.text.marker.Marker;
+import io.nop.commons.text.marker.Markers;
+import io.nop.core.lang.sql.SQL;
+import io.nop.dao.dialect.IDialect;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 改写为 insert into t(a,b) values (?,?),(?,?) 形式的多行插入语句。mysql/postgresql/h2/sqlserver等均支持此语法
+ */
+public class MultiRowValuesBulkInsertHandler implements IBulkInsertHandler {
+    public static final MultiRowValuesBulkInsertHandler INSTANCE = new MultiRowValuesBulkInsertHandler();
+
+    private static final Pattern VALUES_PATTERN = Pattern.compile("\\)\\s*values\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public int getMaxRowCount(IDialect dialect, SQL insertSql) {
+        int maxRows = dialect.getMaxRowsPerInsert();
+        if (maxRows <= 0)
+            maxRows = Integer.MAX_VALUE;
+
+        // 同时受到参数个数和values行数的限制，取两者中较小的值
+        int maxParamCount = dialect.getMaxParamCount();
+        if (maxParamCount <= 0)
+            return maxRows;
+
+        int paramCount = getParamCount(insertSql);
+        if (paramCount <= 0)
+            return maxRows;
+        return Math.min(maxRows, Math.max(1, maxParamCount / paramCount));
+    }
+
+    static int getParamCount(SQL sql) {
+        int count = 0;
+        for (Marker marker : sql.getMarkers()) {
+            if (marker instanceof Markers.ValueMarker || marker instanceof Markers.ProviderMarker)
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    public SQL buildBulkInsert(IDialect dialect, List<SQL> inserts) {
+        SQL first = inserts.get(0);
+        if (inserts.size() == 1)
+            return first;
+
+        String text = first.getText();
+        int start = getValuesStart(text);
+        if (start < 0)
+            return null;
+
+        SQL.SqlBuilder sb = SQL.begin(first);
+        for (int i = 1, n = inserts.size(); i < n; i++) {
+            sb.append(',');
+            sb.appendRange(inserts.get(i), start, text.length());
+        }
+        return sb.end();
+    }
+
+    /**
+     * 返回values子句中括号的起始位置。只有values子句位于语句末尾时才允许合并，
+     * 例如带有on conflict或者returning子句的语句不能简单追加多行
+     */
+    static int getValuesStart(String text) {
+        Matcher matcher = VALUES_PATTERN.matcher(text);
+        if (!matcher.find())
+            return -1;
+
+        int start = matcher.end() - 1;
+        int depth = 0;
+        boolean inStr = false;
+        for (int i = start, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c == '\'') {
+                inStr = !inStr;
+            } else if (!inStr) {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                    if (depth == 0) {
+                        return text.substring(i + 1).trim().isEmpty() ? start : -1;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -23,6 +23,7 @@ import io.nop.core.reflect.ReflectionManager;
 import io.nop.dao.dialect.IDataTypeHandler;
 import io.nop.dao.dialect.IDialect;
 import io.nop.dao.dialect.SQLDataType;
+import io.nop.dao.dialect.bulk.IBulkInsertHandler;
 import io.nop.dao.dialect.exception.ISQLExceptionTranslator;
 import io.nop.dao.dialect.function.ISQLFunction;
 import io.nop.dao.dialect.function.NativeSQLFunction;
@@ -71,6 +72,7 @@ public class DialectImpl implements IDialect {
     private final DialectModel dialectModel;
     private final ISQLExceptionTranslator exceptionTranslator;
     private final IPaginationHandler paginationHandler;
+    private final IBulkInsertHandler bulkInsertHandler;
     private final Map<String, ISQLFunction> functions = new CaseInsensitiveMap<>();
     private final SqlDataTypeMapping sqlDataTypeMapping = new SqlDataTypeMapping();
     private final Set<String> reservedWords = Collections.newSetFromMap(new CaseInsensitiveMap<>());
@@ -87,6 +89,7 @@ public class DialectImpl implements IDialect {
         this.exceptionTranslator = new DialectSQLExceptionTranslator(dialectModel);
         this.paginationHandler = newInstance(dialectModel.getPaginationHandler(),
                 LimitOffsetPaginationHandler.INSTANCE);
+        this.bulkInsertHandler = newInstance(dialectModel.getBulkInsertHandler(), null);
         initFunctions();
         initDataTypes();
         // 将reservedWords转换为大小写不敏感的集合
@@ -199,6 +202,11 @@ public class DialectImpl implements IDialect {
         return paginationHandler;
     }
 
+    @Override
+    public IBulkInsertHandler getBulkInsertHandler() {
+        return bulkInsertHandler;
+    }
+
     @Override
     public int getMaxStringSize() {
         Integer size = dialectModel.getMaxStringSize();
@@ -215,6 +223,22 @@ public class DialectImpl implements IDialect {
         return size;
     }
 
+    @Override
+    public int getMaxParamCount() {
+        Integer count = dialectModel.getMaxParamCount();
+        if (count == null)
+            return -1;
+        return count;
+    }
+
+    @Override
+    public int getMaxRowsPerInsert() {
+        Integer count = dialectModel.getMaxRowsPerInsert();
+        if (count == null)
+            return -1;
+        return count;
+    }
+
     @Override
     public boolean isSupportExecuteLargeUpdate() {
         return Boolean.TRUE.equals(dialectModel.getFeatures().getSupportExecuteLargeUpdate());
@@ -225,6 +249,13 @@ public class DialectImpl implements IDialect {
         return Boolean.TRUE.equals(dialectModel.getFeatures().getSupportQueryTimeout());
     }
 
+    @Override
+    public int getStreamFetchSize(int windowSize) {
+        if (Boolean.TRUE.equals(dialectModel.getFeatures().getUseStreamingFetchSize()))
+            return STREAMING_FETCH_SIZE;
+        return windowSize;
+    }
+
     @Override
     public boolean isSupportLargeMaxRows() {
         return Boolean.TRUE.equals(dialectModel.getFeatures().getSupportLargeMaxRows());
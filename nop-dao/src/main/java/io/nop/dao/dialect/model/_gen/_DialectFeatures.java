@@ -178,6 +178,14 @@ public abstract class _DialectFeatures extends io.nop.core.resource.component.Ab
      */
     private java.lang.Boolean _useGetStringForDate ;
     
+    /**
+     *  
+     * xml name: useStreamingFetchSize
+     * 流式读取时fetchSize设置为Integer.MIN_VALUE。MySQL驱动只有在这种情况下才逐行读取结果集，
+     * 否则会把整个结果集读入内存
+     */
+    private java.lang.Boolean _useStreamingFetchSize ;
+    
     /**
      * 
      * xml name: supportBatchUpdate
@@ -616,6 +624,26 @@ public abstract class _DialectFeatures extends io.nop.core.resource.component.Ab
     }
 
     
+    /**
+     * 
+     * xml name: useStreamingFetchSize
+     *  流式读取时fetchSize设置为Integer.MIN_VALUE。MySQL驱动只有在这种情况下才逐行读取结果集，
+     * 否则会把整个结果集读入内存
+     */
+    
+    public java.lang.Boolean getUseStreamingFetchSize(){
+      return _useStreamingFetchSize;
+    }
+
+    
+    public void setUseStreamingFetchSize(java.lang.Boolean value){
+        checkAllowChange();
+        
+        this._useStreamingFetchSize = value;
+           
+    }
+
+    
 
     @Override
     public void freeze(boolean cascade){
@@ -654,6 +682,7 @@ public abstract class _DialectFeatures extends io.nop.core.resource.component.Ab
         out.putNotNull("supportUpdateTableAlias",this.getSupportUpdateTableAlias());
         out.putNotNull("supportWithAsClause",this.getSupportWithAsClause());
         out.putNotNull("useGetStringForDate",this.getUseGetStringForDate());
+        out.putNotNull("useStreamingFetchSize",this.getUseStreamingFetchSize());
     }
 
     public DialectFeatures cloneInstance(){
@@ -688,6 +717,7 @@ public abstract class _DialectFeatures extends io.nop.core.resource.component.Ab
         instance.setSupportUpdateTableAlias(this.getSupportUpdateTableAlias());
         instance.setSupportWithAsClause(this.getSupportWithAsClause());
         instance.setUseGetStringForDate(this.getUseGetStringForDate());
+        instance.setUseStreamingFetchSize(this.getUseStreamingFetchSize());
     }
 
     protected DialectFeatures newInstance(){
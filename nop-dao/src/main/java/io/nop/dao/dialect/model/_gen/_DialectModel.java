@@ -23,6 +23,13 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
      */
     private java.lang.String _allSchemaPattern ;
     
+    /**
+     *  
+     * xml name: bulkInsertHandler
+     * 将多条单行insert语句合并为一条多行insert语句。IBulkInsertHandler类型
+     */
+    private java.lang.String _bulkInsertHandler ;
+    
     /**
      *  
      * xml name: class
@@ -128,6 +135,20 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
      */
     private java.lang.Integer _maxBytesSize ;
     
+    /**
+     *  
+     * xml name: maxParamCount
+     * 单条语句允许的最大参数个数，批量插入时据此拆分多行insert语句
+     */
+    private java.lang.Integer _maxParamCount ;
+    
+    /**
+     *  
+     * xml name: maxRowsPerInsert
+     * 单条insert语句的values子句中允许的最大行数。例如SQLServer限制为1000行
+     */
+    private java.lang.Integer _maxRowsPerInsert ;
+    
     /**
      *  
      * xml name: maxStringSize
@@ -210,6 +231,25 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
     }
 
     
+    /**
+     * 
+     * xml name: bulkInsertHandler
+     *  将多条单行insert语句合并为一条多行insert语句。IBulkInsertHandler类型
+     */
+    
+    public java.lang.String getBulkInsertHandler(){
+      return _bulkInsertHandler;
+    }
+
+    
+    public void setBulkInsertHandler(java.lang.String value){
+        checkAllowChange();
+        
+        this._bulkInsertHandler = value;
+           
+    }
+
+    
     /**
      * 
      * xml name: class
@@ -529,6 +569,44 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
     }
 
     
+    /**
+     * 
+     * xml name: maxParamCount
+     *  单条语句允许的最大参数个数，批量插入时据此拆分多行insert语句
+     */
+    
+    public java.lang.Integer getMaxParamCount(){
+      return _maxParamCount;
+    }
+
+    
+    public void setMaxParamCount(java.lang.Integer value){
+        checkAllowChange();
+        
+        this._maxParamCount = value;
+           
+    }
+
+    
+    /**
+     * 
+     * xml name: maxRowsPerInsert
+     *  单条insert语句的values子句中允许的最大行数。例如SQLServer限制为1000行
+     */
+    
+    public java.lang.Integer getMaxRowsPerInsert(){
+      return _maxRowsPerInsert;
+    }
+
+    
+    public void setMaxRowsPerInsert(java.lang.Integer value){
+        checkAllowChange();
+        
+        this._maxRowsPerInsert = value;
+           
+    }
+
+    
     /**
      * 
      * xml name: maxStringSize
@@ -758,6 +836,7 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
         super.outputJson(out);
         
         out.putNotNull("allSchemaPattern",this.getAllSchemaPattern());
+        out.putNotNull("bulkInsertHandler",this.getBulkInsertHandler());
         out.putNotNull("className",this.getClassName());
         out.putNotNull("columnNameCase",this.getColumnNameCase());
         out.putNotNull("dbProductNames",this.getDbProductNames());
@@ -773,6 +852,8 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
         out.putNotNull("keywordQuote",this.getKeywordQuote());
         out.putNotNull("keywordUnderscore",this.getKeywordUnderscore());
         out.putNotNull("maxBytesSize",this.getMaxBytesSize());
+        out.putNotNull("maxParamCount",this.getMaxParamCount());
+        out.putNotNull("maxRowsPerInsert",this.getMaxRowsPerInsert());
         out.putNotNull("maxStringSize",this.getMaxStringSize());
         out.putNotNull("paginationHandler",this.getPaginationHandler());
         out.putNotNull("rename",this.getRename());
@@ -794,6 +875,7 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
         super.copyTo(instance);
         
         instance.setAllSchemaPattern(this.getAllSchemaPattern());
+        instance.setBulkInsertHandler(this.getBulkInsertHandler());
         instance.setClassName(this.getClassName());
         instance.setColumnNameCase(this.getColumnNameCase());
         instance.setDbProductNames(this.getDbProductNames());
@@ -809,6 +891,8 @@ public abstract class _DialectModel extends io.nop.core.resource.component.Abstr
         instance.setKeywordQuote(this.getKeywordQuote());
         instance.setKeywordUnderscore(this.getKeywordUnderscore());
         instance.setMaxBytesSize(this.getMaxBytesSize());
+        instance.setMaxParamCount(this.getMaxParamCount());
+        instance.setMaxRowsPerInsert(this.getMaxRowsPerInsert());
         instance.setMaxStringSize(this.getMaxStringSize());
         instance.setPaginationHandler(this.getPaginationHandler());
         instance.setRename(this.getRename());
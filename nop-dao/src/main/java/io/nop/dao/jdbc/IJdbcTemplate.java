@@ -18,6 +18,7 @@ import io.nop.dao.txn.ITransactionTemplate;
 import jakarta.annotation.Nonnull;
 import java.sql.Connection;
 import java.sql.Timestamp;
+import java.util.Set;
 import java.util.function.Function;
 
 public interface IJdbcTemplate extends ISqlExecutor, IDialectProvider {
@@ -49,4 +50,11 @@ public interface IJdbcTemplate extends ISqlExecutor, IDialectProvider {
     IEstimatedClock getDbEstimatedClock(String querySpace);
 
     boolean isQuerySpaceDefined(String querySpace);
+
+    /**
+     * 数据库表被修改后调用，使得依赖于这些表的查询结果缓存失效。如果querySpace上存在打开的事务，则事务提交后会再次失效并通知其他节点。
+     *
+     * @param tableNames 为null表示修改的表未知，此时querySpace上的所有查询结果缓存都失效
+     */
+    void invalidateQueryResultCache(String querySpace, Set<String> tableNames);
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import io.nop.api.core.time.CoreMetrics;
 import io.nop.commons.util.IoHelper;
 import io.nop.core.lang.sql.SQL;
 import io.nop.dao.dialect.IDialect;
+import io.nop.dao.dialect.bulk.IBulkInsertHandler;
 import io.nop.dao.jdbc.impl.JdbcHelper;
 import io.nop.dao.metrics.IDaoMetrics;
 import org.slf4j.Logger;
@@ -21,12 +22,16 @@ import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 
 import static io.nop.dao.DaoConfigs.CFG_DAO_JDBC_DISABLE_BATCH_UPDATE;
+import static io.nop.dao.DaoConfigs.CFG_DAO_JDBC_DISABLE_BULK_INSERT;
 import static io.nop.dao.DaoConfigs.CFG_DAO_JDBC_MAX_BATCH_UPDATE_SIZE;
 
 /**
@@ -41,6 +46,8 @@ import static io.nop.dao.DaoConfigs.CFG_DAO_JDBC_MAX_BATCH_UPDATE_SIZE;
  *   batcher.flush();
  * </code>
  * </pre>
+ * <p>
+ * 通过addInsertCommand加入的单行insert语句，如果dialect提供了IBulkInsertHandler，则会被合并为多行insert语句执行。
  *
  * @author canonical_entropy@163.com
  */
@@ -53,8 +60,20 @@ public class JdbcBatcher {
 
     private String sql;
 
+    /**
+     * 当前积累的命令是否都是通过addInsertCommand加入的单行insert语句
+     */
+    private boolean insertMode;
+
+    private IBulkInsertHandler bulkInsertHandler;
+
     private Deque<BatchCommand> commands = new ArrayDeque<>();
 
+    /**
+     * forceTxn打开的事务中已经执行成功的多行insert命令。提交之后才回调成功，事务回滚时回调失败
+     */
+    private final List<BatchCommand> uncommitted = new ArrayList<>();
+
     private int batchSize = CFG_DAO_JDBC_MAX_BATCH_UPDATE_SIZE.get();
 
     /**
@@ -83,12 +102,16 @@ public class JdbcBatcher {
 
         if (!dialect.isSupportBatchUpdateCount())
             this.checkSingleChange = dialect.isSupportBatchUpdateCount();
+
+        if (!CFG_DAO_JDBC_DISABLE_BULK_INSERT.get())
+            this.bulkInsertHandler = dialect.getBulkInsertHandler();
     }
 
     private static class BatchCommand {
         final SQL sql;
         final boolean singleChange;
         final BiConsumer<Integer, Throwable> callback;
+        int updateCount;
 
         public BatchCommand(SQL sql, boolean singleChange, BiConsumer<Integer, Throwable> callback) {
             this.sql = sql;
@@ -114,6 +137,10 @@ public class JdbcBatcher {
         this.batchDisabled = true;
     }
 
+    public void disableBulkInsert() {
+        this.bulkInsertHandler = null;
+    }
+
     public boolean isForceTxn() {
         return forceTxn;
     }
@@ -131,10 +158,22 @@ public class JdbcBatcher {
     }
 
     public void addCommand(SQL sql, boolean singleChange, BiConsumer<Integer, Throwable> callback) {
-        if (this.sql != null && !Objects.equals(this.sql, sql.getText())) {
+        addCommand(sql, singleChange, callback, false);
+    }
+
+    /**
+     * 加入单行insert语句。SQL文本相同的insert语句在flush时可能被合并为一条多行insert语句执行，每一行的回调结果都为1
+     */
+    public void addInsertCommand(SQL sql, BiConsumer<Integer, Throwable> callback) {
+        addCommand(sql, true, callback, true);
+    }
+
+    private void addCommand(SQL sql, boolean singleChange, BiConsumer<Integer, Throwable> callback, boolean insert) {
+        if (this.sql != null && (insertMode != insert || !Objects.equals(this.sql, sql.getText()))) {
             flush();
         }
         this.sql = sql.getText();
+        this.insertMode = insert;
 
         commands.addLast(new BatchCommand(sql, singleChange, callback));
         if (commands.size() >= batchSize) {
@@ -158,10 +197,18 @@ public class JdbcBatcher {
                     resetAutoCommit = true;
                 }
 
+                if (insertMode && bulkInsertHandler != null && flushBulkInsert(resetAutoCommit)) {
+                    if (resetAutoCommit)
+                        commitBulkInsert();
+                    return;
+                }
+
                 LOG.trace("jdbc.executeBatch_begin:count={}", commands.size());
                 long beginTime = CoreMetrics.nanoTime();
                 Object meter = daoMetrics == null ? null : daoMetrics.beginBatchUpdate(sql);
                 int commandCount = commands.size();
+                if (daoMetrics != null)
+                    daoMetrics.onBatchSize(sql, commandCount);
                 PreparedStatement ps = conn.prepareStatement(sql);
                 try {
                     for (BatchCommand params : commands) {
@@ -216,7 +263,7 @@ public class JdbcBatcher {
                         throw cause;
                 } finally {
                     if (daoMetrics != null)
-                        daoMetrics.endExecuteUpdate(meter, commandCount);
+                        daoMetrics.endBatchUpdate(meter, commandCount);
                 }
 
                 // 如果是batch主动打开的transaction,它需要主动commit。setAutoCommit(true)不一定自动调用commit
@@ -237,6 +284,113 @@ public class JdbcBatcher {
         }
     }
 
+    /**
+     * 按照参数个数限制将insert语句分组合并后执行。语句格式不支持合并时返回false，此时退回到jdbc的batch机制
+     */
+    boolean flushBulkInsert(boolean resetAutoCommit) throws SQLException {
+        SQL first = commands.getFirst().sql;
+        int maxRowCount = bulkInsertHandler.getMaxRowCount(dialect, first);
+        if (maxRowCount <= 1)
+            return false;
+
+        List<BatchCommand> chunk = new ArrayList<>(Math.min(maxRowCount, commands.size()));
+        List<SQL> inserts = new ArrayList<>(chunk.size());
+        while (!commands.isEmpty()) {
+            chunk.clear();
+            inserts.clear();
+            for (int i = 0; i < maxRowCount && !commands.isEmpty(); i++) {
+                BatchCommand command = commands.pollFirst();
+                chunk.add(command);
+                inserts.add(command.sql);
+            }
+
+            SQL bulkSql = bulkInsertHandler.buildBulkInsert(dialect, inserts);
+            if (bulkSql == null) {
+                // 不支持合并，将命令放回队列
+                for (int i = chunk.size() - 1; i >= 0; i--) {
+                    commands.addFirst(chunk.get(i));
+                }
+                return false;
+            }
+            executeBulkInsert(bulkSql, chunk, resetAutoCommit);
+        }
+        return true;
+    }
+
+    void executeBulkInsert(SQL bulkSql, List<BatchCommand> chunk, boolean resetAutoCommit) throws SQLException {
+        String bulkText = bulkSql.getText();
+        int rowCount = chunk.size();
+        long beginTime = CoreMetrics.nanoTime();
+        Object meter = daoMetrics == null ? null : daoMetrics.beginBatchUpdate(sql);
+        if (daoMetrics != null)
+            daoMetrics.onBatchSize(sql, rowCount);
+
+        bulkSql.dump("jdbcBatcher.bulkInsert");
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(bulkText);
+            JdbcHelper.setParameters(dialect, ps, bulkSql);
+            int count = ps.executeUpdate();
+            long diffTime = CoreMetrics.nanoTimeDiff(beginTime);
+            LOG.info("nop.jdbc.execute-bulk-insert-success:rowCount={},updateCount={},usedTime={},sql={}",
+                    rowCount, count, CoreMetrics.nanoToMillis(diffTime), sql);
+
+            int updateCount = count == rowCount ? 1 : Statement.SUCCESS_NO_INFO;
+            for (BatchCommand command : chunk) {
+                if (resetAutoCommit) {
+                    command.updateCount = updateCount;
+                    uncommitted.add(command);
+                } else {
+                    onSuccess(command, updateCount);
+                }
+            }
+        } catch (SQLException e) {
+            long diffTime = CoreMetrics.nanoTimeDiff(beginTime);
+            LOG.error("nop.jdbc.execute-bulk-insert-fail:rowCount={},usedTime={},sql={}", rowCount,
+                    CoreMetrics.nanoToMillis(diffTime), sql);
+
+            for (BatchCommand command : chunk) {
+                command.onComplete(null, e);
+            }
+
+            if (resetAutoCommit) {
+                // 同一事务中此前执行成功的分组也被回滚
+                failUncommitted(e);
+                conn.rollback();
+            }
+
+            if (stopOnError) {
+                commands.clear();
+                throw e;
+            }
+        } finally {
+            IoHelper.safeClose(ps);
+            if (daoMetrics != null)
+                daoMetrics.endBatchUpdate(meter, rowCount);
+        }
+    }
+
+    void commitBulkInsert() throws SQLException {
+        try {
+            conn.commit();
+        } catch (SQLException e) {
+            failUncommitted(e);
+            throw e;
+        }
+
+        for (BatchCommand command : uncommitted) {
+            onSuccess(command, command.updateCount);
+        }
+        uncommitted.clear();
+    }
+
+    void failUncommitted(SQLException e) {
+        for (BatchCommand command : uncommitted) {
+            command.onComplete(null, e);
+        }
+        uncommitted.clear();
+    }
+
     SQLException getCause(BatchUpdateException e) {
         if (e.getCause() instanceof SQLException)
             return (SQLException) e.getCause();
@@ -262,6 +416,8 @@ public class JdbcBatcher {
         long beginTime = CoreMetrics.nanoTime();
 
         Object meter = daoMetrics == null ? null : daoMetrics.beginBatchUpdate(sql);
+        if (daoMetrics != null)
+            daoMetrics.onBatchSize(sql, 1);
         PreparedStatement ps = null;
         try {
             ps = conn.prepareStatement(sql);
@@ -283,7 +439,7 @@ public class JdbcBatcher {
         } finally {
             IoHelper.safeClose(ps);
             if (daoMetrics != null)
-                daoMetrics.endExecuteUpdate(meter, 1);
+                daoMetrics.endBatchUpdate(meter, 1);
         }
     }
 
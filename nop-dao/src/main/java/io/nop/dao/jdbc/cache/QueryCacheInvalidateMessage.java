@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.cache;
+
+import io.nop.api.core.annotations.data.DataBean;
+
+import java.util.Set;
+
+/**
+ * 数据库表被修改后广播给其他节点的消息，其他节点收到后使得本地的查询结果缓存失效
+ */
+@DataBean
+public class QueryCacheInvalidateMessage {
+    private String senderId;
+    private String querySpace;
+    private Set<String> tableNames;
+
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(String senderId) {
+        this.senderId = senderId;
+    }
+
+    public String getQuerySpace() {
+        return querySpace;
+    }
+
+    public void setQuerySpace(String querySpace) {
+        this.querySpace = querySpace;
+    }
+
+    /**
+     * 为null表示修改了未知的表，整个querySpace的缓存都需要失效
+     */
+    public Set<String> getTableNames() {
+        return tableNames;
+    }
+
+    public void setTableNames(Set<String> tableNames) {
+        this.tableNames = tableNames;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.cache;
+
+import io.nop.api.core.beans.LongRangeBean;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+public final class QueryCacheKey {
+    private final String querySpace;
+    private final String text;
+    private final List<Object> params;
+    private final LongRangeBean range;
+    private final String[] tables;
+    private final int hashCode;
+
+    QueryCacheKey(String querySpace, String text, List<Object> params, LongRangeBean range, String[] tables) {
+        this.querySpace = querySpace;
+        this.text = text;
+        this.params = params;
+        this.range = range;
+        this.tables = tables;
+        this.hashCode = Objects.hash(querySpace, text, params, range);
+    }
+
+    public String getQuerySpace() {
+        return querySpace;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<Object> getParams() {
+        return params;
+    }
+
+    public LongRangeBean getRange() {
+        return range;
+    }
+
+    /**
+     * 已经转换为小写并排序的表名
+     */
+    public String[] getTables() {
+        return tables;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof QueryCacheKey))
+            return false;
+        QueryCacheKey other = (QueryCacheKey) o;
+        return hashCode == other.hashCode
+                && querySpace.equals(other.querySpace)
+                && text.equals(other.text)
+                && Objects.equals(params, other.params)
+                && Objects.equals(range, other.range)
+                && Arrays.equals(tables, other.tables);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCacheKey[querySpace=" + querySpace + ",text=" + text + ",params=" + params + ",range=" + range + "]";
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.cache;
+
+import io.nop.api.core.beans.LongRangeBean;
+import io.nop.api.core.config.AppConfig;
+import io.nop.api.core.message.IMessageService;
+import io.nop.api.core.message.IMessageSubscription;
+import io.nop.commons.cache.CacheConfig;
+import io.nop.commons.cache.ICache;
+import io.nop.commons.cache.LocalCache;
+import io.nop.core.lang.sql.SQL;
+import io.nop.core.reflect.bean.BeanTool;
+import io.nop.dataset.impl.DataSetCacheData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.nop.dao.DaoConfigs.CFG_DAO_QUERY_CACHE_INVALIDATE_TOPIC;
+import static io.nop.dao.DaoConfigs.CFG_DAO_QUERY_CACHE_MAX_ROWS;
+import static io.nop.dao.DaoConfigs.CFG_DAO_QUERY_CACHE_MAX_SIZE;
+import static io.nop.dao.DaoConfigs.CFG_DAO_QUERY_CACHE_TIMEOUT;
+
+/**
+ * 查询结果缓存。缓存key由querySpace、SQL文本、参数和分页范围构成，不需要调用者指定。
+ * <p>
+ * 每个表对应一个版本号，缓存条目记录查询开始时所依赖的表的版本号，读取时发现版本号变化则认为缓存失效。
+ * 表被修改时只需要增加版本号，不需要遍历缓存。未知表名的修改会增加整个querySpace的版本号，它被所有查询所依赖。
+ * 任何修改都会增加querySpace的写版本号，无法解析出表名的查询依赖于写版本号，因此任何修改都会使它失效。
+ * 如果设置了messageService，则版本号的变化会广播到其他节点。
+ */
+public class QueryResultCache {
+    static final Logger LOG = LoggerFactory.getLogger(QueryResultCache.class);
+
+    static final String ALL_TABLES = "*";
+
+    /**
+     * 任何表被修改时都会增加的版本号
+     */
+    static final String ANY_WRITE = "#write";
+
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+    private ICache<QueryCacheKey, CacheEntry> cache;
+    private int maxRows = CFG_DAO_QUERY_CACHE_MAX_ROWS.get();
+
+    private IMessageService messageService;
+    private String topic = CFG_DAO_QUERY_CACHE_INVALIDATE_TOPIC.get();
+    private IMessageSubscription subscription;
+
+    public QueryResultCache() {
+        this(CFG_DAO_QUERY_CACHE_MAX_SIZE.get(), CFG_DAO_QUERY_CACHE_TIMEOUT.get());
+    }
+
+    public QueryResultCache(int maxSize, long timeout) {
+        CacheConfig config = timeout > 0 ? CacheConfig.newConfig(maxSize, timeout) : CacheConfig.newConfig(maxSize);
+        this.cache = LocalCache.newCache("dao-query-result-cache", config);
+    }
+
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public void setMessageService(IMessageService messageService) {
+        this.messageService = messageService;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (messageService != null) {
+            subscription = messageService.subscribe(topic, (t, message, ctx) -> {
+                onInvalidateMessage(message);
+                return null;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (subscription != null) {
+            subscription.cancel();
+            subscription = null;
+        }
+        cache.clear();
+    }
+
+    public QueryCacheKey newKey(String querySpace, SQL sql, LongRangeBean range) {
+        return new QueryCacheKey(querySpace, sql.getText(), sql.getMarkerValues(), range,
+                normalizeTableNames(sql.getTableNames()));
+    }
+
+    public DataSetCacheData get(QueryCacheKey key) {
+        CacheEntry entry = cache.get(key);
+        if (entry == null)
+            return null;
+
+        if (!isValid(key, entry.versions)) {
+            cache.remove(key);
+            return null;
+        }
+        return entry.data;
+    }
+
+    /**
+     * 在执行查询之前获取依赖表的版本号。如果查询执行期间表被修改，则放入缓存的结果在下次读取时会被判定为失效
+     */
+    public long[] getVersions(QueryCacheKey key) {
+        String[] tables = getDependTables(key);
+        long[] versions = new long[tables.length + 1];
+        versions[0] = getVersion(key.getQuerySpace(), ALL_TABLES);
+        for (int i = 0; i < tables.length; i++) {
+            versions[i + 1] = getVersion(key.getQuerySpace(), tables[i]);
+        }
+        return versions;
+    }
+
+    private String[] getDependTables(QueryCacheKey key) {
+        String[] tables = key.getTables();
+        // 不知道查询访问了哪些表，只能认为它依赖于所有表
+        if (tables.length == 0)
+            return new String[]{ANY_WRITE};
+        return tables;
+    }
+
+    public void put(QueryCacheKey key, long[] versions, DataSetCacheData data) {
+        if (maxRows > 0 && data.getRecords().size() > maxRows) {
+            LOG.debug("nop.dao.query-cache-skip-large-result:rows={},sql={}", data.getRecords().size(), key.getText());
+            return;
+        }
+        cache.put(key, new CacheEntry(versions, data));
+    }
+
+    /**
+     * 使得依赖于指定表的缓存失效
+     *
+     * @param tableNames 为null表示修改的表未知，此时querySpace中的所有缓存都失效
+     * @param broadcast  是否通知其他节点
+     */
+    public void invalidate(String querySpace, Collection<String> tableNames, boolean broadcast) {
+        Set<String> tables = normalizeTableNameSet(tableNames);
+        incVersions(querySpace, tables);
+
+        if (broadcast && messageService != null) {
+            QueryCacheInvalidateMessage message = new QueryCacheInvalidateMessage();
+            message.setSenderId(AppConfig.hostId());
+            message.setQuerySpace(querySpace);
+            message.setTableNames(tables);
+            messageService.sendAsync(topic, message).exceptionally(err -> {
+                LOG.error("nop.dao.query-cache-send-invalidate-fail:querySpace={},tables={}",
+                        querySpace, tables, err);
+                return null;
+            });
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    protected void onInvalidateMessage(Object message) {
+        QueryCacheInvalidateMessage msg = BeanTool.castBeanToType(message, QueryCacheInvalidateMessage.class);
+        if (Objects.equals(msg.getSenderId(), AppConfig.hostId()))
+            return;
+
+        LOG.debug("nop.dao.query-cache-remote-invalidate:sender={},querySpace={},tables={}",
+                msg.getSenderId(), msg.getQuerySpace(), msg.getTableNames());
+        incVersions(msg.getQuerySpace(), msg.getTableNames());
+    }
+
+    private void incVersions(String querySpace, Set<String> tables) {
+        versionRef(querySpace, ANY_WRITE).incrementAndGet();
+        if (tables == null) {
+            versionRef(querySpace, ALL_TABLES).incrementAndGet();
+        } else {
+            for (String table : tables) {
+                versionRef(querySpace, table).incrementAndGet();
+            }
+        }
+    }
+
+    private boolean isValid(QueryCacheKey key, long[] versions) {
+        if (versions[0] != getVersion(key.getQuerySpace(), ALL_TABLES))
+            return false;
+
+        String[] tables = getDependTables(key);
+        for (int i = 0; i < tables.length; i++) {
+            if (versions[i + 1] != getVersion(key.getQuerySpace(), tables[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private long getVersion(String querySpace, String table) {
+        AtomicLong version = tableVersions.get(versionKey(querySpace, table));
+        return version == null ? 0 : version.get();
+    }
+
+    private AtomicLong versionRef(String querySpace, String table) {
+        return tableVersions.computeIfAbsent(versionKey(querySpace, table), k -> new AtomicLong());
+    }
+
+    private String versionKey(String querySpace, String table) {
+        return querySpace + '|' + table;
+    }
+
+    private String[] normalizeTableNames(Set<String> tableNames) {
+        if (tableNames == null || tableNames.isEmpty())
+            return new String[0];
+        return normalizeTableNameSet(tableNames).stream().sorted().toArray(String[]::new);
+    }
+
+    private Set<String> normalizeTableNameSet(Collection<String> tableNames) {
+        if (tableNames == null)
+            return null;
+        List<String> list = new ArrayList<>(tableNames.size());
+        for (String tableName : tableNames) {
+            list.add(tableName.toLowerCase(Locale.ROOT));
+        }
+        return Set.copyOf(list);
+    }
+
+    static final class CacheEntry {
+        final long[] versions;
+        final DataSetCacheData data;
+
+        CacheEntry(long[] versions, DataSetCacheData data) {
+            this.versions = versions;
+            this.data = data;
+        }
+    }
+}
@@ -30,6 +30,16 @@ public class DataSourceConfig {
 
     private String validationQuerySql;
 
+    /**
+     * 内置连接池中每个连接缓存的PreparedStatement个数
+     */
+    private int statementCacheSize = 16;
+
+    /**
+     * 内置连接池中连接被借出超过此时间后打印借出时的调用栈
+     */
+    private Duration leakDetectionThreshold;
+
     private Map<String, String> properties;
 
     public Duration getIdleTimeout() {
@@ -64,6 +74,22 @@ public class DataSourceConfig {
         this.validationQuerySql = validationQuerySql;
     }
 
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public Duration getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    public void setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
     public int getMinSize() {
         return minSize;
     }
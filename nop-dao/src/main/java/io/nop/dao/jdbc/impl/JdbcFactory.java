@@ -8,11 +8,14 @@
 package io.nop.dao.jdbc.impl;
 
 import io.nop.commons.cache.ICacheProvider;
+import io.nop.commons.pool.PoolConfig;
 import io.nop.commons.util.CollectionHelper;
 import io.nop.dao.jdbc.IJdbcTemplate;
 import io.nop.dao.jdbc.IJdbcTemplateFactory;
 import io.nop.dao.jdbc.datasource.DataSourceConfig;
 import io.nop.dao.jdbc.datasource.SimpleDataSource;
+import io.nop.dao.jdbc.pool.JdbcConnectionPool;
+import io.nop.dao.jdbc.pool.PooledDataSource;
 import io.nop.dao.jdbc.txn.JdbcTransactionFactory;
 import io.nop.dao.metrics.IDaoMetrics;
 import io.nop.dao.txn.ITransactionTemplate;
@@ -20,6 +23,7 @@ import io.nop.dao.txn.impl.DefaultTransactionManager;
 import io.nop.dao.txn.impl.TransactionTemplateImpl;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 /**
  * 根据DataSource创建JdbcTemplate对象
@@ -47,6 +51,42 @@ public class JdbcFactory implements IJdbcTemplateFactory {
         return dataSource;
     }
 
+    /**
+     * 创建使用内置连接池的DataSource。使用完毕后需要调用close()关闭连接池
+     */
+    public static PooledDataSource newPooledDataSource(DataSourceConfig config, IDaoMetrics daoMetrics) {
+        return new PooledDataSource(newConnectionPool(config, daoMetrics));
+    }
+
+    public static JdbcConnectionPool newConnectionPool(DataSourceConfig config, IDaoMetrics daoMetrics) {
+        PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaxActive(config.getMaxSize());
+        poolConfig.setMaxIdle(config.getMaxSize());
+        poolConfig.setMinIdle(Math.max(config.getMinSize(), config.getInitialSize()));
+        poolConfig.setAutoInitMinIdle(poolConfig.getMinIdle() > 0);
+        poolConfig.setWaitTimeout(toMillis(config.getConnectionTimeout(), 30000));
+        poolConfig.setIdleTimeout(toMillis(config.getIdleTimeout(), 600000));
+        poolConfig.setTimeBetweenEvictionRunsMillis(toMillis(config.getBackgroundValidationInterval(), 30000));
+        poolConfig.setRemoveAbandonedTimeout(toMillis(config.getLeakDetectionThreshold(), 0));
+        poolConfig.setTestWhileIdle(true);
+
+        String name = config.getName() == null ? "default" : config.getName();
+        JdbcConnectionPool pool = new JdbcConnectionPool(name, newSimpleDataSource(config), poolConfig);
+        pool.setMaxLifetime(toMillis(config.getMaxLifetime(), 0));
+        pool.setValidationQuery(config.getValidationQuerySql());
+        pool.setStatementCacheSize(config.getStatementCacheSize());
+        if (config.isMetricsEnabled())
+            pool.setDaoMetrics(daoMetrics);
+        pool.start();
+        return pool;
+    }
+
+    private static int toMillis(Duration duration, int defaultValue) {
+        if (duration == null)
+            return defaultValue;
+        return (int) duration.toMillis();
+    }
+
     public static IJdbcTemplate newJdbcTemplateFor(DataSource dataSource) {
         JdbcFactory factory = new JdbcFactory();
         return factory.newJdbcTemplate(factory.newTransactionTemplate(dataSource));
@@ -205,7 +205,7 @@ public class JdbcHelper {
     }
 
     public static void setFetchSize(SQL sql, PreparedStatement ps) throws SQLException {
-        if (sql.getFetchSize() > 0 || sql.getFetchSize() == Integer.MIN_VALUE)
+        if (sql.getFetchSize() > 0 || sql.getFetchSize() == IDialect.STREAMING_FETCH_SIZE)
             ps.setFetchSize(sql.getFetchSize());
     }
 
@@ -26,6 +26,8 @@ import io.nop.dao.dialect.IDialectProvider;
 import io.nop.dao.dialect.pagination.IPaginationHandler;
 import io.nop.dao.exceptions.JdbcException;
 import io.nop.dao.jdbc.IJdbcTemplate;
+import io.nop.dao.jdbc.cache.QueryCacheKey;
+import io.nop.dao.jdbc.cache.QueryResultCache;
 import io.nop.dao.jdbc.dataset.JdbcComplexDataSet;
 import io.nop.dao.jdbc.dataset.JdbcDataSet;
 import io.nop.dao.jdbc.txn.IJdbcTransaction;
@@ -40,6 +42,7 @@ import io.nop.dataset.IRowMapper;
 import io.nop.dataset.binder.DataParameterBinders;
 import io.nop.dataset.impl.DataSetCacheData;
 import io.nop.dataset.impl.DataSetCacheHelper;
+import io.nop.dataset.impl.PrefetchedDataSet;
 import io.nop.dataset.rowmapper.SmartRowMapper;
 import jakarta.annotation.Nonnull;
 import jakarta.inject.Inject;
@@ -56,6 +59,7 @@ import java.sql.Timestamp;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
@@ -80,10 +84,20 @@ public class JdbcTemplateImpl extends AbstractSqlExecutor implements IJdbcTempla
 
     private final Map<String, ICache<Object, DataSetCacheData>> cacheMap = new ConcurrentHashMap<>();
 
+    private QueryResultCache queryResultCache;
+
     public void setCacheProvider(ICacheProvider cacheProvider) {
         this.cacheProvider = cacheProvider;
     }
 
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
     public void setDialectProvider(IDialectProvider dialectProvider) {
         this.dialectProvider = dialectProvider;
     }
@@ -196,6 +210,37 @@ public class JdbcTemplateImpl extends AbstractSqlExecutor implements IJdbcTempla
             it.next().clear();
             it.remove();
         }
+        if (queryResultCache != null)
+            queryResultCache.clear();
+    }
+
+    @Override
+    public void invalidateQueryResultCache(String querySpace, Set<String> tableNames) {
+        if (queryResultCache == null)
+            return;
+
+        String txnGroup = querySpace == null ? DaoConstants.DEFAULT_QUERY_SPACE : querySpace;
+        if (transactionTemplate.isTransactionOpened(txnGroup)) {
+            // 事务提交之前其他线程仍然读取到旧数据，它们可能按照新的版本号放入缓存，所以提交后需要再次失效
+            queryResultCache.invalidate(txnGroup, tableNames, false);
+            transactionTemplate.afterCommit(txnGroup,
+                    () -> queryResultCache.invalidate(txnGroup, tableNames, true));
+        } else {
+            queryResultCache.invalidate(txnGroup, tableNames, true);
+        }
+    }
+
+    /**
+     * 事务中的查询可能读取到未提交的数据，不使用查询结果缓存
+     */
+    private QueryCacheKey getQueryCacheKey(SQL sql, LongRangeBean range) {
+        if (queryResultCache == null || !sql.isUseQueryCache() || sql.getCacheRef() != null)
+            return null;
+
+        String querySpace = getQuerySpace(sql);
+        if (transactionTemplate.isTransactionOpened(querySpace))
+            return null;
+        return queryResultCache.newKey(querySpace, sql, range);
     }
 
     @Override
@@ -232,6 +277,7 @@ public class JdbcTemplateImpl extends AbstractSqlExecutor implements IJdbcTempla
                     count = st.executeUpdate();
                 }
                 LOG.info("nop.jdbc.executeUpdate:count={},name={}", count, sql.getName());
+                invalidateQueryResultCache(sql.getQuerySpace(), sql.getTableNames());
                 return count;
             } catch (SQLException e) {
                 error = dialect.getSQLExceptionTranslator().translate(sql, e);
@@ -277,6 +323,7 @@ public class JdbcTemplateImpl extends AbstractSqlExecutor implements IJdbcTempla
                     readCount = ds.getResultSet().getReadCount();
                 } else {
                     readCount = ds.getUpdateCount();
+                    invalidateQueryResultCache(sql.getQuerySpace(), sql.getTableNames());
                 }
                 LOG.info("nop.jdbc.executeStatement:count={},name={}", readCount, sql.getName());
                 success = true;
@@ -304,6 +351,19 @@ public class JdbcTemplateImpl extends AbstractSqlExecutor implements IJdbcTempla
             return callback.apply(DataSetCacheHelper.toDataSet(cacheData, true));
         }
 
+        QueryCacheKey queryCacheKey = getQueryCacheKey(sql, range);
+        long[] tableVersions = null;
+        if (queryCacheKey != null) {
+            cacheData = queryResultCache.get(queryCacheKey);
+            if (cacheData != null) {
+                if (daoMetrics != null)
+                    daoMetrics.onQueryCacheHit(sql);
+                return callback.apply(DataSetCacheHelper.toDataSet(cacheData, true));
+            }
+            tableVersions = queryResultCache.getVersions(queryCacheKey);
+        }
+        long[] versions = tableVersions;
+
         IDialect dialect = getDialectForQuerySpace(sql.getQuerySpace());
         SQL pagedSql = buildPagedSql(sql, range, dialect);
 
@@ -323,7 +383,20 @@ public class JdbcTemplateImpl extends AbstractSqlExecutor implements IJdbcTempla
                 rs = st.executeQuery();
                 IDataSet ds = new JdbcDataSet(dialect, rs);
                 // 检查是否需要缓存结果集
-                ds = saveCacheData(ds, sql, range);
+                if (queryCacheKey != null) {
+                    int maxRows = queryResultCache.getMaxRows();
+                    DataSetCacheData data = DataSetCacheHelper.toCacheData(ds, maxRows);
+                    if (maxRows > 0 && data.getRecords().size() > maxRows) {
+                        // 结果集太大，不缓存。已经读取的记录和剩余记录一起返回
+                        LOG.debug("nop.dao.query-cache-skip-large-result:maxRows={},sql={}", maxRows, sql.getName());
+                        ds = new PrefetchedDataSet(DataSetCacheHelper.toDataSet(data, false), ds);
+                    } else {
+                        queryResultCache.put(queryCacheKey, versions, data);
+                        ds = DataSetCacheHelper.toDataSet(data, true);
+                    }
+                } else {
+                    ds = saveCacheData(ds, sql, range);
+                }
 
                 T ret = callback.apply(ds);
 
@@ -398,7 +471,7 @@ public class JdbcTemplateImpl extends AbstractSqlExecutor implements IJdbcTempla
 
         CacheRef cacheRef = sql.getCacheRef();
         if (cacheRef == null)
-            return null;
+            return ds;
 
         ICache<Object, DataSetCacheData> cache = cacheMap.computeIfAbsent(cacheRef.getCacheName(),
                 k -> cacheProvider.getCache(cacheRef.getCacheName()));
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 返回给调用者的代理连接。close()时关闭尚未关闭的Statement，然后把物理连接放回连接池。
+ * 单参数的prepareStatement(sql)会优先使用物理连接上缓存的PreparedStatement。
+ */
+class ConnectionProxyHandler implements InvocationHandler {
+    static final String SQL_STATE_CONNECTION_CLOSED = "08003";
+
+    private final PooledConnection pooled;
+    private final Connection target;
+    private final List<StatementProxyHandler> openStatements = new ArrayList<>(4);
+    private boolean closed;
+
+    ConnectionProxyHandler(PooledConnection pooled) {
+        this.pooled = pooled;
+        this.target = pooled.getConnection();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class)
+            return invokeObjectMethod(proxy, name, args);
+
+        switch (name) {
+            case "close":
+                close();
+                return null;
+            case "isClosed":
+                return closed || target.isClosed();
+            case "unwrap":
+                return unwrap(proxy, target, (Class<?>) args[0]);
+            case "isWrapperFor":
+                return ((Class<?>) args[0]).isInstance(proxy) || target.isWrapperFor((Class<?>) args[0]);
+            default:
+        }
+
+        if (closed)
+            throw new SQLException("nop.err.dao.pool.connection-closed", SQL_STATE_CONNECTION_CLOSED);
+
+        try {
+            PreparedStatementCache cache = pooled.getStatementCache();
+            if (cache != null && "prepareStatement".equals(name) && args.length == 1) {
+                String sql = (String) args[0];
+                PreparedStatement ps = cache.take(sql);
+                if (ps == null)
+                    ps = target.prepareStatement(sql);
+                return wrapStatement((Connection) proxy, ps, sql);
+            }
+
+            Object ret = method.invoke(target, args);
+            if (ret instanceof Statement)
+                return wrapStatement((Connection) proxy, (Statement) ret, null);
+            return ret;
+        } catch (InvocationTargetException e) {
+            throw checkBroken(e.getCause());
+        } catch (SQLException e) {
+            throw checkBroken(e);
+        }
+    }
+
+    static Object invokeObjectMethod(Object proxy, String name, Object[] args) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return proxy.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+    }
+
+    static Object unwrap(Object proxy, Object target, Class<?> iface) throws SQLException {
+        if (iface.isInstance(proxy))
+            return proxy;
+        if (iface.isInstance(target))
+            return target;
+        return ((java.sql.Wrapper) target).unwrap(iface);
+    }
+
+    Throwable checkBroken(Throwable e) {
+        if (e instanceof SQLException) {
+            String sqlState = ((SQLException) e).getSQLState();
+            // 08开头的SQLState表示连接异常
+            if (sqlState != null && sqlState.startsWith("08"))
+                pooled.markBroken();
+        }
+        return e;
+    }
+
+    boolean isBroken() {
+        return pooled.isBroken();
+    }
+
+    PreparedStatementCache getStatementCache() {
+        return pooled.getStatementCache();
+    }
+
+    private Statement wrapStatement(Connection proxy, Statement stmt, String cacheKey) {
+        Class<?> iface = stmt instanceof CallableStatement ? CallableStatement.class
+                : stmt instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        StatementProxyHandler handler = new StatementProxyHandler(this, proxy, stmt, cacheKey);
+        openStatements.add(handler);
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class[]{iface}, handler);
+    }
+
+    void onStatementClosed(StatementProxyHandler handler) {
+        openStatements.remove(handler);
+    }
+
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        if (!openStatements.isEmpty()) {
+            for (StatementProxyHandler handler : new ArrayList<>(openStatements)) {
+                handler.close();
+            }
+            openStatements.clear();
+        }
+        pooled.getPool().release(pooled, false);
+    }
+}
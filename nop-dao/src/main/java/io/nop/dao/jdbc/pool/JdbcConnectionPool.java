@@ -0,0 +1,484 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.pool;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.time.CoreMetrics;
+import io.nop.commons.concurrent.executor.GlobalExecutors;
+import io.nop.commons.pool.IPool;
+import io.nop.commons.pool.PoolAcquireOptions;
+import io.nop.commons.pool.PoolConfig;
+import io.nop.commons.pool.PoolStats;
+import io.nop.dao.metrics.IDaoMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.nop.dao.DaoErrors.ARG_POOL_ID;
+import static io.nop.dao.DaoErrors.ARG_WAITING_COUNT;
+import static io.nop.dao.DaoErrors.ARG_WAIT_TIMEOUT;
+import static io.nop.dao.DaoErrors.ERR_DAO_POOL_ACQUIRE_TIMEOUT;
+import static io.nop.dao.DaoErrors.ERR_DAO_POOL_CLOSED;
+import static io.nop.dao.DaoErrors.ERR_DAO_POOL_EXCEED_MAX_WAIT_COUNT;
+
+/**
+ * 轻量级的JDBC连接池。
+ * <ul>
+ *     <li>借出的连接数由Semaphore控制，有空闲许可时tryAcquire只是一次CAS操作，空闲连接存放在无锁队列中</li>
+ *     <li>空闲连接的状态通过CAS在IDLE/IN_USE/REMOVED之间切换，借出线程与后台检查任务之间不需要加锁</li>
+ *     <li>后台任务定期关闭超时的空闲连接、检查空闲连接的有效性、补足minIdle个连接，
+ *     并对借出时间超过removeAbandonedTimeout的连接打印借出时的调用栈</li>
+ * </ul>
+ */
+public class JdbcConnectionPool implements IPool<PooledConnection> {
+    static final Logger LOG = LoggerFactory.getLogger(JdbcConnectionPool.class);
+
+    static final long DEFAULT_HOUSEKEEPING_INTERVAL = 30000L;
+
+    private final String id;
+    private final DataSource connectionFactory;
+    private final PoolConfig config;
+
+    private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final AtomicInteger creatingCount = new AtomicInteger();
+    private final AtomicInteger activePeak = new AtomicInteger();
+    private volatile long activePeakTime;
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireFailCount = new LongAdder();
+    private final LongAdder releaseCount = new LongAdder();
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder createFailCount = new LongAdder();
+    private final LongAdder destroyCount = new LongAdder();
+    private final LongAdder discardCount = new LongAdder();
+
+    private long maxLifetime;
+    private String validationQuery;
+    private int validationTimeoutSeconds = 5;
+    private int statementCacheSize;
+    private boolean recordBorrowStack = true;
+    private IDaoMetrics daoMetrics;
+
+    private volatile boolean closed;
+    private Future<?> housekeeper;
+
+    public JdbcConnectionPool(String id, DataSource connectionFactory, PoolConfig config) {
+        this.id = id;
+        this.connectionFactory = connectionFactory;
+        this.config = config;
+        this.permits = new Semaphore(Math.max(1, config.getMaxActive()), true);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    public long getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * 物理连接的最长存活时间，超过之后在归还或者空闲检查时关闭。0表示不限制
+     */
+    public void setMaxLifetime(long maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    /**
+     * 为空时使用Connection.isValid检查连接
+     */
+    public void setValidationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * 每个物理连接上缓存的PreparedStatement个数。0表示不缓存
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public boolean isRecordBorrowStack() {
+        return recordBorrowStack;
+    }
+
+    /**
+     * 借出连接时是否记录调用栈，用于连接泄漏时定位借出连接的代码
+     */
+    public void setRecordBorrowStack(boolean recordBorrowStack) {
+        this.recordBorrowStack = recordBorrowStack;
+    }
+
+    public IDaoMetrics getDaoMetrics() {
+        return daoMetrics;
+    }
+
+    public void setDaoMetrics(IDaoMetrics daoMetrics) {
+        this.daoMetrics = daoMetrics;
+    }
+
+    public synchronized void start() {
+        if (housekeeper != null)
+            return;
+
+        if (config.isAutoInitMinIdle())
+            fillMinIdle();
+
+        if (daoMetrics != null)
+            daoMetrics.bindPool(this);
+
+        long interval = config.getTimeBetweenEvictionRunsMillis();
+        if (interval <= 0)
+            interval = DEFAULT_HOUSEKEEPING_INTERVAL;
+        housekeeper = GlobalExecutors.globalTimer().scheduleWithFixedDelay(this::housekeeping,
+                interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public PooledConnection acquire(PoolAcquireOptions options) {
+        checkNotClosed();
+
+        acquireCount.increment();
+        long beginTime = CoreMetrics.nanoTime();
+
+        if (!permits.tryAcquire())
+            waitPermit(beginTime);
+
+        try {
+            PooledConnection conn = borrowIdle();
+            if (conn == null)
+                conn = createConnection();
+
+            conn.onBorrow(recordBorrowStack && config.getRemoveAbandonedTimeout() > 0);
+            activeConnections.add(conn);
+            updatePeak();
+
+            if (daoMetrics != null)
+                daoMetrics.onPoolAcquire(id, CoreMetrics.nanoTimeDiff(beginTime), true);
+            return conn;
+        } catch (Exception e) {
+            permits.release();
+            onAcquireFail(beginTime);
+            throw NopException.adapt(e);
+        }
+    }
+
+    private void waitPermit(long beginTime) {
+        int waiting = waitingCount.incrementAndGet();
+        boolean acquired = false;
+        try {
+            if (config.getMaxWaitCount() > 0 && waiting > config.getMaxWaitCount()) {
+                onAcquireFail(beginTime);
+                throw new NopException(ERR_DAO_POOL_EXCEED_MAX_WAIT_COUNT)
+                        .param(ARG_POOL_ID, id).param(ARG_WAITING_COUNT, waiting);
+            }
+            acquired = permits.tryAcquire(config.getWaitTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onAcquireFail(beginTime);
+            throw NopException.adapt(e);
+        } finally {
+            waitingCount.decrementAndGet();
+        }
+
+        if (!acquired) {
+            onAcquireFail(beginTime);
+            throw new NopException(ERR_DAO_POOL_ACQUIRE_TIMEOUT)
+                    .param(ARG_POOL_ID, id).param(ARG_WAIT_TIMEOUT, config.getWaitTimeout());
+        }
+    }
+
+    private void onAcquireFail(long beginTime) {
+        acquireFailCount.increment();
+        if (daoMetrics != null)
+            daoMetrics.onPoolAcquire(id, CoreMetrics.nanoTimeDiff(beginTime), false);
+    }
+
+    private void updatePeak() {
+        int active = activeConnections.size();
+        int peak = activePeak.get();
+        while (active > peak) {
+            if (activePeak.compareAndSet(peak, active)) {
+                activePeakTime = CoreMetrics.currentTimeMillis();
+                break;
+            }
+            peak = activePeak.get();
+        }
+    }
+
+    private PooledConnection borrowIdle() {
+        do {
+            PooledConnection conn = idleConnections.pollFirst();
+            if (conn == null)
+                return null;
+
+            // 后台任务可能正在检查此连接
+            if (!conn.casState(PooledConnection.STATE_IDLE, PooledConnection.STATE_IN_USE))
+                continue;
+            idleCount.decrementAndGet();
+
+            long now = CoreMetrics.currentTimeMillis();
+            if (conn.isExpired(maxLifetime, now)) {
+                discard(conn);
+                continue;
+            }
+
+            if (needValidate(conn, now) && !conn.checkValid()) {
+                discard(conn);
+                continue;
+            }
+
+            if (!conn.onBorrowFromPool()) {
+                discard(conn);
+                continue;
+            }
+            return conn;
+        } while (true);
+    }
+
+    private boolean needValidate(PooledConnection conn, long now) {
+        if (config.isTestOnBorrow())
+            return true;
+        if (!config.isTestWhileIdle())
+            return false;
+        long interval = config.getTimeBetweenEvictionRunsMillis();
+        if (interval <= 0)
+            interval = DEFAULT_HOUSEKEEPING_INTERVAL;
+        return now - conn.getLastAccessTime() >= interval;
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        creatingCount.incrementAndGet();
+        long beginTime = CoreMetrics.nanoTime();
+        try {
+            Connection conn = connectionFactory.getConnection();
+            PooledConnection pooled;
+            try {
+                pooled = new PooledConnection(this, conn, statementCacheSize);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            totalCount.incrementAndGet();
+            createCount.increment();
+            LOG.debug("nop.dao.pool.create-connection:pool={},usedTime={}", id,
+                    CoreMetrics.nanoToMillis(CoreMetrics.nanoTimeDiff(beginTime)));
+            return pooled;
+        } catch (SQLException e) {
+            createFailCount.increment();
+            LOG.error("nop.dao.pool.create-connection-fail:pool={}", id, e);
+            throw e;
+        } finally {
+            creatingCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void release(PooledConnection conn, boolean shouldDestroy) {
+        if (!activeConnections.remove(conn))
+            return;
+
+        releaseCount.increment();
+        try {
+            if (shouldDestroy || closed || !conn.onReturnToPool()
+                    || conn.isExpired(maxLifetime, CoreMetrics.currentTimeMillis())
+                    || (config.isTestOnReturn() && !conn.checkValid())
+                    || (config.getMaxIdle() > 0 && idleCount.get() >= config.getMaxIdle())) {
+                discard(conn);
+            } else {
+                conn.onReturn();
+                conn.setState(PooledConnection.STATE_IDLE);
+                idleCount.incrementAndGet();
+                if (config.isQueueIdleToTail()) {
+                    idleConnections.offerLast(conn);
+                } else {
+                    idleConnections.offerFirst(conn);
+                }
+            }
+        } finally {
+            // 先放回空闲队列再释放许可，被唤醒的等待线程可以直接拿到空闲连接
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection conn) {
+        discardCount.increment();
+        destroyConnection(conn);
+    }
+
+    private void destroyConnection(PooledConnection conn) {
+        totalCount.decrementAndGet();
+        destroyCount.increment();
+        conn.destroy();
+    }
+
+    void housekeeping() {
+        if (closed)
+            return;
+
+        try {
+            long now = CoreMetrics.currentTimeMillis();
+            checkIdleConnections(now);
+            checkLeaks(now);
+            fillMinIdle();
+        } catch (Exception e) {
+            LOG.error("nop.dao.pool.housekeeping-fail:pool={}", id, e);
+        }
+    }
+
+    private void checkIdleConnections(long now) {
+        long idleTimeout = config.getIdleTimeout();
+        for (PooledConnection conn : idleConnections) {
+            if (conn.getState() != PooledConnection.STATE_IDLE)
+                continue;
+
+            long idleTime = now - conn.getLastAccessTime();
+            boolean evict = conn.isExpired(maxLifetime, now)
+                    || (idleTimeout > 0 && idleTime >= idleTimeout && idleCount.get() > config.getMinIdle());
+            boolean validate = !evict && config.isTestWhileIdle() && needValidate(conn, now);
+            if (!evict && !validate)
+                continue;
+
+            if (!conn.casState(PooledConnection.STATE_IDLE, PooledConnection.STATE_REMOVED))
+                continue;
+            idleConnections.remove(conn);
+            idleCount.decrementAndGet();
+
+            if (evict || !conn.checkValid()) {
+                discard(conn);
+            } else {
+                conn.onReturn();
+                conn.setState(PooledConnection.STATE_IDLE);
+                idleCount.incrementAndGet();
+                idleConnections.offerLast(conn);
+            }
+        }
+    }
+
+    private void checkLeaks(long now) {
+        long threshold = config.getRemoveAbandonedTimeout();
+        if (threshold <= 0)
+            return;
+
+        for (PooledConnection conn : activeConnections) {
+            long usedTime = now - conn.getBorrowTime();
+            if (usedTime >= threshold && conn.markLeakReported()) {
+                LOG.warn("nop.dao.pool.connection-leak:pool={},usedTime={}", id, usedTime, conn.getBorrowStack());
+                if (daoMetrics != null)
+                    daoMetrics.onPoolConnectionLeak(id);
+            }
+        }
+    }
+
+    private void fillMinIdle() {
+        while (!closed && idleCount.get() < config.getMinIdle()
+                && totalCount.get() + creatingCount.get() < config.getMaxActive()) {
+            try {
+                PooledConnection conn = createConnection();
+                conn.onReturn();
+                conn.setState(PooledConnection.STATE_IDLE);
+                idleCount.incrementAndGet();
+                idleConnections.offerLast(conn);
+            } catch (SQLException e) {
+                break;
+            }
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed)
+            throw new NopException(ERR_DAO_POOL_CLOSED).param(ARG_POOL_ID, id);
+    }
+
+    @Override
+    public PoolStats stats() {
+        PoolStats stats = new PoolStats();
+        stats.setAcquireCount(acquireCount.sum());
+        stats.setAcquireFailCount(acquireFailCount.sum());
+        stats.setReleaseCount(releaseCount.sum());
+        stats.setCreateCount(createCount.sum());
+        stats.setCreateFailCount(createFailCount.sum());
+        stats.setDestroyCount(destroyCount.sum());
+        stats.setDiscardCount(discardCount.sum());
+        stats.setActiveCount(activeConnections.size());
+        stats.setIdleCount(idleCount.get());
+        stats.setWaitingCount(waitingCount.get());
+        stats.setCreatingCount(creatingCount.get());
+        stats.setActivePeak(activePeak.get());
+        stats.setActivePeakTime(activePeakTime);
+        return stats;
+    }
+
+    /**
+     * 关闭所有空闲连接。正在使用的连接在归还时关闭
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            if (housekeeper != null)
+                housekeeper.cancel(false);
+        }
+
+        do {
+            PooledConnection conn = idleConnections.pollFirst();
+            if (conn == null)
+                break;
+            if (conn.casState(PooledConnection.STATE_IDLE, PooledConnection.STATE_REMOVED)) {
+                idleCount.decrementAndGet();
+                destroyConnection(conn);
+            }
+        } while (true);
+        LOG.info("nop.dao.pool.closed:pool={}", id);
+    }
+}
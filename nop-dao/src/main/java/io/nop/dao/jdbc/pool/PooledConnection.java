@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.pool;
+
+import io.nop.api.core.time.CoreMetrics;
+import io.nop.commons.pool.IPooledObject;
+import io.nop.commons.util.IoHelper;
+import io.nop.commons.util.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接池中的物理连接。通过newProxy()返回给调用者的是代理连接，代理连接的close()会把物理连接放回连接池。
+ */
+public class PooledConnection implements IPooledObject {
+    static final Logger LOG = LoggerFactory.getLogger(PooledConnection.class);
+
+    static final int STATE_IDLE = 0;
+    static final int STATE_IN_USE = 1;
+    static final int STATE_REMOVED = 2;
+
+    private final JdbcConnectionPool pool;
+    private final Connection connection;
+    private final PreparedStatementCache statementCache;
+    private final long createTime;
+
+    private final boolean defaultAutoCommit;
+    private final boolean defaultReadOnly;
+    private final int defaultIsolation;
+
+    private final AtomicInteger state = new AtomicInteger(STATE_IN_USE);
+
+    private volatile long lastAccessTime;
+    private volatile long borrowTime;
+    private volatile Throwable borrowStack;
+    private volatile boolean leakReported;
+
+    /**
+     * 执行过程中出现连接级别的错误，不能再被复用
+     */
+    private volatile boolean broken;
+
+    PooledConnection(JdbcConnectionPool pool, Connection connection, int statementCacheSize) throws SQLException {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCacheSize > 0 ? new PreparedStatementCache(statementCacheSize) : null;
+        this.createTime = CoreMetrics.currentTimeMillis();
+        this.lastAccessTime = createTime;
+        this.defaultAutoCommit = connection.getAutoCommit();
+        this.defaultReadOnly = connection.isReadOnly();
+        this.defaultIsolation = connection.getTransactionIsolation();
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public JdbcConnectionPool getPool() {
+        return pool;
+    }
+
+    PreparedStatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public long getBorrowTime() {
+        return borrowTime;
+    }
+
+    /**
+     * 开启泄漏检测时记录借出连接时的调用栈
+     */
+    public Throwable getBorrowStack() {
+        return borrowStack;
+    }
+
+    public boolean isBroken() {
+        return broken;
+    }
+
+    void markBroken() {
+        this.broken = true;
+    }
+
+    boolean casState(int expected, int newState) {
+        return state.compareAndSet(expected, newState);
+    }
+
+    int getState() {
+        return state.get();
+    }
+
+    void setState(int newState) {
+        state.set(newState);
+    }
+
+    void onBorrow(boolean recordStack) {
+        this.borrowTime = CoreMetrics.currentTimeMillis();
+        this.borrowStack = recordStack ? new Throwable("nop.dao.pool.borrow-stack") : null;
+        this.leakReported = false;
+    }
+
+    void onReturn() {
+        this.lastAccessTime = CoreMetrics.currentTimeMillis();
+        this.borrowStack = null;
+    }
+
+    boolean markLeakReported() {
+        if (leakReported)
+            return false;
+        leakReported = true;
+        return true;
+    }
+
+    boolean isExpired(long maxLifetime, long now) {
+        return maxLifetime > 0 && now - createTime >= maxLifetime;
+    }
+
+    Connection newProxy() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class[]{Connection.class}, new ConnectionProxyHandler(this));
+    }
+
+    /**
+     * 放回连接池时回滚未提交的事务，并恢复autoCommit/readOnly/isolation等连接属性
+     */
+    @Override
+    public boolean onReturnToPool() {
+        if (broken)
+            return false;
+        try {
+            if (connection.isClosed())
+                return false;
+
+            if (!connection.getAutoCommit())
+                connection.rollback();
+
+            if (connection.getAutoCommit() != defaultAutoCommit)
+                connection.setAutoCommit(defaultAutoCommit);
+            if (connection.isReadOnly() != defaultReadOnly)
+                connection.setReadOnly(defaultReadOnly);
+            if (connection.getTransactionIsolation() != defaultIsolation)
+                connection.setTransactionIsolation(defaultIsolation);
+            connection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOG.info("nop.dao.pool.reset-connection-fail:pool={}", pool.getId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean checkValid() {
+        if (broken)
+            return false;
+
+        String validationQuery = pool.getValidationQuery();
+        try {
+            if (StringHelper.isEmpty(validationQuery))
+                return connection.isValid(pool.getValidationTimeoutSeconds());
+
+            try (Statement st = connection.createStatement()) {
+                st.setQueryTimeout(pool.getValidationTimeoutSeconds());
+                st.execute(validationQuery);
+            }
+            return true;
+        } catch (SQLException e) {
+            LOG.info("nop.dao.pool.validate-connection-fail:pool={}", pool.getId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        state.set(STATE_REMOVED);
+        if (statementCache != null)
+            statementCache.closeAll();
+        IoHelper.safeCloseObject(connection);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.pool;
+
+import io.nop.dao.jdbc.datasource.DataSourceConfig;
+import io.nop.dao.jdbc.impl.JdbcFactory;
+import io.nop.dao.metrics.IDaoMetrics;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * 基于JdbcConnectionPool的DataSource，用于命令行工具、批处理任务等不希望引入HikariCP的轻量级场景。
+ * 一般通过JdbcFactory.newPooledDataSource(config)创建，缺省配置下不存在HikariCP时作为nopDataSource
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+    private final JdbcConnectionPool pool;
+
+    public PooledDataSource(JdbcConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public PooledDataSource(DataSourceConfig config, IDaoMetrics daoMetrics) {
+        this(JdbcFactory.newConnectionPool(config, daoMetrics));
+    }
+
+    public JdbcConnectionPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pool.acquire(null).newProxy();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getConnection(username,password)");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        throw new SQLException("DataSource of type [" + getClass().getName() +
+                "] cannot be unwrapped as [" + iface.getName() + "]");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.pool;
+
+import io.nop.commons.util.IoHelper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * 每个物理连接上缓存的空闲PreparedStatement，按照SQL文本索引，超过容量时关闭最久未使用的语句。
+ * 语句被借出时从缓存中移除，同一条SQL在同一个连接上并发使用时，第二次会创建新的语句。
+ */
+class PreparedStatementCache {
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    PreparedStatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    synchronized PreparedStatement take(String sql) {
+        return statements.remove(sql);
+    }
+
+    /**
+     * 语句使用完毕后重置状态并放回缓存。无法重置或者已经缓存了同样SQL的语句时直接关闭。
+     */
+    void offer(String sql, PreparedStatement ps) {
+        if (!resetStatement(ps)) {
+            IoHelper.safeCloseObject(ps);
+            return;
+        }
+
+        PreparedStatement evicted = null;
+        synchronized (this) {
+            if (statements.containsKey(sql)) {
+                evicted = ps;
+            } else {
+                statements.put(sql, ps);
+                if (statements.size() > maxSize) {
+                    Iterator<PreparedStatement> it = statements.values().iterator();
+                    evicted = it.next();
+                    it.remove();
+                }
+            }
+        }
+        if (evicted != null)
+            IoHelper.safeCloseObject(evicted);
+    }
+
+    /**
+     * JdbcTemplate会设置maxRows/queryTimeout/fetchSize等属性，复用之前需要恢复到缺省值。
+     * 批量执行失败时语句中可能还残留已经addBatch的参数，必须清除，否则会在下一次executeBatch时被执行
+     */
+    static boolean resetStatement(PreparedStatement ps) {
+        try {
+            if (ps.isClosed())
+                return false;
+            ps.clearBatch();
+            ps.clearParameters();
+            ps.clearWarnings();
+            ps.setMaxRows(0);
+            ps.setQueryTimeout(0);
+            ps.setFetchSize(0);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    void closeAll() {
+        List<PreparedStatement> list;
+        synchronized (this) {
+            list = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        for (PreparedStatement ps : list) {
+            IoHelper.safeCloseObject(ps);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.pool;
+
+import io.nop.commons.util.IoHelper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 代理Statement。cacheKey非空时close()不会真正关闭语句，而是放回物理连接的语句缓存
+ */
+class StatementProxyHandler implements InvocationHandler {
+    private final ConnectionProxyHandler owner;
+    private final Connection connectionProxy;
+    private final Statement target;
+    private final String cacheKey;
+    private boolean closed;
+
+    StatementProxyHandler(ConnectionProxyHandler owner, Connection connectionProxy, Statement target,
+                          String cacheKey) {
+        this.owner = owner;
+        this.connectionProxy = connectionProxy;
+        this.target = target;
+        this.cacheKey = cacheKey;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class)
+            return ConnectionProxyHandler.invokeObjectMethod(proxy, name, args);
+
+        switch (name) {
+            case "close":
+                owner.onStatementClosed(this);
+                close();
+                return null;
+            case "isClosed":
+                return closed || target.isClosed();
+            case "getConnection":
+                return connectionProxy;
+            case "unwrap":
+                return ConnectionProxyHandler.unwrap(proxy, target, (Class<?>) args[0]);
+            case "isWrapperFor":
+                return ((Class<?>) args[0]).isInstance(proxy) || target.isWrapperFor((Class<?>) args[0]);
+            default:
+        }
+
+        if (closed)
+            throw new SQLException("nop.err.dao.pool.statement-closed");
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw owner.checkBroken(e.getCause());
+        }
+    }
+
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        if (cacheKey != null && !owner.isBroken()) {
+            owner.getStatementCache().offer(cacheKey, (PreparedStatement) target);
+        } else {
+            IoHelper.safeCloseObject(target);
+        }
+    }
+}
@@ -8,12 +8,17 @@
 package io.nop.dao.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.nop.api.core.beans.LongRangeBean;
 import io.nop.commons.metrics.GlobalMeterRegistry;
+import io.nop.commons.pool.IPool;
 import io.nop.core.lang.sql.SQL;
 
+import java.util.concurrent.TimeUnit;
+
 public class DaoMetricsImpl implements IDaoMetrics {
     private final MeterRegistry registry;
     private final String prefix;
@@ -26,9 +31,11 @@ public class DaoMetricsImpl implements IDaoMetrics {
     private final Timer queryTimer;
     private final Timer updateTimer;
     private final Timer batchUpdateTimer;
+    private final DistributionSummary batchSize;
 
     private final Counter rowReadCount;
     private final Counter rowUpdateCount;
+    private final Counter queryCacheHits;
 
     public DaoMetricsImpl() {
         this(GlobalMeterRegistry.instance(), null);
@@ -46,9 +53,12 @@ public class DaoMetricsImpl implements IDaoMetrics {
         queryTimer = registry.timer("nop.dao.query.timer");
         updateTimer = registry.timer("nop.dao.update.timer");
         batchUpdateTimer = registry.timer("nop.dao.batch-update.timer");
+        batchSize = DistributionSummary.builder("nop.dao.batch-update.size")
+                .publishPercentileHistogram().register(registry);
 
         rowReadCount = registry.counter("nop.dao.rows.read-count");
         rowUpdateCount = registry.counter("nop.dao.rows.update-count");
+        queryCacheHits = registry.counter("nop.dao.query.cache-hits");
     }
 
     public MeterRegistry getRegistry() {
@@ -80,6 +90,11 @@ public class DaoMetricsImpl implements IDaoMetrics {
         connectionsObtained.increment();
     }
 
+    @Override
+    public void onQueryCacheHit(SQL sql) {
+        queryCacheHits.increment();
+    }
+
     @Override
     public Object beginQuery(SQL sql, LongRangeBean range) {
         return Timer.start(registry);
@@ -115,4 +130,30 @@ public class DaoMetricsImpl implements IDaoMetrics {
         if (count > 0)
             this.rowUpdateCount.increment(count);
     }
+
+    @Override
+    public void onBatchSize(String sql, int batchSize) {
+        this.batchSize.record(batchSize);
+    }
+
+    @Override
+    public void bindPool(IPool<?> pool) {
+        Gauge.builder("nop.dao.pool.active", pool, p -> p.stats().getActiveCount())
+                .tag("pool", pool.getId()).register(registry);
+        Gauge.builder("nop.dao.pool.idle", pool, p -> p.stats().getIdleCount())
+                .tag("pool", pool.getId()).register(registry);
+        Gauge.builder("nop.dao.pool.waiting", pool, p -> p.stats().getWaitingCount())
+                .tag("pool", pool.getId()).register(registry);
+    }
+
+    @Override
+    public void onPoolAcquire(String poolId, long waitNanos, boolean success) {
+        Timer.builder("nop.dao.pool.acquire").tag("pool", poolId).tag("success", String.valueOf(success))
+                .register(registry).record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onPoolConnectionLeak(String poolId) {
+        registry.counter("nop.dao.pool.leaks", "pool", poolId).increment();
+    }
 }
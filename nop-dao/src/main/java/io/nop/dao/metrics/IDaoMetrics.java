@@ -8,6 +8,7 @@
 package io.nop.dao.metrics;
 
 import io.nop.api.core.beans.LongRangeBean;
+import io.nop.commons.pool.IPool;
 import io.nop.core.lang.sql.SQL;
 import io.nop.dao.txn.ITransactionMetrics;
 
@@ -33,10 +34,44 @@ public interface IDaoMetrics extends ITransactionMetrics {
 
     void endExecuteUpdate(Object meter, long updateCount);
 
+    /**
+     * Counter: nop.dao.query.cache-hits
+     */
+    default void onQueryCacheHit(SQL sql) {
+    }
+
     /**
      * Counter: nop.dao.query.batch-updates
      */
     Object beginBatchUpdate(String sql);
 
     void endBatchUpdate(Object meter, long count);
+
+    /**
+     * Histogram: nop.dao.batch-update.size
+     * 每次提交到数据库的批量语句条数。没有使用executeBatch时记录为1
+     */
+    default void onBatchSize(String sql, int batchSize) {
+    }
+
+    /**
+     * Gauge: nop.dao.pool.active, nop.dao.pool.idle, nop.dao.pool.waiting
+     * 内置连接池启动时调用，注册连接池状态
+     */
+    default void bindPool(IPool<?> pool) {
+    }
+
+    /**
+     * Timer: nop.dao.pool.acquire
+     * 从内置连接池获取连接的等待时间
+     */
+    default void onPoolAcquire(String poolId, long waitNanos, boolean success) {
+    }
+
+    /**
+     * Counter: nop.dao.pool.leaks
+     * 连接被借出的时间超过阈值，可能存在连接泄漏
+     */
+    default void onPoolConnectionLeak(String poolId) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc;
+
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.sql.SQL;
+import io.nop.dao.dialect.DialectManager;
+import io.nop.dao.dialect.IDialect;
+import io.nop.dao.dialect.bulk.IBulkInsertHandler;
+import io.nop.dao.dialect.impl.DialectImpl;
+import io.nop.dao.dialect.model.DialectModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestJdbcBatcher extends JdbcTestCase {
+
+    SQL buildInsert(int id) {
+        return buildInsert(id, "c" + id);
+    }
+
+    SQL buildInsert(int id, String c) {
+        return SQL.begin().name("insert:my_entity").insertInto("my_entity")
+                .append("(id, a, b, c) values (").param(id).append(',').param(id * 10)
+                .append(',').param(id * 100).append(',').param(c).append(")").end();
+    }
+
+    @Test
+    public void testBuildBulkInsert() {
+        IBulkInsertHandler handler = getDialect().getBulkInsertHandler();
+        assertNotNull(handler);
+
+        List<SQL> inserts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            inserts.add(buildInsert(i + 2));
+        }
+        SQL sql = handler.buildBulkInsert(getDialect(), inserts);
+        assertEquals(12, sql.getMarkers().size());
+        assertEquals(16383, handler.getMaxRowCount(getDialect(), inserts.get(0)));
+
+        SQL upsert = SQL.begin().sql("insert into my_entity(id) values(?) on conflict do nothing", 1).end();
+        assertNull(handler.buildBulkInsert(getDialect(), List.of(upsert, upsert)));
+    }
+
+    @Test
+    public void testBulkInsert() {
+        AtomicInteger updateCount = new AtomicInteger();
+        int count = insertRows(getDialect(), 10, updateCount);
+        assertEquals(10, count);
+        assertEquals(10, updateCount.get());
+        assertEquals(11L, jdbc().findLong(new SQL("select count(*) from my_entity"), 0L));
+        assertEquals(500L, jdbc().findLong(new SQL("select sum(b) from my_entity where id in (2, 3)"), 0L));
+    }
+
+    @Test
+    public void testBulkInsertSplitByParamCount() {
+        // 每行4个参数，限制为10个参数时每条语句最多包含2行
+        DialectModel model = getDialect().getDialectModel().cloneInstance();
+        model.setMaxParamCount(10);
+        IDialect dialect = new DialectImpl(model);
+        assertEquals(2, dialect.getBulkInsertHandler().getMaxRowCount(dialect, buildInsert(2)));
+
+        AtomicInteger updateCount = new AtomicInteger();
+        insertRows(dialect, 7, updateCount);
+        assertEquals(7, updateCount.get());
+        assertEquals(8L, jdbc().findLong(new SQL("select count(*) from my_entity"), 0L));
+    }
+
+    @Test
+    public void testBulkInsertSplitByRowCount() {
+        // 参数个数限制允许的行数更多时，以maxRowsPerInsert为准
+        DialectModel model = getDialect().getDialectModel().cloneInstance();
+        model.setMaxRowsPerInsert(3);
+        IDialect dialect = new DialectImpl(model);
+        assertEquals(3, dialect.getBulkInsertHandler().getMaxRowCount(dialect, buildInsert(2)));
+
+        model.setMaxParamCount(10);
+        assertEquals(2, dialect.getBulkInsertHandler().getMaxRowCount(dialect, buildInsert(2)));
+
+        model.setMaxParamCount(null);
+        AtomicInteger updateCount = new AtomicInteger();
+        insertRows(dialect, 7, updateCount);
+        assertEquals(7, updateCount.get());
+        assertEquals(8L, jdbc().findLong(new SQL("select count(*) from my_entity"), 0L));
+    }
+
+    @Test
+    public void testSqlServerMaxRowsPerInsert() {
+        IDialect dialect = DialectManager.instance().getDialect("mssql");
+        assertEquals(1000, dialect.getMaxRowsPerInsert());
+        SQL insert = SQL.begin().sql("insert into my_entity(id) values(?)", 1).end();
+        assertEquals(1000, dialect.getBulkInsertHandler().getMaxRowCount(dialect, insert));
+    }
+
+    @Test
+    public void testBulkInsertRollbackInForceTxn() {
+        DialectModel model = getDialect().getDialectModel().cloneInstance();
+        model.setMaxParamCount(10);
+        IDialect dialect = new DialectImpl(model);
+
+        // 每组2行: [2,3], [4,6], [5]。id=6的c字段超长，第二组失败导致事务回滚，第一组的结果也被丢弃
+        int[] ids = new int[]{2, 3, 4, 6, 5};
+        List<Integer> succeeded = new ArrayList<>();
+        List<Integer> failed = new ArrayList<>();
+        jdbc().runWithConnection(new SQL("select 1"), conn -> {
+            JdbcBatcher batcher = new JdbcBatcher(conn, dialect, null);
+            batcher.setForceTxn(true);
+            batcher.setStopOnError(false);
+            for (int id : ids) {
+                String c = id == 6 ? StringHelper.repeat("c", 200) : "c" + id;
+                batcher.addInsertCommand(buildInsert(id, c), (ret, err) -> {
+                    if (err == null) {
+                        succeeded.add(id);
+                    } else {
+                        failed.add(id);
+                    }
+                });
+            }
+            batcher.flush();
+            return null;
+        });
+
+        assertEquals(List.of(5), succeeded);
+        assertEquals(List.of(4, 6, 2, 3), failed);
+        assertEquals(2L, jdbc().findLong(new SQL("select count(*) from my_entity"), 0L));
+    }
+
+    int insertRows(IDialect dialect, int rowCount, AtomicInteger updateCount) {
+        AtomicInteger callbackCount = new AtomicInteger();
+        jdbc().runWithConnection(new SQL("select 1"), conn -> {
+            JdbcBatcher batcher = new JdbcBatcher(conn, dialect, null);
+            for (int i = 0; i < rowCount; i++) {
+                batcher.addInsertCommand(buildInsert(i + 2), (ret, err) -> {
+                    callbackCount.incrementAndGet();
+                    if (err == null)
+                        updateCount.addAndGet(ret);
+                });
+            }
+            batcher.flush();
+            return null;
+        });
+        return callbackCount.get();
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc;
+
+import io.nop.core.lang.sql.SQL;
+import io.nop.dao.jdbc.cache.QueryResultCache;
+import io.nop.dao.jdbc.impl.JdbcTemplateImpl;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestQueryResultCache extends JdbcTestCase {
+    QueryResultCache queryResultCache;
+
+    @Override
+    protected IJdbcTemplate createJdbcTemplate() {
+        JdbcTemplateImpl jdbc = (JdbcTemplateImpl) super.createJdbcTemplate();
+        queryResultCache = new QueryResultCache(100, 0);
+        jdbc.setQueryResultCache(queryResultCache);
+        return jdbc;
+    }
+
+    SQL query() {
+        return SQL.begin().sql("select a from my_entity where id=?", "1").useQueryCache()
+                .tableNames(Collections.singleton("MY_ENTITY")).end();
+    }
+
+    Object findA() {
+        return jdbc().findFirst(query());
+    }
+
+    /**
+     * 直接通过JDBC连接修改数据，不会触发缓存失效
+     */
+    void updateWithoutNotify(int a) {
+        jdbc().runWithConnection(new SQL("update"), conn -> {
+            try (Statement st = conn.createStatement()) {
+                return st.executeUpdate("update my_entity set a=" + a);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidateByTable() {
+        assertEquals("3", findA().toString());
+
+        updateWithoutNotify(5);
+        assertEquals("3", findA().toString());
+
+        jdbc().executeUpdate(SQL.begin().sql("update my_entity set c='x'")
+                .tableNames(Set.of("other_table")).end());
+        assertEquals("3", findA().toString());
+
+        jdbc().executeUpdate(SQL.begin().sql("update my_entity set a=6")
+                .tableNames(Set.of("my_entity")).end());
+        assertEquals("6", findA().toString());
+    }
+
+    @Test
+    public void testInvalidateUnknownTable() {
+        assertEquals("3", findA().toString());
+
+        updateWithoutNotify(5);
+        jdbc().executeUpdate(new SQL("update my_entity set c='x'"));
+        assertEquals("5", findA().toString());
+    }
+
+    @Test
+    public void testQueryWithoutTableNames() {
+        SQL sql = SQL.begin().sql("select a from my_entity where id=?", "1").useQueryCache().end();
+        assertEquals("3", jdbc().findFirst(sql).toString());
+
+        updateWithoutNotify(5);
+        assertEquals("3", jdbc().findFirst(sql).toString());
+
+        // 查询依赖的表未知，任何表的修改都会导致缓存失效
+        jdbc().executeUpdate(SQL.begin().sql("update my_entity set c='x'")
+                .tableNames(Set.of("other_table")).end());
+        assertEquals("5", jdbc().findFirst(sql).toString());
+    }
+
+    @Test
+    public void testSkipLargeResult() {
+        queryResultCache.setMaxRows(2);
+        for (int i = 2; i <= 4; i++) {
+            jdbc().executeUpdate(new SQL("insert into my_entity(id,a) values(" + i + "," + i + ")"));
+        }
+
+        SQL sql = SQL.begin().sql("select a from my_entity order by id").useQueryCache()
+                .tableNames(Collections.singleton("my_entity")).end();
+        List<Object> list = jdbc().findAll(sql);
+        assertEquals(4, list.size());
+        assertEquals(0, queryResultCache.estimatedSize());
+
+        SQL small = SQL.begin().sql("select a from my_entity where id<=2 order by id").useQueryCache()
+                .tableNames(Collections.singleton("my_entity")).end();
+        assertEquals(2, jdbc().findAll(small).size());
+        assertEquals(1, queryResultCache.estimatedSize());
+    }
+
+    @Test
+    public void testNoCacheInTransaction() {
+        assertEquals("3", findA().toString());
+        updateWithoutNotify(5);
+
+        txn().runInTransaction(txn -> {
+            assertEquals("5", findA().toString());
+            jdbc().executeUpdate(SQL.begin().sql("update my_entity set a=7")
+                    .tableNames(Set.of("my_entity")).end());
+            assertEquals("7", findA().toString());
+            return null;
+        });
+        assertEquals("7", findA().toString());
+    }
+}
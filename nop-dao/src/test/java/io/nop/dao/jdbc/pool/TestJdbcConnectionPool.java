@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dao.jdbc.pool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.ioc.BeanContainerStartMode;
+import io.nop.commons.lang.IClassLoader;
+import io.nop.commons.util.ClassHelper;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.initialize.CoreInitialization;
+import io.nop.core.lang.sql.SQL;
+import io.nop.core.resource.VirtualFileSystem;
+import io.nop.core.unittest.BaseTestCase;
+import io.nop.dao.DaoErrors;
+import io.nop.dao.jdbc.datasource.DataSourceConfig;
+import io.nop.dao.jdbc.impl.JdbcFactory;
+import io.nop.dao.metrics.DaoMetricsImpl;
+import io.nop.ioc.api.IBeanContainerImplementor;
+import io.nop.ioc.loader.BeanContainerBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestJdbcConnectionPool extends BaseTestCase {
+    private PooledDataSource dataSource;
+
+    @BeforeAll
+    public static void init() {
+        CoreInitialization.initialize();
+    }
+
+    @AfterAll
+    public static void destroy() {
+        CoreInitialization.destroy();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (dataSource != null)
+            dataSource.close();
+    }
+
+    DataSourceConfig newConfig(int maxSize) {
+        DataSourceConfig config = new DataSourceConfig();
+        config.setName("test");
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl("jdbc:h2:mem:" + StringHelper.generateUUID());
+        config.setMaxSize(maxSize);
+        config.setConnectionTimeout(Duration.ofMillis(200));
+        return config;
+    }
+
+    PooledDataSource newDataSource(DataSourceConfig config) {
+        dataSource = JdbcFactory.newPooledDataSource(config, null);
+        return dataSource;
+    }
+
+    @Test
+    public void testReuseConnection() throws Exception {
+        JdbcConnectionPool pool = newDataSource(newConfig(4)).getPool();
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().execute("create table my_entity(id integer, name varchar(100))");
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().execute("insert into my_entity(id, name) values(1, 'a')");
+        }
+
+        assertEquals(1L, JdbcFactory.newJdbcTemplateFor(dataSource)
+                .findLong(new SQL("select count(*) from my_entity"), 0L));
+
+        assertEquals(1, pool.stats().getCreateCount());
+        assertEquals(pool.stats().getAcquireCount(), pool.stats().getReleaseCount());
+        assertEquals(0, pool.stats().getActiveCount());
+        assertEquals(1, pool.stats().getIdleCount());
+    }
+
+    @Test
+    public void testStatementCache() throws Exception {
+        newDataSource(newConfig(1));
+
+        PreparedStatement ps1;
+        try (Connection conn = dataSource.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement("select ?");
+            ps.setInt(1, 3);
+            ps.setMaxRows(1);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(3, rs.getInt(1));
+            }
+            ps1 = ps.unwrap(org.h2.jdbc.JdbcPreparedStatement.class);
+            ps.close();
+            assertTrue(ps.isClosed());
+            assertFalse(ps1.isClosed());
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement("select ?");
+            assertSame(ps1, ps.unwrap(org.h2.jdbc.JdbcPreparedStatement.class));
+            assertEquals(0, ps.getMaxRows());
+
+            // 同一条SQL同时使用时创建新的语句
+            PreparedStatement ps2 = conn.prepareStatement("select ?");
+            assertNotSame(ps1, ps2.unwrap(org.h2.jdbc.JdbcPreparedStatement.class));
+            assertSame(conn, ps2.getConnection());
+        }
+    }
+
+    @Test
+    public void testClearBatchOnReturn() throws Exception {
+        newDataSource(newConfig(1));
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().execute("create table my_entity(id integer)");
+        }
+
+        // 模拟批量执行中途失败，语句没有executeBatch就随连接一起关闭
+        PreparedStatement ps1;
+        try (Connection conn = dataSource.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement("insert into my_entity(id) values(?)");
+            ps.setInt(1, 1);
+            ps.addBatch();
+            ps.setInt(1, 2);
+            ps.addBatch();
+            ps1 = ps.unwrap(org.h2.jdbc.JdbcPreparedStatement.class);
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement("insert into my_entity(id) values(?)");
+            assertSame(ps1, ps.unwrap(org.h2.jdbc.JdbcPreparedStatement.class));
+            ps.setInt(1, 3);
+            ps.addBatch();
+            assertEquals(1, ps.executeBatch().length);
+        }
+
+        assertEquals(1L, JdbcFactory.newJdbcTemplateFor(dataSource)
+                .findLong(new SQL("select count(*) from my_entity"), 0L));
+    }
+
+    @Test
+    public void testLogWriter() throws Exception {
+        newDataSource(newConfig(1));
+        assertNull(dataSource.getLogWriter());
+        dataSource.setLogWriter(new PrintWriter(new StringWriter()));
+        assertNull(dataSource.getLogWriter());
+    }
+
+    @Test
+    public void testDefaultBeanWithoutHikari() {
+        setTestConfig("nop.datasource.driver-class-name", "org.h2.Driver");
+        setTestConfig("nop.datasource.jdbc-url", "jdbc:h2:mem:" + StringHelper.generateUUID());
+        setTestConfig("nop.datasource.username", "sa");
+        setTestConfig("nop.datasource.min-size", 0);
+
+        // 不存在HikariCP时nopDataSource使用内置连接池
+        IClassLoader classLoader = className -> {
+            if (className.startsWith("com.zaxxer.hikari."))
+                throw new ClassNotFoundException(className);
+            return ClassHelper.getSafeClassLoader().loadClass(className);
+        };
+        IBeanContainerImplementor container = new BeanContainerBuilder(classLoader, null)
+                .startMode(BeanContainerStartMode.ALL_LAZY)
+                .addResource(VirtualFileSystem.instance().getResource("/nop/dao/beans/dao-defaults.beans.xml"))
+                .build("test");
+        container.start();
+        try {
+            dataSource = (PooledDataSource) container.getBean("nopDataSource");
+            assertEquals(1L, JdbcFactory.newJdbcTemplateFor(dataSource)
+                    .findLong(new SQL("select 1"), 0L));
+        } finally {
+            container.stop();
+        }
+        assertEquals(0, dataSource.getPool().stats().getActiveCount());
+    }
+
+    @Test
+    public void testResetConnectionOnReturn() throws Exception {
+        newDataSource(newConfig(1));
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().execute("create table my_entity(id integer)");
+        }
+
+        Connection conn = dataSource.getConnection();
+        conn.setAutoCommit(false);
+        Statement st = conn.createStatement();
+        st.execute("insert into my_entity(id) values(1)");
+        conn.close();
+
+        // 未关闭的语句随连接一起关闭，未提交的事务被回滚
+        assertTrue(st.isClosed());
+        assertTrue(conn.isClosed());
+
+        try (Connection conn2 = dataSource.getConnection()) {
+            assertTrue(conn2.getAutoCommit());
+            try (ResultSet rs = conn2.createStatement().executeQuery("select count(*) from my_entity")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testAcquireTimeout() throws Exception {
+        JdbcConnectionPool pool = newDataSource(newConfig(1)).getPool();
+
+        try (Connection conn = dataSource.getConnection()) {
+            NopException e = assertThrows(NopException.class, () -> dataSource.getConnection());
+            assertEquals(DaoErrors.ERR_DAO_POOL_ACQUIRE_TIMEOUT.getErrorCode(), e.getErrorCode());
+        }
+        assertEquals(1, pool.stats().getAcquireFailCount());
+
+        dataSource.getConnection().close();
+        assertEquals(1, pool.stats().getCreateCount());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        DataSourceConfig config = newConfig(2);
+        config.setMetricsEnabled(true);
+        config.setLeakDetectionThreshold(Duration.ofMillis(1));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        dataSource = JdbcFactory.newPooledDataSource(config, new DaoMetricsImpl(registry, null));
+        JdbcConnectionPool pool = dataSource.getPool();
+
+        try (Connection conn = dataSource.getConnection()) {
+            Thread.sleep(10);
+            pool.housekeeping();
+            pool.housekeeping();
+            assertEquals(1.0, registry.get("nop.dao.pool.active").gauge().value());
+        }
+
+        assertEquals(1.0, registry.get("nop.dao.pool.leaks").counter().count());
+        assertEquals(1, registry.get("nop.dao.pool.acquire").timer().count());
+    }
+
+    @Test
+    public void testConcurrentAcquire() throws Exception {
+        DataSourceConfig config = newConfig(4);
+        config.setConnectionTimeout(Duration.ofSeconds(10));
+        JdbcConnectionPool pool = newDataSource(config).getPool();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        try (Connection conn = dataSource.getConnection();
+                             PreparedStatement ps = conn.prepareStatement("select 1")) {
+                            ps.executeQuery().close();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(400, pool.stats().getAcquireCount());
+        assertEquals(400, pool.stats().getReleaseCount());
+        assertEquals(0, pool.stats().getActiveCount());
+        assertTrue(pool.stats().getActivePeak() <= 4);
+        assertTrue(pool.stats().getCreateCount() <= 4);
+    }
+}
@@ -30,6 +30,27 @@ public class DataSetCacheHelper {
         return cacheData;
     }
 
+    /**
+     * 最多读取maxRows+1条记录。返回的记录数超过maxRows时表示结果集太大，数据集中还有剩余记录没有读取
+     *
+     * @param dataSet 数据集
+     * @param maxRows 小于等于0表示不限制
+     */
+    public static DataSetCacheData toCacheData(IDataSet dataSet, int maxRows) {
+        if (maxRows <= 0)
+            return toCacheData(dataSet);
+
+        DataSetCacheData cacheData = new DataSetCacheData();
+        cacheData.setMeta(BaseDataSetMeta.fromMeta(dataSet.getMeta()));
+
+        List<Object[]> objects = new ArrayList<>();
+        while (objects.size() <= maxRows && dataSet.hasNext()) {
+            objects.add(dataSet.next().getFieldValues());
+        }
+        cacheData.setRecords(objects);
+        return cacheData;
+    }
+
     /**
      * 根据缓存数据构造DataSet对象
      *
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.dataset.impl;
+
+import io.nop.dataset.IDataRow;
+import io.nop.dataset.IDataSet;
+import io.nop.dataset.IDataSetMeta;
+
+import java.io.IOException;
+
+/**
+ * 先返回已经预读出的记录，然后继续读取原数据集中剩余的记录
+ */
+public class PrefetchedDataSet implements IDataSet {
+    private final IDataSet prefetched;
+    private final IDataSet dataSet;
+    private long readCount;
+
+    public PrefetchedDataSet(IDataSet prefetched, IDataSet dataSet) {
+        this.prefetched = prefetched;
+        this.dataSet = dataSet;
+    }
+
+    @Override
+    public long getReadCount() {
+        return readCount;
+    }
+
+    @Override
+    public IDataSetMeta getMeta() {
+        return dataSet.getMeta();
+    }
+
+    @Override
+    public boolean isDetached() {
+        return dataSet.isDetached();
+    }
+
+    @Override
+    public IDataSet detach() {
+        return BaseDataSet.buildFrom(this);
+    }
+
+    @Override
+    public void close() throws IOException {
+        dataSet.close();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return prefetched.hasNext() || dataSet.hasNext();
+    }
+
+    @Override
+    public IDataRow next() {
+        IDataRow row = prefetched.hasNext() ? prefetched.next() : dataSet.next();
+        readCount++;
+        return row;
+    }
+}
@@ -68,7 +68,6 @@ public class BaseRecordInput<T> implements IRecordInput<T> {
         if (!hasNext())
             throw new NoSuchElementException();
 
-        readCount++;
-        return records.get(readCount);
+        return records.get(readCount++);
     }
 }
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.excel.imp;
+
+import io.nop.excel.imp.model.ImportSheetModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列表中累积到chunkSize条记录后就交给IImportRecordConsumer处理，然后清空列表
+ */
+public class ChunkListAdapter implements IListAdapter {
+    private final String sheetName;
+    private final ImportSheetModel sheetModel;
+    private final IImportRecordConsumer consumer;
+    private final int chunkSize;
+
+    public ChunkListAdapter(String sheetName, ImportSheetModel sheetModel, IImportRecordConsumer consumer,
+                            int chunkSize) {
+        this.sheetName = sheetName;
+        this.sheetModel = sheetModel;
+        this.consumer = consumer;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public List<Object> newList() {
+        return new ArrayList<>(chunkSize);
+    }
+
+    @Override
+    public boolean add(List<Object> list, Object value) {
+        list.add(value);
+        if (list.size() >= chunkSize)
+            flush(list);
+        return true;
+    }
+
+    public void flush(List<Object> list) {
+        if (list.isEmpty())
+            return;
+        consumer.consume(sheetName, sheetModel, new ArrayList<>(list));
+        list.clear();
+    }
+
+    @Override
+    public String getKey(Object value) {
+        return null;
+    }
+
+    @Override
+    public String getKeyProp() {
+        return null;
+    }
+}
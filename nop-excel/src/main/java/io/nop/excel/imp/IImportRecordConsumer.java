@@ -0,0 +1,19 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.excel.imp;
+
+import io.nop.excel.imp.model.ImportSheetModel;
+
+import java.util.List;
+
+/**
+ * 流式导入时分批接收列表sheet中解析得到的记录。记录交给consumer之后不再保留在导入结果对象中
+ */
+public interface IImportRecordConsumer {
+    void consume(String sheetName, ImportSheetModel sheetModel, List<Object> records);
+}
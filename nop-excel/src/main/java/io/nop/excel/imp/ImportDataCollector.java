@@ -69,6 +69,9 @@ public class ImportDataCollector implements ITableDataEventListener {
 
     private final List<Object> multipleResults;
 
+    private IImportRecordConsumer recordConsumer;
+    private int chunkSize;
+
     public ImportDataCollector(IEvalScope scope, ICache<Object, Object> cache,
                                XLangCompileTool compileTool, DynamicObject rootObj, List<Object> multipleResults) {
         this.scope = scope;
@@ -83,6 +86,14 @@ public class ImportDataCollector implements ITableDataEventListener {
         this(scope, cache, compileTool, rootObj, Collections.emptyList());
     }
 
+    /**
+     * 设置之后，列表sheet中的记录每累积chunkSize条就交给recordConsumer处理，不再保存到结果对象中
+     */
+    public void setRecordConsumer(IImportRecordConsumer recordConsumer, int chunkSize) {
+        this.recordConsumer = recordConsumer;
+        this.chunkSize = chunkSize;
+    }
+
     @Override
     public void beginSheet(String sheetName, ImportSheetModel sheetModel) {
         this.sheetName = sheetName;
@@ -112,8 +123,13 @@ public class ImportDataCollector implements ITableDataEventListener {
     @Override
     public void beginList(int rowIndex, int colIndex, int maxRowIndex, int maxColIndex,
                           IFieldContainer fieldModel, boolean cardList) {
-        IListAdapter adapter = fieldModel.getKeyProp() != null ? new KeyedListAdapter(fieldModel.getKeyProp())
-                : ArrayListAdapter.INSTANCE;
+        IListAdapter adapter;
+        if (recordConsumer != null && fieldModel instanceof ImportSheetModel) {
+            adapter = new ChunkListAdapter(sheetName, (ImportSheetModel) fieldModel, recordConsumer, chunkSize);
+        } else {
+            adapter = fieldModel.getKeyProp() != null ? new KeyedListAdapter(fieldModel.getKeyProp())
+                    : ArrayListAdapter.INSTANCE;
+        }
         listAdapters.add(adapter);
 
         List<Object> list = adapter.newList();
@@ -163,8 +179,10 @@ public class ImportDataCollector implements ITableDataEventListener {
 
         if (fieldModel.isList()) {
             if (endList) {
-                listAdapters.remove(listAdapters.size() - 1);
-                if (fieldModel.isMultiple()) {
+                IListAdapter adapter = listAdapters.remove(listAdapters.size() - 1);
+                if (adapter instanceof ChunkListAdapter) {
+                    ((ChunkListAdapter) adapter).flush((List<Object>) entity);
+                } else if (fieldModel.isMultiple()) {
                     multipleResults.add(entity);
                 } else if (fieldModel.getFieldName() != null) {
                     setProp(last, fieldModel.getPropOrName(), entity);
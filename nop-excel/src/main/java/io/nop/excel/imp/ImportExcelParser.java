@@ -166,7 +166,7 @@ public class ImportExcelParser {
         ImportDataCollector builder = new ImportDataCollector(scope, cache, compileTool, obj, list);
 
         for (ExcelSheet sheet : sheets) {
-            new TreeTableDataParser(scope).parse(sheet.getName(), sheet.getTable(), sheetModel, builder);
+            parseSheetData(sheetModel, sheet, builder, scope);
         }
 
         if (list.size() != sheets.size())
@@ -203,6 +203,14 @@ public class ImportExcelParser {
     protected void parseSheet(ImportSheetModel sheetModel, ExcelSheet sheet, DynamicObject obj, IEvalScope scope) {
         //new SheetBeanParser(sheetModel, compileTool, cache, importModel.isDump()).parseFromSheet(sheet, obj, scope);
         ImportDataCollector builder = new ImportDataCollector(scope, cache, compileTool, obj);
+        parseSheetData(sheetModel, sheet, builder, scope);
+    }
+
+    /**
+     * 解析sheet中的数据并转换为ImportDataCollector事件。派生类可以不经过ExcelSheet对象，直接从文件中流式读取数据
+     */
+    protected void parseSheetData(ImportSheetModel sheetModel, ExcelSheet sheet, ImportDataCollector builder,
+                                  IEvalScope scope) {
         new TreeTableDataParser(scope).parse(sheet.getName(), sheet.getTable(), sheetModel, builder);
     }
 
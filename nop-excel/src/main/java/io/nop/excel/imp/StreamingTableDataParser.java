@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.excel.imp;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.eval.IEvalScope;
+import io.nop.core.model.table.CellRange;
+import io.nop.core.model.table.ICell;
+import io.nop.core.model.table.ICellView;
+import io.nop.core.model.table.IRow;
+import io.nop.excel.imp.model.ImportSheetModel;
+import io.nop.excel.model.ExcelTable;
+
+import java.util.List;
+
+import static io.nop.excel.ExcelErrors.ARG_ROW_NUMBER;
+import static io.nop.excel.ExcelErrors.ARG_SHEET_NAME;
+import static io.nop.excel.ExcelErrors.ERR_IMPORT_INVALID_DATA_ROW;
+
+/**
+ * 按行接收sheet数据并解析，与TreeTableDataParser产生相同的事件序列。
+ * <p>
+ * 列表类型的sheet在读取到表头之后，每一行数据直接转换为事件，不需要在内存中保留整个表格。因为合并单元格信息位于sheet文件的末尾，
+ * 表头的范围根据编号列来判断：从第一个非空行开始，直到编号列为数字的行之前都是表头，最后一行为字段名所在行。
+ * 其他类型的sheet以及卡片形式的列表需要随机访问单元格，仍然先缓存为ExcelTable，在sheet结束时交给TreeTableDataParser解析。
+ */
+public class StreamingTableDataParser {
+    enum State {
+        INIT, HEADER, DATA, END, BUFFER
+    }
+
+    private final TreeTableDataParser parser;
+    private final String sheetName;
+    private final ImportSheetModel sheetModel;
+    private final ITableDataEventListener listener;
+
+    private State state = State.INIT;
+    private ExcelTable table = new ExcelTable();
+    private int headerRowIndex = -1;
+    private int lastRowIndex = -1;
+    private int maxColIndex;
+    private List<LabelData> colHeaders;
+
+    public StreamingTableDataParser(IEvalScope scope, String sheetName, ImportSheetModel sheetModel,
+                                    ITableDataEventListener listener) {
+        this.parser = new TreeTableDataParser(scope);
+        this.sheetName = sheetName;
+        this.sheetModel = sheetModel;
+        this.listener = listener;
+    }
+
+    /**
+     * 行必须按照顺序传入，空行可以被省略
+     */
+    public void row(int rowIndex, IRow row) {
+        switch (state) {
+            case INIT:
+                beginTable(rowIndex, row);
+                break;
+            case HEADER:
+                if (rowIndex > lastRowIndex + 1) {
+                    // 表头之后是空行，列表没有数据
+                    endHeader();
+                    endList();
+                    checkEnd(rowIndex, row);
+                } else if (isDataRow(row)) {
+                    endHeader();
+                    state = State.DATA;
+                    dataRow(rowIndex, row);
+                } else {
+                    addToTable(rowIndex, row);
+                }
+                break;
+            case DATA:
+                if (rowIndex > lastRowIndex + 1 || !isDataRow(row)) {
+                    endList();
+                    checkEnd(rowIndex, row);
+                } else {
+                    dataRow(rowIndex, row);
+                }
+                break;
+            case END:
+                checkEnd(rowIndex, row);
+                break;
+            default:
+                addToTable(rowIndex, row);
+        }
+        lastRowIndex = rowIndex;
+    }
+
+    public void mergeCell(CellRange range) {
+        if (state == State.BUFFER)
+            table.mergeCell(range);
+    }
+
+    public void end() {
+        switch (state) {
+            case INIT:
+                listener.beginSheet(sheetName, sheetModel);
+                listener.endSheet(sheetModel);
+                break;
+            case HEADER:
+                endHeader();
+                endList();
+                listener.endSheet(sheetModel);
+                break;
+            case DATA:
+                endList();
+                listener.endSheet(sheetModel);
+                break;
+            case END:
+                listener.endSheet(sheetModel);
+                break;
+            default:
+                parser.parse(sheetName, table, sheetModel, listener);
+        }
+        table = null;
+    }
+
+    private void beginTable(int rowIndex, IRow row) {
+        ICellView cell = row.getCell(0);
+        if (TreeTableDataParser.shouldIgnore(cell))
+            return;
+
+        // 卡片形式的列表和非列表sheet需要随机访问
+        if (!sheetModel.isList() || StringHelper.isNumber(cell.getText())) {
+            state = State.BUFFER;
+        } else {
+            state = State.HEADER;
+            headerRowIndex = rowIndex;
+            listener.beginSheet(sheetName, sheetModel);
+        }
+        addToTable(rowIndex, row);
+    }
+
+    private void endHeader() {
+        maxColIndex = table.getColCount() - 1;
+        listener.beginList(headerRowIndex, 0, Integer.MAX_VALUE, maxColIndex, sheetModel, false);
+        colHeaders = parser.parseColHeaders(sheetName, sheetModel, table, headerRowIndex, lastRowIndex,
+                0, maxColIndex, listener);
+        // 表头解析完毕之后不再需要缓存
+        table = null;
+    }
+
+    private void dataRow(int rowIndex, IRow row) {
+        parser.parseListRow(sheetName, sheetModel, row, rowIndex, headerRowIndex, 0, maxColIndex,
+                colHeaders, listener);
+    }
+
+    private void endList() {
+        listener.endList(lastRowIndex, maxColIndex, sheetModel);
+        state = State.END;
+    }
+
+    private void checkEnd(int rowIndex, IRow row) {
+        if (!TreeTableDataParser.shouldIgnore(row.getCell(0)))
+            throw new NopException(ERR_IMPORT_INVALID_DATA_ROW).param(ARG_SHEET_NAME, sheetName)
+                    .param(ARG_ROW_NUMBER, rowIndex + 1);
+    }
+
+    private boolean isDataRow(IRow row) {
+        ICellView cell = row.getCell(0);
+        return cell != null && StringHelper.isNumber(cell.getText());
+    }
+
+    private void addToTable(int rowIndex, IRow row) {
+        table.makeRow(rowIndex);
+        for (int j = 0, n = row.getColCount(); j < n; j++) {
+            ICell cell = row.getCell(j);
+            if (cell != null && !cell.isProxyCell())
+                table.setCell(rowIndex, j, cell);
+        }
+    }
+}
@@ -129,10 +129,6 @@ public class TreeTableDataParser {
 
         listener.beginList(rowIndex, colIndex, maxRowIndex, maxColIndex, field, false);
 
-        Map<String, ImportFieldModel> nameMap = field.getFieldNameMap();
-
-        List<LabelData> colHeaders = new ArrayList<>();
-
         int labelRowIndex = rowIndex;
         ICellView topHeaderCell = table.getCell(rowIndex, colIndex);
         if (topHeaderCell != null) {
@@ -142,6 +138,34 @@ public class TreeTableDataParser {
                 labelRowIndex += topHeaderCell.getMergeDown();
         }
 
+        List<LabelData> colHeaders = parseColHeaders(sheetName, field, table, rowIndex, labelRowIndex,
+                colIndex, maxColIndex, listener);
+
+        for (int i = labelRowIndex + 1; i <= maxRowIndex; i++) {
+            // 发现编号列不为数字，则认为表格结束
+            if (!StringHelper.isNumber(table.getCellText(i, colIndex))) {
+                maxRowIndex = i - 1;
+                break;
+            }
+
+            parseListRow(sheetName, field, table.getRow(i), i, rowIndex, colIndex, maxColIndex, colHeaders, listener);
+        }
+
+        listener.endList(maxRowIndex, maxColIndex, field);
+
+        return new CellRange(rowIndex, colIndex, maxRowIndex, maxColIndex);
+    }
+
+    /**
+     * 解析列表的表头，返回每一列对应的字段。labelRowIndex为字段名所在的行，它的上一行为分组字段所在的行
+     */
+    List<LabelData> parseColHeaders(String sheetName, IFieldContainer field, ITableView table,
+                                    int rowIndex, int labelRowIndex, int colIndex, int maxColIndex,
+                                    ITableDataEventListener listener) {
+        Map<String, ImportFieldModel> nameMap = field.getFieldNameMap();
+
+        List<LabelData> colHeaders = new ArrayList<>();
+
         for (int j = colIndex; j <= maxColIndex; j++) {
             ICellView headerCell = table.getCell(labelRowIndex, j);
             if (headerCell == null) {
@@ -197,37 +221,32 @@ public class TreeTableDataParser {
                 }
             }
         }
+        return colHeaders;
+    }
 
-        for (int i = labelRowIndex + 1; i <= maxRowIndex; i++) {
-            // 发现编号列不为数字，则认为表格结束
-            if (!StringHelper.isNumber(table.getCellText(i, colIndex))) {
-                maxRowIndex = i - 1;
-                break;
-            }
-
-            listener.beginObject(i, colIndex, i, maxColIndex, field);
-
-            for (int j = colIndex; j <= maxColIndex; j++) {
-                LabelData header = colHeaders.get(j - colIndex);
-                if (header == null) {
-                    continue;
-                }
+    /**
+     * 解析列表中的一行数据。rowIndex为当前行的下标，listRowIndex为列表表头的起始行
+     */
+    void parseListRow(String sheetName, IFieldContainer field, IRowView row, int rowIndex, int listRowIndex,
+                      int colIndex, int maxColIndex, List<LabelData> colHeaders, ITableDataEventListener listener) {
+        listener.beginObject(rowIndex, colIndex, rowIndex, maxColIndex, field);
 
-                ICellView cell = table.getCell(i, j);
-                try {
-                    listener.simpleField(i, j, cell, header);
-                } catch (NopException e) {
-                    e.addXplStack("row=" + rowIndex + ",col=" + colIndex + ",sheet=" + sheetName + ",field=" + header);
-                    throw e;
-                }
+        for (int j = colIndex; j <= maxColIndex; j++) {
+            LabelData header = colHeaders.get(j - colIndex);
+            if (header == null) {
+                continue;
             }
 
-            listener.endObject(field);
+            ICellView cell = row == null ? null : row.getCell(j);
+            try {
+                listener.simpleField(rowIndex, j, cell, header);
+            } catch (NopException e) {
+                e.addXplStack("row=" + listRowIndex + ",col=" + colIndex + ",sheet=" + sheetName + ",field=" + header);
+                throw e;
+            }
         }
 
-        listener.endList(maxRowIndex, maxColIndex, field);
-
-        return new CellRange(rowIndex, colIndex, maxRowIndex, maxColIndex);
+        listener.endObject(field);
     }
 
     private ImportFieldModel getFieldModel(IFieldContainer fields, String text, ICellView cell) {
@@ -455,7 +474,7 @@ public class TreeTableDataParser {
         return -1;
     }
 
-    private boolean shouldIgnore(ICellView cell) {
+    static boolean shouldIgnore(ICellView cell) {
         if (cell == null || cell.isProxyCell())
             return true;
 
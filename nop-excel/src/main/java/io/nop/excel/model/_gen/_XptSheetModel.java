@@ -79,6 +79,14 @@ public abstract class _XptSheetModel extends io.nop.core.resource.component.Abst
      */
     private java.lang.String _loopVarName ;
     
+    /**
+     *  
+     * xml name: parallelEval
+     * 展开之后按照单元格之间的引用关系分层，同一层中互不依赖的单元格在ForkJoin线程池中并行求值。
+     * 引用xptRt/table/sheet/row等变量或者配置了processExpr的单元格无法分析依赖关系，仍然按照顺序求值
+     */
+    private boolean _parallelEval  = false;
+    
     /**
      *  
      * xml name: sheetNameExpr
@@ -95,6 +103,14 @@ public abstract class _XptSheetModel extends io.nop.core.resource.component.Abst
      */
     private java.lang.String _sheetVarName ;
     
+    /**
+     *  
+     * xml name: streaming
+     * 导出xlsx时按照行块逐步展开并写出，不在内存中保留整个展开后的表格。
+     * 要求单元格表达式不引用其他行块中的单元格，且sheet中不包含列展开、图片和导出公式，否则仍然整体展开
+     */
+    private boolean _streaming  = false;
+    
     /**
      *  
      * xml name: testExpr
@@ -273,6 +289,26 @@ public abstract class _XptSheetModel extends io.nop.core.resource.component.Abst
     }
 
     
+    /**
+     * 
+     * xml name: parallelEval
+     *  展开之后按照单元格之间的引用关系分层，同一层中互不依赖的单元格在ForkJoin线程池中并行求值。
+     * 引用xptRt/table/sheet/row等变量或者配置了processExpr的单元格无法分析依赖关系，仍然按照顺序求值
+     */
+    
+    public boolean isParallelEval(){
+      return _parallelEval;
+    }
+
+    
+    public void setParallelEval(boolean value){
+        checkAllowChange();
+        
+        this._parallelEval = value;
+           
+    }
+
+    
     /**
      * 
      * xml name: sheetNameExpr
@@ -313,6 +349,26 @@ public abstract class _XptSheetModel extends io.nop.core.resource.component.Abst
     }
 
     
+    /**
+     * 
+     * xml name: streaming
+     *  导出xlsx时按照行块逐步展开并写出，不在内存中保留整个展开后的表格。
+     * 要求单元格表达式不引用其他行块中的单元格，且sheet中不包含列展开、图片和导出公式，否则仍然整体展开
+     */
+    
+    public boolean isStreaming(){
+      return _streaming;
+    }
+
+    
+    public void setStreaming(boolean value){
+        checkAllowChange();
+        
+        this._streaming = value;
+           
+    }
+
+    
     /**
      * 
      * xml name: testExpr
@@ -356,8 +412,10 @@ public abstract class _XptSheetModel extends io.nop.core.resource.component.Abst
         out.putNotNull("loopIndexName",this.getLoopIndexName());
         out.putNotNull("loopItemsName",this.getLoopItemsName());
         out.putNotNull("loopVarName",this.getLoopVarName());
+        out.putNotNull("parallelEval",this.isParallelEval());
         out.putNotNull("sheetNameExpr",this.getSheetNameExpr());
         out.putNotNull("sheetVarName",this.getSheetVarName());
+        out.putNotNull("streaming",this.isStreaming());
         out.putNotNull("testExpr",this.getTestExpr());
     }
 
@@ -379,8 +437,10 @@ public abstract class _XptSheetModel extends io.nop.core.resource.component.Abst
         instance.setLoopIndexName(this.getLoopIndexName());
         instance.setLoopItemsName(this.getLoopItemsName());
         instance.setLoopVarName(this.getLoopVarName());
+        instance.setParallelEval(this.isParallelEval());
         instance.setSheetNameExpr(this.getSheetNameExpr());
         instance.setSheetVarName(this.getSheetVarName());
+        instance.setStreaming(this.isStreaming());
         instance.setTestExpr(this.getTestExpr());
     }
 
@@ -75,4 +75,20 @@ public interface GraphQLConfigs {
     @Description("时间戳类型是否返回毫秒信息")
     IConfigReference<Boolean> CFG_GRAPHQL_IGNORE_MILLIS_IN_TIMESTAMP =
             varRef(s_loc, "nop.graphql.ignore-millis-in-timestamp", Boolean.class, true);
-}
\ No newline at end of file
+
+    @Description("/graphql请求是否直接将结果流式写入响应，不在内存中构造完整的响应对象")
+    IConfigReference<Boolean> CFG_GRAPHQL_STREAMING_ENABLED =
+            varRef(s_loc, "nop.graphql.streaming.enabled", Boolean.class, false);
+
+    @Description("流式输出GraphQL结果时，列表中每积累多少条需要异步获取的数据就统一触发一次批量加载并输出")
+    IConfigReference<Integer> CFG_GRAPHQL_STREAMING_WINDOW_SIZE =
+            varRef(s_loc, "nop.graphql.streaming.window-size", Integer.class, 500);
+
+    @Description("是否支持自动持久化查询(Automatic Persisted Queries)。客户端可以只发送查询语句的sha256 hash，由服务端使用缓存的执行计划")
+    IConfigReference<Boolean> CFG_GRAPHQL_PERSISTED_QUERY_ENABLED =
+            varRef(s_loc, "nop.graphql.persisted-query.enabled", Boolean.class, true);
+
+    @Description("持久化查询的执行计划缓存的大小")
+    IConfigReference<Integer> CFG_GRAPHQL_PERSISTED_QUERY_CACHE_SIZE =
+            varRef(s_loc, "nop.graphql.persisted-query.cache-size", Integer.class, 2000);
+}
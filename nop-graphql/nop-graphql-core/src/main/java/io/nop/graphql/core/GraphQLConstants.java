@@ -16,6 +16,10 @@ public interface GraphQLConstants {
     String DSL_TYPE_API = "api";
     String FILE_TYPE_API_XML = "api.xml";
 
+    String EXTENSION_PERSISTED_QUERY = "persistedQuery";
+    String PERSISTED_QUERY_SHA256_HASH = "sha256Hash";
+    String PERSISTED_QUERY_VERSION = "version";
+
     String TYPE_QUERY = "Query";
     String TYPE_MUTATION = "Mutation";
     String TYPE_SUBSCRIPTION = "Subscription";
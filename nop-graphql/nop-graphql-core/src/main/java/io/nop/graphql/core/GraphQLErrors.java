@@ -91,6 +91,9 @@ public interface GraphQLErrors {
 
     String ARG_MAX = "max";
 
+    String ARG_HASH = "hash";
+    String ARG_VERSION = "version";
+
     ErrorCode ERR_GRAPHQL_PARSE_INVALID_ARG_NAME = define("nop.err.graphql.parse.invalid-arg-name", "参数名不合法：{name}",
             ARG_NAME);
 
@@ -330,4 +333,16 @@ public interface GraphQLErrors {
 
     ErrorCode ERR_GRAPHQL_EXCEED_MAX_DIRECTIVE_PER_REQUEST =
             define("nop.err.graphql.exceed-max-directive-per-request", "当前请求的Directive个数超出限制，最多允许{maxCount}个", ARG_MAX_COUNT);
+
+    /**
+     * 客户端(例如Apollo Client)根据错误消息PersistedQueryNotFound来判断是否需要重新发送完整的查询语句
+     */
+    ErrorCode ERR_GRAPHQL_PERSISTED_QUERY_NOT_FOUND =
+            define("nop.err.graphql.persisted-query-not-found", "PersistedQueryNotFound", ARG_HASH);
+
+    ErrorCode ERR_GRAPHQL_PERSISTED_QUERY_HASH_MISMATCH =
+            define("nop.err.graphql.persisted-query-hash-mismatch", "持久化查询的hash与查询语句不匹配:{hash}", ARG_HASH);
+
+    ErrorCode ERR_GRAPHQL_PERSISTED_QUERY_UNSUPPORTED_VERSION =
+            define("nop.err.graphql.persisted-query-unsupported-version", "不支持的持久化查询协议版本:{version}", ARG_VERSION);
 }
@@ -14,16 +14,20 @@ import io.nop.api.core.beans.ApiRequest;
 import io.nop.api.core.beans.ApiResponse;
 import io.nop.api.core.beans.ErrorBean;
 import io.nop.api.core.beans.FieldSelectionBean;
+import io.nop.api.core.beans.graphql.GraphQLRequestBean;
 import io.nop.api.core.beans.graphql.GraphQLResponseBean;
 import io.nop.api.core.context.ContextProvider;
+import io.nop.api.core.convert.ConvertHelper;
 import io.nop.api.core.exceptions.NopException;
 import io.nop.api.core.util.SourceLocation;
 import io.nop.commons.cache.LocalCache;
 import io.nop.commons.functional.IAsyncFunctionInvoker;
 import io.nop.commons.util.StringHelper;
 import io.nop.core.exceptions.ErrorMessageManager;
+import io.nop.core.lang.json.IJsonHandler;
 import io.nop.core.resource.cache.ResourceCacheEntryWithLoader;
 import io.nop.graphql.core.GraphQLConfigs;
+import io.nop.graphql.core.GraphQLConstants;
 import io.nop.graphql.core.GraphQLErrors;
 import io.nop.graphql.core.IGraphQLExecutionContext;
 import io.nop.graphql.core.IGraphQLHook;
@@ -60,6 +64,8 @@ import java.util.concurrent.Flow;
 import static io.nop.commons.cache.CacheConfig.newConfig;
 import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_MAX_DIRECTIVE_PER_REQUEST;
 import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_PARSE_CACHE_CHECK_CHANGED;
+import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_PERSISTED_QUERY_CACHE_SIZE;
+import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_PERSISTED_QUERY_ENABLED;
 import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_QUERY_MAX_DEPTH;
 import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_QUERY_MAX_OPERATION_COUNT;
 import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_SCHEMA_INTROSPECTION_ENABLED;
@@ -76,6 +82,9 @@ import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_EXCEED_MAX_DIRECTIVE
 import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_INTROSPECTION_NOT_ENABLED;
 import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_QUERY_EXCEED_MAX_OPERATION_COUNT;
 import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_QUERY_NO_OPERATION;
+import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_PERSISTED_QUERY_HASH_MISMATCH;
+import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_PERSISTED_QUERY_NOT_FOUND;
+import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_PERSISTED_QUERY_UNSUPPORTED_VERSION;
 import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_UNEXPECTED_OPERATION_TYPE;
 import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_UNKNOWN_BUILTIN_TYPE;
 import static io.nop.graphql.core.GraphQLErrors.ERR_GRAPHQL_UNKNOWN_OPERATION;
@@ -87,6 +96,9 @@ public class GraphQLEngine implements IGraphQLEngine {
     // 不能直接缓存GraphQLDocument。因为xbiz文件有可能动态更新，所以缓存需要监听资源文件的变化
     private final LocalCache<String, ResourceCacheEntryWithLoader<GraphQLDocument>> documentCache;
 
+    // 持久化查询的执行计划，按照查询语句的sha256 hash缓存。与documentCache一样，依赖的模型文件发生变化时会重新构建
+    private final LocalCache<String, ResourceCacheEntryWithLoader<GraphQLExecutionPlan>> planCache;
+
     private GraphQLSchema builtinSchema;
 
     private IGraphQLSchemaLoader schemaLoader;
@@ -112,10 +124,14 @@ public class GraphQLEngine implements IGraphQLEngine {
                 "graphql-parse-cache", newConfig(GraphQLConfigs.CFG_GRAPHQL_QUERY_PARSE_CACHE_SIZE.get()).useMetrics()
                         .expireAfterWrite(GraphQLConfigs.CFG_GRAPHQL_QUERY_PARSE_CACHE_TIMEOUT.get()),
                 this::parseDocumentWithLoader);
+        this.planCache = LocalCache.newCache(
+                "graphql-plan-cache", newConfig(CFG_GRAPHQL_PERSISTED_QUERY_CACHE_SIZE.get()).useMetrics()
+                        .expireAfterWrite(GraphQLConfigs.CFG_GRAPHQL_QUERY_PARSE_CACHE_TIMEOUT.get()));
     }
 
     public void clearCache() {
         documentCache.clear();
+        planCache.clear();
     }
 
     public void setBuiltinSchema(GraphQLSchema schema) {
@@ -146,6 +162,10 @@ public class GraphQLEngine implements IGraphQLEngine {
         return documentCache;
     }
 
+    public LocalCache<String, ResourceCacheEntryWithLoader<GraphQLExecutionPlan>> getPlanCache() {
+        return planCache;
+    }
+
     public boolean isEnableActionAuth() {
         return enableActionAuth;
     }
@@ -307,6 +327,102 @@ public class GraphQLEngine implements IGraphQLEngine {
         return schemaLoader.getOperationDefinition(opType, name);
     }
 
+    /**
+     * 按照Automatic Persisted Queries协议获取执行计划。请求中只有hash时直接使用缓存的执行计划，
+     * 如果同时提供了查询语句，则校验hash之后构建执行计划并缓存。
+     *
+     * @return 如果请求没有使用持久化查询，则返回null
+     */
+    public GraphQLExecutionPlan getPersistedQueryPlan(GraphQLRequestBean request) {
+        if (!CFG_GRAPHQL_PERSISTED_QUERY_ENABLED.get())
+            return null;
+
+        Object ext = request.getExtensions() == null ? null :
+                request.getExtensions().get(GraphQLConstants.EXTENSION_PERSISTED_QUERY);
+        if (!(ext instanceof Map))
+            return null;
+
+        Map<String, Object> persistedQuery = (Map<String, Object>) ext;
+        int version = ConvertHelper.toPrimitiveInt(persistedQuery.get(GraphQLConstants.PERSISTED_QUERY_VERSION),
+                1, NopException::new);
+        if (version != 1)
+            throw new NopException(ERR_GRAPHQL_PERSISTED_QUERY_UNSUPPORTED_VERSION)
+                    .param(GraphQLErrors.ARG_VERSION, version);
+
+        String hash = ConvertHelper.toString(persistedQuery.get(GraphQLConstants.PERSISTED_QUERY_SHA256_HASH));
+        if (StringHelper.isEmpty(hash))
+            return null;
+
+        String query = request.getQuery();
+        if (StringHelper.isBlank(query)) {
+            ResourceCacheEntryWithLoader<GraphQLExecutionPlan> entry = planCache.get(hash);
+            if (entry == null)
+                throw new NopException(ERR_GRAPHQL_PERSISTED_QUERY_NOT_FOUND).param(GraphQLErrors.ARG_HASH, hash);
+            return entry.getObject(CFG_GRAPHQL_PARSE_CACHE_CHECK_CHANGED.get());
+        }
+
+        ResourceCacheEntryWithLoader<GraphQLExecutionPlan> entry = planCache.get(hash);
+        if (entry == null) {
+            if (query.length() > GraphQLConfigs.CFG_GRAPHQL_QUERY_PARSE_MAX_LENGTH.get())
+                throw new NopException(GraphQLErrors.ERR_GRAPHQL_PARSE_EXCEED_MAX_LENGTH);
+
+            if (!hash.equalsIgnoreCase(StringHelper.sha256Hash(query, null)))
+                throw new NopException(ERR_GRAPHQL_PERSISTED_QUERY_HASH_MISMATCH).param(GraphQLErrors.ARG_HASH, hash);
+
+            entry = new ResourceCacheEntryWithLoader<>("graphql-plan-cache-item", k -> buildExecutionPlan(hash, query));
+            GraphQLExecutionPlan plan = entry.getObject(false);
+            // 构建失败时会抛出异常，不会进入缓存
+            planCache.put(hash, entry);
+            return plan;
+        }
+        return entry.getObject(CFG_GRAPHQL_PARSE_CACHE_CHECK_CHANGED.get());
+    }
+
+    protected GraphQLExecutionPlan buildExecutionPlan(String hash, String query) {
+        GraphQLDocument doc = parseOperationFromText(query);
+        validateDocument(doc);
+        GraphQLOperation op = checkOperation(doc);
+
+        FieldSelectionBean selectionTemplate = null;
+        if (op.getVariableDefinitions() == null || op.getVariableDefinitions().isEmpty()) {
+            selectionTemplate = buildSelectionBean(op.getName(), op.getSelectionSet(), Collections.emptyMap());
+        }
+        return new GraphQLExecutionPlan(hash, doc, selectionTemplate);
+    }
+
+    @Override
+    public ParsedGraphQLRequest parseRequest(GraphQLRequestBean request) {
+        GraphQLExecutionPlan plan = getPersistedQueryPlan(request);
+        if (plan == null)
+            return IGraphQLEngine.super.parseRequest(request);
+
+        ParsedGraphQLRequest parsed = new ParsedGraphQLRequest();
+        parsed.setOperationId(request.getOperationId());
+        parsed.setDocument(plan.getDocument());
+        parsed.setExtensions(request.getExtensions());
+        parsed.setVariables(request.getVariables());
+        return parsed;
+    }
+
+    @Override
+    public IGraphQLExecutionContext newGraphQLContext(GraphQLRequestBean request) {
+        GraphQLExecutionPlan plan = getPersistedQueryPlan(request);
+        if (plan == null)
+            return IGraphQLEngine.super.newGraphQLContext(request);
+
+        IGraphQLExecutionContext context = newGraphQLContext();
+        Map<String, Object> vars = request.getVariables();
+        GraphQLOperation op = plan.getOperation();
+        context.setOperation(op);
+        context.setExecutionId(request.getOperationId());
+
+        FieldSelectionBean selectionBean = plan.newFieldSelection(vars);
+        if (selectionBean == null)
+            selectionBean = buildSelectionBean(op.getName(), op.getSelectionSet(), vars);
+        context.setFieldSelection(selectionBean);
+        return context;
+    }
+
     @Override
     public IGraphQLExecutionContext newGraphQLContext() {
         GraphQLExecutionContext context = new GraphQLExecutionContext();
@@ -327,6 +443,15 @@ public class GraphQLEngine implements IGraphQLEngine {
         validateDocument(doc);
 
         Map<String, Object> vars = request.getVariables();
+        GraphQLOperation op = checkOperation(doc);
+
+        context.setOperation(op);
+        context.setExecutionId(request.getOperationId());
+        FieldSelectionBean selectionBean = buildSelectionBean(op.getName(), op.getSelectionSet(), vars);
+        context.setFieldSelection(selectionBean);
+    }
+
+    private GraphQLOperation checkOperation(GraphQLDocument doc) {
         GraphQLOperation op = (GraphQLOperation) doc.getDefinitions().get(0);
         if (op.getSelectionSet() == null || op.getSelectionSet().isEmpty())
             throw new NopException(ERR_GRAPHQL_QUERY_NO_OPERATION);
@@ -334,11 +459,7 @@ public class GraphQLEngine implements IGraphQLEngine {
         if (op.getSelectionSet().size() > CFG_GRAPHQL_QUERY_MAX_OPERATION_COUNT.get())
             throw new NopException(ERR_GRAPHQL_QUERY_EXCEED_MAX_OPERATION_COUNT)
                     .param(ARG_OPERATION_NAME, op.getName());
-
-        context.setOperation(op);
-        context.setExecutionId(request.getOperationId());
-        FieldSelectionBean selectionBean = buildSelectionBean(op.getName(), op.getSelectionSet(), vars);
-        context.setFieldSelection(selectionBean);
+        return op;
     }
 
     private void validateDocument(GraphQLDocument doc) {
@@ -469,6 +590,23 @@ public class GraphQLEngine implements IGraphQLEngine {
         });
     }
 
+    @Override
+    public CompletionStage<Void> executeGraphQLToJsonAsync(IGraphQLExecutionContext gqlCtx, IJsonHandler out) {
+        IGraphQLExecutor executor = new GraphQLExecutor(operationInvoker, graphQLHook, flowControlRunner, this);
+        IAsyncFunctionInvoker executionInvoker = getExecutionInvoker(gqlCtx);
+
+        return gqlCtx.getServiceContext().invokeWithBindingCtx(() -> {
+            CompletionStage<Void> future;
+            if (executionInvoker != null) {
+                future = executionInvoker.invokeAsync(ctx -> executor.executeToJsonAsync(ctx, out), gqlCtx);
+            } else {
+                future = executor.executeToJsonAsync(gqlCtx, out);
+            }
+
+            return future;
+        });
+    }
+
     @Override
     public GraphQLResponseBean buildGraphQLResponse(Object result, Throwable err, IGraphQLExecutionContext context) {
         GraphQLResponseBean ret;
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.graphql.core.engine;
+
+import io.nop.api.core.beans.FieldSelectionBean;
+import io.nop.graphql.core.ast.GraphQLDocument;
+import io.nop.graphql.core.ast.GraphQLOperation;
+
+import java.util.Map;
+
+/**
+ * 持久化查询对应的执行计划。document已经完成解析、类型绑定(包括fetcher和auth配置)并被冻结，可以在多个请求之间共享。
+ * 如果操作没有声明变量，则FieldSelectionBean与请求无关，预先构造好，每次请求只需要复制一份，不再需要重新遍历document。
+ */
+public class GraphQLExecutionPlan {
+    private final String hash;
+    private final GraphQLDocument document;
+    private final FieldSelectionBean selectionTemplate;
+
+    public GraphQLExecutionPlan(String hash, GraphQLDocument document, FieldSelectionBean selectionTemplate) {
+        this.hash = hash;
+        this.document = document;
+        this.selectionTemplate = selectionTemplate;
+        if (selectionTemplate != null)
+            selectionTemplate.freeze(true);
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public GraphQLDocument getDocument() {
+        return document;
+    }
+
+    public GraphQLOperation getOperation() {
+        return document.getOperation();
+    }
+
+    public boolean hasSelectionTemplate() {
+        return selectionTemplate != null;
+    }
+
+    /**
+     * 执行过程中会修改FieldSelectionBean(例如参数类型转换)，所以每个请求都需要使用独立的副本
+     *
+     * @return 如果不能使用预先构造的结果，则返回null
+     */
+    public FieldSelectionBean newFieldSelection(Map<String, Object> vars) {
+        if (selectionTemplate == null || (vars != null && !vars.isEmpty()))
+            return null;
+        return selectionTemplate.deepClone();
+    }
+}
@@ -15,6 +15,7 @@ import io.nop.api.core.exceptions.NopException;
 import io.nop.api.core.util.FutureHelper;
 import io.nop.api.core.util.Guard;
 import io.nop.commons.functional.IAsyncFunctionInvoker;
+import io.nop.core.lang.json.IJsonHandler;
 import io.nop.graphql.core.IDataFetcher;
 import io.nop.graphql.core.IGraphQLExecutionContext;
 import io.nop.graphql.core.IGraphQLHook;
@@ -37,6 +38,7 @@ import java.util.concurrent.CompletionStage;
 import java.util.function.Supplier;
 
 import static io.nop.api.core.util.FutureHelper.tryResolve;
+import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_STREAMING_WINDOW_SIZE;
 import static io.nop.graphql.core.GraphQLErrors.ARG_FIELD_NAME;
 
 public class GraphQLExecutor implements IGraphQLExecutor {
@@ -61,6 +63,10 @@ public class GraphQLExecutor implements IGraphQLExecutor {
         }
     }
 
+    IGraphQLEngine getEngine() {
+        return engine;
+    }
+
     @Override
     public CompletionStage<ApiResponse<?>> executeOneAsync(IGraphQLExecutionContext context) {
         try {
@@ -257,13 +263,11 @@ public class GraphQLExecutor implements IGraphQLExecutor {
         return new FlowControlFetcher(runner, fetcher);
     }
 
-    private CompletionStage<Void> _invokeOperations(DataFetchingEnvironment baseEnv, Map<String, Object> result,
-                                                    List<Supplier<CompletionStage<Object>>> actions) {
+    private List<DataFetchingEnvironment> prepareOperations(DataFetchingEnvironment baseEnv) {
         FieldSelectionBean sourceSelection = baseEnv.getSelectionBean();
         GraphQLSelectionSet selectionSet = baseEnv.getGraphQLExecutionContext().getOperation().getSelectionSet();
 
-        List<CompletionStage<?>> promises = new ArrayList<>();
-
+        List<DataFetchingEnvironment> ret = new ArrayList<>(selectionSet.getSelections().size());
         // int depth = env.getDepth();
         for (GraphQLSelection selection : selectionSet.getSelections()) {
             // 因为通过action延迟执行导致env会在多处复用，因此这里需要复制一份
@@ -282,6 +286,18 @@ public class GraphQLExecutor implements IGraphQLExecutor {
                 continue;
             }
             opEnv.setSelectionBean(selectionBean);
+            ret.add(opEnv);
+        }
+        return ret;
+    }
+
+    private CompletionStage<Void> _invokeOperations(DataFetchingEnvironment baseEnv, Map<String, Object> result,
+                                                    List<Supplier<CompletionStage<Object>>> actions) {
+        List<CompletionStage<?>> promises = new ArrayList<>();
+
+        for (DataFetchingEnvironment opEnv : prepareOperations(baseEnv)) {
+            GraphQLFieldSelection fieldSelection = opEnv.getSelection();
+            String alias = fieldSelection.getAliasOrName();
 
             CompletionStage<OperationResult> future = invokeOperationOrTry(opEnv);
             actions.add(() -> {
@@ -301,6 +317,65 @@ public class GraphQLExecutor implements IGraphQLExecutor {
         return FutureHelper.waitAll(promises);
     }
 
+    @Override
+    public CompletionStage<Void> executeToJsonAsync(IGraphQLExecutionContext context, IJsonHandler out) {
+        Guard.notNull(context.getFieldSelection(), "fieldSelection");
+
+        GraphQLStreamingWriter writer = new GraphQLStreamingWriter(this, context, out,
+                CFG_GRAPHQL_STREAMING_WINDOW_SIZE.get());
+        try {
+            GraphQLActionAuthChecker.INSTANCE.check(context);
+            GraphQLArgumentValidator.INSTANCE.validate(context);
+
+            DataFetchingEnvironment env = new DataFetchingEnvironment();
+            env.setExecutionContext(context);
+            env.setSource(null);
+            env.setRoot(null);
+            env.setSelectionBean(context.getFieldSelection());
+
+            List<DataFetchingEnvironment> opEnvs = prepareOperations(env);
+            List<CompletionStage<OperationResult>> opFutures = new ArrayList<>(opEnvs.size());
+
+            // 与executeAsync相同，先执行所有的operation，然后再在operation的事务之外获取下级属性并输出
+            CompletionStage<?> future;
+            if (operationInvoker != null) {
+                future = operationInvoker.invokeAsync(r -> invokeStreamingOperations(opEnvs, opFutures), env);
+            } else {
+                future = invokeStreamingOperations(opEnvs, opFutures);
+            }
+
+            dispatchAll(context);
+            return future.thenAccept(v -> {
+                List<Object> values = new ArrayList<>(opFutures.size());
+                for (CompletionStage<OperationResult> opFuture : opFutures) {
+                    values.add(FutureHelper.syncGet(opFuture).getValue());
+                }
+                writer.writeData(opEnvs, values);
+            }).handle((v, err) -> {
+                writer.complete(err);
+                return null;
+            });
+        } catch (Exception e) {
+            try {
+                writer.complete(e);
+                return FutureHelper.success(null);
+            } catch (Exception e2) {
+                return FutureHelper.reject(e2);
+            }
+        }
+    }
+
+    private CompletionStage<Void> invokeStreamingOperations(List<DataFetchingEnvironment> opEnvs,
+                                                            List<CompletionStage<OperationResult>> opFutures) {
+        List<CompletionStage<?>> promises = new ArrayList<>();
+        for (DataFetchingEnvironment opEnv : opEnvs) {
+            CompletionStage<OperationResult> future = invokeOperationOrTry(opEnv);
+            opFutures.add(future);
+            FutureHelper.collectWaiting(future, promises);
+        }
+        return FutureHelper.waitAll(promises);
+    }
+
     private Object fetchSelections(Object source, GraphQLSelectionSet selectionSet, DataFetchingEnvironment env) {
         Map<String, Object> ret = new LinkedHashMap<>();
 
@@ -366,7 +441,7 @@ public class GraphQLExecutor implements IGraphQLExecutor {
     }
 
     // 确保返回值类型与GraphQL定义中的类型一致
-    private Object normalizeValue(Object value, GraphQLFieldSelection selection) {
+    Object normalizeValue(Object value, GraphQLFieldSelection selection) {
         GraphQLFieldDefinition field = selection.getFieldDefinition();
         return field.getTypeConverter().convert(value, err -> new NopException(err).param(ARG_FIELD_NAME, selection.getName()));
     }
@@ -390,6 +465,26 @@ public class GraphQLExecutor implements IGraphQLExecutor {
         return result;
     }
 
+    /**
+     * 获取字段的原始值，不获取下级属性。如果fetcher返回异步结果，则触发批量加载并等待结果
+     */
+    Object fetchFieldValue(DataFetchingEnvironment env) {
+        Object result = fetchRawValue(env);
+        if (result instanceof CompletionStage) {
+            dispatchAll(env.getGraphQLExecutionContext());
+            result = FutureHelper.syncGet((CompletionStage<?>) result);
+        }
+        return result;
+    }
+
+    /**
+     * 获取字段的原始值，不获取下级属性，也不触发批量加载
+     */
+    Object fetchRawValue(DataFetchingEnvironment env) {
+        IDataFetcher fetcher = env.getSelection().getFieldDefinition().getFetcher();
+        return tryResolve(hookFetch(fetcher, env));
+    }
+
     Object hookFetch(IDataFetcher fetcher, DataFetchingEnvironment env) {
         if (fetcher == null)
             fetcher = BeanPropertyFetcher.INSTANCE;
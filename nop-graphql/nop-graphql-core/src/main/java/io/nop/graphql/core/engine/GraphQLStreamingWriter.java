@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.graphql.core.engine;
+
+import io.nop.api.core.beans.FieldSelectionBean;
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.util.FutureHelper;
+import io.nop.core.lang.eval.DisabledEvalScope;
+import io.nop.core.lang.json.IJsonHandler;
+import io.nop.core.lang.json.JsonTool;
+import io.nop.core.lang.json.serialize.JsonSerializeHelper;
+import io.nop.core.lang.json.serialize.JsonSerializer;
+import io.nop.core.lang.json.serialize.JsonSerializerFactory;
+import io.nop.core.lang.json.serialize.JsonWhitelistChecker;
+import io.nop.core.reflect.ReflectionManager;
+import io.nop.graphql.core.IGraphQLExecutionContext;
+import io.nop.graphql.core.ast.GraphQLFieldSelection;
+import io.nop.graphql.core.ast.GraphQLFragmentSelection;
+import io.nop.graphql.core.ast.GraphQLSelection;
+import io.nop.graphql.core.ast.GraphQLSelectionSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+import static io.nop.core.CoreConfigs.CFG_JSON_SERIALIZE_ONLY_DATA_BEAN;
+
+/**
+ * 按照selection的顺序将GraphQL结果直接输出到IJsonHandler，不构造完整的结果Map。
+ * <p>
+ * 对象属性逐个获取并立刻输出。列表中的每个条目只调用本层字段的fetcher，同步返回的条目立刻输出，
+ * 异步返回(使用了BeanMethodBatchFetcher等批量加载)的条目会暂存，积累到windowSize条之后统一dispatchAll并按顺序输出，
+ * 下级属性在输出时才获取。因此内存中最多只保留windowSize个条目的字段原始值，而批量加载仍然可以合并同一窗口中的请求。
+ */
+class GraphQLStreamingWriter {
+    private final GraphQLExecutor executor;
+    private final IGraphQLExecutionContext context;
+    private final IJsonHandler out;
+    private final int windowSize;
+    private final JsonSerializer serializer;
+
+    private boolean started;
+
+    GraphQLStreamingWriter(GraphQLExecutor executor, IGraphQLExecutionContext context, IJsonHandler out,
+                           int windowSize) {
+        this.executor = executor;
+        this.context = context;
+        this.out = out;
+        this.windowSize = Math.max(1, windowSize);
+        this.serializer = new JsonSerializer(ReflectionManager.instance(), CFG_JSON_SERIALIZE_ONLY_DATA_BEAN.get(),
+                JsonSerializerFactory.DEFAULT_FACTORY, JsonWhitelistChecker.instance(), DisabledEvalScope.INSTANCE);
+    }
+
+    public void writeData(List<DataFetchingEnvironment> opEnvs, List<Object> values) {
+        started = true;
+        out.beginObject(null);
+        out.key("data");
+        out.beginObject(null);
+        for (int i = 0, n = opEnvs.size(); i < n; i++) {
+            DataFetchingEnvironment opEnv = opEnvs.get(i);
+            Object value = values.get(i);
+            opEnv.setRoot(value);
+            out.key(opEnv.getSelection().getAliasOrName());
+            writeValue(value, opEnv);
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    /**
+     * 开始输出之前出错时输出标准的错误响应。已经开始输出之后出错时无法再输出合法的JSON，只能抛出异常
+     */
+    public void complete(Throwable err) {
+        if (err == null) {
+            context.complete();
+            return;
+        }
+
+        if (started) {
+            context.completeExceptionally(err);
+            throw NopException.adapt(err);
+        }
+
+        started = true;
+        JsonTool.instance().serializeTo(executor.getEngine().buildGraphQLResponse(null, err, context), out);
+    }
+
+    private void writeValue(Object value, DataFetchingEnvironment env) {
+        GraphQLFieldSelection selection = env.getSelection();
+        GraphQLSelectionSet selectionSet = selection.getSelectionSet();
+        if (selectionSet == null || isEmpty(value)) {
+            writeJson(executor.normalizeValue(value, selection));
+            return;
+        }
+
+        List<FieldEntry> fields = collectFields(selectionSet, env.getSelectionBean(), new ArrayList<>(),
+                new HashSet<>());
+        if (selection.getFieldDefinition().getType().isListType()) {
+            writeList((Collection<?>) value, fields, env);
+        } else {
+            Object[] values = new Object[fields.size()];
+            for (int i = 0, n = fields.size(); i < n; i++) {
+                values[i] = executor.fetchFieldValue(newFieldEnv(value, fields.get(i), env));
+            }
+            writeObject(value, values, fields, env);
+        }
+    }
+
+    /**
+     * 展开fragment，与结果Map一样，同名字段只输出一次
+     */
+    private List<FieldEntry> collectFields(GraphQLSelectionSet selectionSet, FieldSelectionBean sourceSelection,
+                                           List<FieldEntry> fields, Set<String> names) {
+        for (GraphQLSelection selection : selectionSet.getSelections()) {
+            if (selection instanceof GraphQLFieldSelection) {
+                GraphQLFieldSelection fieldSelection = (GraphQLFieldSelection) selection;
+                String alias = fieldSelection.getAliasOrName();
+                FieldSelectionBean selectionBean = sourceSelection.getField(alias);
+                if (selectionBean == null || !names.add(alias))
+                    continue;
+                fields.add(new FieldEntry(fieldSelection, selectionBean));
+            } else if (selection instanceof GraphQLFragmentSelection) {
+                GraphQLFragmentSelection fragmentSelection = (GraphQLFragmentSelection) selection;
+                collectFields(fragmentSelection.getResolvedFragment().getSelectionSet(), sourceSelection,
+                        fields, names);
+            }
+        }
+        return fields;
+    }
+
+    private DataFetchingEnvironment newFieldEnv(Object source, FieldEntry field, DataFetchingEnvironment env) {
+        env = env.prepare();
+        env.setSource(source);
+        env.setSelection(field.selection);
+        env.setSelectionBean(field.selectionBean);
+        return env;
+    }
+
+    private void writeObject(Object source, Object[] values, List<FieldEntry> fields, DataFetchingEnvironment env) {
+        out.beginObject(null);
+        for (int i = 0, n = fields.size(); i < n; i++) {
+            Object value = values[i];
+            if (value instanceof CompletionStage)
+                value = FutureHelper.syncGet((CompletionStage<?>) value);
+
+            FieldEntry field = fields.get(i);
+            out.key(field.selection.getAliasOrName());
+            writeValue(value, newFieldEnv(source, field, env));
+        }
+        out.endObject();
+    }
+
+    /**
+     * 每个条目先调用所有字段的fetcher获取原始值，同步返回的条目立刻输出。
+     * 存在异步返回值的条目暂存，积累到windowSize条之后统一dispatchAll，使得同一窗口中的批量加载请求可以合并
+     */
+    private void writeList(Collection<?> c, List<FieldEntry> fields, DataFetchingEnvironment env) {
+        out.beginArray(null);
+
+        List<PendingItem> pending = new ArrayList<>();
+        for (Object o : c) {
+            Object[] values = null;
+            boolean async = false;
+            if (o != null) {
+                values = new Object[fields.size()];
+                for (int i = 0, n = fields.size(); i < n; i++) {
+                    DataFetchingEnvironment fieldEnv = newFieldEnv(o, fields.get(i), env);
+                    Object value = executor.fetchRawValue(fieldEnv);
+                    if (value instanceof CompletionStage) {
+                        // env被异步任务占用，后续字段需要使用新的env
+                        fieldEnv.setAsync(true);
+                        async = true;
+                    }
+                    values[i] = value;
+                }
+            }
+
+            if (pending.isEmpty() && !async) {
+                writeItem(o, values, fields, env);
+            } else {
+                // 已经有等待中的条目时，后续条目也需要排队，确保输出顺序不变
+                pending.add(new PendingItem(o, values));
+                if (pending.size() >= windowSize)
+                    flush(pending, fields, env);
+            }
+        }
+        flush(pending, fields, env);
+
+        out.endArray();
+    }
+
+    private void writeItem(Object source, Object[] values, List<FieldEntry> fields, DataFetchingEnvironment env) {
+        if (source == null) {
+            writeJson(null);
+        } else {
+            writeObject(source, values, fields, env);
+        }
+    }
+
+    private void flush(List<PendingItem> pending, List<FieldEntry> fields, DataFetchingEnvironment env) {
+        if (pending.isEmpty())
+            return;
+
+        executor.dispatchAll(context);
+        for (PendingItem item : pending) {
+            writeItem(item.source, item.values, fields, env);
+        }
+        pending.clear();
+    }
+
+    private void writeJson(Object value) {
+        JsonSerializeHelper.serialize(serializer, null, value, out);
+    }
+
+    private boolean isEmpty(Object value) {
+        if (value == null)
+            return true;
+        if (value instanceof Collection)
+            return ((Collection<?>) value).isEmpty();
+        return false;
+    }
+
+    static class FieldEntry {
+        final GraphQLFieldSelection selection;
+        final FieldSelectionBean selectionBean;
+
+        FieldEntry(GraphQLFieldSelection selection, FieldSelectionBean selectionBean) {
+            this.selection = selection;
+            this.selectionBean = selectionBean;
+        }
+    }
+
+    static class PendingItem {
+        final Object source;
+        final Object[] values;
+
+        PendingItem(Object source, Object[] values) {
+            this.source = source;
+            this.values = values;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import io.nop.api.core.beans.FieldSelectionBean;
 import io.nop.api.core.beans.graphql.GraphQLRequestBean;
 import io.nop.api.core.beans.graphql.GraphQLResponseBean;
 import io.nop.api.core.util.FutureHelper;
+import io.nop.core.lang.json.IJsonHandler;
 import io.nop.graphql.core.IGraphQLExecutionContext;
 import io.nop.graphql.core.ParsedGraphQLRequest;
 import io.nop.graphql.core.ast.GraphQLDirectiveDefinition;
@@ -86,6 +87,12 @@ public interface IGraphQLEngine {
 
     CompletionStage<GraphQLResponseBean> executeGraphQLAsync(IGraphQLExecutionContext context);
 
+    /**
+     * 流式执行GraphQL请求，结果按照selection的顺序直接写入out，适用于返回大量数据的查询。
+     * 如果在开始输出之前出错，则输出错误响应；如果在输出过程中出错，则返回的future以异常结束，此时out中的内容不完整
+     */
+    CompletionStage<Void> executeGraphQLToJsonAsync(IGraphQLExecutionContext context, IJsonHandler out);
+
     Flow.Publisher<GraphQLResponseBean> subscribeGraphQL(IGraphQLExecutionContext context);
 
     default GraphQLResponseBean executeGraphQL(IGraphQLExecutionContext context) {
@@ -9,6 +9,7 @@ package io.nop.graphql.core.engine;
 
 import io.nop.api.core.beans.ApiResponse;
 import io.nop.api.core.beans.graphql.GraphQLResponseBean;
+import io.nop.core.lang.json.IJsonHandler;
 import io.nop.graphql.core.IGraphQLExecutionContext;
 
 import java.util.concurrent.CompletionStage;
@@ -18,5 +19,10 @@ public interface IGraphQLExecutor {
 
     CompletionStage<GraphQLResponseBean> executeAsync(IGraphQLExecutionContext context);
 
+    /**
+     * 执行GraphQL请求，并按照selection的顺序将结果直接输出到out中，不在内存中构造完整的结果Map
+     */
+    CompletionStage<Void> executeToJsonAsync(IGraphQLExecutionContext context, IJsonHandler out);
+
     CompletionStage<Object> fetchResult(Object result, IGraphQLExecutionContext context);
 }
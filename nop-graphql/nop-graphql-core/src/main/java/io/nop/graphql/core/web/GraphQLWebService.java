@@ -26,6 +26,7 @@ import io.nop.commons.util.CollectionHelper;
 import io.nop.commons.util.StringHelper;
 import io.nop.core.context.IServiceContext;
 import io.nop.core.lang.json.JsonTool;
+import io.nop.core.lang.json.handler.CollectTextJsonHandler;
 import io.nop.core.model.selection.FieldSelectionBeanParser;
 import io.nop.core.resource.IResource;
 import io.nop.graphql.core.GraphQLConstants;
@@ -43,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -136,6 +138,48 @@ public abstract class GraphQLWebService {
         });
     }
 
+    /**
+     * 流式执行GraphQL请求，结果直接写入out，不在内存中构造完整的响应对象。适用于返回大量数据的查询。
+     * 如果返回的future以异常结束，则out中已经输出的内容不完整，调用者需要中断响应
+     */
+    protected CompletionStage<Void> runGraphQLToWriter(String body, Writer out) {
+        IGraphQLEngine engine = BeanContainer.instance().getBeanByType(IGraphQLEngine.class);
+        long beginTime = CoreMetrics.currentTimeMillis();
+
+        ContextBinder binder = new ContextBinder();
+        IGraphQLExecutionContext context = null;
+        CollectTextJsonHandler handler = new CollectTextJsonHandler(out);
+        try {
+            GraphQLRequestBean request = (GraphQLRequestBean) JSON.parseToBean(null, body, GraphQLRequestBean.class);
+            LOG.debug("nop.graphql.parse:vars={},document=\n{}", request.getVariables(), request.getQuery());
+
+            context = engine.newGraphQLContext(request);
+            context.setMakerCheckerEnabled(CFG_GRAPHQL_MAKER_CHECKER_ENABLED.get());
+            context.setRequestHeaders(getHeaders());
+            prepareContext(context);
+
+            ApiRequest<GraphQLRequestBean> req = ApiRequest.build(request);
+            req.setHeaders(context.getRequestHeaders());
+            binder.init(req);
+
+            IGraphQLExecutionContext ctx = context;
+            return engine.executeGraphQLToJsonAsync(context, handler).whenComplete((v, e) -> {
+                LOG.info("nop.graphql.end-graphql-streaming-request:usedTime={},query={}",
+                        CoreMetrics.currentTimeMillis() - beginTime, request.getQuery());
+                logGraphQLResult(beginTime, null, e, ctx);
+                binder.close();
+            });
+        } catch (Exception e) {
+            try {
+                JsonTool.instance().serializeTo(engine.buildGraphQLResponse(null, e, context), handler);
+                return FutureHelper.success(null);
+            } finally {
+                binder.close();
+                logGraphQLResult(beginTime, null, e, context);
+            }
+        }
+    }
+
     protected void logRpcResult(long beginTime, ApiResponse<?> result, Throwable exception, IGraphQLExecutionContext context) {
         graphQLLogger.runIfPresent(logger -> {
             logger.onRpcExecute(context, beginTime, result, exception);
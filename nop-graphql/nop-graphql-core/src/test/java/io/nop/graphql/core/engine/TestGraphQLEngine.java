@@ -10,21 +10,29 @@ package io.nop.graphql.core.engine;
 import io.nop.api.core.beans.ApiRequest;
 import io.nop.api.core.beans.graphql.GraphQLRequestBean;
 import io.nop.api.core.beans.graphql.GraphQLResponseBean;
+import io.nop.api.core.exceptions.NopException;
 import io.nop.api.core.util.FutureHelper;
+import io.nop.commons.util.StringHelper;
 import io.nop.core.initialize.CoreInitialization;
 import io.nop.core.lang.json.JsonTool;
+import io.nop.core.lang.json.handler.CollectTextJsonHandler;
 import io.nop.core.model.selection.FieldSelectionBeanParser;
 import io.nop.core.unittest.BaseTestCase;
+import io.nop.graphql.core.GraphQLErrors;
 import io.nop.graphql.core.IGraphQLExecutionContext;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletionStage;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestGraphQLEngine extends BaseTestCase {
     GraphQLEngine engine;
@@ -56,6 +64,90 @@ public class TestGraphQLEngine extends BaseTestCase {
         assertEquals(attachmentJsonText("response.json"), JsonTool.serialize(response, true));
     }
 
+    @Test
+    public void testStreaming() {
+        GraphQLRequestBean request = attachmentBean("request.yaml", GraphQLRequestBean.class);
+        GraphQLResponseBean response = FutureHelper.syncGet(engine.executeGraphQLAsync(engine.newGraphQLContext(request)));
+
+        StringBuilder sb = new StringBuilder();
+        IGraphQLExecutionContext context = engine.newGraphQLContext(request);
+        FutureHelper.syncGet(engine.executeGraphQLToJsonAsync(context, new CollectTextJsonHandler(sb)));
+
+        // 结果Map中异步字段按照完成的顺序插入，而流式输出严格按照selection的顺序
+        assertEquals(JsonTool.parse(JsonTool.stringify(response)), JsonTool.parse(sb.toString()));
+        assertTrue(sb.indexOf("{\"name\":\"child_0_batch\",\"myName\":\"child_0_load\"}") > 0);
+    }
+
+    @Test
+    public void testStreamingError() {
+        GraphQLRequestBean request = new GraphQLRequestBean();
+        // filter为空，findPage执行时抛出异常
+        request.setQuery("query($query:String){ MyEntity__findPage(query:$query){ totalCount } }");
+        request.setVariables(Collections.singletonMap("query", "{offset:0}"));
+
+        StringBuilder sb = new StringBuilder();
+        IGraphQLExecutionContext context = engine.newGraphQLContext(request);
+        FutureHelper.syncGet(engine.executeGraphQLToJsonAsync(context, new CollectTextJsonHandler(sb)));
+        Map<String, Object> json = (Map<String, Object>) JsonTool.parse(sb.toString());
+        assertTrue(json.containsKey("errors"));
+    }
+
+    @Test
+    public void testPersistedQuery() {
+        GraphQLRequestBean request = attachmentBean("request.yaml", GraphQLRequestBean.class);
+        GraphQLResponseBean expected = FutureHelper.syncGet(engine.executeGraphQLAsync(engine.newGraphQLContext(request)));
+
+        String hash = StringHelper.sha256Hash(request.getQuery(), null);
+        GraphQLRequestBean hashOnly = new GraphQLRequestBean();
+        hashOnly.setVariables(request.getVariables());
+        hashOnly.setExtensions(persistedQuery(hash));
+
+        NopException e = assertThrows(NopException.class, () -> engine.newGraphQLContext(hashOnly));
+        assertEquals(GraphQLErrors.ERR_GRAPHQL_PERSISTED_QUERY_NOT_FOUND.getErrorCode(), e.getErrorCode());
+
+        GraphQLRequestBean badHash = new GraphQLRequestBean();
+        badHash.setQuery(request.getQuery());
+        badHash.setExtensions(persistedQuery("abc"));
+        e = assertThrows(NopException.class, () -> engine.newGraphQLContext(badHash));
+        assertEquals(GraphQLErrors.ERR_GRAPHQL_PERSISTED_QUERY_HASH_MISMATCH.getErrorCode(), e.getErrorCode());
+
+        request.setExtensions(persistedQuery(hash));
+        GraphQLResponseBean response = FutureHelper.syncGet(engine.executeGraphQLAsync(engine.newGraphQLContext(request)));
+        assertEquals(JsonTool.stringify(expected), JsonTool.stringify(response));
+
+        response = FutureHelper.syncGet(engine.executeGraphQLAsync(engine.newGraphQLContext(hashOnly)));
+        assertEquals(JsonTool.stringify(expected), JsonTool.stringify(response));
+    }
+
+    @Test
+    public void testPersistedQueryWithoutVars() {
+        String query = "query{ entity1: MyEntity__get(id:\"aaa\"){ name children{ name } } }";
+        GraphQLRequestBean request = new GraphQLRequestBean();
+        request.setQuery(query);
+        request.setExtensions(persistedQuery(StringHelper.sha256Hash(query, null)));
+
+        GraphQLExecutionPlan plan = engine.getPersistedQueryPlan(request);
+        assertTrue(plan.hasSelectionTemplate());
+
+        IGraphQLExecutionContext context = engine.newGraphQLContext(request);
+        GraphQLResponseBean response = FutureHelper.syncGet(engine.executeGraphQLAsync(context));
+
+        GraphQLRequestBean normal = new GraphQLRequestBean();
+        normal.setQuery(query);
+        IGraphQLExecutionContext normalContext = engine.newGraphQLContext(normal);
+        GraphQLResponseBean expected = FutureHelper.syncGet(engine.executeGraphQLAsync(normalContext));
+
+        assertEquals(normalContext.getFieldSelection().toString(), context.getFieldSelection().toString());
+        assertEquals(JsonTool.stringify(expected), JsonTool.stringify(response));
+    }
+
+    private Map<String, Object> persistedQuery(String hash) {
+        Map<String, Object> persistedQuery = new HashMap<>();
+        persistedQuery.put("version", 1);
+        persistedQuery.put("sha256Hash", hash);
+        return Collections.singletonMap("persistedQuery", persistedQuery);
+    }
+
     @Test
     public void testPrintSource() {
         String source = engine.getSchemaLoader().getGraphQLDocument().toSource();
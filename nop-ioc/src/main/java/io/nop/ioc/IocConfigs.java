@@ -55,4 +55,28 @@ public interface IocConfigs {
     @Description("允许bean的定义存在循环依赖关系")
     IConfigReference<Boolean> CFG_IOC_BEAN_DEPENDS_GRAPH_ALLOW_CYCLE =
             AppConfig.varRef(s_loc, "nop.ioc.bean-depends-graph.allow-cycle", Boolean.class, true);
-}
\ No newline at end of file
+
+    @Description("是否并行创建非lazy的单例bean。同一个init-order层中没有依赖关系的bean会在多个线程中同时创建")
+    IConfigReference<Boolean> CFG_IOC_PARALLEL_START_ENABLED =
+            AppConfig.varRef(s_loc, "nop.ioc.parallel-start.enabled", Boolean.class, false);
+
+    @Description("并行启动时使用的线程数，小于等于0表示使用CPU核数")
+    IConfigReference<Integer> CFG_IOC_PARALLEL_START_THREADS =
+            AppConfig.varRef(s_loc, "nop.ioc.parallel-start.threads", Integer.class, 0);
+
+    @Description("是否记录容器启动时每个bean的创建耗时")
+    IConfigReference<Boolean> CFG_IOC_STARTUP_TIMELINE_ENABLED =
+            AppConfig.varRef(s_loc, "nop.ioc.startup-timeline.enabled", Boolean.class, false);
+
+    @Description("启动耗时报告中输出的耗时最多的bean的个数")
+    IConfigReference<Integer> CFG_IOC_STARTUP_TIMELINE_TOP_N =
+            AppConfig.varRef(s_loc, "nop.ioc.startup-timeline.top-n", Integer.class, 30);
+
+    @Description("是否启用bean定义快照。如果启用，则将合并后的beans配置保存为二进制快照文件，所有依赖的资源文件都没有变化时直接使用快照，跳过beans文件的搜索和合并")
+    IConfigReference<Boolean> CFG_IOC_BEAN_SNAPSHOT_ENABLED =
+            AppConfig.varRef(s_loc, "nop.ioc.bean-snapshot.enabled", Boolean.class, false);
+
+    @Description("bean定义快照文件的保存目录")
+    IConfigReference<String> CFG_IOC_BEAN_SNAPSHOT_DIR =
+            AppConfig.varRef(s_loc, "nop.ioc.bean-snapshot.dir", String.class, "./_nop-cache/ioc");
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ioc.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 收集创建bean时可能访问到的其他bean，包括ioc:ignore-depends标注的依赖和按照类型注入的依赖。
+ * 并行启动时据此判断同时创建多个bean是否可能出现相互等待
+ */
+public class BeanAccessCollector {
+    private final Set<String> beanIds = new HashSet<>();
+    private final Set<Class<?>> beanTypes = new HashSet<>();
+    private boolean unknown;
+
+    public void addBean(String beanId) {
+        beanIds.add(beanId);
+    }
+
+    public void addBeanType(Class<?> beanType) {
+        beanTypes.add(beanType);
+    }
+
+    /**
+     * 表达式等动态逻辑中可能调用getBean，无法静态确定访问了哪些bean
+     */
+    public void markUnknown() {
+        this.unknown = true;
+    }
+
+    public Set<String> getBeanIds() {
+        return beanIds;
+    }
+
+    public Set<Class<?>> getBeanTypes() {
+        return beanTypes;
+    }
+
+    public boolean isUnknown() {
+        return unknown;
+    }
+}
@@ -37,6 +37,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static io.nop.ioc.IocConfigs.CFG_IOC_STARTUP_TIMELINE_TOP_N;
 import static io.nop.ioc.IocConstants.PRODUCER_BEAN_PREFIX;
 import static io.nop.ioc.IocErrors.ARG_BEAN;
 import static io.nop.ioc.IocErrors.ARG_BEAN_NAME;
@@ -75,6 +76,11 @@ public class BeanContainerImpl implements IBeanContainerImplementor {
     private BeanContainerStartMode startMode = BeanContainerStartMode.DEFAULT;
     private Map<String, AliasName> aliases;
 
+    private boolean parallelStart;
+    private int parallelThreads;
+    private boolean startupTimelineEnabled;
+    private volatile BeanStartupTimeline startupTimeline;
+
     public BeanContainerImpl(String id, Map<String, BeanDefinition> enabledBeans,
                              Collection<BeanDefinition> optionalBeans,
                              Map<String, AliasName> aliases, IBeanContainer parentContainer) {
@@ -370,7 +376,7 @@ public class BeanContainerImpl implements IBeanContainerImplementor {
                 bean = beanScope.get(beanDef.getId());
                 if (bean == null) {
                     LOG.info("nop.new-bean:{}", beanDef);
-                    bean = beanDef.newObject(beanScope, this);
+                    bean = newObject(beanDef, beanScope);
                     if (isStarted() && beanDef.hasDelayMethod()) {
                         beanDef.runDelayMethod(bean, beanScope, this);
                     }
@@ -388,6 +394,30 @@ public class BeanContainerImpl implements IBeanContainerImplementor {
         return bean;
     }
 
+    private Object newObject(BeanDefinition beanDef, IBeanScope beanScope) {
+        BeanStartupTimeline timeline = this.startupTimeline;
+        if (timeline == null || started)
+            return beanDef.newObject(beanScope, this);
+
+        long beginTime = timeline.beginBean();
+        try {
+            return beanDef.newObject(beanScope, this);
+        } finally {
+            timeline.endBean(beanDef.getId(), beginTime);
+        }
+    }
+
+    /**
+     * 并行启动时由工作线程调用。includeCreating=false确保等待其他线程中正在创建的同一个bean初始化完毕
+     */
+    void createEagerBean(BeanDefinition beanDef) {
+        getBean0(beanDef, true, false);
+    }
+
+    Map<String, BeanDefinition> getEnabledBeans() {
+        return enabledBeans;
+    }
+
     IBeanScope getBeanScope(BeanDefinition bean) {
         IBeanScope beanScope;
         if (bean.isSingleton()) {
@@ -417,6 +447,40 @@ public class BeanContainerImpl implements IBeanContainerImplementor {
         this.startMode = startMode;
     }
 
+    public boolean isParallelStart() {
+        return parallelStart;
+    }
+
+    public void setParallelStart(boolean parallelStart) {
+        this.parallelStart = parallelStart;
+    }
+
+    public int getParallelThreads() {
+        return parallelThreads;
+    }
+
+    /**
+     * 并行启动时使用的线程数，小于等于0表示使用CPU核数
+     */
+    public void setParallelThreads(int parallelThreads) {
+        this.parallelThreads = parallelThreads;
+    }
+
+    public boolean isStartupTimelineEnabled() {
+        return startupTimelineEnabled;
+    }
+
+    public void setStartupTimelineEnabled(boolean startupTimelineEnabled) {
+        this.startupTimelineEnabled = startupTimelineEnabled;
+    }
+
+    /**
+     * 最近一次启动时记录的bean创建耗时。如果没有启用startupTimeline，则返回null
+     */
+    public BeanStartupTimeline getStartupTimeline() {
+        return startupTimeline;
+    }
+
     @Override
     public Object getConfigValue(String varName) {
         return configProvider.getConfigValue(varName, null);
@@ -436,18 +500,16 @@ public class BeanContainerImpl implements IBeanContainerImplementor {
 
         running = true;
         singletonScope = new BeanScopeImpl(ApiConstants.BEAN_SCOPE_SINGLETON, XLang.newEvalScope(), this);
+        BeanStartupTimeline timeline = startupTimelineEnabled ? new BeanStartupTimeline() : null;
+        this.startupTimeline = timeline;
 
         try {
-            for (BeanDefinition bean : orderedBeans) {
-                if (bean.isSingleton()) {
-                    if (startMode == BeanContainerStartMode.ALL_LAZY) {
-                        // 只创建具有delayMethod的bean
-                        if (bean.hasDelayMethod() && !bean.isLazyInit() || bean.isIocForceInit()) {
-                            getBean0(bean, true, true);
-                        }
-                    } else if (startMode == BeanContainerStartMode.ALL_EAGER || !bean.isLazyInit()) {
-                        getBean0(bean, true, true);
-                    }
+            List<BeanDefinition> eagerBeans = getEagerBeans();
+            if (parallelStart && eagerBeans.size() > 1) {
+                new ParallelBeanStarter(this, parallelThreads).start(eagerBeans);
+            } else {
+                for (BeanDefinition bean : eagerBeans) {
+                    getBean0(bean, true, true);
                 }
             }
 
@@ -461,6 +523,29 @@ public class BeanContainerImpl implements IBeanContainerImplementor {
             throw e;
         }
         started = true;
+
+        if (timeline != null) {
+            timeline.end();
+            LOG.info("nop.ioc.container-startup-timeline:containerId={},parallel={}\n{}", getId(), parallelStart,
+                    timeline.toReport(CFG_IOC_STARTUP_TIMELINE_TOP_N.get()));
+        }
+    }
+
+    private List<BeanDefinition> getEagerBeans() {
+        List<BeanDefinition> ret = new ArrayList<>();
+        for (BeanDefinition bean : orderedBeans) {
+            if (bean.isSingleton()) {
+                if (startMode == BeanContainerStartMode.ALL_LAZY) {
+                    // 只创建具有delayMethod的bean
+                    if (bean.hasDelayMethod() && !bean.isLazyInit() || bean.isIocForceInit()) {
+                        ret.add(bean);
+                    }
+                } else if (startMode == BeanContainerStartMode.ALL_EAGER || !bean.isLazyInit()) {
+                    ret.add(bean);
+                }
+            }
+        }
+        return ret;
     }
 
     void runDelayMethod() {
@@ -196,6 +196,16 @@ public class BeanDefinition implements IBeanDefinition {
         return Boolean.TRUE.equals(beanModel.getLazyInit());
     }
 
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        for (IBeanPropValueResolver resolver : constructorArgs) {
+            resolver.collectAccessedBeans(collector);
+        }
+
+        for (BeanProperty prop : props.values()) {
+            prop.getValueResolver().collectAccessedBeans(collector);
+        }
+    }
+
     public void collectDepends(Set<String> deps) {
         for (IBeanPropValueResolver resolver : constructorArgs) {
             resolver.collectDepends(deps);
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ioc.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 记录容器启动过程中每个bean的创建耗时。创建bean时可能递归创建它所依赖的bean，selfCost扣除了递归创建依赖bean的时间
+ */
+public class BeanStartupTimeline {
+    private final long beginTime = System.nanoTime();
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ArrayDeque<long[]>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+    private volatile long endTime;
+
+    public static class Entry {
+        private final String beanId;
+        private final String threadName;
+        private final long startOffset;
+        private final long cost;
+        private final long selfCost;
+
+        Entry(String beanId, String threadName, long startOffset, long cost, long selfCost) {
+            this.beanId = beanId;
+            this.threadName = threadName;
+            this.startOffset = startOffset;
+            this.cost = cost;
+            this.selfCost = selfCost;
+        }
+
+        public String getBeanId() {
+            return beanId;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * 相对于容器开始启动的时间，单位为纳秒
+         */
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        public long getCost() {
+            return cost;
+        }
+
+        public long getSelfCost() {
+            return selfCost;
+        }
+    }
+
+    public long beginBean() {
+        frames.get().push(new long[1]);
+        return System.nanoTime();
+    }
+
+    public void endBean(String beanId, long startTime) {
+        long cost = System.nanoTime() - startTime;
+        ArrayDeque<long[]> stack = frames.get();
+        long childCost = stack.pop()[0];
+        long[] parent = stack.peek();
+        if (parent != null)
+            parent[0] += cost;
+
+        entries.add(new Entry(beanId, Thread.currentThread().getName(), startTime - beginTime, cost,
+                cost - childCost));
+    }
+
+    public void end() {
+        endTime = System.nanoTime();
+    }
+
+    public long getTotalTime() {
+        long end = endTime;
+        return (end == 0 ? System.nanoTime() : end) - beginTime;
+    }
+
+    public List<Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * 按照selfCost从大到小排序，返回耗时最多的topN个bean的报告
+     */
+    public String toReport(int topN) {
+        List<Entry> list = getEntries();
+        list.sort(Comparator.comparingLong(Entry::getSelfCost).reversed());
+
+        long sum = 0;
+        for (Entry entry : list) {
+            sum += entry.getSelfCost();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("beanCount=").append(list.size())
+                .append(",totalTime=").append(toMillis(getTotalTime())).append("ms")
+                .append(",sumOfSelfCost=").append(toMillis(sum)).append("ms\n");
+
+        int n = topN <= 0 ? list.size() : Math.min(topN, list.size());
+        for (int i = 0; i < n; i++) {
+            Entry entry = list.get(i);
+            sb.append(String.format("%8.2fms self %8.2fms total @%8.2fms [%s] %s%n",
+                    toMillis(entry.getSelfCost()), toMillis(entry.getCost()), toMillis(entry.getStartOffset()),
+                    entry.getThreadName(), entry.getBeanId()));
+        }
+        return sb.toString();
+    }
+
+    static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
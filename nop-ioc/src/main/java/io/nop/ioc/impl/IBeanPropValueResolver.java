@@ -31,4 +31,11 @@ public interface IBeanPropValueResolver {
     default void collectDepends(Set<String> depends) {
 
     }
+
+    /**
+     * 收集解析值时可能访问到的所有bean。与collectDepends不同，这里也包含ioc:ignore-depends标注的依赖
+     */
+    default void collectAccessedBeans(BeanAccessCollector collector) {
+
+    }
 }
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ioc.impl;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.ioc.model.BeanInterceptorModel;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按照依赖关系并行创建非lazy的单例bean。
+ * <p>
+ * 1. 按照iocInitOrder分层，层与层之间串行执行，保证ioc:init-order的语义不变 <br/>
+ * 2. 在所有启用的bean(包括lazy bean)上建立访问关系图，包含ioc:ignore-depends标注的依赖、按类型注入的依赖和next bean。
+ * 创建bean时会持有bean定义上的锁，如果两个线程沿着同一个环路从不同的起点开始创建，就会相互等待。
+ * 因此传递闭包中存在多于一个bean的强连通分量，或者存在表达式等无法静态分析的访问时，该bean在本层并行部分结束后按照原有顺序串行创建 <br/>
+ * 3. 其余bean的传递闭包是无环的，只需要等待闭包中属于本层的bean创建完毕即可并行执行
+ */
+class ParallelBeanStarter {
+    private final BeanContainerImpl container;
+    private final int threadCount;
+
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private final Map<BeanDefinition, BeanNode> nodes = new IdentityHashMap<>();
+
+    ParallelBeanStarter(BeanContainerImpl container, int threadCount) {
+        this.container = container;
+        this.threadCount = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+    }
+
+    static class BeanNode {
+        final BeanDefinition bean;
+        final List<BeanNode> targets = new ArrayList<>();
+        boolean unknownAccess;
+
+        // Tarjan算法的状态
+        int index = -1;
+        int lowLink;
+        boolean onStack;
+
+        // 所在强连通分量的完成序号。被依赖的分量总是先完成，因此序号越小越应该先创建
+        int sccOrder;
+        boolean unsafe;
+
+        BeanNode(BeanDefinition bean) {
+            this.bean = bean;
+        }
+    }
+
+    public void start(List<BeanDefinition> beans) {
+        buildGraph();
+
+        ForkJoinPool pool = newPool();
+        try {
+            int i = 0, n = beans.size();
+            while (i < n) {
+                int order = beans.get(i).getBeanModel().getIocInitOrder();
+                int j = i + 1;
+                while (j < n && beans.get(j).getBeanModel().getIocInitOrder() == order) {
+                    j++;
+                }
+                startLayer(beans.subList(i, j), pool);
+                i = j;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ForkJoinPool newPool() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        String prefix = "nop-ioc-start-" + container.getId() + "-";
+        AtomicInteger seq = new AtomicInteger();
+
+        return new ForkJoinPool(threadCount, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + seq.incrementAndGet());
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        }, null, false);
+    }
+
+    private void startLayer(List<BeanDefinition> layer, ForkJoinPool pool) {
+        if (layer.size() == 1) {
+            container.createEagerBean(layer.get(0));
+            return;
+        }
+
+        Set<BeanNode> layerNodes = new HashSet<>();
+        List<BeanNode> safeNodes = new ArrayList<>();
+        List<BeanDefinition> serialBeans = new ArrayList<>();
+        for (BeanDefinition bean : layer) {
+            BeanNode node = nodes.get(bean);
+            if (node == null || node.unsafe) {
+                serialBeans.add(bean);
+            } else {
+                layerNodes.add(node);
+                safeNodes.add(node);
+            }
+        }
+
+        if (safeNodes.size() > 1) {
+            // 依赖所在的分量先完成，按照完成序号排序后依赖总是先注册到futures中
+            safeNodes.sort((a, b) -> Integer.compare(a.sccOrder, b.sccOrder));
+            startParallel(safeNodes, layerNodes, pool);
+        } else if (safeNodes.size() == 1) {
+            container.createEagerBean(safeNodes.get(0).bean);
+        }
+
+        for (BeanDefinition bean : serialBeans) {
+            container.createEagerBean(bean);
+        }
+    }
+
+    private void startParallel(List<BeanNode> safeNodes, Set<BeanNode> layerNodes, ForkJoinPool pool) {
+        Map<BeanNode, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+        for (BeanNode node : safeNodes) {
+            List<CompletableFuture<Void>> depFutures = new ArrayList<>();
+            for (BeanNode dep : collectLayerDepends(node, layerNodes)) {
+                CompletableFuture<Void> future = futures.get(dep);
+                if (future != null)
+                    depFutures.add(future);
+            }
+
+            Runnable task = () -> createBean(node.bean);
+            CompletableFuture<Void> future;
+            if (depFutures.isEmpty()) {
+                future = CompletableFuture.runAsync(task, pool);
+            } else {
+                future = CompletableFuture.allOf(depFutures.toArray(new CompletableFuture[0])).thenRunAsync(task, pool);
+            }
+            futures.put(node, future);
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            // 忽略，以第一个失败的异常为准
+        }
+
+        Throwable err = error.get();
+        if (err != null)
+            throw NopException.adapt(err);
+    }
+
+    /**
+     * 传递闭包中属于本层的bean。中间可能经过lazy bean
+     */
+    private Set<BeanNode> collectLayerDepends(BeanNode node, Set<BeanNode> layerNodes) {
+        Set<BeanNode> visited = new HashSet<>();
+        Set<BeanNode> ret = new HashSet<>();
+        List<BeanNode> stack = new ArrayList<>(node.targets);
+        while (!stack.isEmpty()) {
+            BeanNode target = stack.remove(stack.size() - 1);
+            if (target == node || !visited.add(target))
+                continue;
+            if (layerNodes.contains(target))
+                ret.add(target);
+            stack.addAll(target.targets);
+        }
+        return ret;
+    }
+
+    private void createBean(BeanDefinition bean) {
+        // 已经有bean创建失败，则不再创建其他bean，尽快结束启动过程
+        if (error.get() != null)
+            return;
+
+        try {
+            container.createEagerBean(bean);
+        } catch (Throwable e) {
+            error.compareAndSet(null, e);
+            throw e;
+        }
+    }
+
+    private void buildGraph() {
+        Map<String, BeanDefinition> enabledBeans = container.getEnabledBeans();
+        for (BeanDefinition bean : enabledBeans.values()) {
+            nodes.put(bean, new BeanNode(bean));
+        }
+
+        for (BeanNode node : nodes.values()) {
+            BeanAccessCollector collector = new BeanAccessCollector();
+            Set<String> targets = getAccessedBeans(node.bean, collector);
+            // ioc:init中的代码可以任意调用getBean
+            node.unknownAccess = collector.isUnknown() || node.bean.getBeanModel().getIocInit() != null;
+
+            Set<BeanDefinition> targetBeans = new HashSet<>();
+            for (String target : targets) {
+                BeanDefinition targetBean = enabledBeans.get(target);
+                if (targetBean != null)
+                    targetBeans.add(targetBean);
+            }
+
+            for (Class<?> beanType : collector.getBeanTypes()) {
+                for (BeanDefinition bean : enabledBeans.values()) {
+                    if (isTypeMatch(bean, beanType))
+                        targetBeans.add(bean);
+                }
+            }
+
+            for (BeanDefinition targetBean : targetBeans) {
+                // 自身引用只会在同一个线程中获取提前暴露的引用，不会导致相互等待
+                if (targetBean != node.bean)
+                    node.targets.add(nodes.get(targetBean));
+            }
+        }
+
+        int[] counter = new int[2];
+        List<BeanNode> stack = new ArrayList<>();
+        for (BeanNode node : nodes.values()) {
+            if (node.index < 0)
+                strongConnect(node, counter, stack);
+        }
+    }
+
+    private boolean isTypeMatch(BeanDefinition bean, Class<?> beanType) {
+        if (bean.getBeanClass() != null && beanType.isAssignableFrom(bean.getBeanClass()))
+            return true;
+        List<Class<?>> types = bean.getBeanTypes();
+        if (types != null) {
+            for (Class<?> type : types) {
+                if (beanType.isAssignableFrom(type))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tarjan强连通分量算法。分量按照逆拓扑序完成，被依赖的分量先完成，因此在完成时即可确定unsafe标记
+     */
+    private void strongConnect(BeanNode node, int[] counter, List<BeanNode> stack) {
+        node.index = node.lowLink = counter[0]++;
+        stack.add(node);
+        node.onStack = true;
+
+        for (BeanNode target : node.targets) {
+            if (target.index < 0) {
+                strongConnect(target, counter, stack);
+                node.lowLink = Math.min(node.lowLink, target.lowLink);
+            } else if (target.onStack) {
+                node.lowLink = Math.min(node.lowLink, target.index);
+            }
+        }
+
+        if (node.lowLink != node.index)
+            return;
+
+        List<BeanNode> scc = new ArrayList<>();
+        BeanNode member;
+        do {
+            member = stack.remove(stack.size() - 1);
+            member.onStack = false;
+            scc.add(member);
+        } while (member != node);
+
+        int sccOrder = counter[1]++;
+        for (BeanNode n : scc) {
+            n.sccOrder = sccOrder;
+        }
+
+        boolean unsafe = scc.size() > 1;
+        for (BeanNode n : scc) {
+            if (n.unknownAccess)
+                unsafe = true;
+            for (BeanNode target : n.targets) {
+                // 分量外的目标都已经完成，unsafe标记已经确定
+                if (target.sccOrder != sccOrder && target.unsafe)
+                    unsafe = true;
+            }
+        }
+
+        for (BeanNode n : scc) {
+            n.unsafe = unsafe;
+        }
+    }
+
+    private Set<String> getAccessedBeans(BeanDefinition bean, BeanAccessCollector collector) {
+        Set<String> deps = new HashSet<>();
+        if (bean.getBeanModel().getDependsOn() != null)
+            deps.addAll(bean.getBeanModel().getDependsOn());
+
+        bean.collectDepends(deps);
+
+        if (bean.getBeanModel().getFactoryBean() != null)
+            deps.add(bean.getBeanModel().getFactoryBean());
+
+        List<BeanInterceptorModel> interceptors = bean.getBeanModel().getIocInterceptors();
+        if (interceptors != null) {
+            for (BeanInterceptorModel interceptor : interceptors) {
+                deps.add(interceptor.getBean());
+            }
+        }
+
+        deps.addAll(bean.getNextBeans());
+
+        bean.collectAccessedBeans(collector);
+        deps.addAll(collector.getBeanIds());
+        return deps;
+    }
+}
@@ -10,6 +10,7 @@ package io.nop.ioc.impl.resolvers;
 import io.nop.core.lang.xml.XNode;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 public class BeanContainerValueResolver implements IBeanPropValueResolver {
@@ -29,4 +30,10 @@ public class BeanContainerValueResolver implements IBeanPropValueResolver {
     public Object resolveValue(IBeanContainerImplementor container, IBeanScope scope) {
         return container;
     }
+
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        // 拿到容器之后可以任意调用getBean
+        collector.markUnknown();
+    }
 }
@@ -13,6 +13,7 @@ import io.nop.core.reflect.ReflectionManager;
 import io.nop.core.reflect.bean.IBeanModel;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 import java.util.Map;
@@ -82,4 +83,11 @@ public class BeanValueResolver implements IBeanPropValueResolver {
             resolver.collectDepends(depends);
         }
     }
+
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        for (IBeanPropValueResolver resolver : props.values()) {
+            resolver.collectAccessedBeans(collector);
+        }
+    }
 }
@@ -10,6 +10,7 @@ package io.nop.ioc.impl.resolvers;
 import io.nop.core.lang.xml.XNode;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 import java.util.List;
@@ -51,6 +52,13 @@ public class ConcatValueResolver implements IBeanPropValueResolver {
         }
     }
 
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        for (IBeanPropValueResolver resolver : resolvers) {
+            resolver.collectAccessedBeans(collector);
+        }
+    }
+
     @Override
     public XNode toConfigNode() {
         return null;
@@ -11,6 +11,7 @@ import io.nop.core.lang.eval.IEvalAction;
 import io.nop.core.lang.xml.XNode;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 public class ExpressionValueResolver implements IBeanPropValueResolver {
@@ -34,6 +35,12 @@ public class ExpressionValueResolver implements IBeanPropValueResolver {
 
     @Override
     public Object resolveValue(IBeanContainerImplementor container, IBeanScope scope) {
-        return action.invoke(scope.getEvalScope());
+        // 并行启动时多个线程会同时解析表达式，不能直接修改共享的eval scope
+        return action.invoke(scope.getEvalScope().newChildScope());
     }
-}
\ No newline at end of file
+
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        collector.markUnknown();
+    }
+}
@@ -13,6 +13,7 @@ import io.nop.ioc.IocConstants;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
 import io.nop.ioc.impl.BeanDefinition;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 import java.util.Set;
@@ -64,6 +65,11 @@ public class InjectRefValueResolver implements IBeanPropValueResolver {
         }
     }
 
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        collector.addBean(ref);
+    }
+
     @Override
     public Object resolveValue(IBeanContainerImplementor container, IBeanScope scope) {
         if (optional) {
@@ -11,6 +11,7 @@ import io.nop.core.lang.xml.XNode;
 import io.nop.ioc.IocConstants;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 public class InjectTypeValueResolver implements IBeanPropValueResolver {
@@ -51,4 +52,9 @@ public class InjectTypeValueResolver implements IBeanPropValueResolver {
         }
         return container.getBeanByType(beanType, true);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        collector.addBeanType(beanType);
+    }
+}
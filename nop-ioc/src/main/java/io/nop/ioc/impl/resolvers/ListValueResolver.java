@@ -11,6 +11,7 @@ import io.nop.commons.util.ClassHelper;
 import io.nop.core.lang.xml.XNode;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 import java.util.List;
@@ -62,4 +63,11 @@ public class ListValueResolver implements IBeanPropValueResolver {
             resolver.collectDepends(depends);
         }
     }
+
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        for (IBeanPropValueResolver resolver : items) {
+            resolver.collectAccessedBeans(collector);
+        }
+    }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ package io.nop.ioc.impl.resolvers;
 import io.nop.core.lang.xml.XNode;
 import io.nop.ioc.api.IBeanContainerImplementor;
 import io.nop.ioc.api.IBeanScope;
+import io.nop.ioc.impl.BeanAccessCollector;
 import io.nop.ioc.impl.IBeanPropValueResolver;
 
 import java.util.Map;
@@ -70,4 +71,11 @@ public class PropsValueResolver implements IBeanPropValueResolver {
             resolver.collectDepends(depends);
         }
     }
+
+    @Override
+    public void collectAccessedBeans(BeanAccessCollector collector) {
+        for (IBeanPropValueResolver resolver : props.values()) {
+            resolver.collectAccessedBeans(collector);
+        }
+    }
 }
\ No newline at end of file
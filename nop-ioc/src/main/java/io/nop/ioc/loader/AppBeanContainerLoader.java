@@ -15,12 +15,15 @@ import io.nop.api.core.ioc.IBeanContainer;
 import io.nop.commons.lang.IClassLoader;
 import io.nop.commons.util.ClassHelper;
 import io.nop.commons.util.CollectionHelper;
+import io.nop.commons.util.FileHelper;
 import io.nop.commons.util.StringHelper;
 import io.nop.core.lang.xml.XNode;
 import io.nop.core.module.ModuleManager;
 import io.nop.core.resource.IResource;
 import io.nop.core.resource.ResourceHelper;
 import io.nop.core.resource.VirtualFileSystem;
+import io.nop.core.resource.component.ResourceComponentManager;
+import io.nop.core.resource.deps.ResourceDependencySet;
 import io.nop.ioc.IocConfigs;
 import io.nop.ioc.IocConstants;
 import io.nop.ioc.api.IBeanContainerImplementor;
@@ -30,6 +33,7 @@ import io.nop.xlang.xdsl.XDslKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -41,7 +45,12 @@ import static io.nop.ioc.IocConfigs.CFG_IOC_APP_BEANS_CONTAINER_START_MODE;
 import static io.nop.ioc.IocConfigs.CFG_IOC_APP_BEANS_FILES;
 import static io.nop.ioc.IocConfigs.CFG_IOC_APP_BEANS_FILE_ENABLED;
 import static io.nop.ioc.IocConfigs.CFG_IOC_AUTO_CONFIG_ENABLED;
+import static io.nop.ioc.IocConfigs.CFG_IOC_BEAN_SNAPSHOT_DIR;
+import static io.nop.ioc.IocConfigs.CFG_IOC_BEAN_SNAPSHOT_ENABLED;
 import static io.nop.ioc.IocConfigs.CFG_IOC_MERGED_BEANS_FILE_ENABLED;
+import static io.nop.ioc.IocConfigs.CFG_IOC_PARALLEL_START_ENABLED;
+import static io.nop.ioc.IocConfigs.CFG_IOC_PARALLEL_START_THREADS;
+import static io.nop.ioc.IocConfigs.CFG_IOC_STARTUP_TIMELINE_ENABLED;
 
 public class AppBeanContainerLoader {
     static final Logger LOG = LoggerFactory.getLogger(AppBeanContainerLoader.class);
@@ -81,15 +90,56 @@ public class AppBeanContainerLoader {
         if (startMode != null)
             LOG.info(CFG_IOC_APP_BEANS_CONTAINER_START_MODE.getName() + "=" + startMode);
 
-        if (!loadMergedFile(builder))
-            loadBeansFile(builder);
+        builder.parallelStart(CFG_IOC_PARALLEL_START_ENABLED.get(), CFG_IOC_PARALLEL_START_THREADS.get());
+        builder.startupTimeline(CFG_IOC_STARTUP_TIMELINE_ENABLED.get());
 
-        IBeanContainerImplementor container = builder.build("app");
+        IBeanContainerImplementor container;
+        if (loadMergedFile(builder)) {
+            container = builder.build("app");
+        } else if (CFG_IOC_BEAN_SNAPSHOT_ENABLED.get()) {
+            container = buildWithSnapshot(builder, "app");
+        } else {
+            loadBeansFile(builder);
+            container = builder.build("app");
+        }
 
         dumpContainer(container);
         return container;
     }
 
+    IBeanContainerImplementor buildWithSnapshot(IBeanContainerBuilder builder, String containerId) {
+        List<IResource> resources = getBeansResources();
+        BeanContainerSnapshot snapshot = new BeanContainerSnapshot(getSnapshotFile(containerId));
+
+        XNode node = snapshot.load(resources);
+        if (node != null) {
+            builder.addBeans(node);
+            return builder.build(containerId);
+        }
+
+        // 记录装载过程中用到的所有资源文件，它们的修改时间决定了快照是否有效
+        IResource mergedResource = VirtualFileSystem.instance().getResource(getMergedAppBeansFile(containerId));
+        ResourceDependencySet deps = new ResourceDependencySet(mergedResource);
+        deps.getDepends().put(IocConstants.XDEF_BEANS, 0L);
+
+        IBeanContainerImplementor container = ResourceComponentManager.instance().collectDependsTo(deps, () -> {
+            for (IResource resource : resources) {
+                builder.addResource(resource);
+            }
+            return builder.build(containerId);
+        });
+
+        snapshot.save(resources, deps.getDepends().keySet(), toValidatedNode(container));
+        return container;
+    }
+
+    File getSnapshotFile(String containerId) {
+        File dir = new File(CFG_IOC_BEAN_SNAPSHOT_DIR.get());
+        if (!dir.isAbsolute())
+            dir = new File(FileHelper.currentDir(), dir.getPath());
+        return new File(dir, containerId + ".beans.snapshot");
+    }
+
     boolean loadMergedFile(IBeanContainerBuilder builder) {
         if (CFG_IOC_MERGED_BEANS_FILE_ENABLED.get()) {
             String mergedFile = getMergedAppBeansFile("app");
@@ -103,6 +153,13 @@ public class AppBeanContainerLoader {
     }
 
     void loadBeansFile(IBeanContainerBuilder builder) {
+        for (IResource resource : getBeansResources()) {
+            builder.addResource(resource);
+        }
+    }
+
+    List<IResource> getBeansResources() {
+        List<IResource> ret = new ArrayList<>();
         if (CFG_IOC_AUTO_CONFIG_ENABLED.get()) {
             List<IResource> autoConfigResources = getAutoConfigResources();
             for (IResource resource : autoConfigResources) {
@@ -112,7 +169,7 @@ public class AppBeanContainerLoader {
                     text = text.replace(',', '\n');
                     List<String> files = StringHelper.stripedSplit(text, '\n');
                     for (String file : files) {
-                        builder.addResource(VirtualFileSystem.instance().getResource(file));
+                        ret.add(VirtualFileSystem.instance().getResource(file));
                     }
                 } catch (Exception e) {
                     LOG.error("nop.ioc.process-auto-config-fail:source={}", resource);
@@ -125,16 +182,10 @@ public class AppBeanContainerLoader {
 
         if (CFG_IOC_APP_BEANS_FILE_ENABLED.get()) {
             ModuleManager.instance().getEnabledModules().forEach(module -> {
-                List<? extends IResource> resources = getModuleAppResources(module.getModuleId());
-                for (IResource resource : resources) {
-                    builder.addResource(resource);
-                }
+                ret.addAll(getModuleAppResources(module.getModuleId()));
             });
 
-            List<? extends IResource> resources = getModuleAppResources("main");
-            for (IResource resource : resources) {
-                builder.addResource(resource);
-            }
+            ret.addAll(getModuleAppResources("main"));
         } else {
             LOG.info(CFG_IOC_APP_BEANS_FILE_ENABLED.getName() + "=false");
         }
@@ -142,9 +193,10 @@ public class AppBeanContainerLoader {
         String appBeansFiles = CFG_IOC_APP_BEANS_FILES.get();
         if (appBeansFiles != null) {
             for (String file : ConvertHelper.toCsvSet(appBeansFiles, NopException::new)) {
-                builder.addResource(VirtualFileSystem.instance().getResource(file));
+                ret.add(VirtualFileSystem.instance().getResource(file));
             }
         }
+        return ret;
     }
 
     void dumpContainer(IBeanContainerImplementor container) {
@@ -152,15 +204,20 @@ public class AppBeanContainerLoader {
             String path = getMergedAppBeansFile(container.getId());
 
             String dumpPath = ResourceHelper.getDumpPath(path);
-            XNode node = container.toConfigNode();
-            XDslKeys keys = XDslKeys.of(node);
-            node.setAttr(keys.VALIDATED, true);
+            XNode node = toValidatedNode(container);
 
             IResource resource = VirtualFileSystem.instance().getResource(dumpPath);
             ResourceHelper.writeText(resource, node.fullXml(true, true));
         }
     }
 
+    XNode toValidatedNode(IBeanContainerImplementor container) {
+        XNode node = container.toConfigNode();
+        XDslKeys keys = XDslKeys.of(node);
+        node.setAttr(keys.VALIDATED, true);
+        return node;
+    }
+
     String getMergedAppBeansFile(String containerId) {
         return "/nop/main/beans/merged-" + containerId + ".beans.xml";
     }
@@ -453,7 +453,7 @@ public class BeanConditionEvaluator {
                 }
 
                 if (condition.getMissingClass() != null) {
-                    for (String className : condition.getOnClass()) {
+                    for (String className : condition.getMissingClass()) {
                         if (!isMissingClass(className)) {
                             sb.append("\n    check-missing-class-fail:").append(className);
                             break;
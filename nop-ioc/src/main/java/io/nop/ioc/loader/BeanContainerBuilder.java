@@ -66,6 +66,9 @@ public class BeanContainerBuilder implements IBeanContainerBuilder {
     private final IBeanContainer parentContainer;
 
     private BeanContainerStartMode startMode;
+    private boolean parallelStart;
+    private int parallelThreads;
+    private boolean startupTimeline;
 
     public BeanContainerBuilder(IClassLoader classLoader, IBeanClassIntrospection introspection,
                                 IBeanContainer parentContainer) {
@@ -88,6 +91,19 @@ public class BeanContainerBuilder implements IBeanContainerBuilder {
         return this;
     }
 
+    @Override
+    public IBeanContainerBuilder parallelStart(boolean parallelStart, int threads) {
+        this.parallelStart = parallelStart;
+        this.parallelThreads = threads;
+        return this;
+    }
+
+    @Override
+    public IBeanContainerBuilder startupTimeline(boolean enabled) {
+        this.startupTimeline = enabled;
+        return this;
+    }
+
     @Override
     public IBeanContainerBuilder addResource(IResource resource) {
         BeansModel beans = (BeansModel) new DslModelParser(IocConstants.XDEF_BEANS).parseFromResource(resource);
@@ -344,6 +360,9 @@ public class BeanContainerBuilder implements IBeanContainerBuilder {
                 enabledBeans, optionalBeans, aliases, parentContainer);
         if (startMode != null)
             container.setStartMode(startMode);
+        container.setParallelStart(parallelStart);
+        container.setParallelThreads(parallelThreads);
+        container.setStartupTimelineEnabled(startupTimeline);
         return container;
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ioc.loader;
+
+import io.nop.api.core.config.AppConfig;
+import io.nop.api.core.util.StaticValue;
+import io.nop.commons.util.FileHelper;
+import io.nop.commons.util.IoHelper;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.xml.XNode;
+import io.nop.core.lang.xml.parse.XNodeParser;
+import io.nop.core.resource.IResource;
+import io.nop.core.resource.VirtualFileSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 合并后的beans配置的二进制快照。
+ * <p>
+ * BeanDefinition中持有反射得到的方法和构造器，无法直接序列化，所以快照中保存的是已经完成x:extends合并、条件过滤和校验的beans节点，
+ * 装载时跳过beans文件的搜索、合并和xdef校验。快照的有效性由以下信息决定: 根beans文件列表、装载过程中依赖的所有资源文件的修改时间、
+ * 静态配置变量的摘要(feature:on等条件依赖于配置)。任何一项发生变化，快照都会失效并被重新生成。
+ */
+public class BeanContainerSnapshot {
+    static final Logger LOG = LoggerFactory.getLogger(BeanContainerSnapshot.class);
+
+    static final int MAGIC = 0x4E4F5042; // NOPB
+    static final int VERSION = 1;
+
+    private final File file;
+
+    public BeanContainerSnapshot(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 如果快照存在且仍然有效，则返回快照中保存的beans节点，否则返回null
+     */
+    public XNode load(List<? extends IResource> resources) {
+        if (!file.exists())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return null;
+
+            if (!getConfigHash().equals(in.readUTF()))
+                return null;
+
+            int count = in.readInt();
+            if (count != resources.size())
+                return null;
+            for (IResource resource : resources) {
+                if (!resource.getPath().equals(in.readUTF()))
+                    return null;
+            }
+
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long lastModified = in.readLong();
+                if (getLastModified(path) != lastModified) {
+                    LOG.info("nop.ioc.bean-snapshot-expired:file={},changedPath={}", file, path);
+                    return null;
+                }
+            }
+
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            XNode node = XNodeParser.instance().parseFromText(null, new String(bytes, StandardCharsets.UTF_8));
+            LOG.info("nop.ioc.use-bean-snapshot:file={}", file);
+            return node;
+        } catch (Exception e) {
+            LOG.warn("nop.ioc.load-bean-snapshot-fail:file={}", file, e);
+            return null;
+        }
+    }
+
+    public void save(List<? extends IResource> resources, Collection<String> dependPaths, XNode node) {
+        Map<String, Long> depends = new TreeMap<>();
+        for (IResource resource : resources) {
+            depends.put(resource.getPath(), resource.lastModified());
+        }
+        for (String path : dependPaths) {
+            if (!depends.containsKey(path))
+                depends.put(path, getLastModified(path));
+        }
+
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        FileHelper.assureParent(tmpFile);
+
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmpFile))));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(getConfigHash());
+
+            out.writeInt(resources.size());
+            for (IResource resource : resources) {
+                out.writeUTF(resource.getPath());
+            }
+
+            out.writeInt(depends.size());
+            for (Map.Entry<String, Long> entry : depends.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+
+            byte[] bytes = node.xml().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.close();
+            out = null;
+
+            FileHelper.moveFile(tmpFile, file);
+            LOG.info("nop.ioc.save-bean-snapshot:file={},dependCount={}", file, depends.size());
+        } catch (Exception e) {
+            LOG.warn("nop.ioc.save-bean-snapshot-fail:file={}", file, e);
+        } finally {
+            IoHelper.safeCloseObject(out);
+            tmpFile.delete();
+        }
+    }
+
+    static long getLastModified(String path) {
+        IResource resource = VirtualFileSystem.instance().getResource(path);
+        return resource.exists() ? resource.lastModified() : -1L;
+    }
+
+    static String getConfigHash() {
+        Map<String, StaticValue<?>> values = new TreeMap<>(AppConfig.getConfigProvider().getStaticConfigValues());
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, StaticValue<?>> entry : values.entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue().get()).append('\n');
+        }
+        return StringHelper.md5Hash(sb.toString());
+    }
+}
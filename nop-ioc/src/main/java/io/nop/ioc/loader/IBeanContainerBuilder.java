@@ -26,6 +26,13 @@ public interface IBeanContainerBuilder {
 
     IBeanContainerBuilder startMode(BeanContainerStartMode startMode);
 
+    /**
+     * 启用并行启动。threads小于等于0时使用CPU核数
+     */
+    IBeanContainerBuilder parallelStart(boolean parallelStart, int threads);
+
+    IBeanContainerBuilder startupTimeline(boolean enabled);
+
     <T> IBeanContainerBuilder registerBean(String beanName, Class<T> beanClass,
                                            Function<IBeanContainerImplementor, T> supplier, Consumer<BeanModel> customizer);
 
@@ -10,7 +10,15 @@ package io.nop.ioc;
 import io.nop.api.core.ioc.IBeanContainer;
 import io.nop.core.initialize.CoreInitialization;
 import io.nop.core.unittest.BaseTestCase;
+import io.nop.core.lang.xml.XNode;
+import io.nop.core.resource.IResource;
+import io.nop.core.resource.VirtualFileSystem;
+import io.nop.ioc.api.IBeanContainerImplementor;
+import io.nop.ioc.impl.BeanContainerImpl;
+import io.nop.ioc.impl.BeanStartupTimeline;
 import io.nop.ioc.loader.AppBeanContainerLoader;
+import io.nop.ioc.loader.BeanContainerBuilder;
+import io.nop.ioc.loader.BeanContainerSnapshot;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,9 +26,21 @@ import org.junit.jupiter.api.Test;
 import test.io.entropy.beans.MyBeanA;
 import test.io.entropy.beans.MyCycleA;
 import test.io.entropy.beans.MyCycleB;
+import test.io.entropy.beans.MySlowInitBean;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestBeanContainerEx extends BaseTestCase {
     @BeforeAll
@@ -88,4 +108,80 @@ public class TestBeanContainerEx extends BaseTestCase {
         assertEquals(b, a.getPropB());
         container.stop();
     }
+
+    @Test
+    public void testParallelStart() {
+        BeanContainerImpl container = (BeanContainerImpl) new BeanContainerBuilder(null)
+                .addResource(attachmentResource("test_parallel_start.beans.xml"))
+                .parallelStart(true, 4).startupTimeline(true).build("test");
+        container.start();
+
+        MySlowInitBean e = (MySlowInitBean) container.getBean("slowE");
+        assertTrue(e.isInited());
+        assertTrue(e.isDependsInited());
+
+        Set<String> threads = new HashSet<>();
+        for (String name : Arrays.asList("slowA", "slowB", "slowC", "slowD")) {
+            MySlowInitBean bean = (MySlowInitBean) container.getBean(name);
+            assertTrue(bean.isInited());
+            threads.add(bean.getInitThread());
+        }
+        assertTrue(threads.size() > 1);
+
+        MyCycleA a = container.getBeanByType(MyCycleA.class);
+        MyCycleB b = container.getBeanByType(MyCycleB.class);
+        assertEquals(a, b.getPropA());
+        assertEquals(b, a.getPropB());
+
+        BeanStartupTimeline timeline = container.getStartupTimeline();
+        assertEquals("first", timeline.getEntries().get(0).getBeanId());
+        // slowA到slowD的耗时相同，只取前几项时不一定包含slowA
+        assertTrue(timeline.toReport(0).contains("slowA"));
+        container.stop();
+    }
+
+    @Test
+    public void testParallelStartWithDynamicCycle() {
+        BeanContainerImpl container = (BeanContainerImpl) new BeanContainerBuilder(null)
+                .addResource(attachmentResource("test_parallel_cycle.beans.xml"))
+                .parallelStart(true, 4).build("test");
+
+        // cycA经过lazy的cycX访问cycB，cycB又访问cycA。如果并行创建两者，会相互等待对方的锁，启动将无法结束
+        assertTimeoutPreemptively(Duration.ofSeconds(30), container::start);
+
+        MySlowInitBean a = (MySlowInitBean) container.getBean("cycA");
+        MySlowInitBean b = (MySlowInitBean) container.getBean("cycB");
+        MySlowInitBean x = (MySlowInitBean) container.getBean("cycX");
+        assertEquals(x, a.getLookupResult());
+        assertEquals(b, x.getLookupResult());
+        assertEquals(a, b.getLookupResult());
+
+        for (String name : Arrays.asList("cycA", "cycB", "cycX", "slowC", "slowD")) {
+            MySlowInitBean bean = (MySlowInitBean) container.getBean(name);
+            assertTrue(bean.isInited());
+        }
+        container.stop();
+    }
+
+    @Test
+    public void testBeanSnapshot() {
+        IBeanContainerImplementor container = new AppBeanContainerLoader().loadFromResource("test",
+                attachmentResource("test_embedded.beans.xml"));
+        XNode node = container.toConfigNode();
+
+        File file = getTargetFile("bean-snapshot/test.beans.snapshot");
+        file.delete();
+        BeanContainerSnapshot snapshot = new BeanContainerSnapshot(file);
+        List<IResource> resources = Collections.singletonList(
+                VirtualFileSystem.instance().getResource(IocConstants.XDEF_BEANS));
+        assertNull(snapshot.load(resources));
+
+        snapshot.save(resources, Collections.emptyList(), node);
+        XNode loaded = snapshot.load(resources);
+        assertNotNull(loaded);
+        assertEquals(node.xml(), loaded.xml());
+
+        // 根beans文件列表发生变化时快照失效
+        assertNull(snapshot.load(Collections.emptyList()));
+    }
 }
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package test.io.entropy.beans;
+
+import io.nop.api.core.ioc.IBeanContainer;
+
+import java.util.List;
+
+public class MySlowInitBean {
+    private long delay;
+    private List<MySlowInitBean> depends;
+
+    private volatile boolean inited;
+    private boolean dependsInited = true;
+    private String initThread;
+
+    private IBeanContainer beanContainer;
+    private String lookupBean;
+    private Object lookupResult;
+
+    public void init() throws InterruptedException {
+        if (depends != null) {
+            for (MySlowInitBean depend : depends) {
+                if (!depend.isInited())
+                    dependsInited = false;
+            }
+        }
+        initThread = Thread.currentThread().getName();
+        Thread.sleep(delay);
+        if (lookupBean != null)
+            lookupResult = beanContainer.getBean(lookupBean);
+        inited = true;
+    }
+
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    public void setDepends(List<MySlowInitBean> depends) {
+        this.depends = depends;
+    }
+
+    public void setBeanContainer(IBeanContainer beanContainer) {
+        this.beanContainer = beanContainer;
+    }
+
+    public void setLookupBean(String lookupBean) {
+        this.lookupBean = lookupBean;
+    }
+
+    public Object getLookupResult() {
+        return lookupResult;
+    }
+
+    public boolean isInited() {
+        return inited;
+    }
+
+    public boolean isDependsInited() {
+        return dependsInited;
+    }
+
+    public String getInitThread() {
+        return initThread;
+    }
+}
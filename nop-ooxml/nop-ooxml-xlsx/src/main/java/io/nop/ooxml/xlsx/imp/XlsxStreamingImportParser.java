@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ooxml.xlsx.imp;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.util.Guard;
+import io.nop.api.core.util.SourceLocation;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.eval.IEvalScope;
+import io.nop.core.model.table.CellPosition;
+import io.nop.core.model.table.CellRange;
+import io.nop.excel.format.ExcelDateHelper;
+import io.nop.excel.imp.IImportRecordConsumer;
+import io.nop.excel.imp.ImportDataCollector;
+import io.nop.excel.imp.ImportExcelParser;
+import io.nop.excel.imp.StreamingTableDataParser;
+import io.nop.excel.imp.model.ImportModel;
+import io.nop.excel.imp.model.ImportSheetModel;
+import io.nop.excel.model.ExcelCell;
+import io.nop.excel.model.ExcelColumnConfig;
+import io.nop.excel.model.ExcelPageMargins;
+import io.nop.excel.model.ExcelRow;
+import io.nop.excel.model.ExcelSheet;
+import io.nop.excel.model.ExcelStyle;
+import io.nop.excel.model.ExcelWorkbook;
+import io.nop.ooxml.common.IOfficePackagePart;
+import io.nop.ooxml.xlsx.model.WorkbookPart;
+import io.nop.ooxml.xlsx.model.XSSFSheetRef;
+import io.nop.ooxml.xlsx.parse.AbstractXlsxParser;
+import io.nop.ooxml.xlsx.parse.SheetContentsHandler;
+import io.nop.ooxml.xlsx.parse.SheetNodeHandler;
+import io.nop.ooxml.xlsx.parse.SimpleSheetContentsHandler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.nop.ooxml.xlsx.XlsxErrors.ARG_REL_ID;
+import static io.nop.ooxml.xlsx.XlsxErrors.ARG_TYPE;
+import static io.nop.ooxml.xlsx.XlsxErrors.ERR_XLSX_NULL_REL_PART;
+
+/**
+ * 按照导入模型流式解析xlsx文件。列表类型的sheet直接从sheet文件中逐行读取，每解析得到chunkSize条记录就交给recordConsumer处理，
+ * 这些记录不会出现在返回的结果对象中，也不会在内存中保留整个表格。其他sheet仍然先解析为ExcelSheet再按照导入模型解析。
+ * <p>
+ * 与nop-batch集成时，recordConsumer可以将记录写入IBlockingSink，由BlockingSourceBatchLoader在批处理任务中读取。
+ */
+public class XlsxStreamingImportParser extends AbstractXlsxParser {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final ImportModel importModel;
+    private final IImportRecordConsumer recordConsumer;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean returnDynamicObject;
+
+    private final Map<String, XSSFSheetRef> sheetRefs = new HashMap<>();
+    private Object result;
+
+    public XlsxStreamingImportParser(ImportModel importModel, IImportRecordConsumer recordConsumer) {
+        this.importModel = Guard.notNull(importModel, "importModel");
+        this.recordConsumer = Guard.notNull(recordConsumer, "recordConsumer");
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public boolean isReturnDynamicObject() {
+        return returnDynamicObject;
+    }
+
+    public void setReturnDynamicObject(boolean returnDynamicObject) {
+        this.returnDynamicObject = returnDynamicObject;
+    }
+
+    /**
+     * 返回按照导入模型解析得到的对象，流式处理的列表数据已经交给recordConsumer，不包含在其中
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    @Override
+    protected boolean isPackSharedStrings() {
+        return true;
+    }
+
+    /**
+     * 这里只记录sheet的位置，sheet的内容在导入模型需要时才读取
+     */
+    @Override
+    protected ExcelSheet parseSheet(ExcelWorkbook workbook, XSSFSheetRef sheetRef, WorkbookPart workbookFile) {
+        if (StringHelper.isEmpty(sheetRef.getName()))
+            return null;
+
+        sheetRefs.put(sheetRef.getName(), sheetRef);
+
+        ExcelSheet sheet = new ExcelSheet();
+        sheet.setName(sheetRef.getName());
+        sheet.setLocation(pkg.getLocation());
+        return sheet;
+    }
+
+    @Override
+    protected void endParseWorkbook(ExcelWorkbook wk) {
+        ImportExcelParser parser = new ImportExcelParser(importModel) {
+            @Override
+            protected void parseSheetData(ImportSheetModel sheetModel, ExcelSheet sheet, ImportDataCollector builder,
+                                          IEvalScope scope) {
+                ExcelSheet fullSheet = readSheetData(wk, sheetModel, sheet, builder, scope);
+                if (fullSheet != null)
+                    super.parseSheetData(sheetModel, fullSheet, builder, scope);
+            }
+        };
+        parser.setReturnDynamicObject(returnDynamicObject);
+        this.result = parser.parseFromWorkbook(wk);
+    }
+
+    /**
+     * 列表数据流式处理后返回null，否则返回完整解析得到的ExcelSheet
+     */
+    ExcelSheet readSheetData(ExcelWorkbook wk, ImportSheetModel sheetModel, ExcelSheet sheet, ImportDataCollector builder,
+                       IEvalScope scope) {
+        XSSFSheetRef sheetRef = sheetRefs.get(sheet.getName());
+        IOfficePackagePart sheetPart = pkg.getRelPart(workbookPart, sheetRef.getRelId());
+        if (sheetPart == null)
+            throw new NopException(ERR_XLSX_NULL_REL_PART).param(ARG_TYPE, "sheet").param(ARG_REL_ID, sheetRef.getRelId());
+
+        // 多个sheet合并为一个列表时需要在最后检查记录个数，不能分批处理
+        if (!sheetModel.isList() || sheetModel.isMultiple()) {
+            SimpleSheetContentsHandler contentsHandler = new SimpleSheetContentsHandler(wk, sheet.getName());
+            sheetPart.processXml(new SheetNodeHandler(sharedStringsTable, contentsHandler), null);
+            ExcelSheet fullSheet = contentsHandler.getSheet();
+            fullSheet.setLocation(pkg.getLocation());
+            return fullSheet;
+        }
+
+        builder.setRecordConsumer(recordConsumer, chunkSize);
+        StreamingTableDataParser dataParser = new StreamingTableDataParser(scope, sheet.getName(), sheetModel, builder);
+        sheetPart.processXml(new SheetNodeHandler(sharedStringsTable, new RowHandler(wk, sheet.getName(), dataParser)), null);
+        dataParser.end();
+        return null;
+    }
+
+    static class RowHandler implements SheetContentsHandler {
+        private final ExcelWorkbook workbook;
+        private final String sheetName;
+        private final StreamingTableDataParser dataParser;
+        private ExcelRow row;
+
+        public RowHandler(ExcelWorkbook workbook, String sheetName, StreamingTableDataParser dataParser) {
+            this.workbook = workbook;
+            this.sheetName = sheetName;
+            this.dataParser = dataParser;
+        }
+
+        @Override
+        public void startSheet(String sheetName) {
+        }
+
+        @Override
+        public void cols(List<ExcelColumnConfig> cols) {
+        }
+
+        @Override
+        public void pageMargins(ExcelPageMargins pageMargins) {
+        }
+
+        @Override
+        public void sheetFormat(Double defaultRowHeight) {
+        }
+
+        @Override
+        public void startRow(int rowNum, Double height, boolean hidden) {
+            row = new ExcelRow();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            dataParser.row(rowNum, row);
+            row = null;
+        }
+
+        @Override
+        public void cell(CellPosition cellRef, Object value, String formulaStr, int styleId) {
+            ExcelCell cell = new ExcelCell();
+            cell.setFormula(formulaStr);
+            cell.setLocation(new SourceLocation(workbook.resourcePath(), 0, 0, 0, 0,
+                    sheetName, cellRef.toABString(), null));
+            if (styleId >= 0) {
+                cell.setStyleId(String.valueOf(styleId));
+                if (value instanceof Number) {
+                    ExcelStyle style = workbook.getStyle(cell.getStyleId());
+                    if (style != null && style.isDateFormat()) {
+                        value = ExcelDateHelper.excelDateToLocalDateTime(((Number) value).doubleValue());
+                    }
+                }
+            }
+            cell.setValue(value);
+            row.internalSetCell(cellRef.getColIndex(), cell);
+        }
+
+        @Override
+        public void mergeCell(CellRange range) {
+            dataParser.mergeCell(range);
+        }
+
+        @Override
+        public void drawing(String id) {
+        }
+
+        @Override
+        public void link(String ref, String location, String rId) {
+        }
+    }
+}
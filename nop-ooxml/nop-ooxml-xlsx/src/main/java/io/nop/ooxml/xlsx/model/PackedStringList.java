@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ooxml.xlsx.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 只支持追加的字符串列表，所有字符串以UTF-8编码连续存放在一个字节数组中。
+ * 大型共享字符串表中大部分是短字符串，按照String对象存放时对象头和数组头的开销往往超过字符内容本身。
+ */
+public class PackedStringList extends AbstractList<String> implements RandomAccess {
+    private byte[] data;
+    private int[] offsets;
+    private int size;
+    private int dataSize;
+
+    public PackedStringList(int initCapacity) {
+        initCapacity = Math.max(initCapacity, 16);
+        this.offsets = new int[initCapacity + 1];
+        this.data = new byte[initCapacity * 8];
+    }
+
+    public PackedStringList() {
+        this(16);
+    }
+
+    @Override
+    public boolean add(String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        if (dataSize + bytes.length > data.length)
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + bytes.length));
+        System.arraycopy(bytes, 0, data, dataSize, bytes.length);
+        dataSize += bytes.length;
+
+        if (size + 1 >= offsets.length)
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        size++;
+        offsets[size] = dataSize;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index=" + index + ",size=" + size);
+        int start = offsets[index];
+        return new String(data, start, offsets[index + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 已占用的字节数
+     */
+    public int getDataSize() {
+        return dataSize;
+    }
+
+    public void trimToSize() {
+        data = Arrays.copyOf(data, dataSize);
+        offsets = Arrays.copyOf(offsets, size + 1);
+    }
+}
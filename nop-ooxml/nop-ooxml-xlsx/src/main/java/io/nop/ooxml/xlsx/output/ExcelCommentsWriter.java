@@ -12,17 +12,50 @@ import io.nop.commons.util.StringHelper;
 import io.nop.core.context.IEvalContext;
 import io.nop.core.lang.xml.IXNodeHandler;
 import io.nop.core.model.table.CellPosition;
+import io.nop.core.model.table.ITableView;
 import io.nop.core.resource.tpl.AbstractXmlTemplate;
 import io.nop.excel.model.IExcelSheet;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 public class ExcelCommentsWriter extends AbstractXmlTemplate {
     private final IExcelSheet sheet;
+    private final List<CellComment> comments;
+
+    public static class CellComment {
+        final String ref;
+        final String text;
+
+        public CellComment(String ref, String text) {
+            this.ref = ref;
+            this.text = text;
+        }
+    }
 
     public ExcelCommentsWriter(IExcelSheet sheet) {
         this.sheet = sheet;
+        this.comments = null;
+    }
+
+    /**
+     * 流式输出时表格不会完整保留在内存中，使用写出行块时收集的批注
+     */
+    public ExcelCommentsWriter(List<CellComment> comments) {
+        this.sheet = null;
+        this.comments = comments;
+    }
+
+    public static void collectComments(ITableView table, int rowOffset, List<CellComment> comments) {
+        table.forEachRealCell((cell, rowIndex, colIndex) -> {
+            String comment = cell.getComment();
+            if (!StringHelper.isEmpty(comment)) {
+                comments.add(new CellComment(CellPosition.toABString(rowOffset + rowIndex, colIndex), comment));
+            }
+            return ProcessResult.CONTINUE;
+        });
     }
 
     @Override
@@ -43,39 +76,40 @@ public class ExcelCommentsWriter extends AbstractXmlTemplate {
         out.endNode("authors");
 
         out.beginNode(null, "commentList", Collections.emptyMap());
-        sheet.getTable().forEachRealCell((cell, rowIndex, colIndex) -> {
-            String comment = cell.getComment();
-            if (!StringHelper.isEmpty(comment)) {
-                String ref = CellPosition.toABString(rowIndex, colIndex);
-                out.beginNode(null, "comment", attrs(
-                        "ref", ref,
-                        "authorId", "0",
-                        "shapeId", "0",
-                        "xr:uid", "{" + UUID.randomUUID() + "}"
-                ));
-
-                // <text><r><rPr><b/><sz val="9"/><color indexed="81"/><rFont val="宋体"/><family val="3"/><charset val="134"/></rPr><t>a=1
-                //b=2</t></r></text>
-                out.beginNode(null, "text", Collections.emptyMap());
-                out.beginNode("r");
-                out.beginNode("rPr");
-                out.simpleNode("b");
-                out.simpleNode(null, "sz", attrs("val", "9"));
-                out.simpleNode(null, "color", attrs("indexed", "81"));
-                out.simpleNode(null, "rFont", attrs("val", "SimSun")); // 宋体
-                out.simpleNode(null, "family", attrs("val", 3));
-                out.simpleNode(null, "charset", attrs("val", "134"));
-                out.endNode("rPr");
-                out.beginNode("t");
-                out.value(null, comment);
-                out.endNode("t");
-                out.endNode("r");
-                out.endNode("text");
-
-                out.endNode("comment");
-            }
-            return ProcessResult.CONTINUE;
-        });
+        List<CellComment> comments = this.comments;
+        if (comments == null) {
+            comments = new ArrayList<>();
+            collectComments(sheet.getTable(), 0, comments);
+        }
+
+        for (CellComment comment : comments) {
+            out.beginNode(null, "comment", attrs(
+                    "ref", comment.ref,
+                    "authorId", "0",
+                    "shapeId", "0",
+                    "xr:uid", "{" + UUID.randomUUID() + "}"
+            ));
+
+            // <text><r><rPr><b/><sz val="9"/><color indexed="81"/><rFont val="宋体"/><family val="3"/><charset val="134"/></rPr><t>a=1
+            //b=2</t></r></text>
+            out.beginNode(null, "text", Collections.emptyMap());
+            out.beginNode("r");
+            out.beginNode("rPr");
+            out.simpleNode("b");
+            out.simpleNode(null, "sz", attrs("val", "9"));
+            out.simpleNode(null, "color", attrs("indexed", "81"));
+            out.simpleNode(null, "rFont", attrs("val", "SimSun")); // 宋体
+            out.simpleNode(null, "family", attrs("val", 3));
+            out.simpleNode(null, "charset", attrs("val", "134"));
+            out.endNode("rPr");
+            out.beginNode("t");
+            out.value(null, comment.text);
+            out.endNode("t");
+            out.endNode("r");
+            out.endNode("text");
+
+            out.endNode("comment");
+        }
         out.endNode("commentList");
         out.endNode("comments");
 
@@ -16,6 +16,7 @@ import io.nop.core.model.table.CellPosition;
 import io.nop.core.model.table.ICellView;
 import io.nop.core.model.table.IColumnConfig;
 import io.nop.core.model.table.IRowView;
+import io.nop.core.model.table.ITableView;
 import io.nop.core.resource.tpl.AbstractXmlTemplate;
 import io.nop.excel.ExcelConstants;
 import io.nop.excel.format.ExcelDateHelper;
@@ -45,6 +46,8 @@ public class ExcelSheetWriter extends AbstractXmlTemplate {
 
     private String drawingRelId;
 
+    private List<ExcelCommentsWriter.CellComment> comments;
+
     public ExcelSheetWriter(IExcelSheet sheet, boolean tabSelected, int sheetIndex, ExcelWorkbook workbook) {
         this.sheet = sheet;
         this.tabSelected = tabSelected;
@@ -56,6 +59,13 @@ public class ExcelSheetWriter extends AbstractXmlTemplate {
         return drawingRelId;
     }
 
+    /**
+     * 流式输出时在写出行块的同时收集的批注。非流式输出时返回null，由ExcelCommentsWriter直接遍历表格
+     */
+    public List<ExcelCommentsWriter.CellComment> getComments() {
+        return comments;
+    }
+
     @Override
     public void generateXml(IXNodeHandler out, IEvalContext context) {
         out.beginDoc("UTF-8", null, null);
@@ -73,15 +83,41 @@ public class ExcelSheetWriter extends AbstractXmlTemplate {
         attrs.put("xmlns:xr3", value("http://schemas.microsoft.com/office/spreadsheetml/2016/revision3"));
         attrs.put("xr:uid", value("{" + UUID.randomUUID() + "}"));
 
+        boolean streaming = sheet instanceof IStreamingExcelSheet;
+
         out.beginNode(null, "worksheet", attrs);
-        out.simpleNode(null, "dimension", attrs("ref", sheet.getTable().getCellRange().toABString()));
+        // 流式输出时事先无法确定表格范围，dimension节点是可选的
+        if (!streaming)
+            out.simpleNode(null, "dimension", attrs("ref", sheet.getTable().getCellRange().toABString()));
 
         genSheetViews(out, sheet);
         genCols(out, sheet);
-        genRows(out, sheet);
-        genMergeCells(out, sheet);
 
-        genLinks(out, sheet, context);
+        List<String> mergeCells = new ArrayList<>();
+        List<Link> links = new ArrayList<>();
+
+        out.beginNode(null, "sheetData", Collections.emptyMap());
+        if (streaming) {
+            List<ExcelCommentsWriter.CellComment> comments = new ArrayList<>();
+            int[] rowOffset = new int[1];
+            ((IStreamingExcelSheet) sheet).generateRows(context, table -> {
+                genRows(out, table, rowOffset[0]);
+                collectMergeCells(table, rowOffset[0], mergeCells);
+                collectLinks(table, rowOffset[0], links);
+                ExcelCommentsWriter.collectComments(table, rowOffset[0], comments);
+                rowOffset[0] += table.getRowCount();
+            });
+            this.comments = comments;
+        } else {
+            genRows(out, sheet.getTable(), 0);
+            collectMergeCells(sheet.getTable(), 0, mergeCells);
+            collectLinks(sheet.getTable(), 0, links);
+        }
+        out.endNode("sheetData");
+
+        genMergeCells(out, mergeCells);
+
+        genLinks(out, links, context);
 
         genPageMargins(out, sheet);
 
@@ -135,23 +171,22 @@ public class ExcelSheetWriter extends AbstractXmlTemplate {
         return d / UnitsHelper.DEFAULT_CHARACTER_WIDTH_IN_PT;
     }
 
-    void genRows(IXNodeHandler out, IExcelSheet sheet) {
-        out.beginNode(null, "sheetData", Collections.emptyMap());
-        List<? extends IRowView> rows = sheet.getTable().getRows();
-        int colCount = sheet.getTable().getColCount();
+    void genRows(IXNodeHandler out, ITableView table, int rowOffset) {
+        List<? extends IRowView> rows = table.getRows();
+        int colCount = table.getColCount();
         for (int i = 0, n = rows.size(); i < n; i++) {
             IRowView row = rows.get(i);
             Boolean hidden = row.isHidden() ? true : null;
+            int rowIndex = rowOffset + i;
 
             // <row r="1" spans="1:4" ht="38" customHeight="1" x14ac:dyDescent="0.3">
-            out.beginNode(null, "row", attrs("r", i + 1, "spans", "1:" + colCount,
+            out.beginNode(null, "row", attrs("r", rowIndex + 1, "spans", "1:" + colCount,
                     "ht", row.getHeight(), "customHeight", row.getHeight() != null ? "1" : null,
                     "hidden", hidden,
                     "x14ac:dyDescent", "0.3"));
-            genCells(out, i, row);
+            genCells(out, rowIndex, row);
             out.endNode("row");
         }
-        out.endNode("sheetData");
     }
 
     void genCells(IXNodeHandler out, int rowIndex, IRowView row) {
@@ -239,17 +274,19 @@ public class ExcelSheetWriter extends AbstractXmlTemplate {
         return styleId;
     }
 
-    void genMergeCells(IXNodeHandler out, IExcelSheet sheet) {
-        // <mergeCells count="1"><mergeCell ref="A6:B7"/></mergeCells>
-        List<String> cells = new ArrayList<>();
-        sheet.getTable().forEachRealCell((cell, rowIndex, colIndex) -> {
+    void collectMergeCells(ITableView table, int rowOffset, List<String> cells) {
+        table.forEachRealCell((cell, rowIndex, colIndex) -> {
             if (cell.getMergeAcross() > 0 || cell.getMergeDown() > 0) {
-                cells.add(CellPosition.toABString(rowIndex, colIndex) + ":" +
-                        CellPosition.toABString(rowIndex + cell.getMergeDown(), colIndex + cell.getMergeAcross()));
+                int row = rowOffset + rowIndex;
+                cells.add(CellPosition.toABString(row, colIndex) + ":" +
+                        CellPosition.toABString(row + cell.getMergeDown(), colIndex + cell.getMergeAcross()));
             }
             return ProcessResult.CONTINUE;
         });
+    }
 
+    void genMergeCells(IXNodeHandler out, List<String> cells) {
+        // <mergeCells count="1"><mergeCell ref="A6:B7"/></mergeCells>
         if (!cells.isEmpty()) {
             out.beginNode(null, "mergeCells", attrs("count", cells.size()));
             for (String cell : cells) {
@@ -273,15 +310,14 @@ public class ExcelSheetWriter extends AbstractXmlTemplate {
      * <hyperlink ref="B3" location="wf_status" display="dd" xr:uid="{1E0AC103-9F7F-465F-9C86-64335D36742B}"/>
      * <hyperlink ref="B4" r:id="rId1" xr:uid="{600CE871-0B2C-47DB-A4AB-A39BD76FEFE9}"/>
      */
-    void genLinks(IXNodeHandler out, IExcelSheet sheet, IEvalContext context) {
-        List<Link> links = new ArrayList<>();
-        sheet.getTable().forEachRealCell((cell, rowIndex, colIndex) -> {
+    void collectLinks(ITableView table, int rowOffset, List<Link> links) {
+        table.forEachRealCell((cell, rowIndex, colIndex) -> {
             String linkUrl = cell.getLinkUrl();
             if (linkUrl != null && linkUrl.startsWith(ExcelConstants.REF_LINK_PREFIX)) {
                 String location = linkUrl.substring(ExcelConstants.REF_LINK_PREFIX.length());
                 Link link = new Link();
                 link.index = links.size();
-                link.rowIndex = rowIndex;
+                link.rowIndex = rowOffset + rowIndex;
                 link.colIndex = colIndex;
                 link.location = location;
                 link.text = cell.getText();
@@ -292,7 +328,9 @@ public class ExcelSheetWriter extends AbstractXmlTemplate {
             }
             return ProcessResult.CONTINUE;
         });
+    }
 
+    void genLinks(IXNodeHandler out, List<Link> links, IEvalContext context) {
         if (!links.isEmpty()) {
             out.beginNode("hyperlinks");
             links.forEach(link -> {
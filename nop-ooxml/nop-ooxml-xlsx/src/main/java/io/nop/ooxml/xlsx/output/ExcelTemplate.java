@@ -120,7 +120,9 @@ public class ExcelTemplate extends AbstractOfficeTemplate {
         generateDrawings(pkg, sheet, writer.getDrawingRelId(), sheetPart, genState);
 
         IResource commentResource = new FileResource(new File(dir, commentPath));
-        new ExcelCommentsWriter(sheet).indent(isIndent()).generateToResource(commentResource, context);
+        ExcelCommentsWriter commentsWriter = writer.getComments() != null ?
+                new ExcelCommentsWriter(writer.getComments()) : new ExcelCommentsWriter(sheet);
+        commentsWriter.indent(isIndent()).generateToResource(commentResource, context);
         pkg.addFile(commentPath, commentResource);
 
         String relCommentsPath = "../comments" + sheetId + ".xml";
@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ooxml.xlsx.output;
+
+import io.nop.core.context.IEvalContext;
+import io.nop.core.model.table.ITableView;
+import io.nop.excel.model.IExcelSheet;
+
+import java.util.function.Consumer;
+
+/**
+ * 按照行块逐步生成的sheet。getTable()只需要提供列配置，行数据通过generateRows逐块产生，
+ * ExcelSheetWriter得到一个行块后立刻写出，写出之后行块即可被回收，不需要整个表格同时存在于内存中。
+ */
+public interface IStreamingExcelSheet extends IExcelSheet {
+    /**
+     * @param consumer 按顺序接收行块，行块中的行依次追加在已经输出的行之后
+     */
+    void generateRows(IEvalContext context, Consumer<ITableView> consumer);
+}
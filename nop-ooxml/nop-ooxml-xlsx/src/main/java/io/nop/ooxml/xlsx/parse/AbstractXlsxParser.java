@@ -41,7 +41,8 @@ public abstract class AbstractXlsxParser extends AbstractResourceParser<ExcelWor
     private ExcelWorkbook parseFromPkg(ExcelOfficePackage pkg) {
         this.pkg = pkg;
         IOfficePackagePart part = pkg.getPartByContentType(XSSFRelation.SHARED_STRINGS.getType());
-        sharedStringsTable = part == null ? null : new SharedStringsTableParser(true).parseFromPart(part);
+        sharedStringsTable = part == null ? null :
+                new SharedStringsTableParser(true).packStrings(isPackSharedStrings()).parseFromPart(part);
 
         workbookPart = pkg.getWorkbook();
 
@@ -59,6 +60,13 @@ public abstract class AbstractXlsxParser extends AbstractResourceParser<ExcelWor
         return wk;
     }
 
+    /**
+     * 流式读取时不会构建完整的ExcelSheet，此时共享字符串表成为主要的内存占用，需要紧凑存储
+     */
+    protected boolean isPackSharedStrings() {
+        return false;
+    }
+
     protected void endParseWorkbook(ExcelWorkbook wk) {
 
     }
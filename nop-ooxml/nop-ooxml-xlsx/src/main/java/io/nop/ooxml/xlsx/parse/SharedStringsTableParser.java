@@ -24,6 +24,7 @@ import io.nop.core.lang.xml.handler.XNodeHandlerAdapter;
 import io.nop.core.lang.xml.parse.XNodeParser;
 import io.nop.core.resource.IResource;
 import io.nop.ooxml.common.IOfficePackagePart;
+import io.nop.ooxml.xlsx.model.PackedStringList;
 import io.nop.ooxml.xlsx.model.SharedStringsPart;
 
 import java.util.ArrayList;
@@ -37,6 +38,9 @@ public class SharedStringsTableParser extends XNodeHandlerAdapter {
     }
 
     public SharedStringsPart getResult() {
+        if (strings instanceof PackedStringList)
+            ((PackedStringList) strings).trimToSize();
+
         SharedStringsPart table = new SharedStringsPart();
         table.setCount(count);
         table.setUniqueCount(uniqueCount);
@@ -57,18 +61,27 @@ public class SharedStringsTableParser extends XNodeHandlerAdapter {
     private int uniqueCount;
     private List<String> strings;
     private boolean includePhoneticRuns;
+    private boolean packStrings;
 
     public SharedStringsTableParser(boolean includePhoneticRuns) {
         this.includePhoneticRuns = includePhoneticRuns;
     }
 
+    /**
+     * 使用PackedStringList紧凑存储字符串，适用于流式读取大文件的情况
+     */
+    public SharedStringsTableParser packStrings(boolean packStrings) {
+        this.packStrings = packStrings;
+        return this;
+    }
+
     @Override
     public void beginNode(SourceLocation loc, String localName, Map<String, ValueWithLocation> attrs) {
         if ("sst".equals(localName)) {
             this.count = getAttrInt(attrs, "count", 0);
             this.uniqueCount = getAttrInt(attrs, "uniqueCount", 0);
 
-            this.strings = new ArrayList<>(this.uniqueCount);
+            this.strings = packStrings ? new PackedStringList(this.uniqueCount) : new ArrayList<>(this.uniqueCount);
             characters = new StringBuilder(64);
         } else if ("si".equals(localName)) {
             characters.setLength(0);
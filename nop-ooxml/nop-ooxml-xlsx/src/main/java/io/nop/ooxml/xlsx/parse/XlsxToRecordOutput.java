@@ -32,6 +32,11 @@ public class XlsxToRecordOutput extends AbstractXlsxParser {
         this.recordIO = Guard.notNull(recordIO, "recordIO");
     }
 
+    @Override
+    protected boolean isPackSharedStrings() {
+        return true;
+    }
+
     @Override
     protected ExcelSheet parseSheet(ExcelWorkbook workbook, XSSFSheetRef sheetRef, WorkbookPart workbookFile) {
         IOfficePackagePart sheetPart = pkg.getRelPart(workbookFile, sheetRef.getRelId());
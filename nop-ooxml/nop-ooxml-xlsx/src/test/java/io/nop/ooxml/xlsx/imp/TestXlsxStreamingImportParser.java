@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.ooxml.xlsx.imp;
+
+import io.nop.core.initialize.CoreInitialization;
+import io.nop.core.lang.json.JsonTool;
+import io.nop.core.model.object.DynamicObject;
+import io.nop.core.resource.IResource;
+import io.nop.core.resource.impl.ClassPathResource;
+import io.nop.core.unittest.BaseTestCase;
+import io.nop.excel.imp.model.ImportModel;
+import io.nop.ooxml.xlsx.model.PackedStringList;
+import io.nop.xlang.xdsl.DslModelParser;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestXlsxStreamingImportParser extends BaseTestCase {
+    @BeforeAll
+    public static void init() {
+        CoreInitialization.initialize();
+    }
+
+    @AfterAll
+    public static void destroy() {
+        CoreInitialization.destroy();
+    }
+
+    @Test
+    public void testStreamingList() {
+        ImportModel importModel = (ImportModel) new DslModelParser()
+                .parseFromResource(attachmentResource("test.imp.xml"));
+        IResource resource = new ClassPathResource("classpath:xlsx/test-imp.xlsx");
+
+        XlsxObjectLoader loader = new XlsxObjectLoader(importModel);
+        DynamicObject expected = (DynamicObject) loader.parseFromResource(resource);
+
+        List<Object> records = new ArrayList<>();
+        List<Integer> chunks = new ArrayList<>();
+        XlsxStreamingImportParser parser = new XlsxStreamingImportParser(importModel, (sheetName, sheetModel, list) -> {
+            assertEquals("域定义", sheetName);
+            chunks.add(list.size());
+            records.addAll(list);
+        });
+        parser.setChunkSize(2);
+        parser.parseFromResource(resource);
+
+        DynamicObject result = (DynamicObject) parser.getResult();
+        List<?> domains = (List<?>) expected.prop_get("domains");
+        assertTrue(domains.size() > 2);
+        assertTrue(chunks.size() > 1);
+        assertTrue(chunks.stream().allMatch(n -> n <= 2));
+        assertEquals(JsonTool.stringify(domains), JsonTool.stringify(records));
+
+        // 流式处理的列表不出现在结果对象中，其他sheet的解析结果保持不变
+        assertFalse(result.prop_has("domains"));
+        assertEquals(JsonTool.stringify(expected.prop_get("entities")),
+                JsonTool.stringify(result.prop_get("entities")));
+    }
+
+    @Test
+    public void testPackedStringList() {
+        PackedStringList list = new PackedStringList(2);
+        list.add("abc");
+        list.add("");
+        list.add("中文字符");
+        list.trimToSize();
+
+        assertEquals(3, list.size());
+        assertEquals("abc", list.get(0));
+        assertEquals("", list.get(1));
+        assertEquals("中文字符", list.get(2));
+    }
+}
@@ -12,6 +12,7 @@ import io.nop.api.core.beans.FieldSelectionBean;
 import io.nop.api.core.beans.query.QueryBean;
 import io.nop.api.core.time.IEstimatedClock;
 import io.nop.commons.cache.ICache;
+import io.nop.core.lang.sql.SQL;
 import io.nop.dao.api.ISqlExecutor;
 import io.nop.dataset.IRowMapper;
 import io.nop.dataset.rowmapper.ColumnMapRowMapper;
@@ -23,6 +24,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -247,6 +249,26 @@ public interface IOrmTemplate extends ISqlExecutor {
 
     void forceLoad(IOrmEntity entity, FieldSelectionBean selection);
 
+    /**
+     * 以游标方式遍历EQL查询返回的实体，不会一次性加载全部结果。查询语句的第一个字段必须是实体，例如select o from MyEntity o。
+     * <p>
+     * 在新的session中执行，使用只进结果集并设置JDBC fetchSize。每读取windowSize个实体，先按照selection批量加载关联属性，
+     * 然后逐个回调consumer，最后清空session，因此内存占用只与windowSize有关，与结果集大小无关。
+     * 清空session时不会执行flush，consumer中对实体的修改不会被保存。
+     *
+     * @param selection  需要批量加载的关联属性，可以为null
+     * @param windowSize 每批处理的实体个数，小于等于0时使用nop.orm.stream-window-size配置
+     * @return 处理的实体总数
+     */
+    <T extends IOrmEntity> long streamEntities(SQL sql, FieldSelectionBean selection, int windowSize,
+                                               Consumer<? super T> consumer);
+
+    /**
+     * 根据query.sourceName指定的实体名构造查询语句，然后调用{@link #streamEntities(SQL, FieldSelectionBean, int, Consumer)}
+     */
+    <T extends IOrmEntity> long streamEntities(QueryBean query, FieldSelectionBean selection, int windowSize,
+                                               Consumer<? super T> consumer);
+
     /**
      * session级别的自定义缓存，其中可以存放任意应用数据，当session关闭时缓存会被自动清空。
      */
@@ -67,4 +67,12 @@ public interface OrmConfigs {
     IConfigReference<Boolean> CFG_ORM_INTERCEPTOR_CACHE_CHECK_CHANGE =
             varRef(s_loc,"nop.orm.interceptor-cache-check-change", Boolean.class, true);
 
+    @Description("streamEntities每批处理的实体个数。每批实体处理完毕后会从session中移除，同时作为JDBC的fetchSize")
+    IConfigReference<Integer> CFG_ORM_STREAM_WINDOW_SIZE =
+            varRef(s_loc, "nop.orm.stream-window-size", Integer.class, 1000);
+
+    @Description("批量更新时将同一实体的update语句的列补齐为所有待更新实体的修改列的并集，使得它们可以在一次executeBatch中执行。" +
+            "补齐的列使用实体当前的值，只有所有补齐列都已加载的实体才会参与补齐。注意这会覆盖其他事务对这些列的并发修改")
+    IConfigReference<Boolean> CFG_ORM_BATCH_UPDATE_PAD_COLUMNS =
+            varRef(s_loc, "nop.orm.batch-update-pad-columns", Boolean.class, false);
 }
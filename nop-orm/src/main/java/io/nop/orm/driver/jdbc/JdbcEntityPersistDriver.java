@@ -11,6 +11,7 @@ import io.nop.api.core.beans.FieldSelectionBean;
 import io.nop.api.core.beans.query.OrderFieldBean;
 import io.nop.api.core.util.FutureHelper;
 import io.nop.commons.collections.IntArray;
+import io.nop.commons.collections.MutableIntArray;
 import io.nop.core.lang.sql.SQL;
 import io.nop.dao.dialect.IDialect;
 import io.nop.dao.dialect.lock.LockOption;
@@ -38,13 +39,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
+import static io.nop.orm.OrmConfigs.CFG_ORM_BATCH_UPDATE_PAD_COLUMNS;
 import static io.nop.orm.OrmErrors.ARG_ENTITY_ID;
 import static io.nop.orm.OrmErrors.ARG_ENTITY_NAME;
 
@@ -235,8 +240,8 @@ public class JdbcEntityPersistDriver implements IEntityPersistDriver {
                     SQL sql = SQL.begin().name("batchExecute").querySpace(querySpace).end();
                     jdbc().runWithConnection(sql, conn -> {
 
-                        batchExecuteCommand(conn, saveActions, action -> buildSaveSql(dialect, action));
-                        batchExecuteCommand(conn, updateActions, action -> buildUpdateSql(dialect, action));
+                        batchExecuteCommand(conn, saveActions, action -> buildSaveSql(dialect, action), true);
+                        batchExecuteUpdate(conn, dialect, updateActions);
                         return null;
                     });
                 }
@@ -254,7 +259,7 @@ public class JdbcEntityPersistDriver implements IEntityPersistDriver {
             LOG.debug("orm.driver_execute_delete:{}", entityModel.getName());
             SQL sql = SQL.begin().name("batchExecute_delete").querySpace(querySpace).end();
             jdbc().runWithConnection(sql, conn -> {
-                batchExecuteCommand(conn, deleteActions, action -> buildDeleteSql(dialect, action));
+                batchExecuteCommand(conn, deleteActions, action -> buildDeleteSql(dialect, action), false);
                 return null;
             });
         }
@@ -268,16 +273,91 @@ public class JdbcEntityPersistDriver implements IEntityPersistDriver {
         return sql.useParamsFromEntity(dialect, action.getShardSelection(), action.getEntity()).end();
     }
 
-    SQL buildUpdateSql(IDialect dialect, IBatchAction.IEntityBatchAction action) {
+    /**
+     * update语句只包含修改过的列，列集合不同时生成的SQL文本也不同，JdbcBatcher在SQL文本变化时就会提交一批。
+     * 因此这里先按照修改列集合对更新动作分组，每组对应一条SQL，可以在一次executeBatch中执行。组内保持原有的按照id排序的顺序。
+     */
+    void batchExecuteUpdate(Connection conn, IDialect dialect, List<IBatchAction.EntityUpdateAction> actions) {
+        if (actions == null || actions.isEmpty())
+            return;
+
+        for (UpdateActionGroup group : groupUpdateActions(actions, CFG_ORM_BATCH_UPDATE_PAD_COLUMNS.get())) {
+            batchExecuteCommand(conn, group.actions, action -> buildUpdateSql(dialect, action, group.propIds), false);
+        }
+    }
+
+    static class UpdateActionGroup {
+        final IntArray propIds;
+        final List<IBatchAction.EntityUpdateAction> actions = new ArrayList<>();
+
+        UpdateActionGroup(IntArray propIds) {
+            this.propIds = propIds;
+        }
+    }
+
+    static List<UpdateActionGroup> groupUpdateActions(List<IBatchAction.EntityUpdateAction> actions,
+                                                      boolean padColumns) {
+        if (actions.size() == 1) {
+            IBatchAction.EntityUpdateAction action = actions.get(0);
+            UpdateActionGroup group = new UpdateActionGroup(action.getEntity().orm_dirtyPropIds());
+            group.actions.add(action);
+            return Collections.singletonList(group);
+        }
+
+        IntArray allPropIds = null;
+        if (padColumns) {
+            MutableIntArray merged = new MutableIntArray();
+            for (IBatchAction.EntityUpdateAction action : actions) {
+                merged.merge(action.getEntity().orm_dirtyPropIds());
+            }
+            allPropIds = merged.sort();
+        }
+
+        Map<String, UpdateActionGroup> groups = new LinkedHashMap<>();
+        for (IBatchAction.EntityUpdateAction action : actions) {
+            IOrmEntity entity = action.getEntity();
+            IntArray dirtyPropIds = entity.orm_dirtyPropIds();
+            if (dirtyPropIds.isEmpty())
+                continue;
+
+            IntArray propIds = allPropIds != null && isAllPropLoaded(entity, allPropIds) ? allPropIds : dirtyPropIds;
+            groups.computeIfAbsent(signature(propIds), k -> new UpdateActionGroup(propIds)).actions.add(action);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static boolean isAllPropLoaded(IOrmEntity entity, IntArray propIds) {
+        for (int i = 0, n = propIds.size(); i < n; i++) {
+            if (!entity.orm_propLoaded(propIds.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private static String signature(IntArray propIds) {
+        StringBuilder sb = new StringBuilder(propIds.size() * 3);
+        for (int i = 0, n = propIds.size(); i < n; i++) {
+            if (i != 0)
+                sb.append(',');
+            sb.append(propIds.get(i));
+        }
+        return sb.toString();
+    }
+
+    SQL buildUpdateSql(IDialect dialect, IBatchAction.IEntityBatchAction action, IntArray propIds) {
         IOrmEntity entity = action.getEntity();
-        IntArray propIds = entity.orm_dirtyPropIds();
         if (propIds.isEmpty())
             return null;
 
-        EntitySQL sql = this.lastUpdateSql;
-        if (sql == null || dialect != this.dialect || !sql.propIds.equals(propIds)) {
+        EntitySQL sql;
+        if (dialect != this.dialect) {
             sql = GenSqlHelper.genUpdateSql(dialect, entityModel, binders, propIds);
-            this.lastUpdateSql = sql;
+        } else {
+            sql = this.lastUpdateSql;
+            if (sql == null || !sql.propIds.isEqual(propIds)) {
+                sql = GenSqlHelper.genUpdateSql(dialect, entityModel, binders, propIds);
+                this.lastUpdateSql = sql;
+            }
         }
         return sql.useParamsFromEntity(dialect, action.getShardSelection(), entity).end();
     }
@@ -290,8 +370,11 @@ public class JdbcEntityPersistDriver implements IEntityPersistDriver {
         return sql.useParamsFromEntity(dialect, action.getShardSelection(), action.getEntity()).end();
     }
 
+    /**
+     * @param insert 为true时表示都是单行insert语句，JdbcBatcher可以将它们合并为多行insert语句执行
+     */
     void batchExecuteCommand(Connection conn, List<? extends IBatchAction.IEntityBatchAction> actions,
-                             Function<IBatchAction.IEntityBatchAction, SQL> sqlCreator) {
+                             Function<IBatchAction.IEntityBatchAction, SQL> sqlCreator, boolean insert) {
         if (actions == null || actions.isEmpty())
             return;
 
@@ -303,7 +386,11 @@ public class JdbcEntityPersistDriver implements IEntityPersistDriver {
             if (sql == null)
                 continue;
 
-            batcher.addCommand(sql, true, action.getCallback());
+            if (insert) {
+                batcher.addInsertCommand(sql, action.getCallback());
+            } else {
+                batcher.addCommand(sql, true, action.getCallback());
+            }
         }
         batcher.flush();
     }
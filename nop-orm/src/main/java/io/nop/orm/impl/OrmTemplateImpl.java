@@ -7,12 +7,14 @@
  */
 package io.nop.orm.impl;
 
+import io.nop.api.core.annotations.txn.TransactionPropagation;
 import io.nop.api.core.beans.FieldSelectionBean;
 import io.nop.api.core.beans.LongRangeBean;
 import io.nop.api.core.beans.query.QueryBean;
 import io.nop.api.core.context.ContextProvider;
 import io.nop.api.core.time.IEstimatedClock;
 import io.nop.api.core.util.FutureHelper;
+import io.nop.api.core.util.Guard;
 import io.nop.api.core.util.ICancelToken;
 import io.nop.commons.cache.ICache;
 import io.nop.commons.cache.ICacheProvider;
@@ -20,6 +22,7 @@ import io.nop.core.lang.sql.SQL;
 import io.nop.dao.api.AbstractSqlExecutor;
 import io.nop.dao.dialect.IDialect;
 import io.nop.dataset.IComplexDataSet;
+import io.nop.dataset.IDataRow;
 import io.nop.dataset.IDataSet;
 import io.nop.dataset.IRowMapper;
 import io.nop.dataset.rowmapper.SmartRowMapper;
@@ -28,6 +31,7 @@ import io.nop.orm.IOrmEntity;
 import io.nop.orm.IOrmSession;
 import io.nop.orm.IOrmSessionFactory;
 import io.nop.orm.IOrmTemplate;
+import io.nop.orm.dao.DaoQueryHelper;
 import io.nop.orm.exceptions.OrmException;
 import io.nop.orm.mdx.MdxQueryExecutor;
 import io.nop.orm.model.IEntityModel;
@@ -39,13 +43,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static io.nop.orm.OrmConfigs.CFG_ORM_STREAM_WINDOW_SIZE;
 import static io.nop.orm.OrmErrors.ERR_ORM_NOT_IN_SESSION;
 
 public class OrmTemplateImpl extends AbstractSqlExecutor implements IOrmTemplate {
@@ -475,6 +482,67 @@ public class OrmTemplateImpl extends AbstractSqlExecutor implements IOrmTemplate
         queue.flush();
     }
 
+    @Override
+    public <T extends IOrmEntity> long streamEntities(SQL sql, FieldSelectionBean selection, int windowSize,
+                                                      Consumer<? super T> consumer) {
+        int window = windowSize > 0 ? windowSize : CFG_ORM_STREAM_WINDOW_SIZE.get();
+        if (sql.getFetchSize() <= 0 && sql.getFetchSize() != IDialect.STREAMING_FETCH_SIZE) {
+            int fetchSize = getDialectForQuerySpace(sql.getQuerySpace()).getStreamFetchSize(window);
+            // MySQL的流式结果集关闭之前不能在同一连接上执行其他语句，而批量加载关联对象需要执行查询
+            if (fetchSize == IDialect.STREAMING_FETCH_SIZE && selection != null)
+                fetchSize = window;
+            sql = SQL.begin(sql).allowUnderscoreName(sql.isAllowUnderscoreName())
+                    .enableFilter(sql.isEnableFilter()).fetchSize(fetchSize).end();
+        }
+        SQL streamSql = sql;
+
+        // PostgreSQL等数据库只有在关闭autocommit时才会使用游标按照fetchSize分批读取，否则仍然一次性读取全部结果
+        return runInNewSession(session -> sessionFactory.txn().runInTransaction(streamSql.getQuerySpace(),
+                TransactionPropagation.REQUIRED, txn -> session.executeQuery(streamSql, null, ds -> {
+                    List<T> entities = new ArrayList<>(window);
+                    long count = 0;
+                    for (IDataRow row : ds) {
+                        entities.add((T) row.getObject(0));
+                        if (entities.size() >= window) {
+                            count += processStreamWindow(session, entities, selection, consumer);
+                        }
+                    }
+                    count += processStreamWindow(session, entities, selection, consumer);
+                    return count;
+                })));
+    }
+
+    /**
+     * 处理完一个窗口的实体之后清空session，确保已处理的实体可以被垃圾回收
+     */
+    private <T extends IOrmEntity> int processStreamWindow(IOrmSession session, List<T> entities,
+                                                           FieldSelectionBean selection, Consumer<? super T> consumer) {
+        int size = entities.size();
+        if (size == 0)
+            return 0;
+
+        if (selection != null) {
+            IOrmBatchLoadQueue queue = session.getBatchLoadQueue();
+            queue.enqueueSelection(entities, selection);
+            queue.flush();
+        }
+
+        for (T entity : entities) {
+            consumer.accept(entity);
+        }
+        entities.clear();
+        session.clear();
+        return size;
+    }
+
+    @Override
+    public <T extends IOrmEntity> long streamEntities(QueryBean query, FieldSelectionBean selection, int windowSize,
+                                                      Consumer<? super T> consumer) {
+        String entityName = Guard.notEmpty(query.getSourceName(), "query.sourceName");
+        SQL sql = DaoQueryHelper.queryToSelectObjectSql(entityName, query);
+        return streamEntities(sql, selection, windowSize, consumer);
+    }
+
     @Override
     public void forceLoad(IOrmEntity entity, FieldSelectionBean selection) {
         requireSession().forceLoad(entity, selection);
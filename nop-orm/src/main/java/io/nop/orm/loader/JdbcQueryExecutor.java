@@ -10,6 +10,7 @@ package io.nop.orm.loader;
 import io.nop.api.core.beans.LongRangeBean;
 import io.nop.api.core.util.ICancelToken;
 import io.nop.core.lang.sql.SQL;
+import io.nop.dao.dialect.IDialect;
 import io.nop.dao.jdbc.IJdbcTemplate;
 import io.nop.dataset.IComplexDataSet;
 import io.nop.dataset.IDataRow;
@@ -20,6 +21,7 @@ import io.nop.dataset.impl.TransformedComplexDataSet;
 import io.nop.dataset.impl.TransformedDataSet;
 import io.nop.orm.IOrmDaoListener;
 import io.nop.orm.eql.ICompiledSql;
+import io.nop.orm.eql.ast.SqlStatementKind;
 import io.nop.orm.eql.meta.ISqlExprMeta;
 import io.nop.orm.model.IEntityModel;
 import io.nop.orm.persister.IPersistEnv;
@@ -29,7 +31,10 @@ import jakarta.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 
 import static io.nop.orm.persister.OrmAssembly.readRow;
@@ -73,7 +78,7 @@ public class JdbcQueryExecutor implements IQueryExecutor {
             eql.dump("session.executeQuery");
         ICompiledSql compiled = env.compileSql(eql.getName(), eql.getText(), eql.isDisableLogicalDelete(),
                 eql.isAllowUnderscoreName(), eql.isEnableFilter());
-        return executeQuerySql(session, compiled, eql.getMarkerValues(), range, callback);
+        return doExecuteQuery(session, compiled, eql.getMarkerValues(), eql, range, callback);
     }
 
     @Override
@@ -81,9 +86,14 @@ public class JdbcQueryExecutor implements IQueryExecutor {
                                  @Nonnull List<Object> markerValues,
                                  LongRangeBean range,
                                  @Nonnull Function<? super IDataSet, T> callback) {
+        return doExecuteQuery(session, compiled, markerValues, null, range, callback);
+    }
+
+    private <T> T doExecuteQuery(IOrmSessionImplementor session, ICompiledSql compiled, List<Object> markerValues,
+                                 SQL eql, LongRangeBean range, Function<? super IDataSet, T> callback) {
         invokeListener(compiled);
 
-        SQL sql = transformEQL(compiled, markerValues);
+        SQL sql = transformEQL(compiled, markerValues, eql);
 
         return jdbc().executeQuery(sql, range, ds -> {
             ds = new TransformedDataSet(ds, compiled.getDataSetMeta(), rs -> transformRow(rs, compiled, session));
@@ -98,15 +108,21 @@ public class JdbcQueryExecutor implements IQueryExecutor {
             eql.dump("session.executeStatement");
         ICompiledSql compiled = env.compileSql(eql.getName(), eql.getText(), eql.isDisableLogicalDelete(),
                 eql.isAllowUnderscoreName(), eql.isEnableFilter());
-        return executeStatementSql(session, compiled, eql.getMarkerValues(), range, callback, cancelToken);
+        return doExecuteStatement(session, compiled, eql.getMarkerValues(), eql, range, callback, cancelToken);
     }
 
     @Override
     public <T> T executeStatementSql(@Nonnull IOrmSessionImplementor session, @Nonnull ICompiledSql compiled,
                                      @Nonnull List<Object> markerValues, LongRangeBean range,
                                      @Nonnull Function<IComplexDataSet, T> callback, ICancelToken cancelToken) {
+        return doExecuteStatement(session, compiled, markerValues, null, range, callback, cancelToken);
+    }
+
+    private <T> T doExecuteStatement(IOrmSessionImplementor session, ICompiledSql compiled, List<Object> markerValues,
+                                     SQL eql, LongRangeBean range, Function<IComplexDataSet, T> callback,
+                                     ICancelToken cancelToken) {
         invokeListener(compiled);
-        SQL sql = transformEQL(compiled, markerValues);
+        SQL sql = transformEQL(compiled, markerValues, eql);
         return jdbc().executeStatement(sql, range, ds -> {
             ds = new TransformedComplexDataSet(ds, compiled.getDataSetMeta(),
                     rs -> transformRow(rs, compiled, session));
@@ -144,10 +160,41 @@ public class JdbcQueryExecutor implements IQueryExecutor {
     }
 
     private SQL transformEQL(ICompiledSql compiled, List<Object> markerValues) {
+        return transformEQL(compiled, markerValues, null);
+    }
+
+    /**
+     * 编译缓存中的ICompiledSql与具体调用无关，eql上指定的fetchSize、timeout和useQueryCache需要传递到最终生成的SQL上。
+     * 同时记录语句所访问的表，用于建立查询结果缓存的依赖关系，或者在修改后使得缓存失效
+     */
+    private SQL transformEQL(ICompiledSql compiled, List<Object> markerValues, SQL eql) {
         List<Object> params = compiled.buildParams(markerValues);
-        return new GenSqlTransformer(env.getShardSelector(), env.getOrmModel(), env, env,
+        SQL.SqlBuilder sb = new GenSqlTransformer(env.getShardSelector(), env.getOrmModel(), env, env,
                 this.env.getEntityFilterProvider())
-                .transform(compiled.getSql(), params).end();
+                .transform(compiled.getSql(), params);
+        if (eql != null) {
+            // 负数fetchSize中只有MySQL的流式读取标记有意义，其他值表示使用缺省设置
+            if (eql.getFetchSize() > 0 || eql.getFetchSize() == IDialect.STREAMING_FETCH_SIZE)
+                sb.fetchSize(eql.getFetchSize());
+            if (eql.getTimeout() > 0)
+                sb.timeout(eql.getTimeout());
+        }
+
+        if (compiled.getStatementKind() == SqlStatementKind.SELECT) {
+            if (eql != null && eql.isUseQueryCache())
+                sb.useQueryCache().tableNames(getTableNames(compiled.getReadEntityNames()));
+        } else if (compiled.getWriteEntityName() != null) {
+            sb.tableNames(getTableNames(Collections.singletonList(compiled.getWriteEntityName())));
+        }
+        return sb.end();
+    }
+
+    private Set<String> getTableNames(List<String> entityNames) {
+        Set<String> ret = new HashSet<>();
+        for (String entityName : entityNames) {
+            ret.add(env.getOrmModel().requireEntityModel(entityName).getTableName());
+        }
+        return ret;
     }
 
     protected IDataRow transformRow(IDataRow rs, ICompiledSql query, IOrmSessionImplementor session) {
@@ -22,6 +22,7 @@ import io.nop.commons.util.MathHelper;
 import io.nop.commons.util.StringHelper;
 import io.nop.core.reflect.bean.IBeanConstructor;
 import io.nop.dao.DaoConstants;
+import io.nop.dao.jdbc.IJdbcTemplate;
 import io.nop.dao.shard.ShardSelection;
 import io.nop.dao.txn.ITransaction;
 import io.nop.dao.txn.ITransactionListener;
@@ -41,6 +42,7 @@ import io.nop.orm.session.IOrmSessionImplementor;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -610,7 +612,22 @@ public class EntityPersisterImpl implements IEntityPersister {
                 daoListener.onDelete(entityModel);
             }
         }
-        return driver.batchExecuteAsync(topoAsc, querySpace, saveActions, updateActions, deleteActions, session);
+        return driver.batchExecuteAsync(topoAsc, querySpace, saveActions, updateActions, deleteActions, session)
+                .thenRun(() -> invalidateQueryResultCache(querySpace, saveActions, updateActions, deleteActions));
+    }
+
+    void invalidateQueryResultCache(String querySpace, List<?> saveActions, List<?> updateActions,
+                                    List<?> deleteActions) {
+        if (isEmpty(saveActions) && isEmpty(updateActions) && isEmpty(deleteActions))
+            return;
+
+        IJdbcTemplate jdbc = env.jdbc();
+        if (jdbc != null)
+            jdbc.invalidateQueryResultCache(querySpace, Collections.singleton(entityModel.getTableName()));
+    }
+
+    private boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
     }
 
     @Override
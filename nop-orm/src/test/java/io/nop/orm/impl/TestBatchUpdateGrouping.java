@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.orm.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nop.app.SimsCollege;
+import io.nop.dao.api.IEntityDao;
+import io.nop.dao.jdbc.impl.JdbcTemplateImpl;
+import io.nop.dao.metrics.DaoMetricsImpl;
+import io.nop.orm.AbstractOrmTestCase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nop.orm.OrmConfigs.CFG_ORM_BATCH_UPDATE_PAD_COLUMNS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestBatchUpdateGrouping extends AbstractOrmTestCase {
+    static final int COUNT = 20;
+
+    final List<Integer> updateBatchSizes = new ArrayList<>();
+
+    @AfterEach
+    public void resetConfig() {
+        setTestConfig(CFG_ORM_BATCH_UPDATE_PAD_COLUMNS, false);
+    }
+
+    @Test
+    public void testGroupByDirtyProps() {
+        updateAlternateProps();
+        // 按照修改列分为两组，每组一次executeBatch
+        assertEquals(List.of(COUNT / 2, COUNT / 2), updateBatchSizes);
+        checkUpdated();
+    }
+
+    @Test
+    public void testPadColumns() {
+        setTestConfig(CFG_ORM_BATCH_UPDATE_PAD_COLUMNS, true);
+        updateAlternateProps();
+        assertEquals(List.of(COUNT), updateBatchSizes);
+        checkUpdated();
+    }
+
+    void updateAlternateProps() {
+        IEntityDao<SimsCollege> dao = daoProvider().daoFor(SimsCollege.class);
+        orm().runInSession(() -> {
+            for (int i = 0; i < COUNT; i++) {
+                SimsCollege college = dao.newEntity();
+                college.setCollegeId("c" + (100 + i));
+                college.setCollegeName("name" + i);
+                college.setIntro("intro" + i);
+                dao.saveEntity(college);
+            }
+        });
+
+        ((JdbcTemplateImpl) jdbcTemplate).setDaoMetrics(new DaoMetricsImpl(new SimpleMeterRegistry(), null) {
+            @Override
+            public void onBatchSize(String sql, int batchSize) {
+                super.onBatchSize(sql, batchSize);
+                if (sql.startsWith("update"))
+                    updateBatchSizes.add(batchSize);
+            }
+        });
+
+        orm().runInSession(() -> {
+            for (int i = 0; i < COUNT; i++) {
+                SimsCollege college = dao.getEntityById("c" + (100 + i));
+                if (i % 2 == 0) {
+                    college.setCollegeName("newName" + i);
+                } else {
+                    college.setIntro("newIntro" + i);
+                }
+            }
+        });
+        ((JdbcTemplateImpl) jdbcTemplate).setDaoMetrics(null);
+    }
+
+    void checkUpdated() {
+        IEntityDao<SimsCollege> dao = daoProvider().daoFor(SimsCollege.class);
+        orm().runInSession(() -> {
+            for (int i = 0; i < COUNT; i++) {
+                SimsCollege college = dao.getEntityById("c" + (100 + i));
+                assertEquals(i % 2 == 0 ? "newName" + i : "name" + i, college.getCollegeName());
+                assertEquals(i % 2 == 0 ? "intro" + i : "newIntro" + i, college.getIntro());
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.orm.impl;
+
+import io.nop.core.lang.sql.SQL;
+import io.nop.dao.jdbc.IJdbcTemplate;
+import io.nop.dao.jdbc.cache.QueryResultCache;
+import io.nop.dao.jdbc.impl.JdbcTemplateImpl;
+import io.nop.orm.AbstractOrmTestCase;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestOrmQueryResultCache extends AbstractOrmTestCase {
+
+    @Override
+    protected IJdbcTemplate createJdbcTemplate() {
+        JdbcTemplateImpl jdbc = (JdbcTemplateImpl) super.createJdbcTemplate();
+        jdbc.setQueryResultCache(new QueryResultCache(100, 0));
+        return jdbc;
+    }
+
+    long countColleges(int min, int max) {
+        SQL sql = SQL.begin().sql("select count(1) from io.nop.app.SimsCollege o where o.collegeId between ? and ?",
+                String.valueOf(min), String.valueOf(max)).useQueryCache().end();
+        return ((Number) orm().findFirst(sql)).longValue();
+    }
+
+    /**
+     * 直接通过JDBC连接删除数据，不会触发缓存失效
+     */
+    void deleteWithoutNotify(int id) {
+        jdbc().runWithConnection(new SQL("delete"), conn -> {
+            try (Statement st = conn.createStatement()) {
+                return st.executeUpdate("delete from sims_college where college_id='" + id + "'");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidateOnFlush() {
+        insertColleges(1001, 1003);
+        assertEquals(3, countColleges(1001, 1004));
+
+        deleteWithoutNotify(1001);
+        assertEquals(3, countColleges(1001, 1004));
+
+        insertColleges(1004, 1004);
+        assertEquals(3, countColleges(1001, 1004));
+    }
+
+    @Test
+    public void testInvalidateOnEqlUpdate() {
+        insertColleges(2001, 2003);
+        assertEquals(3, countColleges(2001, 2003));
+
+        deleteWithoutNotify(2001);
+        assertEquals(3, countColleges(2001, 2003));
+
+        orm().runInSession(() -> {
+            orm().executeUpdate(SQL.begin().sql("update io.nop.app.SimsCollege o set o.intro='x'").end());
+        });
+        assertEquals(2, countColleges(2001, 2003));
+    }
+}
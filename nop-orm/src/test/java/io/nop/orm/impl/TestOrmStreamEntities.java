@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.orm.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.nop.app.SimsCollege;
+import io.nop.commons.metrics.GlobalMeterRegistry;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.sql.SQL;
+import io.nop.dao.dialect.DialectManager;
+import io.nop.dao.dialect.IDialect;
+import io.nop.orm.AbstractOrmTestCase;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestOrmStreamEntities extends AbstractOrmTestCase {
+    /**
+     * 记录每条语句上实际设置的fetchSize
+     */
+    final Map<String, Integer> fetchSizes = new ConcurrentHashMap<>();
+
+    @Override
+    protected HikariDataSource createDataSource() {
+        HikariDataSource ds = new HikariDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return recordFetchSize(super.getConnection());
+            }
+        };
+        ds.setMetricRegistry(GlobalMeterRegistry.instance());
+        ds.setDriverClassName("org.h2.Driver");
+        ds.setJdbcUrl("jdbc:h2:mem:" + StringHelper.generateUUID());
+        return ds;
+    }
+
+    Connection recordFetchSize(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object ret = invoke(conn, method, args);
+                    if (method.getName().equals("prepareStatement") && ret instanceof PreparedStatement) {
+                        String sql = (String) args[0];
+                        PreparedStatement ps = (PreparedStatement) ret;
+                        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{PreparedStatement.class},
+                                (p, m, a) -> {
+                                    if (m.getName().equals("setFetchSize"))
+                                        fetchSizes.put(sql, (Integer) a[0]);
+                                    return invoke(ps, m, a);
+                                });
+                    }
+                    return ret;
+                });
+    }
+
+    static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Test
+    public void testFetchSizeAndTransaction() {
+        insertColleges(90001, 90025);
+
+        List<Boolean> inTransaction = new ArrayList<>();
+        SQL sql = SQL.begin().sql("select o from io.nop.app.SimsCollege o where o.collegeName like 'College900%'").end();
+        long count = orm().streamEntities(sql, null, 10, (SimsCollege entity) -> {
+            if (inTransaction.isEmpty())
+                inTransaction.add(transactionTemplate.isTransactionOpened(null));
+        });
+        assertEquals(25, count);
+        // 在事务中执行，连接关闭了autocommit
+        assertEquals(List.of(true), inTransaction);
+
+        String streamSql = fetchSizes.keySet().stream().filter(s -> s.toLowerCase().contains(" like "))
+                .findFirst().orElse(null);
+        assertEquals(10, fetchSizes.get(streamSql));
+    }
+
+    @Test
+    public void testMySqlStreamingFetchSize() {
+        IDialect dialect = DialectManager.instance().getDialect("mysql");
+        assertEquals(IDialect.STREAMING_FETCH_SIZE, dialect.getStreamFetchSize(10));
+
+        IDialect h2 = DialectManager.instance().getDialect("h2");
+        assertEquals(10, h2.getStreamFetchSize(10));
+    }
+}
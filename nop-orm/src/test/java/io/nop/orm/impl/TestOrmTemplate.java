@@ -8,19 +8,26 @@
 package io.nop.orm.impl;
 
 import io.nop.api.core.annotations.txn.TransactionPropagation;
+import io.nop.api.core.beans.FilterBeans;
+import io.nop.api.core.beans.query.QueryBean;
 import io.nop.app.SimsClass;
 import io.nop.app.SimsCollege;
 import io.nop.core.lang.sql.SQL;
 import io.nop.orm.AbstractOrmTestCase;
 import io.nop.orm.IOrmEntitySet;
+import io.nop.orm.IOrmSession;
 import io.nop.orm.IOrmSessionFactory;
 import io.nop.orm.eql.ICompiledSql;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class TestOrmTemplate extends AbstractOrmTestCase {
@@ -168,4 +175,32 @@ public class TestOrmTemplate extends AbstractOrmTestCase {
             orm().findAll(sql);
         });
     }
+
+    @Test
+    public void testStreamEntities() {
+        insertColleges(90001, 90025);
+
+        List<SimsCollege> prev = new ArrayList<>();
+        AtomicInteger windowCount = new AtomicInteger();
+        SQL sql = SQL.begin().sql("select o from io.nop.app.SimsCollege o where o.collegeName like 'College900%' order by o.collegeId").end();
+        long count = orm().streamEntities(sql, null, 10, (SimsCollege entity) -> {
+            IOrmSession session = orm().currentSession();
+            assertTrue(session.contains(entity));
+            // 前一个窗口的实体已经从session中移除
+            if (!prev.isEmpty() && !session.contains(prev.get(prev.size() - 1))) {
+                windowCount.incrementAndGet();
+                prev.clear();
+            }
+            prev.add(entity);
+        });
+        assertEquals(25, count);
+        assertEquals(2, windowCount.get());
+
+        QueryBean query = new QueryBean();
+        query.setSourceName(SimsCollege.class.getName());
+        query.addFilter(FilterBeans.gt("collegeId", "90002"));
+        query.addFilter(FilterBeans.le("collegeId", "90025"));
+        assertEquals(23, orm().streamEntities(query, null, 0, entity -> {
+        }));
+    }
 }
@@ -7,6 +7,7 @@
  */
 package io.nop.quarkus.web.service;
 
+import io.nop.api.core.util.FutureHelper;
 import io.nop.graphql.core.ast.GraphQLOperationType;
 import io.nop.graphql.core.web.GraphQLWebService;
 import io.nop.http.api.server.IHttpServerContext;
@@ -22,13 +23,18 @@ import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.CompletionStage;
 
+import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_STREAMING_ENABLED;
 import static io.nop.graphql.core.GraphQLConstants.SYS_PARAM_ARGS;
 import static io.nop.graphql.core.GraphQLConstants.SYS_PARAM_SELECTION;
 import static io.nop.quarkus.web.utils.QuarkusExecutorHelper.withRoutingContext;
@@ -43,9 +49,23 @@ public class QuarkusGraphQLWebService extends GraphQLWebService {
     @Path("/graphql")
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
     public CompletionStage<Response> graphql(@Context RoutingContext routingContext, String body) {
+        if (CFG_GRAPHQL_STREAMING_ENABLED.get())
+            return FutureHelper.success(buildStreamingGraphQLResponse(routingContext, body));
         return withRoutingContext(routingContext, () -> runGraphQL(body, this::buildJaxrsGraphQLResponse));
     }
 
+    /**
+     * 在写出响应时才执行GraphQL请求，结果直接写入输出流。响应头此时已经发送，因此context中设置的响应头会被忽略
+     */
+    protected Response buildStreamingGraphQLResponse(RoutingContext routingContext, String body) {
+        StreamingOutput output = os -> {
+            Writer out = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+            FutureHelper.syncGet(withRoutingContext(routingContext, () -> runGraphQLToWriter(body, out)));
+            out.flush();
+        };
+        return Response.ok(output, MediaType.APPLICATION_JSON + ";charset=UTF-8").build();
+    }
+
     @POST
     @Path("/r/{operationName}")
     @Produces(MediaType.APPLICATION_JSON + ";charset=UTF-8")
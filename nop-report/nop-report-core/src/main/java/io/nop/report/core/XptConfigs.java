@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core;
+
+import io.nop.api.core.annotations.core.Description;
+import io.nop.api.core.annotations.core.Locale;
+import io.nop.api.core.config.IConfigReference;
+import io.nop.api.core.util.SourceLocation;
+
+import static io.nop.api.core.config.AppConfig.varRef;
+
+@Locale("zh-CN")
+public interface XptConfigs {
+    SourceLocation s_loc = SourceLocation.fromClass(XptConfigs.class);
+
+    @Description("并行求值单元格所使用的线程池大小，小于等于0时使用CPU个数。只在第一次使用时读取")
+    IConfigReference<Integer> CFG_XPT_PARALLEL_EVAL_POOL_SIZE =
+            varRef(s_loc, "nop.report.parallel-eval.pool-size", Integer.class, 0);
+
+    @Description("并行求值时每个任务至少处理的单元格个数，同一层中的单元格个数不超过此值时直接在当前线程中求值")
+    IConfigReference<Integer> CFG_XPT_PARALLEL_EVAL_BLOCK_SIZE =
+            varRef(s_loc, "nop.report.parallel-eval.block-size", Integer.class, 64);
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.dataset;
+
+import io.nop.commons.collections.IntHashMap;
+import io.nop.commons.collections.MutableIntArray;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 报表数据集的列式表示。原始数据行只保存一份，数据子集通过行号数组来表示，各个字段对应的列在第一次使用时构建并缓存。
+ * 单元格展开时的group/where/sum等操作直接基于列数据执行，不再反复通过反射读取对象属性。
+ * <p>
+ * 列数据缓存的是构建时刻的字段值，报表运行期间数据集被视为只读。
+ */
+public class ColumnarDataSet {
+    private final Object[] rows;
+    private final Map<String, ReportDataColumn> columns = new ConcurrentHashMap<>();
+
+    public ColumnarDataSet(List<Object> items) {
+        this.rows = items.toArray();
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    public Object getRow(int index) {
+        return rows[index];
+    }
+
+    public ReportDataColumn column(String field) {
+        return columns.computeIfAbsent(field, f -> new ReportDataColumn(f, rows));
+    }
+
+    /**
+     * @param rowIds 为null表示全部行
+     */
+    public List<Object> rowList(int[] rowIds) {
+        if (rowIds == null)
+            return new RowList(rows, null, rows.length);
+        return new RowList(rows, rowIds, rowIds.length);
+    }
+
+    static final class RowList extends AbstractList<Object> implements RandomAccess {
+        private final Object[] rows;
+        private final int[] rowIds;
+        private final int size;
+
+        RowList(Object[] rows, int[] rowIds, int size) {
+            this.rows = rows;
+            this.rowIds = rowIds;
+            this.size = size;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            return rowIds == null ? rows[index] : rows[rowIds[index]];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    public List<KeyedReportDataSet> group(String dsName, int[] rowIds, String field) {
+        ReportDataColumn column = column(field);
+        if (rowIds == null) {
+            int[][] index = column.getGroupIndex();
+            List<KeyedReportDataSet> ret = new ArrayList<>(index.length);
+            for (int code = 0, n = index.length; code < n; code++) {
+                ret.add(new KeyedReportDataSet(dsName, this, index[code], column.getDictValue(code)));
+            }
+            return ret;
+        }
+
+        // 子集分组只访问子集中的行，组的顺序为编码在子集中第一次出现的顺序
+        int[] codes = column.getCodes();
+        IntHashMap<MutableIntArray> buckets = new IntHashMap<>();
+        MutableIntArray order = new MutableIntArray();
+        for (int row : rowIds) {
+            int code = codes[row];
+            MutableIntArray bucket = buckets.get(code);
+            if (bucket == null) {
+                bucket = new MutableIntArray();
+                buckets.put(code, bucket);
+                order.add(code);
+            }
+            bucket.add(row);
+        }
+
+        List<KeyedReportDataSet> ret = new ArrayList<>(order.size());
+        for (int i = 0, n = order.size(); i < n; i++) {
+            int code = order.get(i);
+            ret.add(new KeyedReportDataSet(dsName, this, buckets.get(code).toArray(), column.getDictValue(code)));
+        }
+        return ret;
+    }
+
+    public int[] where(int[] rowIds, String field, Object value) {
+        ReportDataColumn column = column(field);
+        int code = column.codeOf(value);
+        if (code < 0)
+            return new int[0];
+
+        int[] codes = column.getCodes();
+        int n = rowIds == null ? rows.length : rowIds.length;
+        MutableIntArray ret = new MutableIntArray();
+        for (int i = 0; i < n; i++) {
+            int row = rowIds == null ? i : rowIds[i];
+            // 与Underscore.where一致，null数据行总是被过滤掉
+            if (codes[row] == code && rows[row] != null)
+                ret.add(row);
+        }
+        return ret.toArray();
+    }
+
+    public int[] where(int[] rowIds, Map<String, Object> props) {
+        if (props.isEmpty())
+            return nonNullRows(rowIds);
+
+        int[] ret = rowIds;
+        for (Map.Entry<String, Object> entry : props.entrySet()) {
+            ret = where(ret, entry.getKey(), entry.getValue());
+            if (ret.length == 0)
+                break;
+        }
+        return ret;
+    }
+
+    private int[] nonNullRows(int[] rowIds) {
+        int n = rowIds == null ? rows.length : rowIds.length;
+        MutableIntArray ret = new MutableIntArray(n);
+        for (int i = 0; i < n; i++) {
+            int row = rowIds == null ? i : rowIds[i];
+            if (rows[row] != null)
+                ret.add(row);
+        }
+        return ret.toArray();
+    }
+
+    /**
+     * 求两个子集的交集，结果保持rowIds1中的顺序。
+     */
+    public int[] intersect(int[] rowIds1, int[] rowIds2) {
+        if (rowIds1 == null)
+            return rowIds2;
+        if (rowIds2 == null)
+            return rowIds1;
+
+        if (isAscending(rowIds1) && isAscending(rowIds2)) {
+            int[] ret = new int[Math.min(rowIds1.length, rowIds2.length)];
+            int count = 0;
+            int i = 0, j = 0;
+            while (i < rowIds1.length && j < rowIds2.length) {
+                int a = rowIds1[i], b = rowIds2[j];
+                if (a == b) {
+                    ret[count++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return count == ret.length ? ret : Arrays.copyOf(ret, count);
+        }
+
+        BitSet set = new BitSet(rows.length);
+        for (int row : rowIds2) {
+            set.set(row);
+        }
+        MutableIntArray ret = new MutableIntArray();
+        for (int row : rowIds1) {
+            if (set.get(row))
+                ret.add(row);
+        }
+        return ret.toArray();
+    }
+
+    static boolean isAscending(int[] rowIds) {
+        for (int i = 1, n = rowIds.length; i < n; i++) {
+            if (rowIds[i] <= rowIds[i - 1])
+                return false;
+        }
+        return true;
+    }
+}
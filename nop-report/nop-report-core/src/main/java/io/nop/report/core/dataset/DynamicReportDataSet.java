@@ -14,7 +14,10 @@ import io.nop.report.core.engine.IXptRuntime;
 import io.nop.report.core.model.ExpandedCell;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import static io.nop.report.core.XptErrors.ARG_DS_NAME;
 import static io.nop.report.core.XptErrors.ERR_XPT_MISSING_VAR_DS;
@@ -30,6 +33,11 @@ public class DynamicReportDataSet extends ReportDataSet {
         this.xptRt = xptRt;
     }
 
+    public DynamicReportDataSet(String dsName, ColumnarDataSet columnar, int[] rowIds, IXptRuntime xptRt) {
+        super(dsName, columnar, rowIds);
+        this.xptRt = xptRt;
+    }
+
     public static DynamicReportDataSet makeDataSet(IXptRuntime xptRt, String dsName) {
         Object value = xptRt.getEvalScope().getValue(dsName);
         if (value == null) {
@@ -48,57 +56,80 @@ public class DynamicReportDataSet extends ReportDataSet {
             DynamicReportDataSet rs = (DynamicReportDataSet) value;
             if (rs.getDsName().equals(dsName))
                 return rs;
-            ds = new DynamicReportDataSet(dsName, rs.getItems(), xptRt);
+            ds = rs.getColumnar() != null ? new DynamicReportDataSet(dsName, rs.getColumnar(), rs.getRowIds(), xptRt)
+                    : new DynamicReportDataSet(dsName, rs.getItems(), xptRt);
+        } else if (value instanceof ReportDataSet && ((ReportDataSet) value).getColumnar() != null) {
+            ReportDataSet rs = (ReportDataSet) value;
+            ds = new DynamicReportDataSet(dsName, rs.getColumnar(), rs.getRowIds(), xptRt);
         } else {
+            // 数据集会在单元格展开过程中被反复分组和汇总，转换为列式结构，各个字段的列数据只构建一次
             List<Object> items = CollectionHelper.toList(value);
-            ds = new DynamicReportDataSet(dsName, items, xptRt);
+            ds = new DynamicReportDataSet(dsName, new ColumnarDataSet(items), null, xptRt);
         }
         xptRt.getEvalScope().setLocalValue(null, dsName, ds);
         return ds;
     }
 
     @Override
-    public List<Object> current() {
+    protected ReportDataSet currentDataSet() {
         ExpandedCell cell = xptRt.getCell();
         if (cell == null)
-            return getItems();
+            return this;
 
-        List<Object> items = getDsItems(cell, getDsName());
-        if (items == null)
-            items = getItems();
-        return items;
+        ReportDataSet ds = getDsSubset(cell, getDsName());
+        if (ds == null)
+            return this;
+        return ds;
     }
 
     public static List<Object> getDsItems(ExpandedCell cell, String dsName) {
+        ReportDataSet ds = getDsSubset(cell, dsName);
+        return ds == null ? null : ds.getItems();
+    }
+
+    /**
+     * 根据单元格的行父格和列父格确定当前的数据子集
+     */
+    public static ReportDataSet getDsSubset(ExpandedCell cell, String dsName) {
         if (dsName == null) {
             dsName = getDsName(cell);
         }
 
         // 行坐标决定的数据集
-        List<Object> rowItems = getRowParentItems(cell, dsName);
+        ReportDataSet rowDs = getRowParentDs(cell, dsName);
 
         // 列坐标决定的数据集
-        List<Object> colItems = getColParentItems(cell, dsName);
+        ReportDataSet colDs = getColParentDs(cell, dsName);
 
-        if (rowItems == null && colItems == null) {
+        if (rowDs == null && colDs == null) {
             return null;
         }
 
-        if (rowItems == null)
-            return colItems;
+        if (rowDs == null)
+            return colDs;
 
-        if (colItems == null)
-            return rowItems;
+        if (colDs == null)
+            return rowDs;
 
         // 返回两个集合中的公共部分。这意味着当前数据集满足同时满足行列坐标的要求
+        ColumnarDataSet columnar = rowDs.getColumnar();
+        if (columnar != null && columnar == colDs.getColumnar()) {
+            return new ReportDataSet(rowDs.getDsName(), columnar,
+                    columnar.intersect(rowDs.getRowIds(), colDs.getRowIds()));
+        }
+
+        List<Object> colItems = colDs.getItems();
+        Set<Object> colSet = Collections.newSetFromMap(new IdentityHashMap<>(colItems.size()));
+        colSet.addAll(colItems);
+
         List<Object> ret = new ArrayList<>();
-        for (Object item : rowItems) {
-            if (CollectionHelper.identityContains(colItems, item)) {
+        for (Object item : rowDs.getItems()) {
+            if (colSet.contains(item)) {
                 ret.add(item);
             }
         }
 
-        return ret;
+        return new ReportDataSet(rowDs.getDsName(), ret);
     }
 
     public static String getDsName(ExpandedCell cell) {
@@ -121,25 +152,25 @@ public class DynamicReportDataSet extends ReportDataSet {
         return dsName;
     }
 
-    private static List<Object> getRowParentItems(ExpandedCell cell, String dsName) {
+    private static ReportDataSet getRowParentDs(ExpandedCell cell, String dsName) {
         ExpandedCell parent = cell.getRowParent();
         if (parent == null)
             return null;
 
         ReportDataSet ds = parent.getDs();
         if (ds != null && (dsName == null || ds.getDsName().equals(dsName)))
-            return ds.getItems();
-        return getRowParentItems(parent, dsName);
+            return ds;
+        return getRowParentDs(parent, dsName);
     }
 
-    private static List<Object> getColParentItems(ExpandedCell cell, String dsName) {
+    private static ReportDataSet getColParentDs(ExpandedCell cell, String dsName) {
         ExpandedCell parent = cell.getColParent();
         if (parent == null)
             return null;
 
         ReportDataSet ds = parent.getDs();
         if (ds != null && (dsName == null || ds.getDsName().equals(dsName)))
-            return ds.getItems();
-        return getColParentItems(parent, dsName);
+            return ds;
+        return getColParentDs(parent, dsName);
     }
 }
\ No newline at end of file
@@ -17,6 +17,11 @@ public class KeyedReportDataSet extends ReportDataSet {
         this.key = key;
     }
 
+    public KeyedReportDataSet(String dsName, ColumnarDataSet columnar, int[] rowIds, Object key) {
+        super(dsName, columnar, rowIds);
+        this.key = key;
+    }
+
     public String toString() {
         return "KeyedReportDataSet[" + key + "]";
     }
@@ -0,0 +1,377 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.dataset;
+
+import io.nop.commons.util.MathHelper;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.utils.Underscore;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据集中某个字段的列式存储。构建时对每一行只读取一次字段值，int/long/double类型的列保存为原始类型数组，
+ * 字符串列采用字典编码，其他类型的列在第一次分组或者过滤时延迟构建字典。
+ * <p>
+ * 字典编码按照值第一次出现的顺序分配，因此按照编码顺序遍历与LinkedHashMap分组的结果顺序一致。
+ */
+public class ReportDataColumn {
+    enum ColumnKind {
+        INT, LONG, DOUBLE, STRING, OBJECT
+    }
+
+    private final String field;
+    private final ColumnKind kind;
+    private final int size;
+
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] values;
+    private BitSet nulls;
+
+    private int[] codes;
+    private Object[] dict;
+    private Map<Object, Integer> dictIndex;
+    private int[][] groupIndex;
+
+    ReportDataColumn(String field, Object[] rows) {
+        this.field = field;
+        this.size = rows.length;
+
+        Object[] values = new Object[rows.length];
+        ColumnKind kind = null;
+        for (int i = 0, n = rows.length; i < n; i++) {
+            Object row = rows[i];
+            Object value = row == null ? null : Underscore.getFieldValue(row, field);
+            values[i] = value;
+            if (value != null)
+                kind = mergeKind(kind, kindOf(value));
+        }
+        if (kind == null)
+            kind = ColumnKind.OBJECT;
+        this.kind = kind;
+        initValues(values);
+    }
+
+    static ColumnKind kindOf(Object value) {
+        if (value instanceof Integer)
+            return ColumnKind.INT;
+        if (value instanceof Long)
+            return ColumnKind.LONG;
+        if (value instanceof Double)
+            return ColumnKind.DOUBLE;
+        if (value instanceof String)
+            return ColumnKind.STRING;
+        return ColumnKind.OBJECT;
+    }
+
+    static ColumnKind mergeKind(ColumnKind kind, ColumnKind valueKind) {
+        if (kind == null || kind == valueKind)
+            return valueKind;
+        // 混合类型不做类型提升，保证读取出来的值与原始值类型一致
+        return ColumnKind.OBJECT;
+    }
+
+    private void initValues(Object[] values) {
+        switch (kind) {
+            case INT: {
+                ints = new int[size];
+                nulls = new BitSet(size);
+                for (int i = 0; i < size; i++) {
+                    if (values[i] == null) {
+                        nulls.set(i);
+                    } else {
+                        ints[i] = (Integer) values[i];
+                    }
+                }
+                break;
+            }
+            case LONG: {
+                longs = new long[size];
+                nulls = new BitSet(size);
+                for (int i = 0; i < size; i++) {
+                    if (values[i] == null) {
+                        nulls.set(i);
+                    } else {
+                        longs[i] = (Long) values[i];
+                    }
+                }
+                break;
+            }
+            case DOUBLE: {
+                doubles = new double[size];
+                nulls = new BitSet(size);
+                for (int i = 0; i < size; i++) {
+                    if (values[i] == null) {
+                        nulls.set(i);
+                    } else {
+                        doubles[i] = (Double) values[i];
+                    }
+                }
+                break;
+            }
+            case STRING:
+                buildDict(values);
+                break;
+            default:
+                this.values = values;
+        }
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        switch (kind) {
+            case INT:
+            case LONG:
+            case DOUBLE:
+                return nulls.get(row);
+            case STRING:
+                return dict[codes[row]] == null;
+            default:
+                return values[row] == null;
+        }
+    }
+
+    public Object getValue(int row) {
+        switch (kind) {
+            case INT:
+                return nulls.get(row) ? null : ints[row];
+            case LONG:
+                return nulls.get(row) ? null : longs[row];
+            case DOUBLE:
+                return nulls.get(row) ? null : doubles[row];
+            case STRING:
+                return dict[codes[row]];
+            default:
+                return values[row];
+        }
+    }
+
+    private void buildDict(Object[] values) {
+        Map<Object, Integer> index = new HashMap<>();
+        List<Object> list = new ArrayList<>();
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            Object value = values[i];
+            Integer code = index.get(value);
+            if (code == null) {
+                code = list.size();
+                index.put(value, code);
+                list.add(value);
+            }
+            codes[i] = code;
+        }
+        this.dictIndex = index;
+        this.dict = list.toArray();
+        this.codes = codes;
+    }
+
+    private synchronized void ensureDict() {
+        if (codes != null)
+            return;
+
+        Object[] values = this.values;
+        if (values == null) {
+            values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = getValue(i);
+            }
+        }
+        buildDict(values);
+    }
+
+    /**
+     * 每一行对应的字典编码
+     */
+    public int[] getCodes() {
+        ensureDict();
+        return codes;
+    }
+
+    public Object getDictValue(int code) {
+        ensureDict();
+        return dict[code];
+    }
+
+    public int getDictSize() {
+        ensureDict();
+        return dict.length;
+    }
+
+    /**
+     * @return 值对应的字典编码，如果列中不存在该值，则返回-1
+     */
+    public int codeOf(Object value) {
+        ensureDict();
+        Integer code = dictIndex.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * 对全部行按照字段值分组，第i个元素为编码为i的所有行号，行号保持升序。结果会被缓存。
+     */
+    public synchronized int[][] getGroupIndex() {
+        if (groupIndex == null) {
+            int[] codes = getCodes();
+            int[] counts = new int[dict.length];
+            for (int code : codes) {
+                counts[code]++;
+            }
+
+            int[][] index = new int[counts.length][];
+            for (int i = 0, n = counts.length; i < n; i++) {
+                index[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+
+            for (int i = 0; i < size; i++) {
+                int code = codes[i];
+                index[code][counts[code]++] = i;
+            }
+            groupIndex = index;
+        }
+        return groupIndex;
+    }
+
+    /**
+     * 与ReportDataSet.sum(field)的语义保持一致：跳过空值，结果类型由MathHelper.add的类型提升规则确定
+     */
+    public Number sum(int[] rowIds) {
+        int n = rowIds == null ? size : rowIds.length;
+        switch (kind) {
+            case INT: {
+                long ret = 0;
+                for (int i = 0; i < n; i++) {
+                    int row = rowIds == null ? i : rowIds[i];
+                    if (!nulls.get(row))
+                        ret += ints[row];
+                }
+                return (int) ret;
+            }
+            case LONG: {
+                long ret = 0;
+                boolean found = false;
+                for (int i = 0; i < n; i++) {
+                    int row = rowIds == null ? i : rowIds[i];
+                    if (!nulls.get(row)) {
+                        ret += longs[row];
+                        found = true;
+                    }
+                }
+                return found ? (Number) ret : (Number) 0;
+            }
+            case DOUBLE: {
+                double ret = 0;
+                boolean found = false;
+                for (int i = 0; i < n; i++) {
+                    int row = rowIds == null ? i : rowIds[i];
+                    if (!nulls.get(row)) {
+                        ret += doubles[row];
+                        found = true;
+                    }
+                }
+                return found ? (Number) ret : (Number) 0;
+            }
+            default: {
+                Number ret = 0;
+                for (int i = 0; i < n; i++) {
+                    Object value = getValue(rowIds == null ? i : rowIds[i]);
+                    if (!StringHelper.isEmptyObject(value)) {
+                        ret = MathHelper.add(ret, value);
+                    }
+                }
+                return ret;
+            }
+        }
+    }
+
+    public Object max(int[] rowIds) {
+        int n = rowIds == null ? size : rowIds.length;
+        if (kind == ColumnKind.INT || kind == ColumnKind.LONG) {
+            boolean found = false;
+            long ret = 0;
+            for (int i = 0; i < n; i++) {
+                int row = rowIds == null ? i : rowIds[i];
+                if (nulls.get(row))
+                    continue;
+                long value = kind == ColumnKind.INT ? ints[row] : longs[row];
+                if (!found || value > ret) {
+                    ret = value;
+                    found = true;
+                }
+            }
+            return found ? box(ret) : null;
+        }
+
+        Object ret = null;
+        for (int i = 0; i < n; i++) {
+            Object value = getValue(rowIds == null ? i : rowIds[i]);
+            if (ret == null) {
+                ret = value;
+            } else if (value != null) {
+                if (MathHelper.compareWithConversion(ret, value) < 0) {
+                    ret = value;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * 与ReportDataSet.min(field)的语义保持一致：跳过开头的空值，此后遇到空值则返回null
+     */
+    public Object min(int[] rowIds) {
+        int n = rowIds == null ? size : rowIds.length;
+        if (kind == ColumnKind.INT || kind == ColumnKind.LONG) {
+            boolean found = false;
+            long ret = 0;
+            for (int i = 0; i < n; i++) {
+                int row = rowIds == null ? i : rowIds[i];
+                if (nulls.get(row)) {
+                    if (found)
+                        return null;
+                    continue;
+                }
+                long value = kind == ColumnKind.INT ? ints[row] : longs[row];
+                if (!found || value < ret) {
+                    ret = value;
+                    found = true;
+                }
+            }
+            return found ? box(ret) : null;
+        }
+
+        Object ret = null;
+        for (int i = 0; i < n; i++) {
+            Object value = getValue(rowIds == null ? i : rowIds[i]);
+            if (ret == null) {
+                ret = value;
+            } else if (value == null) {
+                return null;
+            } else if (MathHelper.compareWithConversion(ret, value) > 0) {
+                ret = value;
+            }
+        }
+        return ret;
+    }
+
+    private Object box(long value) {
+        return kind == ColumnKind.INT ? (Object) (int) value : (Object) value;
+    }
+}
@@ -11,6 +11,7 @@ import io.nop.api.core.beans.query.OrderFieldBean;
 import io.nop.api.core.exceptions.NopException;
 import io.nop.commons.collections.FieldComparator;
 import io.nop.commons.collections.MappingComparator;
+import io.nop.commons.collections.MutableIntArray;
 import io.nop.commons.collections.OrderByComparator;
 import io.nop.commons.util.CollectionHelper;
 import io.nop.commons.util.MathHelper;
@@ -19,6 +20,7 @@ import io.nop.core.lang.utils.Underscore;
 import io.nop.report.core.engine.IXptRuntime;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -32,15 +34,32 @@ import static io.nop.report.core.XptErrors.ARG_DS_NAME;
 import static io.nop.report.core.XptErrors.ERR_XPT_MISSING_VAR_DS;
 
 /**
- * 从dsName对应的数据集中获取得到的一个数据子集
+ * 从dsName对应的数据集中获取得到的一个数据子集。
+ * <p>
+ * 如果数据集基于ColumnarDataSet构建，则子集通过行号数组rowIds来表示，group/where/sum等操作直接访问列数据。
  */
 public class ReportDataSet implements Iterable<Object> {
     private final String dsName;
     private final List<Object> items;
 
+    private final ColumnarDataSet columnar;
+    /**
+     * 子集在columnar中对应的行号。为null表示columnar中的全部行
+     */
+    private final int[] rowIds;
+
     public ReportDataSet(String dsName, List<Object> items) {
         this.dsName = dsName;
         this.items = items;
+        this.columnar = null;
+        this.rowIds = null;
+    }
+
+    public ReportDataSet(String dsName, ColumnarDataSet columnar, int[] rowIds) {
+        this.dsName = dsName;
+        this.items = columnar.rowList(rowIds);
+        this.columnar = columnar;
+        this.rowIds = rowIds;
     }
 
     public static ReportDataSet newDataSet(String dsName, Object value) {
@@ -52,16 +71,20 @@ public class ReportDataSet implements Iterable<Object> {
             ReportDataSet rs = (ReportDataSet) value;
             if (rs.getDsName().equals(dsName))
                 return rs;
+            if (rs.getColumnar() != null)
+                return new ReportDataSet(dsName, rs.getColumnar(), rs.getRowIds());
             return new ReportDataSet(dsName, rs.getItems());
         }
 
         List<Object> items = CollectionHelper.toList(value);
-        return new ReportDataSet(dsName, items);
+        return new ReportDataSet(dsName, new ColumnarDataSet(items), null);
     }
 
     public DynamicReportDataSet toDynamic(IXptRuntime xptRt) {
         if (this instanceof DynamicReportDataSet)
             return ((DynamicReportDataSet) this);
+        if (columnar != null)
+            return new DynamicReportDataSet(dsName, columnar, rowIds, xptRt);
         return new DynamicReportDataSet(dsName, items, xptRt);
     }
 
@@ -73,6 +96,14 @@ public class ReportDataSet implements Iterable<Object> {
         return items;
     }
 
+    public ColumnarDataSet getColumnar() {
+        return columnar;
+    }
+
+    public int[] getRowIds() {
+        return rowIds;
+    }
+
     public boolean isEmpty() {
         return items.isEmpty();
     }
@@ -87,9 +118,12 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public List<KeyedReportDataSet> group(String field) {
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return current.columnar.group(dsName, current.rowIds, field);
+
         Map<Object, List<Object>> map = new LinkedHashMap<>();
-        List<Object> current = current();
-        for (Object item : current) {
+        for (Object item : current.items) {
             Object value = getFieldValue(item, field);
             map.computeIfAbsent(value, k -> new ArrayList<>()).add(item);
         }
@@ -103,6 +137,22 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public List<KeyedReportDataSet> groupBy(Function<Object, Object> fn) {
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null) {
+            Map<Object, MutableIntArray> map = new LinkedHashMap<>();
+            for (int i = 0, n = current.size(); i < n; i++) {
+                int row = current.rowId(i);
+                Object value = fn.apply(current.columnar.getRow(row));
+                map.computeIfAbsent(value, k -> new MutableIntArray()).add(row);
+            }
+
+            List<KeyedReportDataSet> ret = new ArrayList<>(map.size());
+            for (Map.Entry<Object, MutableIntArray> entry : map.entrySet()) {
+                ret.add(new KeyedReportDataSet(dsName, current.columnar, entry.getValue().toArray(), entry.getKey()));
+            }
+            return ret;
+        }
+
         Map<Object, List<Object>> map = new LinkedHashMap<>();
         for (Object item : current()) {
             Object value = fn.apply(item);
@@ -123,17 +173,37 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public ReportDataSet where(Map<String, Object> props) {
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return new ReportDataSet(dsName, current.columnar, current.columnar.where(current.rowIds, props));
+
         List<Object> ret = Underscore.where(current(), props);
         return new ReportDataSet(dsName, ret);
     }
 
     public ReportDataSet where(String propName, Object propValue) {
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return new ReportDataSet(dsName, current.columnar,
+                    current.columnar.where(current.rowIds, propName, propValue));
+
         List<Object> ret = Underscore.where(current(), propName, propValue);
         return new ReportDataSet(dsName, ret);
     }
 
     public ReportDataSet filter(Predicate<Object> filter) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null) {
+            MutableIntArray ret = new MutableIntArray();
+            for (int i = 0, n = current.size(); i < n; i++) {
+                int row = current.rowId(i);
+                if (filter.test(current.columnar.getRow(row)))
+                    ret.add(row);
+            }
+            return new ReportDataSet(dsName, current.columnar, ret.toArray());
+        }
+
+        List<Object> items = current.items;
         items = items.stream().filter(filter).collect(Collectors.toList());
         return new ReportDataSet(dsName, items);
     }
@@ -144,14 +214,22 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public ReportDataSet sort(String field, boolean desc) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return current.sortRows(new FieldComparator<>(field, desc, null, current::getRowFieldValue));
+
+        List<Object> items = current.items;
         items = new ArrayList<>(items);
         items.sort(new FieldComparator<>(field, desc, null, this::getFieldValue));
         return new ReportDataSet(dsName, items);
     }
 
     public ReportDataSet sortBy(Function<Object, Object> fn) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return current.sortRows(new MappingComparator<>(false, null, row -> fn.apply(current.columnar.getRow(row))));
+
+        List<Object> items = current.items;
         items = new ArrayList<>(items);
         items.sort(new MappingComparator<>(false, null, fn));
         return new ReportDataSet(dsName, items);
@@ -175,7 +253,11 @@ public class ReportDataSet implements Iterable<Object> {
      * 在EL表达式中可以使用 ds.sort(order_by `a asc, b desc`)，利用order_by宏表达式来生成orderBy
      */
     public ReportDataSet sort(List<OrderFieldBean> orderBy) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return current.sortRows(new OrderByComparator<>(orderBy, current::getRowFieldValue));
+
+        List<Object> items = current.items;
         items = new ArrayList<>(items);
         items.sort(new OrderByComparator<>(orderBy, this::getFieldValue));
         return new ReportDataSet(dsName, items);
@@ -203,7 +285,17 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public List<Object> select(String field) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null) {
+            ReportDataColumn column = current.columnar.column(field);
+            List<Object> ret = new ArrayList<>(current.size());
+            for (int i = 0, n = current.size(); i < n; i++) {
+                ret.add(column.getValue(current.rowId(i)));
+            }
+            return ret;
+        }
+
+        List<Object> items = current.items;
         return Underscore.pluck(items, field);
     }
 
@@ -214,7 +306,11 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public Number sum(String field) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return current.columnar.column(field).sum(current.rowIds);
+
+        List<Object> items = current.items;
         Number ret = 0;
         for (Object item : items) {
             Object value = getFieldValue(item, field);
@@ -238,7 +334,11 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public Number avg(String field) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return MathHelper.divide(current.columnar.column(field).sum(current.rowIds), current.size());
+
+        List<Object> items = current.items;
         Number ret = 0;
         for (Object item : items) {
             Object value = getFieldValue(item, field);
@@ -263,7 +363,11 @@ public class ReportDataSet implements Iterable<Object> {
 
 
     public Object max(String field) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return current.columnar.column(field).max(current.rowIds);
+
+        List<Object> items = current.items;
         Object ret = null;
         for (Object item : items) {
             Object value = getFieldValue(item, field);
@@ -296,7 +400,11 @@ public class ReportDataSet implements Iterable<Object> {
     }
 
     public Object min(String field) {
-        List<Object> items = current();
+        ReportDataSet current = currentDataSet();
+        if (current.columnar != null)
+            return current.columnar.column(field).min(current.rowIds);
+
+        List<Object> items = current.items;
         Object ret = null;
         for (Object item : items) {
             Object value = getFieldValue(item, field);
@@ -331,7 +439,36 @@ public class ReportDataSet implements Iterable<Object> {
         return Underscore.getFieldValue(bean, field);
     }
 
+    private int rowId(int index) {
+        return rowIds == null ? index : rowIds[index];
+    }
+
+    private Object getRowFieldValue(Integer row, String field) {
+        return columnar.column(field).getValue(row);
+    }
+
+    private ReportDataSet sortRows(Comparator<Integer> comparator) {
+        List<Integer> rows = new ArrayList<>(size());
+        for (int i = 0, n = size(); i < n; i++) {
+            rows.add(rowId(i));
+        }
+        rows.sort(comparator);
+
+        int[] ret = new int[rows.size()];
+        for (int i = 0, n = ret.length; i < n; i++) {
+            ret[i] = rows.get(i);
+        }
+        return new ReportDataSet(dsName, columnar, ret);
+    }
+
+    /**
+     * 当前上下文中实际起作用的数据子集
+     */
+    protected ReportDataSet currentDataSet() {
+        return this;
+    }
+
     public List<Object> current() {
-        return items;
+        return currentDataSet().getItems();
     }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.engine;
+
+import io.nop.core.lang.eval.IExecutableExpression;
+import io.nop.core.lang.eval.IExecutableExpressionVisitor;
+import io.nop.core.model.table.CellPosition;
+import io.nop.core.model.table.CellRange;
+import io.nop.excel.model.ExcelCell;
+import io.nop.excel.model.XptCellModel;
+import io.nop.report.core.XptConstants;
+import io.nop.report.core.coordinate.CellCoordinate;
+import io.nop.report.core.coordinate.CellLayerCoordinate;
+import io.nop.report.core.expr.CellLayerCoordinateExecutable;
+import io.nop.report.core.expr.CellRangeExecutable;
+import io.nop.report.core.expr.ICellSetExecutable;
+import io.nop.xlang.api.ExprEvalAction;
+import io.nop.xlang.exec.FunctionExecutable;
+import io.nop.xlang.exec.ScopeIdentifierExecutable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分析单元格模型的表达式中引用了哪些其他单元格，并据此为每个单元格模型分配求值层次。
+ * 第0层的单元格不依赖其他单元格，第n层的单元格只依赖于小于n层的单元格，同一层的单元格之间可以并行求值。
+ * <p>
+ * 单元格的行父格和列父格也作为依赖，因为表达式可以通过cell.rowParent等方式访问父格的值。
+ * 无法确定依赖关系的单元格，以及依赖于它们的单元格，层次为{@link #LEVEL_SEQUENTIAL}，需要按照原有顺序求值。
+ */
+public class CellDependencyAnalyzer {
+    public static final int LEVEL_SEQUENTIAL = -1;
+
+    /**
+     * 通过这些变量可以访问任意单元格，或者修改报表运行时的状态
+     */
+    static final Set<String> OPAQUE_VARS = Set.of(XptConstants.VAR_XPT_RT, XptConstants.VAR_TABLE,
+            XptConstants.VAR_SHEET, XptConstants.VAR_ROW);
+
+    /**
+     * 结果依赖于单元格求值顺序的函数
+     */
+    static final Set<String> ORDERED_FUNCTIONS = Set.of("ACCSUM");
+
+    private static final int LEVEL_VISITING = -2;
+
+    static class CellDeps {
+        final Set<String> cellNames = new HashSet<>();
+        final List<CellRange> ranges = new ArrayList<>();
+        boolean opaque;
+    }
+
+    private final Map<String, XptCellModel> byName = new HashMap<>();
+    private final Map<XptCellModel, CellDeps> depsMap = new IdentityHashMap<>();
+    private final Map<XptCellModel, Integer> levels = new IdentityHashMap<>();
+
+    public Map<XptCellModel, Integer> analyze(Collection<XptCellModel> models) {
+        for (XptCellModel model : models) {
+            byName.put(model.getName(), model);
+        }
+
+        for (XptCellModel model : models) {
+            depsMap.put(model, collectDeps(model));
+        }
+
+        for (XptCellModel model : models) {
+            getLevel(model);
+        }
+        return levels;
+    }
+
+    private int getLevel(XptCellModel model) {
+        Integer level = levels.get(model);
+        if (level != null) {
+            // 存在循环引用
+            if (level == LEVEL_VISITING)
+                return LEVEL_SEQUENTIAL;
+            return level;
+        }
+
+        CellDeps deps = depsMap.get(model);
+        // 不在本次求值范围内的单元格
+        if (deps == null)
+            return LEVEL_SEQUENTIAL;
+
+        if (deps.opaque) {
+            levels.put(model, LEVEL_SEQUENTIAL);
+            return LEVEL_SEQUENTIAL;
+        }
+
+        List<XptCellModel> depModels = resolveDeps(model, deps);
+        if (depModels == null) {
+            levels.put(model, LEVEL_SEQUENTIAL);
+            return LEVEL_SEQUENTIAL;
+        }
+
+        levels.put(model, LEVEL_VISITING);
+
+        int ret = 0;
+        for (XptCellModel dep : depModels) {
+            int depLevel = getLevel(dep);
+            if (depLevel == LEVEL_SEQUENTIAL) {
+                ret = LEVEL_SEQUENTIAL;
+                break;
+            }
+            ret = Math.max(ret, depLevel + 1);
+        }
+        levels.put(model, ret);
+        return ret;
+    }
+
+    /**
+     * 返回null表示无法确定依赖关系
+     */
+    private List<XptCellModel> resolveDeps(XptCellModel model, CellDeps deps) {
+        List<XptCellModel> ret = new ArrayList<>();
+        for (String name : deps.cellNames) {
+            XptCellModel dep = byName.get(name);
+            // 引用了当前sheet中不存在的单元格，可能是其他sheet中的同名单元格，无法确定依赖关系
+            if (dep == null)
+                return null;
+            if (dep != model)
+                ret.add(dep);
+        }
+
+        for (CellRange range : deps.ranges) {
+            for (XptCellModel dep : byName.values()) {
+                CellPosition pos = dep.getCellPosition();
+                if (pos != null && dep != model && inRange(range, pos))
+                    ret.add(dep);
+            }
+        }
+        return ret;
+    }
+
+    private static boolean inRange(CellRange range, CellPosition pos) {
+        return pos.getRowIndex() >= range.getFirstRowIndex() && pos.getRowIndex() <= range.getLastRowIndex()
+                && pos.getColIndex() >= range.getFirstColIndex() && pos.getColIndex() <= range.getLastColIndex();
+    }
+
+    CellDeps collectDeps(XptCellModel model) {
+        CellDeps deps = new CellDeps();
+        // processExpr一般用于修改单元格或者运行时状态，只能顺序执行
+        if (model.getProcessExpr() != null) {
+            deps.opaque = true;
+            return deps;
+        }
+
+        addParent(deps, model.getRowParentCell());
+        addParent(deps, model.getColParentCell());
+
+        CellRefCollector collector = new CellRefCollector(deps);
+        collector.collect(model.getValueExpr());
+        collector.collect(model.getFormatExpr());
+        collector.collect(model.getStyleIdExpr());
+        collector.collect(model.getLinkExpr());
+        collector.collect(model.getRowTestExpr());
+        collector.collect(model.getColTestExpr());
+        return deps;
+    }
+
+    private void addParent(CellDeps deps, ExcelCell parent) {
+        if (parent == null)
+            return;
+        String name = parent.getModelCellName();
+        if (name != null)
+            deps.cellNames.add(name);
+    }
+
+    static class CellRefCollector implements IExecutableExpressionVisitor {
+        private final CellDeps deps;
+
+        public CellRefCollector(CellDeps deps) {
+            this.deps = deps;
+        }
+
+        void collect(Object action) {
+            if (action == null || deps.opaque)
+                return;
+
+            if (action instanceof ExprEvalAction) {
+                ((ExprEvalAction) action).getExpr().visit(this);
+            } else if (action instanceof IExecutableExpression) {
+                ((IExecutableExpression) action).visit(this);
+            } else {
+                deps.opaque = true;
+            }
+        }
+
+        @Override
+        public boolean onVisitExpr(IExecutableExpression expr) {
+            if (deps.opaque)
+                return false;
+
+            if (expr instanceof CellLayerCoordinateExecutable) {
+                addLayerCoordinate(((CellLayerCoordinateExecutable) expr).getLayerCoordinate());
+                return false;
+            }
+
+            if (expr instanceof CellRangeExecutable) {
+                deps.ranges.add(((CellRangeExecutable) expr).getCellRange());
+                return false;
+            }
+
+            // 带过滤条件的单元格集合等，过滤函数无法分析
+            if (expr instanceof ICellSetExecutable) {
+                deps.opaque = true;
+                return false;
+            }
+
+            if (expr instanceof ScopeIdentifierExecutable) {
+                if (OPAQUE_VARS.contains(((ScopeIdentifierExecutable) expr).getVarName()))
+                    deps.opaque = true;
+                return false;
+            }
+
+            if (expr instanceof FunctionExecutable) {
+                if (ORDERED_FUNCTIONS.contains(((FunctionExecutable) expr).getFuncName())) {
+                    deps.opaque = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addLayerCoordinate(CellLayerCoordinate coord) {
+            deps.cellNames.add(coord.getCellName());
+            addCoordinates(coord.getRowCoordinates());
+            addCoordinates(coord.getColCoordinates());
+        }
+
+        private void addCoordinates(List<CellCoordinate> coords) {
+            if (coords == null)
+                return;
+            for (CellCoordinate coord : coords) {
+                deps.cellNames.add(coord.getCellName());
+            }
+        }
+    }
+}
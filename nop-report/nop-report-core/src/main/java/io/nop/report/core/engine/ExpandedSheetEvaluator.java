@@ -51,6 +51,10 @@ public class ExpandedSheetEvaluator {
     private static final Logger LOG = LoggerFactory.getLogger(ExpandedSheetEvaluator.class);
 
     public void evaluateSheetCells(ExpandedSheet expandedSheet, IXptRuntime xptRt) {
+        // 先并行求值可以确定依赖关系的单元格，剩余的单元格在下面的循环中按照顺序求值
+        if (expandedSheet.getModel() != null && expandedSheet.getModel().isParallelEval())
+            ParallelSheetEvaluator.INSTANCE.evaluateIndependentCells(expandedSheet, xptRt);
+
         for (ExpandedRow row : expandedSheet.getTable().getRows()) {
             xptRt.setRow(row);
             XptRowModel rowModel = row.getModel();
@@ -50,10 +50,23 @@ public class ExpandedSheetGenerator implements IExcelSheetGenerator {
 
     private final ExcelWorkbook workbook;
 
+    /**
+     * 输出端是否支持IStreamingExcelSheet。只有xlsx输出支持按行块写出
+     */
+    private boolean streamingEnabled;
+
     public ExpandedSheetGenerator(ExcelWorkbook workbook) {
         this.workbook = workbook;
     }
 
+    public boolean isStreamingEnabled() {
+        return streamingEnabled;
+    }
+
+    public void setStreamingEnabled(boolean streamingEnabled) {
+        this.streamingEnabled = streamingEnabled;
+    }
+
     @Override
     public void generate(IEvalContext ctx, BiConsumer<IExcelSheet, IEvalContext> consumer) {
         XptRuntime xptRt = new XptRuntime(ctx.getEvalScope());
@@ -102,7 +115,18 @@ public class ExpandedSheetGenerator implements IExcelSheetGenerator {
                                 runXpl(sheetModel.getBeforeExpand(), xptRt);
                             }
 
-                            ExpandedSheet expandedSheet = generateSheet(sheet, xptRt, sheetNames);
+                            String sheetName = initSheetName(sheet, xptRt, sheetNames);
+
+                            StreamingExpandedSheet streamingSheet = streamingEnabled ?
+                                    StreamingExpandedSheet.tryCreate(this, sheet, sheetName, xptRt) : null;
+                            if (streamingSheet != null) {
+                                // 流式输出时在写出sheet的过程中才执行展开，afterExpand在所有行块生成之后执行
+                                streamingSheet.setAfterExpand(() -> runXpl(sheetModel.getAfterExpand(), xptRt));
+                                consumer.accept(streamingSheet, xptRt);
+                                return;
+                            }
+
+                            ExpandedSheet expandedSheet = generateSheet(sheet, sheetName, xptRt);
 
                             if (sheetModel != null)
                                 runXpl(sheetModel.getAfterExpand(), xptRt);
@@ -117,8 +141,7 @@ public class ExpandedSheetGenerator implements IExcelSheetGenerator {
         }
     }
 
-    private ExpandedSheet generateSheet(ExcelSheet sheet, IXptRuntime xptRt,
-                                        Map<String, Integer> sheetNames) {
+    private String initSheetName(ExcelSheet sheet, IXptRuntime xptRt, Map<String, Integer> sheetNames) {
         XptSheetModel sheetModel = sheet.getModel();
         Guard.notNull(sheetModel, "sheetModel");
 
@@ -134,15 +157,37 @@ public class ExpandedSheetGenerator implements IExcelSheetGenerator {
         sheetName = uniqueName(sheetName, sheetNames);
 
         xptRt.getEvalScope().setLocalValue(null, XptConstants.VAR_SHEET_NAME, sheetName);
+        return sheetName;
+    }
 
+    ExpandedSheet newExpandedSheet(ExcelSheet sheet, String sheetName) {
         ExpandedSheet expandedSheet = new ExpandedSheet(sheet);
-        expandedSheet.setModel(sheetModel);
+        expandedSheet.setModel(sheet.getModel());
         expandedSheet.setName(sheetName);
+        return expandedSheet;
+    }
+
+    private ExpandedSheet generateSheet(ExcelSheet sheet, String sheetName, IXptRuntime xptRt) {
+        ExpandedSheet expandedSheet = newExpandedSheet(sheet, sheetName);
         xptRt.setSheet(expandedSheet);
 
         new TableExpander(expandedSheet.getTable()).expand(xptRt);
         //ExpandedTableToNode.dump(expandedSheet);
 
+        evaluateExpandedSheet(expandedSheet, xptRt);
+
+        ExpandedSheetEvaluator.INSTANCE.evaluateImages(expandedSheet, sheet.getImages(), xptRt);
+        collectImages(expandedSheet);
+
+        initExportFormula(expandedSheet, xptRt);
+
+        return expandedSheet;
+    }
+
+    /**
+     * 计算展开后的单元格，删除隐藏和被移除的行列，并确定最终的行列下标
+     */
+    void evaluateExpandedSheet(ExpandedSheet expandedSheet, IXptRuntime xptRt) {
         ExpandedSheetEvaluator.INSTANCE.evaluateSheetCells(expandedSheet, xptRt);
 
         removeHidden(expandedSheet);
@@ -150,12 +195,11 @@ public class ExpandedSheetGenerator implements IExcelSheetGenerator {
         dropRemoved(expandedSheet);
 
         expandedSheet.getTable().assignRowIndexAndColIndex();
-        ExpandedSheetEvaluator.INSTANCE.evaluateImages(expandedSheet, sheet.getImages(), xptRt);
-        collectImages(expandedSheet);
-
-        initExportFormula(expandedSheet, xptRt);
+    }
 
-        return expandedSheet;
+    void removeHiddenCols(ExpandedSheet sheet) {
+        removeHidden(sheet);
+        dropRemoved(sheet);
     }
 
     private void removeHidden(ExpandedSheet sheet) {
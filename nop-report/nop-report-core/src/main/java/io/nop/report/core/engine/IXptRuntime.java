@@ -48,6 +48,12 @@ public interface IXptRuntime extends IEvalContext {
 
     Object evaluateCell(ExpandedCell cell);
 
+    /**
+     * 创建在其他线程中求值单元格时使用的运行时对象。它拥有独立的cell/row状态和局部变量作用域，可以读取当前作用域中的变量，
+     * 但是在其中设置的变量不会反映到当前运行时中。注册的cleanup回调会转发到当前运行时。
+     */
+    IXptRuntime newWorkerRuntime();
+
     Object field(String field);
 
     ExpandedCellSet getNamedCellSet(String cellName);
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.engine;
+
+import io.nop.api.core.context.ContextProvider;
+import io.nop.api.core.context.IContext;
+import io.nop.api.core.context.IContextProvider;
+import io.nop.excel.model.XptCellModel;
+import io.nop.report.core.model.ExpandedCell;
+import io.nop.report.core.model.ExpandedRow;
+import io.nop.report.core.model.ExpandedSheet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.nop.report.core.XptConfigs.CFG_XPT_PARALLEL_EVAL_BLOCK_SIZE;
+import static io.nop.report.core.XptConfigs.CFG_XPT_PARALLEL_EVAL_POOL_SIZE;
+
+/**
+ * 按照{@link CellDependencyAnalyzer}分析得到的层次逐层求值单元格，同一层中的单元格按照行顺序划分为多个块，在独立的ForkJoin线程池中并行求值。
+ * 每个块使用{@link IXptRuntime#newWorkerRuntime()}创建独立的运行时对象。
+ * <p>
+ * 这里只负责可以并行的单元格，其余单元格以及行上的表达式仍然由{@link ExpandedSheetEvaluator}按照原有顺序求值。
+ */
+public class ParallelSheetEvaluator {
+    static final Logger LOG = LoggerFactory.getLogger(ParallelSheetEvaluator.class);
+
+    public static final ParallelSheetEvaluator INSTANCE = new ParallelSheetEvaluator(newDefaultPool());
+
+    private final ForkJoinPool pool;
+
+    /**
+     * 每个并行任务至少处理的单元格个数。小于等于0时使用nop.report.parallel-eval.block-size配置
+     */
+    private int blockSize;
+
+    public ParallelSheetEvaluator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 使用独立的线程池，避免报表求值占满ForkJoin公共线程池，也避免被其他使用公共线程池的任务阻塞。
+     * ForkJoinPool只在提交任务时才创建工作线程，且工作线程都是daemon线程。
+     */
+    static ForkJoinPool newDefaultPool() {
+        ClassLoader classLoader = ParallelSheetEvaluator.class.getClassLoader();
+        AtomicInteger seq = new AtomicInteger();
+        int poolSize = CFG_XPT_PARALLEL_EVAL_POOL_SIZE.get();
+        if (poolSize <= 0)
+            poolSize = Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(poolSize, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("nop-xpt-parallel-eval-" + seq.incrementAndGet());
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        }, null, false);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getBlockSize() {
+        int size = blockSize;
+        if (size <= 0)
+            size = CFG_XPT_PARALLEL_EVAL_BLOCK_SIZE.get();
+        return Math.max(size, 1);
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public void evaluateIndependentCells(ExpandedSheet sheet, IXptRuntime xptRt) {
+        int blockSize = getBlockSize();
+        List<ExpandedCell> cells = collectCells(sheet);
+        if (cells.size() <= blockSize)
+            return;
+
+        Map<XptCellModel, Integer> levels = analyzeLevels(cells);
+
+        List<List<ExpandedCell>> cellsByLevel = new ArrayList<>();
+        for (ExpandedCell cell : cells) {
+            int level = levels.get(cell.getModel());
+            if (level == CellDependencyAnalyzer.LEVEL_SEQUENTIAL)
+                continue;
+
+            while (cellsByLevel.size() <= level) {
+                cellsByLevel.add(new ArrayList<>());
+            }
+            cellsByLevel.get(level).add(cell);
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("nop.xpt.parallel-eval:sheet={},cellCount={},levelCount={}", sheet.getName(), cells.size(),
+                    cellsByLevel.size());
+
+        ExpandedCell curCell = xptRt.getCell();
+        ExpandedRow curRow = xptRt.getRow();
+        try {
+            for (List<ExpandedCell> levelCells : cellsByLevel) {
+                evaluateLevel(levelCells, xptRt, blockSize);
+            }
+        } finally {
+            xptRt.setCell(curCell);
+            xptRt.setRow(curRow);
+        }
+    }
+
+    /**
+     * 收集尚未求值的单元格。展开过程中已经求值的单元格不参与依赖分析
+     */
+    List<ExpandedCell> collectCells(ExpandedSheet sheet) {
+        List<ExpandedCell> cells = new ArrayList<>();
+        for (ExpandedRow row : sheet.getTable().getRows()) {
+            row.forEachRealCell(cell -> {
+                if (cell.getModel() != null && !cell.isEvaluated())
+                    cells.add(cell);
+            });
+        }
+        return cells;
+    }
+
+    Map<XptCellModel, Integer> analyzeLevels(List<ExpandedCell> cells) {
+        Map<XptCellModel, Boolean> models = new IdentityHashMap<>();
+        for (ExpandedCell cell : cells) {
+            models.put(cell.getModel(), Boolean.TRUE);
+        }
+        return new CellDependencyAnalyzer().analyze(models.keySet());
+    }
+
+    private void evaluateLevel(List<ExpandedCell> cells, IXptRuntime xptRt, int blockSize) {
+        if (cells.size() <= blockSize) {
+            evaluateCells(cells, 0, cells.size(), xptRt);
+            return;
+        }
+
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        pool.invoke(new EvalCellsTask(cells, 0, cells.size(), blockSize, xptRt, ContextProvider.currentContext(),
+                error));
+
+        // 直接抛出原始异常，ForkJoinTask在跨线程抛出异常时会重新构造异常对象
+        if (error.get() != null)
+            throw error.get();
+    }
+
+    static void evaluateCells(List<ExpandedCell> cells, int from, int to, IXptRuntime xptRt) {
+        for (int i = from; i < to; i++) {
+            ExpandedCell cell = cells.get(i);
+            xptRt.setRow(cell.getRow());
+            ExpandedSheetEvaluator.INSTANCE.evaluateCell(cell, xptRt);
+        }
+    }
+
+    static class EvalCellsTask extends RecursiveAction {
+        private final List<ExpandedCell> cells;
+        private final int from;
+        private final int to;
+        private final int blockSize;
+        private final IXptRuntime xptRt;
+        private final IContext context;
+        private final AtomicReference<RuntimeException> error;
+
+        EvalCellsTask(List<ExpandedCell> cells, int from, int to, int blockSize, IXptRuntime xptRt, IContext context,
+                      AtomicReference<RuntimeException> error) {
+            this.cells = cells;
+            this.from = from;
+            this.to = to;
+            this.blockSize = blockSize;
+            this.xptRt = xptRt;
+            this.context = context;
+            this.error = error;
+        }
+
+        @Override
+        protected void compute() {
+            if (error.get() != null)
+                return;
+
+            if (to - from > blockSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new EvalCellsTask(cells, from, mid, blockSize, xptRt, context, error),
+                        new EvalCellsTask(cells, mid, to, blockSize, xptRt, context, error));
+                return;
+            }
+
+            IContextProvider provider = ContextProvider.instance();
+            IContext prevContext = provider.currentContext();
+            try {
+                if (context != null)
+                    provider.attachContext(context);
+                evaluateCells(cells, from, to, xptRt.newWorkerRuntime());
+            } catch (RuntimeException e) {
+                error.compareAndSet(null, e);
+            } finally {
+                if (context != null)
+                    provider.attachContext(prevContext);
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.engine;
+
+import io.nop.commons.util.CollectionHelper;
+import io.nop.core.context.IEvalContext;
+import io.nop.core.model.table.ITableView;
+import io.nop.excel.model.ExcelImage;
+import io.nop.excel.model.ExcelPageBreaks;
+import io.nop.excel.model.ExcelPageMargins;
+import io.nop.excel.model.ExcelPageSetup;
+import io.nop.excel.model.ExcelSheet;
+import io.nop.excel.model.XptCellModel;
+import io.nop.excel.model.XptSheetModel;
+import io.nop.excel.model.constants.XptExpandType;
+import io.nop.ooxml.xlsx.output.IStreamingExcelSheet;
+import io.nop.report.core.engine.expand.TableExpander;
+import io.nop.report.core.model.ExpandedCell;
+import io.nop.report.core.model.ExpandedRow;
+import io.nop.report.core.model.ExpandedSheet;
+import io.nop.report.core.model.ExpandedTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 流式展开的sheet。模板按照行之间的关联关系(合并单元格、展开块、父子格)被切分为互不相关的行带(band)，
+ * 每个行带单独展开、计算并交给输出端写出。如果行带由唯一的一个顶层行展开单元格驱动，则它的展开列表会被进一步按照chunkSize分段，
+ * 每段生成一个独立的行块，这样任意时刻内存中只保留一个行块的展开结果。
+ * <p>
+ * 要求单元格表达式只引用同一行块中的单元格。存在列展开、图片或者需要导出公式时不支持流式展开。
+ */
+public class StreamingExpandedSheet implements IStreamingExcelSheet {
+    static final Logger LOG = LoggerFactory.getLogger(StreamingExpandedSheet.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final ExpandedSheetGenerator generator;
+    private final ExcelSheet sheet;
+    private final ExpandedSheet header;
+    private final List<RowBand> bands;
+    private final IXptRuntime xptRt;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private Runnable afterExpand;
+
+    static class RowBand {
+        final int beginRow;
+        final int endRow;
+
+        /**
+         * 驱动分段展开的单元格在模板中的位置，-1表示整个行带一次性展开
+         */
+        int driverRow = -1;
+        int driverCol = -1;
+
+        RowBand(int beginRow, int endRow) {
+            this.beginRow = beginRow;
+            this.endRow = endRow;
+        }
+    }
+
+    StreamingExpandedSheet(ExpandedSheetGenerator generator, ExcelSheet sheet, ExpandedSheet header,
+                           List<RowBand> bands, IXptRuntime xptRt) {
+        this.generator = generator;
+        this.sheet = sheet;
+        this.header = header;
+        this.bands = bands;
+        this.xptRt = xptRt;
+    }
+
+    /**
+     * 如果sheet不支持流式展开，则返回null
+     */
+    public static StreamingExpandedSheet tryCreate(ExpandedSheetGenerator generator, ExcelSheet sheet,
+                                                   String sheetName, IXptRuntime xptRt) {
+        XptSheetModel model = sheet.getModel();
+        if (model == null || !model.isStreaming())
+            return null;
+
+        String reason = null;
+        if (model.isUseExportFormula()) {
+            reason = "useExportFormula";
+        } else if (!CollectionHelper.isEmpty(sheet.getImages())) {
+            reason = "images";
+        }
+
+        List<RowBand> bands = null;
+        ExpandedSheet template = generator.newExpandedSheet(sheet, sheetName);
+        if (reason == null) {
+            bands = splitBands(template.getTable());
+            if (bands == null)
+                reason = "colExpand";
+        }
+
+        if (reason != null) {
+            LOG.info("nop.report.streaming-not-supported:sheetName={},reason={}", sheetName, reason);
+            return null;
+        }
+
+        ExpandedTable table = template.getTable();
+        for (RowBand band : bands) {
+            initDriver(table, band);
+        }
+
+        // 模板本身只用于提供列配置
+        generator.removeHiddenCols(template);
+        return new StreamingExpandedSheet(generator, sheet, template, bands, xptRt);
+    }
+
+    static List<RowBand> splitBands(ExpandedTable table) {
+        int rowCount = table.getRowCount();
+        int[] reach = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            reach[i] = i;
+        }
+
+        for (int i = 0; i < rowCount; i++) {
+            for (ExpandedCell cell : getRealCells(table.getRow(i))) {
+                if (cell.getExpandType() == XptExpandType.c)
+                    return null;
+
+                link(reach, i, i + cell.getMergeDown());
+
+                XptCellModel cellModel = cell.getModel();
+                if (cellModel != null && cell.getExpandType() == XptExpandType.r) {
+                    int begin = i - cellModel.getRowExpandOffset();
+                    link(reach, begin, begin + cellModel.getRowExpandSpan() - 1);
+                }
+
+                if (cell.getRowParent() != null)
+                    link(reach, cell.getRowParent().getRowIndex(), i);
+                if (cell.getColParent() != null)
+                    link(reach, cell.getColParent().getRowIndex(), i);
+            }
+        }
+
+        List<RowBand> bands = new ArrayList<>();
+        int begin = 0;
+        int end = -1;
+        for (int i = 0; i < rowCount; i++) {
+            if (i > end && end >= begin) {
+                bands.add(new RowBand(begin, end));
+                begin = i;
+            }
+            end = Math.max(end, reach[i]);
+        }
+        if (rowCount > 0)
+            bands.add(new RowBand(begin, end));
+        return bands;
+    }
+
+    private static void link(int[] reach, int row1, int row2) {
+        int from = Math.max(Math.min(row1, row2), 0);
+        int to = Math.min(Math.max(row1, row2), reach.length - 1);
+        if (reach[from] < to)
+            reach[from] = to;
+    }
+
+    /**
+     * 行带中只有一个顶层的行展开单元格，它的展开块正好覆盖整个行带，且行带中的其他单元格都随它复制时，可以分段展开
+     */
+    static void initDriver(ExpandedTable table, RowBand band) {
+        ExpandedCell driver = null;
+        int driverRow = -1;
+        List<ExpandedCell> cells = new ArrayList<>();
+        for (int i = band.beginRow; i <= band.endRow; i++) {
+            for (ExpandedCell cell : getRealCells(table.getRow(i))) {
+                if (cell.getExpandType() == XptExpandType.r && cell.getRowParent() == null) {
+                    if (driver != null)
+                        return;
+                    driver = cell;
+                    driverRow = i;
+                } else {
+                    cells.add(cell);
+                }
+            }
+        }
+
+        if (driver == null)
+            return;
+
+        XptCellModel model = driver.getModel();
+        int begin = driverRow - model.getRowExpandOffset();
+        if (begin != band.beginRow || begin + model.getRowExpandSpan() - 1 != band.endRow)
+            return;
+
+        if (!model.getRowExtendCells().isEmpty() || model.getExpandInplaceCount() != null)
+            return;
+
+        Set<ExpandedCell> descendants = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (driver.getRowDescendants() != null) {
+            for (List<ExpandedCell> list : driver.getRowDescendants().values()) {
+                descendants.addAll(list);
+            }
+        }
+
+        for (ExpandedCell cell : cells) {
+            if (!descendants.contains(cell))
+                return;
+        }
+
+        band.driverRow = driverRow;
+        band.driverCol = driver.getColIndex();
+    }
+
+    private static List<ExpandedCell> getRealCells(ExpandedRow row) {
+        List<ExpandedCell> cells = new ArrayList<>();
+        row.forEachRealCell(cells::add);
+        return cells;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setAfterExpand(Runnable afterExpand) {
+        this.afterExpand = afterExpand;
+    }
+
+    @Override
+    public void generateRows(IEvalContext context, Consumer<ITableView> consumer) {
+        for (RowBand band : bands) {
+            if (band.driverRow < 0) {
+                ExpandedSheet block = newBlock(band);
+                new TableExpander(block.getTable()).expand(xptRt);
+                generator.evaluateExpandedSheet(block, xptRt);
+                consumer.accept(block.getTable());
+            } else {
+                generateChunks(band, consumer);
+            }
+        }
+
+        if (afterExpand != null)
+            afterExpand.run();
+    }
+
+    private void generateChunks(RowBand band, Consumer<ITableView> consumer) {
+        ExpandedSheet block = newBlock(band);
+        ExpandedCell driver = getDriver(block, band);
+        Iterator<?> it = new TableExpander(block.getTable()).runExpandExpr(driver, xptRt);
+
+        int baseIndex = 0;
+        do {
+            List<Object> chunk = new ArrayList<>(Math.min(chunkSize, 64));
+            while (chunk.size() < chunkSize && it.hasNext()) {
+                chunk.add(it.next());
+            }
+
+            if (block == null) {
+                block = newBlock(band);
+                driver = getDriver(block, band);
+            }
+
+            TableExpander expander = new TableExpander(block.getTable());
+            expander.presetExpandList(driver, chunk.iterator());
+            expander.expand(xptRt);
+
+            if (baseIndex > 0)
+                shiftExpandIndex(block.getTable(), driver.getModel(), baseIndex);
+
+            generator.evaluateExpandedSheet(block, xptRt);
+            consumer.accept(block.getTable());
+
+            baseIndex += chunk.size();
+            block = null;
+        } while (it.hasNext());
+    }
+
+    private ExpandedCell getDriver(ExpandedSheet block, RowBand band) {
+        return block.getTable().getCell(band.driverRow - band.beginRow, band.driverCol);
+    }
+
+    /**
+     * 每个分段都从0开始编号，需要加上之前分段的条目数，保证序号等依赖expandIndex的计算结果与整体展开时一致
+     */
+    private void shiftExpandIndex(ExpandedTable table, XptCellModel driverModel, int baseIndex) {
+        for (ExpandedRow row : table.getRows()) {
+            row.forEachRealCell(cell -> {
+                if (cell.getModel() == driverModel)
+                    cell.setExpandIndex(cell.getExpandIndex() + baseIndex);
+            });
+        }
+    }
+
+    private ExpandedSheet newBlock(RowBand band) {
+        ExpandedSheet block = generator.newExpandedSheet(sheet, header.getName());
+        ExpandedTable table = block.getTable();
+        for (int i = table.getRowCount() - 1; i > band.endRow; i--) {
+            table.removeRow(i);
+        }
+        for (int i = band.beginRow - 1; i >= 0; i--) {
+            table.removeRow(i);
+        }
+        xptRt.setSheet(block);
+        return block;
+    }
+
+    @Override
+    public String getName() {
+        return header.getName();
+    }
+
+    @Override
+    public XptSheetModel getModel() {
+        return header.getModel();
+    }
+
+    @Override
+    public ExcelPageSetup getPageSetup() {
+        return header.getPageSetup();
+    }
+
+    @Override
+    public ExcelPageMargins getPageMargins() {
+        return header.getPageMargins();
+    }
+
+    @Override
+    public ExcelPageBreaks getPageBreaks() {
+        return header.getPageBreaks();
+    }
+
+    @Override
+    public Double getDefaultRowHeight() {
+        return header.getDefaultRowHeight();
+    }
+
+    @Override
+    public Double getDefaultColumnWidth() {
+        return header.getDefaultColumnWidth();
+    }
+
+    @Override
+    public ExpandedTable getTable() {
+        return header.getTable();
+    }
+
+    @Override
+    public List<ExcelImage> getImages() {
+        return null;
+    }
+}
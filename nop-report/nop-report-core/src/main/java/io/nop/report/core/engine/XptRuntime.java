@@ -44,6 +44,11 @@ public class XptRuntime implements IXptRuntime, IVariableScope {
 
     private final IEvalScope scope;
 
+    /**
+     * 通过newWorkerRuntime创建时对应的主运行时
+     */
+    private final XptRuntime parent;
+
     private final EvalRuntime evalRt;
     private ExpandedCell cell;
     private ExpandedTable table;
@@ -61,6 +66,11 @@ public class XptRuntime implements IXptRuntime, IVariableScope {
     private final Map<String, IExecutableExpression> cellExprCache = new HashMap<>();
 
     public XptRuntime(IEvalScope scope) {
+        this(scope, null);
+    }
+
+    private XptRuntime(IEvalScope scope, XptRuntime parent) {
+        this.parent = parent;
         this.scope = scope.newChildScope();
         scope.setLocalValue(null, XptConstants.VAR_XPT_RT, this);
         scope.setExtension(this);
@@ -159,6 +169,14 @@ public class XptRuntime implements IXptRuntime, IVariableScope {
         return ExpandedSheetEvaluator.INSTANCE.evaluateCell(cell, this);
     }
 
+    @Override
+    public IXptRuntime newWorkerRuntime() {
+        XptRuntime rt = new XptRuntime(scope.newChildScope(), this);
+        rt.setWorkbook(workbook);
+        rt.setSheet(sheet);
+        return rt;
+    }
+
     public Object field(String field) {
         if (cell == null)
             return scope.getValueByPropPath(field);
@@ -264,6 +282,12 @@ public class XptRuntime implements IXptRuntime, IVariableScope {
     public void addSheetCleanup(Runnable cleanup) {
         if (cleanup == null)
             return;
+        if (parent != null) {
+            synchronized (parent) {
+                parent.addSheetCleanup(cleanup);
+            }
+            return;
+        }
         if (sheetCleanups == null)
             sheetCleanups = new ArrayList<>();
         sheetCleanups.add(cleanup);
@@ -273,6 +297,12 @@ public class XptRuntime implements IXptRuntime, IVariableScope {
     public void addWorkbookCleanup(Runnable cleanup) {
         if (cleanup == null)
             return;
+        if (parent != null) {
+            synchronized (parent) {
+                parent.addWorkbookCleanup(cleanup);
+            }
+            return;
+        }
         if (workbookCleanups == null)
             workbookCleanups = new ArrayList<>();
         workbookCleanups.add(cleanup);
@@ -282,6 +312,12 @@ public class XptRuntime implements IXptRuntime, IVariableScope {
     public void addSheetLoopCleanup(Runnable cleanup) {
         if (cleanup == null)
             return;
+        if (parent != null) {
+            synchronized (parent) {
+                parent.addSheetLoopCleanup(cleanup);
+            }
+            return;
+        }
         if (sheetLoopCleanups == null)
             sheetLoopCleanups = new ArrayList<>();
         sheetLoopCleanups.add(cleanup);
@@ -48,6 +48,14 @@ public abstract class AbstractCellExpander implements ICellExpander {
         //          cell.getName(), cell.getExpandType(), cell.getRowParentExpandIndex(), cell.getColParentExpandIndex());
 
         Iterator<?> expandList = runExpandExpr(cell, xptRt);
+        expandWithList(cell, expandList, processing, xptRt);
+    }
+
+    /**
+     * 使用已经计算好的展开列表展开单元格。流式输出时展开列表会被分段，每段分别执行展开
+     */
+    public void expandWithList(ExpandedCell cell, Iterator<?> expandList, Deque<ExpandedCell> processing,
+                               IXptRuntime xptRt) {
         if (!expandList.hasNext()) {
             if (cell.getModel() != null && cell.getModel().shouldRemoveEmpty()) {
                 removeCell(cell);
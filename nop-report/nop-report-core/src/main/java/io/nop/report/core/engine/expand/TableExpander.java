@@ -15,6 +15,7 @@ import io.nop.report.core.model.ExpandedTable;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.Iterator;
 
 /**
  * 执行报表展开算法。基本逻辑为从前到后，从上至下逐个执行单元格展开。展开单元格时会先检查它的父格已经被展开。
@@ -23,6 +24,9 @@ import java.util.Deque;
 public class TableExpander {
     private final Deque<ExpandedCell> processing = new ArrayDeque<>();
 
+    private ExpandedCell presetCell;
+    private Iterator<?> presetExpandList;
+
     public TableExpander(ExpandedTable table) {
         for (ExpandedRow row : table.getRows()) {
             row.forEachRealCell(cell -> {
@@ -33,6 +37,21 @@ public class TableExpander {
         }
     }
 
+    /**
+     * 指定单元格使用预先计算好的展开列表，而不是执行单元格上的展开表达式
+     */
+    public void presetExpandList(ExpandedCell cell, Iterator<?> expandList) {
+        this.presetCell = cell;
+        this.presetExpandList = expandList;
+    }
+
+    /**
+     * 只计算单元格的展开列表，不执行展开
+     */
+    public Iterator<?> runExpandExpr(ExpandedCell cell, IXptRuntime xptRt) {
+        return ((AbstractCellExpander) getCellExpander(cell)).runExpandExpr(cell, xptRt);
+    }
+
     public void expand(IXptRuntime xptRt) {
         do {
             ExpandedCell cell = processing.poll();
@@ -54,7 +73,11 @@ public class TableExpander {
                 continue;
             }
 
-            getCellExpander(cell).expand(cell, processing, xptRt);
+            if (cell == presetCell) {
+                ((AbstractCellExpander) getCellExpander(cell)).expandWithList(cell, presetExpandList, processing, xptRt);
+            } else {
+                getCellExpander(cell).expand(cell, processing, xptRt);
+            }
         } while (true);
     }
 
@@ -11,12 +11,17 @@ import io.nop.core.resource.tpl.IBinaryTemplateOutput;
 import io.nop.excel.model.ExcelWorkbook;
 import io.nop.ooxml.xlsx.output.ExcelTemplate;
 import io.nop.ooxml.xlsx.output.IExcelSheetGenerator;
+import io.nop.report.core.engine.ExpandedSheetGenerator;
 import io.nop.report.core.engine.IReportRendererFactory;
 
 public class XlsxReportRendererFactory implements IReportRendererFactory {
 
     @Override
     public IBinaryTemplateOutput buildRenderer(ExcelWorkbook model, IExcelSheetGenerator sheetGenerator) {
+        // xlsx输出支持按行块写出，sheet模型上启用了streaming时将分段展开
+        if (sheetGenerator instanceof ExpandedSheetGenerator)
+            ((ExpandedSheetGenerator) sheetGenerator).setStreamingEnabled(true);
+
         ExcelTemplate template = new ExcelTemplate(model, sheetGenerator);
         return template;
     }
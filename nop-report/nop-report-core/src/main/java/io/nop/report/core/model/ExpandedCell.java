@@ -136,20 +136,34 @@ public class ExpandedCell implements IExcelCell {
         return ret;
     }
 
+    /**
+     * 并行求值时多个线程可能同时计算同一个key。计算过程在锁之外执行，避免长时间持有锁或者在锁中访问其他单元格，
+     * 结果只发布一次，所有调用者都得到第一个发布的值。
+     */
     public Object getComputed(String key, Function<ExpandedCell, Object> fn) {
-        if (extValues == null) {
-            extValues = new HashMap<>();
+        Object value = getExtValue(key);
+        if (value != null)
+            return value;
+
+        value = fn.apply(this);
+        if (value == null)
+            return null;
+
+        synchronized (this) {
+            if (extValues == null)
+                extValues = new HashMap<>();
+            Object old = extValues.putIfAbsent(key, value);
+            return old != null ? old : value;
         }
-        return extValues.computeIfAbsent(key, k -> fn.apply(this));
     }
 
-    public Object getExtValue(String key) {
+    public synchronized Object getExtValue(String key) {
         if (extValues == null)
             return null;
         return extValues.get(key);
     }
 
-    public void setExtValue(String name, Object value) {
+    public synchronized void setExtValue(String name, Object value) {
         if (extValues == null)
             extValues = new HashMap<>();
         extValues.put(name, value);
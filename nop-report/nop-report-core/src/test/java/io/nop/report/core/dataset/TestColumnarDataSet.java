@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestColumnarDataSet {
+
+    List<Object> makeItems(int count) {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("region", "R" + (i % 3));
+            map.put("product", i % 5 == 0 ? null : "P" + (i % 4));
+            map.put("qty", i % 7 == 0 ? null : i);
+            map.put("amount", i * 1.5);
+            map.put("total", (long) i * 1000);
+            items.add(map);
+        }
+        return items;
+    }
+
+    @Test
+    public void testSameResultAsListDataSet() {
+        List<Object> items = makeItems(100);
+        ReportDataSet listDs = new ReportDataSet("ds", items);
+        ReportDataSet columnDs = new ReportDataSet("ds", new ColumnarDataSet(items), null);
+
+        for (String field : Arrays.asList("region", "product", "qty", "amount", "total")) {
+            assertEquals(listDs.sum(field), columnDs.sum(field), field);
+            assertEquals(listDs.avg(field), columnDs.avg(field), field);
+            assertEquals(listDs.max(field), columnDs.max(field), field);
+            assertEquals(listDs.min(field), columnDs.min(field), field);
+            assertEquals(listDs.select(field), columnDs.select(field), field);
+            assertEquals(listDs.sort(field, true).getItems(), columnDs.sort(field, true).getItems(), field);
+        }
+
+        List<KeyedReportDataSet> groups1 = listDs.group("region");
+        List<KeyedReportDataSet> groups2 = columnDs.group("region");
+        assertEquals(groups1.size(), groups2.size());
+        for (int i = 0; i < groups1.size(); i++) {
+            assertEquals(groups1.get(i).getKey(), groups2.get(i).getKey());
+            assertEquals(groups1.get(i).getItems(), groups2.get(i).getItems());
+
+            // 子集上的嵌套分组
+            List<KeyedReportDataSet> sub1 = groups1.get(i).group("product");
+            List<KeyedReportDataSet> sub2 = groups2.get(i).group("product");
+            assertEquals(sub1.size(), sub2.size());
+            for (int j = 0; j < sub1.size(); j++) {
+                assertEquals(sub1.get(j).getKey(), sub2.get(j).getKey());
+                assertEquals(sub1.get(j).getItems(), sub2.get(j).getItems());
+                assertEquals(sub1.get(j).sum("qty"), sub2.get(j).sum("qty"));
+            }
+        }
+
+        assertEquals(listDs.where("product", "P1").getItems(), columnDs.where("product", "P1").getItems());
+        assertEquals(0, columnDs.where("product", "none").size());
+
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put("region", "R1");
+        props.put("product", "P3");
+        assertEquals(listDs.where(props).getItems(), columnDs.where(props).getItems());
+    }
+
+    @Test
+    public void testIntersect() {
+        ColumnarDataSet columnar = new ColumnarDataSet(makeItems(20));
+        assertArrayEquals(new int[]{3, 7}, columnar.intersect(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7, 9}));
+        assertArrayEquals(new int[]{7, 3}, columnar.intersect(new int[]{7, 5, 3}, new int[]{3, 7, 9}));
+        assertArrayEquals(new int[]{1, 2}, columnar.intersect(null, new int[]{1, 2}));
+    }
+}
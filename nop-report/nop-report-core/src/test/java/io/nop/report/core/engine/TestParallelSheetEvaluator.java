@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.engine;
+
+import io.nop.api.core.convert.ConvertHelper;
+import io.nop.core.initialize.CoreInitialization;
+import io.nop.core.lang.eval.IEvalScope;
+import io.nop.core.unittest.BaseTestCase;
+import io.nop.excel.model.ExcelWorkbook;
+import io.nop.report.core.model.ExpandedCell;
+import io.nop.report.core.model.ExpandedSheet;
+import io.nop.report.core.model.ExpandedTable;
+import io.nop.xlang.api.XLang;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestParallelSheetEvaluator extends BaseTestCase {
+
+    @BeforeAll
+    public static void init() {
+        CoreInitialization.initialize();
+    }
+
+    @AfterAll
+    public static void destroy() {
+        CoreInitialization.destroy();
+    }
+
+    public static class ThreadRecorder {
+        private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+        public String record() {
+            String name = Thread.currentThread().getName();
+            threadNames.add(name);
+            return name;
+        }
+
+        public Set<String> getThreadNames() {
+            return threadNames;
+        }
+    }
+
+    IEvalScope newScope(int count, ThreadRecorder recorder) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", "item" + i);
+            item.put("amount", i);
+            items.add(item);
+        }
+
+        IEvalScope scope = XLang.newEvalScope();
+        scope.setLocalValue(null, "items", items);
+        scope.setLocalValue(null, "threadRecorder", recorder);
+        return scope;
+    }
+
+    @Test
+    public void testAnalyzeLevels() {
+        ExcelWorkbook workbook = new ReportEngine().getXptModel("/nop/report/demo/test-parallel.xpt.xml");
+
+        // 按照运行时的方式收集展开之后尚未求值的单元格，再分析依赖层次
+        Map<String, Integer> levels = new HashMap<>();
+        new ExpandedSheetGenerator(workbook) {
+            @Override
+            void evaluateExpandedSheet(ExpandedSheet expandedSheet, IXptRuntime xptRt) {
+                List<ExpandedCell> cells = ParallelSheetEvaluator.INSTANCE.collectCells(expandedSheet);
+                ParallelSheetEvaluator.INSTANCE.analyzeLevels(cells).forEach((model, level) -> {
+                    levels.put(model.getName(), level);
+                });
+                super.evaluateExpandedSheet(expandedSheet, xptRt);
+            }
+        }.generate(new XptRuntime(newScope(10, new ThreadRecorder())), (sheet, ctx) -> {
+        });
+
+        assertEquals(0, levels.get("A2"));
+        assertEquals(1, levels.get("C2"));
+        assertEquals(2, levels.get("D2"));
+        assertEquals(1, levels.get("F2"));
+        assertEquals(2, levels.get("C3"));
+        assertEquals(3, levels.get("D3"));
+        // ACCSUM依赖于求值顺序
+        assertEquals(CellDependencyAnalyzer.LEVEL_SEQUENTIAL, levels.get("E2"));
+    }
+
+    @Test
+    public void testParallelEval() {
+        int count = 1000;
+        ThreadRecorder recorder = new ThreadRecorder();
+        IEvalScope scope = newScope(count, recorder);
+
+        ExcelWorkbook workbook = new ReportEngine().getXptModel("/nop/report/demo/test-parallel.xpt.xml");
+        List<ExpandedSheet> sheets = new ArrayList<>();
+        new ExpandedSheetGenerator(workbook).generate(new XptRuntime(scope), (sheet, ctx) -> {
+            sheets.add((ExpandedSheet) sheet);
+        });
+
+        ExpandedTable table = sheets.get(0).getTable();
+        assertEquals(count + 2, table.getRowCount());
+
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += i;
+            assertEquals(i + 1, ConvertHelper.toInt(table.getCell(i + 1, 0).getValue()));
+            assertEquals("item" + i, table.getCell(i + 1, 1).getValue());
+            assertEquals(i * 2, ConvertHelper.toInt(table.getCell(i + 1, 3).getValue()));
+            assertEquals(sum, ConvertHelper.toInt(table.getCell(i + 1, 4).getValue()));
+        }
+        assertEquals(sum, ConvertHelper.toInt(table.getCell(count + 1, 2).getValue()));
+        assertEquals(sum * 2, ConvertHelper.toInt(table.getCell(count + 1, 3).getValue()));
+
+        // F2在并行线程池中求值
+        assertTrue(recorder.getThreadNames().stream().anyMatch(name -> name.startsWith("nop-xpt-parallel-eval-")),
+                recorder.getThreadNames().toString());
+    }
+
+    @Test
+    public void testComputeOutsideLock() throws Exception {
+        ExpandedCell cell = new ExpandedCell();
+        cell.setExtValue("a", 1);
+
+        // 计算函数执行期间其他线程仍然可以访问该单元格
+        Object value = cell.getComputed("b", c -> {
+            CompletableFuture<Object> future = CompletableFuture.supplyAsync(() -> c.getExtValue("a"));
+            try {
+                return future.get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(1, value);
+
+        // 已经发布的值不会被后续计算结果覆盖
+        assertEquals(1, cell.getComputed("b", c -> 2));
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.report.core.engine;
+
+import io.nop.api.core.convert.ConvertHelper;
+import io.nop.core.initialize.CoreInitialization;
+import io.nop.core.lang.eval.IEvalScope;
+import io.nop.core.resource.impl.FileResource;
+import io.nop.core.resource.tpl.ITemplateOutput;
+import io.nop.core.unittest.BaseTestCase;
+import io.nop.excel.model.ExcelSheet;
+import io.nop.excel.model.ExcelTable;
+import io.nop.excel.model.ExcelWorkbook;
+import io.nop.ooxml.xlsx.parse.ExcelWorkbookParser;
+import io.nop.report.core.XptConstants;
+import io.nop.report.core.engine.renderer.XlsxReportRendererFactory;
+import io.nop.report.core.model.ExpandedTable;
+import io.nop.xlang.api.XLang;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestStreamingExpandedSheet extends BaseTestCase {
+
+    @BeforeAll
+    public static void init() {
+        CoreInitialization.initialize();
+    }
+
+    @AfterAll
+    public static void destroy() {
+        CoreInitialization.destroy();
+    }
+
+    @Test
+    public void testSplitBands() {
+        ReportEngine reportEngine = newReportEngine();
+        ExcelWorkbook workbook = reportEngine.getXptModel("/nop/report/demo/test-streaming.xpt.xml");
+        ExcelSheet sheet = workbook.getSheets().get(0);
+
+        IEvalScope scope = XLang.newEvalScope();
+        StreamingExpandedSheet streamingSheet = StreamingExpandedSheet.tryCreate(new ExpandedSheetGenerator(workbook),
+                sheet, sheet.getName(), new XptRuntime(scope));
+        assertNotNull(streamingSheet);
+
+        ExpandedTable table = new ExpandedSheetGenerator(workbook).newExpandedSheet(sheet, sheet.getName()).getTable();
+        List<StreamingExpandedSheet.RowBand> bands = StreamingExpandedSheet.splitBands(table);
+        assertEquals(3, bands.size());
+        assertEquals(1, bands.get(1).beginRow);
+        assertEquals(1, bands.get(1).endRow);
+
+        StreamingExpandedSheet.initDriver(table, bands.get(1));
+        assertEquals(1, bands.get(1).driverRow);
+        assertEquals(0, bands.get(1).driverCol);
+    }
+
+    @Test
+    public void testStreamingXlsx() {
+        int count = StreamingExpandedSheet.DEFAULT_CHUNK_SIZE * 2 + 500;
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("name", "item" + i);
+            item.put("amount", i * 10);
+            items.add(item);
+        }
+
+        IEvalScope scope = XLang.newEvalScope();
+        scope.setLocalValue(null, "items", items);
+
+        ReportEngine reportEngine = newReportEngine();
+        ExcelWorkbook workbook = reportEngine.getXptModel("/nop/report/demo/test-streaming.xpt.xml");
+
+        File file = getTargetFile("test-streaming.xlsx");
+        ITemplateOutput output = reportEngine.getRendererForXptModel(workbook, "xlsx");
+        output.generateToFile(file, scope);
+
+        ExcelWorkbook result = new ExcelWorkbookParser().parseFromResource(new FileResource(file));
+        ExcelTable table = result.getSheets().get(0).getTable();
+        assertEquals(count + 2, table.getRowCount());
+        assertEquals("序号", table.getCell(0, 0).getValue());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1, ConvertHelper.toInt(table.getCell(i + 1, 0).getValue()));
+            assertEquals("item" + i, table.getCell(i + 1, 1).getValue());
+            assertEquals(i * 10, ConvertHelper.toInt(table.getCell(i + 1, 2).getValue()));
+        }
+        assertEquals("合计", table.getCell(count + 1, 0).getValue());
+        assertEquals(2, table.getCell(count + 1, 0).getMergeAcross());
+    }
+
+    @Test
+    public void testEmptyList() {
+        IEvalScope scope = XLang.newEvalScope();
+        scope.setLocalValue(null, "items", new ArrayList<>());
+
+        ReportEngine reportEngine = newReportEngine();
+        ExcelWorkbook workbook = reportEngine.getXptModel("/nop/report/demo/test-streaming.xpt.xml");
+
+        File file = getTargetFile("test-streaming-empty.xlsx");
+        reportEngine.getRendererForXptModel(workbook, "xlsx").generateToFile(file, scope);
+
+        ExcelWorkbook result = new ExcelWorkbookParser().parseFromResource(new FileResource(file));
+        ExcelTable table = result.getSheets().get(0).getTable();
+        assertEquals(3, table.getRowCount());
+        assertNull(table.getCell(1, 1).getValue());
+        assertEquals("合计", table.getCell(2, 0).getValue());
+    }
+
+    private ReportEngine newReportEngine() {
+        ReportEngine reportEngine = new ReportEngine();
+        Map<String, IReportRendererFactory> renderers = new HashMap<>();
+        renderers.put(XptConstants.RENDER_TYPE_XLSX, new XlsxReportRendererFactory());
+        reportEngine.setRenderers(renderers);
+        return reportEngine;
+    }
+}
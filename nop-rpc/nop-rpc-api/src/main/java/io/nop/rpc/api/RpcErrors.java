@@ -16,6 +16,7 @@ public interface RpcErrors {
     String ARG_RULE_LIMIT_APP = "ruleLimitApp";
     String ARG_MSG = "msg";
     String ARG_LIMIT_TYPE = "limitType";
+    String ARG_LIMIT = "limit";
 
     ErrorCode ERR_RPC_FLOW_CONTROL_DEGRADE =
             define("nop.err.flow-control.degrade", "服务降级限流");
@@ -28,4 +29,8 @@ public interface RpcErrors {
 
     ErrorCode ERR_RPC_FLOW_CONTROL_BLOCK =
             define("nop.err.flow-control.block", "系统繁忙，请求被限流");
+
+    ErrorCode ERR_RPC_FLOW_CONTROL_CONCURRENCY_LIMIT =
+            define("nop.err.flow-control.concurrency-limit", "系统繁忙，资源[{resourceName}]的并发请求数超过限制:{limit}",
+                    ARG_RESOURCE_NAME, ARG_LIMIT);
 }
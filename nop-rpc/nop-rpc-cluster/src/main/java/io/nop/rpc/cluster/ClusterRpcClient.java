@@ -16,6 +16,8 @@ import io.nop.api.core.exceptions.NopException;
 import io.nop.api.core.util.ICancelToken;
 import io.nop.cluster.chooser.IServerChooser;
 import io.nop.cluster.discovery.ServiceInstance;
+import io.nop.cluster.lb.stats.ServiceInstanceStats;
+import io.nop.cluster.lb.stats.ServiceInstanceStatsRegistry;
 import io.nop.commons.concurrent.executor.IScheduledExecutor;
 import io.nop.rpc.api.IRpcService;
 import io.nop.rpc.core.composite.CancellableRpcClient;
@@ -44,6 +46,11 @@ public class ClusterRpcClient implements IRpcService {
      */
     private int retryCount;
 
+    /**
+     * 记录每个实例的调用延迟和错误，供PeakEwmaLoadBalance等负载均衡策略使用
+     */
+    private ServiceInstanceStatsRegistry statsRegistry;
+
     public ClusterRpcClient(String serviceName, IServerChooser<ApiRequest<?>> serverChooser,
                             IRpcClientInstanceProvider clientProvider, IScheduledExecutor timer) {
         this.serviceName = serviceName;
@@ -56,6 +63,10 @@ public class ClusterRpcClient implements IRpcService {
         this.retryCount = retryCount;
     }
 
+    public void setStatsRegistry(ServiceInstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
     @Override
     public CompletionStage<ApiResponse<?>> callAsync(String serviceMethod, ApiRequest<?> request,
                                                      ICancelToken cancelToken) {
@@ -71,21 +82,33 @@ public class ClusterRpcClient implements IRpcService {
                 @Override
                 public void accept(int retryTimes) {
                     ServiceInstance instance = serverChooser.chooseFromCandidates(instances, request);
-                    getRpcClient(instance, request).callAsync(serviceMethod, request, cancelToken)
-                            .whenComplete((ret, err) -> {
-                                if (err == null) {
-                                    future.complete(ret);
-                                } else {
-                                    if (retryTimes >= retryCount || (ctx != null && ctx.isCallExpired()) || !isAllowRetry(err)) {
-                                        future.completeExceptionally(err);
-                                    } else {
-                                        if (instances.size() > 1) {
-                                            instances.remove(instance);
-                                        }
-                                        this.accept(retryTimes + 1);
-                                    }
+                    ServiceInstanceStats stats = getStats(instance);
+                    long beginTime = stats == null ? 0 : stats.beginCall();
+                    CompletionStage<ApiResponse<?>> promise;
+                    try {
+                        promise = getRpcClient(instance, request).callAsync(serviceMethod, request, cancelToken);
+                    } catch (Exception e) {
+                        if (stats != null)
+                            stats.endCall(beginTime, false);
+                        throw e;
+                    }
+                    promise.whenComplete((ret, err) -> {
+                        if (stats != null)
+                            stats.endCall(beginTime, err == null);
+
+                        if (err == null) {
+                            future.complete(ret);
+                        } else {
+                            if (retryTimes >= retryCount || (ctx != null && ctx.isCallExpired()) || !isAllowRetry(err)) {
+                                future.completeExceptionally(err);
+                            } else {
+                                if (instances.size() > 1) {
+                                    instances.remove(instance);
                                 }
-                            });
+                                this.accept(retryTimes + 1);
+                            }
+                        }
+                    });
                 }
             };
             fn.accept(0);
@@ -103,9 +126,16 @@ public class ClusterRpcClient implements IRpcService {
         Exception error = null;
         for (int i = 0; i <= retryCount; i++) {
             ServiceInstance instance = serverChooser.chooseFromCandidates(instances, request);
+            ServiceInstanceStats stats = getStats(instance);
+            long beginTime = stats == null ? 0 : stats.beginCall();
             try {
-                return getRpcClient(instance, request).call(serviceMethod, request, cancelToken);
+                ApiResponse<?> res = getRpcClient(instance, request).call(serviceMethod, request, cancelToken);
+                if (stats != null)
+                    stats.endCall(beginTime, true);
+                return res;
             } catch (Exception e) {
+                if (stats != null)
+                    stats.endCall(beginTime, false);
                 error = e;
 
                 // 服务调用已经超时则不需要再重试
@@ -125,6 +155,12 @@ public class ClusterRpcClient implements IRpcService {
         throw NopException.adapt(error);
     }
 
+    protected ServiceInstanceStats getStats(ServiceInstance instance) {
+        if (statsRegistry == null || instance == null)
+            return null;
+        return statsRegistry.getStats(instance);
+    }
+
     protected NopException newNoAvailableServerError(String serviceName) {
         return new NopException(ERR_CLUSTER_NO_AVAILABLE_SERVER_INSTANCE).param(ARG_SERVICE_NAME,
                 serviceName);
@@ -9,6 +9,7 @@ package io.nop.rpc.cluster;
 
 import io.nop.api.core.beans.ApiRequest;
 import io.nop.cluster.chooser.IServerChooser;
+import io.nop.cluster.lb.stats.ServiceInstanceStatsRegistry;
 import io.nop.commons.concurrent.executor.GlobalExecutors;
 import io.nop.commons.concurrent.executor.IScheduledExecutor;
 import io.nop.rpc.api.IRpcService;
@@ -21,6 +22,7 @@ public class ClusterRpcProxyFactoryBean extends RpcServiceProxyFactoryBean {
     private IServerChooser<ApiRequest<?>> serverChooser;
     private IRpcClientInstanceProvider clientProvider;
     private IScheduledExecutor timer;
+    private ServiceInstanceStatsRegistry statsRegistry;
 
     @Inject
     public void setServerChooser(IServerChooser<ApiRequest<?>> serverChooser) {
@@ -36,6 +38,10 @@ public class ClusterRpcProxyFactoryBean extends RpcServiceProxyFactoryBean {
         this.timer = timer;
     }
 
+    public void setStatsRegistry(ServiceInstanceStatsRegistry statsRegistry) {
+        this.statsRegistry = statsRegistry;
+    }
+
     @Override
     @PostConstruct
     public void init() {
@@ -44,6 +50,7 @@ public class ClusterRpcProxyFactoryBean extends RpcServiceProxyFactoryBean {
 
         ClusterRpcClient rpcService = new ClusterRpcClient(getServiceName(), serverChooser, clientProvider, timer);
         rpcService.setRetryCount(getRetryCount());
+        rpcService.setStatsRegistry(statsRegistry);
         setRpcService(rpcService);
         super.init();
     }
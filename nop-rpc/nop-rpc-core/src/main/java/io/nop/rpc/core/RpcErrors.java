@@ -29,6 +29,11 @@ public interface RpcErrors {
 
     String ARG_REQ_ID = "reqId";
 
+    String ARG_POS = "pos";
+    String ARG_LENGTH = "length";
+    String ARG_MAX_LENGTH = "maxLength";
+    String ARG_MAX_LEVEL = "maxLevel";
+
     String ARG_TOPIC = "topic";
     String ARG_ALLOWED_TOPICS = "allowedTopics";
 
@@ -68,4 +73,13 @@ public interface RpcErrors {
             ARG_SERVICE_METHOD);
 
     ErrorCode ERR_RPC_CANCELLED = define("nop.err.rpc.cancelled", "RPC调用已取消，原因:{reason}", ARG_CANCEL_REASON);
+
+    ErrorCode ERR_RPC_INVALID_BINARY_MESSAGE = define("nop.err.rpc.invalid-binary-message",
+            "RPC消息的二进制格式不正确，解析到位置{pos}时出错", ARG_POS);
+
+    ErrorCode ERR_RPC_MESSAGE_TOO_LARGE = define("nop.err.rpc.message-too-large",
+            "RPC消息解压后的长度[{length}]超过最大限制[{maxLength}]", ARG_LENGTH, ARG_MAX_LENGTH);
+
+    ErrorCode ERR_RPC_MESSAGE_EXCEED_MAX_NESTED_LEVEL = define("nop.err.rpc.message-exceed-max-nested-level",
+            "RPC消息的嵌套层次超过限制[{maxLevel}]，解析到位置{pos}时出错", ARG_MAX_LEVEL, ARG_POS);
 }
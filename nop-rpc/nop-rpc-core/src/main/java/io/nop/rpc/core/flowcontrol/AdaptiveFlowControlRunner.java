@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.rpc.core.flowcontrol;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.time.CoreMetrics;
+import io.nop.api.core.util.FutureHelper;
+import io.nop.commons.concurrent.ratelimit.AdaptiveConcurrencyLimiter;
+import io.nop.rpc.api.flowcontrol.FlowControlEntry;
+import io.nop.rpc.api.flowcontrol.IFlowControlRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static io.nop.rpc.api.RpcErrors.ARG_LIMIT;
+import static io.nop.rpc.api.RpcErrors.ARG_RESOURCE_NAME;
+import static io.nop.rpc.api.RpcErrors.ERR_RPC_FLOW_CONTROL_CONCURRENCY_LIMIT;
+
+/**
+ * 每个资源(RPC服务方法、GraphQL操作等)对应一个AdaptiveConcurrencyLimiter，根据响应延迟自动发现服务能够承受的并发数。
+ * 超过并发上限的请求立刻被拒绝，而不是进入队列等待，这样负载突增时不会出现队列堆积导致所有请求都超时的情况。
+ */
+public class AdaptiveFlowControlRunner implements IFlowControlRunner {
+    static final Logger LOG = LoggerFactory.getLogger(AdaptiveFlowControlRunner.class);
+
+    /**
+     * 资源数超过maxResourceCount之后，新的资源共享这个限流桶
+     */
+    public static final String SHARED_RESOURCE = "*";
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 1000;
+    private double rttTolerance = 1.5;
+    private int maxResourceCount = 1000;
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        this.rttTolerance = rttTolerance;
+    }
+
+    public int getMaxResourceCount() {
+        return maxResourceCount;
+    }
+
+    public void setMaxResourceCount(int maxResourceCount) {
+        this.maxResourceCount = maxResourceCount;
+    }
+
+    /**
+     * 返回各个资源当前的并发上限，用于监控
+     */
+    public Map<String, Integer> getLimits() {
+        Map<String, Integer> ret = new TreeMap<>();
+        limiters.forEach((name, limiter) -> ret.put(name, limiter.getLimit()));
+        return ret;
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter(String resource) {
+        if (resource == null)
+            resource = SHARED_RESOURCE;
+
+        AdaptiveConcurrencyLimiter limiter = limiters.get(resource);
+        if (limiter != null)
+            return limiter;
+
+        if (limiters.size() >= maxResourceCount)
+            resource = SHARED_RESOURCE;
+        return limiters.computeIfAbsent(resource, k -> newLimiter());
+    }
+
+    protected AdaptiveConcurrencyLimiter newLimiter() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+        limiter.setRttTolerance(rttTolerance);
+        return limiter;
+    }
+
+    @Override
+    public <T> CompletionStage<T> runAsync(FlowControlEntry entry, Supplier<CompletionStage<T>> task) {
+        AdaptiveConcurrencyLimiter limiter = getLimiter(entry.getResource());
+        if (!limiter.tryAcquire())
+            return FutureHelper.reject(newLimitError(entry, limiter));
+
+        long beginTime = CoreMetrics.nanoTime();
+        CompletionStage<T> ret;
+        try {
+            ret = task.get();
+        } catch (Exception e) {
+            limiter.release(1, CoreMetrics.nanoTimeDiff(beginTime), e);
+            throw NopException.adapt(e);
+        }
+        return ret.whenComplete((r, e) -> limiter.release(1, CoreMetrics.nanoTimeDiff(beginTime), e));
+    }
+
+    @Override
+    public <T> T run(FlowControlEntry entry, Supplier<T> task) {
+        AdaptiveConcurrencyLimiter limiter = getLimiter(entry.getResource());
+        if (!limiter.tryAcquire())
+            throw newLimitError(entry, limiter);
+
+        long beginTime = CoreMetrics.nanoTime();
+        Throwable error = null;
+        try {
+            return task.get();
+        } catch (Exception e) {
+            error = e;
+            throw NopException.adapt(e);
+        } finally {
+            limiter.release(1, CoreMetrics.nanoTimeDiff(beginTime), error);
+        }
+    }
+
+    protected NopException newLimitError(FlowControlEntry entry, AdaptiveConcurrencyLimiter limiter) {
+        LOG.warn("nop.rpc.flow-control.concurrency-limit:resourceName={},limit={},bizKey={}",
+                entry.getResource(), limiter.getLimit(), entry.getBizKey());
+        return new NopException(ERR_RPC_FLOW_CONTROL_CONCURRENCY_LIMIT)
+                .param(ARG_RESOURCE_NAME, entry.getResource())
+                .param(ARG_LIMIT, limiter.getLimit());
+    }
+}
@@ -9,15 +9,14 @@ package io.nop.rpc.simple;
 
 import io.nop.api.core.beans.ApiRequest;
 import io.nop.api.core.beans.ApiResponse;
-import io.nop.api.core.json.JSON;
 import io.nop.api.core.util.ApiHeaders;
 import io.nop.api.core.util.FutureHelper;
 import io.nop.api.core.util.ICancelToken;
 import io.nop.commons.concurrent.executor.IScheduledExecutor;
-import io.nop.core.lang.json.JsonTool;
 import io.nop.rpc.api.IRpcService;
 import io.nop.rpc.core.RpcConstants;
 import io.nop.rpc.core.message.RpcChannelState;
+import io.nop.rpc.simple.codec.SimpleRpcCodec;
 import io.nop.socket.BinaryCommand;
 import io.nop.socket.ICommandClient;
 import org.slf4j.Logger;
@@ -38,6 +37,7 @@ public class SimpleRpcClient implements IRpcService, AutoCloseable {
     private final String serviceName;
     private final ICommandClient client;
     private final Consumer<ApiResponse<?>> noticeReceiver;
+    private final SimpleRpcCodec codec;
 
     private final RpcChannelState<ApiRequest<?>, ApiResponse<?>> channelState;
     private final AtomicInteger seq = new AtomicInteger();
@@ -47,9 +47,16 @@ public class SimpleRpcClient implements IRpcService, AutoCloseable {
 
     public SimpleRpcClient(String serviceName, ICommandClient client,
                            Consumer<ApiResponse<?>> noticeReceiver, IScheduledExecutor timer) {
+        this(serviceName, client, noticeReceiver, timer, SimpleRpcCodec.JSON_CODEC);
+    }
+
+    public SimpleRpcClient(String serviceName, ICommandClient client,
+                           Consumer<ApiResponse<?>> noticeReceiver, IScheduledExecutor timer,
+                           SimpleRpcCodec codec) {
         this.serviceName = serviceName;
         this.client = client;
         this.noticeReceiver = noticeReceiver;
+        this.codec = codec;
         channelState = new RpcChannelState<>(serviceName, timer);
 
         client.setOnChannelOpen(() -> {
@@ -85,23 +92,26 @@ public class SimpleRpcClient implements IRpcService, AutoCloseable {
         return serviceName;
     }
 
+    public SimpleRpcCodec getCodec() {
+        return codec;
+    }
+
     public <T> void executeRecv(Executor executor) {
         client.recv(executor, cmd -> {
-            String str = cmd.getDataAsString();
-            ApiResponse<?> res = (ApiResponse<?>) JsonTool.parseBeanFromText(str, ApiResponse.class);
+            ApiResponse<?> res = codec.decode(cmd, ApiResponse.class);
             switch (cmd.getCmd()) {
                 // 服务器主动推送过来的通知消息
                 case RpcConstants.CMD_NOTICE: {
                     if (noticeReceiver != null && res != null) {
                         noticeReceiver.accept(res);
                     } else {
-                        LOG.info("nop.core.rpc.ignore-notice:msg={}", str);
+                        LOG.info("nop.core.rpc.ignore-notice:msg={}", res);
                     }
                     break;
                 }
                 case RpcConstants.CMD_RESPONSE:
                 case RpcConstants.CMD_ERROR: {
-                    // 这里假定了单线程调用，因此发送请求与返回响应包按顺序匹配
+                    // 响应通过relId与请求匹配，允许多个请求同时在途，服务端可以乱序返回
                     String id = ApiHeaders.getRelId(res);
                     channelState.onReceive(id, res);
                 }
@@ -139,7 +149,6 @@ public class SimpleRpcClient implements IRpcService, AutoCloseable {
     }
 
     BinaryCommand buildRequest(ApiRequest<?> request) {
-        String str = JSON.stringify(request);
-        return client.newCommand(RpcConstants.CMD_REQUEST, (short) 0, str);
+        return codec.encode(client.getClientConfig(), RpcConstants.CMD_REQUEST, request);
     }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import io.nop.rpc.core.interceptors.LogRpcServiceInterceptor;
 import io.nop.rpc.core.reflect.DefaultRpcMessageTransformer;
 import io.nop.rpc.core.reflect.IRpcMessageTransformer;
 import io.nop.rpc.core.reflect.RpcInvocationHandler;
+import io.nop.rpc.simple.codec.SimpleRpcCodec;
 import io.nop.socket.ClientConfig;
 import io.nop.socket.ICommandClient;
 import io.nop.socket.SocketClient;
@@ -42,9 +43,35 @@ public class SimpleRpcClientFactory<T> implements IDestroyable {
     private Class<T> rpcInterface;
     private Consumer<ApiResponse<?>> noticeReceiver;
 
+    /**
+     * 使用二进制格式发送请求。服务端按照请求的格式返回响应，并且会并发处理二进制格式的请求
+     */
+    private boolean binaryProtocol;
+
+    /**
+     * 二进制消息体超过此大小时使用deflate压缩，小于等于0表示不压缩
+     */
+    private int compressThreshold = 16 * 1024;
+
     private Runnable onChannelOpen;
     private Runnable onChannelClose;
 
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+
+    public void setBinaryProtocol(boolean binaryProtocol) {
+        this.binaryProtocol = binaryProtocol;
+    }
+
+    public int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    public void setCompressThreshold(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
     public Runnable getOnChannelOpen() {
         return onChannelOpen;
     }
@@ -161,8 +188,10 @@ public class SimpleRpcClientFactory<T> implements IDestroyable {
         String serviceName = this.serviceName;
         if (serviceName == null)
             serviceName = rpcInterface.getName();
+        SimpleRpcCodec codec = new SimpleRpcCodec(binaryProtocol, binaryProtocol ? compressThreshold : 0,
+                clientConfig.getMaxDataLen());
         SimpleRpcClient rpcService = new SimpleRpcClient(serviceName, client, noticeReceiver,
-                timer);
+                timer, codec);
         T obj = (T) Proxy.newProxyInstance(rpcInterface.getClassLoader(), new Class[]{rpcInterface, IRpcProxy.class},
                 new RpcInvocationHandler(serviceName, rpcService, interceptors, transformer));
 
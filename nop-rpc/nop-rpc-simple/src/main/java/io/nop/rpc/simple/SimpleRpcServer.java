@@ -17,9 +17,7 @@ import io.nop.commons.concurrent.executor.DefaultThreadPoolExecutor;
 import io.nop.commons.concurrent.executor.IThreadPoolExecutor;
 import io.nop.commons.service.ILifeCycle;
 import io.nop.commons.util.CollectionHelper;
-import io.nop.commons.util.StringHelper;
 import io.nop.core.exceptions.ErrorMessageManager;
-import io.nop.core.lang.json.JsonTool;
 import io.nop.rpc.api.AopRpcService;
 import io.nop.rpc.api.IRpcService;
 import io.nop.rpc.api.IRpcServiceInterceptor;
@@ -29,8 +27,10 @@ import io.nop.rpc.core.reflect.DefaultRpcMessageTransformer;
 import io.nop.rpc.core.reflect.IRpcMessageTransformer;
 import io.nop.rpc.core.reflect.MultiRpcService;
 import io.nop.rpc.core.reflect.ReflectiveRpcService;
+import io.nop.rpc.simple.codec.SimpleRpcCodec;
 import io.nop.socket.BinaryCommand;
 import io.nop.socket.ICommandServer;
+import io.nop.socket.NioSocketServer;
 import io.nop.socket.ServerConfig;
 import io.nop.socket.SocketServer;
 import org.slf4j.Logger;
@@ -52,6 +52,11 @@ public class SimpleRpcServer implements ILifeCycle {
     private ServerConfig serverConfig;
     private IThreadPoolExecutor executor;
     private boolean ownExecutor;
+    private IThreadPoolExecutor dispatchExecutor;
+    private boolean ownDispatchExecutor;
+    private int dispatchQueueSize = 1000;
+    private int compressThreshold = 16 * 1024;
+    private SimpleRpcCodec binaryCodec;
     private IRpcService handler;
     private ICommandServer socketServer;
 
@@ -78,6 +83,36 @@ public class SimpleRpcServer implements ILifeCycle {
         this.executor = executor;
     }
 
+    public IThreadPoolExecutor getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    /**
+     * 二进制格式的请求在此线程池中执行，读取连接的线程不会被业务处理阻塞，同一个连接上的多个请求可以并发执行
+     */
+    public void setDispatchExecutor(IThreadPoolExecutor dispatchExecutor) {
+        this.dispatchExecutor = dispatchExecutor;
+    }
+
+    public int getDispatchQueueSize() {
+        return dispatchQueueSize;
+    }
+
+    public void setDispatchQueueSize(int dispatchQueueSize) {
+        this.dispatchQueueSize = dispatchQueueSize;
+    }
+
+    public int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    /**
+     * 二进制格式的响应超过此大小时使用deflate压缩，小于等于0表示不压缩
+     */
+    public void setCompressThreshold(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
     public List<IRpcServiceInterceptor> getInterceptors() {
         return interceptors;
     }
@@ -125,14 +160,23 @@ public class SimpleRpcServer implements ILifeCycle {
             this.interceptors = CollectionHelper.prepend(interceptors, LogRpcServiceInterceptor.INSTANCE);
         }
 
+        String serverName = serverConfig.getServerName();
+        if (serverName == null)
+            serverName = "default";
+
         if (executor == null) {
-            String serverName = serverConfig.getServerName();
-            if (serverName == null)
-                serverName = "default";
             executor = DefaultThreadPoolExecutor.newExecutor("simple-rpc-server-" + serverName,
                     serverConfig.getThreadPoolSize(), 10);
             ownExecutor = true;
         }
+
+        if (dispatchExecutor == null) {
+            dispatchExecutor = DefaultThreadPoolExecutor.newExecutor("simple-rpc-dispatch-" + serverName,
+                    serverConfig.getThreadPoolSize(), dispatchQueueSize);
+            ownDispatchExecutor = true;
+        }
+
+        binaryCodec = new SimpleRpcCodec(true, compressThreshold, serverConfig.getMaxDataLen());
     }
 
     public boolean isActive() {
@@ -152,6 +196,16 @@ public class SimpleRpcServer implements ILifeCycle {
     }
 
     protected ICommandServer newServer() {
+        if (serverConfig.isNioEnabled()) {
+            NioSocketServer server = new NioSocketServer();
+            server.setServerConfig(serverConfig);
+            server.setExecutor(executor);
+            server.setCommandHandler(this::handleCommandSync);
+            server.setOnChannelOpen(onChannelOpen);
+            server.setOnChannelClose(onChannelClose);
+            return server;
+        }
+
         SocketServer server = new SocketServer();
         server.setServerConfig(serverConfig);
         server.setExecutor(executor);
@@ -175,6 +229,11 @@ public class SimpleRpcServer implements ILifeCycle {
             if (executor != null)
                 executor.destroy();
         }
+
+        if (ownDispatchExecutor) {
+            if (dispatchExecutor != null)
+                dispatchExecutor.destroy();
+        }
     }
 
     public void broadcast(short cmd, short flags, ApiResponse<?> res) {
@@ -212,25 +271,55 @@ public class SimpleRpcServer implements ILifeCycle {
         return new MultiRpcService(services);
     }
 
+    /**
+     * Json文本格式的请求在读取连接的线程中同步执行，响应按照请求的顺序返回，与旧版本的客户端兼容。
+     * 二进制格式的请求提交到dispatchExecutor中执行，执行完毕后通过sendTo返回，客户端根据relId匹配响应。
+     */
     protected BinaryCommand handleCommandSync(String addr, BinaryCommand request) {
         ApiRequest<Object> req = null;
-        ApiResponse<?> res;
         try {
-            String str = request.getDataAsString();
-            if (StringHelper.isEmpty(str)) {
+            req = binaryCodec.decode(request, ApiRequest.class);
+            if (req == null) {
                 throw new NopException(ERR_RPC_EMPTY_REQUEST);
             }
-            req = (ApiRequest<Object>) JsonTool.parseBeanFromText(str, ApiRequest.class);
             ApiHeaders.setClientAddr(req, addr);
+
+            if (SimpleRpcCodec.isBinary(request)) {
+                ApiRequest<Object> asyncReq = req;
+                dispatchExecutor.execute(() -> invokeAndSend(addr, request, asyncReq));
+                return null;
+            }
+            return invoke(request, req);
+        } catch (Exception e) {
+            LOG.error("nop.err.socket.handle-command-fail", e);
+            return buildResponse(request, req, ErrorMessageManager.instance().buildResponse(req, e));
+        }
+    }
+
+    private void invokeAndSend(String addr, BinaryCommand request, ApiRequest<Object> req) {
+        BinaryCommand response = invoke(request, req);
+        try {
+            socketServer.sendTo(addr, response);
+        } catch (Exception e) {
+            LOG.error("nop.err.socket.send-response-fail:addr={}", addr, e);
+        }
+    }
+
+    private BinaryCommand invoke(BinaryCommand request, ApiRequest<Object> req) {
+        ApiResponse<?> res;
+        try {
             res = handler.call(ApiHeaders.getSvcAction(req), req, null);
         } catch (Exception e) {
             LOG.error("nop.err.socket.handle-command-fail", e);
             res = ErrorMessageManager.instance().buildResponse(req, e);
         }
+        return buildResponse(request, req, res);
+    }
 
+    private BinaryCommand buildResponse(BinaryCommand request, ApiRequest<?> req, ApiResponse<?> res) {
         transformer.enrichResponse(req, res);
-        String result = JSON.stringify(res);
-        return socketServer.newCommand(res.isOk() ? RpcConstants.CMD_RESPONSE : RpcConstants.CMD_ERROR, (short) 0,
-                result);
+        SimpleRpcCodec codec = SimpleRpcCodec.isBinary(request) ? binaryCodec : SimpleRpcCodec.JSON_CODEC;
+        return codec.encode(socketServer.getServerConfig(),
+                res.isOk() ? RpcConstants.CMD_RESPONSE : RpcConstants.CMD_ERROR, res);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.rpc.simple.codec;
+
+import io.nop.api.core.exceptions.NopException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.nop.core.CoreConfigs.CFG_JSON_MAX_NESTED_LEVEL;
+import static io.nop.rpc.core.RpcErrors.ARG_MAX_LEVEL;
+import static io.nop.rpc.core.RpcErrors.ARG_POS;
+import static io.nop.rpc.core.RpcErrors.ERR_RPC_INVALID_BINARY_MESSAGE;
+import static io.nop.rpc.core.RpcErrors.ERR_RPC_MESSAGE_EXCEED_MAX_NESTED_LEVEL;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.END_OBJECT;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_BEGIN_ARRAY;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_BEGIN_OBJECT;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_BIG_DECIMAL;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_BIG_INTEGER;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_DOUBLE;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_END_ARRAY;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_FALSE;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_INT;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_LONG;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_NULL;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_STRING;
+import static io.nop.rpc.simple.codec.BinaryJsonOutput.TAG_TRUE;
+
+/**
+ * 解码BinaryJsonOutput的输出，返回Map/List/String/Number/Boolean构成的Json对象，与解析Json文本的结果一致
+ */
+public class BinaryJsonInput {
+    private final byte[] buf;
+    private int pos;
+    private final int end;
+    private final List<String> keys = new ArrayList<>();
+    private final int maxDepth = CFG_JSON_MAX_NESTED_LEVEL.get();
+    private int depth;
+
+    public BinaryJsonInput(byte[] buf, int offset, int len) {
+        this.buf = buf;
+        this.pos = offset;
+        this.end = offset + len;
+    }
+
+    public BinaryJsonInput(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    public static Object parse(byte[] bytes) {
+        BinaryJsonInput input = new BinaryJsonInput(bytes);
+        Object value = input.readValue();
+        if (input.pos != input.end)
+            throw input.newError();
+        return value;
+    }
+
+    public Object readValue() {
+        int tag = readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INT: {
+                int n = readVarInt();
+                return (n >>> 1) ^ -(n & 1);
+            }
+            case TAG_LONG: {
+                long n = readVarLong();
+                return (n >>> 1) ^ -(n & 1);
+            }
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(readLong());
+            case TAG_STRING:
+                return readUtf8(readVarInt());
+            case TAG_BIG_DECIMAL:
+                return new BigDecimal(readUtf8(readVarInt()));
+            case TAG_BIG_INTEGER:
+                return new BigInteger(readUtf8(readVarInt()));
+            case TAG_BEGIN_OBJECT: {
+                incDepth();
+                Map<String, Object> map = readObject();
+                depth--;
+                return map;
+            }
+            case TAG_BEGIN_ARRAY: {
+                incDepth();
+                List<Object> list = readArray();
+                depth--;
+                return list;
+            }
+            default:
+                throw newError();
+        }
+    }
+
+    /**
+     * 限制嵌套层次，避免恶意构造的深层嵌套消息导致StackOverflowError
+     */
+    private void incDepth() {
+        depth++;
+        if (depth > maxDepth)
+            throw new NopException(ERR_RPC_MESSAGE_EXCEED_MAX_NESTED_LEVEL)
+                    .param(ARG_MAX_LEVEL, maxDepth).param(ARG_POS, pos);
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        while (true) {
+            int n = readVarInt();
+            if (n == END_OBJECT)
+                return map;
+            String key = readKey(n - 1);
+            map.put(key, readValue());
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> list = new ArrayList<>();
+        while (true) {
+            if (peekByte() == TAG_END_ARRAY) {
+                pos++;
+                return list;
+            }
+            list.add(readValue());
+        }
+    }
+
+    private String readKey(int n) {
+        if ((n & 1) != 0) {
+            int index = n >>> 1;
+            if (index >= keys.size())
+                throw newError();
+            return keys.get(index);
+        }
+        String key = readUtf8(n >>> 1);
+        keys.add(key);
+        return key;
+    }
+
+    private String readUtf8(int len) {
+        if (len < 0 || pos + len > end)
+            throw newError();
+        String str = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return str;
+    }
+
+    private int peekByte() {
+        if (pos >= end)
+            throw newError();
+        return buf[pos];
+    }
+
+    private int readByte() {
+        if (pos >= end)
+            throw newError();
+        return buf[pos++];
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw newError();
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw newError();
+    }
+
+    private long readLong() {
+        if (pos + 8 > end)
+            throw newError();
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buf[pos++] & 0xFF);
+        }
+        return value;
+    }
+
+    private NopException newError() {
+        return new NopException(ERR_RPC_INVALID_BINARY_MESSAGE).param(ARG_POS, pos);
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.rpc.simple.codec;
+
+import io.nop.api.core.util.SourceLocation;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.json.IJsonHandler;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 将JsonSerializer输出的Json结构编码为紧凑的二进制格式，避免文本格式化和解析的开销。
+ * <ul>
+ *     <li>整数使用zigzag变长编码，浮点数直接输出8字节</li>
+ *     <li>字符串使用变长长度前缀加UTF-8编码</li>
+ *     <li>对象的属性名在同一个消息中只输出一次，再次出现时只输出序号，列表中的多个对象可以共享属性名</li>
+ * </ul>
+ * 由BinaryJsonInput负责解码
+ */
+public class BinaryJsonOutput implements IJsonHandler {
+    static final byte TAG_NULL = 0;
+    static final byte TAG_TRUE = 1;
+    static final byte TAG_FALSE = 2;
+    static final byte TAG_INT = 3;
+    static final byte TAG_LONG = 4;
+    static final byte TAG_DOUBLE = 5;
+    static final byte TAG_STRING = 6;
+    static final byte TAG_BEGIN_OBJECT = 7;
+    static final byte TAG_BEGIN_ARRAY = 8;
+    static final byte TAG_END_ARRAY = 9;
+    static final byte TAG_BIG_DECIMAL = 10;
+    static final byte TAG_BIG_INTEGER = 11;
+
+    /**
+     * 在属性名的位置上出现0表示对象结束
+     */
+    static final byte END_OBJECT = 0;
+
+    private byte[] buf;
+    private int count;
+    private final Map<String, Integer> keys = new HashMap<>();
+
+    public BinaryJsonOutput(int initSize) {
+        this.buf = new byte[initSize];
+    }
+
+    public BinaryJsonOutput() {
+        this(256);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Object endDoc() {
+        return null;
+    }
+
+    @Override
+    public IJsonHandler comment(String comment) {
+        return this;
+    }
+
+    @Override
+    public IJsonHandler beginObject(SourceLocation loc) {
+        writeByte(TAG_BEGIN_OBJECT);
+        return this;
+    }
+
+    @Override
+    public IJsonHandler endObject() {
+        writeByte(END_OBJECT);
+        return this;
+    }
+
+    @Override
+    public IJsonHandler beginArray(SourceLocation loc) {
+        writeByte(TAG_BEGIN_ARRAY);
+        return this;
+    }
+
+    @Override
+    public IJsonHandler endArray() {
+        writeByte(TAG_END_ARRAY);
+        return this;
+    }
+
+    /**
+     * 新出现的属性名输出((长度 &lt;&lt; 1) + 1)和文本，已经出现过的属性名输出((序号 &lt;&lt; 1) | 1) + 1。
+     * 加1是为了避免与END_OBJECT冲突
+     */
+    @Override
+    public IJsonHandler key(String name) {
+        Integer index = keys.get(name);
+        if (index != null) {
+            writeVarInt(((index << 1) | 1) + 1);
+        } else {
+            keys.put(name, keys.size());
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarInt((bytes.length << 1) + 1);
+            writeBytes(bytes);
+        }
+        return this;
+    }
+
+    @Override
+    public IJsonHandler value(SourceLocation loc, Object value) {
+        if (value == null) {
+            writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeByte(TAG_INT);
+            writeVarInt(zigzag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            writeByte(TAG_LONG);
+            writeVarLong(zigzag((Long) value));
+        } else if (value instanceof Double || value instanceof Float) {
+            writeByte(TAG_DOUBLE);
+            writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof BigDecimal) {
+            writeByte(TAG_BIG_DECIMAL);
+            writeUtf8(value.toString());
+        } else if (value instanceof BigInteger) {
+            writeByte(TAG_BIG_INTEGER);
+            writeUtf8(value.toString());
+        } else {
+            writeString(StringHelper.toString(value, null));
+        }
+        return this;
+    }
+
+    private void writeString(String str) {
+        writeByte(TAG_STRING);
+        writeUtf8(str);
+    }
+
+    private void writeUtf8(String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    static int zigzag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    private void ensureCapacity(int n) {
+        if (count + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + n));
+        }
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buf[count++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buf[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[count++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[count++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        for (int i = 56; i >= 0; i -= 8) {
+            buf[count++] = (byte) (value >>> i);
+        }
+    }
+}
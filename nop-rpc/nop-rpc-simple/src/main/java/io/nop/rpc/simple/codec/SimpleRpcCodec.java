@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.rpc.simple.codec;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.json.JSON;
+import io.nop.core.lang.json.JsonTool;
+import io.nop.core.reflect.ReflectionManager;
+import io.nop.core.reflect.bean.BeanCopyOptions;
+import io.nop.core.reflect.bean.BeanTool;
+import io.nop.socket.AbstractSocketConfig;
+import io.nop.socket.BinaryCommand;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static io.nop.core.CoreConfigs.CFG_JSON_PARSE_IGNORE_UNKNOWN_PROP;
+import static io.nop.rpc.core.RpcErrors.ARG_LENGTH;
+import static io.nop.rpc.core.RpcErrors.ARG_MAX_LENGTH;
+import static io.nop.rpc.core.RpcErrors.ARG_POS;
+import static io.nop.rpc.core.RpcErrors.ERR_RPC_INVALID_BINARY_MESSAGE;
+import static io.nop.rpc.core.RpcErrors.ERR_RPC_MESSAGE_TOO_LARGE;
+
+/**
+ * ApiRequest/ApiResponse的编解码。BinaryCommand的flags标记了消息体的格式，flags为0时为Json文本，与旧版本兼容。
+ * 接收方总是根据flags解码，所以客户端和服务端可以独立选择发送格式，服务端按照请求的格式返回响应。
+ */
+public class SimpleRpcCodec {
+    /**
+     * 消息体为BinaryJsonOutput编码的二进制格式
+     */
+    public static final short FLAG_BINARY = 0x1;
+
+    /**
+     * 消息体经过deflate压缩，前4个字节为压缩前的长度
+     */
+    public static final short FLAG_DEFLATE = 0x2;
+
+    /**
+     * 与ServerConfig和ClientConfig中maxDataLen的缺省值一致
+     */
+    public static final int DEFAULT_MAX_DATA_LEN = 1024 * 1024;
+
+    public static final SimpleRpcCodec JSON_CODEC = new SimpleRpcCodec(false, 0);
+
+    private final boolean binary;
+    private final int compressThreshold;
+    private final int maxDataLen;
+
+    public SimpleRpcCodec(boolean binary, int compressThreshold) {
+        this(binary, compressThreshold, DEFAULT_MAX_DATA_LEN);
+    }
+
+    /**
+     * @param binary            是否使用二进制格式
+     * @param compressThreshold 二进制消息体超过此大小时压缩，小于等于0表示不压缩
+     * @param maxDataLen        解压后消息体的最大长度。压缩消息中记录的长度来自于网络，必须先检查再分配内存
+     */
+    public SimpleRpcCodec(boolean binary, int compressThreshold, int maxDataLen) {
+        this.binary = binary;
+        this.compressThreshold = compressThreshold;
+        this.maxDataLen = maxDataLen;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    public int getMaxDataLen() {
+        return maxDataLen;
+    }
+
+    public static boolean isBinary(BinaryCommand command) {
+        return (command.getFlags() & FLAG_BINARY) != 0;
+    }
+
+    public BinaryCommand encode(AbstractSocketConfig config, short cmd, Object message) {
+        if (!binary)
+            return BinaryCommand.newCommand(config, cmd, (short) 0, JSON.stringify(message));
+
+        BinaryJsonOutput out = new BinaryJsonOutput();
+        JsonTool.instance().serializeTo(message, out);
+        byte[] data = out.toByteArray();
+
+        short flags = FLAG_BINARY;
+        if (compressThreshold > 0 && data.length >= compressThreshold) {
+            data = deflate(data);
+            flags |= FLAG_DEFLATE;
+        }
+        return new BinaryCommand(config.getMasks(), config.getVersion(), cmd, flags, data);
+    }
+
+    /**
+     * @return 消息体为空时返回null
+     */
+    public <T> T decode(BinaryCommand command, Class<T> type) {
+        if (!isBinary(command)) {
+            String str = command.getDataAsString();
+            if (str.isEmpty())
+                return null;
+            return (T) JsonTool.parseBeanFromText(str, type);
+        }
+
+        byte[] data = command.getData();
+        if (data.length == 0)
+            return null;
+
+        if ((command.getFlags() & FLAG_DEFLATE) != 0)
+            data = inflate(data, maxDataLen);
+
+        Object json = BinaryJsonInput.parse(data);
+        BeanCopyOptions options = new BeanCopyOptions();
+        options.setIgnoreUnknownProp(CFG_JSON_PARSE_IGNORE_UNKNOWN_PROP.get());
+        return (T) BeanTool.instance().buildBean(json, ReflectionManager.instance().buildGenericType(type), options);
+    }
+
+    static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            out.write(data.length >>> 24);
+            out.write(data.length >>> 16);
+            out.write(data.length >>> 8);
+            out.write(data.length);
+
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] data, int maxDataLen) {
+        if (data.length < 4)
+            throw new NopException(ERR_RPC_INVALID_BINARY_MESSAGE).param(ARG_POS, 0);
+
+        int len = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+        if (len < 0)
+            throw new NopException(ERR_RPC_INVALID_BINARY_MESSAGE).param(ARG_POS, 0);
+
+        if (len > maxDataLen)
+            throw new NopException(ERR_RPC_MESSAGE_TOO_LARGE).param(ARG_LENGTH, len).param(ARG_MAX_LENGTH, maxDataLen);
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, 4, data.length - 4);
+            byte[] ret = new byte[len];
+            int count = 0;
+            while (count < len) {
+                int n = inflater.inflate(ret, count, len - count);
+                if (n == 0 && (inflater.finished() || inflater.needsInput()))
+                    break;
+                count += n;
+            }
+            if (count != len)
+                throw new NopException(ERR_RPC_INVALID_BINARY_MESSAGE).param(ARG_POS, count);
+
+            // 压缩流必须恰好在len处结束，且没有多余的输入
+            if (!inflater.finished()) {
+                byte[] probe = new byte[1];
+                if (inflater.inflate(probe) != 0 || !inflater.finished())
+                    throw new NopException(ERR_RPC_INVALID_BINARY_MESSAGE).param(ARG_POS, count);
+            }
+            if (inflater.getRemaining() != 0)
+                throw new NopException(ERR_RPC_INVALID_BINARY_MESSAGE).param(ARG_POS, data.length - inflater.getRemaining());
+            return ret;
+        } catch (DataFormatException e) {
+            throw new NopException(ERR_RPC_INVALID_BINARY_MESSAGE, e).param(ARG_POS, 0);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.rpc.simple;
+
+import io.nop.api.core.annotations.core.Name;
+import io.nop.api.core.beans.ApiRequest;
+import io.nop.api.core.exceptions.ErrorCode;
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.json.JSON;
+import io.nop.api.core.util.ApiHeaders;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.json.JsonTool;
+import io.nop.rpc.core.RpcConstants;
+import io.nop.rpc.core.RpcErrors;
+import io.nop.rpc.simple.codec.SimpleRpcCodec;
+import io.nop.socket.BinaryCommand;
+import io.nop.socket.ClientConfig;
+import io.nop.socket.ServerConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSimpleRpcBinaryProtocol {
+    static final int PORT = 12346;
+
+    public interface IEchoService {
+        Map<String, Object> echo(@Name("data") Map<String, Object> data);
+
+        String delayEcho(@Name("value") String value, @Name("delay") int delay);
+    }
+
+    public interface IEchoServiceAsync {
+        CompletionStage<Map<String, Object>> echoAsync(@Name("data") Map<String, Object> data);
+
+        CompletionStage<String> delayEchoAsync(@Name("value") String value, @Name("delay") int delay);
+    }
+
+    public static class EchoServiceImpl implements IEchoService {
+        @Override
+        public Map<String, Object> echo(Map<String, Object> data) {
+            return data;
+        }
+
+        @Override
+        public String delayEcho(String value, int delay) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        }
+    }
+
+    SimpleRpcServer server;
+    SimpleRpcClientFactory<IEchoServiceAsync> clientFactory;
+
+    @BeforeEach
+    public void setUp() {
+        JSON.registerProvider(JsonTool.instance());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (clientFactory != null)
+            clientFactory.destroy();
+        if (server != null)
+            server.stop();
+    }
+
+    @Test
+    public void testCodec() {
+        ApiRequest<Object> request = new ApiRequest<>();
+        ApiHeaders.setId(request, "123");
+        ApiHeaders.setSvcAction(request, "echo");
+        request.setData(buildData(10));
+
+        ClientConfig config = new ClientConfig();
+        SimpleRpcCodec codec = new SimpleRpcCodec(true, 0);
+        BinaryCommand cmd = codec.encode(config, RpcConstants.CMD_REQUEST, request);
+        assertEquals(SimpleRpcCodec.FLAG_BINARY, cmd.getFlags());
+
+        ApiRequest<?> decoded = codec.decode(cmd, ApiRequest.class);
+        assertEquals(JSON.stringify(request), JSON.stringify(decoded));
+
+        String json = JSON.stringify(request);
+        assertTrue(cmd.getData().length < json.getBytes(StringHelper.CHARSET_UTF8).length);
+
+        BinaryCommand textCmd = SimpleRpcCodec.JSON_CODEC.encode(config, RpcConstants.CMD_REQUEST, request);
+        assertEquals(0, textCmd.getFlags());
+        assertEquals(json, JSON.stringify(codec.decode(textCmd, ApiRequest.class)));
+    }
+
+    @Test
+    public void testCompress() {
+        ApiRequest<Object> request = new ApiRequest<>();
+        request.setData(buildData(2000));
+
+        ClientConfig config = new ClientConfig();
+        BinaryCommand plain = new SimpleRpcCodec(true, 0).encode(config, RpcConstants.CMD_REQUEST, request);
+        SimpleRpcCodec codec = new SimpleRpcCodec(true, 1024);
+        BinaryCommand compressed = codec.encode(config, RpcConstants.CMD_REQUEST, request);
+
+        assertEquals(SimpleRpcCodec.FLAG_BINARY | SimpleRpcCodec.FLAG_DEFLATE, compressed.getFlags());
+        assertTrue(compressed.getData().length < plain.getData().length / 2);
+        assertEquals(JSON.stringify(request),
+                JSON.stringify(codec.decode(compressed, ApiRequest.class)));
+    }
+
+    @Test
+    public void testInvalidCompressedLength() {
+        ApiRequest<Object> request = new ApiRequest<>();
+        request.setData(buildData(2000));
+
+        ClientConfig config = new ClientConfig();
+        SimpleRpcCodec codec = new SimpleRpcCodec(true, 1024);
+        byte[] data = codec.encode(config, RpcConstants.CMD_REQUEST, request).getData();
+        int len = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+
+        // 长度来自网络，超过限制时不能分配内存
+        assertDecodeFail(codec, withLength(data, Integer.MAX_VALUE), RpcErrors.ERR_RPC_MESSAGE_TOO_LARGE);
+        assertDecodeFail(new SimpleRpcCodec(true, 1024, len - 1), data, RpcErrors.ERR_RPC_MESSAGE_TOO_LARGE);
+        assertDecodeFail(codec, withLength(data, -1), RpcErrors.ERR_RPC_INVALID_BINARY_MESSAGE);
+
+        // 压缩流提前结束
+        assertDecodeFail(codec, withLength(data, len + 1), RpcErrors.ERR_RPC_INVALID_BINARY_MESSAGE);
+        // 压缩流在len处没有结束
+        assertDecodeFail(codec, withLength(data, len - 1), RpcErrors.ERR_RPC_INVALID_BINARY_MESSAGE);
+        // 压缩流之后还有多余的数据
+        byte[] trailing = Arrays.copyOf(data, data.length + 1);
+        assertDecodeFail(codec, trailing, RpcErrors.ERR_RPC_INVALID_BINARY_MESSAGE);
+    }
+
+    @Test
+    public void testDeeplyNestedMessage() {
+        ClientConfig config = new ClientConfig();
+        SimpleRpcCodec codec = new SimpleRpcCodec(true, 0);
+
+        Object value = "a";
+        for (int i = 0; i < 20; i++) {
+            value = List.of(value);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("nested", value);
+        ApiRequest<Object> request = new ApiRequest<>();
+        request.setData(data);
+        BinaryCommand cmd = codec.encode(config, RpcConstants.CMD_REQUEST, request);
+        assertEquals(JSON.stringify(request), JSON.stringify(codec.decode(cmd, ApiRequest.class)));
+
+        // 整个消息都是数组开始标记(TAG_BEGIN_ARRAY)，没有深度限制时递归解析会导致StackOverflowError
+        byte[] nested = new byte[1024 * 1024];
+        Arrays.fill(nested, (byte) 8);
+        BinaryCommand bad = new BinaryCommand(config.getMasks(), config.getVersion(), RpcConstants.CMD_REQUEST,
+                SimpleRpcCodec.FLAG_BINARY, nested);
+        NopException e = assertThrows(NopException.class, () -> codec.decode(bad, ApiRequest.class));
+        assertEquals(RpcErrors.ERR_RPC_MESSAGE_EXCEED_MAX_NESTED_LEVEL.getErrorCode(), e.getErrorCode());
+    }
+
+    private byte[] withLength(byte[] data, int len) {
+        byte[] ret = data.clone();
+        ret[0] = (byte) (len >>> 24);
+        ret[1] = (byte) (len >>> 16);
+        ret[2] = (byte) (len >>> 8);
+        ret[3] = (byte) len;
+        return ret;
+    }
+
+    private void assertDecodeFail(SimpleRpcCodec codec, byte[] data, ErrorCode errorCode) {
+        ClientConfig config = new ClientConfig();
+        BinaryCommand cmd = new BinaryCommand(config.getMasks(), config.getVersion(), RpcConstants.CMD_REQUEST,
+                (short) (SimpleRpcCodec.FLAG_BINARY | SimpleRpcCodec.FLAG_DEFLATE), data);
+        NopException e = assertThrows(NopException.class, () -> codec.decode(cmd, ApiRequest.class));
+        assertEquals(errorCode.getErrorCode(), e.getErrorCode());
+    }
+
+    @Test
+    public void testMultiplex() throws Exception {
+        startServer();
+        IEchoServiceAsync client = newClient(true);
+
+        Map<String, Object> data = buildData(1000);
+        assertEquals(JSON.stringify(data), JSON.stringify(client.echoAsync(data).toCompletableFuture()
+                .get(10, TimeUnit.SECONDS)));
+
+        // 同一个连接上的慢请求不会阻塞后续请求，响应按照完成的顺序返回
+        CompletableFuture<String> slow = client.delayEchoAsync("slow", 1000).toCompletableFuture();
+        CompletableFuture<String> fast = client.delayEchoAsync("fast", 0).toCompletableFuture();
+        assertEquals("fast", fast.get(10, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+        assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(client.delayEchoAsync("v" + i, 0).toCompletableFuture());
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v" + i, futures.get(i).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testJsonCompatible() throws Exception {
+        startServer();
+        IEchoServiceAsync client = newClient(false);
+
+        Map<String, Object> data = buildData(10);
+        assertEquals(JSON.stringify(data), JSON.stringify(client.echoAsync(data).toCompletableFuture()
+                .get(10, TimeUnit.SECONDS)));
+        assertEquals("a", client.delayEchoAsync("a", 0).toCompletableFuture().get(10, TimeUnit.SECONDS));
+    }
+
+    private void startServer() {
+        server = new SimpleRpcServer();
+        server.setServerConfig(new ServerConfig());
+        server.getServerConfig().setPort(PORT);
+        server.getServerConfig().setIdleTimeout(0);
+        server.setCompressThreshold(1024);
+        server.addServiceImpl(IEchoService.class, new EchoServiceImpl());
+        server.start();
+    }
+
+    private IEchoServiceAsync newClient(boolean binary) {
+        clientFactory = new SimpleRpcClientFactory<>();
+        clientFactory.setClientConfig(new ClientConfig());
+        clientFactory.getClientConfig().setPort(PORT);
+        clientFactory.getClientConfig().setReadTimeout(0);
+        clientFactory.getClientConfig().setResponseTimeout(10000);
+        clientFactory.setRpcInterface(IEchoServiceAsync.class);
+        clientFactory.setServiceName(IEchoService.class.getName());
+        clientFactory.setBinaryProtocol(binary);
+        clientFactory.setCompressThreshold(1024);
+        return clientFactory.newInstance();
+    }
+
+    private Map<String, Object> buildData(int count) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", "测试数据");
+        data.put("amount", new BigDecimal("12345.6789"));
+        data.put("big", Long.MAX_VALUE);
+        data.put("neg", -3);
+        data.put("ratio", 0.25);
+        data.put("flag", true);
+        data.put("empty", null);
+
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", i);
+            item.put("code", "item-" + i);
+            item.put("tags", List.of("a", "b"));
+            items.add(item);
+        }
+        data.put("items", items);
+        return data;
+    }
+}
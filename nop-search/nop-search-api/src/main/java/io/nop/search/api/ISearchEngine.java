@@ -27,6 +27,17 @@ public interface ISearchEngine {
 
     void removeDocs(@Name("topic") String topic, @Name("names") List<String> names);
 
+    /**
+     * 批量更新索引：先删除removedNames对应的文档，再新增或者更新docs。同一批次的修改在一次写入中完成
+     */
+    default void bulkIndex(@Name("topic") String topic, @Name("docs") List<SearchableDoc> docs,
+                           @Name("removedNames") List<String> removedNames) {
+        if (removedNames != null && !removedNames.isEmpty())
+            removeDocs(topic, removedNames);
+        if (docs != null && !docs.isEmpty())
+            addDocs(topic, docs);
+    }
+
     void removeTopic(@Name("topic") String topic);
 
     default CompletionStage<SearchResponse> searchAsync(@Name("request") SearchRequest request) {
@@ -40,4 +51,9 @@ public interface ISearchEngine {
     default CompletionStage<Void> addDocsAsync(@Name("topic") String topic, @Name("docs") List<SearchableDoc> docs) {
         return FutureHelper.futureRun(() -> addDocs(topic, docs));
     }
+
+    default CompletionStage<Void> bulkIndexAsync(@Name("topic") String topic, @Name("docs") List<SearchableDoc> docs,
+                                                 @Name("removedNames") List<String> removedNames) {
+        return FutureHelper.futureRun(() -> bulkIndex(topic, docs, removedNames));
+    }
 }
\ No newline at end of file
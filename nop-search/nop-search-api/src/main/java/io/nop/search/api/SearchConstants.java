@@ -21,4 +21,12 @@ public interface SearchConstants {
     String FIELD_MODIFY_TIME = "modifyTime";
 
     String FIELD_LINK = "link";
+
+    String METER_INDEX = "search.index";
+
+    String METER_SEARCH = "search.query";
+
+    String METER_COMMIT = "search.commit";
+
+    String DEFAULT_METER_PREFIX = "nop.";
 }
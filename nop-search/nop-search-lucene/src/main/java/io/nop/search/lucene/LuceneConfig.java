@@ -15,6 +15,28 @@ public class LuceneConfig {
     private String highlightPreTag = "<B>";
     private String highlightPostTag = "</B>";
 
+    /**
+     * 后台定时提交索引的时间间隔(毫秒)。两次提交之间的所有修改合并为一次commit
+     */
+    private long commitInterval = 1000;
+
+    /**
+     * 后台定时刷新近实时搜索器的时间间隔(毫秒)
+     */
+    private long refreshInterval = 100;
+
+    /**
+     * 未提交的修改数超过此值时，在写入线程中立即提交
+     */
+    private int maxUncommittedDocs = 10000;
+
+    private double ramBufferSizeMB = 64;
+
+    /**
+     * 搜索时如果存在尚未刷新的修改，则先阻塞刷新搜索器，保证能够读取到之前写入的文档
+     */
+    private boolean refreshOnSearch = true;
+
     public String getIndexDir() {
         return indexDir;
     }
@@ -38,4 +60,44 @@ public class LuceneConfig {
     public void setHighlightPostTag(String highlightPostTag) {
         this.highlightPostTag = highlightPostTag;
     }
+
+    public long getCommitInterval() {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(long commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    public long getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(long refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public int getMaxUncommittedDocs() {
+        return maxUncommittedDocs;
+    }
+
+    public void setMaxUncommittedDocs(int maxUncommittedDocs) {
+        this.maxUncommittedDocs = maxUncommittedDocs;
+    }
+
+    public double getRamBufferSizeMB() {
+        return ramBufferSizeMB;
+    }
+
+    public void setRamBufferSizeMB(double ramBufferSizeMB) {
+        this.ramBufferSizeMB = ramBufferSizeMB;
+    }
+
+    public boolean isRefreshOnSearch() {
+        return refreshOnSearch;
+    }
+
+    public void setRefreshOnSearch(boolean refreshOnSearch) {
+        this.refreshOnSearch = refreshOnSearch;
+    }
 }
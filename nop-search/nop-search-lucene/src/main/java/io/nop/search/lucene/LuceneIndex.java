@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.search.lucene;
+
+import io.nop.commons.util.IoHelper;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 每个topic对应一个长期存活的IndexWriter，写入操作只修改内存中的索引，由后台定时任务合并提交(group commit)。
+ * 搜索使用基于IndexWriter的SearcherManager，可以看到尚未提交的修改(近实时搜索)。
+ */
+public class LuceneIndex implements AutoCloseable {
+    private final String topic;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    private final AtomicLong uncommittedCount = new AtomicLong();
+
+    /**
+     * 每次修改都增加changeGen。刷新开始前记录changeGen，刷新完成后才更新refreshedGen，
+     * 因此refreshedGen < changeGen时当前的searcher可能还看不到最新的修改
+     */
+    private final AtomicLong changeGen = new AtomicLong();
+    private final AtomicLong refreshedGen = new AtomicLong();
+
+    public LuceneIndex(String topic, Directory directory, IndexWriterConfig config) throws IOException {
+        this.topic = topic;
+        this.directory = directory;
+        this.writer = new IndexWriter(directory, config);
+        try {
+            this.searcherManager = new SearcherManager(writer, true, true, null);
+        } catch (IOException e) {
+            IoHelper.safeCloseObject(writer);
+            throw e;
+        }
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public IndexWriter getWriter() {
+        return writer;
+    }
+
+    public SearcherManager getSearcherManager() {
+        return searcherManager;
+    }
+
+    public long getUncommittedCount() {
+        return uncommittedCount.get();
+    }
+
+    public boolean isNeedRefresh() {
+        return refreshedGen.get() < changeGen.get();
+    }
+
+    /**
+     * 记录写入的修改数，返回累计的未提交修改数
+     */
+    public long markChanged(int count) {
+        changeGen.incrementAndGet();
+        return uncommittedCount.addAndGet(Math.max(count, 1));
+    }
+
+    public boolean commitIfChanged() throws IOException {
+        long count = uncommittedCount.get();
+        if (count <= 0)
+            return false;
+
+        writer.commit();
+        // commit期间新增的修改可能已经被提交，多提交一次不影响正确性
+        uncommittedCount.addAndGet(-count);
+        return true;
+    }
+
+    /**
+     * @param blocking 为true时如果其他线程正在刷新，则等待其完成后再刷新一次，保证返回后可以看到调用前的所有修改
+     */
+    public void refresh(boolean blocking) throws IOException {
+        long gen = changeGen.get();
+        if (refreshedGen.get() >= gen)
+            return;
+
+        if (blocking) {
+            searcherManager.maybeRefreshBlocking();
+        } else if (!searcherManager.maybeRefresh()) {
+            // 其他线程正在刷新，下一次继续
+            return;
+        }
+        markRefreshed(gen);
+    }
+
+    private void markRefreshed(long gen) {
+        long current;
+        do {
+            current = refreshedGen.get();
+            if (current >= gen)
+                return;
+        } while (!refreshedGen.compareAndSet(current, gen));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            searcherManager.close();
+            if (writer.isOpen()) {
+                writer.commit();
+            }
+        } finally {
+            IoHelper.safeCloseObject(writer);
+            IoHelper.safeCloseObject(directory);
+        }
+    }
+}
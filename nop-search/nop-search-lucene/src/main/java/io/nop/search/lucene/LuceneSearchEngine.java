@@ -10,6 +10,9 @@ package io.nop.search.lucene;
 import io.nop.api.core.exceptions.NopException;
 import io.nop.api.core.time.CoreMetrics;
 import io.nop.api.core.util.Guard;
+import io.nop.commons.concurrent.executor.GlobalExecutors;
+import io.nop.commons.concurrent.executor.IScheduledExecutor;
+import io.nop.commons.metrics.GlobalMeterRegistry;
 import io.nop.commons.util.IoHelper;
 import io.nop.commons.util.StringHelper;
 import io.nop.search.api.ISearchEngine;
@@ -18,6 +21,8 @@ import io.nop.search.api.SearchHit;
 import io.nop.search.api.SearchRequest;
 import io.nop.search.api.SearchResponse;
 import io.nop.search.api.SearchableDoc;
+import io.nop.search.lucene.metrics.ILuceneSearchMetrics;
+import io.nop.search.lucene.metrics.LuceneSearchMetricsImpl;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
@@ -31,7 +36,6 @@ import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
@@ -42,6 +46,7 @@ import org.apache.lucene.queryparser.flexible.standard.config.PointsConfig;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.highlight.DefaultEncoder;
@@ -50,6 +55,7 @@ import org.apache.lucene.search.highlight.Highlighter;
 import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
 import org.apache.lucene.search.highlight.QueryScorer;
 import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.slf4j.Logger;
@@ -62,6 +68,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static io.nop.search.api.SearchConstants.FIELD_CONTENT;
@@ -81,12 +89,20 @@ public class LuceneSearchEngine implements ISearchEngine {
 
     private Analyzer analyzer;
 
-    private final Map<String, Directory> indexDirs = new ConcurrentHashMap<>();
+    private final Map<String, LuceneIndex> indexes = new ConcurrentHashMap<>();
 
     private LuceneConfig config;
 
     private File rootFile;
 
+    private IScheduledExecutor timer;
+
+    private Future<?> schedulePromise;
+
+    private ILuceneSearchMetrics metrics;
+
+    private long lastCommitTime;
+
     public LuceneConfig getConfig() {
         return config;
     }
@@ -96,6 +112,14 @@ public class LuceneSearchEngine implements ISearchEngine {
         this.config = config;
     }
 
+    public void setTimer(IScheduledExecutor timer) {
+        this.timer = timer;
+    }
+
+    public void setMetrics(ILuceneSearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @PostConstruct
     public void init() {
         if (config == null)
@@ -108,19 +132,86 @@ public class LuceneSearchEngine implements ISearchEngine {
         } catch (Exception e) {
             throw NopException.adapt(e);
         }
+
+        if (metrics == null)
+            metrics = new LuceneSearchMetricsImpl(GlobalMeterRegistry.instance(), null);
+
+        if (timer == null)
+            timer = GlobalExecutors.globalTimer();
+
+        lastCommitTime = CoreMetrics.currentTimeMillis();
+        long refreshInterval = Math.max(config.getRefreshInterval(), 10);
+        schedulePromise = timer.scheduleWithFixedDelay(this::refreshAndCommit, refreshInterval, refreshInterval,
+                TimeUnit.MILLISECONDS);
     }
 
     @PreDestroy
     public void destroy() {
+        if (schedulePromise != null) {
+            schedulePromise.cancel(false);
+            schedulePromise = null;
+        }
+
+        for (LuceneIndex index : indexes.values()) {
+            try {
+                index.close();
+            } catch (Exception e) {
+                LOG.error("nop.search.close-index-fail:topic={}", index.getTopic(), e);
+            }
+        }
+        indexes.clear();
+
         if (this.analyzer != null) {
             this.analyzer.close();
             this.analyzer = null;
         }
+    }
 
-        for (Directory directory : indexDirs.values()) {
-            IoHelper.safeClose(directory);
+    /**
+     * 后台定时任务：刷新近实时搜索器，并按照commitInterval合并提交所有topic的修改
+     */
+    protected void refreshAndCommit() {
+        long now = CoreMetrics.currentTimeMillis();
+        boolean commit = now - lastCommitTime >= config.getCommitInterval();
+        if (commit)
+            lastCommitTime = now;
+
+        for (LuceneIndex index : indexes.values()) {
+            try {
+                index.refresh(false);
+                if (commit)
+                    commitIndex(index);
+            } catch (AlreadyClosedException e) {
+                LOG.debug("nop.search.index-already-closed:topic={}", index.getTopic());
+            } catch (Exception e) {
+                LOG.error("nop.search.refresh-and-commit-fail:topic={}", index.getTopic(), e);
+            }
+        }
+    }
+
+    protected void commitIndex(LuceneIndex index) throws IOException {
+        if (index.getUncommittedCount() <= 0)
+            return;
+
+        Object meter = metrics.beginCommit();
+        boolean success = false;
+        try {
+            index.commitIfChanged();
+            success = true;
+        } finally {
+            metrics.endCommit(meter, index.getTopic(), success);
+        }
+    }
+
+    /**
+     * 立即提交指定topic上所有尚未提交的修改
+     */
+    public void commit(String topic) {
+        try {
+            commitIndex(getIndex(topic));
+        } catch (IOException e) {
+            throw NopException.adapt(e);
         }
-        indexDirs.clear();
     }
 
     protected Analyzer buildAnalyzer() throws IOException {
@@ -131,30 +222,48 @@ public class LuceneSearchEngine implements ISearchEngine {
         return builder.build();
     }
 
-    protected Directory getDirectory(String topic) {
+    protected String normalizeTopic(String topic) {
         if (StringHelper.isEmpty(topic))
             topic = DEFAULT_TOPIC;
 
         Guard.checkArgument(StringHelper.isValidSimpleVarName(topic), "invalid topic");
+        return topic;
+    }
 
-        return indexDirs.computeIfAbsent(topic, key -> {
+    protected LuceneIndex getIndex(String topic) {
+        return indexes.computeIfAbsent(normalizeTopic(topic), key -> {
+            Directory dir = null;
             try {
-                return FSDirectory.open(new File(rootFile, key).toPath());
+                dir = FSDirectory.open(new File(rootFile, key).toPath());
+                return new LuceneIndex(key, dir, buildWriterConfig());
             } catch (IOException e) {
+                IoHelper.safeCloseObject(dir);
                 throw NopException.adapt(e);
             }
         });
     }
 
+    protected IndexWriterConfig buildWriterConfig() {
+        IndexWriterConfig writeConfig = new IndexWriterConfig(analyzer);
+        writeConfig.setOpenMode(CREATE_OR_APPEND);
+        writeConfig.setRAMBufferSizeMB(config.getRamBufferSizeMB());
+        return writeConfig;
+    }
+
     @Override
     public SearchResponse search(SearchRequest request) {
-        Directory dir = getDirectory(request.getTopic());
+        LuceneIndex index = getIndex(request.getTopic());
+        SearcherManager searcherManager = index.getSearcherManager();
 
-        DirectoryReader dirReader = null;
+        Object meter = metrics.beginSearch();
+        boolean success = false;
+        IndexSearcher searcher = null;
         try {
-            dirReader = DirectoryReader.open(dir);
+            if (config.isRefreshOnSearch())
+                index.refresh(true);
+
+            searcher = searcherManager.acquire();
             long beginTime = CoreMetrics.currentTimeMillis();
-            IndexSearcher searcher = new IndexSearcher(dirReader);
             Query query = parseQuery(request.getQuery());
 
             TopFieldDocs topDocs = searcher.search(query, request.getLimit(), Sort.RELEVANCE);
@@ -168,17 +277,8 @@ public class LuceneSearchEngine implements ISearchEngine {
             for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
                 Document doc = searcher.storedFields().document(scoreDoc.doc);
 
-                String title = doc.get(FIELD_TITLE);
-                String titleFragment = highlighter.getBestFragment(analyzer, FIELD_TITLE, title);
-                if (titleFragment != null) {
-                    title = titleFragment;
-                }
-
-                String content = doc.get(FIELD_CONTENT);
-                String contentFragment = highlighter.getBestFragment(analyzer, FIELD_CONTENT, content);
-                if (contentFragment != null) {
-                    content = contentFragment;
-                }
+                String title = highlight(highlighter, FIELD_TITLE, doc.get(FIELD_TITLE));
+                String content = highlight(highlighter, FIELD_CONTENT, doc.get(FIELD_CONTENT));
 
                 SearchHit hit = new SearchHit();
                 hit.setScore(scoreDoc.score);
@@ -209,14 +309,32 @@ public class LuceneSearchEngine implements ISearchEngine {
             response.setQuery(request.getQuery());
             response.setLimit(request.getLimit());
             response.setProcessTime(CoreMetrics.currentTimeMillis() - beginTime);
+            success = true;
             return response;
         } catch (IOException | InvalidTokenOffsetsException | QueryNodeException e) {
             throw NopException.adapt(e);
         } finally {
-            IoHelper.safeCloseObject(dirReader);
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    LOG.error("nop.search.release-searcher-fail", e);
+                }
+            }
+            metrics.endSearch(meter, index.getTopic(), success);
         }
     }
 
+    protected String highlight(Highlighter highlighter, String fieldName, String text)
+            throws IOException, InvalidTokenOffsetsException {
+        // 未存储的字段读取到的值为null
+        if (text == null)
+            return null;
+
+        String fragment = highlighter.getBestFragment(analyzer, fieldName, text);
+        return fragment != null ? fragment : text;
+    }
+
     protected Query parseQuery(String query) throws QueryNodeException {
         StandardQueryParser parser = new StandardQueryParser(analyzer);
         parser.setPointsConfigMap(Map.of(
@@ -227,19 +345,51 @@ public class LuceneSearchEngine implements ISearchEngine {
 
     @Override
     public void addDocs(String topic, List<SearchableDoc> docs) {
-        runWithWriter(topic, writer -> {
+        runWithWriter(topic, docs.size(), writer -> {
             try {
-                for (SearchableDoc doc : docs) {
-                    Document docValue = buildDocument(doc);
-                    long seqNum = writer.updateDocument(new Term(FIELD_NAME, doc.getName()), docValue);
-                    LOG.info("nop.search.update-doc:name={},seqNum={}", doc.getName(), seqNum);
-                }
+                updateDocs(writer, docs);
+            } catch (Exception e) {
+                throw NopException.adapt(e);
+            }
+        });
+    }
+
+    @Override
+    public void bulkIndex(String topic, List<SearchableDoc> docs, List<String> removedNames) {
+        int count = (docs == null ? 0 : docs.size()) + (removedNames == null ? 0 : removedNames.size());
+        if (count == 0)
+            return;
+
+        runWithWriter(topic, count, writer -> {
+            try {
+                if (removedNames != null && !removedNames.isEmpty())
+                    deleteDocs(writer, removedNames);
+                if (docs != null && !docs.isEmpty())
+                    updateDocs(writer, docs);
             } catch (Exception e) {
                 throw NopException.adapt(e);
             }
         });
     }
 
+    protected void updateDocs(IndexWriter writer, List<SearchableDoc> docs) throws IOException {
+        long seqNum = 0;
+        for (SearchableDoc doc : docs) {
+            Document docValue = buildDocument(doc);
+            seqNum = writer.updateDocument(new Term(FIELD_NAME, doc.getName()), docValue);
+            LOG.debug("nop.search.update-doc:name={},seqNum={}", doc.getName(), seqNum);
+        }
+        LOG.info("nop.search.update-docs:count={},seqNum={}", docs.size(), seqNum);
+    }
+
+    protected void deleteDocs(IndexWriter writer, List<String> names) throws IOException {
+        Term[] terms = names.stream()
+                .map(postName -> new Term(FIELD_NAME, postName))
+                .toArray(Term[]::new);
+        long seqNum = writer.deleteDocuments(terms);
+        LOG.info("nop.search.remove-doc:count={}, seqNum={}", names.size(), seqNum);
+    }
+
     protected Document buildDocument(SearchableDoc doc) {
         Document ret = new Document();
         ret.add(new StringField(FIELD_NAME, doc.getName(), YES));
@@ -274,13 +424,9 @@ public class LuceneSearchEngine implements ISearchEngine {
 
     @Override
     public void removeDocs(String topic, List<String> names) {
-        runWithWriter(topic, writer -> {
+        runWithWriter(topic, names.size(), writer -> {
             try {
-                Term[] terms = names.stream()
-                        .map(postName -> new Term(FIELD_NAME, postName))
-                        .toArray(Term[]::new);
-                long seqNum = writer.deleteDocuments(terms);
-                LOG.info("nop.search.remove-doc:count={}, seqNum={}", names.size(), seqNum);
+                deleteDocs(writer, names);
             } catch (Exception e) {
                 throw NopException.adapt(e);
             }
@@ -289,28 +435,36 @@ public class LuceneSearchEngine implements ISearchEngine {
 
     @Override
     public void removeTopic(String topic) {
-        runWithWriter(topic, writer -> {
-            try {
-                writer.deleteAll();
-            } catch (IOException e) {
-                throw NopException.adapt(e);
-            }
-        });
+        LuceneIndex index = getIndex(topic);
+        try {
+            index.getWriter().deleteAll();
+            index.markChanged(1);
+            commitIndex(index);
+            index.refresh(true);
+        } catch (IOException e) {
+            throw NopException.adapt(e);
+        }
     }
 
-    protected void runWithWriter(String topic, Consumer<IndexWriter> fn) {
-        IndexWriterConfig writeConfig = new IndexWriterConfig(analyzer);
-        writeConfig.setOpenMode(CREATE_OR_APPEND);
-        Directory dir = getDirectory(topic);
+    /**
+     * 使用topic对应的共享IndexWriter执行写入。修改不会立即提交，而是由后台定时任务合并提交，
+     * 或者在未提交的修改数超过maxUncommittedDocs时立即提交。
+     */
+    protected void runWithWriter(String topic, int count, Consumer<IndexWriter> fn) {
+        LuceneIndex index = getIndex(topic);
 
-        IndexWriter writer = null;
+        Object meter = metrics.beginIndex();
+        boolean success = false;
         try {
-            writer = new IndexWriter(dir, writeConfig);
-            fn.accept(writer);
+            fn.accept(index.getWriter());
+            long uncommitted = index.markChanged(count);
+            if (uncommitted >= config.getMaxUncommittedDocs())
+                commitIndex(index);
+            success = true;
         } catch (Exception e) {
             throw NopException.adapt(e);
         } finally {
-            IoHelper.safeCloseObject(writer);
+            metrics.endIndex(meter, index.getTopic(), count, success);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.search.lucene.metrics;
+
+public interface ILuceneSearchMetrics {
+    Object beginIndex();
+
+    void endIndex(Object meter, String topic, int count, boolean success);
+
+    Object beginSearch();
+
+    void endSearch(Object meter, String topic, boolean success);
+
+    Object beginCommit();
+
+    void endCommit(Object meter, String topic, boolean success);
+}
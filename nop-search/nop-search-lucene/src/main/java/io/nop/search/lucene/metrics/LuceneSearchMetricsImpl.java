@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.search.lucene.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.nop.api.core.util.Guard;
+import io.nop.search.api.SearchConstants;
+
+import java.util.Arrays;
+
+public class LuceneSearchMetricsImpl implements ILuceneSearchMetrics {
+    private static final Tag STATUS_SUCCESS_TAG = Tag.of("status", "success");
+    private static final Tag STATUS_FAILURE_TAG = Tag.of("status", "failure");
+
+    private final MeterRegistry registry;
+    private final String prefix;
+
+    public LuceneSearchMetricsImpl(MeterRegistry registry, String prefix) {
+        this.registry = Guard.notNull(registry, "registry");
+        this.prefix = prefix;
+    }
+
+    Timer getTimer(String name, String topic, boolean success) {
+        return registry.timer(meterName(name), Arrays.asList(Tag.of("topic", topic),
+                success ? STATUS_SUCCESS_TAG : STATUS_FAILURE_TAG));
+    }
+
+    String meterName(String name) {
+        if (prefix == null)
+            return SearchConstants.DEFAULT_METER_PREFIX + name;
+        return prefix + name;
+    }
+
+    @Override
+    public Object beginIndex() {
+        return Timer.start(registry);
+    }
+
+    @Override
+    public void endIndex(Object meter, String topic, int count, boolean success) {
+        ((Timer.Sample) meter).stop(getTimer(SearchConstants.METER_INDEX, topic, success));
+        registry.counter(meterName(SearchConstants.METER_INDEX + ".docs"), "topic", topic).increment(count);
+    }
+
+    @Override
+    public Object beginSearch() {
+        return Timer.start(registry);
+    }
+
+    @Override
+    public void endSearch(Object meter, String topic, boolean success) {
+        ((Timer.Sample) meter).stop(getTimer(SearchConstants.METER_SEARCH, topic, success));
+    }
+
+    @Override
+    public Object beginCommit() {
+        return Timer.start(registry);
+    }
+
+    @Override
+    public void endCommit(Object meter, String topic, boolean success) {
+        ((Timer.Sample) meter).stop(getTimer(SearchConstants.METER_COMMIT, topic, success));
+    }
+}
@@ -16,6 +16,13 @@ import io.nop.search.api.SearchableDoc;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @NopTestProperty(name="nop.search.index-dir",value="./target")
@@ -45,4 +52,67 @@ public class TestLuceneSearchEngine extends JunitBaseTestCase {
         assertEquals("<B>测</B><B>试</B>标题", ret.getItems().get(0).getTitle());
         searchEngine.removeTopic("test");
     }
+
+    @Test
+    public void testBulkIndex() {
+        searchEngine.removeTopic("bulk");
+
+        List<SearchableDoc> docs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            SearchableDoc doc = new SearchableDoc();
+            doc.setName("doc" + i);
+            doc.setTitle("title" + i);
+            doc.setContent("bulk content " + i);
+            docs.add(doc);
+        }
+        searchEngine.bulkIndex("bulk", docs, null);
+
+        SearchRequest request = new SearchRequest();
+        request.setTopic("bulk");
+        request.setQuery("bulk");
+        request.setLimit(10);
+        assertEquals(100, searchEngine.search(request).getTotal());
+
+        searchEngine.bulkIndex("bulk", docs.subList(0, 10), Arrays.asList("doc50", "doc51"));
+        assertEquals(98, searchEngine.search(request).getTotal());
+
+        searchEngine.removeTopic("bulk");
+        assertEquals(0, searchEngine.search(request).getTotal());
+    }
+
+    @Test
+    public void testConcurrentReadYourWrites() throws Exception {
+        searchEngine.removeTopic("concurrent");
+
+        // 每个线程写入后立刻搜索，即使其他线程正在刷新，也必须能看到自己刚写入的文档
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        String word = "w" + thread + "x" + i;
+                        SearchableDoc doc = new SearchableDoc();
+                        doc.setName(word);
+                        doc.setTitle(word);
+                        doc.setContent(word);
+                        searchEngine.addDoc("concurrent", doc);
+
+                        SearchRequest request = new SearchRequest();
+                        request.setTopic("concurrent");
+                        request.setQuery(word);
+                        request.setLimit(10);
+                        assertEquals(1, searchEngine.search(request).getTotal(), word);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            searchEngine.removeTopic("concurrent");
+        }
+    }
 }
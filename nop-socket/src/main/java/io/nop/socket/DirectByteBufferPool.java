@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.socket;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定大小的直接内存缓冲区池。直接内存的分配和回收代价较高，所以由连接在读写时临时借用，空闲时归还，
+ * 这样大量空闲连接不会占用缓冲区。
+ */
+public class DirectByteBufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final AtomicInteger allocatedCount = new AtomicInteger();
+
+    public DirectByteBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getPooledCount() {
+        return pooledCount.get();
+    }
+
+    /**
+     * 累计新分配的缓冲区个数，用于观察池的命中情况
+     */
+    public int getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buf = buffers.poll();
+        if (buf != null) {
+            pooledCount.decrementAndGet();
+            return buf;
+        }
+        allocatedCount.incrementAndGet();
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public void release(ByteBuffer buf) {
+        if (buf == null || !buf.isDirect() || buf.capacity() != bufferSize)
+            return;
+
+        if (pooledCount.incrementAndGet() > maxPooled) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        buf.clear();
+        buffers.offer(buf);
+    }
+}
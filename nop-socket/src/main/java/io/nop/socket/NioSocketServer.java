@@ -0,0 +1,752 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.socket;
+
+import io.nop.api.core.time.CoreMetrics;
+import io.nop.commons.concurrent.executor.GlobalExecutors;
+import io.nop.commons.concurrent.thread.ThreadHelper;
+import io.nop.commons.service.LifeCycleSupport;
+import io.nop.commons.util.IoHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 基于Selector的SocketServer实现，与SocketServer使用相同的BinaryCommand数据包格式。
+ * <p>
+ * 所有连接的读写都在单个selector线程上执行，只有正在处理的请求才会占用executor中的线程，所以大量空闲连接不会消耗线程。
+ * <ul>
+ *     <li>读写缓冲区从DirectByteBufferPool中借用，连接空闲时归还</li>
+ *     <li>多个待发送的响应合并到同一个缓冲区中一次写出</li>
+ *     <li>单个连接待发送的数据或者待处理的请求过多时暂停读取该连接，实现背压</li>
+ * </ul>
+ * 同一个连接上的请求按照接收顺序串行处理，与SocketServer的行为保持一致。
+ */
+public class NioSocketServer extends LifeCycleSupport implements ICommandServer {
+    static final Logger LOG = LoggerFactory.getLogger(NioSocketServer.class);
+
+    static final int PACKET_HEADER_SIZE = 8;
+    static final long IDLE_CHECK_INTERVAL = 1000;
+
+    private ICommandHandler handler;
+    private Executor executor;
+    private volatile boolean stopped;
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread selectorThread;
+    private DirectByteBufferPool bufferPool;
+
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final LongAdder recvCmdCount = new LongAdder();
+    private final LongAdder recvHeartbeatCount = new LongAdder();
+    private final LongAdder sendCmdCount = new LongAdder();
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder readSuspendCount = new LongAdder();
+    private final LongAdder readResumeCount = new LongAdder();
+
+    private final ConcurrentMap<String, Connection> connections = new ConcurrentHashMap<>();
+    private Consumer<String> onChannelOpen;
+    private Consumer<String> onChannelClose;
+
+    private ServerConfig config = new ServerConfig();
+
+    public ServerConfig getServerConfig() {
+        return config;
+    }
+
+    public void setServerConfig(ServerConfig config) {
+        this.config = config;
+    }
+
+    public String getHost() {
+        return config.getHost();
+    }
+
+    public int getPort() {
+        return config.getPort();
+    }
+
+    public long getRecvCmdCount() {
+        return recvCmdCount.longValue();
+    }
+
+    public long getRevHeartbeatCount() {
+        return recvHeartbeatCount.longValue();
+    }
+
+    public long getSendCmdCount() {
+        return sendCmdCount.longValue();
+    }
+
+    /**
+     * 实际执行的channel.write次数。与getSendCmdCount()比较可以看出写合并的效果
+     */
+    public long getWriteCount() {
+        return writeCount.longValue();
+    }
+
+    /**
+     * 因为待发送数据或待处理请求过多而暂停读取的次数
+     */
+    public long getReadSuspendCount() {
+        return readSuspendCount.longValue();
+    }
+
+    public long getReadResumeCount() {
+        return readResumeCount.longValue();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public DirectByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public ICommandHandler getHandler() {
+        return handler;
+    }
+
+    public void setHandler(ICommandHandler handler) {
+        this.handler = handler;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void setCommandHandler(ICommandHandler handler) {
+        this.handler = handler;
+    }
+
+    public Consumer<String> getOnChannelOpen() {
+        return onChannelOpen;
+    }
+
+    public void setOnChannelOpen(Consumer<String> onChannelOpen) {
+        this.onChannelOpen = onChannelOpen;
+    }
+
+    public Consumer<String> getOnChannelClose() {
+        return onChannelClose;
+    }
+
+    public void setOnChannelClose(Consumer<String> onChannelClose) {
+        this.onChannelClose = onChannelClose;
+    }
+
+    @Override
+    protected synchronized void doStart() {
+        if (serverChannel != null)
+            return;
+
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            serverChannel.bind(new InetSocketAddress(config.getHost(), config.getPort()));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            IoHelper.safeCloseObject(serverChannel);
+            IoHelper.safeCloseObject(selector);
+            serverChannel = null;
+            LOG.info("nop.socket.start-server-fail:host={},port={}", config.getHost(), config.getPort());
+            throw new RuntimeException("nop.socket.start-server-fail:" + config.getPort(), e);
+        }
+        LOG.info("nop.socket.start-nio-server:serverName={},host={},port={}", config.getServerName(),
+                config.getHost(), config.getPort());
+
+        if (executor == null) {
+            executor = GlobalExecutors.cachedThreadPool();
+        }
+        bufferPool = new DirectByteBufferPool(config.getBufferSize(), config.getMaxPooledBuffers());
+        stopped = false;
+
+        selectorThread = new Thread(this::run, "nop-socket-selector-" + config.getPort());
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    @Override
+    protected void doStop() {
+        LOG.info("nop.socket.stop-server:host={},port={}", config.getHost(), config.getPort());
+
+        stopped = true;
+        Selector selector = this.selector;
+        if (selector != null)
+            selector.wakeup();
+
+        Thread thread = selectorThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean waitConnected(long timeout) {
+        long endTime = CoreMetrics.currentTimeMillis() + timeout;
+        while (connections.isEmpty()) {
+            ThreadHelper.sleep(100);
+            if (CoreMetrics.currentTimeMillis() >= endTime)
+                return false;
+        }
+        return true;
+    }
+
+    public void broadcast(BinaryCommand command) {
+        for (Connection conn : connections.values()) {
+            conn.send(command);
+        }
+    }
+
+    public void sendTo(String addr, BinaryCommand command) {
+        Connection conn = connections.get(addr);
+        if (conn == null) {
+            LOG.warn("nop.socket.send-to-invalid-addr:addr={}", addr);
+            return;
+        }
+        conn.send(command);
+    }
+
+    public String getConnectionKey(String ip, int port) {
+        return ip + ':' + port;
+    }
+
+    void runInSelector(Runnable task) {
+        selectorTasks.add(task);
+        Selector selector = this.selector;
+        if (selector != null)
+            selector.wakeup();
+    }
+
+    void run() {
+        long lastIdleCheck = CoreMetrics.currentTimeMillis();
+        try {
+            while (!stopped) {
+                selector.select(IDLE_CHECK_INTERVAL);
+                runSelectorTasks();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    processKey(key);
+                }
+
+                long now = CoreMetrics.currentTimeMillis();
+                if (now - lastIdleCheck >= IDLE_CHECK_INTERVAL) {
+                    lastIdleCheck = now;
+                    closeIdleConnections(now);
+                }
+            }
+        } catch (Exception e) {
+            if (!stopped)
+                LOG.error("nop.socket.selector-fail", e);
+        } finally {
+            closeAllConnections();
+            IoHelper.safeCloseObject(serverChannel);
+            IoHelper.safeCloseObject(selector);
+            synchronized (this) {
+                serverChannel = null;
+                selectorThread = null;
+            }
+            LOG.info("nop.socket.server-exit:host={},port={}", config.getHost(), config.getPort());
+        }
+    }
+
+    private void runSelectorTasks() {
+        Runnable task;
+        while ((task = selectorTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                LOG.error("nop.socket.run-selector-task-fail", e);
+            }
+        }
+    }
+
+    private void processKey(SelectionKey key) {
+        if (!key.isValid())
+            return;
+
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        Connection conn = (Connection) key.attachment();
+        try {
+            if (key.isReadable())
+                conn.read();
+            if (key.isValid() && key.isWritable())
+                conn.flush();
+        } catch (Exception e) {
+            if (!stopped)
+                LOG.info("nop.socket.process-connection-fail:addr={}", conn.addr, e);
+            conn.close();
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+        } catch (IOException e) {
+            if (!stopped)
+                LOG.error("nop.socket.accept-fail", e);
+            return;
+        }
+        if (channel == null)
+            return;
+
+        if (connectionCount.get() + 1 > config.getMaxConnections()) {
+            LOG.info("nop.socket.connection-count-exceed-limit:maxConn={}", config.getMaxConnections());
+            IoHelper.safeCloseObject(channel);
+            return;
+        }
+
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+
+            InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+            String ip = remote.getAddress().getHostAddress();
+            int port = remote.getPort();
+            String addr = getConnectionKey(ip, port);
+
+            Connection conn = new Connection(addr, channel);
+            conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+
+            connectionCount.incrementAndGet();
+            connections.put(addr, conn);
+            LOG.info("nop.socket.accept-client:ip={},port={}", ip, port);
+
+            if (onChannelOpen != null)
+                onChannelOpen.accept(addr);
+        } catch (Exception e) {
+            LOG.error("nop.socket.accept-fail", e);
+            IoHelper.safeCloseObject(channel);
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        int idleTimeout = config.getIdleTimeout();
+        if (idleTimeout <= 0)
+            return;
+
+        for (Connection conn : connections.values()) {
+            if (now - conn.lastReadTime > idleTimeout && !conn.processing.get()) {
+                LOG.info("nop.socket.close-idle-connection:addr={}", conn.addr);
+                conn.close();
+            }
+        }
+    }
+
+    private void closeAllConnections() {
+        for (Connection conn : connections.values()) {
+            conn.close();
+        }
+    }
+
+    /**
+     * 读缓冲区和interestOps只在selector线程中访问。写出由持有writeScheduled的线程执行
+     */
+    final class Connection {
+        final String addr;
+        final SocketChannel channel;
+        SelectionKey key;
+
+        ByteBuffer readBuf;
+        /**
+         * 超过缓冲区大小的数据包单独分配缓冲区，不包含长度字段
+         */
+        ByteBuffer largePacket;
+
+        /**
+         * 只有持有writeScheduled的线程才能访问
+         */
+        ByteBuffer writeBuf;
+        ByteBuffer out;
+        volatile boolean readSuspended;
+
+        volatile long lastReadTime = CoreMetrics.currentTimeMillis();
+        volatile boolean closed;
+
+        final Queue<BinaryCommand> writeQueue = new ConcurrentLinkedQueue<>();
+        final AtomicLong pendingWriteBytes = new AtomicLong();
+        final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+        final Queue<BinaryCommand> requests = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingCommands = new AtomicInteger();
+        final AtomicBoolean processing = new AtomicBoolean();
+
+        Connection(String addr, SocketChannel channel) {
+            this.addr = addr;
+            this.channel = channel;
+        }
+
+        void send(BinaryCommand command) {
+            if (!enqueue(command))
+                return;
+
+            if (writeScheduled.compareAndSet(false, true))
+                runInSelector(this::safeFlush);
+        }
+
+        boolean enqueue(BinaryCommand command) {
+            if (closed) {
+                LOG.warn("nop.warn.socket.send-after-closed:addr={}", addr);
+                return false;
+            }
+            writeQueue.add(command);
+            pendingWriteBytes.addAndGet(command.getPacketLength());
+            return true;
+        }
+
+        void safeFlush() {
+            if (closed)
+                return;
+            try {
+                flush();
+            } catch (Exception e) {
+                if (!stopped)
+                    LOG.info("nop.socket.write-fail:addr={}", addr, e);
+                close();
+            }
+        }
+
+        /**
+         * 在selector线程中执行。调用时当前线程持有writeScheduled
+         */
+        void flush() throws IOException {
+            if (writeOutput()) {
+                setInterest(SelectionKey.OP_WRITE, false);
+            } else {
+                // socket发送缓冲区已满，等待OP_WRITE事件
+                setInterest(SelectionKey.OP_WRITE, true);
+            }
+            updateReadInterest();
+        }
+
+        /**
+         * 在处理请求的线程中直接写出响应，避免切换到selector线程。只有socket发送缓冲区已满时才交给selector线程继续写出
+         */
+        void flushInWorker() {
+            if (!writeScheduled.compareAndSet(false, true))
+                return;
+
+            try {
+                if (!writeOutput())
+                    runInSelector(this::safeFlush);
+            } catch (Exception e) {
+                if (!stopped)
+                    LOG.info("nop.socket.write-fail:addr={}", addr, e);
+                runInSelector(this::close);
+            }
+        }
+
+        /**
+         * writeScheduled相当于写锁，只有持有它的线程才能访问writeBuf和out
+         *
+         * @return 全部写出时返回true，此时已经释放writeScheduled。否则返回false，调用者需要等待OP_WRITE事件继续写出
+         */
+        private boolean writeOutput() throws IOException {
+            do {
+                if (out == null) {
+                    out = fillOutput();
+                    if (out == null) {
+                        releaseWriteBuf();
+                        writeScheduled.set(false);
+                        // 重新检查，避免丢失在writeScheduled复位之前加入的数据
+                        if (!writeQueue.isEmpty() && writeScheduled.compareAndSet(false, true))
+                            continue;
+                        return true;
+                    }
+                }
+
+                channel.write(out);
+                writeCount.increment();
+                if (out.hasRemaining())
+                    return false;
+                out = null;
+            } while (true);
+        }
+
+        /**
+         * 将队列中的多个数据包合并到写缓冲区中
+         */
+        private ByteBuffer fillOutput() {
+            BinaryCommand command = writeQueue.peek();
+            if (command == null)
+                return null;
+
+            if (writeBuf == null)
+                writeBuf = bufferPool.acquire();
+            writeBuf.clear();
+
+            do {
+                int len = command.getPacketLength();
+                if (len > writeBuf.remaining()) {
+                    if (writeBuf.position() > 0)
+                        break;
+
+                    writeQueue.poll();
+                    onDequeue(len);
+                    return command.toPacket();
+                }
+
+                writeQueue.poll();
+                writeBuf.putInt(command.getLength());
+                BinaryCommand.writeTo(command, writeBuf);
+                onDequeue(len);
+            } while ((command = writeQueue.peek()) != null);
+
+            writeBuf.flip();
+            return writeBuf;
+        }
+
+        private void onDequeue(int len) {
+            pendingWriteBytes.addAndGet(-len);
+            sendCmdCount.increment();
+        }
+
+        private void releaseWriteBuf() {
+            if (writeBuf != null) {
+                bufferPool.release(writeBuf);
+                writeBuf = null;
+            }
+        }
+
+        void read() throws IOException {
+            if (largePacket != null) {
+                int n = channel.read(largePacket);
+                if (n < 0) {
+                    close();
+                    return;
+                }
+                lastReadTime = CoreMetrics.currentTimeMillis();
+                if (largePacket.hasRemaining())
+                    return;
+
+                largePacket.flip();
+                ByteBuffer packet = largePacket;
+                largePacket = null;
+                checkMasks(packet.getShort(0));
+                onCommand(BinaryCommand.readFrom(packet));
+                updateReadInterest();
+                return;
+            }
+
+            if (readBuf == null)
+                readBuf = bufferPool.acquire();
+
+            int n = channel.read(readBuf);
+            if (n < 0) {
+                close();
+                return;
+            }
+            if (n > 0)
+                lastReadTime = CoreMetrics.currentTimeMillis();
+
+            readBuf.flip();
+            decodePackets();
+            readBuf.compact();
+
+            if (readBuf.position() == 0) {
+                // 没有残留的半包数据，归还缓冲区
+                bufferPool.release(readBuf);
+                readBuf = null;
+            }
+            updateReadInterest();
+        }
+
+        private void decodePackets() throws IOException {
+            ByteBuffer buf = readBuf;
+            while (buf.remaining() >= PACKET_HEADER_SIZE) {
+                int pos = buf.position();
+                int len = buf.getInt(pos);
+                if (len < config.getMinDataLen())
+                    throw new IOException("nop.err.socket.packet-is-too-small:len=" + len);
+                if (len > config.getMaxDataLen())
+                    throw new IOException("nop.err.socket.packet-is-too-large:len=" + len);
+                if (len < 4)
+                    throw new IOException("nop.err.socket.packet-is-too-small:len=" + len);
+                checkMasks(buf.getShort(pos + 4));
+
+                if (buf.remaining() < 4 + len) {
+                    if (4 + len > buf.capacity()) {
+                        // 数据包超过缓冲区大小，已读取的部分复制到单独分配的缓冲区中
+                        largePacket = ByteBuffer.allocate(len);
+                        buf.position(pos + 4);
+                        largePacket.put(buf);
+                    }
+                    return;
+                }
+
+                int start = pos + 4;
+                ByteBuffer packet = buf.duplicate();
+                packet.position(start).limit(start + len);
+                buf.position(start + len);
+                onCommand(BinaryCommand.readFrom(packet));
+            }
+        }
+
+        private void checkMasks(short masks) throws IOException {
+            if (masks != config.getMasks())
+                throw new IOException("nop.err.socket.read-packet-masks-mismatch:masks=" + masks);
+        }
+
+        private void onCommand(BinaryCommand request) {
+            if (request.getCmd() == 0) {
+                // 接收到心跳消息，直接忽略处理
+                recvHeartbeatCount.increment();
+                return;
+            }
+            recvCmdCount.increment();
+
+            requests.add(request);
+            pendingCommands.incrementAndGet();
+            if (processing.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::processRequests);
+                } catch (Exception e) {
+                    // 线程池队列已满
+                    processing.set(false);
+                    LOG.error("nop.socket.submit-request-fail:addr={}", addr, e);
+                    close();
+                }
+            }
+        }
+
+        void processRequests() {
+            try {
+                do {
+                    BinaryCommand request;
+                    while ((request = requests.poll()) != null) {
+                        pendingCommands.decrementAndGet();
+                        if (closed)
+                            continue;
+
+                        BinaryCommand response = handler.onCommand(addr, request);
+                        if (response != null && enqueue(response)
+                                && pendingWriteBytes.get() >= bufferPool.getBufferSize()) {
+                            // 积累的响应已经填满一个缓冲区，不再等待后续请求
+                            flushInWorker();
+                        }
+                    }
+                    // 一批请求处理完毕之后统一写出，多个响应可以合并到一次write调用中
+                    flushInWorker();
+                    processing.set(false);
+                } while (!requests.isEmpty() && processing.compareAndSet(false, true));
+            } catch (Exception e) {
+                processing.set(false);
+                if (!stopped)
+                    LOG.error("nop.socket.process-cmd-fail", e);
+                runInSelector(this::close);
+                return;
+            }
+
+            if (readSuspended)
+                runInSelector(this::updateReadInterest);
+        }
+
+        /**
+         * 待发送数据或待处理请求过多时暂停读取，下降到一半以下时恢复
+         */
+        void updateReadInterest() {
+            if (closed)
+                return;
+
+            long maxBytes = config.getMaxPendingWriteBytes();
+            int maxCommands = config.getMaxPendingCommands();
+            if (readSuspended) {
+                if (pendingWriteBytes.get() <= maxBytes / 2 && pendingCommands.get() <= maxCommands / 2) {
+                    readSuspended = false;
+                    readResumeCount.increment();
+                    setInterest(SelectionKey.OP_READ, true);
+                }
+            } else if (pendingWriteBytes.get() > maxBytes || pendingCommands.get() > maxCommands) {
+                readSuspended = true;
+                readSuspendCount.increment();
+                setInterest(SelectionKey.OP_READ, false);
+                LOG.debug("nop.socket.suspend-read:addr={},pendingBytes={},pendingCommands={}", addr,
+                        pendingWriteBytes.get(), pendingCommands.get());
+            }
+        }
+
+        private void setInterest(int op, boolean enabled) {
+            if (!key.isValid())
+                return;
+            int ops = key.interestOps();
+            int newOps = enabled ? ops | op : ops & ~op;
+            if (newOps != ops)
+                key.interestOps(newOps);
+        }
+
+        void close() {
+            if (closed)
+                return;
+            closed = true;
+
+            LOG.info("nop.socket.destroy-client:addr={}", addr);
+            if (key != null)
+                key.cancel();
+            IoHelper.safeCloseObject(channel);
+
+            if (readBuf != null) {
+                bufferPool.release(readBuf);
+                readBuf = null;
+            }
+            // 如果其他线程正在写出，则由GC回收缓冲区
+            if (writeScheduled.compareAndSet(false, true)) {
+                releaseWriteBuf();
+                out = null;
+            }
+            largePacket = null;
+            writeQueue.clear();
+            pendingWriteBytes.set(0);
+
+            if (connections.remove(addr, this))
+                connectionCount.decrementAndGet();
+
+            if (onChannelClose != null) {
+                try {
+                    onChannelClose.accept(addr);
+                } catch (Exception e) {
+                    LOG.error("nop.socket.on-channel-close-fail", e);
+                }
+            }
+        }
+    }
+}
@@ -25,6 +25,28 @@ public class ServerConfig extends AbstractSocketConfig {
 
     private int threadPoolSize = 10;
 
+    /**
+     * 使用基于Selector的NioSocketServer，空闲连接不占用线程
+     */
+    private boolean nioEnabled;
+
+    /**
+     * NIO模式下读写缓冲区的大小。超过此大小的数据包单独分配缓冲区
+     */
+    private int bufferSize = 64 * 1024;
+
+    private int maxPooledBuffers = 256;
+
+    /**
+     * 单个连接等待发送的数据超过此大小时暂停读取该连接的请求，直到待发送数据下降到一半以下
+     */
+    private int maxPendingWriteBytes = 4 * 1024 * 1024;
+
+    /**
+     * 单个连接等待处理的请求超过此数量时暂停读取该连接的请求
+     */
+    private int maxPendingCommands = 256;
+
     public String getServerName() {
         return serverName;
     }
@@ -88,4 +110,44 @@ public class ServerConfig extends AbstractSocketConfig {
     public void setMaxConnections(int maxConnections) {
         this.maxConnections = maxConnections;
     }
+
+    public boolean isNioEnabled() {
+        return nioEnabled;
+    }
+
+    public void setNioEnabled(boolean nioEnabled) {
+        this.nioEnabled = nioEnabled;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    public void setMaxPooledBuffers(int maxPooledBuffers) {
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    public int getMaxPendingWriteBytes() {
+        return maxPendingWriteBytes;
+    }
+
+    public void setMaxPendingWriteBytes(int maxPendingWriteBytes) {
+        this.maxPendingWriteBytes = maxPendingWriteBytes;
+    }
+
+    public int getMaxPendingCommands() {
+        return maxPendingCommands;
+    }
+
+    public void setMaxPendingCommands(int maxPendingCommands) {
+        this.maxPendingCommands = maxPendingCommands;
+    }
 }
@@ -158,9 +158,7 @@ public class SocketServer extends LifeCycleSupport implements ICommandServer {
     public void broadcast(BinaryCommand command) {
         for (Socket socket : connections.values()) {
             try {
-                OutputStream os = socket.getOutputStream();
-                BinaryCommand.writePacketToStream(command, os);
-                os.flush();
+                writeCommand(socket, command);
             } catch (Exception e) {
                 LOG.info("nop.socket.write-fail", e);
             }
@@ -175,11 +173,20 @@ public class SocketServer extends LifeCycleSupport implements ICommandServer {
         }
 
         try {
+            writeCommand(socket, command);
+        } catch (Exception e) {
+            throw new NopException(ERR_SOCKET_WRITE_FAIL, e);
+        }
+    }
+
+    /**
+     * 响应可能由其他线程异步返回，与processCommand中的写入并发，需要保证数据包不会交错
+     */
+    private void writeCommand(Socket socket, BinaryCommand command) throws IOException {
+        synchronized (socket) {
             OutputStream os = socket.getOutputStream();
             BinaryCommand.writePacketToStream(command, os);
             os.flush();
-        } catch (Exception e) {
-            throw new NopException(ERR_SOCKET_WRITE_FAIL, e);
         }
     }
 
@@ -261,7 +268,6 @@ public class SocketServer extends LifeCycleSupport implements ICommandServer {
             }
 
             InputStream is = socket.getInputStream();
-            OutputStream os = socket.getOutputStream();
 
             if (onChannelOpen != null)
                 onChannelOpen.accept(addr);
@@ -280,8 +286,7 @@ public class SocketServer extends LifeCycleSupport implements ICommandServer {
                 }
                 BinaryCommand response = handler.onCommand(addr, request);
                 if (response != null) {
-                    BinaryCommand.writePacketToStream(response, os);
-                    os.flush();
+                    writeCommand(socket, response);
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.socket;
+
+import io.nop.commons.util.StringHelper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestNioSocketServer {
+    NioSocketServer newServer(int port) {
+        NioSocketServer server = new NioSocketServer();
+        server.getServerConfig().setPort(port);
+        server.getServerConfig().setMaxConnections(100);
+        server.getServerConfig().setBufferSize(1024);
+        server.setCommandHandler((addr, request) -> {
+            return request;
+        });
+        server.start();
+        return server;
+    }
+
+    SocketClient newClient(int port) {
+        SocketClient client = new SocketClient();
+        ClientConfig config = new ClientConfig();
+        config.setReadTimeout(0);
+        config.setPort(port);
+        client.setClientConfig(config);
+        client.connect();
+        return client;
+    }
+
+    @Test
+    public void testEcho() {
+        NioSocketServer server = newServer(10204);
+        SocketClient client = newClient(server.getPort());
+        ClientConfig config = client.getClientConfig();
+
+        BinaryCommand request = new BinaryCommand(config.getMasks(), (short) 0x1, (short) 1, (short) 0, "abc");
+        client.send(request, true);
+        BinaryCommand response = client.recv();
+        assertEquals("abc", response.getDataAsString());
+        assertEquals(1, response.getCmd());
+
+        request = new BinaryCommand(config.getMasks(), (short) 0x1, (short) 1, (short) 0, "bcd");
+        client.ping();
+        response = client.call(request);
+        assertEquals("bcd", response.getDataAsString());
+        assertEquals(1, response.getCmd());
+
+        for (int i = 0; i < 300; i++) {
+            request = new BinaryCommand(config.getMasks(), (short) 0x1, (short) 1, (short) 0, "bcd" + i);
+            client.send(request, false);
+        }
+
+        for (int i = 0; i < 300; i++) {
+            response = client.recv();
+            assertEquals("bcd" + i, response.getDataAsString());
+            assertEquals(1, response.getCmd());
+        }
+
+        // 多个响应合并写出
+        assertTrue(server.getWriteCount() < server.getSendCmdCount());
+
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void testLargePacket() {
+        NioSocketServer server = newServer(10205);
+        SocketClient client = newClient(server.getPort());
+        ClientConfig config = client.getClientConfig();
+
+        String data = StringHelper.repeat("0123456789", 1000);
+        for (int i = 0; i < 3; i++) {
+            BinaryCommand request = new BinaryCommand(config.getMasks(), (short) 0x1, (short) 2, (short) 0, data + i);
+            BinaryCommand response = client.call(request);
+            assertEquals(data + i, response.getDataAsString());
+        }
+
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void testManyConnections() {
+        NioSocketServer server = newServer(10206);
+        List<SocketClient> clients = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            clients.add(newClient(server.getPort()));
+        }
+
+        for (int i = 0; i < clients.size(); i++) {
+            SocketClient client = clients.get(i);
+            BinaryCommand response = client.call(client.newCommand((short) 1, (short) 0, "c" + i));
+            assertEquals("c" + i, response.getDataAsString());
+        }
+        assertEquals(50, server.getConnectionCount());
+
+        for (SocketClient client : clients) {
+            client.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void testSlowReader() throws Exception {
+        NioSocketServer server = new NioSocketServer();
+        server.getServerConfig().setPort(10207);
+        server.getServerConfig().setBufferSize(1024);
+        server.getServerConfig().setMaxPendingWriteBytes(64 * 1024);
+        server.setCommandHandler((addr, request) -> request);
+        server.start();
+
+        SocketClient client = newClient(server.getPort());
+        String data = StringHelper.repeat("0123456789", 800);
+        int count = 2000;
+
+        // 客户端只发送不读取，服务端积压的响应超过maxPendingWriteBytes之后暂停读取请求
+        Thread sender = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                client.send(client.newCommand((short) 1, (short) 0, data + i), false);
+            }
+            client.send(client.newCommand((short) 1, (short) 0, "end"), true);
+        });
+        sender.start();
+
+        waitUntil(() -> server.getReadSuspendCount() > 0);
+        assertTrue(server.getRecvCmdCount() < count);
+
+        // 客户端开始读取之后服务端恢复读取，所有响应按顺序返回
+        for (int i = 0; i < count; i++) {
+            assertEquals(data + i, client.recv().getDataAsString());
+        }
+        assertEquals("end", client.recv().getDataAsString());
+        sender.join(10000);
+        assertFalse(sender.isAlive());
+        assertTrue(server.getReadResumeCount() > 0);
+
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void testSlowHandler() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        NioSocketServer server = new NioSocketServer();
+        server.getServerConfig().setPort(10208);
+        server.getServerConfig().setBufferSize(1024);
+        server.getServerConfig().setMaxPendingCommands(8);
+        server.setCommandHandler((addr, request) -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return request;
+        });
+        server.start();
+
+        SocketClient client = newClient(server.getPort());
+        int count = 100;
+        for (int i = 0; i < count; i++) {
+            client.send(client.newCommand((short) 1, (short) 0, "c" + i), false);
+        }
+        client.send(client.newCommand((short) 1, (short) 0, "end"), true);
+
+        // 请求处理被阻塞，待处理请求超过maxPendingCommands之后暂停读取
+        waitUntil(() -> server.getReadSuspendCount() > 0);
+        long received = server.getRecvCmdCount();
+        Thread.sleep(100);
+        assertEquals(received, server.getRecvCmdCount());
+        assertTrue(received < count);
+
+        latch.countDown();
+        for (int i = 0; i < count; i++) {
+            assertEquals("c" + i, client.recv().getDataAsString());
+        }
+        assertEquals("end", client.recv().getDataAsString());
+        assertTrue(server.getReadResumeCount() > 0);
+
+        client.close();
+        server.stop();
+    }
+
+    void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -9,12 +9,14 @@ package io.nop.spring.web.service;
 
 import io.nop.api.core.beans.ApiResponse;
 import io.nop.api.core.beans.WebContentBean;
+import io.nop.api.core.exceptions.NopException;
 import io.nop.core.resource.IResource;
 import io.nop.graphql.core.IGraphQLExecutionContext;
 import io.nop.graphql.core.ast.GraphQLOperationType;
 import io.nop.graphql.core.web.GraphQLWebService;
 import io.nop.spring.core.resource.SpringResource;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ByteArrayResource;
@@ -33,7 +35,9 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -43,6 +47,7 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.CompletionStage;
 
+import static io.nop.graphql.core.GraphQLConfigs.CFG_GRAPHQL_STREAMING_ENABLED;
 import static io.nop.graphql.core.GraphQLConstants.SYS_PARAM_ARGS;
 import static io.nop.graphql.core.GraphQLConstants.SYS_PARAM_SELECTION;
 
@@ -85,9 +90,37 @@ public class SpringGraphQLWebService extends GraphQLWebService {
 
     @PostMapping(path = "/graphql", produces = MediaType.APPLICATION_JSON_VALUE)
     public CompletionStage<ResponseEntity<Object>> graphqlSpring(@RequestBody String body) {
+        if (CFG_GRAPHQL_STREAMING_ENABLED.get())
+            return streamGraphQL(body);
         return runGraphQL(body, this::transformSpringResponse);
     }
 
+    /**
+     * 结果直接写入HttpServletResponse。返回null表示响应已经处理完毕，不再需要Spring输出
+     */
+    protected CompletionStage<ResponseEntity<Object>> streamGraphQL(String body) {
+        ServletRequestAttributes attrs = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attrs == null || attrs.getResponse() == null)
+            throw new IllegalStateException("null response context");
+
+        HttpServletResponse response = attrs.getResponse();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        try {
+            Writer out = response.getWriter();
+            return runGraphQLToWriter(body, out).thenApply(v -> {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    throw NopException.adapt(e);
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            throw NopException.adapt(e);
+        }
+    }
+
     protected ResponseEntity<Object> transformSpringResponse(Map<String, Object> headers, Object body, int status) {
         HttpHeaders httpHeaders = new HttpHeaders();
         headers.forEach((name, value) -> {
@@ -10,4 +10,8 @@ package io.nop.stream.cep;
 public interface NopCepConstants {
     String VAR_EVENT = "event";
     String VAR_CTX = "ctx";
+
+    String METER_PREFIX = "nop.stream.cep.";
+
+    String TAG_OPERATOR = "operator";
 }
@@ -22,8 +22,11 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.micrometer.core.instrument.Counter;
 import io.nop.api.core.exceptions.NopException;
+import io.nop.commons.metrics.GlobalMeterRegistry;
 import io.nop.commons.tuple.Tuple2;
 import io.nop.stream.cep.EventComparator;
+import io.nop.stream.cep.NopCepConstants;
+import io.nop.stream.cep.configuration.SharedBufferCacheConfig;
 import io.nop.stream.cep.functions.PatternProcessFunction;
 import io.nop.stream.cep.functions.TimedOutPartialMatchHandler;
 import io.nop.stream.cep.nfa.NFA;
@@ -34,14 +37,20 @@ import io.nop.stream.cep.nfa.sharedbuffer.SharedBuffer;
 import io.nop.stream.cep.nfa.sharedbuffer.SharedBufferAccessor;
 import io.nop.stream.cep.time.TimerService;
 import io.nop.stream.core.common.state.MapState;
+import io.nop.stream.core.common.state.MapStateDescriptor;
 import io.nop.stream.core.common.state.ValueState;
+import io.nop.stream.core.common.state.ValueStateDescriptor;
 import io.nop.stream.core.common.state.VoidNamespace;
 import io.nop.stream.core.common.typeutils.TypeSerializer;
 import io.nop.stream.core.operators.AbstractUdfStreamOperator;
+import io.nop.stream.core.operators.InternalTimer;
 import io.nop.stream.core.operators.InternalTimerService;
 import io.nop.stream.core.operators.OneInputStreamOperator;
+import io.nop.stream.core.operators.StreamOperatorParameters;
 import io.nop.stream.core.operators.TimestampedCollector;
+import io.nop.stream.core.operators.Triggerable;
 import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.util.FunctionUtils;
 import io.nop.stream.core.util.OutputTag;
 
 import jakarta.annotation.Nullable;
@@ -64,8 +73,7 @@ import java.util.stream.Stream;
  */
 public class CepOperator<IN, KEY, OUT>
         extends AbstractUdfStreamOperator<OUT, PatternProcessFunction<IN, OUT>>
-        implements OneInputStreamOperator<IN, OUT>
-        //, Triggerable<KEY, VoidNamespace>
+        implements OneInputStreamOperator<IN, OUT>, Triggerable<KEY, VoidNamespace>
 {
 
     private static final long serialVersionUID = -4166778210774160757L;
@@ -134,7 +142,7 @@ public class CepOperator<IN, KEY, OUT>
     private transient Counter numLateRecordsDropped;
 
     public CepOperator(
-            final TypeSerializer<IN> inputSerializer,
+            @Nullable final TypeSerializer<IN> inputSerializer,
             final boolean isProcessingTime,
             final NFACompiler.NFAFactory<IN> nfaFactory,
             @Nullable final EventComparator<IN> comparator,
@@ -143,7 +151,8 @@ public class CepOperator<IN, KEY, OUT>
             @Nullable final OutputTag<IN> lateDataOutputTag) {
         super(function);
 
-        this.inputSerializer = Preconditions.checkNotNull(inputSerializer);
+        // 堆内的状态存储不需要序列化，inputSerializer允许为空
+        this.inputSerializer = inputSerializer;
         this.nfaFactory = Preconditions.checkNotNull(nfaFactory);
 
         this.isProcessingTime = isProcessingTime;
@@ -157,15 +166,12 @@ public class CepOperator<IN, KEY, OUT>
         }
     }
 
-//    @Override
-//    public void setup(
-//            StreamTask<?, ?> containingTask,
-//            StreamConfig config,
-//            Output<StreamRecord<OUT>> output) {
-//        super.setup(containingTask, config, output);
-//        this.cepRuntimeContext = new CepRuntimeContext(getRuntimeContext());
-//        FunctionUtils.setFunctionRuntimeContext(getUserFunction(), this.cepRuntimeContext);
-//    }
+    @Override
+    public void setup(StreamOperatorParameters<OUT> parameters) {
+        super.setup(parameters);
+        this.cepRuntimeContext = new CepRuntimeContext(getRuntimeContext());
+        FunctionUtils.setFunctionRuntimeContext(getUserFunction(), this.cepRuntimeContext);
+    }
 
 //    @Override
 //    public void initializeState(StateInitializationContext context) throws Exception {
@@ -198,21 +204,31 @@ public class CepOperator<IN, KEY, OUT>
 //    }
 
     @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public void open() throws Exception {
         super.open();
-        timerService = null;
-//                getInternalTimerService(
-//                        "watermark-callbacks", VoidNamespaceSerializer.INSTANCE, this);
+
+        computationStates = getKeyedStateStore().getState(
+                new ValueStateDescriptor<>(NFA_STATE_NAME, NFAState.class));
+
+        partialMatches = new SharedBuffer<>(getKeyedStateStore(), inputSerializer, new SharedBufferCacheConfig());
+
+        elementQueueState = getKeyedStateStore().getMapState(
+                new MapStateDescriptor<>(EVENT_QUEUE_STATE_NAME, Long.class, (Class) List.class));
+
+        timerService = getInternalTimerService("watermark-callbacks", this);
 
         nfa = nfaFactory.createNFA();
-        // nfa.open(cepRuntimeContext, new Configuration());
+        nfa.open(cepRuntimeContext, null);
 
         context = new ContextFunctionImpl();
         collector = new TimestampedCollector<>(output);
         cepTimerService = new TimerServiceImpl();
 
         // metrics
-        //  this.numLateRecordsDropped = metrics.counter(LATE_ELEMENTS_DROPPED_METRIC_NAME);
+        this.numLateRecordsDropped = Counter.builder(NopCepConstants.METER_PREFIX + LATE_ELEMENTS_DROPPED_METRIC_NAME)
+                .tag(NopCepConstants.TAG_OPERATOR, String.valueOf(getOperatorName()))
+                .register(GlobalMeterRegistry.instance());
     }
 
     @Override
@@ -285,6 +301,16 @@ public class CepOperator<IN, KEY, OUT>
         elementQueueState.put(currentTime, elementsForTimestamp);
     }
 
+    @Override
+    public void onEventTime(InternalTimer<KEY, VoidNamespace> timer) throws Exception {
+        onEventTime(timer.getTimestamp());
+    }
+
+    @Override
+    public void onProcessingTime(InternalTimer<KEY, VoidNamespace> timer) throws Exception {
+        onProcessingTime(timer.getTimestamp());
+    }
+
     public void onEventTime(long time) throws Exception {
 
         // 1) get the queue of pending elements for the key and the corresponding NFA,
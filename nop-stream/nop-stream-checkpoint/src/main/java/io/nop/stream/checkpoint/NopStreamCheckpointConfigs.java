@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint;
+
+import io.nop.api.core.annotations.core.Description;
+import io.nop.api.core.config.IConfigReference;
+import io.nop.api.core.util.SourceLocation;
+
+import java.time.Duration;
+
+import static io.nop.api.core.config.AppConfig.varRef;
+
+public interface NopStreamCheckpointConfigs {
+    SourceLocation s_loc = SourceLocation.fromClass(NopStreamCheckpointConfigs.class);
+
+    @Description("每个子任务在内存中保留的keyed状态条目数。超过之后最久未访问的条目被写入磁盘上的溢出文件")
+    IConfigReference<Integer> CFG_STREAM_STATE_MAX_MEMORY_ENTRIES =
+            varRef(s_loc, "nop.stream.state.max-memory-entries", Integer.class, 100000);
+
+    @Description("增量checkpoint链的最大长度。超过之后下一次checkpoint会生成全量快照")
+    IConfigReference<Integer> CFG_STREAM_CHECKPOINT_MAX_DELTA_CHAIN =
+            varRef(s_loc, "nop.stream.checkpoint.max-delta-chain", Integer.class, 10);
+
+    @Description("保留的已完成checkpoint的个数")
+    IConfigReference<Integer> CFG_STREAM_CHECKPOINT_RETAINED_COUNT =
+            varRef(s_loc, "nop.stream.checkpoint.retained-count", Integer.class, 2);
+
+    @Description("checkpoint的超时时间。超时未完成的checkpoint会被放弃")
+    IConfigReference<Duration> CFG_STREAM_CHECKPOINT_TIMEOUT =
+            varRef(s_loc, "nop.stream.checkpoint.timeout", Duration.class, Duration.ofMinutes(10));
+}
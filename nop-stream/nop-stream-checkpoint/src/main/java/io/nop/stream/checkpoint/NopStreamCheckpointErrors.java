@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint;
+
+import io.nop.api.core.exceptions.ErrorCode;
+
+import static io.nop.api.core.exceptions.ErrorCode.define;
+
+public interface NopStreamCheckpointErrors {
+    String ARG_PATH = "path";
+    String ARG_CHECKPOINT_ID = "checkpointId";
+    String ARG_STATE_NAME = "stateName";
+
+    ErrorCode ERR_STREAM_STATE_SPILL_FAIL =
+            define("nop.err.stream.state.spill-fail", "读写状态溢出文件失败:{path}", ARG_PATH);
+
+    ErrorCode ERR_STREAM_STATE_SERIALIZE_FAIL =
+            define("nop.err.stream.state.serialize-fail", "状态数据序列化失败，key和值必须是可序列化的:{stateName}",
+                    ARG_STATE_NAME);
+
+    ErrorCode ERR_STREAM_CHECKPOINT_WRITE_FAIL =
+            define("nop.err.stream.checkpoint.write-fail", "写入checkpoint文件失败:{path}", ARG_PATH,
+                    ARG_CHECKPOINT_ID);
+
+    ErrorCode ERR_STREAM_CHECKPOINT_READ_FAIL =
+            define("nop.err.stream.checkpoint.read-fail", "读取checkpoint文件失败:{path}", ARG_PATH);
+}
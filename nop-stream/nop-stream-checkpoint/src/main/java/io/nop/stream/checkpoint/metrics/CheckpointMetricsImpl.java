@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.nop.commons.metrics.GlobalMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+public class CheckpointMetricsImpl implements ICheckpointMetrics {
+    public static final String TAG_JOB = "job";
+
+    private final Timer checkpointTimer;
+    private final DistributionSummary checkpointSize;
+    private final Counter completedCount;
+    private final Counter fullCount;
+    private final Counter failedCount;
+    private final Timer restoreTimer;
+
+    public CheckpointMetricsImpl(String jobName) {
+        this(GlobalMeterRegistry.instance(), jobName);
+    }
+
+    public CheckpointMetricsImpl(MeterRegistry registry, String jobName) {
+        checkpointTimer = Timer.builder("nop.stream.checkpoint.duration").tag(TAG_JOB, jobName).register(registry);
+        checkpointSize = DistributionSummary.builder("nop.stream.checkpoint.size").baseUnit("bytes")
+                .tag(TAG_JOB, jobName).register(registry);
+        completedCount = registry.counter("nop.stream.checkpoint.completed", TAG_JOB, jobName);
+        fullCount = registry.counter("nop.stream.checkpoint.full", TAG_JOB, jobName);
+        failedCount = registry.counter("nop.stream.checkpoint.failed", TAG_JOB, jobName);
+        restoreTimer = Timer.builder("nop.stream.checkpoint.restore-duration").tag(TAG_JOB, jobName)
+                .register(registry);
+    }
+
+    @Override
+    public void onCheckpointCompleted(long checkpointId, long durationNanos, long stateSize, boolean full) {
+        checkpointTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        checkpointSize.record(stateSize);
+        completedCount.increment();
+        if (full)
+            fullCount.increment();
+    }
+
+    @Override
+    public void onCheckpointFailed(long checkpointId) {
+        failedCount.increment();
+    }
+
+    @Override
+    public void onRestored(long checkpointId, long durationNanos) {
+        restoreTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.metrics;
+
+public interface ICheckpointMetrics {
+
+    void onCheckpointCompleted(long checkpointId, long durationNanos, long stateSize, boolean full);
+
+    void onCheckpointFailed(long checkpointId);
+
+    void onRestored(long checkpointId, long durationNanos);
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.snapshot;
+
+import io.nop.stream.checkpoint.state.KeyedStateSnapshot;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 一个子任务在某次checkpoint时的状态。keyed状态可以是增量的，定时器和数据源的状态总是全量保存
+ */
+public class TaskStateSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long checkpointId;
+    private final KeyedStateSnapshot keyedState;
+    private final List<TimerSnapshot> timers;
+    private final Serializable sourceState;
+
+    public TaskStateSnapshot(long checkpointId, KeyedStateSnapshot keyedState, List<TimerSnapshot> timers,
+                             Serializable sourceState) {
+        this.checkpointId = checkpointId;
+        this.keyedState = keyedState;
+        this.timers = timers;
+        this.sourceState = sourceState;
+    }
+
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+
+    public KeyedStateSnapshot getKeyedState() {
+        return keyedState;
+    }
+
+    public List<TimerSnapshot> getTimers() {
+        return timers;
+    }
+
+    public Serializable getSourceState() {
+        return sourceState;
+    }
+
+    public boolean isFull() {
+        return keyedState == null || keyedState.isFull();
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.snapshot;
+
+import java.io.Serializable;
+
+public class TimerSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String serviceName;
+    private final boolean eventTime;
+    private final long timestamp;
+    private final Object key;
+    private final Object namespace;
+
+    public TimerSnapshot(String serviceName, boolean eventTime, long timestamp, Object key, Object namespace) {
+        this.serviceName = serviceName;
+        this.eventTime = eventTime;
+        this.timestamp = timestamp;
+        this.key = key;
+        this.namespace = namespace;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public boolean isEventTime() {
+        return eventTime;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Object getNamespace() {
+        return namespace;
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.state;
+
+import io.nop.stream.core.common.state.KeyedStateBackend;
+
+import java.util.function.Predicate;
+
+/**
+ * 支持增量快照的keyed状态存储
+ */
+public interface CheckpointableKeyedStateBackend<K> extends KeyedStateBackend<K> {
+
+    /**
+     * 在任务线程中同步执行，返回的快照与后续的状态修改无关，可以在其他线程中异步写入存储
+     *
+     * @param full 为true时返回所有条目，否则只返回上一次快照之后修改过的条目
+     */
+    KeyedStateSnapshot snapshot(boolean full);
+
+    /**
+     * 按照顺序叠加快照中的条目
+     *
+     * @param keyFilter 只恢复满足条件的key。并行度改变时每个子任务只恢复属于自己的key
+     */
+    void restore(KeyedStateSnapshot snapshot, Predicate<Object> keyFilter);
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.state;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * keyed状态的快照。full为false时只包含上一次快照之后发生变化的条目，恢复时需要按照顺序叠加到之前的快照上
+ */
+public class KeyedStateSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean full;
+    private final List<StateEntry> entries;
+
+    public KeyedStateSnapshot(boolean full, List<StateEntry> entries) {
+        this.full = full;
+        this.entries = entries;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<StateEntry> getEntries() {
+        return entries;
+    }
+
+    public long getByteSize() {
+        long size = 0;
+        for (StateEntry entry : entries) {
+            size += entry.getKey().length;
+            if (entry.getValue() != null)
+                size += entry.getValue().length;
+        }
+        return size;
+    }
+}
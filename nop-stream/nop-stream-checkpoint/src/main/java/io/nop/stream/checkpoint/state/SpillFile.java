@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.state;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.commons.util.IoHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ARG_PATH;
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ERR_STREAM_STATE_SPILL_FAIL;
+
+/**
+ * 只追加写入的溢出文件。每条记录的格式为[长度][数据]，通过写入时返回的位置读取
+ */
+public class SpillFile implements AutoCloseable {
+    private final File file;
+    private final RandomAccessFile raf;
+    private long length;
+
+    public SpillFile(File file) {
+        this.file = file;
+        try {
+            file.getParentFile().mkdirs();
+            this.raf = new RandomAccessFile(file, "rw");
+            this.raf.setLength(0);
+        } catch (IOException e) {
+            throw newError(e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long write(byte[] data) {
+        long pos = length;
+        try {
+            raf.seek(pos);
+            raf.writeInt(data.length);
+            raf.write(data);
+        } catch (IOException e) {
+            throw newError(e);
+        }
+        length = pos + 4 + data.length;
+        return pos;
+    }
+
+    public byte[] read(long pos) {
+        try {
+            raf.seek(pos);
+            byte[] data = new byte[raf.readInt()];
+            raf.readFully(data);
+            return data;
+        } catch (IOException e) {
+            throw newError(e);
+        }
+    }
+
+    private NopException newError(IOException e) {
+        return new NopException(ERR_STREAM_STATE_SPILL_FAIL, e).param(ARG_PATH, file.getAbsolutePath());
+    }
+
+    @Override
+    public void close() {
+        IoHelper.safeCloseObject(raf);
+        file.delete();
+    }
+}
@@ -0,0 +1,546 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.state;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.commons.io.serialize.JavaSerializer;
+import io.nop.stream.core.common.accumulators.SimpleAccumulator;
+import io.nop.stream.core.common.state.ListState;
+import io.nop.stream.core.common.state.ListStateDescriptor;
+import io.nop.stream.core.common.state.MapState;
+import io.nop.stream.core.common.state.MapStateDescriptor;
+import io.nop.stream.core.common.state.ReducingState;
+import io.nop.stream.core.common.state.ReducingStateDescriptor;
+import io.nop.stream.core.common.state.ValueState;
+import io.nop.stream.core.common.state.ValueStateDescriptor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ARG_STATE_NAME;
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ERR_STREAM_STATE_SERIALIZE_FAIL;
+
+/**
+ * 可以溢出到磁盘的keyed状态存储。
+ * <p>
+ * 每个状态对应一个按照访问顺序排列的内存表，所有状态的内存条目总数超过maxMemoryEntries时，最久未访问的条目被序列化后追加写入溢出文件。
+ * 从溢出文件中读回的条目在被修改之前一直保留磁盘上的副本，再次淘汰时不需要重新写入。
+ * 同时记录上一次快照之后修改过的key，用于生成增量快照。
+ * <p>
+ * 从状态中读取的可变对象(例如MapState内部的Map)被原地修改时会由对应的状态对象标记为已修改，
+ * 直接修改ValueState.value()返回的对象而不调用update则不会被感知。同一个backend只能在单个线程中访问。
+ */
+public class SpillableKeyedStateBackend<K> implements CheckpointableKeyedStateBackend<K>, AutoCloseable {
+    static final int MIN_MEMORY_ENTRIES = 16;
+    static final int MIN_COMPACT_GARBAGE = 10000;
+
+    private final File spillDir;
+    private final int maxMemoryEntries;
+    private final Map<String, StateTable> tables = new HashMap<>();
+
+    private SpillFile spillFile;
+    private int memoryEntries;
+    private long spilledEntries;
+    private long spillGarbage;
+
+    private K currentKey;
+
+    public SpillableKeyedStateBackend(File spillDir, int maxMemoryEntries) {
+        this.spillDir = spillDir;
+        this.maxMemoryEntries = Math.max(maxMemoryEntries, MIN_MEMORY_ENTRIES);
+    }
+
+    @Override
+    public void setCurrentKey(K key) {
+        this.currentKey = key;
+    }
+
+    @Override
+    public K getCurrentKey() {
+        return currentKey;
+    }
+
+    public int getNumMemoryEntries() {
+        return memoryEntries;
+    }
+
+    public long getNumSpilledEntries() {
+        return spilledEntries;
+    }
+
+    public long getSpillFileSize() {
+        return spillFile == null ? 0 : spillFile.length();
+    }
+
+    @Override
+    public void dispose() {
+        tables.clear();
+        memoryEntries = 0;
+        spilledEntries = 0;
+        spillGarbage = 0;
+        if (spillFile != null) {
+            spillFile.close();
+            spillFile = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        dispose();
+    }
+
+    private StateTable getTable(String name) {
+        return tables.computeIfAbsent(name, StateTable::new);
+    }
+
+    private SpillFile getSpillFile() {
+        if (spillFile == null)
+            spillFile = new SpillFile(newSpillFile());
+        return spillFile;
+    }
+
+    private File newSpillFile() {
+        return new File(spillDir, "state-" + System.identityHashCode(this) + "-" + System.nanoTime() + ".spill");
+    }
+
+    static byte[] serialize(String stateName, Object value) {
+        try {
+            return JavaSerializer.INSTANCE.serializeToByteArray(value);
+        } catch (Exception e) {
+            throw new NopException(ERR_STREAM_STATE_SERIALIZE_FAIL, e).param(ARG_STATE_NAME, stateName);
+        }
+    }
+
+    static Object deserialize(String stateName, byte[] data) {
+        try {
+            return JavaSerializer.INSTANCE.deserializeFromByteArray(data);
+        } catch (Exception e) {
+            throw new NopException(ERR_STREAM_STATE_SERIALIZE_FAIL, e).param(ARG_STATE_NAME, stateName);
+        }
+    }
+
+    private void evictIfNeeded(StateTable preferred) {
+        while (memoryEntries > maxMemoryEntries) {
+            // 保留刚刚访问的条目，避免调用方持有的可变对象被换出
+            StateTable table = preferred.memory.size() > 1 ? preferred : findLargestTable();
+            if (table == null || table.memory.size() <= 1)
+                break;
+            table.evictEldest();
+        }
+        if (spillGarbage > MIN_COMPACT_GARBAGE && spillGarbage > spilledEntries)
+            compactSpillFile();
+    }
+
+    private StateTable findLargestTable() {
+        StateTable ret = null;
+        for (StateTable table : tables.values()) {
+            if (ret == null || table.memory.size() > ret.memory.size())
+                ret = table;
+        }
+        return ret;
+    }
+
+    /**
+     * 溢出文件中被覆盖或者删除的条目超过有效条目时，将有效条目复制到新文件中
+     */
+    private void compactSpillFile() {
+        SpillFile oldFile = spillFile;
+        SpillFile newFile = new SpillFile(newSpillFile());
+        for (StateTable table : tables.values()) {
+            for (Map.Entry<K, Long> entry : table.spilled.entrySet()) {
+                entry.setValue(newFile.write(oldFile.read(entry.getValue())));
+            }
+        }
+        spillFile = newFile;
+        spillGarbage = 0;
+        oldFile.close();
+    }
+
+    @Override
+    public KeyedStateSnapshot snapshot(boolean full) {
+        List<StateEntry> entries = new ArrayList<>();
+        for (StateTable table : tables.values()) {
+            if (full) {
+                table.snapshotAll(entries);
+            } else {
+                table.snapshotDirty(entries);
+            }
+            table.dirty.clear();
+        }
+        return new KeyedStateSnapshot(full, entries);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void restore(KeyedStateSnapshot snapshot, Predicate<Object> keyFilter) {
+        for (StateEntry entry : snapshot.getEntries()) {
+            StateTable table = getTable(entry.getStateName());
+            K key = (K) deserialize(entry.getStateName(), entry.getKey());
+            if (keyFilter != null && !keyFilter.test(key))
+                continue;
+
+            if (entry.isDeleted()) {
+                table.remove(key);
+            } else if (memoryEntries >= maxMemoryEntries) {
+                // 内存已满时直接写入溢出文件，避免反序列化之后再次序列化
+                table.restoreSpilled(key, entry.getValue());
+            } else {
+                table.put(key, deserialize(entry.getStateName(), entry.getValue()));
+            }
+        }
+
+        for (StateTable table : tables.values()) {
+            table.dirty.clear();
+        }
+    }
+
+    class StateTable {
+        final String name;
+        final LinkedHashMap<K, Object> memory = new LinkedHashMap<>(16, 0.75f, true);
+        final Map<K, Long> spilled = new HashMap<>();
+        final Set<K> dirty = new HashSet<>();
+
+        StateTable(String name) {
+            this.name = name;
+        }
+
+        Object get(K key) {
+            Object value = memory.get(key);
+            if (value != null || spilled.isEmpty())
+                return value;
+
+            Long pos = spilled.get(key);
+            if (pos == null)
+                return null;
+
+            value = deserialize(name, spillFile.read(pos));
+            memory.put(key, value);
+            memoryEntries++;
+            evictIfNeeded(this);
+            return value;
+        }
+
+        void put(K key, Object value) {
+            if (memory.put(key, value) == null)
+                memoryEntries++;
+            markDirty(key);
+            evictIfNeeded(this);
+        }
+
+        /**
+         * 值被修改之后溢出文件中的副本失效
+         */
+        void markDirty(K key) {
+            if (!spilled.isEmpty() && spilled.remove(key) != null) {
+                spilledEntries--;
+                spillGarbage++;
+            }
+            dirty.add(key);
+        }
+
+        void remove(K key) {
+            if (memory.remove(key) != null)
+                memoryEntries--;
+            markDirty(key);
+        }
+
+        void restoreSpilled(K key, byte[] data) {
+            remove(key);
+            spilled.put(key, getSpillFile().write(data));
+            spilledEntries++;
+        }
+
+        void evictEldest() {
+            Iterator<Map.Entry<K, Object>> it = memory.entrySet().iterator();
+            Map.Entry<K, Object> entry = it.next();
+            if (!spilled.containsKey(entry.getKey())) {
+                spilled.put(entry.getKey(), getSpillFile().write(serialize(name, entry.getValue())));
+                spilledEntries++;
+            }
+            it.remove();
+            memoryEntries--;
+        }
+
+        void snapshotAll(List<StateEntry> entries) {
+            for (Map.Entry<K, Object> entry : memory.entrySet()) {
+                entries.add(new StateEntry(name, serialize(name, entry.getKey()), serialize(name, entry.getValue())));
+            }
+            for (Map.Entry<K, Long> entry : spilled.entrySet()) {
+                if (!memory.containsKey(entry.getKey()))
+                    entries.add(new StateEntry(name, serialize(name, entry.getKey()), spillFile.read(entry.getValue())));
+            }
+        }
+
+        void snapshotDirty(List<StateEntry> entries) {
+            for (K key : dirty) {
+                byte[] value = null;
+                Object obj = memory.get(key);
+                if (obj != null) {
+                    value = serialize(name, obj);
+                } else {
+                    Long pos = spilled.get(key);
+                    if (pos != null)
+                        value = spillFile.read(pos);
+                }
+                entries.add(new StateEntry(name, serialize(name, key), value));
+            }
+        }
+    }
+
+    @Override
+    public <T> ValueState<T> getState(ValueStateDescriptor<T> stateProperties) {
+        return new SpillableValueState<>(getTable(stateProperties.getName()));
+    }
+
+    @Override
+    public <UK, UV> MapState<UK, UV> getMapState(MapStateDescriptor<UK, UV> stateProperties) {
+        return new SpillableMapState<>(getTable(stateProperties.getName()));
+    }
+
+    @Override
+    public <T> ListState<T> getListState(ListStateDescriptor<T> stateProperties) {
+        return new SpillableListState<>(getTable(stateProperties.getName()));
+    }
+
+    @Override
+    public <T> ReducingState<T> getReducingState(ReducingStateDescriptor<T> stateProperties) {
+        return new SpillableReducingState<>(getTable(stateProperties.getName()), stateProperties);
+    }
+
+    class SpillableValueState<T> implements ValueState<T> {
+        private final StateTable table;
+
+        SpillableValueState(StateTable table) {
+            this.table = table;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T value() {
+            return (T) table.get(currentKey);
+        }
+
+        @Override
+        public void update(T value) {
+            if (value == null) {
+                table.remove(currentKey);
+            } else {
+                table.put(currentKey, value);
+            }
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+
+    class SpillableMapState<UK, UV> implements MapState<UK, UV> {
+        private final StateTable table;
+
+        SpillableMapState(StateTable table) {
+            this.table = table;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<UK, UV> getMap() {
+            return (Map<UK, UV>) table.get(currentKey);
+        }
+
+        private Map<UK, UV> makeMap() {
+            Map<UK, UV> map = getMap();
+            if (map == null) {
+                map = new HashMap<>();
+                table.put(currentKey, map);
+            } else {
+                table.markDirty(currentKey);
+            }
+            return map;
+        }
+
+        @Override
+        public UV get(UK key) {
+            Map<UK, UV> map = getMap();
+            return map == null ? null : map.get(key);
+        }
+
+        @Override
+        public void put(UK key, UV value) {
+            makeMap().put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<UK, UV> map) {
+            makeMap().putAll(map);
+        }
+
+        @Override
+        public void remove(UK key) {
+            Map<UK, UV> map = getMap();
+            if (map == null)
+                return;
+            map.remove(key);
+            if (map.isEmpty()) {
+                table.remove(currentKey);
+            } else {
+                table.markDirty(currentKey);
+            }
+        }
+
+        @Override
+        public boolean contains(UK key) {
+            Map<UK, UV> map = getMap();
+            return map != null && map.containsKey(key);
+        }
+
+        /**
+         * 返回的集合支持通过迭代器删除，因此保守地认为状态已经被修改
+         */
+        @Override
+        public Iterable<Map.Entry<UK, UV>> entries() {
+            Map<UK, UV> map = getMap();
+            if (map == null)
+                return Collections.emptyList();
+            table.markDirty(currentKey);
+            return map.entrySet();
+        }
+
+        @Override
+        public Iterable<UK> keys() {
+            Map<UK, UV> map = getMap();
+            return map == null ? Collections.emptyList() : Collections.unmodifiableSet(map.keySet());
+        }
+
+        @Override
+        public Iterable<UV> values() {
+            Map<UK, UV> map = getMap();
+            return map == null ? Collections.emptyList() : Collections.unmodifiableCollection(map.values());
+        }
+
+        @Override
+        public Iterator<Map.Entry<UK, UV>> iterator() {
+            return entries().iterator();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            Map<UK, UV> map = getMap();
+            return map == null || map.isEmpty();
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+
+    class SpillableListState<T> implements ListState<T> {
+        private final StateTable table;
+
+        SpillableListState(StateTable table) {
+            this.table = table;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<T> getList() {
+            return (List<T>) table.get(currentKey);
+        }
+
+        @Override
+        public Iterable<T> get() {
+            List<T> list = getList();
+            return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+        }
+
+        @Override
+        public void add(T value) {
+            List<T> list = getList();
+            if (list == null) {
+                list = new ArrayList<>();
+                list.add(value);
+                table.put(currentKey, list);
+            } else {
+                list.add(value);
+                table.markDirty(currentKey);
+            }
+        }
+
+        @Override
+        public void addAll(List<T> values) {
+            if (values == null || values.isEmpty())
+                return;
+
+            List<T> list = getList();
+            if (list == null) {
+                table.put(currentKey, new ArrayList<>(values));
+            } else {
+                list.addAll(values);
+                table.markDirty(currentKey);
+            }
+        }
+
+        @Override
+        public void update(List<T> values) {
+            if (values == null || values.isEmpty()) {
+                table.remove(currentKey);
+            } else {
+                table.put(currentKey, new ArrayList<>(values));
+            }
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+
+    class SpillableReducingState<T> implements ReducingState<T> {
+        private final StateTable table;
+        private final ReducingStateDescriptor<T> descriptor;
+
+        SpillableReducingState(StateTable table, ReducingStateDescriptor<T> descriptor) {
+            this.table = table;
+            this.descriptor = descriptor;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get() {
+            SimpleAccumulator<T> acc = (SimpleAccumulator<T>) table.get(currentKey);
+            return acc == null ? null : acc.getLocalValue();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void add(T value) {
+            SimpleAccumulator<T> acc = (SimpleAccumulator<T>) table.get(currentKey);
+            if (acc == null) {
+                acc = descriptor.createAccumulator();
+                acc.add(value);
+                table.put(currentKey, acc);
+            } else {
+                acc.add(value);
+                table.markDirty(currentKey);
+            }
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.state;
+
+import java.io.Serializable;
+
+/**
+ * 快照中的一个状态条目。key和value都是序列化之后的字节，value为null表示该条目已经被删除
+ */
+public class StateEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String stateName;
+    private final byte[] key;
+    private final byte[] value;
+
+    public StateEntry(String stateName, byte[] key, byte[] value) {
+        this.stateName = stateName;
+        this.key = key;
+        this.value = value;
+    }
+
+    public String getStateName() {
+        return stateName;
+    }
+
+    public byte[] getKey() {
+        return key;
+    }
+
+    public byte[] getValue() {
+        return value;
+    }
+
+    public boolean isDeleted() {
+        return value == null;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.storage;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已完成的checkpoint的描述信息。每个子任务对应一个状态文件链，第一个文件是全量快照，后续文件是按顺序叠加的增量快照
+ */
+public class CheckpointMetadata implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long checkpointId;
+    private final long timestamp;
+    private final Map<String, List<String>> taskFiles;
+    private final long stateSize;
+
+    public CheckpointMetadata(long checkpointId, long timestamp, Map<String, List<String>> taskFiles,
+                              long stateSize) {
+        this.checkpointId = checkpointId;
+        this.timestamp = timestamp;
+        this.taskFiles = taskFiles;
+        this.stateSize = stateSize;
+    }
+
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * key为子任务标识，value为恢复该子任务需要依次读取的状态文件
+     */
+    public Map<String, List<String>> getTaskFiles() {
+        return taskFiles;
+    }
+
+    public List<String> getTaskFileChain(String taskId) {
+        return taskFiles.get(taskId);
+    }
+
+    /**
+     * 本次checkpoint新写入的状态文件的总字节数
+     */
+    public long getStateSize() {
+        return stateSize;
+    }
+
+    public int getMaxChainLength() {
+        int max = 0;
+        for (List<String> files : taskFiles.values()) {
+            max = Math.max(max, files.size());
+        }
+        return max;
+    }
+}
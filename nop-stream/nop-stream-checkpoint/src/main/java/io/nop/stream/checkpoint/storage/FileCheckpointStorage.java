@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.storage;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.stream.checkpoint.snapshot.TaskStateSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ARG_CHECKPOINT_ID;
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ARG_PATH;
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ERR_STREAM_CHECKPOINT_READ_FAIL;
+import static io.nop.stream.checkpoint.NopStreamCheckpointErrors.ERR_STREAM_CHECKPOINT_WRITE_FAIL;
+
+/**
+ * 将checkpoint保存在本地目录中。子任务的状态文件保存在shared子目录下，可以被多个checkpoint的文件链共享，
+ * 每个已完成的checkpoint对应一个chk-{id}.meta文件。所有文件都先写入临时文件再改名，保证不会读到写了一半的文件。
+ */
+public class FileCheckpointStorage {
+    static final Logger LOG = LoggerFactory.getLogger(FileCheckpointStorage.class);
+
+    static final String META_FILE_PREFIX = "chk-";
+    static final String META_FILE_SUFFIX = ".meta";
+    static final String STATE_FILE_SUFFIX = ".state";
+    static final String SHARED_DIR = "shared";
+
+    private final File dir;
+    private final File sharedDir;
+
+    public FileCheckpointStorage(File dir) {
+        this.dir = dir;
+        this.sharedDir = new File(dir, SHARED_DIR);
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public String writeTaskState(String taskId, TaskStateSnapshot snapshot) {
+        String fileName = taskId + "-" + snapshot.getCheckpointId() + STATE_FILE_SUFFIX;
+        writeObject(new File(sharedDir, fileName), snapshot, snapshot.getCheckpointId());
+        return fileName;
+    }
+
+    public long getStateFileSize(String fileName) {
+        return new File(sharedDir, fileName).length();
+    }
+
+    public TaskStateSnapshot readTaskState(String fileName) {
+        return (TaskStateSnapshot) readObject(new File(sharedDir, fileName));
+    }
+
+    public void commit(CheckpointMetadata metadata) {
+        writeObject(getMetaFile(metadata.getCheckpointId()), metadata, metadata.getCheckpointId());
+    }
+
+    public CheckpointMetadata loadLatest() {
+        List<Long> ids = getCheckpointIds();
+        if (ids.isEmpty())
+            return null;
+        return (CheckpointMetadata) readObject(getMetaFile(ids.get(ids.size() - 1)));
+    }
+
+    /**
+     * 已完成的checkpoint的id，从小到大排列
+     */
+    public List<Long> getCheckpointIds() {
+        List<Long> ids = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files == null)
+            return ids;
+
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(META_FILE_PREFIX) && name.endsWith(META_FILE_SUFFIX)) {
+                try {
+                    ids.add(Long.parseLong(name.substring(META_FILE_PREFIX.length(),
+                            name.length() - META_FILE_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    LOG.warn("nop.stream.checkpoint.ignore-invalid-meta-file:file={}", file);
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * 只保留最近的retainedCount个checkpoint，删除不再被引用的状态文件
+     */
+    public void cleanup(int retainedCount) {
+        List<Long> ids = getCheckpointIds();
+        if (ids.isEmpty())
+            return;
+
+        int removeCount = Math.max(ids.size() - Math.max(retainedCount, 1), 0);
+        for (int i = 0; i < removeCount; i++) {
+            getMetaFile(ids.get(i)).delete();
+        }
+
+        long latestId = ids.get(ids.size() - 1);
+        Set<String> referenced = new HashSet<>();
+        for (int i = removeCount; i < ids.size(); i++) {
+            CheckpointMetadata metadata = (CheckpointMetadata) readObject(getMetaFile(ids.get(i)));
+            for (List<String> chain : metadata.getTaskFiles().values()) {
+                referenced.addAll(chain);
+            }
+        }
+
+        File[] files = sharedDir.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(STATE_FILE_SUFFIX) || referenced.contains(name))
+                continue;
+
+            // 正在进行中的checkpoint写入的文件不能删除
+            long checkpointId = parseCheckpointId(name);
+            if (checkpointId >= 0 && checkpointId <= latestId)
+                file.delete();
+        }
+    }
+
+    static long parseCheckpointId(String fileName) {
+        int end = fileName.length() - STATE_FILE_SUFFIX.length();
+        int pos = fileName.lastIndexOf('-', end);
+        if (pos < 0)
+            return -1;
+        try {
+            return Long.parseLong(fileName.substring(pos + 1, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private File getMetaFile(long checkpointId) {
+        return new File(dir, META_FILE_PREFIX + checkpointId + META_FILE_SUFFIX);
+    }
+
+    private void writeObject(File file, Object obj, long checkpointId) {
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            file.getParentFile().mkdirs();
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath())))) {
+                out.writeObject(obj);
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            tmpFile.delete();
+            throw new NopException(ERR_STREAM_CHECKPOINT_WRITE_FAIL, e).param(ARG_PATH, file.getAbsolutePath())
+                    .param(ARG_CHECKPOINT_ID, checkpointId);
+        }
+    }
+
+    private Object readObject(File file) {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new NopException(ERR_STREAM_CHECKPOINT_READ_FAIL, e).param(ARG_PATH, file.getAbsolutePath());
+        }
+    }
+}
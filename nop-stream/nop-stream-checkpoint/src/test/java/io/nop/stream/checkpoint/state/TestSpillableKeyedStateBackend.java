@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.checkpoint.state;
+
+import io.nop.stream.core.common.state.ListState;
+import io.nop.stream.core.common.state.ListStateDescriptor;
+import io.nop.stream.core.common.state.MapState;
+import io.nop.stream.core.common.state.MapStateDescriptor;
+import io.nop.stream.core.common.state.ValueState;
+import io.nop.stream.core.common.state.ValueStateDescriptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSpillableKeyedStateBackend {
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testSpill() throws Exception {
+        try (SpillableKeyedStateBackend<Integer> backend = new SpillableKeyedStateBackend<>(tempDir, 100)) {
+            ValueState<Long> count = backend.getState(new ValueStateDescriptor<>("count", Long.class));
+            MapState<String, Integer> map = backend.getMapState(
+                    new MapStateDescriptor<>("map", String.class, Integer.class));
+
+            for (int i = 0; i < 1000; i++) {
+                backend.setCurrentKey(i);
+                count.update((long) i);
+                map.put("a", i);
+            }
+
+            assertTrue(backend.getNumMemoryEntries() <= 100);
+            assertTrue(backend.getNumSpilledEntries() > 0);
+            assertTrue(backend.getSpillFileSize() > 0);
+
+            for (int i = 0; i < 1000; i++) {
+                backend.setCurrentKey(i);
+                assertEquals(i, count.value());
+                assertEquals(i, map.get("a"));
+                // 原地修改读回的Map
+                map.put("b", i + 1);
+            }
+
+            for (int i = 999; i >= 0; i--) {
+                backend.setCurrentKey(i);
+                assertEquals(i + 1, map.get("b"));
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalSnapshot() throws Exception {
+        List<KeyedStateSnapshot> snapshots = new ArrayList<>();
+
+        try (SpillableKeyedStateBackend<String> backend = new SpillableKeyedStateBackend<>(tempDir, 16)) {
+            ValueState<Long> count = backend.getState(new ValueStateDescriptor<>("count", Long.class));
+            ListState<String> list = backend.getListState(new ListStateDescriptor<>("list", String.class));
+
+            for (int i = 0; i < 100; i++) {
+                backend.setCurrentKey("k" + i);
+                count.update((long) i);
+                list.add("v" + i);
+            }
+            KeyedStateSnapshot full = backend.snapshot(true);
+            assertEquals(200, full.getEntries().size());
+            snapshots.add(full);
+
+            backend.setCurrentKey("k1");
+            count.update(100L);
+            backend.setCurrentKey("k2");
+            count.clear();
+            list.add("x");
+
+            KeyedStateSnapshot delta = backend.snapshot(false);
+            assertEquals(3, delta.getEntries().size());
+            assertTrue(delta.getByteSize() < full.getByteSize());
+            snapshots.add(delta);
+
+            assertEquals(0, backend.snapshot(false).getEntries().size());
+        }
+
+        try (SpillableKeyedStateBackend<String> backend = new SpillableKeyedStateBackend<>(tempDir, 16)) {
+            for (KeyedStateSnapshot snapshot : snapshots) {
+                backend.restore(snapshot, key -> !"k3".equals(key));
+            }
+
+            ValueState<Long> count = backend.getState(new ValueStateDescriptor<>("count", Long.class));
+            ListState<String> list = backend.getListState(new ListStateDescriptor<>("list", String.class));
+
+            backend.setCurrentKey("k0");
+            assertEquals(0L, count.value());
+            backend.setCurrentKey("k1");
+            assertEquals(100L, count.value());
+            backend.setCurrentKey("k2");
+            assertNull(count.value());
+            List<String> values = new ArrayList<>();
+            list.get().forEach(values::add);
+            assertEquals(List.of("v2", "x"), values);
+            backend.setCurrentKey("k3");
+            assertNull(count.value());
+            backend.setCurrentKey("k99");
+            assertEquals(99L, count.value());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.eventtime;
+
+import java.io.Serializable;
+
+/**
+ * 从数据中抽取事件时间
+ */
+@FunctionalInterface
+public interface TimestampAssigner<T> extends Serializable {
+
+    /**
+     * 表示数据没有携带时间戳
+     */
+    long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    long extractTimestamp(T element, long recordTimestamp);
+}
@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.functions;
+
+/**
+ * 增量聚合函数。窗口中只保存累加器，不需要保存原始数据
+ *
+ * @param <IN>  输入数据类型
+ * @param <ACC> 累加器类型
+ * @param <OUT> 聚合结果类型
+ */
+public interface AggregateFunction<IN, ACC, OUT> extends StreamFunction {
+
+    ACC createAccumulator();
+
+    ACC add(IN value, ACC accumulator);
+
+    OUT getResult(ACC accumulator);
+
+    ACC merge(ACC a, ACC b);
+}
@@ -0,0 +1,16 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.functions;
+
+import io.nop.stream.core.util.Collector;
+
+@FunctionalInterface
+public interface FlatMapFunction<T, O> extends StreamFunction {
+
+    void flatMap(T value, Collector<O> out) throws Exception;
+}
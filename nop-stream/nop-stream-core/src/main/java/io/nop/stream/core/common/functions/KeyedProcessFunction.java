@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.functions;
+
+import io.nop.stream.core.time.TimerService;
+import io.nop.stream.core.util.Collector;
+import io.nop.stream.core.util.OutputTag;
+
+/**
+ * 在KeyedStream上逐条处理数据，可以通过Context访问当前key以及注册定时器。
+ *
+ * @param <K> key的类型
+ * @param <I> 输入数据类型
+ * @param <O> 输出数据类型
+ */
+public abstract class KeyedProcessFunction<K, I, O> extends AbstractRichFunction {
+
+    private static final long serialVersionUID = 1L;
+
+    public abstract void processElement(I value, Context ctx, Collector<O> out) throws Exception;
+
+    public void onTimer(long timestamp, OnTimerContext ctx, Collector<O> out) throws Exception {
+    }
+
+    public abstract class Context {
+
+        /**
+         * 当前处理的数据的时间戳。如果没有时间戳则返回null
+         */
+        public abstract Long timestamp();
+
+        public abstract TimerService timerService();
+
+        public abstract <X> void output(OutputTag<X> outputTag, X value);
+
+        public abstract K getCurrentKey();
+    }
+
+    public abstract class OnTimerContext extends Context {
+
+        /**
+         * 触发的是事件时间定时器还是处理时间定时器
+         */
+        public abstract boolean isEventTime();
+    }
+}
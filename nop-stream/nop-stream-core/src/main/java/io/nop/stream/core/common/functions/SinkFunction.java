@@ -0,0 +1,23 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.functions;
+
+/**
+ * 数据流的终点。并行执行时每个子任务使用各自的SinkFunction副本，需要汇总结果时应写入线程安全的共享存储
+ */
+@FunctionalInterface
+public interface SinkFunction<T> extends StreamFunction {
+
+    void invoke(T value) throws Exception;
+
+    /**
+     * 输入结束时调用
+     */
+    default void finish() throws Exception {
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.state;
+
+/**
+ * 按照当前key隔离的状态存储。通过getState等方法得到的状态对象在读写时总是访问当前key对应的值
+ */
+public interface KeyedStateBackend<K> extends KeyedStateStore {
+
+    void setCurrentKey(K key);
+
+    K getCurrentKey();
+
+    /**
+     * 释放所有状态
+     */
+    void dispose();
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.state;
+
+import java.util.List;
+
+/**
+ * 按照当前key隔离的列表状态
+ */
+public interface ListState<T> extends State {
+
+    /**
+     * 返回当前key对应的所有元素。没有元素时返回空集合
+     */
+    Iterable<T> get();
+
+    void add(T value);
+
+    void addAll(List<T> values);
+
+    /**
+     * 用新的列表替换当前key对应的所有元素
+     */
+    void update(List<T> values);
+}
@@ -0,0 +1,21 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.state;
+
+/**
+ * 按照当前key隔离的聚合状态。加入的值通过ReducingStateDescriptor中指定的累加器合并
+ */
+public interface ReducingState<T> extends State {
+
+    /**
+     * 返回当前key的聚合结果。没有加入过任何值时返回null
+     */
+    T get();
+
+    void add(T value);
+}
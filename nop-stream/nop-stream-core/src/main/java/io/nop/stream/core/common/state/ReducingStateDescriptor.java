@@ -8,6 +8,7 @@
 package io.nop.stream.core.common.state;
 
 import io.nop.stream.core.common.accumulators.SimpleAccumulator;
+import io.nop.stream.core.exceptions.StreamRuntimeException;
 
 public class ReducingStateDescriptor<T> extends StateDescriptor<T> {
     private final Class<? extends SimpleAccumulator<T>> accumulatorType;
@@ -20,4 +21,12 @@ public class ReducingStateDescriptor<T> extends StateDescriptor<T> {
     public Class<? extends SimpleAccumulator<T>> getAccumulatorType() {
         return accumulatorType;
     }
+
+    public SimpleAccumulator<T> createAccumulator() {
+        try {
+            return accumulatorType.getConstructor().newInstance();
+        } catch (Exception e) {
+            throw new StreamRuntimeException("Failed to create accumulator:name=" + getName(), e);
+        }
+    }
 }
@@ -0,0 +1,261 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.common.state.heap;
+
+import io.nop.stream.core.common.accumulators.SimpleAccumulator;
+import io.nop.stream.core.common.state.KeyedStateBackend;
+import io.nop.stream.core.common.state.ListState;
+import io.nop.stream.core.common.state.ListStateDescriptor;
+import io.nop.stream.core.common.state.MapState;
+import io.nop.stream.core.common.state.MapStateDescriptor;
+import io.nop.stream.core.common.state.ReducingState;
+import io.nop.stream.core.common.state.ReducingStateDescriptor;
+import io.nop.stream.core.common.state.ValueState;
+import io.nop.stream.core.common.state.ValueStateDescriptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 状态全部保存在内存中。每个状态对应一个以key为键的Map，同一个backend只能在单个线程中访问
+ */
+public class HeapKeyedStateBackend<K> implements KeyedStateBackend<K> {
+    private final Map<String, Map<K, Object>> tables = new HashMap<>();
+
+    private K currentKey;
+
+    @Override
+    public void setCurrentKey(K key) {
+        this.currentKey = key;
+    }
+
+    @Override
+    public K getCurrentKey() {
+        return currentKey;
+    }
+
+    @Override
+    public void dispose() {
+        tables.clear();
+    }
+
+    /**
+     * 所有状态中出现过的key的个数(同一个key在多个状态中出现时会被重复计数)
+     */
+    public int numKeyedStateEntries() {
+        int count = 0;
+        for (Map<K, Object> table : tables.values()) {
+            count += table.size();
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> Map<K, V> getTable(String name) {
+        return (Map<K, V>) tables.computeIfAbsent(name, k -> new HashMap<>());
+    }
+
+    @Override
+    public <T> ValueState<T> getState(ValueStateDescriptor<T> stateProperties) {
+        return new HeapValueState<>(getTable(stateProperties.getName()));
+    }
+
+    @Override
+    public <UK, UV> MapState<UK, UV> getMapState(MapStateDescriptor<UK, UV> stateProperties) {
+        return new HeapMapState<>(getTable(stateProperties.getName()));
+    }
+
+    @Override
+    public <T> ListState<T> getListState(ListStateDescriptor<T> stateProperties) {
+        return new HeapListState<>(getTable(stateProperties.getName()));
+    }
+
+    @Override
+    public <T> ReducingState<T> getReducingState(ReducingStateDescriptor<T> stateProperties) {
+        return new HeapReducingState<>(getTable(stateProperties.getName()), stateProperties);
+    }
+
+    class HeapValueState<T> implements ValueState<T> {
+        private final Map<K, T> table;
+
+        HeapValueState(Map<K, T> table) {
+            this.table = table;
+        }
+
+        @Override
+        public T value() {
+            return table.get(currentKey);
+        }
+
+        @Override
+        public void update(T value) {
+            if (value == null) {
+                table.remove(currentKey);
+            } else {
+                table.put(currentKey, value);
+            }
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+
+    class HeapMapState<UK, UV> implements MapState<UK, UV> {
+        private final Map<K, Map<UK, UV>> table;
+
+        HeapMapState(Map<K, Map<UK, UV>> table) {
+            this.table = table;
+        }
+
+        private Map<UK, UV> getMap() {
+            return table.get(currentKey);
+        }
+
+        private Map<UK, UV> makeMap() {
+            return table.computeIfAbsent(currentKey, k -> new HashMap<>());
+        }
+
+        @Override
+        public UV get(UK key) {
+            Map<UK, UV> map = getMap();
+            return map == null ? null : map.get(key);
+        }
+
+        @Override
+        public void put(UK key, UV value) {
+            makeMap().put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<UK, UV> map) {
+            makeMap().putAll(map);
+        }
+
+        @Override
+        public void remove(UK key) {
+            Map<UK, UV> map = getMap();
+            if (map == null)
+                return;
+            map.remove(key);
+            if (map.isEmpty())
+                table.remove(currentKey);
+        }
+
+        @Override
+        public boolean contains(UK key) {
+            Map<UK, UV> map = getMap();
+            return map != null && map.containsKey(key);
+        }
+
+        @Override
+        public Iterable<Map.Entry<UK, UV>> entries() {
+            Map<UK, UV> map = getMap();
+            return map == null ? Collections.emptyList() : map.entrySet();
+        }
+
+        @Override
+        public Iterable<UK> keys() {
+            Map<UK, UV> map = getMap();
+            return map == null ? Collections.emptyList() : map.keySet();
+        }
+
+        @Override
+        public Iterable<UV> values() {
+            Map<UK, UV> map = getMap();
+            return map == null ? Collections.emptyList() : map.values();
+        }
+
+        @Override
+        public Iterator<Map.Entry<UK, UV>> iterator() {
+            return entries().iterator();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            Map<UK, UV> map = getMap();
+            return map == null || map.isEmpty();
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+
+    class HeapListState<T> implements ListState<T> {
+        private final Map<K, List<T>> table;
+
+        HeapListState(Map<K, List<T>> table) {
+            this.table = table;
+        }
+
+        @Override
+        public Iterable<T> get() {
+            List<T> list = table.get(currentKey);
+            return list == null ? Collections.emptyList() : list;
+        }
+
+        @Override
+        public void add(T value) {
+            table.computeIfAbsent(currentKey, k -> new ArrayList<>()).add(value);
+        }
+
+        @Override
+        public void addAll(List<T> values) {
+            if (values == null || values.isEmpty())
+                return;
+            table.computeIfAbsent(currentKey, k -> new ArrayList<>()).addAll(values);
+        }
+
+        @Override
+        public void update(List<T> values) {
+            if (values == null || values.isEmpty()) {
+                table.remove(currentKey);
+            } else {
+                table.put(currentKey, new ArrayList<>(values));
+            }
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+
+    class HeapReducingState<T> implements ReducingState<T> {
+        private final Map<K, SimpleAccumulator<T>> table;
+        private final ReducingStateDescriptor<T> descriptor;
+
+        HeapReducingState(Map<K, SimpleAccumulator<T>> table, ReducingStateDescriptor<T> descriptor) {
+            this.table = table;
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public T get() {
+            SimpleAccumulator<T> acc = table.get(currentKey);
+            return acc == null ? null : acc.getLocalValue();
+        }
+
+        @Override
+        public void add(T value) {
+            table.computeIfAbsent(currentKey, k -> descriptor.createAccumulator()).add(value);
+        }
+
+        @Override
+        public void clear() {
+            table.remove(currentKey);
+        }
+    }
+}
@@ -7,16 +7,23 @@
  */
 package io.nop.stream.core.common.state.simple;
 
+import io.nop.stream.core.common.accumulators.SimpleAccumulator;
 import io.nop.stream.core.common.state.KeyedStateStore;
+import io.nop.stream.core.common.state.ListState;
+import io.nop.stream.core.common.state.ListStateDescriptor;
 import io.nop.stream.core.common.state.MapState;
 import io.nop.stream.core.common.state.MapStateDescriptor;
+import io.nop.stream.core.common.state.ReducingState;
+import io.nop.stream.core.common.state.ReducingStateDescriptor;
 import io.nop.stream.core.common.state.ValueState;
 import io.nop.stream.core.common.state.ValueStateDescriptor;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public class SimpleKeyedStateStore implements KeyedStateStore {
@@ -177,6 +184,82 @@ public class SimpleKeyedStateStore implements KeyedStateStore {
         };
     }
 
+    @Override
+    public <T> ListState<T> getListState(ListStateDescriptor<T> stateProperties) {
+        return new ListState<T>() {
+
+            private List<T> values;
+
+            @Override
+            public Iterable<T> get() {
+                stateReads++;
+                if (values == null) {
+                    return Collections.emptyList();
+                }
+                return values;
+            }
+
+            @Override
+            public void add(T value) {
+                stateWrites++;
+                if (values == null) {
+                    values = new ArrayList<>();
+                }
+                values.add(value);
+            }
+
+            @Override
+            public void addAll(List<T> list) {
+                stateWrites++;
+                if (values == null) {
+                    values = new ArrayList<>();
+                }
+                values.addAll(list);
+            }
+
+            @Override
+            public void update(List<T> list) {
+                stateWrites++;
+                values = list == null || list.isEmpty() ? null : new ArrayList<>(list);
+            }
+
+            @Override
+            public void clear() {
+                stateWrites++;
+                values = null;
+            }
+        };
+    }
+
+    @Override
+    public <T> ReducingState<T> getReducingState(ReducingStateDescriptor<T> stateProperties) {
+        return new ReducingState<T>() {
+
+            private SimpleAccumulator<T> acc;
+
+            @Override
+            public T get() {
+                stateReads++;
+                return acc == null ? null : acc.getLocalValue();
+            }
+
+            @Override
+            public void add(T value) {
+                stateWrites++;
+                if (acc == null) {
+                    acc = stateProperties.createAccumulator();
+                }
+                acc.add(value);
+            }
+
+            @Override
+            public void clear() {
+                stateWrites++;
+                acc = null;
+            }
+        };
+    }
+
     private class CountingIterator<T> implements Iterator<T> {
 
         private final Iterator<T> iterator;
@@ -7,9 +7,21 @@
  */
 package io.nop.stream.core.datastream;
 
+import io.nop.stream.core.common.eventtime.TimestampAssigner;
+import io.nop.stream.core.common.functions.FilterFunction;
+import io.nop.stream.core.common.functions.FlatMapFunction;
 import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.common.functions.MapFunction;
+import io.nop.stream.core.common.functions.SinkFunction;
 import io.nop.stream.core.operators.OneInputStreamOperator;
 import io.nop.stream.core.common.typeinfo.TypeInformation;
+import io.nop.stream.core.operators.StreamFilter;
+import io.nop.stream.core.operators.StreamFlatMap;
+import io.nop.stream.core.operators.StreamMap;
+import io.nop.stream.core.operators.StreamSink;
+import io.nop.stream.core.operators.TimestampsAndWatermarksOperator;
+
+import java.time.Duration;
 
 public interface DataStream<T> {
     TypeInformation<T> getType();
@@ -38,4 +50,32 @@ public interface DataStream<T> {
             String operatorName,
             TypeInformation<R> outTypeInfo,
             OneInputStreamOperator<T, R> operator);
+
+    default <R> SingleOutputStreamOperator<R> map(MapFunction<T, R> mapper) {
+        return transform("Map", null, new StreamMap<>(mapper));
+    }
+
+    default SingleOutputStreamOperator<T> filter(FilterFunction<T> filter) {
+        return transform("Filter", getType(), new StreamFilter<>(filter));
+    }
+
+    default <R> SingleOutputStreamOperator<R> flatMap(FlatMapFunction<T, R> flatMapper) {
+        return transform("Flat Map", null, new StreamFlatMap<>(flatMapper));
+    }
+
+    /**
+     * 为数据设置事件时间，并按照允许的最大乱序时间生成watermark
+     *
+     * @param watermarkInterval 周期性发出watermark的时间间隔。为0时每条数据之后都检查是否需要推进watermark
+     */
+    default SingleOutputStreamOperator<T> assignTimestampsAndWatermarks(
+            TimestampAssigner<T> timestampAssigner, Duration maxOutOfOrderness, Duration watermarkInterval) {
+        return transform("Timestamps/Watermarks", getType(),
+                new TimestampsAndWatermarksOperator<>(timestampAssigner, maxOutOfOrderness.toMillis(),
+                        watermarkInterval.toMillis()));
+    }
+
+    default void addSink(SinkFunction<T> sinkFunction) {
+        transform("Sink", null, new StreamSink<>(sinkFunction));
+    }
 }
@@ -7,5 +7,18 @@
  */
 package io.nop.stream.core.datastream;
 
+import io.nop.stream.core.common.functions.KeyedProcessFunction;
+import io.nop.stream.core.operators.KeyedProcessOperator;
+import io.nop.stream.core.windowing.assigners.WindowAssigner;
+import io.nop.stream.core.windowing.windows.Window;
+
 public interface KeyedStream<T, KEY> extends DataStream<T> {
+
+    default <R> SingleOutputStreamOperator<R> process(KeyedProcessFunction<KEY, T, R> keyedProcessFunction) {
+        return transform("KeyedProcess", null, new KeyedProcessOperator<>(keyedProcessFunction));
+    }
+
+    default <W extends Window> WindowedStream<T, KEY, W> window(WindowAssigner<? super T, W> assigner) {
+        return new WindowedStream<>(this, assigner);
+    }
 }
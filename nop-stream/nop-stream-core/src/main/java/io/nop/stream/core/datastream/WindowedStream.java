@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.datastream;
+
+import io.nop.stream.core.common.functions.AggregateFunction;
+import io.nop.stream.core.util.OutputTag;
+import io.nop.stream.core.windowing.assigners.WindowAssigner;
+import io.nop.stream.core.windowing.functions.WindowFunction;
+import io.nop.stream.core.windowing.operators.WindowOperator;
+import io.nop.stream.core.windowing.triggers.Trigger;
+import io.nop.stream.core.windowing.windows.Window;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 在KeyedStream上按照WindowAssigner划分窗口，通过aggregate方法生成窗口聚合算子
+ */
+public class WindowedStream<T, K, W extends Window> {
+    private final KeyedStream<T, K> input;
+    private final WindowAssigner<? super T, W> windowAssigner;
+    private Trigger<? super T, ? super W> trigger;
+    private long allowedLateness;
+    private OutputTag<T> lateDataOutputTag;
+
+    public WindowedStream(KeyedStream<T, K> input, WindowAssigner<? super T, W> windowAssigner) {
+        this.input = requireNonNull(input);
+        this.windowAssigner = requireNonNull(windowAssigner);
+        this.trigger = windowAssigner.getDefaultTrigger(null);
+    }
+
+    public WindowedStream<T, K, W> trigger(Trigger<? super T, ? super W> trigger) {
+        this.trigger = requireNonNull(trigger);
+        return this;
+    }
+
+    public WindowedStream<T, K, W> allowedLateness(Duration lateness) {
+        this.allowedLateness = lateness.toMillis();
+        return this;
+    }
+
+    public WindowedStream<T, K, W> sideOutputLateData(OutputTag<T> outputTag) {
+        this.lateDataOutputTag = outputTag;
+        return this;
+    }
+
+    public <ACC, R> SingleOutputStreamOperator<R> aggregate(AggregateFunction<T, ACC, R> function) {
+        return aggregate(function, (key, window, input, out) -> out.collect(input));
+    }
+
+    public <ACC, V, R> SingleOutputStreamOperator<R> aggregate(AggregateFunction<T, ACC, V> aggregateFunction,
+                                                               WindowFunction<V, R, K, W> windowFunction) {
+        WindowOperator<K, T, ACC, V, R, W> operator = new WindowOperator<>(windowAssigner, trigger,
+                aggregateFunction, windowFunction, allowedLateness, lateDataOutputTag);
+        return input.transform("Window(" + windowAssigner + ", " + trigger + ")", null, operator);
+    }
+}
@@ -8,17 +8,67 @@
 package io.nop.stream.core.operators;
 
 import io.nop.stream.core.common.eventtime.IndexedCombinedWatermarkStatus;
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.common.state.KeyedStateBackend;
+import io.nop.stream.core.common.state.KeyedStateStore;
+import io.nop.stream.core.exceptions.StreamRuntimeException;
 import io.nop.stream.core.streamrecord.LatencyMarker;
 import io.nop.stream.core.streamrecord.StreamRecord;
 import io.nop.stream.core.streamrecord.watermark.Watermark;
 import io.nop.stream.core.streamrecord.watermark.WatermarkStatus;
 
 public abstract class AbstractStreamOperator<OUT> implements StreamOperator<OUT> {
+    private static final long serialVersionUID = 1L;
+
     protected transient Output<StreamRecord<OUT>> output;
 
     protected transient ProcessingTimeService processingTimeService;
     private transient IndexedCombinedWatermarkStatus combinedWatermark;
 
+    private transient String operatorName;
+    private transient int subtaskIndex;
+    private transient int parallelism;
+    private transient KeySelector<Object, Object> stateKeySelector;
+    private transient KeyedStateBackend<Object> keyedStateBackend;
+    private transient InternalTimeServiceManager<Object> timeServiceManager;
+    private transient StreamingRuntimeContext runtimeContext;
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setup(StreamOperatorParameters<OUT> parameters) {
+        this.operatorName = parameters.getOperatorName();
+        this.subtaskIndex = parameters.getSubtaskIndex();
+        this.parallelism = parameters.getParallelism();
+        this.output = parameters.getOutput();
+        this.processingTimeService = parameters.getProcessingTimeService();
+        this.stateKeySelector = (KeySelector<Object, Object>) parameters.getStateKeySelector();
+        this.keyedStateBackend = (KeyedStateBackend<Object>) parameters.getKeyedStateBackend();
+        this.timeServiceManager = (InternalTimeServiceManager<Object>) parameters.getTimeServiceManager();
+        this.combinedWatermark = IndexedCombinedWatermarkStatus.forInputsCount(2);
+        this.runtimeContext = new StreamingRuntimeContext(operatorName, subtaskIndex, parallelism,
+                keyedStateBackend);
+    }
+
+    @Override
+    public void open() throws Exception {
+
+    }
+
+    @Override
+    public void finish() throws Exception {
+
+    }
+
+    @Override
+    public void close() throws Exception {
+
+    }
+
+    @Override
+    public void notifyCheckpointComplete(long checkpointId) throws Exception {
+
+    }
+
     public Output<StreamRecord<OUT>> getOutput() {
         return output;
     }
@@ -27,6 +77,44 @@ public abstract class AbstractStreamOperator<OUT> implements StreamOperator<OUT>
         return processingTimeService;
     }
 
+    public StreamingRuntimeContext getRuntimeContext() {
+        return runtimeContext;
+    }
+
+    public String getOperatorName() {
+        return operatorName;
+    }
+
+    public int getSubtaskIndex() {
+        return subtaskIndex;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isKeyed() {
+        return keyedStateBackend != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K> KeyedStateBackend<K> getKeyedStateBackend() {
+        return (KeyedStateBackend<K>) keyedStateBackend;
+    }
+
+    public KeyedStateStore getKeyedStateStore() {
+        if (keyedStateBackend == null)
+            throw new StreamRuntimeException("Keyed state can only be used on a keyed stream:operator=" + operatorName);
+        return keyedStateBackend;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, N> InternalTimerService<N> getInternalTimerService(String name, Triggerable<K, N> triggerable) {
+        if (timeServiceManager == null)
+            throw new StreamRuntimeException("Timers can only be used on a keyed stream:operator=" + operatorName);
+        return timeServiceManager.getInternalTimerService(name, (Triggerable<Object, N>) triggerable);
+    }
+
     @Override
     public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
 
@@ -34,22 +122,31 @@ public abstract class AbstractStreamOperator<OUT> implements StreamOperator<OUT>
 
     @Override
     public void setKeyContextElement1(StreamRecord<?> record) throws Exception {
-
+        setKeyContextElement(record, stateKeySelector);
     }
 
     @Override
     public void setKeyContextElement2(StreamRecord<?> record) throws Exception {
+        setKeyContextElement(record, stateKeySelector);
+    }
 
+    @SuppressWarnings("unchecked")
+    private void setKeyContextElement(StreamRecord record, KeySelector<Object, Object> selector) throws Exception {
+        if (selector != null) {
+            setCurrentKey(selector.getKey(record.getValue()));
+        }
     }
 
     @Override
     public void setCurrentKey(Object key) {
-
+        if (keyedStateBackend == null)
+            throw new StreamRuntimeException("Setting a key is only supported on a keyed stream:operator=" + operatorName);
+        keyedStateBackend.setCurrentKey(key);
     }
 
     @Override
     public Object getCurrentKey() {
-        return null;
+        return keyedStateBackend == null ? null : keyedStateBackend.getCurrentKey();
     }
 
 
@@ -76,9 +173,9 @@ public abstract class AbstractStreamOperator<OUT> implements StreamOperator<OUT>
     }
 
     public void processWatermark(Watermark mark) throws Exception {
-//        if (timeServiceManager != null) {
-//            timeServiceManager.advanceWatermark(mark);
-//        }
+        if (timeServiceManager != null) {
+            timeServiceManager.advanceWatermark(mark);
+        }
         output.emitWatermark(mark);
     }
 
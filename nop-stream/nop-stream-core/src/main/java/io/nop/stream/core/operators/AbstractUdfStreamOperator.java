@@ -60,14 +60,11 @@ public abstract class AbstractUdfStreamOperator<OUT, F extends StreamFunction>
     //  operator life cycle
     // ------------------------------------------------------------------------
 
-//    @Override
-//    public void setup(
-//            StreamTask<?, ?> containingTask,
-//            StreamConfig config,
-//            Output<StreamRecord<OUT>> output) {
-//        super.setup(containingTask, config, output);
-//        FunctionUtils.setFunctionRuntimeContext(userFunction, getRuntimeContext());
-//    }
+    @Override
+    public void setup(StreamOperatorParameters<OUT> parameters) {
+        super.setup(parameters);
+        FunctionUtils.setFunctionRuntimeContext(userFunction, getRuntimeContext());
+    }
 
 //    @Override
 //    public void snapshotState(StateSnapshotContext context) throws Exception {
@@ -84,13 +81,14 @@ public abstract class AbstractUdfStreamOperator<OUT, F extends StreamFunction>
 
     @Override
     public void open() throws Exception {
-        //super.open();
-        // FunctionUtils.openFunction(userFunction, new Configuration());
+        super.open();
+        // 目前没有算子级别的配置参数
+        FunctionUtils.openFunction(userFunction, null);
     }
 
     @Override
     public void finish() throws Exception {
-        //super.finish();
+        super.finish();
 //        if (userFunction instanceof SinkFunction) {
 //            ((SinkFunction<?>) userFunction).finish();
 //        }
@@ -98,7 +96,7 @@ public abstract class AbstractUdfStreamOperator<OUT, F extends StreamFunction>
 
     @Override
     public void close() throws Exception {
-        //super.close();
+        super.close();
         FunctionUtils.closeFunction(userFunction);
     }
 
@@ -108,7 +106,7 @@ public abstract class AbstractUdfStreamOperator<OUT, F extends StreamFunction>
 
     @Override
     public void notifyCheckpointComplete(long checkpointId) throws Exception {
-        //super.notifyCheckpointComplete(checkpointId);
+        super.notifyCheckpointComplete(checkpointId);
 
         if (userFunction instanceof CheckpointListener) {
             ((CheckpointListener) userFunction).notifyCheckpointComplete(checkpointId);
@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+
+/**
+ * 管理一个keyed算子的所有定时器服务。watermark到达时由算子调用advanceWatermark触发所有到期的事件时间定时器
+ */
+public interface InternalTimeServiceManager<K> {
+
+    <N> InternalTimerService<N> getInternalTimerService(String name, Triggerable<K, N> triggerable);
+
+    void advanceWatermark(Watermark watermark) throws Exception;
+
+    /**
+     * 当前已经注册尚未触发的定时器个数
+     */
+    int numTimers();
+}
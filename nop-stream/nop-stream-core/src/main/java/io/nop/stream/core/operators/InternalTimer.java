@@ -0,0 +1,19 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+/**
+ * 注册到{@link InternalTimerService}中的定时器，与注册时的key和namespace绑定
+ */
+public interface InternalTimer<K, N> {
+    long getTimestamp();
+
+    K getKey();
+
+    N getNamespace();
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.common.functions.KeyedProcessFunction;
+import io.nop.stream.core.common.state.VoidNamespace;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.time.TimerService;
+import io.nop.stream.core.util.OutputTag;
+
+/**
+ * 执行{@link KeyedProcessFunction}，定时器按照key注册，触发时调用onTimer
+ */
+public class KeyedProcessOperator<K, IN, OUT>
+        extends AbstractUdfStreamOperator<OUT, KeyedProcessFunction<K, IN, OUT>>
+        implements OneInputStreamOperator<IN, OUT>, Triggerable<K, VoidNamespace> {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient TimestampedCollector<OUT> collector;
+
+    private transient ContextImpl context;
+
+    private transient OnTimerContextImpl onTimerContext;
+
+    public KeyedProcessOperator(KeyedProcessFunction<K, IN, OUT> function) {
+        super(function);
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        collector = new TimestampedCollector<>(output);
+
+        InternalTimerService<VoidNamespace> internalTimerService =
+                getInternalTimerService("user-timers", this);
+
+        TimerService timerService = new SimpleTimerService(internalTimerService);
+
+        context = new ContextImpl(userFunction, timerService);
+        onTimerContext = new OnTimerContextImpl(userFunction, timerService);
+    }
+
+    @Override
+    public void onEventTime(InternalTimer<K, VoidNamespace> timer) throws Exception {
+        collector.setAbsoluteTimestamp(timer.getTimestamp());
+        invokeUserFunction(true, timer);
+    }
+
+    @Override
+    public void onProcessingTime(InternalTimer<K, VoidNamespace> timer) throws Exception {
+        collector.eraseTimestamp();
+        invokeUserFunction(false, timer);
+    }
+
+    @Override
+    public void processElement(StreamRecord<IN> element) throws Exception {
+        collector.setTimestamp(element);
+        context.element = element;
+        userFunction.processElement(element.getValue(), context, collector);
+        context.element = null;
+    }
+
+    private void invokeUserFunction(boolean eventTime, InternalTimer<K, VoidNamespace> timer) throws Exception {
+        onTimerContext.eventTime = eventTime;
+        onTimerContext.timer = timer;
+        userFunction.onTimer(timer.getTimestamp(), onTimerContext, collector);
+        onTimerContext.timer = null;
+    }
+
+    static class SimpleTimerService implements TimerService {
+        private final InternalTimerService<VoidNamespace> internalTimerService;
+
+        SimpleTimerService(InternalTimerService<VoidNamespace> internalTimerService) {
+            this.internalTimerService = internalTimerService;
+        }
+
+        @Override
+        public long currentProcessingTime() {
+            return internalTimerService.currentProcessingTime();
+        }
+
+        @Override
+        public long currentWatermark() {
+            return internalTimerService.currentWatermark();
+        }
+
+        @Override
+        public void registerProcessingTimeTimer(long time) {
+            internalTimerService.registerProcessingTimeTimer(VoidNamespace.INSTANCE, time);
+        }
+
+        @Override
+        public void registerEventTimeTimer(long time) {
+            internalTimerService.registerEventTimeTimer(VoidNamespace.INSTANCE, time);
+        }
+
+        @Override
+        public void deleteProcessingTimeTimer(long time) {
+            internalTimerService.deleteProcessingTimeTimer(VoidNamespace.INSTANCE, time);
+        }
+
+        @Override
+        public void deleteEventTimeTimer(long time) {
+            internalTimerService.deleteEventTimeTimer(VoidNamespace.INSTANCE, time);
+        }
+    }
+
+    private class ContextImpl extends KeyedProcessFunction<K, IN, OUT>.Context {
+        private final TimerService timerService;
+
+        private StreamRecord<IN> element;
+
+        ContextImpl(KeyedProcessFunction<K, IN, OUT> function, TimerService timerService) {
+            function.super();
+            this.timerService = timerService;
+        }
+
+        @Override
+        public Long timestamp() {
+            if (element != null && element.hasTimestamp())
+                return element.getTimestamp();
+            return null;
+        }
+
+        @Override
+        public TimerService timerService() {
+            return timerService;
+        }
+
+        @Override
+        public <X> void output(OutputTag<X> outputTag, X value) {
+            output.collect(outputTag, new StreamRecord<>(value, element.getTimestamp()));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K getCurrentKey() {
+            return (K) KeyedProcessOperator.this.getCurrentKey();
+        }
+    }
+
+    private class OnTimerContextImpl extends KeyedProcessFunction<K, IN, OUT>.OnTimerContext {
+        private final TimerService timerService;
+
+        private boolean eventTime;
+
+        private InternalTimer<K, VoidNamespace> timer;
+
+        OnTimerContextImpl(KeyedProcessFunction<K, IN, OUT> function, TimerService timerService) {
+            function.super();
+            this.timerService = timerService;
+        }
+
+        @Override
+        public Long timestamp() {
+            return timer.getTimestamp();
+        }
+
+        @Override
+        public TimerService timerService() {
+            return timerService;
+        }
+
+        @Override
+        public <X> void output(OutputTag<X> outputTag, X value) {
+            output.collect(outputTag, new StreamRecord<>(value, timer.getTimestamp()));
+        }
+
+        @Override
+        public K getCurrentKey() {
+            return timer.getKey();
+        }
+
+        @Override
+        public boolean isEventTime() {
+            return eventTime;
+        }
+    }
+}
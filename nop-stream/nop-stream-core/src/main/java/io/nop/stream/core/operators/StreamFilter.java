@@ -0,0 +1,27 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.common.functions.FilterFunction;
+import io.nop.stream.core.streamrecord.StreamRecord;
+
+public class StreamFilter<IN> extends AbstractUdfStreamOperator<IN, FilterFunction<IN>>
+        implements OneInputStreamOperator<IN, IN> {
+    private static final long serialVersionUID = 1L;
+
+    public StreamFilter(FilterFunction<IN> filterFunction) {
+        super(filterFunction);
+    }
+
+    @Override
+    public void processElement(StreamRecord<IN> element) throws Exception {
+        if (userFunction.filter(element.getValue())) {
+            output.collect(element);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.common.functions.MapFunction;
+import io.nop.stream.core.streamrecord.StreamRecord;
+
+public class StreamMap<IN, OUT> extends AbstractUdfStreamOperator<OUT, MapFunction<IN, OUT>>
+        implements OneInputStreamOperator<IN, OUT> {
+    private static final long serialVersionUID = 1L;
+
+    public StreamMap(MapFunction<IN, OUT> mapper) {
+        super(mapper);
+    }
+
+    @Override
+    public void processElement(StreamRecord<IN> element) throws Exception {
+        output.collect(element.replace(userFunction.map(element.getValue())));
+    }
+}
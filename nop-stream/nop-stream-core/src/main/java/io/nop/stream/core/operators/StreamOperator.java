@@ -43,6 +43,12 @@ public interface StreamOperator<OUT> extends CheckpointListener, KeyContext, Ser
     //  life cycle
     // ------------------------------------------------------------------------
 
+    /**
+     * Initializes the operator with its output, time service and (for keyed operators) the keyed
+     * state backend. Called by the runtime once before {@link #open()}.
+     */
+    void setup(StreamOperatorParameters<OUT> parameters);
+
     /**
      * This method is called immediately before any elements are processed, it should contain the
      * operator's initialization logic.
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.common.state.KeyedStateBackend;
+import io.nop.stream.core.streamrecord.StreamRecord;
+
+/**
+ * 运行时在调用{@link StreamOperator#open()}之前通过setup传入的执行环境。非keyed算子的keyedStateBackend等为null
+ */
+public class StreamOperatorParameters<OUT> {
+    private final String operatorName;
+    private final int subtaskIndex;
+    private final int parallelism;
+    private final Output<StreamRecord<OUT>> output;
+    private final ProcessingTimeService processingTimeService;
+    private final KeySelector<?, ?> stateKeySelector;
+    private final KeyedStateBackend<?> keyedStateBackend;
+    private final InternalTimeServiceManager<?> timeServiceManager;
+
+    public StreamOperatorParameters(String operatorName, int subtaskIndex, int parallelism,
+                                    Output<StreamRecord<OUT>> output,
+                                    ProcessingTimeService processingTimeService,
+                                    KeySelector<?, ?> stateKeySelector,
+                                    KeyedStateBackend<?> keyedStateBackend,
+                                    InternalTimeServiceManager<?> timeServiceManager) {
+        this.operatorName = operatorName;
+        this.subtaskIndex = subtaskIndex;
+        this.parallelism = parallelism;
+        this.output = output;
+        this.processingTimeService = processingTimeService;
+        this.stateKeySelector = stateKeySelector;
+        this.keyedStateBackend = keyedStateBackend;
+        this.timeServiceManager = timeServiceManager;
+    }
+
+    public String getOperatorName() {
+        return operatorName;
+    }
+
+    public int getSubtaskIndex() {
+        return subtaskIndex;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Output<StreamRecord<OUT>> getOutput() {
+        return output;
+    }
+
+    public ProcessingTimeService getProcessingTimeService() {
+        return processingTimeService;
+    }
+
+    public KeySelector<?, ?> getStateKeySelector() {
+        return stateKeySelector;
+    }
+
+    public KeyedStateBackend<?> getKeyedStateBackend() {
+        return keyedStateBackend;
+    }
+
+    public InternalTimeServiceManager<?> getTimeServiceManager() {
+        return timeServiceManager;
+    }
+}
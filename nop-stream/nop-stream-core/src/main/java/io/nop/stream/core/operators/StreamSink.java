@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.common.functions.SinkFunction;
+import io.nop.stream.core.streamrecord.LatencyMarker;
+import io.nop.stream.core.streamrecord.StreamRecord;
+
+public class StreamSink<IN> extends AbstractUdfStreamOperator<Object, SinkFunction<IN>>
+        implements OneInputStreamOperator<IN, Object> {
+    private static final long serialVersionUID = 1L;
+
+    public StreamSink(SinkFunction<IN> sinkFunction) {
+        super(sinkFunction);
+    }
+
+    @Override
+    public void processElement(StreamRecord<IN> element) throws Exception {
+        userFunction.invoke(element.getValue());
+    }
+
+    @Override
+    public void finish() throws Exception {
+        super.finish();
+        userFunction.finish();
+    }
+
+    @Override
+    protected void reportOrForwardLatencyMarker(LatencyMarker marker) {
+        // sink是数据流的终点，不再向下游转发
+    }
+}
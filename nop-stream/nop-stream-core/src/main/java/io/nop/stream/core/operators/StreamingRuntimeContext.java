@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.common.functions.RuntimeContext;
+import io.nop.stream.core.common.state.KeyedStateStore;
+import io.nop.stream.core.common.state.ListState;
+import io.nop.stream.core.common.state.ListStateDescriptor;
+import io.nop.stream.core.common.state.MapState;
+import io.nop.stream.core.common.state.MapStateDescriptor;
+import io.nop.stream.core.common.state.ReducingState;
+import io.nop.stream.core.common.state.ReducingStateDescriptor;
+import io.nop.stream.core.common.state.ValueState;
+import io.nop.stream.core.common.state.ValueStateDescriptor;
+import io.nop.stream.core.exceptions.StreamRuntimeException;
+
+/**
+ * 算子传递给用户函数的运行时上下文，提供当前子任务的基本信息。keyed算子中的用户函数可以通过它访问当前key对应的状态
+ */
+public class StreamingRuntimeContext implements RuntimeContext {
+    private final String taskName;
+    private final int indexOfThisSubtask;
+    private final int numberOfParallelSubtasks;
+    private final KeyedStateStore keyedStateStore;
+
+    public StreamingRuntimeContext(String taskName, int indexOfThisSubtask, int numberOfParallelSubtasks,
+                                   KeyedStateStore keyedStateStore) {
+        this.taskName = taskName;
+        this.indexOfThisSubtask = indexOfThisSubtask;
+        this.numberOfParallelSubtasks = numberOfParallelSubtasks;
+        this.keyedStateStore = keyedStateStore;
+    }
+
+    public StreamingRuntimeContext(String taskName, int indexOfThisSubtask, int numberOfParallelSubtasks) {
+        this(taskName, indexOfThisSubtask, numberOfParallelSubtasks, null);
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public int getIndexOfThisSubtask() {
+        return indexOfThisSubtask;
+    }
+
+    public int getNumberOfParallelSubtasks() {
+        return numberOfParallelSubtasks;
+    }
+
+    public KeyedStateStore getKeyedStateStore() {
+        if (keyedStateStore == null)
+            throw new StreamRuntimeException("Keyed state can only be used on a keyed stream:task=" + taskName);
+        return keyedStateStore;
+    }
+
+    public <T> ValueState<T> getState(ValueStateDescriptor<T> stateProperties) {
+        return getKeyedStateStore().getState(stateProperties);
+    }
+
+    public <T> ListState<T> getListState(ListStateDescriptor<T> stateProperties) {
+        return getKeyedStateStore().getListState(stateProperties);
+    }
+
+    public <T> ReducingState<T> getReducingState(ReducingStateDescriptor<T> stateProperties) {
+        return getKeyedStateStore().getReducingState(stateProperties);
+    }
+
+    public <UK, UV> MapState<UK, UV> getMapState(MapStateDescriptor<UK, UV> stateProperties) {
+        return getKeyedStateStore().getMapState(stateProperties);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+import io.nop.stream.core.common.eventtime.TimestampAssigner;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+
+/**
+ * 为数据设置事件时间，并按照允许的最大乱序时间(bounded out-of-orderness)生成watermark。
+ * watermarkInterval大于0时按照处理时间周期性发出watermark，否则每条数据之后都检查是否需要推进watermark。
+ * 上游的watermark被忽略，只转发表示输入结束的MAX_WATERMARK。
+ */
+public class TimestampsAndWatermarksOperator<T> extends AbstractStreamOperator<T>
+        implements OneInputStreamOperator<T, T>, ProcessingTimeService.ProcessingTimeCallback {
+    private static final long serialVersionUID = 1L;
+
+    private final TimestampAssigner<T> timestampAssigner;
+    private final long maxOutOfOrderness;
+    private final long watermarkInterval;
+
+    private transient long maxTimestamp;
+    private transient long currentWatermark;
+
+    public TimestampsAndWatermarksOperator(TimestampAssigner<T> timestampAssigner,
+                                           long maxOutOfOrderness, long watermarkInterval) {
+        this.timestampAssigner = timestampAssigner;
+        this.maxOutOfOrderness = maxOutOfOrderness;
+        this.watermarkInterval = watermarkInterval;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        maxTimestamp = Long.MIN_VALUE + maxOutOfOrderness + 1;
+        currentWatermark = Long.MIN_VALUE;
+
+        if (watermarkInterval > 0) {
+            long now = processingTimeService.getCurrentProcessingTime();
+            processingTimeService.registerTimer(now + watermarkInterval, this);
+        }
+    }
+
+    @Override
+    public void processElement(StreamRecord<T> element) throws Exception {
+        T value = element.getValue();
+        long previous = element.hasTimestamp() ? element.getTimestamp() : TimestampAssigner.NO_TIMESTAMP;
+        long timestamp = timestampAssigner.extractTimestamp(value, previous);
+        element.setTimestamp(timestamp);
+        if (timestamp > maxTimestamp)
+            maxTimestamp = timestamp;
+
+        output.collect(element);
+
+        if (watermarkInterval <= 0)
+            emitWatermarkIfAdvanced();
+    }
+
+    @Override
+    public void onProcessingTime(long time) throws Exception {
+        emitWatermarkIfAdvanced();
+        processingTimeService.registerTimer(time + watermarkInterval, this);
+    }
+
+    @Override
+    public void processWatermark(Watermark mark) throws Exception {
+        if (mark.getTimestamp() == Long.MAX_VALUE && currentWatermark != Long.MAX_VALUE) {
+            currentWatermark = Long.MAX_VALUE;
+            output.emitWatermark(mark);
+        }
+    }
+
+    private void emitWatermarkIfAdvanced() {
+        long watermark = maxTimestamp - maxOutOfOrderness - 1;
+        if (watermark > currentWatermark) {
+            currentWatermark = watermark;
+            output.emitWatermark(new Watermark(watermark));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.operators;
+
+/**
+ * 定时器触发时的回调。回调之前运行时已经把算子的当前key切换为定时器对应的key
+ */
+public interface Triggerable<K, N> {
+
+    void onEventTime(InternalTimer<K, N> timer) throws Exception;
+
+    void onProcessingTime(InternalTimer<K, N> timer) throws Exception;
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.windowing.assigners;
+
+import io.nop.core.context.IServiceContext;
+import io.nop.stream.core.windowing.triggers.EventTimeTrigger;
+import io.nop.stream.core.windowing.triggers.Trigger;
+import io.nop.stream.core.windowing.windows.TimeWindow;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按照事件时间划分的滑动窗口，同一条数据可能属于size/slide个窗口
+ */
+public class SlidingEventTimeWindows extends WindowAssigner<Object, TimeWindow> {
+    private static final long serialVersionUID = 1L;
+
+    private final long size;
+    private final long slide;
+    private final long offset;
+
+    protected SlidingEventTimeWindows(long size, long slide, long offset) {
+        if (Math.abs(offset) >= slide || size <= 0 || slide <= 0)
+            throw new IllegalArgumentException("SlidingEventTimeWindows parameters must satisfy abs(offset) < slide and size > 0");
+        this.size = size;
+        this.slide = slide;
+        this.offset = offset;
+    }
+
+    public static SlidingEventTimeWindows of(Duration size, Duration slide) {
+        return new SlidingEventTimeWindows(size.toMillis(), slide.toMillis(), 0);
+    }
+
+    public static SlidingEventTimeWindows of(Duration size, Duration slide, Duration offset) {
+        return new SlidingEventTimeWindows(size.toMillis(), slide.toMillis(), offset.toMillis() % slide.toMillis());
+    }
+
+    @Override
+    public Collection<TimeWindow> assignWindows(Object element, long timestamp, WindowAssignerContext context) {
+        if (timestamp == Long.MIN_VALUE)
+            throw new IllegalStateException("Record has no timestamp. Is the time characteristic set to 'ProcessingTime', " +
+                    "or did you forget to call 'assignTimestampsAndWatermarks(...)'?");
+
+        List<TimeWindow> windows = new ArrayList<>((int) (size / slide));
+        long lastStart = TimeWindow.getWindowStartWithOffset(timestamp, offset, slide);
+        for (long start = lastStart; start > timestamp - size; start -= slide) {
+            windows.add(new TimeWindow(start, start + size));
+        }
+        return windows;
+    }
+
+    @Override
+    public Trigger<Object, TimeWindow> getDefaultTrigger(IServiceContext env) {
+        return EventTimeTrigger.create();
+    }
+
+    @Override
+    public boolean isEventTime() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "SlidingEventTimeWindows(" + size + ", " + slide + ")";
+    }
+}
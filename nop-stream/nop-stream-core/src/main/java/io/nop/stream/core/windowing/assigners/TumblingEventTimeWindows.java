@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.windowing.assigners;
+
+import io.nop.core.context.IServiceContext;
+import io.nop.stream.core.windowing.triggers.EventTimeTrigger;
+import io.nop.stream.core.windowing.triggers.Trigger;
+import io.nop.stream.core.windowing.windows.TimeWindow;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 按照事件时间划分的固定大小、互不重叠的窗口
+ */
+public class TumblingEventTimeWindows extends WindowAssigner<Object, TimeWindow> {
+    private static final long serialVersionUID = 1L;
+
+    private final long size;
+    private final long offset;
+
+    protected TumblingEventTimeWindows(long size, long offset) {
+        if (size <= 0 || Math.abs(offset) >= size)
+            throw new IllegalArgumentException("TumblingEventTimeWindows parameters must satisfy abs(offset) < size");
+        this.size = size;
+        this.offset = offset;
+    }
+
+    public static TumblingEventTimeWindows of(Duration size) {
+        return new TumblingEventTimeWindows(size.toMillis(), 0);
+    }
+
+    public static TumblingEventTimeWindows of(Duration size, Duration offset) {
+        return new TumblingEventTimeWindows(size.toMillis(), offset.toMillis() % size.toMillis());
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public Collection<TimeWindow> assignWindows(Object element, long timestamp, WindowAssignerContext context) {
+        if (timestamp == Long.MIN_VALUE)
+            throw new IllegalStateException("Record has no timestamp. Is the time characteristic set to 'ProcessingTime', " +
+                    "or did you forget to call 'assignTimestampsAndWatermarks(...)'?");
+
+        long start = TimeWindow.getWindowStartWithOffset(timestamp, offset, size);
+        return Collections.singletonList(new TimeWindow(start, start + size));
+    }
+
+    @Override
+    public Trigger<Object, TimeWindow> getDefaultTrigger(IServiceContext env) {
+        return EventTimeTrigger.create();
+    }
+
+    @Override
+    public boolean isEventTime() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "TumblingEventTimeWindows(" + size + ")";
+    }
+}
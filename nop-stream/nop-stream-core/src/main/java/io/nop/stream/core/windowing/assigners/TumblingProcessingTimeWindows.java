@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.windowing.assigners;
+
+import io.nop.core.context.IServiceContext;
+import io.nop.stream.core.windowing.triggers.ProcessingTimeTrigger;
+import io.nop.stream.core.windowing.triggers.Trigger;
+import io.nop.stream.core.windowing.windows.TimeWindow;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 按照处理时间划分的固定大小、互不重叠的窗口
+ */
+public class TumblingProcessingTimeWindows extends WindowAssigner<Object, TimeWindow> {
+    private static final long serialVersionUID = 1L;
+
+    private final long size;
+    private final long globalOffset;
+    private final WindowStagger windowStagger;
+
+    private Long staggerOffset = null;
+
+    private TumblingProcessingTimeWindows(long size, long offset, WindowStagger windowStagger) {
+        if (size <= 0 || Math.abs(offset) >= size)
+            throw new IllegalArgumentException("TumblingProcessingTimeWindows parameters must satisfy abs(offset) < size");
+        this.size = size;
+        this.globalOffset = offset;
+        this.windowStagger = windowStagger;
+    }
+
+    public static TumblingProcessingTimeWindows of(Duration size) {
+        return new TumblingProcessingTimeWindows(size.toMillis(), 0, WindowStagger.ALIGNED);
+    }
+
+    public static TumblingProcessingTimeWindows of(Duration size, Duration offset, WindowStagger windowStagger) {
+        return new TumblingProcessingTimeWindows(size.toMillis(), offset.toMillis(), windowStagger);
+    }
+
+    @Override
+    public Collection<TimeWindow> assignWindows(Object element, long timestamp, WindowAssignerContext context) {
+        long now = context.getCurrentProcessingTime();
+        if (staggerOffset == null) {
+            staggerOffset = windowStagger.getStaggerOffset(now, size);
+        }
+        long start = TimeWindow.getWindowStartWithOffset(now, (globalOffset + staggerOffset) % size, size);
+        return Collections.singletonList(new TimeWindow(start, start + size));
+    }
+
+    @Override
+    public Trigger<Object, TimeWindow> getDefaultTrigger(IServiceContext env) {
+        return ProcessingTimeTrigger.create();
+    }
+
+    @Override
+    public boolean isEventTime() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "TumblingProcessingTimeWindows(" + size + ")";
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.windowing.functions;
+
+import io.nop.stream.core.common.functions.StreamFunction;
+import io.nop.stream.core.util.Collector;
+import io.nop.stream.core.windowing.windows.Window;
+
+/**
+ * 窗口触发时对聚合结果做进一步处理，可以获取到当前的key和窗口
+ */
+@FunctionalInterface
+public interface WindowFunction<IN, OUT, KEY, W extends Window> extends StreamFunction {
+
+    void apply(KEY key, W window, IN input, Collector<OUT> out) throws Exception;
+}
@@ -0,0 +1,309 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.core.windowing.operators;
+
+import io.nop.stream.core.common.accumulators.SimpleAccumulator;
+import io.nop.stream.core.common.functions.AggregateFunction;
+import io.nop.stream.core.common.state.MapState;
+import io.nop.stream.core.common.state.MapStateDescriptor;
+import io.nop.stream.core.common.state.ReducingStateDescriptor;
+import io.nop.stream.core.common.state.StateDescriptor;
+import io.nop.stream.core.exceptions.StreamRuntimeException;
+import io.nop.stream.core.operators.AbstractStreamOperator;
+import io.nop.stream.core.operators.InternalTimer;
+import io.nop.stream.core.operators.InternalTimerService;
+import io.nop.stream.core.operators.OneInputStreamOperator;
+import io.nop.stream.core.operators.TimestampedCollector;
+import io.nop.stream.core.operators.Triggerable;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.util.FunctionUtils;
+import io.nop.stream.core.util.OutputTag;
+import io.nop.stream.core.windowing.assigners.MergingWindowAssigner;
+import io.nop.stream.core.windowing.assigners.WindowAssigner;
+import io.nop.stream.core.windowing.functions.WindowFunction;
+import io.nop.stream.core.windowing.triggers.Trigger;
+import io.nop.stream.core.windowing.triggers.TriggerResult;
+import io.nop.stream.core.windowing.windows.Window;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 基于增量聚合的窗口算子。每个key的每个窗口只保存一个累加器，窗口触发时通过WindowFunction输出聚合结果。
+ * 窗口的触发和清理依赖于按照窗口注册的定时器。目前不支持会话窗口等需要合并的窗口以及Evictor。
+ *
+ * @param <K>   key的类型
+ * @param <IN>  输入数据类型
+ * @param <ACC> 累加器类型
+ * @param <V>   聚合结果类型
+ * @param <OUT> 输出数据类型
+ * @param <W>   窗口类型
+ */
+public class WindowOperator<K, IN, ACC, V, OUT, W extends Window> extends AbstractStreamOperator<OUT>
+        implements OneInputStreamOperator<IN, OUT>, Triggerable<K, W> {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String WINDOW_STATE_NAME = "window-contents";
+    static final String TRIGGER_STATE_NAME = "window-trigger-state";
+
+    private final WindowAssigner<? super IN, W> windowAssigner;
+    private final Trigger<? super IN, ? super W> trigger;
+    private final AggregateFunction<IN, ACC, V> aggregateFunction;
+    private final WindowFunction<V, OUT, K, W> windowFunction;
+    private final long allowedLateness;
+    private final OutputTag<IN> lateDataOutputTag;
+
+    private transient MapState<W, ACC> windowState;
+    private transient MapState<W, Map<String, SimpleAccumulator<?>>> triggerState;
+    private transient InternalTimerService<W> internalTimerService;
+    private transient TimestampedCollector<OUT> collector;
+    private transient WindowContext triggerContext;
+    private transient WindowAssigner.WindowAssignerContext windowAssignerContext;
+
+    private transient long numLateRecordsDropped;
+
+    public WindowOperator(WindowAssigner<? super IN, W> windowAssigner,
+                          Trigger<? super IN, ? super W> trigger,
+                          AggregateFunction<IN, ACC, V> aggregateFunction,
+                          WindowFunction<V, OUT, K, W> windowFunction,
+                          long allowedLateness, OutputTag<IN> lateDataOutputTag) {
+        if (windowAssigner instanceof MergingWindowAssigner)
+            throw new IllegalArgumentException("Merging window assigner is not supported:" + windowAssigner);
+        if (allowedLateness < 0)
+            throw new IllegalArgumentException("The allowed lateness cannot be negative.");
+
+        this.windowAssigner = requireNonNull(windowAssigner);
+        this.trigger = requireNonNull(trigger);
+        this.aggregateFunction = requireNonNull(aggregateFunction);
+        this.windowFunction = requireNonNull(windowFunction);
+        this.allowedLateness = allowedLateness;
+        this.lateDataOutputTag = lateDataOutputTag;
+    }
+
+    public WindowAssigner<? super IN, W> getWindowAssigner() {
+        return windowAssigner;
+    }
+
+    public Trigger<? super IN, ? super W> getTrigger() {
+        return trigger;
+    }
+
+    public long getNumLateRecordsDropped() {
+        return numLateRecordsDropped;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Override
+    public void open() throws Exception {
+        super.open();
+        FunctionUtils.openFunction(aggregateFunction, null);
+        FunctionUtils.openFunction(windowFunction, null);
+
+        windowState = getKeyedStateStore().getMapState(
+                new MapStateDescriptor<>(WINDOW_STATE_NAME, (Class) Window.class, Object.class));
+        triggerState = getKeyedStateStore().getMapState(
+                new MapStateDescriptor<>(TRIGGER_STATE_NAME, (Class) Window.class, (Class) Map.class));
+
+        internalTimerService = getInternalTimerService("window-timers", this);
+        collector = new TimestampedCollector<>(output);
+        triggerContext = new WindowContext();
+        windowAssignerContext = () -> internalTimerService.currentProcessingTime();
+    }
+
+    @Override
+    public void close() throws Exception {
+        FunctionUtils.closeFunction(windowFunction);
+        FunctionUtils.closeFunction(aggregateFunction);
+        super.close();
+    }
+
+    @Override
+    public void processElement(StreamRecord<IN> element) throws Exception {
+        IN value = element.getValue();
+        Collection<W> windows = windowAssigner.assignWindows(value, element.getTimestamp(), windowAssignerContext);
+
+        boolean skipped = true;
+        for (W window : windows) {
+            if (isWindowLate(window))
+                continue;
+            skipped = false;
+
+            ACC acc = windowState.get(window);
+            if (acc == null)
+                acc = aggregateFunction.createAccumulator();
+            acc = aggregateFunction.add(value, acc);
+            windowState.put(window, acc);
+
+            triggerContext.window = window;
+            TriggerResult result = ((Trigger<IN, W>) trigger).onElement(value, element.getTimestamp(), window,
+                    triggerContext);
+            handleTriggerResult(result, window, acc);
+
+            registerCleanupTimer(window);
+        }
+
+        if (skipped && isElementLate(element)) {
+            if (lateDataOutputTag != null) {
+                output.collect(lateDataOutputTag, element);
+            } else {
+                numLateRecordsDropped++;
+            }
+        }
+    }
+
+    @Override
+    public void onEventTime(InternalTimer<K, W> timer) throws Exception {
+        W window = timer.getNamespace();
+        triggerContext.window = window;
+
+        ACC acc = windowState.get(window);
+        if (acc != null) {
+            TriggerResult result = ((Trigger<IN, W>) trigger).onEventTime(timer.getTimestamp(), window,
+                    triggerContext);
+            handleTriggerResult(result, window, acc);
+        }
+
+        if (windowAssigner.isEventTime() && isCleanupTime(window, timer.getTimestamp())) {
+            clearAllState(window);
+        }
+    }
+
+    @Override
+    public void onProcessingTime(InternalTimer<K, W> timer) throws Exception {
+        W window = timer.getNamespace();
+        triggerContext.window = window;
+
+        ACC acc = windowState.get(window);
+        if (acc != null) {
+            TriggerResult result = ((Trigger<IN, W>) trigger).onProcessingTime(timer.getTimestamp(), window,
+                    triggerContext);
+            handleTriggerResult(result, window, acc);
+        }
+
+        if (!windowAssigner.isEventTime() && isCleanupTime(window, timer.getTimestamp())) {
+            clearAllState(window);
+        }
+    }
+
+    private void handleTriggerResult(TriggerResult result, W window, ACC acc) throws Exception {
+        if (result.isFire()) {
+            emitWindowContents(window, acc);
+        }
+        if (result.isPurge()) {
+            windowState.remove(window);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void emitWindowContents(W window, ACC acc) throws Exception {
+        collector.setAbsoluteTimestamp(window.maxTimestamp());
+        windowFunction.apply((K) getCurrentKey(), window, aggregateFunction.getResult(acc), collector);
+    }
+
+    private void clearAllState(W window) {
+        windowState.remove(window);
+        ((Trigger<IN, W>) trigger).clear(window, triggerContext);
+        triggerState.remove(window);
+    }
+
+    protected boolean isWindowLate(W window) {
+        return windowAssigner.isEventTime()
+                && cleanupTime(window) <= internalTimerService.currentWatermark();
+    }
+
+    protected boolean isElementLate(StreamRecord<IN> element) {
+        return windowAssigner.isEventTime()
+                && element.getTimestamp() + allowedLateness <= internalTimerService.currentWatermark();
+    }
+
+    private void registerCleanupTimer(W window) {
+        long cleanupTime = cleanupTime(window);
+        if (cleanupTime == Long.MAX_VALUE) {
+            // 窗口永远不会被清理
+            return;
+        }
+
+        if (windowAssigner.isEventTime()) {
+            internalTimerService.registerEventTimeTimer(window, cleanupTime);
+        } else {
+            internalTimerService.registerProcessingTimeTimer(window, cleanupTime);
+        }
+    }
+
+    private long cleanupTime(W window) {
+        if (windowAssigner.isEventTime()) {
+            long cleanupTime = window.maxTimestamp() + allowedLateness;
+            return cleanupTime >= window.maxTimestamp() ? cleanupTime : Long.MAX_VALUE;
+        } else {
+            return window.maxTimestamp();
+        }
+    }
+
+    private boolean isCleanupTime(W window, long time) {
+        return time == cleanupTime(window);
+    }
+
+    class WindowContext implements Trigger.TriggerContext {
+        W window;
+
+        @Override
+        public long getCurrentProcessingTime() {
+            return internalTimerService.currentProcessingTime();
+        }
+
+        @Override
+        public long getCurrentWatermark() {
+            return internalTimerService.currentWatermark();
+        }
+
+        @Override
+        public void registerProcessingTimeTimer(long time) {
+            internalTimerService.registerProcessingTimeTimer(window, time);
+        }
+
+        @Override
+        public void registerEventTimeTimer(long time) {
+            internalTimerService.registerEventTimeTimer(window, time);
+        }
+
+        @Override
+        public void deleteProcessingTimeTimer(long time) {
+            internalTimerService.deleteProcessingTimeTimer(window, time);
+        }
+
+        @Override
+        public void deleteEventTimeTimer(long time) {
+            internalTimerService.deleteEventTimeTimer(window, time);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> SimpleAccumulator<T> getSimpleAccumulator(StateDescriptor<T> descriptor) {
+            Map<String, SimpleAccumulator<?>> accs = triggerState.get(window);
+            if (accs == null) {
+                accs = new HashMap<>();
+            }
+
+            SimpleAccumulator<T> acc = (SimpleAccumulator<T>) accs.get(descriptor.getName());
+            if (acc == null) {
+                if (!(descriptor instanceof ReducingStateDescriptor))
+                    throw new StreamRuntimeException("Trigger state must be a ReducingStateDescriptor:name="
+                            + descriptor.getName());
+                acc = ((ReducingStateDescriptor<T>) descriptor).createAccumulator();
+                accs.put(descriptor.getName(), acc);
+            }
+            // 累加器会被原地修改，总是写回以便状态后端记录修改，增量checkpoint时才能包含这些修改
+            triggerState.put(window, accs);
+            return acc;
+        }
+    }
+}
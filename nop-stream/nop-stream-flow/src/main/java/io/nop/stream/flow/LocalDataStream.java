@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.common.typeinfo.TypeInformation;
+import io.nop.stream.core.datastream.KeyedStream;
+import io.nop.stream.core.datastream.SingleOutputStreamOperator;
+import io.nop.stream.core.operators.OneInputStreamOperator;
+import io.nop.stream.flow.graph.StreamNode;
+
+public class LocalDataStream<T> implements SingleOutputStreamOperator<T> {
+    protected final LocalStreamEnvironment env;
+    protected final StreamNode node;
+    private final TypeInformation<T> type;
+
+    public LocalDataStream(LocalStreamEnvironment env, StreamNode node, TypeInformation<T> type) {
+        this.env = env;
+        this.node = node;
+        this.type = type;
+    }
+
+    public LocalStreamEnvironment getEnvironment() {
+        return env;
+    }
+
+    public StreamNode getNode() {
+        return node;
+    }
+
+    @Override
+    public TypeInformation<T> getType() {
+        return type;
+    }
+
+    @Override
+    public <K> KeyedStream<T, K> keyBy(KeySelector<T, K> key) {
+        return new LocalKeyedStream<>(env, node, type, key);
+    }
+
+    @Override
+    public <R> SingleOutputStreamOperator<R> transform(String operatorName, TypeInformation<R> outTypeInfo,
+                                                      OneInputStreamOperator<T, R> operator) {
+        StreamNode child = env.getStreamGraph().addOperator(operatorName, operator, node, null);
+        return new LocalDataStream<>(env, child, outTypeInfo);
+    }
+
+    @Override
+    public SingleOutputStreamOperator<T> forceNonParallel() {
+        node.setNonParallel(true);
+        return this;
+    }
+}
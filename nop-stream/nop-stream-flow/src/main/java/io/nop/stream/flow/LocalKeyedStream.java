@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.common.typeinfo.TypeInformation;
+import io.nop.stream.core.datastream.KeyedStream;
+import io.nop.stream.core.datastream.SingleOutputStreamOperator;
+import io.nop.stream.core.operators.OneInputStreamOperator;
+import io.nop.stream.flow.graph.StreamNode;
+
+/**
+ * 对KeyedStream的变换会在数据流图中引入按照key做hash分区的边，下游算子获得按照key隔离的状态和定时器
+ */
+public class LocalKeyedStream<T, K> implements KeyedStream<T, K> {
+    private final LocalStreamEnvironment env;
+    private final StreamNode node;
+    private final TypeInformation<T> type;
+    private final KeySelector<T, K> keySelector;
+
+    public LocalKeyedStream(LocalStreamEnvironment env, StreamNode node, TypeInformation<T> type,
+                            KeySelector<T, K> keySelector) {
+        this.env = env;
+        this.node = node;
+        this.type = type;
+        this.keySelector = keySelector;
+    }
+
+    public KeySelector<T, K> getKeySelector() {
+        return keySelector;
+    }
+
+    @Override
+    public TypeInformation<T> getType() {
+        return type;
+    }
+
+    @Override
+    public <K2> KeyedStream<T, K2> keyBy(KeySelector<T, K2> key) {
+        return new LocalKeyedStream<>(env, node, type, key);
+    }
+
+    @Override
+    public <R> SingleOutputStreamOperator<R> transform(String operatorName, TypeInformation<R> outTypeInfo,
+                                                      OneInputStreamOperator<T, R> operator) {
+        StreamNode child = env.getStreamGraph().addOperator(operatorName, operator, node, keySelector);
+        return new LocalDataStream<>(env, child, outTypeInfo);
+    }
+}
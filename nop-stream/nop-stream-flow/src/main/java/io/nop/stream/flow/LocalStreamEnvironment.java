@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.stream.core.datastream.DataStream;
+import io.nop.stream.flow.graph.StreamGraph;
+import io.nop.stream.flow.graph.StreamNode;
+import io.nop.stream.flow.runtime.LocalStreamJob;
+import io.nop.stream.flow.source.FromIteratorSourceFunction;
+import io.nop.stream.flow.source.SourceFunction;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Collection;
+
+import static io.nop.stream.flow.NopStreamFlowConfigs.CFG_STREAM_FLOW_BUFFER_CAPACITY;
+import static io.nop.stream.flow.NopStreamFlowConfigs.CFG_STREAM_FLOW_DEFAULT_PARALLELISM;
+import static io.nop.stream.flow.NopStreamFlowConfigs.CFG_STREAM_FLOW_DRAIN_BATCH_SIZE;
+import static io.nop.stream.flow.NopStreamFlowErrors.ERR_STREAM_FLOW_JOB_ALREADY_STARTED;
+
+/**
+ * 在当前进程中多线程执行DataStream程序。通过fromSource等方法构造数据流图，然后调用execute执行。
+ * 每个环境对象只能执行一次。
+ */
+public class LocalStreamEnvironment {
+    private final StreamGraph streamGraph = new StreamGraph();
+    private int parallelism;
+    private int bufferCapacity;
+    private int drainBatchSize;
+    private boolean started;
+
+    private Duration checkpointInterval;
+    private File checkpointDir;
+
+    public LocalStreamEnvironment() {
+        int parallelism = CFG_STREAM_FLOW_DEFAULT_PARALLELISM.get();
+        if (parallelism <= 0)
+            parallelism = Runtime.getRuntime().availableProcessors();
+        this.parallelism = parallelism;
+        this.bufferCapacity = CFG_STREAM_FLOW_BUFFER_CAPACITY.get();
+        this.drainBatchSize = CFG_STREAM_FLOW_DRAIN_BATCH_SIZE.get();
+    }
+
+    public StreamGraph getStreamGraph() {
+        return streamGraph;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public void setBufferCapacity(int bufferCapacity) {
+        this.bufferCapacity = Math.max(bufferCapacity, 1);
+    }
+
+    public int getDrainBatchSize() {
+        return drainBatchSize;
+    }
+
+    public void setDrainBatchSize(int drainBatchSize) {
+        this.drainBatchSize = Math.max(drainBatchSize, 1);
+    }
+
+    /**
+     * 定时生成checkpoint并保存到checkpointDir/jobName目录下。启动时如果该目录下存在已完成的checkpoint，则从中恢复状态，
+     * 支持checkpoint的数据源(CheckpointedSource)从记录的位置继续读取
+     */
+    public void enableCheckpointing(Duration interval, File checkpointDir) {
+        this.checkpointInterval = interval;
+        this.checkpointDir = checkpointDir;
+    }
+
+    public boolean isCheckpointingEnabled() {
+        return checkpointDir != null;
+    }
+
+    public <T> DataStream<T> fromSource(SourceFunction<T> source, String sourceName) {
+        StreamNode node = streamGraph.addSource(sourceName, source);
+        return new LocalDataStream<>(this, node, null);
+    }
+
+    public <T> DataStream<T> fromCollection(Collection<T> data) {
+        return fromSource(new FromIteratorSourceFunction<>(data), "Collection Source");
+    }
+
+    /**
+     * 启动作业后立刻返回
+     */
+    public LocalStreamJob executeAsync(String jobName) {
+        if (started)
+            throw new NopException(ERR_STREAM_FLOW_JOB_ALREADY_STARTED);
+        started = true;
+
+        LocalStreamJob job = new LocalStreamJob(jobName, streamGraph, parallelism, bufferCapacity, drainBatchSize,
+                checkpointInterval, checkpointDir);
+        job.start();
+        return job;
+    }
+
+    /**
+     * 执行作业并等待所有有界数据源处理完毕
+     */
+    public LocalStreamJob execute(String jobName) {
+        LocalStreamJob job = executeAsync(jobName);
+        job.awaitTermination();
+        return job;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.api.core.annotations.core.Description;
+import io.nop.api.core.config.IConfigReference;
+import io.nop.api.core.util.SourceLocation;
+
+import static io.nop.api.core.config.AppConfig.varRef;
+
+public interface NopStreamFlowConfigs {
+    SourceLocation s_loc = SourceLocation.fromClass(NopStreamFlowConfigs.class);
+
+    @Description("keyed算子的缺省并行度。小于等于0时使用CPU核数")
+    IConfigReference<Integer> CFG_STREAM_FLOW_DEFAULT_PARALLELISM =
+            varRef(s_loc, "nop.stream.flow.default-parallelism", Integer.class, 0);
+
+    @Description("每个子任务输入队列的容量。队列满时上游阻塞，从而实现背压")
+    IConfigReference<Integer> CFG_STREAM_FLOW_BUFFER_CAPACITY =
+            varRef(s_loc, "nop.stream.flow.buffer-capacity", Integer.class, 1024);
+
+    @Description("子任务每次从输入队列中批量取出的最大元素个数")
+    IConfigReference<Integer> CFG_STREAM_FLOW_DRAIN_BATCH_SIZE =
+            varRef(s_loc, "nop.stream.flow.drain-batch-size", Integer.class, 256);
+}
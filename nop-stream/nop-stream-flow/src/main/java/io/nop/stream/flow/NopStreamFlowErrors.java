@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.api.core.exceptions.ErrorCode;
+
+import static io.nop.api.core.exceptions.ErrorCode.define;
+
+public interface NopStreamFlowErrors {
+    String ARG_JOB_NAME = "jobName";
+    String ARG_TASK_NAME = "taskName";
+    String ARG_OPERATOR_NAME = "operatorName";
+
+    ErrorCode ERR_STREAM_FLOW_JOB_FAIL =
+            define("nop.err.stream.flow.job-fail", "流处理作业执行失败:{jobName}", ARG_JOB_NAME);
+
+    ErrorCode ERR_STREAM_FLOW_JOB_CANCELLED =
+            define("nop.err.stream.flow.job-cancelled", "流处理作业已被取消:{jobName}", ARG_JOB_NAME);
+
+    ErrorCode ERR_STREAM_FLOW_TASK_FAIL =
+            define("nop.err.stream.flow.task-fail", "流处理子任务执行失败:{taskName}", ARG_TASK_NAME);
+
+    ErrorCode ERR_STREAM_FLOW_COPY_OPERATOR_FAIL =
+            define("nop.err.stream.flow.copy-operator-fail",
+                    "并行执行时需要通过序列化复制算子，算子必须是可序列化的:{operatorName}", ARG_OPERATOR_NAME);
+
+    ErrorCode ERR_STREAM_FLOW_JOB_ALREADY_STARTED =
+            define("nop.err.stream.flow.job-already-started", "流处理环境只能执行一次");
+
+    ErrorCode ERR_STREAM_FLOW_NO_SOURCE =
+            define("nop.err.stream.flow.no-source", "流处理作业没有定义数据源");
+}
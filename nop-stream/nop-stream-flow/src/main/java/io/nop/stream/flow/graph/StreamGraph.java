@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.graph;
+
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.operators.StreamOperator;
+import io.nop.stream.flow.source.SourceFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按照创建顺序记录所有节点，创建顺序即为拓扑顺序
+ */
+public class StreamGraph {
+    private final List<StreamNode> nodes = new ArrayList<>();
+
+    public StreamNode addSource(String name, SourceFunction<?> source) {
+        StreamNode node = new StreamNode(nodes.size(), name, source, null, null, null);
+        nodes.add(node);
+        return node;
+    }
+
+    public StreamNode addOperator(String name, StreamOperator<?> operator, StreamNode input,
+                                  KeySelector<?, ?> keySelector) {
+        StreamNode node = new StreamNode(nodes.size(), name, null, operator, input, keySelector);
+        nodes.add(node);
+        return node;
+    }
+
+    public List<StreamNode> getNodes() {
+        return nodes;
+    }
+}
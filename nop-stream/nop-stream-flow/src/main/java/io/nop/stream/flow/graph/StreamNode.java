@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.graph;
+
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.operators.StreamOperator;
+import io.nop.stream.flow.source.SourceFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据流图中的节点，对应于一个数据源或者一个单输入算子。
+ * 如果输入边上指定了keySelector，则上游数据按照key做hash分区后发送到本节点，本节点成为一个新的执行阶段(stage)的头节点。
+ */
+public class StreamNode {
+    private final int id;
+    private final String name;
+    private final SourceFunction<?> source;
+    private final StreamOperator<?> operator;
+    private final StreamNode input;
+    private final KeySelector<?, ?> keySelector;
+    private final List<StreamNode> outputs = new ArrayList<>();
+    private boolean nonParallel;
+
+    public StreamNode(int id, String name, SourceFunction<?> source, StreamOperator<?> operator,
+                      StreamNode input, KeySelector<?, ?> keySelector) {
+        this.id = id;
+        this.name = name;
+        this.source = source;
+        this.operator = operator;
+        this.input = input;
+        this.keySelector = keySelector;
+        if (input != null)
+            input.outputs.add(this);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isSource() {
+        return source != null;
+    }
+
+    public SourceFunction<?> getSource() {
+        return source;
+    }
+
+    public StreamOperator<?> getOperator() {
+        return operator;
+    }
+
+    public StreamNode getInput() {
+        return input;
+    }
+
+    /**
+     * 输入边上的分区key。不为null时表示本节点是keyed算子
+     */
+    public KeySelector<?, ?> getKeySelector() {
+        return keySelector;
+    }
+
+    public boolean isKeyed() {
+        return keySelector != null;
+    }
+
+    public List<StreamNode> getOutputs() {
+        return outputs;
+    }
+
+    public boolean isNonParallel() {
+        return nonParallel;
+    }
+
+    public void setNonParallel(boolean nonParallel) {
+        this.nonParallel = nonParallel;
+    }
+
+    @Override
+    public String toString() {
+        return name + "#" + id;
+    }
+}
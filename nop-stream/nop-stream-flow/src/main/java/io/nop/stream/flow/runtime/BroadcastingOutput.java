@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.stream.core.operators.Output;
+import io.nop.stream.core.streamrecord.LatencyMarker;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+import io.nop.stream.core.streamrecord.watermark.WatermarkStatus;
+import io.nop.stream.core.util.OutputTag;
+
+import java.util.List;
+
+/**
+ * 一个算子的输出被多个下游算子消费。算子可能会原地修改StreamRecord，所以除最后一个输出之外都传递拷贝
+ */
+public class BroadcastingOutput<T> implements Output<StreamRecord<T>> {
+    private final Output<StreamRecord<T>>[] outputs;
+
+    @SuppressWarnings("unchecked")
+    public BroadcastingOutput(List<Output<StreamRecord<T>>> outputs) {
+        this.outputs = outputs.toArray(new Output[0]);
+    }
+
+    @Override
+    public void collect(StreamRecord<T> record) {
+        int last = outputs.length - 1;
+        for (int i = 0; i < last; i++) {
+            outputs[i].collect(record.copy(record.getValue()));
+        }
+        outputs[last].collect(record);
+    }
+
+    @Override
+    public <X> void collect(OutputTag<X> outputTag, StreamRecord<X> record) {
+        int last = outputs.length - 1;
+        for (int i = 0; i < last; i++) {
+            outputs[i].collect(outputTag, record.copy(record.getValue()));
+        }
+        outputs[last].collect(outputTag, record);
+    }
+
+    @Override
+    public void emitWatermark(Watermark mark) {
+        for (Output<StreamRecord<T>> output : outputs) {
+            output.emitWatermark(mark);
+        }
+    }
+
+    @Override
+    public void emitWatermarkStatus(WatermarkStatus watermarkStatus) {
+        for (Output<StreamRecord<T>> output : outputs) {
+            output.emitWatermarkStatus(watermarkStatus);
+        }
+    }
+
+    @Override
+    public void emitLatencyMarker(LatencyMarker latencyMarker) {
+        for (Output<StreamRecord<T>> output : outputs) {
+            output.emitLatencyMarker(latencyMarker);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Output<StreamRecord<T>> output : outputs) {
+            output.close();
+        }
+    }
+}
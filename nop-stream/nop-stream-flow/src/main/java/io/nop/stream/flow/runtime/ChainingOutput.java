@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.stream.core.operators.OneInputStreamOperator;
+import io.nop.stream.core.operators.Output;
+import io.nop.stream.core.streamrecord.LatencyMarker;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+import io.nop.stream.core.streamrecord.watermark.WatermarkStatus;
+import io.nop.stream.core.util.OutputTag;
+
+/**
+ * 同一个子任务中相邻算子之间的直接调用，不经过队列
+ */
+public class ChainingOutput<T> implements Output<StreamRecord<T>> {
+    private final OneInputStreamOperator<T, ?> operator;
+    private final TaskMetrics metrics;
+
+    public ChainingOutput(OneInputStreamOperator<T, ?> operator, TaskMetrics metrics) {
+        this.operator = operator;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void collect(StreamRecord<T> record) {
+        try {
+            operator.setKeyContextElement(record);
+            operator.processElement(record);
+        } catch (Exception e) {
+            throw NopException.adapt(e);
+        }
+    }
+
+    @Override
+    public <X> void collect(OutputTag<X> outputTag, StreamRecord<X> record) {
+        // 目前不支持侧输出
+        metrics.incSideOutputDropped();
+    }
+
+    @Override
+    public void emitWatermark(Watermark mark) {
+        try {
+            operator.processWatermark(mark);
+        } catch (Exception e) {
+            throw NopException.adapt(e);
+        }
+    }
+
+    @Override
+    public void emitWatermarkStatus(WatermarkStatus watermarkStatus) {
+        try {
+            operator.processWatermarkStatus(watermarkStatus);
+        } catch (Exception e) {
+            throw NopException.adapt(e);
+        }
+    }
+
+    @Override
+    public void emitLatencyMarker(LatencyMarker latencyMarker) {
+        try {
+            operator.processLatencyMarker(latencyMarker);
+        } catch (Exception e) {
+            throw NopException.adapt(e);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.stream.core.streamrecord.StreamElement;
+
+/**
+ * 需要区分来源通道的控制事件(watermark、输入结束等)。未启用checkpoint时普通数据直接以StreamRecord的形式放入队列
+ */
+final class ChannelEvent {
+    final int channel;
+
+    /**
+     * 为null时表示该通道的输入已经结束
+     */
+    final StreamElement element;
+
+    ChannelEvent(int channel, StreamElement element) {
+        this.channel = channel;
+        this.element = element;
+    }
+
+    boolean isEndOfInput() {
+        return element == null;
+    }
+}
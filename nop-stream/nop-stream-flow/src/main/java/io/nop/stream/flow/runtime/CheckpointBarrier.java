@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.stream.core.streamrecord.StreamElement;
+
+/**
+ * 由数据源插入数据流中，把数据流切分为属于不同checkpoint的部分。
+ * 下游子任务在所有输入通道都收到barrier之后对自身状态做快照，然后把barrier继续向下游传递
+ */
+public final class CheckpointBarrier extends StreamElement {
+    private final long checkpointId;
+    private final boolean full;
+
+    public CheckpointBarrier(long checkpointId, boolean full) {
+        this.checkpointId = checkpointId;
+        this.full = full;
+    }
+
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+
+    /**
+     * 为true时需要生成全量快照，否则只需要记录上一次checkpoint之后的修改
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckpointBarrier{id=" + checkpointId + ",full=" + full + "}";
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.commons.concurrent.thread.NamedThreadFactory;
+import io.nop.stream.checkpoint.metrics.ICheckpointMetrics;
+import io.nop.stream.checkpoint.snapshot.TaskStateSnapshot;
+import io.nop.stream.checkpoint.storage.CheckpointMetadata;
+import io.nop.stream.checkpoint.storage.FileCheckpointStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时触发checkpoint。同一时刻最多只有一个进行中的checkpoint，所有子任务都确认之后写入元数据文件，checkpoint才算完成。
+ * <p>
+ * 子任务的快照在任务线程中同步生成，然后由单独的IO线程异步写入状态文件，不阻塞数据处理。
+ * 上一次checkpoint完成时可以只保存修改过的状态(增量快照)，子任务的状态由全量快照加上后续的增量快照组成的文件链表示。
+ * 文件链长度达到上限、上一次checkpoint失败或者刚从checkpoint恢复时生成全量快照。
+ */
+public class CheckpointCoordinator {
+    static final Logger LOG = LoggerFactory.getLogger(CheckpointCoordinator.class);
+
+    private final String jobName;
+    private final FileCheckpointStorage storage;
+    private final ICheckpointMetrics metrics;
+    private final ScheduledExecutorService timerService;
+    private final ExecutorService ioExecutor;
+    private final long intervalMillis;
+    private final long timeoutMillis;
+    private final int maxDeltaChain;
+    private final int retainedCount;
+
+    private final List<StreamTask> tasks = new ArrayList<>();
+    private final List<StreamTask> sourceTasks = new ArrayList<>();
+
+    private long nextCheckpointId;
+    private CheckpointMetadata lastCompleted;
+    private PendingCheckpoint pending;
+    private ScheduledFuture<?> triggerFuture;
+    private boolean stopped;
+
+    static class PendingCheckpoint {
+        final long checkpointId;
+        final boolean full;
+        final long beginTime = System.nanoTime();
+        final Map<String, List<String>> taskFiles = new HashMap<>();
+        long stateSize;
+        ScheduledFuture<?> timeoutFuture;
+
+        PendingCheckpoint(long checkpointId, boolean full) {
+            this.checkpointId = checkpointId;
+            this.full = full;
+        }
+    }
+
+    public CheckpointCoordinator(String jobName, FileCheckpointStorage storage, ICheckpointMetrics metrics,
+                                 ScheduledExecutorService timerService, long intervalMillis, long timeoutMillis,
+                                 int maxDeltaChain, int retainedCount, long nextCheckpointId) {
+        this.jobName = jobName;
+        this.storage = storage;
+        this.metrics = metrics;
+        this.timerService = timerService;
+        this.intervalMillis = intervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.maxDeltaChain = Math.max(maxDeltaChain, 1);
+        this.retainedCount = retainedCount;
+        this.nextCheckpointId = nextCheckpointId;
+        this.ioExecutor = Executors.newSingleThreadExecutor(
+                new NamedThreadFactory("nop-stream-checkpoint-" + jobName, true));
+    }
+
+    public FileCheckpointStorage getStorage() {
+        return storage;
+    }
+
+    public void addTask(StreamTask task) {
+        tasks.add(task);
+        if (task.getSource() != null)
+            sourceTasks.add(task);
+    }
+
+    public synchronized CheckpointMetadata getLastCompleted() {
+        return lastCompleted;
+    }
+
+    public synchronized void start() {
+        triggerFuture = timerService.scheduleWithFixedDelay(this::triggerCheckpoint, intervalMillis,
+                intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 有子任务结束之后无法再生成完整的快照，停止触发新的checkpoint
+     */
+    public synchronized void stopTrigger() {
+        stopped = true;
+        if (triggerFuture != null) {
+            triggerFuture.cancel(false);
+            triggerFuture = null;
+        }
+    }
+
+    /**
+     * 停止触发并等待正在写入的状态文件写完
+     */
+    public void shutdown() {
+        stopTrigger();
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS))
+                ioExecutor.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ioExecutor.shutdownNow();
+        }
+    }
+
+    public synchronized void triggerCheckpoint() {
+        if (stopped || pending != null)
+            return;
+
+        long checkpointId = nextCheckpointId++;
+        boolean full = lastCompleted == null || lastCompleted.getCheckpointId() != checkpointId - 1
+                || lastCompleted.getMaxChainLength() >= maxDeltaChain;
+
+        PendingCheckpoint checkpoint = new PendingCheckpoint(checkpointId, full);
+        checkpoint.timeoutFuture = timerService.schedule(() -> abortCheckpoint(checkpointId, "timeout"),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        pending = checkpoint;
+
+        LOG.debug("nop.stream.checkpoint.trigger:jobName={},checkpointId={},full={}", jobName, checkpointId, full);
+        for (StreamTask task : sourceTasks) {
+            task.triggerCheckpoint(checkpointId, full);
+        }
+    }
+
+    /**
+     * 在子任务线程中调用，快照交给IO线程写入文件
+     */
+    public synchronized void acknowledgeCheckpoint(StreamTask task, TaskStateSnapshot snapshot) {
+        PendingCheckpoint checkpoint = pending;
+        if (checkpoint == null || checkpoint.checkpointId != snapshot.getCheckpointId())
+            return;
+
+        String taskId = task.getTaskId();
+        ioExecutor.execute(() -> writeTaskState(checkpoint, taskId, snapshot));
+    }
+
+    private void writeTaskState(PendingCheckpoint checkpoint, String taskId, TaskStateSnapshot snapshot) {
+        String fileName;
+        long size;
+        try {
+            fileName = storage.writeTaskState(taskId, snapshot);
+            size = storage.getStateFileSize(fileName);
+        } catch (Exception e) {
+            LOG.error("nop.stream.checkpoint.write-task-state-fail:jobName={},taskId={}", jobName, taskId, e);
+            abortCheckpoint(checkpoint.checkpointId, "write-fail");
+            return;
+        }
+        onTaskStateWritten(checkpoint, taskId, fileName, size, snapshot.isFull());
+    }
+
+    private synchronized void onTaskStateWritten(PendingCheckpoint checkpoint, String taskId, String fileName,
+                                                 long size, boolean full) {
+        if (pending != checkpoint)
+            return;
+
+        List<String> chain = new ArrayList<>();
+        if (!full && lastCompleted != null) {
+            List<String> prevChain = lastCompleted.getTaskFileChain(taskId);
+            if (prevChain != null)
+                chain.addAll(prevChain);
+        }
+        chain.add(fileName);
+        checkpoint.taskFiles.put(taskId, chain);
+        checkpoint.stateSize += size;
+
+        if (checkpoint.taskFiles.size() < tasks.size())
+            return;
+
+        CheckpointMetadata metadata = new CheckpointMetadata(checkpoint.checkpointId, System.currentTimeMillis(),
+                checkpoint.taskFiles, checkpoint.stateSize);
+        try {
+            storage.commit(metadata);
+        } catch (Exception e) {
+            LOG.error("nop.stream.checkpoint.commit-fail:jobName={},checkpointId={}", jobName,
+                    checkpoint.checkpointId, e);
+            abortCheckpoint(checkpoint.checkpointId, "commit-fail");
+            return;
+        }
+
+        pending = null;
+        checkpoint.timeoutFuture.cancel(false);
+        lastCompleted = metadata;
+
+        long duration = System.nanoTime() - checkpoint.beginTime;
+        metrics.onCheckpointCompleted(checkpoint.checkpointId, duration, checkpoint.stateSize, checkpoint.full);
+        LOG.debug("nop.stream.checkpoint.completed:jobName={},checkpointId={},full={},size={},usedTime={}",
+                jobName, checkpoint.checkpointId, checkpoint.full, checkpoint.stateSize,
+                TimeUnit.NANOSECONDS.toMillis(duration));
+
+        try {
+            storage.cleanup(retainedCount);
+        } catch (Exception e) {
+            LOG.warn("nop.stream.checkpoint.cleanup-fail:jobName={}", jobName, e);
+        }
+
+        for (StreamTask task : tasks) {
+            task.notifyCheckpointComplete(checkpoint.checkpointId);
+        }
+    }
+
+    public synchronized void abortCheckpoint(long checkpointId, String reason) {
+        PendingCheckpoint checkpoint = pending;
+        if (checkpoint == null || checkpoint.checkpointId != checkpointId)
+            return;
+
+        pending = null;
+        checkpoint.timeoutFuture.cancel(false);
+        metrics.onCheckpointFailed(checkpointId);
+        LOG.warn("nop.stream.checkpoint.aborted:jobName={},checkpointId={},reason={}", jobName, checkpointId, reason);
+
+        for (StreamTask task : tasks) {
+            task.abortCheckpoint(checkpointId);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.stream.core.operators.Output;
+import io.nop.stream.core.streamrecord.LatencyMarker;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+import io.nop.stream.core.streamrecord.watermark.WatermarkStatus;
+import io.nop.stream.core.util.OutputTag;
+
+/**
+ * 没有下游算子时使用，例如sink的输出
+ */
+public class DiscardingOutput<T> implements Output<StreamRecord<T>> {
+    @Override
+    public void collect(StreamRecord<T> record) {
+    }
+
+    @Override
+    public <X> void collect(OutputTag<X> outputTag, StreamRecord<X> record) {
+    }
+
+    @Override
+    public void emitWatermark(Watermark mark) {
+    }
+
+    @Override
+    public void emitWatermarkStatus(WatermarkStatus watermarkStatus) {
+    }
+
+    @Override
+    public void emitLatencyMarker(LatencyMarker latencyMarker) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
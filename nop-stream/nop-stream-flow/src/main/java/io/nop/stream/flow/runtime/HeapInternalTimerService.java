@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.stream.checkpoint.snapshot.TimerSnapshot;
+import io.nop.stream.core.operators.InternalTimerService;
+import io.nop.stream.core.operators.KeyContext;
+import io.nop.stream.core.operators.ProcessingTimeService;
+import io.nop.stream.core.operators.Triggerable;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于优先队列的定时器服务。相同(时间, key, namespace)的定时器只会注册一次。
+ * 处理时间定时器只向ProcessingTimeService注册最早的一个，触发后再注册下一个。
+ */
+public class HeapInternalTimerService<K, N> implements InternalTimerService<N> {
+    private final String name;
+    private final KeyContext keyContext;
+    private final ProcessingTimeService processingTimeService;
+    private final Triggerable<K, N> triggerable;
+
+    private final PriorityQueue<TimerHeapInternalTimer<K, N>> eventTimeTimers = new PriorityQueue<>();
+    private final Set<TimerHeapInternalTimer<K, N>> eventTimeTimerSet = new HashSet<>();
+    private final PriorityQueue<TimerHeapInternalTimer<K, N>> processingTimeTimers = new PriorityQueue<>();
+    private final Set<TimerHeapInternalTimer<K, N>> processingTimeTimerSet = new HashSet<>();
+
+    private long currentWatermark = Long.MIN_VALUE;
+
+    private ScheduledFuture<?> nextTimer;
+    private long nextTimerTime = Long.MAX_VALUE;
+
+    public HeapInternalTimerService(String name, KeyContext keyContext,
+                                    ProcessingTimeService processingTimeService,
+                                    Triggerable<K, N> triggerable) {
+        this.name = name;
+        this.keyContext = keyContext;
+        this.processingTimeService = processingTimeService;
+        this.triggerable = triggerable;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int numEventTimeTimers() {
+        return eventTimeTimers.size();
+    }
+
+    public int numProcessingTimeTimers() {
+        return processingTimeTimers.size();
+    }
+
+    @Override
+    public long currentProcessingTime() {
+        return processingTimeService.getCurrentProcessingTime();
+    }
+
+    @Override
+    public long currentWatermark() {
+        return currentWatermark;
+    }
+
+    @SuppressWarnings("unchecked")
+    private TimerHeapInternalTimer<K, N> newTimer(N namespace, long time) {
+        return new TimerHeapInternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
+    }
+
+    @Override
+    public void registerProcessingTimeTimer(N namespace, long time) {
+        addProcessingTimeTimer(newTimer(namespace, time));
+    }
+
+    private void addProcessingTimeTimer(TimerHeapInternalTimer<K, N> timer) {
+        if (!processingTimeTimerSet.add(timer))
+            return;
+
+        processingTimeTimers.add(timer);
+        long time = timer.getTimestamp();
+        if (time < nextTimerTime) {
+            if (nextTimer != null)
+                nextTimer.cancel(false);
+            nextTimerTime = time;
+            nextTimer = processingTimeService.registerTimer(time, this::onProcessingTime);
+        }
+    }
+
+    @Override
+    public void deleteProcessingTimeTimer(N namespace, long time) {
+        TimerHeapInternalTimer<K, N> timer = newTimer(namespace, time);
+        if (processingTimeTimerSet.remove(timer))
+            processingTimeTimers.remove(timer);
+    }
+
+    @Override
+    public void registerEventTimeTimer(N namespace, long time) {
+        addEventTimeTimer(newTimer(namespace, time));
+    }
+
+    private void addEventTimeTimer(TimerHeapInternalTimer<K, N> timer) {
+        if (eventTimeTimerSet.add(timer))
+            eventTimeTimers.add(timer);
+    }
+
+    @Override
+    public void deleteEventTimeTimer(N namespace, long time) {
+        TimerHeapInternalTimer<K, N> timer = newTimer(namespace, time);
+        if (eventTimeTimerSet.remove(timer))
+            eventTimeTimers.remove(timer);
+    }
+
+    @Override
+    public void forEachEventTimeTimer(BiConsumer<N, Long> consumer) {
+        for (TimerHeapInternalTimer<K, N> timer : eventTimeTimers) {
+            consumer.accept(timer.getNamespace(), timer.getTimestamp());
+        }
+    }
+
+    @Override
+    public void forEachProcessingTimeTimer(BiConsumer<N, Long> consumer) {
+        for (TimerHeapInternalTimer<K, N> timer : processingTimeTimers) {
+            consumer.accept(timer.getNamespace(), timer.getTimestamp());
+        }
+    }
+
+    public void advanceWatermark(long time) throws Exception {
+        currentWatermark = time;
+
+        TimerHeapInternalTimer<K, N> timer;
+        while ((timer = eventTimeTimers.peek()) != null && timer.getTimestamp() <= time) {
+            eventTimeTimers.poll();
+            eventTimeTimerSet.remove(timer);
+            keyContext.setCurrentKey(timer.getKey());
+            triggerable.onEventTime(timer);
+        }
+    }
+
+    void onProcessingTime(long time) throws Exception {
+        nextTimer = null;
+        nextTimerTime = Long.MAX_VALUE;
+
+        TimerHeapInternalTimer<K, N> timer;
+        while ((timer = processingTimeTimers.peek()) != null && timer.getTimestamp() <= time) {
+            processingTimeTimers.poll();
+            processingTimeTimerSet.remove(timer);
+            keyContext.setCurrentKey(timer.getKey());
+            triggerable.onProcessingTime(timer);
+        }
+
+        if (timer != null && timer.getTimestamp() < nextTimerTime) {
+            nextTimerTime = timer.getTimestamp();
+            nextTimer = processingTimeService.registerTimer(nextTimerTime, this::onProcessingTime);
+        }
+    }
+
+    public void snapshotTimers(List<TimerSnapshot> ret) {
+        for (TimerHeapInternalTimer<K, N> timer : eventTimeTimers) {
+            ret.add(new TimerSnapshot(name, true, timer.getTimestamp(), timer.getKey(), timer.getNamespace()));
+        }
+        for (TimerHeapInternalTimer<K, N> timer : processingTimeTimers) {
+            ret.add(new TimerSnapshot(name, false, timer.getTimestamp(), timer.getKey(), timer.getNamespace()));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void restoreTimer(TimerSnapshot snapshot) {
+        TimerHeapInternalTimer<K, N> timer = new TimerHeapInternalTimer<>(snapshot.getTimestamp(),
+                (K) snapshot.getKey(), (N) snapshot.getNamespace());
+        if (snapshot.isEventTime()) {
+            addEventTimeTimer(timer);
+        } else {
+            addProcessingTimeTimer(timer);
+        }
+    }
+
+    public void cancel() {
+        if (nextTimer != null) {
+            nextTimer.cancel(false);
+            nextTimer = null;
+        }
+    }
+}
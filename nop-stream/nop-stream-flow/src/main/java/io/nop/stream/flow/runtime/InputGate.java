@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 子任务的输入。上游所有通道共享一个有界队列，队列满时上游线程阻塞在put上，从而把背压传递到数据源。
+ * 定时器回调等mail放在单独的无界队列中，并向数据队列中投递一个唤醒标记，保证子任务线程能够及时处理。
+ * 子任务的所有算子调用都在同一个线程中执行，因此算子内部不需要同步。
+ */
+public class InputGate {
+    static final Object WAKEUP = new Object();
+
+    private final int numChannels;
+    private final ArrayBlockingQueue<Object> queue;
+    private final ConcurrentLinkedQueue<Runnable> mails = new ConcurrentLinkedQueue<>();
+
+    public InputGate(int numChannels, int capacity) {
+        this.numChannels = numChannels;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public boolean offer(Object element) {
+        return queue.offer(element);
+    }
+
+    public void put(Object element) throws InterruptedException {
+        queue.put(element);
+    }
+
+    public void putMail(Runnable mail) {
+        mails.add(mail);
+        // 队列满时子任务线程不会阻塞在take上，它会在处理完当前批次之后检查mail
+        queue.offer(WAKEUP);
+    }
+
+    public Runnable pollMail() {
+        return mails.poll();
+    }
+
+    /**
+     * 批量取出元素。队列为空时阻塞等待
+     */
+    public int take(List<Object> batch, int maxElements) throws InterruptedException {
+        int count = queue.drainTo(batch, maxElements);
+        if (count > 0)
+            return count;
+        batch.add(queue.take());
+        return 1 + queue.drainTo(batch, maxElements - 1);
+    }
+}
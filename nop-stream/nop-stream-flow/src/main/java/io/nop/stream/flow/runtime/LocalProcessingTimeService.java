@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.api.core.time.CoreMetrics;
+import io.nop.stream.core.operators.ProcessingTimeService;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时器由作业共享的调度线程触发，但回调通过mail投递到子任务线程中执行，因此与算子的数据处理不会并发
+ */
+public class LocalProcessingTimeService implements ProcessingTimeService {
+    private final ScheduledExecutorService scheduler;
+    private final InputGate mailbox;
+
+    public LocalProcessingTimeService(ScheduledExecutorService scheduler, InputGate mailbox) {
+        this.scheduler = scheduler;
+        this.mailbox = mailbox;
+    }
+
+    @Override
+    public long getCurrentProcessingTime() {
+        return CoreMetrics.currentTimeMillis();
+    }
+
+    @Override
+    public ScheduledFuture<?> registerTimer(long timestamp, ProcessingTimeCallback target) {
+        long delay = Math.max(timestamp - getCurrentProcessingTime(), 0);
+        return scheduler.schedule(() -> mailbox.putMail(() -> {
+            try {
+                target.onProcessingTime(timestamp);
+            } catch (Exception e) {
+                throw NopException.adapt(e);
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,441 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.commons.concurrent.thread.NamedThreadFactory;
+import io.nop.commons.io.serialize.JavaSerializer;
+import io.nop.stream.checkpoint.metrics.CheckpointMetricsImpl;
+import io.nop.stream.checkpoint.metrics.ICheckpointMetrics;
+import io.nop.stream.checkpoint.snapshot.TaskStateSnapshot;
+import io.nop.stream.checkpoint.state.SpillableKeyedStateBackend;
+import io.nop.stream.checkpoint.storage.CheckpointMetadata;
+import io.nop.stream.checkpoint.storage.FileCheckpointStorage;
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.common.state.KeyedStateBackend;
+import io.nop.stream.core.common.state.heap.HeapKeyedStateBackend;
+import io.nop.stream.core.operators.OneInputStreamOperator;
+import io.nop.stream.core.operators.Output;
+import io.nop.stream.core.operators.StreamOperator;
+import io.nop.stream.core.operators.StreamOperatorParameters;
+import io.nop.stream.flow.graph.StreamGraph;
+import io.nop.stream.flow.graph.StreamNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static io.nop.stream.checkpoint.NopStreamCheckpointConfigs.CFG_STREAM_CHECKPOINT_MAX_DELTA_CHAIN;
+import static io.nop.stream.checkpoint.NopStreamCheckpointConfigs.CFG_STREAM_CHECKPOINT_RETAINED_COUNT;
+import static io.nop.stream.checkpoint.NopStreamCheckpointConfigs.CFG_STREAM_CHECKPOINT_TIMEOUT;
+import static io.nop.stream.checkpoint.NopStreamCheckpointConfigs.CFG_STREAM_STATE_MAX_MEMORY_ENTRIES;
+import static io.nop.stream.flow.NopStreamFlowErrors.ARG_JOB_NAME;
+import static io.nop.stream.flow.NopStreamFlowErrors.ARG_OPERATOR_NAME;
+import static io.nop.stream.flow.NopStreamFlowErrors.ERR_STREAM_FLOW_COPY_OPERATOR_FAIL;
+import static io.nop.stream.flow.NopStreamFlowErrors.ERR_STREAM_FLOW_JOB_CANCELLED;
+import static io.nop.stream.flow.NopStreamFlowErrors.ERR_STREAM_FLOW_JOB_FAIL;
+import static io.nop.stream.flow.NopStreamFlowErrors.ERR_STREAM_FLOW_NO_SOURCE;
+
+/**
+ * 将StreamGraph翻译为本地执行的子任务并负责作业的启动、取消和结束通知。
+ * <p>
+ * 在keyBy边上切分执行阶段(stage)，同一阶段内的算子串联(chaining)在同一个线程中直接调用，
+ * 阶段之间通过有界的InputGate按照key的hash分区传递数据。数据源阶段的并行度固定为1，keyed阶段使用环境指定的并行度。
+ * <p>
+ * 启用checkpoint时keyed状态使用可以溢出到磁盘的SpillableKeyedStateBackend，启动时从最近一次完成的checkpoint恢复。
+ * 恢复时按照key重新分区，因此两次运行的并行度可以不同。
+ */
+public class LocalStreamJob implements StreamTask.TaskListener {
+    static final Logger LOG = LoggerFactory.getLogger(LocalStreamJob.class);
+
+    private final String jobName;
+    private final List<StreamTask> tasks = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final ScheduledExecutorService timerService;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    private final FileCheckpointStorage checkpointStorage;
+    private final CheckpointMetadata restoredCheckpoint;
+    private CheckpointCoordinator checkpointCoordinator;
+
+    static class Stage {
+        final StreamNode head;
+        final List<StreamNode> nodes = new ArrayList<>();
+        int parallelism;
+        InputGate[] gates;
+
+        Stage(StreamNode head) {
+            this.head = head;
+            this.nodes.add(head);
+        }
+    }
+
+    public LocalStreamJob(String jobName, StreamGraph graph, int parallelism, int bufferCapacity,
+                          int drainBatchSize) {
+        this(jobName, graph, parallelism, bufferCapacity, drainBatchSize, null, null);
+    }
+
+    /**
+     * @param checkpointDir 为null时不启用checkpoint。作业的checkpoint保存在checkpointDir/jobName目录下
+     */
+    public LocalStreamJob(String jobName, StreamGraph graph, int parallelism, int bufferCapacity,
+                          int drainBatchSize, Duration checkpointInterval, File checkpointDir) {
+        this.jobName = jobName;
+        this.timerService = Executors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory("nop-stream-timer-" + jobName, true));
+        try {
+            if (checkpointDir != null) {
+                this.checkpointStorage = new FileCheckpointStorage(new File(checkpointDir, jobName));
+                this.restoredCheckpoint = checkpointStorage.loadLatest();
+            } else {
+                this.checkpointStorage = null;
+                this.restoredCheckpoint = null;
+            }
+
+            long beginTime = System.nanoTime();
+            buildTasks(graph, parallelism, bufferCapacity, drainBatchSize);
+
+            if (checkpointStorage != null)
+                initCheckpointCoordinator(checkpointInterval, beginTime);
+        } catch (RuntimeException e) {
+            timerService.shutdownNow();
+            throw e;
+        }
+    }
+
+    private void initCheckpointCoordinator(Duration checkpointInterval, long beginTime) {
+        ICheckpointMetrics metrics = new CheckpointMetricsImpl(jobName);
+        long nextCheckpointId = 1;
+        if (restoredCheckpoint != null) {
+            nextCheckpointId = restoredCheckpoint.getCheckpointId() + 1;
+            metrics.onRestored(restoredCheckpoint.getCheckpointId(), System.nanoTime() - beginTime);
+            LOG.info("nop.stream.flow.restore-from-checkpoint:jobName={},checkpointId={}", jobName,
+                    restoredCheckpoint.getCheckpointId());
+        }
+
+        // 恢复之后的第一个checkpoint总是全量的
+        checkpointCoordinator = new CheckpointCoordinator(jobName, checkpointStorage, metrics, timerService,
+                checkpointInterval.toMillis(), CFG_STREAM_CHECKPOINT_TIMEOUT.get().toMillis(),
+                CFG_STREAM_CHECKPOINT_MAX_DELTA_CHAIN.get(), CFG_STREAM_CHECKPOINT_RETAINED_COUNT.get(),
+                nextCheckpointId);
+        for (StreamTask task : tasks) {
+            task.setCheckpointCoordinator(checkpointCoordinator);
+            checkpointCoordinator.addTask(task);
+        }
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public List<StreamTask> getTasks() {
+        return tasks;
+    }
+
+    public List<TaskMetrics> getTaskMetrics() {
+        List<TaskMetrics> ret = new ArrayList<>(tasks.size());
+        for (StreamTask task : tasks) {
+            ret.add(task.getMetrics());
+        }
+        return ret;
+    }
+
+    public CheckpointCoordinator getCheckpointCoordinator() {
+        return checkpointCoordinator;
+    }
+
+    /**
+     * 启动时恢复的checkpoint，没有恢复时返回null
+     */
+    public CheckpointMetadata getRestoredCheckpoint() {
+        return restoredCheckpoint;
+    }
+
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    private void buildTasks(StreamGraph graph, int parallelism, int bufferCapacity, int drainBatchSize) {
+        List<Stage> stages = new ArrayList<>();
+        Map<StreamNode, Stage> stageMap = new IdentityHashMap<>();
+
+        // 节点按照创建顺序排列，输入节点总是在前面
+        for (StreamNode node : graph.getNodes()) {
+            Stage stage;
+            if (node.isSource() || node.isKeyed()) {
+                stage = new Stage(node);
+                stages.add(stage);
+            } else {
+                stage = stageMap.get(node.getInput());
+                stage.nodes.add(node);
+            }
+            stageMap.put(node, stage);
+        }
+
+        if (stages.isEmpty() || !stages.get(0).head.isSource())
+            throw new NopException(ERR_STREAM_FLOW_NO_SOURCE);
+
+        for (Stage stage : stages) {
+            stage.parallelism = stage.head.isSource() || isNonParallel(stage) ? 1 : parallelism;
+            stage.gates = new InputGate[stage.parallelism];
+            int numChannels = stage.head.isSource() ? 0 : stageMap.get(stage.head.getInput()).parallelism;
+            // 数据源子任务的InputGate只用于接收mail
+            int capacity = stage.head.isSource() ? 1 : bufferCapacity;
+            for (int i = 0; i < stage.parallelism; i++) {
+                stage.gates[i] = new InputGate(numChannels, capacity);
+            }
+        }
+
+        for (Stage stage : stages) {
+            for (int i = 0; i < stage.parallelism; i++) {
+                tasks.add(buildTask(stage, i, stageMap, drainBatchSize));
+            }
+        }
+    }
+
+    private boolean isNonParallel(Stage stage) {
+        for (StreamNode node : stage.nodes) {
+            if (node.isNonParallel())
+                return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private StreamTask buildTask(Stage stage, int subtaskIndex, Map<StreamNode, Stage> stageMap,
+                                 int drainBatchSize) {
+        String taskName = stage.head.getName() + "(" + (subtaskIndex + 1) + "/" + stage.parallelism + ")";
+        InputGate gate = stage.gates[subtaskIndex];
+        StreamTask task = new StreamTask(taskName, subtaskIndex, gate, drainBatchSize);
+        task.setTaskId(getTaskId(stage.head, subtaskIndex));
+        task.setListener(this);
+        LocalProcessingTimeService processingTimeService = new LocalProcessingTimeService(timerService, gate);
+
+        Map<StreamNode, StreamOperator<?>> operators = new HashMap<>();
+        for (StreamNode node : stage.nodes) {
+            if (!node.isSource())
+                operators.put(node, copyOperator(node, subtaskIndex));
+        }
+
+        // 逆序构造，保证下游算子在构造上游的输出时已经初始化
+        for (int i = stage.nodes.size() - 1; i >= 0; i--) {
+            StreamNode node = stage.nodes.get(i);
+            Output output = buildOutput(task, node, subtaskIndex, operators, stageMap);
+            if (node.isSource()) {
+                task.setSource(node.getSource(), output);
+                continue;
+            }
+
+            StreamOperator<?> operator = operators.get(node);
+            KeyedStateBackend<?> stateBackend = null;
+            LocalTimeServiceManager<?> timeServiceManager = null;
+            if (node.isKeyed()) {
+                stateBackend = createStateBackend(task);
+                timeServiceManager = new LocalTimeServiceManager<>(operator, processingTimeService);
+                task.addTimeServiceManager(timeServiceManager);
+            }
+            operator.setup(new StreamOperatorParameters(node.getName(), subtaskIndex, stage.parallelism, output,
+                    processingTimeService, node.getKeySelector(), stateBackend, timeServiceManager));
+        }
+
+        for (StreamNode node : stage.nodes) {
+            if (!node.isSource())
+                task.addOperator(operators.get(node));
+        }
+
+        if (!stage.head.isSource())
+            task.setHeadOperator((OneInputStreamOperator<?, ?>) operators.get(stage.head));
+
+        if (restoredCheckpoint != null)
+            restoreTask(task, stage, subtaskIndex);
+        return task;
+    }
+
+    static String getTaskId(StreamNode head, int subtaskIndex) {
+        return "n" + head.getId() + "-" + subtaskIndex;
+    }
+
+    private KeyedStateBackend<?> createStateBackend(StreamTask task) {
+        if (checkpointStorage == null)
+            return new HeapKeyedStateBackend<>();
+
+        SpillableKeyedStateBackend<?> stateBackend = new SpillableKeyedStateBackend<>(
+                new File(checkpointStorage.getDir(), "spill/" + task.getTaskId()),
+                CFG_STREAM_STATE_MAX_MEMORY_ENTRIES.get());
+        task.setStateBackend(stateBackend);
+        return stateBackend;
+    }
+
+    /**
+     * 恢复同一节点的所有原有子任务的状态，每个子任务只保留按照当前并行度分区之后属于自己的key
+     */
+    private void restoreTask(StreamTask task, Stage stage, int subtaskIndex) {
+        String prefix = "n" + stage.head.getId() + "-";
+        int parallelism = stage.parallelism;
+        Predicate<Object> keyFilter = parallelism <= 1 ? null
+                : key -> PartitionOutput.selectChannel(key, parallelism) == subtaskIndex;
+
+        for (Map.Entry<String, List<String>> entry : restoredCheckpoint.getTaskFiles().entrySet()) {
+            if (!entry.getKey().startsWith(prefix))
+                continue;
+
+            List<TaskStateSnapshot> snapshots = new ArrayList<>(entry.getValue().size());
+            for (String fileName : entry.getValue()) {
+                snapshots.add(checkpointStorage.readTaskState(fileName));
+            }
+            task.restoreState(snapshots, keyFilter);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Output buildOutput(StreamTask task, StreamNode node, int subtaskIndex,
+                                                Map<StreamNode, StreamOperator<?>> operators,
+                                                Map<StreamNode, Stage> stageMap) {
+        List<StreamNode> children = node.getOutputs();
+        if (children.isEmpty())
+            return new DiscardingOutput();
+
+        List<Output> outputs = new ArrayList<>(children.size());
+        for (StreamNode child : children) {
+            if (child.isKeyed()) {
+                PartitionOutput<?> output = new PartitionOutput<>((KeySelector) child.getKeySelector(),
+                        stageMap.get(child).gates, subtaskIndex, task.getMetrics(), checkpointStorage != null);
+                task.addPartitionOutput(output);
+                outputs.add(output);
+            } else {
+                outputs.add(new ChainingOutput(
+                        (OneInputStreamOperator<?, ?>) operators.get(child), task.getMetrics()));
+            }
+        }
+
+        if (outputs.size() == 1)
+            return outputs.get(0);
+        return new BroadcastingOutput(outputs);
+    }
+
+    /**
+     * 第一个子任务直接使用StreamGraph中的算子，其他子任务使用序列化复制的算子，避免子任务之间共享可变状态
+     */
+    private StreamOperator<?> copyOperator(StreamNode node, int subtaskIndex) {
+        StreamOperator<?> operator = node.getOperator();
+        if (subtaskIndex == 0)
+            return operator;
+
+        try {
+            byte[] bytes = JavaSerializer.INSTANCE.serializeToByteArray(operator);
+            return (StreamOperator<?>) JavaSerializer.INSTANCE.deserializeFromByteArray(bytes);
+        } catch (Exception e) {
+            throw new NopException(ERR_STREAM_FLOW_COPY_OPERATOR_FAIL, e)
+                    .param(ARG_OPERATOR_NAME, node.getName());
+        }
+    }
+
+    public void start() {
+        runningTasks.set(tasks.size());
+        for (StreamTask task : tasks) {
+            Thread thread = new Thread(task, "nop-stream-" + jobName + "-" + task.getTaskName());
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        // 先启动下游，再启动数据源
+        for (int i = threads.size() - 1; i >= 0; i--) {
+            threads.get(i).start();
+        }
+
+        if (checkpointCoordinator != null)
+            checkpointCoordinator.start();
+    }
+
+    public void cancel() {
+        if (cancelled)
+            return;
+        cancelled = true;
+
+        for (StreamTask task : tasks) {
+            if (task.getSource() != null) {
+                try {
+                    task.getSource().cancel();
+                } catch (Exception e) {
+                    LOG.warn("nop.stream.flow.cancel-source-fail:task={}", task, e);
+                }
+            }
+        }
+
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void onTaskFinished(StreamTask task, Throwable error) {
+        if (checkpointCoordinator != null)
+            checkpointCoordinator.stopTrigger();
+
+        if (error != null) {
+            // 取消导致的其他子任务异常不作为失败原因
+            if (!(error instanceof CancellationException) && !cancelled)
+                failure.compareAndSet(null, error);
+            cancel();
+        }
+
+        if (runningTasks.decrementAndGet() == 0) {
+            if (checkpointCoordinator != null)
+                checkpointCoordinator.shutdown();
+            timerService.shutdownNow();
+
+            Throwable e = failure.get();
+            if (e != null) {
+                future.completeExceptionally(new NopException(ERR_STREAM_FLOW_JOB_FAIL, e)
+                        .param(ARG_JOB_NAME, jobName));
+            } else if (cancelled) {
+                future.completeExceptionally(new NopException(ERR_STREAM_FLOW_JOB_CANCELLED)
+                        .param(ARG_JOB_NAME, jobName));
+            } else {
+                LOG.debug("nop.stream.flow.job-finished:jobName={},metrics={}", jobName, getTaskMetrics());
+                future.complete(null);
+            }
+        }
+    }
+
+    /**
+     * 等待作业执行结束。作业失败或者被取消时抛出NopException
+     */
+    public void awaitTermination() {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw NopException.adapt(e);
+        } catch (ExecutionException e) {
+            throw NopException.adapt(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.stream.checkpoint.snapshot.TimerSnapshot;
+import io.nop.stream.core.operators.InternalTimeServiceManager;
+import io.nop.stream.core.operators.InternalTimerService;
+import io.nop.stream.core.operators.KeyContext;
+import io.nop.stream.core.operators.ProcessingTimeService;
+import io.nop.stream.core.operators.Triggerable;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LocalTimeServiceManager<K> implements InternalTimeServiceManager<K> {
+    private final KeyContext keyContext;
+    private final ProcessingTimeService processingTimeService;
+    private final Map<String, HeapInternalTimerService<K, ?>> timerServices = new LinkedHashMap<>();
+
+    /**
+     * 从checkpoint恢复的定时器。定时器服务在算子open时才创建，创建时再注册这些定时器
+     */
+    private final Map<String, List<TimerSnapshot>> restoredTimers = new HashMap<>();
+
+    public LocalTimeServiceManager(KeyContext keyContext, ProcessingTimeService processingTimeService) {
+        this.keyContext = keyContext;
+        this.processingTimeService = processingTimeService;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <N> InternalTimerService<N> getInternalTimerService(String name, Triggerable<K, N> triggerable) {
+        return (InternalTimerService<N>) timerServices.computeIfAbsent(name, k -> {
+            HeapInternalTimerService<K, N> timerService = new HeapInternalTimerService<>(name, keyContext,
+                    processingTimeService, triggerable);
+            List<TimerSnapshot> timers = restoredTimers.remove(name);
+            if (timers != null) {
+                for (TimerSnapshot timer : timers) {
+                    timerService.restoreTimer(timer);
+                }
+            }
+            return timerService;
+        });
+    }
+
+    public List<TimerSnapshot> snapshotTimers() {
+        List<TimerSnapshot> ret = new ArrayList<>();
+        for (HeapInternalTimerService<K, ?> timerService : timerServices.values()) {
+            timerService.snapshotTimers(ret);
+        }
+        // 尚未被算子使用的恢复定时器也需要保留
+        for (List<TimerSnapshot> timers : restoredTimers.values()) {
+            ret.addAll(timers);
+        }
+        return ret;
+    }
+
+    public void restoreTimers(List<TimerSnapshot> timers) {
+        for (TimerSnapshot timer : timers) {
+            restoredTimers.computeIfAbsent(timer.getServiceName(), k -> new ArrayList<>()).add(timer);
+        }
+    }
+
+    @Override
+    public void advanceWatermark(Watermark watermark) throws Exception {
+        for (HeapInternalTimerService<K, ?> timerService : timerServices.values()) {
+            timerService.advanceWatermark(watermark.getTimestamp());
+        }
+    }
+
+    @Override
+    public int numTimers() {
+        int count = 0;
+        for (HeapInternalTimerService<K, ?> timerService : timerServices.values()) {
+            count += timerService.numEventTimeTimers() + timerService.numProcessingTimeTimers();
+        }
+        return count;
+    }
+
+    public void cancel() {
+        for (HeapInternalTimerService<K, ?> timerService : timerServices.values()) {
+            timerService.cancel();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.stream.core.common.functions.KeySelector;
+import io.nop.stream.core.operators.Output;
+import io.nop.stream.core.streamrecord.LatencyMarker;
+import io.nop.stream.core.streamrecord.StreamElement;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+import io.nop.stream.core.streamrecord.watermark.WatermarkStatus;
+import io.nop.stream.core.util.OutputTag;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * 按照key的hash值把数据发送到下游某个子任务的输入队列，watermark等控制事件发送到所有下游子任务。
+ * 上游算子可能复用StreamRecord对象，因此跨线程传递时总是创建新的StreamRecord。
+ * <p>
+ * 启用checkpoint时数据也需要标记来源通道，下游对齐barrier时暂存已经收到barrier的通道的后续数据。
+ */
+public class PartitionOutput<T> implements Output<StreamRecord<T>> {
+    private final KeySelector<T, ?> keySelector;
+    private final InputGate[] gates;
+    private final int channel;
+    private final TaskMetrics metrics;
+    private final boolean channelTagged;
+
+    public PartitionOutput(KeySelector<T, ?> keySelector, InputGate[] gates, int channel, TaskMetrics metrics,
+                           boolean channelTagged) {
+        this.keySelector = keySelector;
+        this.gates = gates;
+        this.channel = channel;
+        this.metrics = metrics;
+        this.channelTagged = channelTagged;
+    }
+
+    public PartitionOutput(KeySelector<T, ?> keySelector, InputGate[] gates, int channel, TaskMetrics metrics) {
+        this(keySelector, gates, channel, metrics, false);
+    }
+
+    public static int selectChannel(Object key, int numChannels) {
+        if (numChannels == 1)
+            return 0;
+        int h = key == null ? 0 : key.hashCode();
+        // 打散hashCode的低位，避免连续整数key集中在少数分区
+        h = (h ^ (h >>> 16)) * 0x45d9f3b;
+        h = h ^ (h >>> 16);
+        return Math.floorMod(h, numChannels);
+    }
+
+    @Override
+    public void collect(StreamRecord<T> record) {
+        T value = record.getValue();
+        Object key;
+        try {
+            key = keySelector.getKey(value);
+        } catch (Exception e) {
+            throw NopException.adapt(e);
+        }
+        StreamRecord<T> copy = record.hasTimestamp() ? new StreamRecord<>(value, record.getTimestamp())
+                : new StreamRecord<>(value);
+        InputGate gate = gates[selectChannel(key, gates.length)];
+        send(gate, channelTagged ? new ChannelEvent(channel, copy) : copy);
+        metrics.incRecordsOut();
+    }
+
+    @Override
+    public <X> void collect(OutputTag<X> outputTag, StreamRecord<X> record) {
+        metrics.incSideOutputDropped();
+    }
+
+    @Override
+    public void emitWatermark(Watermark mark) {
+        broadcast(mark);
+    }
+
+    @Override
+    public void emitWatermarkStatus(WatermarkStatus watermarkStatus) {
+        broadcast(watermarkStatus);
+    }
+
+    @Override
+    public void emitLatencyMarker(LatencyMarker latencyMarker) {
+        // 延迟标记只需要沿着一条路径传递
+        send(gates[latencyMarker.getSubtaskIndex() % gates.length], new ChannelEvent(channel, latencyMarker));
+    }
+
+    public void broadcastBarrier(CheckpointBarrier barrier) {
+        broadcast(barrier);
+    }
+
+    /**
+     * 通知下游本通道的输入已经结束
+     */
+    public void endInput() {
+        for (InputGate gate : gates) {
+            send(gate, new ChannelEvent(channel, null));
+        }
+    }
+
+    private void broadcast(StreamElement element) {
+        for (InputGate gate : gates) {
+            send(gate, new ChannelEvent(channel, element));
+        }
+    }
+
+    private void send(InputGate gate, Object element) {
+        if (gate.offer(element))
+            return;
+
+        long beginTime = System.nanoTime();
+        try {
+            gate.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("nop.stream.flow.task-interrupted");
+        }
+        metrics.addBackPressuredNanos(System.nanoTime() - beginTime);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,487 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.commons.util.IoHelper;
+import io.nop.stream.checkpoint.snapshot.TaskStateSnapshot;
+import io.nop.stream.checkpoint.snapshot.TimerSnapshot;
+import io.nop.stream.checkpoint.state.CheckpointableKeyedStateBackend;
+import io.nop.stream.checkpoint.state.KeyedStateSnapshot;
+import io.nop.stream.core.common.eventtime.IndexedCombinedWatermarkStatus;
+import io.nop.stream.core.operators.OneInputStreamOperator;
+import io.nop.stream.core.operators.Output;
+import io.nop.stream.core.operators.StreamOperator;
+import io.nop.stream.core.streamrecord.StreamElement;
+import io.nop.stream.core.streamrecord.StreamRecord;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+import io.nop.stream.core.streamrecord.watermark.WatermarkStatus;
+import io.nop.stream.flow.source.CheckpointedSource;
+import io.nop.stream.flow.source.SourceFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Predicate;
+
+/**
+ * 一个执行阶段(stage)的一个并行子任务，在单个线程中依次执行串联在一起的所有算子。
+ * 数据源子任务在源函数的collect间隙处理mail，其他子任务从InputGate中批量读取数据和mail。
+ * <p>
+ * 启用checkpoint时，数据源子任务在处理触发checkpoint的mail时做快照并向下游发送barrier。其他子任务收到某个通道的barrier之后
+ * 暂存该通道的后续数据，所有通道都收到barrier(或者已经结束)之后对keyed状态和定时器做快照，再把barrier继续向下游传递。
+ */
+public class StreamTask implements Runnable {
+    static final Logger LOG = LoggerFactory.getLogger(StreamTask.class);
+
+    private final String taskName;
+    private final int subtaskIndex;
+    private final InputGate inputGate;
+    private final int drainBatchSize;
+    private final TaskMetrics metrics;
+
+    /**
+     * 按照拓扑顺序排列，第一个为头节点
+     */
+    private final List<StreamOperator<?>> operators = new ArrayList<>();
+    private final List<PartitionOutput<?>> partitionOutputs = new ArrayList<>();
+    private final List<LocalTimeServiceManager<?>> timeServiceManagers = new ArrayList<>();
+
+    private SourceFunction<Object> source;
+    private Output<StreamRecord<Object>> sourceOutput;
+    private OneInputStreamOperator<Object, ?> headOperator;
+
+    private TaskListener listener;
+
+    private String taskId;
+    private CheckpointableKeyedStateBackend<?> stateBackend;
+    private CheckpointCoordinator checkpointCoordinator;
+
+    private IndexedCombinedWatermarkStatus watermarkStatus;
+    private int endedChannels;
+
+    // barrier对齐的状态
+    private boolean[] blockedChannels;
+    private int numBlockedChannels;
+    private long alignCheckpointId;
+    private boolean alignFull;
+    private final ArrayDeque<ChannelEvent> alignBuffer = new ArrayDeque<>();
+
+    /**
+     * 小于等于此id的barrier属于已经完成快照或者已经中止的checkpoint，直接忽略
+     */
+    private long lastHandledCheckpointId = Long.MIN_VALUE;
+
+    public interface TaskListener {
+        void onTaskFinished(StreamTask task, Throwable error);
+    }
+
+    public StreamTask(String taskName, int subtaskIndex, InputGate inputGate, int drainBatchSize) {
+        this.taskName = taskName;
+        this.subtaskIndex = subtaskIndex;
+        this.inputGate = inputGate;
+        this.drainBatchSize = drainBatchSize;
+        this.metrics = new TaskMetrics(taskName);
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public int getSubtaskIndex() {
+        return subtaskIndex;
+    }
+
+    public InputGate getInputGate() {
+        return inputGate;
+    }
+
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    public SourceFunction<Object> getSource() {
+        return source;
+    }
+
+    public void setListener(TaskListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 在多次运行之间保持不变的子任务标识，用于在checkpoint中查找子任务的状态文件
+     */
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public CheckpointableKeyedStateBackend<?> getStateBackend() {
+        return stateBackend;
+    }
+
+    public void setStateBackend(CheckpointableKeyedStateBackend<?> stateBackend) {
+        this.stateBackend = stateBackend;
+    }
+
+    public void setCheckpointCoordinator(CheckpointCoordinator checkpointCoordinator) {
+        this.checkpointCoordinator = checkpointCoordinator;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setSource(SourceFunction<?> source, Output<StreamRecord<?>> output) {
+        this.source = (SourceFunction<Object>) source;
+        this.sourceOutput = (Output) output;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setHeadOperator(OneInputStreamOperator<?, ?> headOperator) {
+        this.headOperator = (OneInputStreamOperator<Object, ?>) headOperator;
+    }
+
+    public void addOperator(StreamOperator<?> operator) {
+        operators.add(operator);
+    }
+
+    public void addPartitionOutput(PartitionOutput<?> output) {
+        partitionOutputs.add(output);
+    }
+
+    public void addTimeServiceManager(LocalTimeServiceManager<?> timeServiceManager) {
+        timeServiceManagers.add(timeServiceManager);
+    }
+
+    @Override
+    public void run() {
+        Throwable error = null;
+        try {
+            // 从尾部开始打开，保证头部算子在open中输出数据时下游已经就绪
+            for (int i = operators.size() - 1; i >= 0; i--) {
+                operators.get(i).open();
+            }
+
+            if (source != null) {
+                runSource();
+            } else {
+                runInput();
+            }
+
+            for (StreamOperator<?> operator : operators) {
+                operator.finish();
+            }
+
+            for (PartitionOutput<?> output : partitionOutputs) {
+                output.endInput();
+            }
+        } catch (InterruptedException | CancellationException e) {
+            error = new CancellationException(taskName);
+        } catch (Throwable e) {
+            LOG.error("nop.stream.flow.task-fail:taskName={}", taskName, e);
+            error = e;
+        } finally {
+            for (LocalTimeServiceManager<?> timeServiceManager : timeServiceManagers) {
+                timeServiceManager.cancel();
+            }
+
+            for (StreamOperator<?> operator : operators) {
+                try {
+                    operator.close();
+                } catch (Exception e) {
+                    LOG.warn("nop.stream.flow.close-operator-fail:taskName={}", taskName, e);
+                    if (error == null)
+                        error = e;
+                }
+            }
+
+            if (stateBackend instanceof AutoCloseable)
+                IoHelper.safeCloseObject((AutoCloseable) stateBackend);
+        }
+
+        if (listener != null)
+            listener.onTaskFinished(this, error);
+    }
+
+    private void processMails() {
+        Runnable mail;
+        while ((mail = inputGate.pollMail()) != null) {
+            metrics.incMails();
+            mail.run();
+        }
+    }
+
+    private void runSource() throws Exception {
+        SourceContextImpl ctx = new SourceContextImpl();
+        source.run(ctx);
+        metrics.addRecordsIn((int) ctx.count);
+
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedException();
+
+        // 有界数据源结束时推进watermark到最大值，触发所有事件时间定时器
+        processMails();
+        sourceOutput.emitWatermark(Watermark.MAX_WATERMARK);
+    }
+
+    class SourceContextImpl implements SourceFunction.SourceContext<Object> {
+        private final StreamRecord<Object> reuse = new StreamRecord<>(null);
+        long count;
+
+        @Override
+        public void collect(Object element) {
+            processMails();
+            count++;
+            reuse.eraseTimestamp();
+            sourceOutput.collect(reuse.replace(element));
+        }
+
+        @Override
+        public void collectWithTimestamp(Object element, long timestamp) {
+            processMails();
+            count++;
+            sourceOutput.collect(reuse.replace(element, timestamp));
+        }
+
+        @Override
+        public void emitWatermark(Watermark mark) {
+            processMails();
+            sourceOutput.emitWatermark(mark);
+        }
+    }
+
+    private void runInput() throws Exception {
+        int numChannels = inputGate.getNumChannels();
+        watermarkStatus = IndexedCombinedWatermarkStatus.forInputsCount(numChannels);
+        blockedChannels = new boolean[numChannels];
+        endedChannels = 0;
+
+        List<Object> batch = new ArrayList<>(drainBatchSize);
+
+        while (endedChannels < numChannels) {
+            processMails();
+
+            batch.clear();
+            int n = inputGate.take(batch, drainBatchSize);
+            int records = 0;
+            for (int i = 0; i < n; i++) {
+                if (processInput(batch.get(i)))
+                    records++;
+            }
+            metrics.addRecordsIn(records);
+        }
+    }
+
+    /**
+     * 返回true表示处理了一条数据
+     */
+    private boolean processInput(Object element) throws Exception {
+        if (element instanceof StreamRecord) {
+            @SuppressWarnings("unchecked")
+            StreamRecord<Object> record = (StreamRecord<Object>) element;
+            processRecord(record);
+            return true;
+        }
+
+        if (!(element instanceof ChannelEvent))
+            return false;
+
+        ChannelEvent event = (ChannelEvent) element;
+        if (numBlockedChannels > 0 && blockedChannels[event.channel]) {
+            alignBuffer.add(event);
+            return false;
+        }
+
+        if (event.isEndOfInput()) {
+            endedChannels++;
+            if (watermarkStatus.updateWatermark(event.channel, Long.MAX_VALUE))
+                headOperator.processWatermark(new Watermark(watermarkStatus.getCombinedWatermark()));
+            checkAlignment();
+        } else if (event.element.isRecord()) {
+            processRecord(event.element.asRecord());
+            return true;
+        } else if (event.element instanceof CheckpointBarrier) {
+            processBarrier(event.channel, (CheckpointBarrier) event.element);
+        } else {
+            processChannelEvent(event.channel, event.element);
+        }
+        return false;
+    }
+
+    private void processRecord(StreamRecord<Object> record) throws Exception {
+        headOperator.setKeyContextElement(record);
+        headOperator.processElement(record);
+    }
+
+    private void processBarrier(int channel, CheckpointBarrier barrier) throws Exception {
+        long checkpointId = barrier.getCheckpointId();
+        if (checkpointId <= lastHandledCheckpointId)
+            return;
+
+        if (numBlockedChannels > 0 && checkpointId > alignCheckpointId) {
+            // 收到更新的checkpoint的barrier，说明正在对齐的checkpoint已经被中止
+            lastHandledCheckpointId = alignCheckpointId;
+            releaseBlockedChannels();
+        }
+
+        if (numBlockedChannels == 0) {
+            alignCheckpointId = checkpointId;
+            alignFull = barrier.isFull();
+        }
+        blockedChannels[channel] = true;
+        numBlockedChannels++;
+        checkAlignment();
+    }
+
+    private void checkAlignment() throws Exception {
+        // 已经结束的通道不会再发送barrier
+        if (numBlockedChannels == 0 || numBlockedChannels + endedChannels < blockedChannels.length)
+            return;
+
+        lastHandledCheckpointId = alignCheckpointId;
+        performCheckpoint(alignCheckpointId, alignFull);
+        releaseBlockedChannels();
+    }
+
+    private void releaseBlockedChannels() throws Exception {
+        List<ChannelEvent> buffered = new ArrayList<>(alignBuffer);
+        alignBuffer.clear();
+        for (int i = 0; i < blockedChannels.length; i++) {
+            blockedChannels[i] = false;
+        }
+        numBlockedChannels = 0;
+
+        // 回放过程中可能开始下一次对齐，后续数据会重新进入alignBuffer
+        int records = 0;
+        for (ChannelEvent event : buffered) {
+            if (processInput(event))
+                records++;
+        }
+        metrics.addRecordsIn(records);
+    }
+
+    private void processChannelEvent(int channel, StreamElement element) throws Exception {
+        OneInputStreamOperator<Object, ?> head = this.headOperator;
+        if (element.isWatermark()) {
+            if (watermarkStatus.updateWatermark(channel, element.asWatermark().getTimestamp()))
+                head.processWatermark(new Watermark(watermarkStatus.getCombinedWatermark()));
+        } else if (element.isWatermarkStatus()) {
+            boolean wasIdle = watermarkStatus.isIdle();
+            if (watermarkStatus.updateStatus(channel, element.asWatermarkStatus().isIdle()))
+                head.processWatermark(new Watermark(watermarkStatus.getCombinedWatermark()));
+            if (wasIdle != watermarkStatus.isIdle())
+                head.processWatermarkStatus(watermarkStatus.isIdle() ? WatermarkStatus.IDLE : WatermarkStatus.ACTIVE);
+        } else if (element.isLatencyMarker()) {
+            head.processLatencyMarker(element.asLatencyMarker());
+        }
+    }
+
+    /**
+     * 由CheckpointCoordinator在其他线程中调用，只对数据源子任务有效
+     */
+    public void triggerCheckpoint(long checkpointId, boolean full) {
+        inputGate.putMail(() -> performCheckpoint(checkpointId, full));
+    }
+
+    public void notifyCheckpointComplete(long checkpointId) {
+        inputGate.putMail(() -> {
+            try {
+                for (StreamOperator<?> operator : operators) {
+                    operator.notifyCheckpointComplete(checkpointId);
+                }
+            } catch (Exception e) {
+                throw NopException.adapt(e);
+            }
+        });
+    }
+
+    public void abortCheckpoint(long checkpointId) {
+        inputGate.putMail(() -> {
+            if (numBlockedChannels > 0 && alignCheckpointId == checkpointId) {
+                lastHandledCheckpointId = checkpointId;
+                try {
+                    releaseBlockedChannels();
+                } catch (Exception e) {
+                    throw NopException.adapt(e);
+                }
+            } else if (checkpointId > lastHandledCheckpointId) {
+                lastHandledCheckpointId = checkpointId;
+            }
+        });
+    }
+
+    private void performCheckpoint(long checkpointId, boolean full) {
+        try {
+            for (StreamOperator<?> operator : operators) {
+                operator.prepareSnapshotPreBarrier(checkpointId);
+            }
+
+            // 快照在任务线程中同步生成，写入文件由CheckpointCoordinator异步完成
+            KeyedStateSnapshot keyedState = stateBackend == null ? null : stateBackend.snapshot(full);
+            List<TimerSnapshot> timers = new ArrayList<>();
+            for (LocalTimeServiceManager<?> timeServiceManager : timeServiceManagers) {
+                timers.addAll(timeServiceManager.snapshotTimers());
+            }
+            Serializable sourceState = source instanceof CheckpointedSource
+                    ? ((CheckpointedSource) source).snapshotState(checkpointId) : null;
+
+            CheckpointBarrier barrier = new CheckpointBarrier(checkpointId, full);
+            for (PartitionOutput<?> output : partitionOutputs) {
+                output.broadcastBarrier(barrier);
+            }
+
+            checkpointCoordinator.acknowledgeCheckpoint(this,
+                    new TaskStateSnapshot(checkpointId, keyedState, timers, sourceState));
+        } catch (Exception e) {
+            throw NopException.adapt(e);
+        }
+    }
+
+    /**
+     * 在子任务启动之前调用，按照顺序叠加一个原有子任务的状态文件链。并行度改变时一个子任务可能需要恢复多个原有子任务的状态
+     *
+     * @param keyFilter 只恢复属于本子任务的key
+     */
+    public void restoreState(List<TaskStateSnapshot> snapshots, Predicate<Object> keyFilter) {
+        if (snapshots.isEmpty())
+            return;
+
+        if (stateBackend != null) {
+            for (TaskStateSnapshot snapshot : snapshots) {
+                if (snapshot.getKeyedState() != null)
+                    stateBackend.restore(snapshot.getKeyedState(), keyFilter);
+            }
+        }
+
+        // 定时器和数据源的状态每次都是全量保存的
+        TaskStateSnapshot last = snapshots.get(snapshots.size() - 1);
+        if (last.getTimers() != null && !last.getTimers().isEmpty()) {
+            List<TimerSnapshot> timers = new ArrayList<>();
+            for (TimerSnapshot timer : last.getTimers()) {
+                if (keyFilter == null || keyFilter.test(timer.getKey()))
+                    timers.add(timer);
+            }
+            for (LocalTimeServiceManager<?> timeServiceManager : timeServiceManagers) {
+                timeServiceManager.restoreTimers(timers);
+            }
+        }
+
+        if (last.getSourceState() != null && source instanceof CheckpointedSource)
+            ((CheckpointedSource) source).restoreState(last.getSourceState());
+    }
+
+    @Override
+    public String toString() {
+        return taskName;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+/**
+ * 子任务的运行统计。只由子任务线程写入，其他线程读取到的是近似值
+ */
+public class TaskMetrics {
+    private final String taskName;
+
+    private volatile long numRecordsIn;
+    private volatile long numRecordsOut;
+    private volatile long backPressuredNanos;
+    private volatile long numSideOutputDropped;
+    private volatile long numMails;
+
+    public TaskMetrics(String taskName) {
+        this.taskName = taskName;
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public long getNumRecordsIn() {
+        return numRecordsIn;
+    }
+
+    public long getNumRecordsOut() {
+        return numRecordsOut;
+    }
+
+    /**
+     * 因为下游队列满而阻塞的累计时间
+     */
+    public long getBackPressuredNanos() {
+        return backPressuredNanos;
+    }
+
+    public long getNumSideOutputDropped() {
+        return numSideOutputDropped;
+    }
+
+    public long getNumMails() {
+        return numMails;
+    }
+
+    void addRecordsIn(int count) {
+        numRecordsIn += count;
+    }
+
+    void incRecordsOut() {
+        numRecordsOut++;
+    }
+
+    void addBackPressuredNanos(long nanos) {
+        backPressuredNanos += nanos;
+    }
+
+    void incSideOutputDropped() {
+        numSideOutputDropped++;
+    }
+
+    void incMails() {
+        numMails++;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskMetrics[" + taskName + ",in=" + numRecordsIn + ",out=" + numRecordsOut
+                + ",backPressuredMs=" + backPressuredNanos / 1000_000 + "]";
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.runtime;
+
+import io.nop.stream.core.operators.InternalTimer;
+
+import java.util.Objects;
+
+final class TimerHeapInternalTimer<K, N> implements InternalTimer<K, N>, Comparable<TimerHeapInternalTimer<K, N>> {
+    private final long timestamp;
+    private final K key;
+    private final N namespace;
+
+    TimerHeapInternalTimer(long timestamp, K key, N namespace) {
+        this.timestamp = timestamp;
+        this.key = key;
+        this.namespace = namespace;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public K getKey() {
+        return key;
+    }
+
+    @Override
+    public N getNamespace() {
+        return namespace;
+    }
+
+    @Override
+    public int compareTo(TimerHeapInternalTimer<K, N> o) {
+        return Long.compare(timestamp, o.timestamp);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof TimerHeapInternalTimer))
+            return false;
+        TimerHeapInternalTimer<?, ?> other = (TimerHeapInternalTimer<?, ?>) o;
+        return timestamp == other.timestamp && Objects.equals(key, other.key)
+                && Objects.equals(namespace, other.namespace);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, key, namespace);
+    }
+
+    @Override
+    public String toString() {
+        return "Timer{timestamp=" + timestamp + ",key=" + key + ",namespace=" + namespace + "}";
+    }
+}
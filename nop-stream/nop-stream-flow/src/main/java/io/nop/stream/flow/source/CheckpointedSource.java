@@ -0,0 +1,21 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.source;
+
+import java.io.Serializable;
+
+/**
+ * 支持checkpoint的数据源。snapshotState在数据源线程中collect的间隙调用，返回的状态表示此前已经输出的数据的位置，
+ * 作业从checkpoint恢复时在run之前调用restoreState，数据源应该从该位置之后继续输出
+ */
+public interface CheckpointedSource {
+
+    Serializable snapshotState(long checkpointId);
+
+    void restoreState(Serializable state);
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.source;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+/**
+ * 从Iterable中读取数据，主要用于测试以及有界数据的处理。checkpoint中记录已经输出的条目数，恢复时跳过这些条目
+ */
+public class FromIteratorSourceFunction<T> implements SourceFunction<T>, CheckpointedSource {
+    private static final long serialVersionUID = 1L;
+
+    private final Iterable<T> data;
+    private volatile boolean running = true;
+
+    private long emittedCount;
+    private long skipCount;
+
+    public FromIteratorSourceFunction(Iterable<T> data) {
+        this.data = data;
+    }
+
+    @Override
+    public void run(SourceContext<T> ctx) {
+        Iterator<T> it = data.iterator();
+        emittedCount = 0;
+        while (emittedCount < skipCount && it.hasNext()) {
+            it.next();
+            emittedCount++;
+        }
+
+        while (running && it.hasNext()) {
+            ctx.collect(it.next());
+            emittedCount++;
+        }
+    }
+
+    @Override
+    public void cancel() {
+        running = false;
+    }
+
+    @Override
+    public Serializable snapshotState(long checkpointId) {
+        return emittedCount;
+    }
+
+    @Override
+    public void restoreState(Serializable state) {
+        this.skipCount = (Long) state;
+    }
+}
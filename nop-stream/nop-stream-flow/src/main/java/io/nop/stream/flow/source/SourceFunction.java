@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow.source;
+
+import io.nop.stream.core.common.functions.StreamFunction;
+import io.nop.stream.core.streamrecord.watermark.Watermark;
+
+/**
+ * 数据源。run方法在数据源子任务的线程中执行，返回时表示输入结束。
+ * 与数据源串联(chain)在一起的算子的处理时间定时器也在collect的间隙中执行，因此run方法不应该长时间阻塞而不调用collect
+ */
+public interface SourceFunction<T> extends StreamFunction {
+
+    void run(SourceContext<T> ctx) throws Exception;
+
+    /**
+     * 从其他线程调用，要求run方法尽快返回
+     */
+    void cancel();
+
+    interface SourceContext<T> {
+        void collect(T element);
+
+        void collectWithTimestamp(T element, long timestamp);
+
+        void emitWatermark(Watermark mark);
+    }
+}
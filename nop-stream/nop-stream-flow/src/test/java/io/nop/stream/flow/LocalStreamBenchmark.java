@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.stream.core.common.functions.AggregateFunction;
+import io.nop.stream.core.common.functions.KeyedProcessFunction;
+import io.nop.stream.core.util.Collector;
+import io.nop.stream.core.windowing.assigners.TumblingEventTimeWindows;
+import io.nop.stream.flow.runtime.TaskMetrics;
+import io.nop.stream.flow.source.SourceFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地流处理运行时的吞吐量测试(每秒处理的记录数)。直接运行main函数时还会输出端到端延迟的分位数
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LocalStreamBenchmark {
+    static final int RECORD_COUNT = 200_000;
+    static final int KEY_COUNT = 1000;
+
+    static final LongAdder SINK_COUNT = new LongAdder();
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    static class CountingSource implements SourceFunction<TestEvent> {
+        private final int count;
+        private volatile boolean running = true;
+
+        CountingSource(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void run(SourceContext<TestEvent> ctx) {
+            for (int i = 0; i < count && running; i++) {
+                ctx.collect(new TestEvent("k" + (i % KEY_COUNT), "A", i, 1));
+            }
+        }
+
+        @Override
+        public void cancel() {
+            running = false;
+        }
+    }
+
+    static class CountAggregate implements AggregateFunction<TestEvent, long[], Long> {
+        @Override
+        public long[] createAccumulator() {
+            return new long[1];
+        }
+
+        @Override
+        public long[] add(TestEvent value, long[] acc) {
+            acc[0]++;
+            return acc;
+        }
+
+        @Override
+        public Long getResult(long[] acc) {
+            return acc[0];
+        }
+
+        @Override
+        public long[] merge(long[] a, long[] b) {
+            a[0] += b[0];
+            return a;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORD_COUNT)
+    public long windowAggregate() {
+        SINK_COUNT.reset();
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(parallelism);
+
+        env.fromSource(new CountingSource(RECORD_COUNT), "Counting Source")
+                .assignTimestampsAndWatermarks((event, ts) -> event.getTime(), Duration.ofMillis(10),
+                        Duration.ofMillis(50))
+                .keyBy(TestEvent::getKey)
+                .window(TumblingEventTimeWindows.of(Duration.ofMillis(1000)))
+                .aggregate(new CountAggregate())
+                .addSink(value -> SINK_COUNT.add(value));
+
+        env.execute("window-benchmark");
+        return SINK_COUNT.sum();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORD_COUNT)
+    public long keyedPassThrough() {
+        SINK_COUNT.reset();
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(parallelism);
+
+        env.fromSource(new CountingSource(RECORD_COUNT), "Counting Source")
+                .keyBy(TestEvent::getKey)
+                .map(TestEvent::getValue)
+                .addSink(value -> SINK_COUNT.increment());
+
+        env.execute("pass-through-benchmark");
+        return SINK_COUNT.sum();
+    }
+
+    // ----------------------------------------------------------------------------
+    // 延迟测试：源端记录发出时间，sink中计算端到端延迟
+    // ----------------------------------------------------------------------------
+
+    static final long[] LATENCIES = new long[RECORD_COUNT];
+    static final AtomicInteger LATENCY_INDEX = new AtomicInteger();
+
+    static class NanoTimeSource implements SourceFunction<Long> {
+        private volatile boolean running = true;
+
+        @Override
+        public void run(SourceContext<Long> ctx) {
+            for (int i = 0; i < RECORD_COUNT && running; i++) {
+                ctx.collect(System.nanoTime());
+            }
+        }
+
+        @Override
+        public void cancel() {
+            running = false;
+        }
+    }
+
+    static class ForwardFunction extends KeyedProcessFunction<Long, Long, Long> {
+        @Override
+        public void processElement(Long value, Context ctx, Collector<Long> out) {
+            out.collect(value);
+        }
+    }
+
+    static void measureLatency(int parallelism) {
+        LATENCY_INDEX.set(0);
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(parallelism);
+
+        env.fromSource(new NanoTimeSource(), "NanoTime Source")
+                .keyBy(value -> value % KEY_COUNT)
+                .process(new ForwardFunction())
+                .addSink(value -> LATENCIES[LATENCY_INDEX.getAndIncrement()] = System.nanoTime() - value);
+
+        long beginTime = System.nanoTime();
+        long backPressured = 0;
+        for (TaskMetrics metrics : env.execute("latency-benchmark").getTaskMetrics()) {
+            backPressured += metrics.getBackPressuredNanos();
+        }
+        long time = System.nanoTime() - beginTime;
+
+        long[] sorted = Arrays.copyOf(LATENCIES, LATENCY_INDEX.get());
+        Arrays.sort(sorted);
+        System.out.printf("parallelism=%d,records=%d,throughput=%.0f/s,p50=%dus,p99=%dus,p999=%dus,max=%dus," +
+                        "backPressuredMs=%d%n",
+                parallelism, sorted.length, sorted.length * 1e9 / time, percentile(sorted, 0.5) / 1000,
+                percentile(sorted, 0.99) / 1000, percentile(sorted, 0.999) / 1000,
+                sorted[sorted.length - 1] / 1000, backPressured / 1000_000);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        return sorted[Math.min((int) (sorted.length * p), sorted.length - 1)];
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int parallelism : new int[]{1, 4}) {
+            // 第一次运行用于预热
+            measureLatency(parallelism);
+            measureLatency(parallelism);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(LocalStreamBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
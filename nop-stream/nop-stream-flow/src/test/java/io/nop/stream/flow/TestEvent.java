@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import java.io.Serializable;
+
+public class TestEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String key;
+    private final String name;
+    private final long time;
+    private final int value;
+
+    public TestEvent(String key, String name, long time, int value) {
+        this.key = key;
+        this.name = name;
+        this.time = time;
+        this.value = value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return key + ":" + name + "@" + time;
+    }
+}
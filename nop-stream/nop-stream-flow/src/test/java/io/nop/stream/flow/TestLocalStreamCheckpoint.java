@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.stream.checkpoint.storage.CheckpointMetadata;
+import io.nop.stream.checkpoint.storage.FileCheckpointStorage;
+import io.nop.stream.core.common.functions.KeyedProcessFunction;
+import io.nop.stream.core.common.state.ValueState;
+import io.nop.stream.core.common.state.ValueStateDescriptor;
+import io.nop.stream.core.operators.StreamingRuntimeContext;
+import io.nop.stream.core.util.Collector;
+import io.nop.stream.flow.runtime.LocalStreamJob;
+import io.nop.stream.flow.runtime.TaskMetrics;
+import io.nop.stream.flow.source.FromIteratorSourceFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLocalStreamCheckpoint {
+    static final int KEY_COUNT = 10;
+    static final int EVENT_COUNT = 2000;
+
+    static final Map<String, Long> COUNTS = new ConcurrentHashMap<>();
+    static final AtomicInteger PROCESSED = new AtomicInteger();
+    static volatile int failAt;
+
+    @TempDir
+    File checkpointDir;
+
+    /**
+     * 每条数据间隔1毫秒，保证作业失败之前已经完成了若干次checkpoint
+     */
+    static class SlowEvents implements Iterable<TestEvent>, Serializable {
+        @Override
+        public Iterator<TestEvent> iterator() {
+            return new Iterator<TestEvent>() {
+                int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < EVENT_COUNT;
+                }
+
+                @Override
+                public TestEvent next() {
+                    LockSupport.parkNanos(1000000);
+                    int i = index++;
+                    return new TestEvent("k" + (i % KEY_COUNT), "A", i, 1);
+                }
+            };
+        }
+    }
+
+    static class CountFunction extends KeyedProcessFunction<String, TestEvent, String> {
+        private transient ValueState<Long> count;
+
+        @Override
+        public void processElement(TestEvent value, Context ctx, Collector<String> out) throws Exception {
+            if (PROCESSED.incrementAndGet() == failAt)
+                throw new IllegalStateException("test-fail");
+
+            if (count == null)
+                count = ((StreamingRuntimeContext) getRuntimeContext()).getState(
+                        new ValueStateDescriptor<>("count", Long.class));
+
+            Long current = count.value();
+            long next = current == null ? 1 : current + 1;
+            count.update(next);
+            out.collect(value.getKey() + "=" + next);
+        }
+    }
+
+    private LocalStreamEnvironment newEnv(int parallelism) {
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(parallelism);
+        env.setBufferCapacity(16);
+        env.enableCheckpointing(Duration.ofMillis(50), checkpointDir);
+
+        env.fromSource(new FromIteratorSourceFunction<>(new SlowEvents()), "Slow Source")
+                .keyBy(TestEvent::getKey)
+                .process(new CountFunction())
+                .addSink(value -> {
+                    int pos = value.indexOf('=');
+                    COUNTS.merge(value.substring(0, pos), Long.parseLong(value.substring(pos + 1)), Math::max);
+                });
+        return env;
+    }
+
+    @Test
+    public void testRestoreAfterFailure() {
+        COUNTS.clear();
+        PROCESSED.set(0);
+        failAt = EVENT_COUNT * 3 / 5;
+
+        assertThrows(NopException.class, () -> newEnv(2).execute("restore-test"));
+
+        CheckpointMetadata metadata = new FileCheckpointStorage(new File(checkpointDir, "restore-test")).loadLatest();
+        assertNotNull(metadata);
+        assertTrue(metadata.getStateSize() > 0);
+
+        // 恢复时改变并行度，状态按照key重新分区
+        failAt = -1;
+        LocalStreamJob job = newEnv(3).execute("restore-test");
+        assertEquals(metadata.getCheckpointId(), job.getRestoredCheckpoint().getCheckpointId());
+
+        // 每个key的计数恰好等于数据条数，说明恢复的状态与数据源的读取位置一致
+        assertEquals(KEY_COUNT, COUNTS.size());
+        for (Map.Entry<String, Long> entry : COUNTS.entrySet()) {
+            assertEquals(EVENT_COUNT / KEY_COUNT, entry.getValue(), entry.getKey());
+        }
+
+        long sourceRecords = 0;
+        for (TaskMetrics metrics : job.getTaskMetrics()) {
+            if (metrics.getTaskName().startsWith("Slow Source"))
+                sourceRecords += metrics.getNumRecordsIn();
+        }
+        assertTrue(sourceRecords < EVENT_COUNT);
+        assertNotNull(job.getCheckpointCoordinator().getLastCompleted());
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.stream.flow;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.stream.cep.CEP;
+import io.nop.stream.cep.pattern.Pattern;
+import io.nop.stream.cep.pattern.conditions.SimpleCondition;
+import io.nop.stream.core.common.functions.AggregateFunction;
+import io.nop.stream.core.common.functions.KeyedProcessFunction;
+import io.nop.stream.core.common.typeinfo.TypeInformation;
+import io.nop.stream.core.util.Collector;
+import io.nop.stream.core.windowing.assigners.TumblingEventTimeWindows;
+import io.nop.stream.flow.runtime.LocalStreamJob;
+import io.nop.stream.flow.runtime.TaskMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLocalStreamEnvironment {
+    // 并行执行时算子会被序列化复制，结果需要保存在静态变量中
+    static final Queue<String> RESULTS = new ConcurrentLinkedQueue<>();
+
+    static List<TestEvent> makeEvents(int keyCount, int count) {
+        List<TestEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new TestEvent("k" + (i % keyCount), i % 2 == 0 ? "A" : "B", i, 1));
+        }
+        return events;
+    }
+
+    static class SumAggregate implements AggregateFunction<TestEvent, int[], Integer> {
+        @Override
+        public int[] createAccumulator() {
+            return new int[1];
+        }
+
+        @Override
+        public int[] add(TestEvent value, int[] acc) {
+            acc[0] += value.getValue();
+            return acc;
+        }
+
+        @Override
+        public Integer getResult(int[] acc) {
+            return acc[0];
+        }
+
+        @Override
+        public int[] merge(int[] a, int[] b) {
+            a[0] += b[0];
+            return a;
+        }
+    }
+
+    @Test
+    public void testWindowAggregate() {
+        RESULTS.clear();
+
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(4);
+        env.setBufferCapacity(16);
+
+        env.fromCollection(makeEvents(10, 1000))
+                .filter(event -> event.getValue() > 0)
+                .assignTimestampsAndWatermarks((event, ts) -> event.getTime(), Duration.ofMillis(0), Duration.ZERO)
+                .keyBy(TestEvent::getKey)
+                .window(TumblingEventTimeWindows.of(Duration.ofMillis(100)))
+                .<int[], Integer, String>aggregate(new SumAggregate(), (key, window, sum, out) -> out.collect(key + ":" + window.getStart() + "=" + sum))
+                .addSink(value -> RESULTS.add(value));
+
+        LocalStreamJob job = env.execute("window-test");
+
+        // 10个key，每个100ms窗口中每个key有10条数据
+        assertEquals(100, RESULTS.size());
+        for (String result : RESULTS) {
+            assertTrue(result.endsWith("=10"), result);
+        }
+
+        long recordsIn = 0;
+        for (TaskMetrics metrics : job.getTaskMetrics()) {
+            if (metrics.getTaskName().startsWith("Window"))
+                recordsIn += metrics.getNumRecordsIn();
+        }
+        assertEquals(1000, recordsIn);
+    }
+
+    static class TimeoutFunction extends KeyedProcessFunction<String, TestEvent, String> {
+        @Override
+        public void processElement(TestEvent value, Context ctx, Collector<String> out) {
+            ctx.timerService().registerEventTimeTimer(value.getTime() + 50);
+        }
+
+        @Override
+        public void onTimer(long timestamp, OnTimerContext ctx, Collector<String> out) {
+            out.collect(ctx.getCurrentKey() + "@" + timestamp);
+        }
+    }
+
+    @Test
+    public void testKeyedProcessTimer() {
+        RESULTS.clear();
+
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(3);
+
+        env.fromCollection(makeEvents(5, 20))
+                .assignTimestampsAndWatermarks((event, ts) -> event.getTime(), Duration.ofMillis(5), Duration.ZERO)
+                .keyBy(TestEvent::getKey)
+                .process(new TimeoutFunction())
+                .addSink(value -> RESULTS.add(value));
+
+        env.execute("timer-test");
+
+        assertEquals(20, RESULTS.size());
+        assertTrue(RESULTS.contains("k0@50"));
+        assertTrue(RESULTS.contains("k4@69"));
+    }
+
+    @Test
+    public void testCep() {
+        RESULTS.clear();
+
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(2);
+
+        Pattern<TestEvent, ?> pattern = Pattern.<TestEvent>begin("a")
+                .where(SimpleCondition.of(event -> event.getName().equals("A")))
+                .next("b")
+                .where(SimpleCondition.of(event -> event.getName().equals("B")));
+
+        List<TestEvent> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String key = "k" + i;
+            events.add(new TestEvent(key, "A", 10 * i + 1, 1));
+            events.add(new TestEvent(key, "B", 10 * i + 2, 1));
+            events.add(new TestEvent(key, "C", 10 * i + 3, 1));
+            events.add(new TestEvent(key, "A", 10 * i + 4, 1));
+            events.add(new TestEvent(key, "B", 10 * i + 5, 1));
+        }
+
+        CEP.pattern(env.fromCollection(events)
+                                .assignTimestampsAndWatermarks((event, ts) -> event.getTime(), Duration.ofMillis(0), Duration.ZERO)
+                                .keyBy(TestEvent::getKey), pattern)
+                .select((Map<String, List<TestEvent>> match) ->
+                        match.get("a").get(0).getKey() + ":" + match.get("a").get(0).getTime(), new TypeInformation<String>() {
+                })
+                .addSink(value -> RESULTS.add(value));
+
+        env.execute("cep-test");
+
+        TreeMap<String, Integer> counts = new TreeMap<>();
+        for (String result : RESULTS) {
+            counts.merge(result.substring(0, result.indexOf(':')), 1, Integer::sum);
+        }
+        assertEquals(8, RESULTS.size(), RESULTS.toString());
+        assertEquals(4, counts.size());
+    }
+
+    static class FailFunction extends KeyedProcessFunction<String, TestEvent, String> {
+        @Override
+        public void processElement(TestEvent value, Context ctx, Collector<String> out) {
+            if (value.getTime() == 100)
+                throw new IllegalStateException("test-fail");
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        LocalStreamEnvironment env = new LocalStreamEnvironment();
+        env.setParallelism(2);
+        env.setBufferCapacity(4);
+
+        env.fromCollection(makeEvents(3, 10000))
+                .keyBy(TestEvent::getKey)
+                .process(new FailFunction())
+                .addSink(value -> RESULTS.add(value));
+
+        NopException e = assertThrows(NopException.class, () -> env.execute("fail-test"));
+        assertEquals(NopStreamFlowErrors.ERR_STREAM_FLOW_JOB_FAIL.getErrorCode(), e.getErrorCode());
+    }
+}
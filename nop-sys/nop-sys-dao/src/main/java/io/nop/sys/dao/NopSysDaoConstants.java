@@ -13,4 +13,8 @@ public interface NopSysDaoConstants extends _NopSysDaoConstants{
     String SEQ_DEFAULT = "default";
 
     String SEQ_TYPE_SNOWFLAKE = "snowflake";
+
+    String METER_SEQ_SEGMENT_FETCH = "nop.sys.seq.segment-fetch";
+
+    String METER_SEQ_SEGMENT_WAIT = "nop.sys.seq.segment-wait";
 }
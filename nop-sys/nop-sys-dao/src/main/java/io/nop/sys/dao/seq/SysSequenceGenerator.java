@@ -7,6 +7,7 @@
  */
 package io.nop.sys.dao.seq;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.nop.api.core.annotations.ioc.IgnoreDepends;
 import io.nop.api.core.annotations.ioc.InjectValue;
 import io.nop.api.core.annotations.txn.TransactionPropagation;
@@ -14,7 +15,9 @@ import io.nop.api.core.context.ContextProvider;
 import io.nop.api.core.exceptions.NopException;
 import io.nop.commons.cache.CacheConfig;
 import io.nop.commons.cache.LocalCache;
+import io.nop.commons.concurrent.executor.GlobalExecutors;
 import io.nop.commons.crypto.HashHelper;
+import io.nop.commons.metrics.GlobalMeterRegistry;
 import io.nop.commons.util.MathHelper;
 import io.nop.commons.util.NetHelper;
 import io.nop.commons.util.StringHelper;
@@ -34,7 +37,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import static io.nop.api.core.ApiConfigs.CFG_HOST_ID;
@@ -57,6 +65,43 @@ public class SysSequenceGenerator implements ISequenceGenerator {
     private final LocalCache<String, SeqItem> defaultCache = LocalCache.newCache("default-seq-cache",
             CacheConfig.newConfig(500, 60 * 1000L));
 
+    private boolean segmentMode;
+
+    private int segmentPrefetchPercent = 80;
+
+    private Executor prefetchExecutor;
+
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 号段模式下从数据库中预留的一段sequence值[start, maxValue)，通过CAS无锁分配。
+     */
+    static class SeqSegment {
+        static final long EXHAUSTED = Long.MIN_VALUE;
+
+        final AtomicLong cursor;
+        final long maxValue;
+        final int stepSize;
+        final long prefetchValue;
+        final boolean useUuid;
+        final boolean snowflake;
+        final AtomicBoolean prefetchStarted = new AtomicBoolean();
+
+        SeqSegment(long start, int stepSize, int count, int prefetchPercent, boolean useUuid, boolean snowflake) {
+            this.cursor = new AtomicLong(start);
+            this.stepSize = stepSize;
+            this.maxValue = start + (long) stepSize * count;
+            this.prefetchValue = start + (long) stepSize * count * prefetchPercent / 100;
+            this.useUuid = useUuid;
+            this.snowflake = snowflake;
+        }
+
+        long next() {
+            long value = cursor.getAndAdd(stepSize);
+            return value < maxValue ? value : EXHAUSTED;
+        }
+    }
+
     static class SeqItem {
         String name; // 对象类型, 如果没有找到匹配的对象类型，则使用default类型
         String dbSeq; // 是否有对应的数据库sequence, 如果有则使用数据库sequence配置，而忽略nextValue设置
@@ -66,9 +111,14 @@ public class SysSequenceGenerator implements ISequenceGenerator {
         long usedCount; // 当cacheSize大于0时，这里的值表示已经使用了多少缓存的nextValue, 当usedCount
         // >= cacheSize时，需要获取新的nextValue
         long nextValue; // 下一个可用的sequence值
-        boolean useUuid; // 是否使用UUID来生成随机id
+        volatile boolean useUuid; // 是否使用UUID来生成随机id
+
+        volatile boolean snowflake;
 
-        boolean snowflake;
+        int segmentSize; // 号段模式下每次从数据库预留的值的个数，对应于数据库中配置的cacheSize
+
+        volatile SeqSegment segment; // 号段模式下当前正在分配的号段
+        CompletableFuture<SeqSegment> nextSegment; // 异步预取的下一个号段
 
         SeqItem(NopSysSequence seq) {
             this.name = seq.getSeqName();
@@ -90,6 +140,11 @@ public class SysSequenceGenerator implements ISequenceGenerator {
                 this.stepSize = 1;
             }
             this.nextValue = seq.getNextValue() == null ? 0 : seq.getNextValue();
+            this.segmentSize = seq.getCacheSize() == null ? 0 : seq.getCacheSize();
+        }
+
+        boolean isSegmentEnabled() {
+            return !useUuid && !snowflake && segmentSize > 0;
         }
     }
 
@@ -111,6 +166,28 @@ public class SysSequenceGenerator implements ISequenceGenerator {
         this.defaultSeqInitNextValue = defaultSeqInitNextValue;
     }
 
+    /**
+     * 启用号段模式后，每个节点每次从数据库预留stepSize*cacheSize个值，在内存中无锁分配，
+     * 并在当前号段使用到segmentPrefetchPercent时异步预取下一个号段
+     */
+    @InjectValue("@cfg:nop.sys.seq.segment-mode|false")
+    public void setSegmentMode(boolean segmentMode) {
+        this.segmentMode = segmentMode;
+    }
+
+    @InjectValue("@cfg:nop.sys.seq.segment-prefetch-percent|80")
+    public void setSegmentPrefetchPercent(int segmentPrefetchPercent) {
+        this.segmentPrefetchPercent = segmentPrefetchPercent;
+    }
+
+    public void setPrefetchExecutor(Executor prefetchExecutor) {
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @Inject
     @IgnoreDepends
     public void setOrmTemplate(IOrmTemplate ormTemplate) {
@@ -133,6 +210,11 @@ public class SysSequenceGenerator implements ISequenceGenerator {
             workerId = Math.abs(HashHelper.murmur3_32(hostId) % 1024);
         }
         this.snowflakeGenerator = new SnowflakeSequenceGeneator(workerId);
+
+        if (prefetchExecutor == null)
+            prefetchExecutor = GlobalExecutors.globalWorker();
+        if (meterRegistry == null)
+            meterRegistry = GlobalMeterRegistry.instance();
     }
 
     public void lazyInit() {
@@ -178,6 +260,12 @@ public class SysSequenceGenerator implements ISequenceGenerator {
     @Override
     public long generateLong(String seqName, boolean useDefault) {
         SeqItem item = this.findSeqItem(seqName, useDefault);
+        if (segmentMode) {
+            long value = nextSegmentValue(item);
+            if (value != SeqSegment.EXHAUSTED)
+                return value;
+        }
+
         synchronized (item) {
             if (item.snowflake) {
                 return snowflakeGenerator.generateLong(seqName, useDefault);
@@ -204,6 +292,12 @@ public class SysSequenceGenerator implements ISequenceGenerator {
         // 3. 如果没有缓存的值，则从数据库中重新装载SeqItem, 获取nextValue,
         // 并更新数据库中的nextValue配置
         SeqItem item = this.findSeqItem(seqName, useDefault);
+        if (segmentMode) {
+            long value = nextSegmentValue(item);
+            if (value != SeqSegment.EXHAUSTED)
+                return String.valueOf(value);
+        }
+
         synchronized (item) {
             if (item.snowflake)
                 return snowflakeGenerator.generateString(seqName, useDefault);
@@ -246,6 +340,89 @@ public class SysSequenceGenerator implements ISequenceGenerator {
         });
     }
 
+    /**
+     * 号段模式下分配sequence值。如果该sequence不适用号段模式(uuid/snowflake或者cacheSize<=0)，则返回EXHAUSTED
+     */
+    long nextSegmentValue(SeqItem item) {
+        while (item.isSegmentEnabled()) {
+            SeqSegment segment = item.segment;
+            if (segment != null) {
+                long value = segment.next();
+                if (value != SeqSegment.EXHAUSTED) {
+                    if (value >= segment.prefetchValue)
+                        prefetchSegment(item, segment);
+                    return value;
+                }
+            }
+            switchSegment(item, segment);
+        }
+        return SeqSegment.EXHAUSTED;
+    }
+
+    void prefetchSegment(SeqItem item, SeqSegment segment) {
+        if (!segment.prefetchStarted.compareAndSet(false, true))
+            return;
+
+        synchronized (item) {
+            if (item.segment != segment || item.nextSegment != null)
+                return;
+            item.nextSegment = CompletableFuture.supplyAsync(() -> allocateSegment(item), prefetchExecutor);
+        }
+    }
+
+    void switchSegment(SeqItem item, SeqSegment exhausted) {
+        synchronized (item) {
+            // 其他线程已经切换了号段
+            if (item.segment != exhausted)
+                return;
+
+            long beginTime = System.nanoTime();
+
+            SeqSegment next = null;
+            CompletableFuture<SeqSegment> future = item.nextSegment;
+            item.nextSegment = null;
+            if (future != null) {
+                try {
+                    next = future.join();
+                } catch (Exception e) {
+                    LOG.warn("nop.sys.seq.prefetch-segment-fail:name={}", item.name, e);
+                }
+            }
+
+            if (next == null)
+                next = allocateSegment(item);
+
+            item.useUuid = next.useUuid;
+            item.snowflake = next.snowflake;
+            item.segment = next;
+
+            meterRegistry.timer(NopSysDaoConstants.METER_SEQ_SEGMENT_WAIT, "seq.name", item.name)
+                    .record(System.nanoTime() - beginTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    SeqSegment allocateSegment(SeqItem item) {
+        long beginTime = System.nanoTime();
+        SeqSegment segment = runLocal(session -> {
+            NopSysSequence seq = (NopSysSequence) session.load(NopSysSequence.class.getName(), item.name);
+            session.lock(seq);
+
+            int stepSize = seq.getStepSize() != null && seq.getStepSize() > 0 ? seq.getStepSize() : 1;
+            int count = seq.getCacheSize() != null && seq.getCacheSize() > 0 ? seq.getCacheSize() : 1;
+            long start = seq.getNextValue() == null ? 0 : seq.getNextValue();
+            seq.setNextValue(start + (long) stepSize * count);
+
+            LOG.debug("nop.sys.seq.allocate-segment:name={},start={},count={}", item.name, start, count);
+            return new SeqSegment(start, stepSize, count, segmentPrefetchPercent,
+                    StringHelper.isYes(seq.getIsUuid()),
+                    NopSysDaoConstants.SEQ_TYPE_SNOWFLAKE.equals(seq.getSeqType()));
+        });
+
+        meterRegistry.timer(NopSysDaoConstants.METER_SEQ_SEGMENT_FETCH, "seq.name", item.name)
+                .record(System.nanoTime() - beginTime, TimeUnit.NANOSECONDS);
+        return segment;
+    }
+
     SeqItem findSeqItem(String seqName, boolean useDefault) {
         SeqItem item = cache.get(seqName);
         if (item != null)
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.sys.service;
+
+import io.nop.api.core.annotations.autotest.NopTestConfig;
+import io.nop.api.core.annotations.autotest.NopTestProperty;
+import io.nop.autotest.junit.JunitBaseTestCase;
+import io.nop.dao.api.IDaoProvider;
+import io.nop.dao.api.IEntityDao;
+import io.nop.dao.seq.ISequenceGenerator;
+import io.nop.sys.dao.entity.NopSysSequence;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@NopTestConfig(localDb = true, initDatabaseSchema = true)
+@NopTestProperty(name = "nop.sys.seq.segment-mode", value = "true")
+public class TestSysSequenceGenerator extends JunitBaseTestCase {
+
+    @Inject
+    ISequenceGenerator sequenceGenerator;
+
+    @Inject
+    IDaoProvider daoProvider;
+
+    @Test
+    public void testSegmentMode() {
+        IEntityDao<NopSysSequence> dao = daoProvider.daoFor(NopSysSequence.class);
+        NopSysSequence seq = dao.newEntity();
+        seq.setSeqName("test_segment");
+        seq.setSeqType("seq");
+        seq.setNextValue(1L);
+        seq.setStepSize(1);
+        seq.setCacheSize(10);
+        seq.setCreatedBy("a");
+        seq.setCreateTime(new Timestamp(System.currentTimeMillis()));
+        seq.setUpdatedBy("a");
+        seq.setUpdateTime(new Timestamp(System.currentTimeMillis()));
+        dao.saveEntity(seq);
+
+        assertEquals(1L, sequenceGenerator.generateLong("test_segment", false));
+        assertEquals(2L, sequenceGenerator.generateLong("test_segment", false));
+
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int k = 0; k < 50; k++) {
+                    values.add(sequenceGenerator.generateLong("test_segment", false));
+                }
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(200, values.size());
+        assertTrue(values.stream().allMatch(v -> v > 2));
+
+        NopSysSequence saved = daoProvider.daoFor(NopSysSequence.class).getEntityById("test_segment");
+        assertTrue(saved.getNextValue() > values.stream().mapToLong(Long::longValue).max().getAsLong());
+    }
+}
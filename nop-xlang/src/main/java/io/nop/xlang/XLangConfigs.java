@@ -43,4 +43,20 @@ public interface XLangConfigs {
     @Description("如果大于0，则表示XLang调试服务启动后在一段时间内阻塞当前程序执行，等待外部调试器连接。单位为秒")
     IConfigReference<Integer> CFG_XLANG_DEBUGGER_WAIT_CONNECTION_SECONDS = varRef(s_loc,
             "nop.xlang.debugger.wait-connection-seconds", Integer.class, 1);
+
+    @Description("是否启用表达式分层编译。启用后，解释执行次数超过阈值的表达式会通过Janino编译为Java字节码执行")
+    IConfigReference<Boolean> CFG_XLANG_TIERED_COMPILE_ENABLED = varRef(s_loc,
+            "nop.xlang.tiered-compile.enabled", Boolean.class, false);
+
+    @Description("表达式解释执行多少次之后触发编译")
+    IConfigReference<Integer> CFG_XLANG_TIERED_COMPILE_THRESHOLD = varRef(s_loc,
+            "nop.xlang.tiered-compile.threshold", Integer.class, 1000);
+
+    @Description("是否启用合并后XDSL模型节点的磁盘缓存。缓存按照依赖资源的修改时间和配置变量判断是否失效，用于加快冷启动")
+    IConfigReference<Boolean> CFG_XDSL_PERSIST_CACHE_ENABLED = varRef(s_loc,
+            "nop.xlang.xdsl.persist-cache.enabled", Boolean.class, false);
+
+    @Description("XDSL模型节点磁盘缓存的保存目录")
+    IConfigReference<String> CFG_XDSL_PERSIST_CACHE_DIR = varRef(s_loc,
+            "nop.xlang.xdsl.persist-cache.dir", String.class, "_cache/xdsl");
 }
@@ -993,4 +993,7 @@ public interface XLangErrors {
 
     ErrorCode ERR_BIZ_OBJ_PK_NOT_SIMPLE = define("nop.err.biz.obj-pk-not-simple",
             "对象[{objName}]的主键不是简单类型", ARG_OBJ_NAME);
+
+    ErrorCode ERR_XLANG_COMPILE_EXPR_TO_JAVA_FAIL = define("nop.err.xlang.compile-expr-to-java-fail",
+            "表达式编译为Java代码失败:{expr}", ARG_EXPR);
 }
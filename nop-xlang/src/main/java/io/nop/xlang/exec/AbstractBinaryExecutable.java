@@ -23,6 +23,14 @@ public abstract class AbstractBinaryExecutable extends AbstractExecutable {
         this.right = Guard.notNull(right, "right");
     }
 
+    public IExecutableExpression getLeft() {
+        return left;
+    }
+
+    public IExecutableExpression getRight() {
+        return right;
+    }
+
     public abstract XLangOperator getOperator();
 
     public void display(StringBuilder sb) {
@@ -44,6 +44,10 @@ public class FunctionExecutable extends AbstractExecutable {
         }
     }
 
+    public String getFuncName() {
+        return funcName;
+    }
+
     @Override
     public void display(StringBuilder sb) {
         sb.append(funcName);
@@ -29,6 +29,18 @@ public class IfExecutable extends AbstractExecutable {
         this.alternate = alternate;
     }
 
+    public IExecutableExpression getTest() {
+        return test;
+    }
+
+    public IExecutableExpression getConsequent() {
+        return consequent;
+    }
+
+    public IExecutableExpression getAlternate() {
+        return alternate;
+    }
+
     public boolean containsReturnStatement() {
         if (consequent.containsReturnStatement())
             return true;
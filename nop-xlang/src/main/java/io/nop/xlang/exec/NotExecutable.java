@@ -23,6 +23,10 @@ public class NotExecutable extends AbstractExecutable {
         this.expr = Guard.notNull(expr, "expr");
     }
 
+    public IExecutableExpression getExpr() {
+        return expr;
+    }
+
     @Override
     public boolean allowBreakPoint() {
         return false;
@@ -23,6 +23,14 @@ public class SlotIdentifierExecutable extends AbstractExecutable {
         this.slot = Guard.nonNegativeInt(slot, "slot");
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
     @Override
     public boolean allowBreakPoint() {
         return false;
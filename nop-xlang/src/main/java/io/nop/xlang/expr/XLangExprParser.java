@@ -10,6 +10,7 @@ package io.nop.xlang.expr;
 import io.nop.antlr4.common.ParseTreeResult;
 import io.nop.api.core.util.SourceLocation;
 import io.nop.core.lang.eval.IExecutableExpression;
+import io.nop.xlang.XLangConfigs;
 import io.nop.xlang.api.IXLangCompileScope;
 import io.nop.xlang.ast.Expression;
 import io.nop.xlang.ast.Program;
@@ -18,6 +19,7 @@ import io.nop.xlang.compile.LexicalScopeAnalysis;
 import io.nop.xlang.compile.PrintResolvedIdentifier;
 import io.nop.xlang.compile.TypeInferenceProcessor;
 import io.nop.xlang.compile.TypeInferenceState;
+import io.nop.xlang.janino.TieredCompileExecutable;
 import io.nop.xlang.parse.XLangASTBuildVisitor;
 import io.nop.xlang.parse.XLangParseTreeParser;
 import io.nop.xlang.parse.antlr.XLangParser;
@@ -70,6 +72,11 @@ public class XLangExprParser implements IXLangExprParser {
             // expr = (Expression) new ExpressionOptimizer().optimize(expr, scope);
         }
 
-        return new BuildExecutableProcessor().processAST(expr, scope);
+        IExecutableExpression executable = new BuildExecutableProcessor().processAST(expr, scope);
+        if (optimize && XLangConfigs.CFG_XLANG_TIERED_COMPILE_ENABLED.get()
+                && !XLangConfigs.CFG_XLANG_DEBUGGER_ENABLED.get()) {
+            executable = TieredCompileExecutable.wrap(executable, XLangConfigs.CFG_XLANG_TIERED_COMPILE_THRESHOLD.get());
+        }
+        return executable;
     }
 }
\ No newline at end of file
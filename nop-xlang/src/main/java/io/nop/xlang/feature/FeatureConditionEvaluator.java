@@ -13,6 +13,7 @@ import io.nop.api.core.util.SourceLocation;
 import io.nop.commons.text.tokenizer.TextScanner;
 import io.nop.commons.util.MathHelper;
 import io.nop.core.lang.eval.IPredicateEvaluator;
+import io.nop.core.resource.cache.ConfigVarCollector;
 import io.nop.xlang.ast.XLangOperator;
 import io.nop.xlang.expr.simple.AbstractPredicateExprParser;
 
@@ -82,6 +83,7 @@ public class FeatureConditionEvaluator implements IPredicateEvaluator {
         protected Object tokenExpr(TextScanner sc) {
             String name = sc.nextConfigVar();
             sc.skipBlank();
+            ConfigVarCollector.record(name);
             // 作为表达式返回，因此不能为null
             return AppConfig.var(name,"");
         }
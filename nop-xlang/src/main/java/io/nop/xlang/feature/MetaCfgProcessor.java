@@ -4,6 +4,7 @@ import io.nop.api.core.config.IConfigProvider;
 import io.nop.api.core.exceptions.NopException;
 import io.nop.api.core.util.SourceLocation;
 import io.nop.commons.util.StringHelper;
+import io.nop.core.resource.cache.ConfigVarCollector;
 import io.nop.xlang.xdsl.XDslConstants;
 
 import java.util.List;
@@ -41,6 +42,7 @@ public class MetaCfgProcessor {
                                          String defaultValue) {
         int n = configVars.size();
         for (int i = 0; i < n; i++) {
+            ConfigVarCollector.record(configVars.get(i));
             Object value = configProvider.getConfigValue(configVars.get(i), null);
             if (!StringHelper.isEmptyObject(value))
                 return value;
@@ -15,6 +15,7 @@ import io.nop.commons.util.objects.ValueWithLocation;
 import io.nop.core.lang.xml.XNode;
 import io.nop.core.lang.xml.parse.XNodeParser;
 import io.nop.core.resource.IResource;
+import io.nop.core.resource.cache.ConfigVarCollector;
 import io.nop.xlang.xdsl.XDslConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -106,7 +107,7 @@ public class XModelInclude {
         if (!StringHelper.isBlank(onAttr.asString())) {
             String on = onAttr.asString();
             if (StringHelper.isValidConfigVar(on)) {
-                if (ConvertHelper.toFalsy(AppConfig.var(on)))
+                if (ConvertHelper.toFalsy(getFeatureVar(on)))
                     return false;
             } else {
                 if (!evaluator.evaluate(onAttr.getLocation(), onAttr.asString()))
@@ -118,7 +119,7 @@ public class XModelInclude {
             String off = offAttr.asString();
 
             if (StringHelper.isValidConfigVar(off)) {
-                if (ConvertHelper.toTruthy(AppConfig.var(off)))
+                if (ConvertHelper.toTruthy(getFeatureVar(off)))
                     return false;
             }
 
@@ -129,6 +130,11 @@ public class XModelInclude {
         return true;
     }
 
+    private Object getFeatureVar(String name) {
+        ConfigVarCollector.record(name);
+        return AppConfig.var(name);
+    }
+
     private void tryProcessMetaCfg(XNode node) {
         if (isEnableMetaCfg(node)) {
             processMetaCfg(node, AppConfig.getConfigProvider());
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.xlang.janino;
+
+import io.nop.api.core.convert.ConvertHelper;
+import io.nop.commons.util.MathHelper;
+import io.nop.core.lang.eval.EvalRuntime;
+import io.nop.core.lang.eval.IExecutableExpression;
+import io.nop.core.lang.eval.IExpressionExecutor;
+
+/**
+ * JaninoExecutableCompiler生成的Java类的基类。无法编译的子表达式作为holes保留，在生成代码中通过executor回调解释执行。
+ */
+public abstract class CompiledExpressionBody {
+    protected IExecutableExpression[] holes;
+    protected Object[] consts;
+
+    void init(IExecutableExpression[] holes, Object[] consts) {
+        this.holes = holes;
+        this.consts = consts;
+    }
+
+    public abstract Object execute(IExpressionExecutor executor, EvalRuntime rt);
+
+    protected static boolean truthy(Object value) {
+        return ConvertHelper.toTruthy(value);
+    }
+
+    protected static Object plus(Object v1, Object v2) {
+        if (v1 instanceof String || v2 instanceof String)
+            return String.valueOf(v1) + String.valueOf(v2);
+        return MathHelper.add(v1, v2);
+    }
+}
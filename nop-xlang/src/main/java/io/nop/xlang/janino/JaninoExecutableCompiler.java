@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.xlang.janino;
+
+import io.nop.api.core.exceptions.NopException;
+import io.nop.core.lang.eval.IExecutableExpression;
+import io.nop.xlang.exec.AbstractBinaryExecutable;
+import io.nop.xlang.exec.AndExecutable;
+import io.nop.xlang.exec.DivideExecutable;
+import io.nop.xlang.exec.EqExecutable;
+import io.nop.xlang.exec.GeExecutable;
+import io.nop.xlang.exec.GtExecutable;
+import io.nop.xlang.exec.IfExecutable;
+import io.nop.xlang.exec.LeExecutable;
+import io.nop.xlang.exec.LiteralExecutable;
+import io.nop.xlang.exec.LtExecutable;
+import io.nop.xlang.exec.MinusExecutable;
+import io.nop.xlang.exec.MultiplyExecutable;
+import io.nop.xlang.exec.NeExecutable;
+import io.nop.xlang.exec.NegExecutable;
+import io.nop.xlang.exec.NotExecutable;
+import io.nop.xlang.exec.NullExecutable;
+import io.nop.xlang.exec.OrExecutable;
+import io.nop.xlang.exec.PlusExecutable;
+import io.nop.xlang.exec.SlotIdentifierExecutable;
+import org.codehaus.janino.ClassBodyEvaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.nop.xlang.XLangErrors.ARG_EXPR;
+import static io.nop.xlang.XLangErrors.ERR_XLANG_COMPILE_EXPR_TO_JAVA_FAIL;
+
+/**
+ * 将BuildExecutableProcessor生成的IExecutableExpression树翻译为Java源码，并通过Janino编译为字节码。
+ * <p>
+ * 算术、比较、逻辑运算、条件表达式以及局部变量读取会被内联到生成的代码中。当操作数的静态类型已知(目前来自于字面量以及
+ * 内联运算的结果类型)时，直接使用int/long/double/boolean等原始类型运算，避免装箱。其他无法内联的子表达式作为hole保留，
+ * 在运行时通过IExpressionExecutor回调解释执行，因此任意表达式树都可以被部分编译，语义与解释执行保持一致。
+ */
+public class JaninoExecutableCompiler {
+    static final String GEN_CLASS_PREFIX = "io.nop.xlang.janino.gen.CompiledExpr_";
+
+    private static final AtomicLong s_seq = new AtomicLong();
+
+    enum JType {
+        INT, LONG, DOUBLE, BOOLEAN, OBJECT;
+
+        boolean isNumeric() {
+            return this == INT || this == LONG || this == DOUBLE;
+        }
+
+        static JType promote(JType t1, JType t2) {
+            if (t1 == DOUBLE || t2 == DOUBLE)
+                return DOUBLE;
+            if (t1 == LONG || t2 == LONG)
+                return LONG;
+            return INT;
+        }
+    }
+
+    static final class Code {
+        final String expr;
+        final JType type;
+
+        Code(String expr, JType type) {
+            this.expr = expr;
+            this.type = type;
+        }
+
+        String boxed() {
+            switch (type) {
+                case INT:
+                    return "Integer.valueOf(" + expr + ")";
+                case LONG:
+                    return "Long.valueOf(" + expr + ")";
+                case DOUBLE:
+                    return "Double.valueOf(" + expr + ")";
+                case BOOLEAN:
+                    return "Boolean.valueOf(" + expr + ")";
+                default:
+                    return expr;
+            }
+        }
+
+        String truthy() {
+            if (type == JType.BOOLEAN)
+                return expr;
+            return "truthy(" + boxed() + ")";
+        }
+    }
+
+    /**
+     * 只有根节点本身可以被内联时，编译才有意义
+     */
+    public static boolean isCompilable(IExecutableExpression expr) {
+        return expr instanceof PlusExecutable || expr instanceof MinusExecutable
+                || expr instanceof MultiplyExecutable || expr instanceof DivideExecutable
+                || expr instanceof GtExecutable || expr instanceof GeExecutable
+                || expr instanceof LtExecutable || expr instanceof LeExecutable
+                || expr instanceof EqExecutable || expr instanceof NeExecutable
+                || expr instanceof AndExecutable || expr instanceof OrExecutable
+                || expr instanceof NotExecutable || expr instanceof NegExecutable
+                || expr instanceof IfExecutable;
+    }
+
+    public CompiledExpressionBody compile(IExecutableExpression expr) {
+        GenContext context = new GenContext();
+        Code code = gen(expr, context);
+
+        String className = GEN_CLASS_PREFIX + s_seq.incrementAndGet();
+        String source = buildClassBody(code);
+        try {
+            ClassBodyEvaluator evaluator = new ClassBodyEvaluator();
+            evaluator.setClassName(className);
+            evaluator.setExtendedClass(CompiledExpressionBody.class);
+            evaluator.setDefaultImports("io.nop.commons.util.MathHelper", "io.nop.core.lang.eval.EvalRuntime",
+                    "io.nop.core.lang.eval.IExpressionExecutor");
+            evaluator.setParentClassLoader(CompiledExpressionBody.class.getClassLoader());
+            evaluator.cook(source);
+
+            CompiledExpressionBody body = (CompiledExpressionBody) evaluator.getClazz().getConstructor().newInstance();
+            body.init(context.holes.toArray(IExecutableExpression.EMPTY_EXPRS), context.consts.toArray());
+            return body;
+        } catch (Exception e) {
+            throw new NopException(ERR_XLANG_COMPILE_EXPR_TO_JAVA_FAIL, e).loc(expr.getLocation())
+                    .param(ARG_EXPR, expr.display());
+        }
+    }
+
+    public String generateSource(IExecutableExpression expr) {
+        return buildClassBody(gen(expr, new GenContext()));
+    }
+
+    private String buildClassBody(Code code) {
+        return "public Object execute(IExpressionExecutor executor, EvalRuntime rt) {\n" +
+                "    return " + code.boxed() + ";\n" +
+                "}\n";
+    }
+
+    static final class GenContext {
+        final List<IExecutableExpression> holes = new ArrayList<>();
+        final List<Object> consts = new ArrayList<>();
+
+        Code hole(IExecutableExpression expr) {
+            int index = holes.size();
+            holes.add(expr);
+            return new Code("executor.execute(holes[" + index + "], rt)", JType.OBJECT);
+        }
+
+        Code constant(Object value) {
+            int index = consts.size();
+            consts.add(value);
+            return new Code("consts[" + index + "]", JType.OBJECT);
+        }
+    }
+
+    Code gen(IExecutableExpression expr, GenContext context) {
+        if (expr instanceof NullExecutable)
+            return new Code("null", JType.OBJECT);
+
+        if (expr instanceof LiteralExecutable)
+            return genLiteral(((LiteralExecutable) expr).getValue(), context);
+
+        if (expr instanceof SlotIdentifierExecutable)
+            return new Code("rt.getCurrentFrame().getStackValue(" + ((SlotIdentifierExecutable) expr).getSlot() + ")",
+                    JType.OBJECT);
+
+        if (expr instanceof AbstractBinaryExecutable)
+            return genBinary((AbstractBinaryExecutable) expr, context);
+
+        if (expr instanceof NotExecutable) {
+            Code code = gen(((NotExecutable) expr).getExpr(), context);
+            return new Code("(!" + code.truthy() + ")", JType.BOOLEAN);
+        }
+
+        if (expr instanceof NegExecutable) {
+            Code code = gen(((NegExecutable) expr).getExpr(), context);
+            if (code.type.isNumeric())
+                return new Code("(-" + code.expr + ")", code.type);
+            return new Code("MathHelper.neg(" + code.boxed() + ")", JType.OBJECT);
+        }
+
+        if (expr instanceof IfExecutable)
+            return genIf((IfExecutable) expr, context);
+
+        return context.hole(expr);
+    }
+
+    private Code genLiteral(Object value, GenContext context) {
+        if (value instanceof Integer)
+            return new Code("(" + value + ")", JType.INT);
+        if (value instanceof Long)
+            return new Code("(" + value + "L)", JType.LONG);
+        if (value instanceof Double && Double.isFinite((Double) value))
+            return new Code("(" + value + "D)", JType.DOUBLE);
+        if (value instanceof Boolean)
+            return new Code(value.toString(), JType.BOOLEAN);
+        return context.constant(value);
+    }
+
+    private Code genIf(IfExecutable expr, GenContext context) {
+        Code test = gen(expr.getTest(), context);
+        Code consequent = gen(expr.getConsequent(), context);
+        if (expr.getAlternate() == null)
+            return new Code("(" + test.truthy() + " ? " + consequent.boxed() + " : null)", JType.OBJECT);
+
+        Code alternate = gen(expr.getAlternate(), context);
+        if (consequent.type == alternate.type && consequent.type != JType.OBJECT)
+            return new Code("(" + test.truthy() + " ? " + consequent.expr + " : " + alternate.expr + ")",
+                    consequent.type);
+        return new Code("(" + test.truthy() + " ? (Object) " + consequent.boxed() + " : (Object) "
+                + alternate.boxed() + ")", JType.OBJECT);
+    }
+
+    private Code genBinary(AbstractBinaryExecutable expr, GenContext context) {
+        if (!isCompilable(expr))
+            return context.hole(expr);
+
+        if (expr instanceof AndExecutable || expr instanceof OrExecutable) {
+            // 非boolean操作数的&&和||返回操作数本身，需要保留解释执行的语义
+            GenContext sub = new GenContext();
+            Code left = gen(expr.getLeft(), sub);
+            Code right = gen(expr.getRight(), sub);
+            if (left.type != JType.BOOLEAN || right.type != JType.BOOLEAN)
+                return context.hole(expr);
+
+            left = gen(expr.getLeft(), context);
+            right = gen(expr.getRight(), context);
+            String op = expr instanceof AndExecutable ? " && " : " || ";
+            return new Code("(" + left.expr + op + right.expr + ")", JType.BOOLEAN);
+        }
+
+        Code left = gen(expr.getLeft(), context);
+        Code right = gen(expr.getRight(), context);
+        boolean numeric = left.type.isNumeric() && right.type.isNumeric();
+
+        if (expr instanceof PlusExecutable) {
+            if (numeric)
+                return new Code("(" + left.expr + " + " + right.expr + ")", JType.promote(left.type, right.type));
+            return new Code("plus(" + left.boxed() + ", " + right.boxed() + ")", JType.OBJECT);
+        }
+
+        if (expr instanceof MinusExecutable)
+            return genArith(left, right, numeric, " - ", "minus");
+
+        if (expr instanceof MultiplyExecutable)
+            return genArith(left, right, numeric, " * ", "multiply");
+
+        if (expr instanceof DivideExecutable) {
+            // 除零返回NaN，整除时返回整数，这些语义由MathHelper.divide负责
+            return new Code("MathHelper.divide(" + left.boxed() + ", " + right.boxed() + ")", JType.OBJECT);
+        }
+
+        if (expr instanceof GtExecutable)
+            return genCompare(left, right, numeric, " > ", "gt");
+        if (expr instanceof GeExecutable)
+            return genCompare(left, right, numeric, " >= ", "ge");
+        if (expr instanceof LtExecutable)
+            return genCompare(left, right, numeric, " < ", "lt");
+        if (expr instanceof LeExecutable)
+            return genCompare(left, right, numeric, " <= ", "le");
+
+        boolean eq = expr instanceof EqExecutable;
+        if (numeric || (left.type == JType.BOOLEAN && right.type == JType.BOOLEAN))
+            return new Code("(" + left.expr + (eq ? " == " : " != ") + right.expr + ")", JType.BOOLEAN);
+        return new Code((eq ? "" : "!") + "MathHelper.xlangEq(" + left.boxed() + ", " + right.boxed() + ")",
+                JType.BOOLEAN);
+    }
+
+    private Code genArith(Code left, Code right, boolean numeric, String op, String helper) {
+        if (numeric)
+            return new Code("(" + left.expr + op + right.expr + ")", JType.promote(left.type, right.type));
+        return new Code("MathHelper." + helper + "(" + left.boxed() + ", " + right.boxed() + ")", JType.OBJECT);
+    }
+
+    private Code genCompare(Code left, Code right, boolean numeric, String op, String helper) {
+        if (numeric)
+            return new Code("(" + left.expr + op + right.expr + ")", JType.BOOLEAN);
+        return new Code("MathHelper." + helper + "(" + left.boxed() + ", " + right.boxed() + ")", JType.BOOLEAN);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.xlang.janino;
+
+import io.nop.api.core.util.Guard;
+import io.nop.core.lang.eval.EvalRuntime;
+import io.nop.core.lang.eval.IExecutableExpression;
+import io.nop.core.lang.eval.IExecutableExpressionVisitor;
+import io.nop.core.lang.eval.IExpressionExecutor;
+import io.nop.xlang.exec.AbstractExecutable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 分层执行：先解释执行，执行次数达到阈值之后通过JaninoExecutableCompiler编译为字节码，此后直接执行编译结果。
+ * 编译失败时退回到解释执行，不再尝试编译。
+ */
+public class TieredCompileExecutable extends AbstractExecutable {
+    static final Logger LOG = LoggerFactory.getLogger(TieredCompileExecutable.class);
+
+    private final IExecutableExpression expr;
+    private final int threshold;
+
+    /**
+     * 计数允许有竞争，多计或者少计几次不影响正确性
+     */
+    private int execCount;
+    private volatile boolean compileFailed;
+    private volatile CompiledExpressionBody compiled;
+
+    public TieredCompileExecutable(IExecutableExpression expr, int threshold) {
+        super(expr.getLocation());
+        this.expr = Guard.notNull(expr, "expr");
+        this.threshold = threshold;
+    }
+
+    public static IExecutableExpression wrap(IExecutableExpression expr, int threshold) {
+        if (expr == null || !JaninoExecutableCompiler.isCompilable(expr))
+            return expr;
+        return new TieredCompileExecutable(expr, threshold);
+    }
+
+    public IExecutableExpression getExpr() {
+        return expr;
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    @Override
+    public boolean allowBreakPoint() {
+        return expr.allowBreakPoint();
+    }
+
+    @Override
+    public boolean containsReturnStatement() {
+        return expr.containsReturnStatement();
+    }
+
+    @Override
+    public boolean containsBreakStatement() {
+        return expr.containsBreakStatement();
+    }
+
+    @Override
+    public void display(StringBuilder sb) {
+        expr.display(sb);
+    }
+
+    @Override
+    public Object execute(IExpressionExecutor executor, EvalRuntime rt) {
+        CompiledExpressionBody body = compiled;
+        if (body != null)
+            return body.execute(executor, rt);
+
+        if (!compileFailed && ++execCount >= threshold) {
+            body = tryCompile();
+            if (body != null)
+                return body.execute(executor, rt);
+        }
+        return expr.execute(executor, rt);
+    }
+
+    private synchronized CompiledExpressionBody tryCompile() {
+        if (compiled != null || compileFailed)
+            return compiled;
+
+        try {
+            compiled = new JaninoExecutableCompiler().compile(expr);
+            LOG.debug("nop.xlang.tiered-compile-expr:expr={},loc={}", expr.display(), getLocation());
+        } catch (Exception e) {
+            LOG.warn("nop.xlang.tiered-compile-expr-fail:expr={},loc={}", expr.display(), getLocation(), e);
+            compileFailed = true;
+        }
+        return compiled;
+    }
+
+    @Override
+    public void visit(IExecutableExpressionVisitor visitor) {
+        expr.visit(visitor);
+    }
+}
@@ -15,12 +15,23 @@ import io.nop.core.lang.xml.XNode;
 import io.nop.core.resource.IResource;
 import io.nop.core.resource.ResourceHelper;
 import io.nop.core.resource.VirtualFileSystem;
+import io.nop.core.resource.cache.CacheSerializeSupport;
+import io.nop.core.resource.cache.ConfigVarCollector;
+import io.nop.core.resource.component.IResourceComponentManager;
+import io.nop.core.resource.component.ResourceComponentManager;
+import io.nop.core.resource.deps.ResourceDependencySet;
+import io.nop.xlang.XLangConfigs;
 import io.nop.xlang.XLangConstants;
 import io.nop.xlang.api.XLang;
 import io.nop.xlang.feature.XModelInclude;
 import io.nop.xlang.xdef.IXDefinition;
 import io.nop.xlang.xmeta.SchemaLoader;
 
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import static io.nop.xlang.XLangErrors.ARG_NODE;
 import static io.nop.xlang.XLangErrors.ARG_REQUIRED_SCHEMA;
 import static io.nop.xlang.XLangErrors.ARG_SCHEMA_PATH;
@@ -30,16 +41,77 @@ import static io.nop.xlang.XLangErrors.ERR_XDSL_NO_SCHEMA;
 public class DslNodeLoader implements IXDslNodeLoader {
     public static final DslNodeLoader INSTANCE = new DslNodeLoader();
 
+    private volatile XDslPersistCache persistCache;
+
     @Override
     public XDslExtendResult loadFromResource(IResource resource, String requiredSchema, XDslExtendPhase phase) {
+        if (phase == XDslExtendPhase.validate && XLangConfigs.CFG_XDSL_PERSIST_CACHE_ENABLED.get()
+                && isPersistCacheable(resource))
+            return loadWithPersistCache(resource, requiredSchema);
+
+        XNode node = loadActiveNode(resource);
+        return loadFromNode(node, requiredSchema, phase);
+    }
+
+    private XNode loadActiveNode(IResource resource) {
         // 处理feature:on和feature:off开关
         XNode node = XModelInclude.instance().keepComment(true).loadActiveNodeFromResource(resource);
 //        if (!node.hasAttr("x:schema") && !node.hasAttr("xmlns:x") && requiredSchema != null) {
 //            node.setAttr("x:schema", requiredSchema);
 //            node.setAttr("xmlns:x", XLangConstants.XDSL_SCHEMA_XDSL);
 //        }
+        return node;
+    }
 
-        return loadFromNode(node, requiredSchema, phase);
+    private boolean isPersistCacheable(IResource resource) {
+        return resource.getPath() != null && resource.lastModified() > 0;
+    }
+
+    XDslPersistCache getPersistCache() {
+        File dir = new File(XLangConfigs.CFG_XDSL_PERSIST_CACHE_DIR.get()).getAbsoluteFile();
+        XDslPersistCache cache = persistCache;
+        if (cache == null || !cache.getDir().equals(dir)) {
+            cache = new XDslPersistCache(dir);
+            persistCache = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * 命中缓存时跳过解析和差量合并。依赖集合按照展平后的形式重新登记到当前正在编译的组件上，保证依赖文件修改后模型仍然能够被重新加载。
+     * 缓存中记录的配置变量也重新登记到外层的收集器上，外层模型的缓存同样依赖于这些变量
+     */
+    private XDslExtendResult loadWithPersistCache(IResource resource, String requiredSchema) {
+        XDslPersistCache cache = getPersistCache();
+        IResourceComponentManager manager = ResourceComponentManager.instance();
+
+        XDslPersistCache.CacheEntry entry = cache.get(resource);
+        if (entry != null) {
+            for (String depPath : entry.getDepends().keySet()) {
+                if (!depPath.equals(resource.getPath()))
+                    manager.traceDepends(depPath);
+            }
+            ConfigVarCollector.recordAll(entry.getConfigValues().keySet());
+            IXDefinition def = loadSchema(entry.getSchemaPath(), requiredSchema);
+            XDslExtendResult result = entry.toResult(def);
+            dumpMergedResult(resource.getPath(), result);
+            return result;
+        }
+
+        ResourceDependencySet deps = new ResourceDependencySet(resource);
+        Set<String> configVars = new HashSet<>();
+        String[] schemaPath = new String[1];
+        XDslExtendResult result = ConfigVarCollector.collectTo(configVars, () -> manager.collectDependsTo(deps, () -> {
+            XNode node = loadActiveNode(resource);
+            schemaPath[0] = node.attrText(XDslKeys.of(node).SCHEMA);
+            return loadFromNode(node, requiredSchema, XDslExtendPhase.validate);
+        }));
+        manager.traceAllDepends(deps.getDepends().keySet());
+
+        Map<String, String> configValues = CacheSerializeSupport.collectConfigValues(AppConfig.getConfigProvider(),
+                configVars);
+        cache.put(resource, configValues, CacheSerializeSupport.collectDependsTimestamps(deps), schemaPath[0], result);
+        return result;
     }
 
     @Override
@@ -48,14 +120,7 @@ public class DslNodeLoader implements IXDslNodeLoader {
         String schemaPath = node.attrText(keys.SCHEMA);
         if (StringHelper.isEmpty(schemaPath))
             throw new NopException(ERR_XDSL_NO_SCHEMA).param(ARG_NODE, node);
-        IXDefinition def = SchemaLoader.loadXDefinition(schemaPath);
-
-        if (requiredSchema != null) {
-            if (!requiredSchema.equals(def.getXdefBase()) && !def.getAllRefSchemas().contains(requiredSchema)) {
-                throw new NopException(ERR_XDSL_NOT_REQUIRED_SCHEMA).param(ARG_REQUIRED_SCHEMA, requiredSchema)
-                        .param(ARG_SCHEMA_PATH, schemaPath);
-            }
-        }
+        IXDefinition def = loadSchema(schemaPath, requiredSchema);
 
         IEvalScope scope = XLang.newEvalScope();
         XDslExtendResult result = new XDslExtender(keys).xtend(def, def.getRootNode(), node, phase, scope);
@@ -71,6 +136,18 @@ public class DslNodeLoader implements IXDslNodeLoader {
         return result;
     }
 
+    private IXDefinition loadSchema(String schemaPath, String requiredSchema) {
+        IXDefinition def = SchemaLoader.loadXDefinition(schemaPath);
+
+        if (requiredSchema != null) {
+            if (!requiredSchema.equals(def.getXdefBase()) && !def.getAllRefSchemas().contains(requiredSchema)) {
+                throw new NopException(ERR_XDSL_NOT_REQUIRED_SCHEMA).param(ARG_REQUIRED_SCHEMA, requiredSchema)
+                        .param(ARG_SCHEMA_PATH, schemaPath);
+            }
+        }
+        return def;
+    }
+
     private void dumpMergedResult(String path, XDslExtendResult result) {
         if (AppConfig.isDebugMode() && path != null) {
             String dumpPath = ResourceHelper.getDumpPath(path);
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.xlang.xdsl;
+
+import io.nop.api.core.config.AppConfig;
+import io.nop.api.core.exceptions.NopException;
+import io.nop.commons.util.FileHelper;
+import io.nop.commons.util.StringHelper;
+import io.nop.core.lang.xml.XNode;
+import io.nop.core.resource.IResource;
+import io.nop.core.resource.cache.CacheSerializeSupport;
+import io.nop.core.resource.cache.CacheSerializeSupport.CacheDataInput;
+import io.nop.core.resource.cache.CacheSerializeSupport.CacheDataOutput;
+import io.nop.xlang.xdef.IXDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * 合并并校验之后的XDSL模型节点的磁盘缓存。缓存文件中记录了所有直接和间接依赖的资源文件的修改时间，
+ * 以及加载时读取过的配置变量的值，任何一项发生变化，缓存都会失效。
+ * <p>
+ * 只缓存XNode，不缓存最终解析得到的模型对象。模型对象中包含编译后的表达式，无法序列化。
+ */
+public class XDslPersistCache {
+    static final Logger LOG = LoggerFactory.getLogger(XDslPersistCache.class);
+
+    static final int MAGIC = 0x4E4F5058;
+    static final int FORMAT_VERSION = 2;
+
+    private final File dir;
+
+    public XDslPersistCache(File dir) {
+        this.dir = dir;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    public static class CacheEntry {
+        private final Map<String, Long> depends;
+        private final Map<String, String> configValues;
+        private final String nsPrefix;
+        private final String schemaPath;
+        private final boolean validated;
+        private final XNode node;
+        private final XNode config;
+        private final XNode postExtends;
+        private final XNode postParse;
+
+        public CacheEntry(Map<String, Long> depends, Map<String, String> configValues, String nsPrefix,
+                          String schemaPath, boolean validated,
+                          XNode node, XNode config, XNode postExtends, XNode postParse) {
+            this.depends = depends;
+            this.configValues = configValues;
+            this.nsPrefix = nsPrefix;
+            this.schemaPath = schemaPath;
+            this.validated = validated;
+            this.node = node;
+            this.config = config;
+            this.postExtends = postExtends;
+            this.postParse = postParse;
+        }
+
+        public Map<String, Long> getDepends() {
+            return depends;
+        }
+
+        public Map<String, String> getConfigValues() {
+            return configValues;
+        }
+
+        public String getSchemaPath() {
+            return schemaPath;
+        }
+
+        public XDslExtendResult toResult(IXDefinition xdef) {
+            XDslKeys keys = nsPrefix.equals(XDslKeys.DEFAULT.X_NS_PREFIX) ? XDslKeys.DEFAULT
+                    : new XDslKeys(nsPrefix.substring(0, nsPrefix.length() - 1));
+            XDslExtendResult result = new XDslExtendResult(keys);
+            result.setXdef(xdef);
+            result.setValidated(validated);
+            result.setNode(node);
+            result.setConfig(config);
+            result.setPostExtends(postExtends);
+            result.setPostParse(postParse);
+            return result;
+        }
+    }
+
+    File getCacheFile(IResource resource) {
+        String key = resource.getPath() + '|' + resource.getExternalPath();
+        return new File(dir, StringHelper.md5Hash(key) + ".bin");
+    }
+
+    public CacheEntry get(IResource resource) {
+        File file = getCacheFile(resource);
+        if (!file.exists())
+            return null;
+
+        try {
+            byte[] data = FileHelper.readBytes(file);
+            DataInputStream is = new DataInputStream(new ByteArrayInputStream(data));
+            if (is.readInt() != MAGIC || is.readInt() != FORMAT_VERSION)
+                return null;
+
+            CacheDataInput in = new CacheDataInput(is);
+            if (!resource.getPath().equals(in.readString()))
+                return null;
+
+            Map<String, String> configValues = in.readStringMap();
+            if (CacheSerializeSupport.isAnyConfigChanged(AppConfig.getConfigProvider(), configValues)) {
+                LOG.debug("nop.xlang.xdsl.persist-cache-config-changed:path={}", resource.getPath());
+                return null;
+            }
+
+            Map<String, Long> depends = in.readTimestamps();
+            if (CacheSerializeSupport.isAnyDependsChanged(depends)) {
+                LOG.debug("nop.xlang.xdsl.persist-cache-expired:path={}", resource.getPath());
+                return null;
+            }
+
+            String nsPrefix = in.readString();
+            String schemaPath = in.readString();
+            boolean validated = in.readBoolean();
+            XNode node = in.readXNode();
+            XNode config = in.readXNode();
+            XNode postExtends = in.readXNode();
+            XNode postParse = in.readXNode();
+            return new CacheEntry(depends, configValues, nsPrefix, schemaPath, validated, node, config, postExtends,
+                    postParse);
+        } catch (Exception e) {
+            LOG.warn("nop.xlang.xdsl.read-persist-cache-fail:path={},file={}", resource.getPath(), file, e);
+            return null;
+        }
+    }
+
+    public void put(IResource resource, Map<String, String> configValues, Map<String, Long> depends,
+                    String schemaPath, XDslExtendResult result) {
+        byte[] data;
+        try {
+            data = serialize(resource, configValues, depends, schemaPath, result);
+        } catch (NopException e) {
+            // x:gen-extends等动态生成的节点中可能包含无法序列化的属性值，此时放弃缓存
+            LOG.debug("nop.xlang.xdsl.skip-persist-cache:path={}", resource.getPath(), e);
+            return;
+        } catch (IOException e) {
+            throw NopException.adapt(e);
+        }
+
+        File file = getCacheFile(resource);
+        try {
+            dir.mkdirs();
+            File tmpFile = File.createTempFile(file.getName(), ".tmp", dir);
+            try {
+                Files.write(tmpFile.toPath(), data);
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tmpFile.delete();
+            }
+        } catch (Exception e) {
+            LOG.warn("nop.xlang.xdsl.write-persist-cache-fail:path={},file={}", resource.getPath(), file, e);
+        }
+    }
+
+    private byte[] serialize(IResource resource, Map<String, String> configValues, Map<String, Long> depends,
+                             String schemaPath, XDslExtendResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream os = new DataOutputStream(bytes);
+        os.writeInt(MAGIC);
+        os.writeInt(FORMAT_VERSION);
+
+        CacheDataOutput out = new CacheDataOutput(os);
+        out.writeString(resource.getPath());
+        out.writeStringMap(configValues);
+        out.writeTimestamps(depends);
+        out.writeString(result.getKeys().X_NS_PREFIX);
+        out.writeString(schemaPath);
+        out.writeBoolean(result.isValidated());
+        out.writeXNode(result.getNode());
+        out.writeXNode(result.getConfig());
+        out.writeXNode(result.getPostExtends());
+        out.writeXNode(result.getPostParse());
+        os.flush();
+        return bytes.toByteArray();
+    }
+}
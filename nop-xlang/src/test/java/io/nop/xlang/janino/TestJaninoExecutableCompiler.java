@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.xlang.janino;
+
+import io.nop.core.initialize.CoreInitialization;
+import io.nop.core.lang.eval.IEvalScope;
+import io.nop.core.lang.eval.IExecutableExpression;
+import io.nop.xlang.api.ExprEvalAction;
+import io.nop.xlang.api.XLang;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestJaninoExecutableCompiler {
+    @BeforeAll
+    public static void beforeAll() {
+        CoreInitialization.initialize();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        CoreInitialization.destroy();
+    }
+
+    private IExecutableExpression compile(String source) {
+        return XLang.newCompileTool().allowUnregisteredScopeVar(true).compileSimpleExpr(null, source).getExpr();
+    }
+
+    @Test
+    public void testCompiledResultSameAsInterpreted() {
+        String[] exprs = new String[]{
+                "1 + 2 * 3",
+                "1 + 2.5",
+                "10 / 4",
+                "3 - 1 > 1 && 2 <= 2",
+                "a + 1",
+                "a + 'x'",
+                "s + b",
+                "!(a > b) || a == 3",
+                "-a * 2",
+                "a > b ? a - b : b - a",
+                "a > 100 ? 1 : 2.0",
+                "a != null && b"
+        };
+
+        for (String source : exprs) {
+            IEvalScope scope = XLang.newEvalScope();
+            scope.setLocalValue("a", 3);
+            scope.setLocalValue("b", 5L);
+            scope.setLocalValue("s", "s");
+
+            IExecutableExpression expr = compile(source);
+            Object expected = new ExprEvalAction(expr).invoke(scope);
+
+            TieredCompileExecutable tiered = new TieredCompileExecutable(expr, 1);
+            Object compiled = new ExprEvalAction(tiered).invoke(scope);
+            assertEquals(expected, compiled, source);
+        }
+    }
+
+    @Test
+    public void testTieredCompileThreshold() {
+        IExecutableExpression expr = compile("a * 2 + 1");
+        assertTrue(JaninoExecutableCompiler.isCompilable(expr));
+
+        TieredCompileExecutable tiered = new TieredCompileExecutable(expr, 3);
+        IEvalScope scope = XLang.newEvalScope();
+        scope.setLocalValue("a", 4);
+
+        ExprEvalAction action = new ExprEvalAction(tiered);
+        assertEquals(9, action.invoke(scope));
+        assertEquals(9, action.invoke(scope));
+        assertFalse(tiered.isCompiled());
+        assertEquals(9, action.invoke(scope));
+        assertTrue(tiered.isCompiled());
+        assertEquals(9, action.invoke(scope));
+    }
+
+    @Test
+    public void testUnboxedLiteralArithmetic() {
+        IExecutableExpression expr = compile("1 + 2 * 3 > 6");
+        String source = new JaninoExecutableCompiler().generateSource(expr);
+        assertTrue(source.contains("((1) + ((2) * (3))) > (6)"), source);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2017-2024 Nop Platform. All rights reserved.
+ * Author: canonical_entropy@163.com
+ * Blog:   https://www.zhihu.com/people/canonical-entropy
+ * Gitee:  https://gitee.com/canonical-entropy/nop-entropy
+ * Github: https://github.com/entropy-cloud/nop-entropy
+ */
+package io.nop.xlang.xdsl;
+
+import io.nop.commons.util.FileHelper;
+import io.nop.core.initialize.CoreInitialization;
+import io.nop.core.resource.IResource;
+import io.nop.core.resource.impl.FileResource;
+import io.nop.core.unittest.BaseTestCase;
+import io.nop.xlang.XLangConfigs;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestXDslPersistCache extends BaseTestCase {
+    @BeforeAll
+    public static void init() {
+        CoreInitialization.initialize();
+    }
+
+    @AfterAll
+    public static void destroy() {
+        CoreInitialization.destroy();
+    }
+
+    String metaXml(String propName) {
+        return "<meta x:schema=\"/nop/schema/xmeta.xdef\" xmlns:x=\"/nop/schema/xdsl.xdef\">\n" +
+                "  <props>\n" +
+                "    <prop name=\"" + propName + "\" displayName=\"Test\"/>\n" +
+                "  </props>\n" +
+                "</meta>";
+    }
+
+    @Test
+    public void testLoadFromCache() {
+        File cacheDir = getTargetFile("xdsl-cache");
+        FileHelper.deleteAll(cacheDir);
+        File file = getTargetFile("xdsl-cache-src/test.xmeta");
+        FileHelper.writeText(file, metaXml("a"), null);
+
+        setTestConfig(XLangConfigs.CFG_XDSL_PERSIST_CACHE_ENABLED, true);
+        setTestConfig(XLangConfigs.CFG_XDSL_PERSIST_CACHE_DIR, cacheDir.getAbsolutePath());
+        try {
+            IResource resource = new FileResource(file);
+            XDslExtendResult result = DslNodeLoader.INSTANCE.loadFromResource(resource);
+            assertTrue(result.isValidated());
+
+            XDslPersistCache cache = DslNodeLoader.INSTANCE.getPersistCache();
+            XDslPersistCache.CacheEntry entry = cache.get(resource);
+            assertNotNull(entry);
+            assertEquals("/nop/schema/xmeta.xdef", entry.getSchemaPath());
+            assertTrue(entry.getDepends().containsKey(resource.getPath()));
+            assertTrue(entry.getDepends().containsKey("/nop/schema/xmeta.xdef"));
+
+            XDslExtendResult cached = DslNodeLoader.INSTANCE.loadFromResource(resource);
+            assertEquals(result.getNode().xml(), cached.getNode().xml());
+            assertEquals(result.getNode().getLocation(), cached.getNode().getLocation());
+            assertNotNull(cached.getXdef());
+            assertTrue(cached.isValidated());
+
+            // 源文件修改之后缓存失效
+            FileHelper.writeText(file, metaXml("b"), null);
+            file.setLastModified(file.lastModified() + 2000);
+            assertNull(cache.get(resource));
+
+            XDslExtendResult reloaded = DslNodeLoader.INSTANCE.loadFromResource(resource);
+            assertEquals("b", reloaded.getNode().childByTag("props").child(0).attrText("name"));
+        } finally {
+            setTestConfig(XLangConfigs.CFG_XDSL_PERSIST_CACHE_ENABLED, false);
+        }
+    }
+
+    @Test
+    public void testConfigChangeInvalidatesCache() {
+        File cacheDir = getTargetFile("xdsl-cache-cfg");
+        FileHelper.deleteAll(cacheDir);
+        File file = getTargetFile("xdsl-cache-src/test-feature.xmeta");
+        FileHelper.writeText(file, "<meta x:schema=\"/nop/schema/xmeta.xdef\" xmlns:x=\"/nop/schema/xdsl.xdef\"" +
+                " xmlns:feature=\"feature\">\n" +
+                "  <props>\n" +
+                "    <prop name=\"a\"/>\n" +
+                "    <prop name=\"b\" feature:on=\"test.persist-cache.feature\"/>\n" +
+                "  </props>\n" +
+                "</meta>", null);
+
+        setTestConfig(XLangConfigs.CFG_XDSL_PERSIST_CACHE_ENABLED, true);
+        setTestConfig(XLangConfigs.CFG_XDSL_PERSIST_CACHE_DIR, cacheDir.getAbsolutePath());
+        setTestConfig("test.persist-cache.feature", false);
+        try {
+            IResource resource = new FileResource(file);
+            XDslExtendResult result = DslNodeLoader.INSTANCE.loadFromResource(resource);
+            assertEquals(1, result.getNode().childByTag("props").getChildCount());
+
+            // 只有feature开关读取的变量被记录，缓存不依赖于其他配置
+            XDslPersistCache cache = DslNodeLoader.INSTANCE.getPersistCache();
+            XDslPersistCache.CacheEntry entry = cache.get(resource);
+            assertNotNull(entry);
+            assertEquals("false", entry.getConfigValues().get("test.persist-cache.feature"));
+            assertFalse(entry.getConfigValues().containsKey(XLangConfigs.CFG_XDSL_PERSIST_CACHE_DIR.getName()));
+
+            setTestConfig("test.persist-cache.feature", true);
+            assertNull(cache.get(resource));
+
+            XDslExtendResult reloaded = DslNodeLoader.INSTANCE.loadFromResource(resource);
+            assertEquals(2, reloaded.getNode().childByTag("props").getChildCount());
+        } finally {
+            setTestConfig(XLangConfigs.CFG_XDSL_PERSIST_CACHE_ENABLED, false);
+        }
+    }
+}